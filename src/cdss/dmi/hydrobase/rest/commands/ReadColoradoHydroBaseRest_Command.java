@@ -31,6 +31,8 @@ import javax.swing.JFrame;
 import riverside.datastore.DataStore;
 import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
+import rti.tscommandprocessor.core.TimeSeriesCache;
+import rti.tscommandprocessor.core.TimeSeriesReadExecutor;
 import RTi.TS.TS;
 import RTi.TS.TSIdent;
 import RTi.Util.GUI.InputFilter_JPanel;
@@ -324,6 +326,26 @@ throws InvalidCommandParameterException {
                         message, "Specify " + _Ignore + ", " + _Warn +
                         ", or blank for default of " + _Warn + "." ) );
     }
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		if ( !StringUtil.isInteger(MaxThreads) || (Integer.parseInt(MaxThreads) <= 0) ) {
+            message = "The MaxThreads parameter \"" + MaxThreads + "\" is invalid.";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the maximum number of threads as an integer > 0." ) );
+		}
+	}
+	String MaxRequestsPerSecond = parameters.getValue ( "MaxRequestsPerSecond" );
+	if ( (MaxRequestsPerSecond != null) && !MaxRequestsPerSecond.isEmpty() ) {
+		if ( !StringUtil.isDouble(MaxRequestsPerSecond) || (Double.parseDouble(MaxRequestsPerSecond) <= 0.0) ) {
+            message = "The MaxRequestsPerSecond parameter \"" + MaxRequestsPerSecond + "\" is invalid.";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the maximum number of requests per second as a number > 0." ) );
+		}
+	}
 
     // If any issues were detected in the input filter add to the message string.
     if ( (InputFiltersCheck != null) && !InputFiltersCheck.isEmpty() ) {
@@ -348,6 +370,8 @@ throws InvalidCommandParameterException {
     validList.add ( "FillUsingDivComments" );
     validList.add ( "FillUsingDivCommentsFlag" );
     validList.add ( "IfMissing" );
+    validList.add ( "MaxThreads" );
+    validList.add ( "MaxRequestsPerSecond" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
 
 	if ( warning.length() > 0 ) {
@@ -400,6 +424,33 @@ public boolean editCommand ( JFrame parent ) {
 
 // parseCommand() is in the parent class.
 
+/**
+Read a time series from the datastore, using the time series cache if enabled for the datastore.
+@param dataStore datastore to read from
+@param tsid time series identifier to read
+@param readStart the starting date/time to read, or null to read all data
+@param readEnd the ending date/time to read, or null to read all data
+@param readData whether to read data values
+@param readProps properties for the read, which are included in the cache key because they change the data
+@return the time series, or null if not found
+*/
+private TS readTimeSeries ( ColoradoHydroBaseRestDataStore dataStore, String tsid, DateTime readStart, DateTime readEnd,
+	boolean readData, PropList readProps )
+throws Exception {
+	TimeSeriesCache cache = TimeSeriesCache.getInstance ( dataStore );
+	if ( readData && (cache != null) ) {
+		String key = tsid;
+		for ( String propName : new String[] { "FillDivRecordsCarryForward", "FillDivRecordsCarryForwardFlag",
+			"FillUsingDivComments", "FillUsingDivCommentsFlag" } ) {
+			key = key + "|" + propName + "=" + readProps.getValue(propName);
+		}
+		// Diversion records and provisional telemetry data are typically revised within a few months.
+		return cache.readTimeSeries ( dataStore, key, 90, readStart, readEnd,
+			(start, end) -> dataStore.readTimeSeries ( tsid, start, end, true, readProps ) );
+	}
+	return dataStore.readTimeSeries ( tsid, readStart, readEnd, readData, readProps );
+}
+
 /**
 Run the command.
 @param command_number Command number in sequence.
@@ -488,6 +539,16 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     if ( (IfMissing != null) && IfMissing.equalsIgnoreCase(_Ignore) ) {
         IfMissingWarn = false;  // Ignore when time series are not found.
     }
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
+	int maxThreads = 1; // Default is to read one time series at a time.
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		maxThreads = Integer.parseInt(MaxThreads);
+	}
+	String MaxRequestsPerSecond = parameters.getValue ( "MaxRequestsPerSecond" );
+	double maxRequestsPerSecond = -1.0; // Default is no limit.
+	if ( (MaxRequestsPerSecond != null) && !MaxRequestsPerSecond.isEmpty() ) {
+		maxRequestsPerSecond = Double.parseDouble(MaxRequestsPerSecond);
+	}
 
     DateTime InputStart_DateTime = null;
     DateTime InputEnd_DateTime = null;
@@ -560,7 +621,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 				Message.printStatus ( 2, routine,"Reading HydroBase REST web service time series \"" + TSID + "\"" );
 				TS ts = null;
 				try {
-	                ts = dataStore.readTimeSeries ( TSID, InputStart_DateTime, InputEnd_DateTime, readData, readProps );
+	                ts = readTimeSeries ( dataStore, TSID, InputStart_DateTime, InputEnd_DateTime, readData, readProps );
 				}
 				catch ( Exception e ) {
 				    ts = null;
@@ -845,14 +906,21 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 				    // datastore has the connection information).
 				    inputName = "~" + DataStore;
 				}
+				// Read the time series in catalog order:
+				// - the datastore, period, and properties are the same for each time series
+				// - the rate limit is for the web service host
+				final ColoradoHydroBaseRestDataStore readDataStore = dataStore;
+				final DateTime readStart = InputStart_DateTime;
+				final DateTime readEnd = InputEnd_DateTime;
+				final boolean readTSData = readData;
+				String host = null;
+				if ( dataStore.getServiceRootURI() != null ) {
+					host = dataStore.getServiceRootURI().getHost();
+				}
+				TimeSeriesReadExecutor readExecutor = new TimeSeriesReadExecutor ( host, maxThreads, maxRequestsPerSecond,
+					tsid -> readTimeSeries ( readDataStore, tsid, readStart, readEnd, readTSData, readProps ) );
+				List<String> tsidentStringList = new ArrayList<>(size);
 				for ( int i = 0; i < size; i++ ) {
-					// Check to see if reading time series should be canceled because the command has been canceled.
-					if ( tsprocessor.getCancelProcessingRequested() ) {
-						// The user has requested that command processing should be canceled.
-						// Check here in this command because a very large query could take a long time before a single command finishes.
-						Message.printStatus(2, routine, "Cancel processing based on user request.");
-						break;
-					}
 					// List in order of likelihood to improve performance.
 					tsidentString = null; // Do this in case there is no active match.
 					// TODO smalers 2019-06-30 the follow is redundant with the table model getTimeSeriesIdentifier():
@@ -931,32 +999,49 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	                        + "." + Interval
 	                        + inputName;
 	                }
-		            // Update the progress.
-					message = "Reading HydroBase REST web service time series " + (i + 1) + " of " + size + " \"" + tsidentString + "\"";
-	                notifyCommandProgressListeners ( i, size, (float)-1.0, message );
-					try {
-					    ts = dataStore.readTimeSeries (
-							tsidentString,
-							InputStart_DateTime,
-							InputEnd_DateTime, readData, readProps );
-						// Add the time series to the temporary list.  It will be further processed below.
-		                if ( (ts != null) && (Alias != null) && !Alias.equals("") ) {
-		                    ts.setAlias ( TSCommandProcessorUtil.expandTimeSeriesMetadataString(
-		                        processor, ts, Alias, status, commandPhase) );
-		                }
-		                // Allow null to be added here.
-						tslist.add ( ts );
-					}
-					catch ( Exception e ) {
-						message = "Unexpected error reading HydroBase REST web service time series \"" + tsidentString + "\" (" + e + ").";
-						Message.printWarning ( 2, routine, message );
-						Message.printWarning ( 2, routine, e );
-						++warning_count;
-	                    status.addToLog ( commandPhase,
-	                        new CommandLogRecord(CommandStatusType.FAILURE,
-	                           message, "Report the problem to software support - also see the log file." ) );
+					tsidentStringList.add ( tsidentString );
+					readExecutor.add ( tsidentString );
+				}
+				try {
+					readExecutor.start();
+					for ( int i = 0; i < size; i++ ) {
+						// Check to see if reading time series should be canceled because the command has been canceled.
+						if ( tsprocessor.getCancelProcessingRequested() ) {
+							// The user has requested that command processing should be canceled.
+							// Check here in this command because a very large query could take a long time before a single command finishes.
+							Message.printStatus(2, routine, "Cancel processing based on user request.");
+							break;
+						}
+						tsidentString = tsidentStringList.get(i);
+			            // Update the progress.
+						message = "Reading HydroBase REST web service time series " + (i + 1) + " of " + size + " \"" + tsidentString + "\"";
+		                notifyCommandProgressListeners ( i, size, (float)-1.0, message );
+						try {
+						    ts = readExecutor.getTimeSeries ( i );
+								// Add the time series to the temporary list.  It will be further processed below.
+			                if ( (ts != null) && (Alias != null) && !Alias.equals("") ) {
+			                    ts.setAlias ( TSCommandProcessorUtil.expandTimeSeriesMetadataString(
+			                        processor, ts, Alias, status, commandPhase) );
+			                }
+			                // Allow null to be added here.
+							tslist.add ( ts );
+						}
+						catch ( Exception e ) {
+							// Continue reading other time series.
+							message = "Unexpected error reading HydroBase REST web service time series \"" + tsidentString + "\" (" + e + ").";
+							Message.printWarning ( 2, routine, message );
+							Message.printWarning ( 2, routine, e );
+							++warning_count;
+		                    status.addToLog ( commandPhase,
+		                        new CommandLogRecord(CommandStatusType.FAILURE,
+		                           message, "Report the problem to software support - also see the log file." ) );
+						}
 					}
 				}
+				finally {
+					// Cancel reads that have not started, for example if processing was canceled.
+					readExecutor.shutdown();
+				}
 			} // End reading using input filter.
 
         int size = 0;
@@ -1077,7 +1162,9 @@ public String toString ( PropList parameters ) {
 		"FillDivRecordsCarryForwardFlag",
 		"FillUsingDivComments",
 		"FillUsingDivCommentsFlag",
-		"IfMissing"
+		"IfMissing",
+		"MaxThreads",
+		"MaxRequestsPerSecond"
 	};
 
 	// Form the final property list.
@@ -100,6 +100,8 @@ private JTextField __FillDivRecordsCarryForwardFlag_JTextField;
 private SimpleJComboBox	__FillUsingDivComments_JComboBox;
 private JTextField __FillUsingDivCommentsFlag_JTextField;
 private SimpleJComboBox __IfMissing_JComboBox;
+private JTextField __MaxThreads_JTextField;
+private JTextField __MaxRequestsPerSecond_JTextField;
 
 private JTextArea __command_JTextArea = null;
 // Contains all input filter panels.
@@ -339,6 +341,14 @@ private void checkInput () {
     if ( IfMissing.length() > 0 ) {
         props.set ("IfMissing",IfMissing);
     }
+    String MaxThreads = __MaxThreads_JTextField.getText().trim();
+    if ( MaxThreads.length() > 0 ) {
+        props.set ("MaxThreads",MaxThreads);
+    }
+    String MaxRequestsPerSecond = __MaxRequestsPerSecond_JTextField.getText().trim();
+    if ( MaxRequestsPerSecond.length() > 0 ) {
+        props.set ("MaxRequestsPerSecond",MaxRequestsPerSecond);
+    }
     if ( whereCount > 0 ) {
         // Input filters are specified so check:
     	// - this is done in the input filter because that code is called from this command and main TSTool UI
@@ -400,6 +410,10 @@ private void commitEdits () {
 	__command.setCommandParameter (	"FillUsingDivCommentsFlag", FillUsingDivCommentsFlag );
     String IfMissing = __IfMissing_JComboBox.getSelected();
     __command.setCommandParameter ( "IfMissing", IfMissing );
+    String MaxThreads = __MaxThreads_JTextField.getText().trim();
+    __command.setCommandParameter ( "MaxThreads", MaxThreads );
+    String MaxRequestsPerSecond = __MaxRequestsPerSecond_JTextField.getText().trim();
+    __command.setCommandParameter ( "MaxRequestsPerSecond", MaxRequestsPerSecond );
 }
 
 /**
@@ -782,6 +796,28 @@ private void initialize ( JFrame parent, ReadColoradoHydroBaseRest_Command comma
         "Optional - how to handle missing time series (blank=" + __command._Warn + ")."),
         3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Maximum threads:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxThreads_JTextField = new JTextField ( "", 10 );
+    __MaxThreads_JTextField.setToolTipText("Number of time series to read at the same time when reading using the where clauses.");
+    __MaxThreads_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(main_JPanel, __MaxThreads_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+        "Optional - threads used to read time series (default=1)."),
+        3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Maximum requests per second:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxRequestsPerSecond_JTextField = new JTextField ( "", 10 );
+    __MaxRequestsPerSecond_JTextField.setToolTipText("Limit for web service requests, shared by all commands that use the same host.");
+    __MaxRequestsPerSecond_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(main_JPanel, __MaxRequestsPerSecond_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+        "Optional - maximum requests per second for the web service host (default=no limit)."),
+        3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Command:"),
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__command_JTextArea = new JTextArea (4,50);
@@ -1082,6 +1118,8 @@ private void refresh () {
 	String FillUsingDivComments = "";
 	String FillUsingDivCommentsFlag = "";
 	String IfMissing = "";
+	String MaxThreads = "";
+	String MaxRequestsPerSecond = "";
 	PropList props = null;
 	if ( __first_time ) {
 		__first_time = false;
@@ -1100,6 +1138,8 @@ private void refresh () {
 		FillUsingDivComments = props.getValue ( "FillUsingDivComments" );
 		FillUsingDivCommentsFlag = props.getValue ( "FillUsingDivCommentsFlag" );
 		IfMissing = props.getValue ( "IfMissing" );
+		MaxThreads = props.getValue ( "MaxThreads" );
+		MaxRequestsPerSecond = props.getValue ( "MaxRequestsPerSecond" );
 		// If TSID is specified, DataType and Interval are taken from the TSID.
 		TSIdent tsident = null;
 		if ( (TSID != null) && !TSID.isEmpty() ) {
@@ -1348,6 +1388,12 @@ private void refresh () {
                 __error_wait = true;
             }
         }
+        if ( MaxThreads != null ) {
+            __MaxThreads_JTextField.setText ( MaxThreads );
+        }
+        if ( MaxRequestsPerSecond != null ) {
+            __MaxRequestsPerSecond_JTextField.setText ( MaxRequestsPerSecond );
+        }
 	}
 	// Regardless, reset the command from the fields.
     DataStore = __DataStore_JComboBox.getSelected();
@@ -1443,6 +1489,10 @@ private void refresh () {
 	props.add ( "FillUsingDivCommentsFlag=" + FillUsingDivCommentsFlag );
 	IfMissing = __IfMissing_JComboBox.getSelected();
     props.add ( "IfMissing=" + IfMissing );
+    MaxThreads = __MaxThreads_JTextField.getText().trim();
+    props.add ( "MaxThreads=" + MaxThreads );
+    MaxRequestsPerSecond = __MaxRequestsPerSecond_JTextField.getText().trim();
+    props.add ( "MaxRequestsPerSecond=" + MaxRequestsPerSecond );
 	__command_JTextArea.setText( __command.toString ( props ).trim() );
 
 	// Check the GUI state to determine whether some controls should be disabled.
@@ -23,10 +23,15 @@ NoticeEnd */
 
 package gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.datastore;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
@@ -35,8 +40,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -61,8 +68,6 @@ import RTi.Util.Time.DateTime;
 import RTi.Util.Time.TimeInterval;
 import RTi.Util.Time.YearType;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.CentralTendencyType;
-import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.Data;
-import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.DataValue;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.Duration;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.DurationType;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.DurationsResponse;
@@ -82,7 +87,6 @@ import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.PeriodRefType;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.ReservoirMetadata;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.Station;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.StationComparator;
-import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.StationData;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.StationElement;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.TimeSeriesCatalog;
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.ui.NrcsAwdbRestApi_TimeSeries_CellRenderer;
@@ -91,6 +95,7 @@ import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.ui.NrcsAwdbRestApi_TimeSeries
 import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.util.WebUtil;
 import riverside.datastore.AbstractWebServiceDataStore;
 import riverside.datastore.DataStoreRequirementChecker;
+import rti.tscommandprocessor.core.TimeSeriesCache;
 
 public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implements DataStoreRequirementChecker { // , PluginDataStore { } // Implement plugin later>
 
@@ -130,12 +135,47 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	 */
 	private List<TimeSeriesCatalog> tscatalogCache = new ArrayList<>();
 
+	/**
+	 * Shared ObjectMapper used to parse responses, which is thread-safe once configured.
+	 */
+	static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
 	/**
 	 * Global debug option for datastore, used for development and troubleshooting.
 	 * See the 'Debug' datastore configuration file property.
 	 */
 	private boolean debug = false;
 
+	/**
+	 * Maximum number of station triplets in a 'data' request when reading time series.
+	 * See the 'DataRequestStations' datastore configuration file property.
+	 */
+	private int dataRequestStations = 50;
+
+	/**
+	 * Number of years in a 'data' request when reading time series, 0 to use a default based on the interval.
+	 * See the 'DataRequestYears' datastore configuration file property.
+	 */
+	private int dataRequestYears = 0;
+
+	/**
+	 * Number of threads used for 'data' requests when reading time series.
+	 * See the 'DataRequestThreads' datastore configuration file property.
+	 */
+	private int dataRequestThreads = 4;
+
+	/**
+	 * Number of times that a 'data' request is retried.
+	 * See the 'DataRequestRetries' datastore configuration file property.
+	 */
+	private int dataRequestRetries = 3;
+
+	/**
+	 * Timeout in seconds for a 'data' request.
+	 * See the 'DataRequestTimeout' datastore configuration file property.
+	 */
+	private int dataRequestTimeout = 300;
+
 	/**
 	Constructor for web service.
 	@param name identifier for the data store (will be used in commands)
@@ -143,6 +183,11 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	@param serviceRootUrl the service root URL to which specific requests will be appended, must have a trailing slash
 	@param props properties to configure the datastore:
 	<ul>
+	<li> `DataRequestRetries` - number of times that a 'data' request is retried for temporary errors (default 3)</li>
+	<li> `DataRequestStations` - maximum number of station triplets in a 'data' request (default 50)</li>
+	<li> `DataRequestThreads` - number of threads used for concurrent 'data' requests (default 4)</li>
+	<li> `DataRequestTimeout` - timeout in seconds for a 'data' request (default 300)</li>
+	<li> `DataRequestYears` - number of years in a 'data' request (default is 2 for hour and minute, 50 for day, otherwise not split)</li>
 	<li> `Debug` - to enable debugging</li>
 	<li> `Description` - description, longer than name</li>
 	<li> `Enabled` - standard datastore property, indicated whether it is enabled</li>
@@ -177,6 +222,13 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	    }
 	    setProperties ( props );
 
+	    // Properties for 'data' requests when reading time series.
+	    this.dataRequestStations = parseIntegerProperty ( props, "DataRequestStations", this.dataRequestStations, 1 );
+	    this.dataRequestYears = parseIntegerProperty ( props, "DataRequestYears", this.dataRequestYears, 0 );
+	    this.dataRequestThreads = parseIntegerProperty ( props, "DataRequestThreads", this.dataRequestThreads, 1 );
+	    this.dataRequestRetries = parseIntegerProperty ( props, "DataRequestRetries", this.dataRequestRetries, 0 );
+	    this.dataRequestTimeout = parseIntegerProperty ( props, "DataRequestTimeout", this.dataRequestTimeout, 1 );
+
 	    // Set standard plugin properties:
         // - plugin properties can be listed in the main TSTool interface
         // - version is used to create a versioned installer and documentation.
@@ -930,6 +982,49 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	    }
 	}
 
+	/**
+	Determine whether a station element matches the requested element codes and duration.
+	@param stationElement station element to check
+	@param elementCodes requested element codes, or null or empty to match all
+	@param duration requested duration
+	@return true if the station element matches
+	*/
+	private boolean stationElementMatches ( StationElement stationElement, List<String> elementCodes, DurationType duration ) {
+		if ( (elementCodes != null) && !elementCodes.isEmpty() && !elementCodes.contains(stationElement.getElementCode()) ) {
+			return false;
+		}
+		return duration.equals(stationElement.getDurationName());
+	}
+
+	/**
+	Parse an integer datastore configuration property.
+	@param props datastore configuration properties
+	@param propName name of the property
+	@param defaultValue value to return if the property is not set or is invalid
+	@param minValue minimum allowed value
+	@return the property value, or the default
+	*/
+	private int parseIntegerProperty ( PropList props, String propName, int defaultValue, int minValue ) {
+		String routine = getClass().getSimpleName() + ".parseIntegerProperty";
+		String prop = props.getValue(propName);
+		if ( (prop == null) || prop.trim().isEmpty() ) {
+			return defaultValue;
+		}
+		try {
+			int value = Integer.parseInt(prop.trim());
+			if ( value >= minValue ) {
+				Message.printStatus(2, routine, "Datastore \"" + getName() + "\" - detected " + propName + "=" + value);
+				return value;
+			}
+		}
+		catch ( NumberFormatException e ) {
+			// Handled below.
+		}
+		Message.printWarning(3, routine, "Datastore \"" + getName() + "\" - invalid " + propName + "=" + prop +
+			" (must be an integer >= " + minValue + "), using " + defaultValue + ".");
+		return defaultValue;
+	}
+
 	/**
 	Parse the network code from the station triplet ("StationID:State:Network")
 	@param stationTriplet the station triplet
@@ -950,33 +1045,6 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	    return parts[1];
 	}
 	
-	/**
-	 * Parse a DataValue date/time.
-	 * May use a string or integer parts.
-	 */
-	private DateTime parseDataValueDateTime ( int intervalBase, DataValue dataValue ) {
-		DateTime dt = null;
-		if ( intervalBase == TimeInterval.YEAR ) {
-			// Annual data:
-			// - use the 'year'
-			dt = new DateTime ( DateTime.PRECISION_YEAR );
-			dt.setYear ( dataValue.getYear() );
-		}
-		else if ( intervalBase == TimeInterval.MONTH ) {
-			// Monthly data:
-			// - use the 'year' and 'month'
-			dt = new DateTime ( DateTime.PRECISION_MONTH );
-			dt.setYear ( dataValue.getYear() );
-			dt.setMonth ( dataValue.getMonth() );
-		}
-		else {
-			// All other intervals.
-			String date = dataValue.getDate();
-			dt = DateTime.parse(date);
-		}
-		return dt;
-	}
-
 	/**
 	Parse an AWDB date/time string and return a DateTime instance.
 	If the date/time starts with 2100-01-01 (to indicate active station), replace with the current date
@@ -1028,9 +1096,10 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
  	* @param returnFlags whether to return the flags for the data values
  	* @param returnOrigionalValues whether to return the original values (original data units?)
  	* @param returnSuspectData whether to return suspect data
- 	* @return the list of data objects
+ 	* @param intervalBase time series interval base, used to parse the data value date/times
+ 	* @return the list of data values, one for each station triplet and station element
  	*/
-	private List<StationData> readDataList (
+	private List<StationDataValues> readDataList (
 		// List the query parameters for filters, alphabetical.
 		DurationType duration,
 		List<String> elements,
@@ -1044,7 +1113,8 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		CentralTendencyType centralTendencyType,
 		Boolean returnFlags,
 		Boolean returnOriginalValues,
-		Boolean returnSuspectData
+		Boolean returnSuspectData,
+		int intervalBase
 		) throws IOException {
 		String routine = getClass().getSimpleName() + ".readDataList";
 
@@ -1166,62 +1236,69 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		String urlString = urlStringBuilder.toString();
 
 		Message.printStatus(2, routine, "Reading station data list from: " + urlString);
-		List<StationData> stationDataList = new ArrayList<>();
+		List<StationDataValues> stationDataValuesList = null;
 
-		String urlStringEncoded = urlString;
-		MultiKeyStringDictionary requestProperties = null;
-		int timeoutSeconds = 300;
-		UrlReader urlReader = new UrlReader(urlStringEncoded, requestProperties, null, timeoutSeconds*1000 );
-		UrlResponse urlResponse = null;
+		// Read the response as a stream:
+		// - responses for many stations and hourly data can be very large so don't read into a string
+		int timeoutSeconds = this.dataRequestTimeout;
+		HttpURLConnection urlConnection = null;
+		InputStream in = null;
 		try {
-			urlResponse = urlReader.read();
+			urlConnection = (HttpURLConnection)new URL(urlString).openConnection();
+			urlConnection.setConnectTimeout(timeoutSeconds*1000);
+			urlConnection.setReadTimeout(timeoutSeconds*1000);
+			urlConnection.setRequestProperty("Accept", "application/json");
+			urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+			int responseCode = urlConnection.getResponseCode();
+			if ( responseCode != 200 ) {
+				StringBuilder responseError = new StringBuilder();
+				InputStream err = urlConnection.getErrorStream();
+				if ( err != null ) {
+					try ( BufferedReader errReader = new BufferedReader(new InputStreamReader(err, StandardCharsets.UTF_8)) ) {
+						String line;
+						while ( (line = errReader.readLine()) != null ) {
+							responseError.append(line);
+						}
+					}
+				}
+				throw new StationDataRequestExecutor.ResponseException (
+					"Reading URL returned error (code=" + responseCode + "): " + responseError, responseCode );
+			}
+			in = urlConnection.getInputStream();
+			if ( "gzip".equalsIgnoreCase(urlConnection.getContentEncoding()) ) {
+				in = new GZIPInputStream(in);
+			}
+			if ( this.debug ) {
+				Message.printStatus(2, routine, "Response is parsed as a stream and is not printed.");
+			}
+			// Parse the JSON response into data values.
+			StationDataStreamReader reader = new StationDataStreamReader ( intervalBase );
+			stationDataValuesList = reader.read ( in );
+			Message.printStatus(2, routine, "Read " + stationDataValuesList.size() + " station data objects with " +
+				reader.getValueCount() + " values.");
+		}
+		catch ( IOException e ) {
+			// Pass through so that the caller can retry.
+			Message.printWarning(3, routine, "Error reading 'data' using \"" + urlString + "\" (" + e + ").");
+			throw e;
 		}
 		catch ( Exception e ) {
 			Message.printWarning(3, routine, "Error reading 'data' using \"" + urlString + "\".");
 			Message.printWarning(3, routine, e);
 			throw new RuntimeException(e);
 		}
-		if ( urlResponse.hadError() ) {
-			// TODO smalers 2020-06-12 would be nice to not catch this immediately.
-			throw new RuntimeException ( "Reading URL returned error (code=" + urlResponse.getResponseCode()
-				+ "): " + urlResponse.getResponseError() );
-		}
-		else if ( urlResponse.getResponseCode() != 200 ) {
-			throw new RuntimeException ( "Reading URL returned error code: " + urlResponse.getResponseCode() );
-		}
-		else {
-			// Parse the JSON response into objects.
-			ObjectMapper mapper = new ObjectMapper();
-			String responseJson = urlResponse.getResponse();
-			Message.printStatus(2, routine, "JSON response has length = " + responseJson.length());
-			try {
-				if ( this.debug ) {
-					// Set to true to output fhe full response (can overload text editor).
-					boolean doDebugFull = false;
-					int debugMaxLength = 20000;
-					if ( doDebugFull || (responseJson.length() < debugMaxLength) ) {
-						// Output the full response.
-						Message.printStatus(2, routine, "Response=" + responseJson);
-					}
-					else {
-						// Output part of the response.
-						Message.printStatus(2, routine, "Response (first 20000 characters)=" + responseJson.substring(0,20000));
-						Message.printStatus(2, routine, "Response (last 20000 characters)=" + responseJson.substring(responseJson.length() - 20000));
-					}
-				}
-				stationDataList = mapper.readValue(responseJson, new TypeReference<List<StationData>>(){});
-				Message.printStatus(2, routine, "Read " + stationDataList.size() + " station data objects.");
+		finally {
+			if ( in != null ) {
+				in.close();
 			}
-			catch ( Exception e ) {
-				Message.printWarning(3, routine, "Error reading 'data' using \"" + urlString + "\".");
-				Message.printWarning(3, routine, e);
-				throw new RuntimeException(e);
+			if ( urlConnection != null ) {
+				urlConnection.disconnect();
 			}
 		}
 
 		// The data are sorted by 'date', ascending.
 		//Collections.sort(stationDataList, new DataComparator());
-		return stationDataList;
+		return stationDataValuesList;
 	}
 
 	/**
@@ -1445,7 +1522,7 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		}
 		else {
 			// Parse the JSON response into objects.
-			ObjectMapper mapper = new ObjectMapper();
+			ObjectMapper mapper = OBJECT_MAPPER;
 			String responseJson = urlResponse.getResponse();
 			Message.printStatus(2, routine, "JSON response has length = " + responseJson.length());
 			try {
@@ -1644,7 +1721,7 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		}
 		else {
 			// Parse the JSON response into objects.
-			ObjectMapper mapper = new ObjectMapper();
+			ObjectMapper mapper = OBJECT_MAPPER;
 			String responseJson = urlResponse.getResponse();
 			Message.printStatus(2, routine, "JSON response has length = " + responseJson.length());
 			try {
@@ -1720,7 +1797,7 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		}
 		else {
 			// Parse the JSON response into objects.
-			ObjectMapper mapper = new ObjectMapper();
+			ObjectMapper mapper = OBJECT_MAPPER;
 			String responseJson = urlResponse.getResponse();
 			Message.printStatus(2, routine, "JSON response has length = " + responseJson.length());
 			try {
@@ -1791,7 +1868,7 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		}
 		else {
 			// Parse the JSON response into objects.
-			ObjectMapper mapper = new ObjectMapper();
+			ObjectMapper mapper = OBJECT_MAPPER;
 			String responseJson = urlResponse.getResponse();
 			Message.printStatus(2, routine, "JSON response has length = " + responseJson.length());
 			try {
@@ -2181,7 +2258,7 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		}
 		else {
 			// Parse the JSON response into objects.
-			ObjectMapper mapper = new ObjectMapper();
+			ObjectMapper mapper = OBJECT_MAPPER;
 			String responseJson = urlResponse.getResponse();
 			Message.printStatus(2, routine, "JSON response has length = " + responseJson.length());
 			try {
@@ -2467,7 +2544,7 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		}
 		else {
 			// Parse the JSON response into objects.
-			ObjectMapper mapper = new ObjectMapper();
+			ObjectMapper mapper = OBJECT_MAPPER;
 			String responseJson = urlResponse.getResponse();
 			Message.printStatus(2, routine, "JSON response has length = " + responseJson.length());
 			try {
@@ -2601,7 +2678,30 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 		DateTime readEnd,
 		boolean readData )
 		throws MalformedURLException, IOException, Exception {
-    	String routine = getClass().getSimpleName() + ".readTimeSeries";
+		TimeSeriesCache cache = TimeSeriesCache.getInstance ( this );
+		if ( readData && (cache != null) ) {
+			// Recent station data are typically edited within a few weeks.
+			return cache.readTimeSeries ( this, tsid, 30, readStart, readEnd,
+				(start, end) -> readTimeSeriesFromService ( tsid, start, end, true ) );
+		}
+		return readTimeSeriesFromService ( tsid, readStart, readEnd, readData );
+	}
+
+	/**
+	Read a single time series from the web service, without using the time series cache.
+	@param tsid time series identifier string of form State-StationID.NetworkCode.ElementCode.Interval~DataStoreID
+	@param readStart the starting date/time to read, or null to read all data.
+	@param readEnd the ending date/time to read, or null to read all data.
+	@param readData if true, read the data; if false, construct the time series and populate properties but do not read the data
+	@return the time series list read from the NRCS AWDB daily web services
+	*/
+	private TS readTimeSeriesFromService (
+		String tsid,
+		DateTime readStart,
+		DateTime readEnd,
+		boolean readData )
+		throws MalformedURLException, IOException, Exception {
+    	String routine = getClass().getSimpleName() + ".readTimeSeriesFromService";
 
 		// Initialize empty query parameters to filter the read:
 		// - only the values from the TSID will be set below, mainly the station triplet and element
@@ -2809,6 +2909,72 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	        readEnd = new DateTime(readEndReq);
 	        endDateString = formatDateTime(readEndReq,interval,true,1);
 	    }
+	    // Options for the 'data' requests.
+	    CentralTendencyType centralTendencyType = CentralTendencyType.ALL;
+	    // Default for 'periodRef' is END, which is compatible with TSTool (including calendar and water year).
+	    final PeriodRefType periodRefTypeForData = (periodRefType == null) ? PeriodRefType.END : periodRefType;
+	    periodRefType = periodRefTypeForData;
+	    Boolean returnFlags = Boolean.valueOf(true); // Want the flags returned, to add to the time series data flag.
+	    Boolean returnOriginalValues = null; // Default is false, which returns processed values.
+	    Boolean returnSuspectData = null; // Default is false (only validated values are returned).
+	    // Read the data for all matching station elements before creating the time series:
+	    // - station triplets are grouped by element code, which is used in the 'elements' query parameter
+	    // - requests are split into station and period chunks that are read concurrently, with retries
+	    // - stations that cannot be read are listed in the error map and are handled below for each time series
+	    Map<String,Map<String,List<StationDataValues>>> elementDataValuesMap = new HashMap<>();
+	    Map<String,Map<String,String>> elementErrorMap = new HashMap<>();
+	    if ( readData ) {
+	    	Map<String,List<String>> elementTripletsMap = new LinkedHashMap<>();
+	    	for ( Station station : stations ) {
+	    		if ( (station == null) || (station.getStationElements() == null) ) {
+	    			continue;
+	    		}
+	    		for ( StationElement stationElement : station.getStationElements() ) {
+	    			if ( !stationElementMatches(stationElement, elementCodes, duration) ) {
+	    				continue;
+	    			}
+	    			List<String> triplets = elementTripletsMap.get(stationElement.getElementCode());
+	    			if ( triplets == null ) {
+	    				triplets = new ArrayList<>();
+	    				elementTripletsMap.put(stationElement.getElementCode(), triplets);
+	    			}
+	    			if ( !triplets.contains(station.getStationTriplet()) ) {
+	    				triplets.add(station.getStationTriplet());
+	    			}
+	    		}
+	    	}
+	    	StationDataRequestExecutor dataRequestExecutor = new StationDataRequestExecutor (
+	    		this.dataRequestStations, this.dataRequestYears, this.dataRequestThreads, this.dataRequestRetries, 1000 );
+	    	for ( Map.Entry<String,List<String>> entry : elementTripletsMap.entrySet() ) {
+	    		// Element codes here are 'ElementCode:HeightDepth:Ordinal':
+	    		// - omit heightDepth to default to null
+	    		// - omit ordinal to default to 1
+	    		List<String> elements = new ArrayList<>();
+	    		elements.add(entry.getKey() + ":" + ":");
+	    		Message.printStatus(2, routine, "Reading data values for elementCode=" + entry.getKey() + " duration=" + duration +
+	    			" for " + entry.getValue().size() + " station triplets, beginDate=" + beginDateString + " endDate=" + endDateString);
+	    		Map<String,List<StationDataValues>> dataValuesMap = dataRequestExecutor.read (
+	    			entry.getValue(), readStart, readEnd, intervalBase,
+	    			( chunkStationTriplets, chunkBeginDate, chunkEndDate ) -> readDataList (
+            			// List the query parameters for filters, alphabetical.
+            			duration,
+            			elements,
+            			chunkStationTriplets,
+            			// Period.
+            			chunkBeginDate,
+            			chunkEndDate,
+            			insertOrUpdateBeginDate, // TODO smalers 2026-04-09 enable later.
+            			periodRefTypeForData,
+            			// Indicate which data objects to include.
+            			centralTendencyType,
+            			returnFlags,
+            			returnOriginalValues,
+            			returnSuspectData,
+            			intervalBase ) );
+	    		elementDataValuesMap.put(entry.getKey(), dataValuesMap);
+	    		elementErrorMap.put(entry.getKey(), dataRequestExecutor.getErrorMap());
+	    	}
+	    }
 	    // Loop through the stations and then the elements for each station:
 	    // - each
 	    //ReservoirMetadata metaRes;
@@ -3106,153 +3272,82 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	                    }
 	                }
 	                String zoneNote = " (times in local station time)";
-	                Message.printStatus(2, routine, "    Getting data values for triplet ("+ tscount + " of " +
+	                Message.printStatus(2, routine, "    Setting data values for triplet ("+ tscount + " of " +
 	                    stationTriplets.size() + ")=\"" + stationTriplet +
 	                    "\" elementCode=" + elementCode + " duration=" + duration + " beginDate=" + beginDateString +
 	                    " endDate=" + endDateString + zoneNote);
-	                // Read the data records.
-	                CentralTendencyType centralTendencyType = CentralTendencyType.ALL;
-	                // Default for 'periodRef' is END, which is compatible with TSTool (including calendar and water year).
-	                if ( periodRefType == null ) {
-	                	periodRefType = PeriodRefType.END;
-	                }
-	                Boolean returnFlags = Boolean.valueOf(true); // Want the flags returned, to add to the time series data flag.
-	                Boolean returnOriginalValues = null; // Default is false, which returns processed values.
-	                Boolean returnSuspectData = null; // Default is false (only validated values are returned).
-	                // Element codes here are 'ElementCode:HeightDepth:Ordinal':
-	                // - omit heightDepth to default to null
-	                // - omit ordinal to default to 1
-	                List<String> elements = new ArrayList<>();
-	                elements.add(elementCode + ":" + ":");
+	                // Get the data records that were read above.
 	                try {
-	                	List<String> stationTripletsForOne = new ArrayList<>();
-	                	stationTripletsForOne.add(stationTriplet);
-	                	List<StationData> stationDataList = readDataList (
-                			// List the query parameters for filters, alphabetical.
-                			duration,
-                			elements,
-                			stationTripletsForOne,
-                			// Period.
-                			readStart,
-                			readEnd,
-                			insertOrUpdateBeginDate, // TODO smalers 2026-04-09 enable later.
-                			periodRefType,
-                			// Indicate which data objects to include.
-                			centralTendencyType,
-                			returnFlags,
-                			returnOriginalValues,
-                			returnSuspectData );
-	                	if ( (stationDataList != null) && !stationDataList.isEmpty() ) {
+	                	Map<String,String> errorMap = elementErrorMap.get(elementCode);
+	                	if ( (errorMap != null) && errorMap.containsKey(stationTriplet) ) {
+	                		throw new IOException ( errorMap.get(stationTriplet) );
+	                	}
+	                	List<StationDataValues> stationDataValuesList = null;
+	                	Map<String,List<StationDataValues>> dataValuesMap = elementDataValuesMap.get(elementCode);
+	                	if ( dataValuesMap != null ) {
+	                		stationDataValuesList = dataValuesMap.get(stationTriplet);
+	                	}
+	                	if ( (stationDataValuesList != null) && !stationDataValuesList.isEmpty() ) {
 	                		// Process the data.
-	                		Double value = null;
+	                		double value;
 	                		String flag = null;
-	                		String qaFlag = null;
-	                		String qcFlag = null;
-	                		String date = null;
 	                		DateTime dt = null;
-	                		List<Data> dataList = null;
-	                		List<DataValue> dataValues = null;
-	                		for ( StationData stationData : stationDataList ) {
-	                			dataList = stationData.getData();
-	                			if ( (dataList != null) && !dataList.isEmpty() ) {
-	                				for ( Data data : dataList ) {
-	                					int errorCount = 0;
-	                					int errorCountMax = 10;
-	                					try {
-	                						dataValues = data.getValues();
-	                						if ( dataValues != null ) {
-	                							// Allocate the data space.
-	                							DateTime readStartFromData = parseDataValueDateTime ( intervalBase, dataValues.get(0) );
-	                							if ( !tzString.isEmpty() ) {
-	                								readStartFromData.setTimeZone(tzString);
-	                							}
-	                							DateTime readEndFromData = parseDataValueDateTime ( intervalBase, dataValues.get(dataValues.size() - 1) );
-	                							if ( !tzString.isEmpty() ) {
-	                								readEndFromData.setTimeZone(tzString);
-	                							}
-	                							if ( readStartReq == null ) {
-	                								// Read period was not requested so use the data period.
-	                								ts.setDate1(readStartFromData);
-	                								ts.setDate2(readEndFromData);
-	                							}
-	                							//ts.setDate1Original(readStartFromData);
-	                							//ts.setDate2Original(readEndFromData);
-	                							ts.allocateDataSpace();
-	                							for ( DataValue dataValue : dataValues ) {
-	                								value = dataValue.getValue();
-	                								qaFlag = dataValue.getQaFlag();
-	                								qcFlag = dataValue.getQcFlag();
-	                								// Set the flag:
-	                								// - use qcFlag,qaFlag:
-	                								// - use empty strings if null
-	                								flag = null;
-	                								if ( qcFlag == null ) {
-	                									qcFlag = "";
-	                								}
-	                								if ( qaFlag == null ) {
-	                									qaFlag = "";
-	                								}
-	                								// Format the flag depending on which part is known.
-	                								if ( qcFlag.isEmpty() && qaFlag.isEmpty() ) {
-	                									// No flags.
-	                									flag = null;
-	                								}
-	                								else if ( !qcFlag.isEmpty() && !qaFlag.isEmpty() ) {
-	                									// Have both flags.
-	                									flag = qcFlag + "," + qaFlag;
-	                								}
-	                								else if ( !qcFlag.isEmpty() ) {
-	                									// Have qcFlag.
-	                									flag = qcFlag;
-	                								}
-	                								else if ( !qaFlag.isEmpty() ) {
-	                									// Have qaFlag.
-	                									flag = qaFlag;
-	                								}
-	                								// Determine the date/time based on the interval.
-	                								dt = parseDataValueDateTime ( intervalBase, dataValue );
-	                								if ( value == null ) {
-	                									// Might still have a flag.
-	                									if ( (flag != null) && !flag.isEmpty() ) {
-	                										// Have a flag so set.
-	                										ts.setDataValue(dt,missing,flag,0);
-	                									}
-	                									if ( Message.isDebugOn ) {
-	                										Message.printDebug(2, routine, "    Date " + dt + " value=" + value + " flag=" + flag);
-	                									}
-	                								}
-	                								else {
-	                									// Value is not missing but flag may be null.
-	                									if ( flag == null ) {
-	                										// No flag to set.
-	                										ts.setDataValue(dt, value.doubleValue());
-	                									}
-	                									else {
-	                										// Have a flag to set.
-	                										ts.setDataValue(dt, value.doubleValue(),flag,0);
-	                									}
-	                									if ( Message.isDebugOn ) {
-	                										Message.printDebug(2, routine, "    Date " + dt + " value=" + value + " flag=" + flag);
-	                									}
-	                								}
-	                							}
+	                		for ( StationDataValues dataValues : stationDataValuesList ) {
+	                			if ( dataValues.getException() != null ) {
+	                				// Handle exceptions for the data values.
+	                				Message.printWarning(3, routine, "    Exception reading data (" + dataValues.getException() + ").");
+	                				Message.printWarning(3, routine, dataValues.getException() );
+	                			}
+	                			int nValues = dataValues.size();
+	                			if ( nValues == 0 ) {
+	                				Message.printStatus(2, routine, "    No data values were read.");
+	                				continue;
+	                			}
+	                			try {
+	                				// Allocate the data space.
+	                				DateTime readStartFromData = new DateTime(dataValues.getDateTime(0));
+	                				if ( !tzString.isEmpty() ) {
+	                					readStartFromData.setTimeZone(tzString);
+	                				}
+	                				DateTime readEndFromData = new DateTime(dataValues.getDateTime(nValues - 1));
+	                				if ( !tzString.isEmpty() ) {
+	                					readEndFromData.setTimeZone(tzString);
+	                				}
+	                				if ( readStartReq == null ) {
+	                					// Read period was not requested so use the data period.
+	                					ts.setDate1(readStartFromData);
+	                					ts.setDate2(readEndFromData);
+	                				}
+	                				//ts.setDate1Original(readStartFromData);
+	                				//ts.setDate2Original(readEndFromData);
+	                				ts.allocateDataSpace();
+	                				for ( int iValue = 0; iValue < nValues; iValue++ ) {
+	                					value = dataValues.getValue(iValue);
+	                					flag = dataValues.getFlag(iValue);
+	                					dt = dataValues.getDateTime(iValue);
+	                					if ( Double.isNaN(value) ) {
+	                						// Might still have a flag.
+	                						if ( flag != null ) {
+	                							// Have a flag so set.
+	                							ts.setDataValue(dt,missing,flag,0);
 	                						}
 	                					}
-	                					catch ( Exception e ) {
-	                						// Handle exceptions for the single data point.
-	                						++errorCount;
-	                						if ( errorCount <= errorCountMax ) {
-               									Message.printWarning(3, routine, "    Exception reading data (" + e + ").");
-               									Message.printWarning(3, routine, e );
-	                						}
-	                						else if ( errorCount == errorCountMax ) {
-               									Message.printWarning(3, routine, "    Stopping after printing " + errorCountMax + " errors.");
-	                						}
+	                					else if ( flag == null ) {
+	                						// No flag to set.
+	                						ts.setDataValue(dt, value);
+	                					}
+	                					else {
+	                						// Have a flag to set.
+	                						ts.setDataValue(dt, value, flag, 0);
 	                					}
-	                            	}
+	                					if ( Message.isDebugOn ) {
+	                						Message.printDebug(2, routine, "    Date " + dt + " value=" + value + " flag=" + flag);
+	                					}
+	                				}
 	                			}
-	                			else {
-	                				Message.printStatus(2, routine, "    No data values were read.");
+	                			catch ( Exception e ) {
+	                				Message.printWarning(3, routine, "    Exception reading data (" + e + ").");
+	                				Message.printWarning(3, routine, e );
 	                			}
 	                		}
 	                	}
@@ -3266,6 +3361,10 @@ public class NrcsAwdbRestApiDataStore extends AbstractWebServiceDataStore implem
 	            }
 	            tsList.add(ts);
 		    }
+		    // Release the data values for the station, which have been copied into the time series.
+		    for ( Map<String,List<StationDataValues>> dataValuesMap : elementDataValuesMap.values() ) {
+		    	dataValuesMap.remove(stationTriplet);
+		    }
 	    }
 	    if ( errorText.length() > 0 ) {
 	        throw new RuntimeException ( errorText.toString() );
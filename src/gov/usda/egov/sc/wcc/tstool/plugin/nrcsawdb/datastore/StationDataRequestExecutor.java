@@ -0,0 +1,398 @@
+// StationDataRequestExecutor - read 'data' for many stations using concurrent requests
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 2026 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.datastore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import RTi.Util.Message.Message;
+import RTi.Util.Time.DateTime;
+import RTi.Util.Time.TimeInterval;
+import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.StationElement;
+
+/**
+ * Read 'data' for many station triplets by splitting the request into chunks and running the chunks concurrently.
+ * <ul>
+ * <li> the station triplets are split into chunks of at most 'stationsPerRequest' stations</li>
+ * <li> if the period is specified, it is split into chunks of 'yearsPerRequest' years,
+ *      or a default based on the interval, so that responses for small intervals are limited in size</li>
+ * <li> the chunks are read using a fixed pool of 'threads' threads</li>
+ * <li> each chunk is retried up to 'retries' times with exponential backoff for errors that may be temporary
+ *      (timeouts, connection errors, HTTP 429 and 5xx responses)</li>
+ * <li> if a chunk with more than one station fails, the stations in the chunk are read individually
+ *      so that one problem station does not cause other stations to fail</li>
+ * <li> the results are assembled in the original station and period order,
+ *      with period chunks for the same station triplet and station element appended</li>
+ * </ul>
+ * The requests are made using a ChunkReader, which is normally the datastore's 'data' service request.
+ */
+class StationDataRequestExecutor {
+
+	/**
+	 * Interface to read one chunk.
+	 */
+	interface ChunkReader {
+		/**
+		 * Read the data values for a chunk.
+		 * @param stationTriplets station triplets to read
+		 * @param beginDate starting date/time to read, or null to read all
+		 * @param endDate ending date/time to read, or null to read all
+		 * @return the list of data values, one for each station triplet and station element
+		 */
+		List<StationDataValues> read ( List<String> stationTriplets, DateTime beginDate, DateTime endDate )
+			throws IOException;
+	}
+
+	/**
+	 * Exception for an HTTP error response, which allows the response code to be checked for retries.
+	 */
+	static class ResponseException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * HTTP response code.
+		 */
+		private int responseCode;
+
+		/**
+		 * Constructor.
+		 * @param message exception message
+		 * @param responseCode HTTP response code
+		 */
+		ResponseException ( String message, int responseCode ) {
+			super ( message );
+			this.responseCode = responseCode;
+		}
+
+		/**
+		 * Return the HTTP response code.
+		 * @return the HTTP response code
+		 */
+		int getResponseCode () {
+			return this.responseCode;
+		}
+	}
+
+	/**
+	 * Result for a chunk.
+	 */
+	private class ChunkResult {
+		/**
+		 * Data values for the chunk.
+		 */
+		List<StationDataValues> dataValuesList = new ArrayList<>();
+
+		/**
+		 * Error messages for station triplets that could not be read.
+		 */
+		Map<String,String> errorMap = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Maximum number of station triplets in a request.
+	 */
+	private int stationsPerRequest = 50;
+
+	/**
+	 * Number of years in a request, or 0 to use a default based on the interval.
+	 */
+	private int yearsPerRequest = 0;
+
+	/**
+	 * Number of threads used to make requests.
+	 */
+	private int threads = 4;
+
+	/**
+	 * Number of times that a request is retried.
+	 */
+	private int retries = 3;
+
+	/**
+	 * Delay in milliseconds before the first retry, which is doubled for each retry.
+	 */
+	private long retryDelayMs = 1000;
+
+	/**
+	 * Error messages for station triplets that could not be read, from the last call to read().
+	 */
+	private Map<String,String> errorMap = new LinkedHashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param stationsPerRequest maximum number of station triplets in a request
+	 * @param yearsPerRequest number of years in a request, or 0 to use a default based on the interval
+	 * @param threads number of threads used to make requests
+	 * @param retries number of times that a request is retried
+	 * @param retryDelayMs delay in milliseconds before the first retry, which is doubled for each retry
+	 */
+	StationDataRequestExecutor ( int stationsPerRequest, int yearsPerRequest, int threads, int retries, long retryDelayMs ) {
+		this.stationsPerRequest = Math.max(1, stationsPerRequest);
+		this.yearsPerRequest = Math.max(0, yearsPerRequest);
+		this.threads = Math.max(1, threads);
+		this.retries = Math.max(0, retries);
+		this.retryDelayMs = Math.max(0, retryDelayMs);
+	}
+
+	/**
+	 * Append data values to the map, merging with data values for the same station triplet and station element.
+	 */
+	private void appendDataValues ( Map<String,List<StationDataValues>> dataValuesMap,
+		Map<String,StationDataValues> mergeMap, List<StationDataValues> dataValuesList ) {
+		for ( StationDataValues dataValues : dataValuesList ) {
+			String mergeKey = formatMergeKey ( dataValues );
+			StationDataValues previous = mergeMap.get(mergeKey);
+			if ( previous != null ) {
+				// Have data for an earlier period.
+				previous.append ( dataValues );
+			}
+			else {
+				mergeMap.put ( mergeKey, dataValues );
+				List<StationDataValues> list = dataValuesMap.get(dataValues.getStationTriplet());
+				if ( list == null ) {
+					list = new ArrayList<>();
+					dataValuesMap.put ( dataValues.getStationTriplet(), list );
+				}
+				list.add ( dataValues );
+			}
+		}
+	}
+
+	/**
+	 * Determine the period chunks.
+	 * @param beginDate starting date/time to read, or null to read all
+	 * @param endDate ending date/time to read, or null to read all
+	 * @param intervalBase time series interval base
+	 * @return list of periods, each an array of the begin and end, which will contain one period if the period is not split
+	 */
+	private List<DateTime[]> determinePeriodChunks ( DateTime beginDate, DateTime endDate, int intervalBase ) {
+		List<DateTime[]> periodList = new ArrayList<>();
+		int years = this.yearsPerRequest;
+		if ( years == 0 ) {
+			// Default is based on the interval, to limit the number of values in a response to about 20,000 per station.
+			if ( (intervalBase == TimeInterval.HOUR) || (intervalBase == TimeInterval.MINUTE) ) {
+				years = 2;
+			}
+			else if ( intervalBase == TimeInterval.DAY ) {
+				years = 50;
+			}
+		}
+		if ( (beginDate == null) || (endDate == null) || (years == 0) ||
+			((intervalBase != TimeInterval.MINUTE) && (intervalBase != TimeInterval.HOUR) && (intervalBase != TimeInterval.DAY)) ) {
+			// Don't split the period.
+			periodList.add ( new DateTime[] { beginDate, endDate } );
+			return periodList;
+		}
+		DateTime chunkStart = new DateTime(beginDate);
+		while ( !chunkStart.greaterThan(endDate) ) {
+			DateTime nextStart = new DateTime(chunkStart);
+			nextStart.addYear ( years );
+			DateTime chunkEnd = new DateTime(nextStart);
+			chunkEnd.addInterval ( intervalBase, -1 );
+			if ( chunkEnd.greaterThan(endDate) ) {
+				chunkEnd = new DateTime(endDate);
+			}
+			periodList.add ( new DateTime[] { chunkStart, chunkEnd } );
+			chunkStart = nextStart;
+		}
+		return periodList;
+	}
+
+	/**
+	 * Format the key used to merge the data values for the same station triplet and station element.
+	 */
+	private String formatMergeKey ( StationDataValues dataValues ) {
+		StationElement stationElement = dataValues.getStationElement();
+		if ( stationElement == null ) {
+			return dataValues.getStationTriplet();
+		}
+		return dataValues.getStationTriplet() + "|" + stationElement.getElementCode() + "|" +
+			stationElement.getHeightDepth() + "|" + stationElement.getOrdinal();
+	}
+
+	/**
+	 * Return the error messages for station triplets that could not be read, from the last call to read().
+	 * @return the map of station triplet to error message
+	 */
+	Map<String,String> getErrorMap () {
+		return this.errorMap;
+	}
+
+	/**
+	 * Determine whether an exception is for a problem that may be temporary and can be retried.
+	 */
+	private boolean isRetryable ( Exception e ) {
+		if ( e instanceof ResponseException ) {
+			int responseCode = ((ResponseException)e).getResponseCode();
+			return (responseCode == 429) || (responseCode >= 500);
+		}
+		// Other I/O errors such as timeouts and connection errors.
+		return e instanceof IOException;
+	}
+
+	/**
+	 * Read the data values for the station triplets.
+	 * @param stationTriplets station triplets to read
+	 * @param beginDate starting date/time to read, or null to read all
+	 * @param endDate ending date/time to read, or null to read all
+	 * @param intervalBase time series interval base, used to split the period
+	 * @param chunkReader reader used to read each chunk
+	 * @return map of station triplet to the data values for the station, in the order of the requested station triplets,
+	 * with stations that could not be read listed in getErrorMap()
+	 */
+	Map<String,List<StationDataValues>> read ( List<String> stationTriplets, DateTime beginDate, DateTime endDate,
+		int intervalBase, ChunkReader chunkReader ) {
+		String routine = getClass().getSimpleName() + ".read";
+		this.errorMap = new LinkedHashMap<>();
+		// Determine the chunks.
+		List<List<String>> stationChunkList = new ArrayList<>();
+		for ( int i = 0; i < stationTriplets.size(); i += this.stationsPerRequest ) {
+			stationChunkList.add ( stationTriplets.subList(i, Math.min(i + this.stationsPerRequest, stationTriplets.size())) );
+		}
+		List<DateTime[]> periodList = determinePeriodChunks ( beginDate, endDate, intervalBase );
+		int nChunks = stationChunkList.size()*periodList.size();
+		int nThreads = Math.min(this.threads, nChunks);
+		Message.printStatus(2, routine, "Reading data for " + stationTriplets.size() + " station triplets using " +
+			stationChunkList.size() + " station chunks x " + periodList.size() + " period chunks, " + nThreads + " threads.");
+
+		// Submit the chunks in order and then process the results in the same order:
+		// - period chunks for a station chunk are consecutive so that the data values can be appended
+		List<Future<ChunkResult>> futureList = new ArrayList<>();
+		Map<String,List<StationDataValues>> dataValuesMap = new LinkedHashMap<>();
+		if ( nChunks == 0 ) {
+			return dataValuesMap;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool ( nThreads );
+		try {
+			for ( List<String> stationChunk : stationChunkList ) {
+				for ( DateTime [] period : periodList ) {
+					futureList.add ( executor.submit ( () -> readChunk(stationChunk, period[0], period[1], chunkReader) ) );
+				}
+			}
+			executor.shutdown();
+			Map<String,StationDataValues> mergeMap = new HashMap<>();
+			for ( Future<ChunkResult> future : futureList ) {
+				ChunkResult chunkResult;
+				try {
+					chunkResult = future.get();
+				}
+				catch ( ExecutionException e ) {
+					// Should not happen because readChunk() handles exceptions.
+					Message.printWarning(3, routine, e);
+					continue;
+				}
+				appendDataValues ( dataValuesMap, mergeMap, chunkResult.dataValuesList );
+				for ( Map.Entry<String,String> entry : chunkResult.errorMap.entrySet() ) {
+					if ( !this.errorMap.containsKey(entry.getKey()) ) {
+						this.errorMap.put ( entry.getKey(), entry.getValue() );
+					}
+				}
+			}
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			for ( String stationTriplet : stationTriplets ) {
+				if ( !this.errorMap.containsKey(stationTriplet) ) {
+					this.errorMap.put ( stationTriplet, "Reading data was interrupted." );
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return dataValuesMap;
+	}
+
+	/**
+	 * Read a chunk, retrying if necessary.
+	 * If the chunk has more than one station and cannot be read, read the stations individually.
+	 */
+	private ChunkResult readChunk ( List<String> stationChunk, DateTime beginDate, DateTime endDate, ChunkReader chunkReader )
+		throws InterruptedException {
+		String routine = getClass().getSimpleName() + ".readChunk";
+		ChunkResult chunkResult = new ChunkResult();
+		try {
+			chunkResult.dataValuesList = readWithRetries ( stationChunk, beginDate, endDate, chunkReader );
+		}
+		catch ( InterruptedException e ) {
+			throw e;
+		}
+		catch ( Exception e ) {
+			if ( stationChunk.size() == 1 ) {
+				chunkResult.errorMap.put ( stationChunk.get(0), "" + e );
+			}
+			else {
+				Message.printWarning(3, routine, "Error reading data for " + stationChunk.size() +
+					" station triplets (" + e + ").  Reading the station triplets individually.");
+				for ( String stationTriplet : stationChunk ) {
+					List<String> stationTripletsForOne = new ArrayList<>();
+					stationTripletsForOne.add ( stationTriplet );
+					try {
+						chunkResult.dataValuesList.addAll ( readWithRetries ( stationTripletsForOne, beginDate, endDate, chunkReader ) );
+					}
+					catch ( InterruptedException e2 ) {
+						throw e2;
+					}
+					catch ( Exception e2 ) {
+						chunkResult.errorMap.put ( stationTriplet, "" + e2 );
+					}
+				}
+			}
+		}
+		return chunkResult;
+	}
+
+	/**
+	 * Read the data values, retrying with exponential backoff for errors that may be temporary.
+	 */
+	private List<StationDataValues> readWithRetries ( List<String> stationTriplets, DateTime beginDate, DateTime endDate,
+		ChunkReader chunkReader ) throws Exception {
+		String routine = getClass().getSimpleName() + ".readWithRetries";
+		long delayMs = this.retryDelayMs;
+		for ( int attempt = 0; ; attempt++ ) {
+			try {
+				return chunkReader.read ( stationTriplets, beginDate, endDate );
+			}
+			catch ( Exception e ) {
+				if ( (attempt >= this.retries) || !isRetryable(e) ) {
+					throw e;
+				}
+				Message.printWarning(3, routine, "Error reading data for " + stationTriplets.size() +
+					" station triplets (" + e + ").  Retrying in " + delayMs + " ms (retry " + (attempt + 1) +
+					" of " + this.retries + ").");
+				Thread.sleep ( delayMs );
+				delayMs *= 2;
+			}
+		}
+	}
+
+}
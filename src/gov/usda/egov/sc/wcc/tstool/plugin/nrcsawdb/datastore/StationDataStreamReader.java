@@ -0,0 +1,294 @@
+// StationDataStreamReader - streaming reader for the NRCS AWDB 'data' service JSON response
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 2026 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.datastore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import RTi.Util.Time.DateTime;
+import RTi.Util.Time.TimeInterval;
+import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.StationElement;
+import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.TimingCentralTendency;
+
+/**
+ * Streaming reader for the 'data' service JSON response, which is a list of StationData objects.
+ * The response is parsed with a Jackson streaming parser directly from the input stream,
+ * without reading the full response into a string or creating DataValue objects,
+ * which allows large responses (e.g., statewide hourly data) to be read with limited memory.
+ * The 'stationElement' and 'timingCentralTendencies' objects, which are small, are read using data binding.
+ * <p>
+ * The ObjectMapper and ObjectReader instances are shared because they are thread-safe once configured.
+ * An instance of this class is used for one response and is not thread-safe.
+ */
+class StationDataStreamReader {
+
+	/**
+	 * Shared reader for StationElement.
+	 */
+	private static final ObjectReader STATION_ELEMENT_READER =
+		NrcsAwdbRestApiDataStore.OBJECT_MAPPER.readerFor(StationElement.class);
+
+	/**
+	 * Shared reader for the timing central tendencies.
+	 */
+	private static final ObjectReader TIMING_CENTRAL_TENDENCIES_READER =
+		NrcsAwdbRestApiDataStore.OBJECT_MAPPER.readerFor(new TypeReference<Map<String,TimingCentralTendency>>(){});
+
+	/**
+	 * Time series interval base, used to determine how to parse date/times.
+	 */
+	private int intervalBase;
+
+	/**
+	 * Flag strings that have been formatted, to share the same strings for repeated flags.
+	 */
+	private Map<String,String> flagMap = new HashMap<>();
+
+	/**
+	 * Number of values that were read.
+	 */
+	private int valueCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param intervalBase time series interval base (e.g., TimeInterval.DAY), used to parse date/times
+	 */
+	StationDataStreamReader ( int intervalBase ) {
+		this.intervalBase = intervalBase;
+	}
+
+	/**
+	 * Format the flag from the 'qcFlag' and 'qaFlag', consistent with time series flags.
+	 * @param qcFlag qcFlag from the response, can be null
+	 * @param qaFlag qaFlag from the response, can be null
+	 * @return the flag as 'qcFlag,qaFlag' or only the flag that is specified, or null if no flags are specified
+	 */
+	private String formatFlag ( String qcFlag, String qaFlag ) {
+		if ( qcFlag == null ) {
+			qcFlag = "";
+		}
+		if ( qaFlag == null ) {
+			qaFlag = "";
+		}
+		String flag;
+		if ( qcFlag.isEmpty() && qaFlag.isEmpty() ) {
+			// No flags.
+			return null;
+		}
+		else if ( !qcFlag.isEmpty() && !qaFlag.isEmpty() ) {
+			// Have both flags.
+			flag = qcFlag + "," + qaFlag;
+		}
+		else if ( !qcFlag.isEmpty() ) {
+			// Have qcFlag.
+			flag = qcFlag;
+		}
+		else {
+			// Have qaFlag.
+			flag = qaFlag;
+		}
+		// Share the same string for repeated flags.
+		String flag2 = this.flagMap.get(flag);
+		if ( flag2 == null ) {
+			this.flagMap.put(flag, flag);
+			flag2 = flag;
+		}
+		return flag2;
+	}
+
+	/**
+	 * Return the number of values that were read.
+	 * @return the number of values that were read
+	 */
+	int getValueCount () {
+		return this.valueCount;
+	}
+
+	/**
+	 * Read the response.
+	 * @param in input stream for the response, which is not closed
+	 * @return list of data values, one for each station triplet and station element
+	 */
+	List<StationDataValues> read ( InputStream in ) throws IOException {
+		List<StationDataValues> dataValuesList = new ArrayList<>();
+		JsonParser parser = NrcsAwdbRestApiDataStore.OBJECT_MAPPER.getFactory().createParser(in);
+		try {
+			JsonToken token = parser.nextToken();
+			if ( token != JsonToken.START_ARRAY ) {
+				throw new IOException ( "Expecting JSON array at start of 'data' response, have: " + token );
+			}
+			while ( parser.nextToken() == JsonToken.START_OBJECT ) {
+				// StationData object.
+				readStationData ( parser, dataValuesList );
+			}
+		}
+		finally {
+			parser.close();
+		}
+		return dataValuesList;
+	}
+
+	/**
+	 * Read a 'data' object, which contains the station element and values.
+	 * The parser is positioned at the start of the object.
+	 */
+	private StationDataValues readData ( JsonParser parser ) throws IOException {
+		StationDataValues dataValues = new StationDataValues();
+		while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if ( name.equals("stationElement") ) {
+				if ( token != JsonToken.VALUE_NULL ) {
+					dataValues.setStationElement ( STATION_ELEMENT_READER.readValue(parser) );
+				}
+			}
+			else if ( name.equals("timingCentralTendencies") ) {
+				if ( token != JsonToken.VALUE_NULL ) {
+					dataValues.setTimingCentralTendencies ( TIMING_CENTRAL_TENDENCIES_READER.readValue(parser) );
+				}
+			}
+			else if ( name.equals("error") ) {
+				dataValues.setError ( parser.getValueAsString() );
+			}
+			else if ( name.equals("values") && (token == JsonToken.START_ARRAY) ) {
+				while ( parser.nextToken() == JsonToken.START_OBJECT ) {
+					readValue ( parser, dataValues );
+				}
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		return dataValues;
+	}
+
+	/**
+	 * Read a StationData object, which contains the station triplet and list of 'data'.
+	 * The parser is positioned at the start of the object.
+	 */
+	private void readStationData ( JsonParser parser, List<StationDataValues> dataValuesList ) throws IOException {
+		String stationTriplet = null;
+		List<StationDataValues> stationDataValuesList = new ArrayList<>();
+		while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if ( name.equals("stationTriplet") ) {
+				stationTriplet = parser.getValueAsString();
+			}
+			else if ( name.equals("data") && (token == JsonToken.START_ARRAY) ) {
+				while ( parser.nextToken() == JsonToken.START_OBJECT ) {
+					stationDataValuesList.add ( readData ( parser ) );
+				}
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		// Set the station triplet after reading the object because the order of properties is not guaranteed.
+		for ( StationDataValues dataValues : stationDataValuesList ) {
+			if ( stationTriplet != null ) {
+				dataValues.setStationTriplet ( stationTriplet );
+			}
+			dataValuesList.add ( dataValues );
+		}
+	}
+
+	/**
+	 * Read a value object and add to the data values.
+	 * The parser is positioned at the start of the object.
+	 * If an exception occurs parsing the date/time, the remaining values are ignored,
+	 * consistent with processing DataValue objects.
+	 */
+	private void readValue ( JsonParser parser, StationDataValues dataValues ) throws IOException {
+		String date = null;
+		int year = -1;
+		int month = -1;
+		double value = Double.NaN;
+		String qcFlag = null;
+		String qaFlag = null;
+		while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if ( token == JsonToken.VALUE_NULL ) {
+				continue;
+			}
+			if ( name.equals("date") ) {
+				date = parser.getValueAsString();
+			}
+			else if ( name.equals("value") ) {
+				value = parser.getDoubleValue();
+			}
+			else if ( name.equals("qcFlag") ) {
+				qcFlag = parser.getValueAsString();
+			}
+			else if ( name.equals("qaFlag") ) {
+				qaFlag = parser.getValueAsString();
+			}
+			else if ( name.equals("year") ) {
+				year = parser.getValueAsInt();
+			}
+			else if ( name.equals("month") ) {
+				month = parser.getValueAsInt();
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		if ( dataValues.getException() != null ) {
+			// Already had an error so ignore the remaining values.
+			return;
+		}
+		try {
+			// Determine the date/time based on the interval, consistent with parsing DataValue.
+			DateTime dt = null;
+			if ( this.intervalBase == TimeInterval.YEAR ) {
+				dt = new DateTime ( DateTime.PRECISION_YEAR );
+				dt.setYear ( year );
+			}
+			else if ( this.intervalBase == TimeInterval.MONTH ) {
+				dt = new DateTime ( DateTime.PRECISION_MONTH );
+				dt.setYear ( year );
+				dt.setMonth ( month );
+			}
+			else {
+				dt = DateTime.parse(date);
+			}
+			dataValues.add ( dt, value, formatFlag(qcFlag, qaFlag) );
+			++this.valueCount;
+		}
+		catch ( Exception e ) {
+			dataValues.setException ( e );
+		}
+	}
+
+}
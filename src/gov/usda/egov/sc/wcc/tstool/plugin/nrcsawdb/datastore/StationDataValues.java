@@ -0,0 +1,254 @@
+// StationDataValues - compact data values for one station and element read from the NRCS AWDB 'data' service
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 2026 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.datastore;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import RTi.Util.Time.DateTime;
+import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.StationElement;
+import gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.dto.TimingCentralTendency;
+
+/**
+ * Data values for one station triplet and station element, corresponding to one 'data' object in the 'data' service response.
+ * The values are stored in arrays rather than DataValue objects to minimize memory use for large responses.
+ * Missing values (null in the response) are stored as NaN.
+ * Flags are formatted as 'qcFlag,qaFlag' (or only the flag that is specified) and are null if no flags are specified.
+ */
+class StationDataValues {
+
+	/**
+	 * Station triplet.
+	 */
+	private String stationTriplet = "";
+
+	/**
+	 * Station element.
+	 */
+	private StationElement stationElement = null;
+
+	/**
+	 * Timing central tendencies.
+	 */
+	private Map<String,TimingCentralTendency> timingCentralTendencies = null;
+
+	/**
+	 * Error string from the response.
+	 */
+	private String error = "";
+
+	/**
+	 * Exception that occurred processing the values, in which case values after the error are not included.
+	 */
+	private Exception exception = null;
+
+	/**
+	 * Number of values.
+	 */
+	private int size = 0;
+
+	/**
+	 * Date/time for each value.
+	 */
+	private DateTime [] dateTimes = new DateTime[16];
+
+	/**
+	 * Data values, NaN if missing.
+	 */
+	private double [] values = new double[16];
+
+	/**
+	 * Data flags, null if no flag.
+	 */
+	private String [] flags = new String[16];
+
+	/**
+	 * Constructor.
+	 */
+	StationDataValues () {
+	}
+
+	/**
+	 * Add a value.
+	 * @param dateTime date/time for the value
+	 * @param value data value, NaN if missing
+	 * @param flag data flag, null if no flag
+	 */
+	void add ( DateTime dateTime, double value, String flag ) {
+		if ( this.size == this.values.length ) {
+			int newLength = this.values.length*2;
+			this.dateTimes = Arrays.copyOf(this.dateTimes, newLength);
+			this.values = Arrays.copyOf(this.values, newLength);
+			this.flags = Arrays.copyOf(this.flags, newLength);
+		}
+		this.dateTimes[this.size] = dateTime;
+		this.values[this.size] = value;
+		this.flags[this.size] = flag;
+		++this.size;
+	}
+
+	/**
+	 * Append the values from another instance for the same station triplet and station element,
+	 * used to assemble the results of requests for consecutive periods.
+	 * Values that are not after the last value are ignored so that overlapping periods do not duplicate values.
+	 * @param other data values to append, which must be for a later period
+	 */
+	void append ( StationDataValues other ) {
+		DateTime last = (this.size == 0) ? null : this.dateTimes[this.size - 1];
+		for ( int i = 0; i < other.size; i++ ) {
+			if ( (last != null) && !other.dateTimes[i].greaterThan(last) ) {
+				continue;
+			}
+			add ( other.dateTimes[i], other.values[i], other.flags[i] );
+		}
+		if ( (this.exception == null) && (other.exception != null) ) {
+			this.exception = other.exception;
+		}
+		if ( (this.error == null) || this.error.isEmpty() ) {
+			this.error = other.error;
+		}
+		if ( this.stationElement == null ) {
+			this.stationElement = other.stationElement;
+		}
+		if ( this.timingCentralTendencies == null ) {
+			this.timingCentralTendencies = other.timingCentralTendencies;
+		}
+	}
+
+	/**
+	 * Return the date/time for a value.
+	 * @param i value position (0+)
+	 * @return the date/time for a value
+	 */
+	DateTime getDateTime ( int i ) {
+		return this.dateTimes[i];
+	}
+
+	/**
+	 * Return the error from the response.
+	 * @return the error from the response, empty if no error
+	 */
+	String getError () {
+		return this.error;
+	}
+
+	/**
+	 * Return the exception that occurred processing the values.
+	 * @return the exception, or null if no exception
+	 */
+	Exception getException () {
+		return this.exception;
+	}
+
+	/**
+	 * Return the flag for a value.
+	 * @param i value position (0+)
+	 * @return the flag for a value, null if no flag
+	 */
+	String getFlag ( int i ) {
+		return this.flags[i];
+	}
+
+	/**
+	 * Return the station element.
+	 * @return the station element
+	 */
+	StationElement getStationElement () {
+		return this.stationElement;
+	}
+
+	/**
+	 * Return the station triplet.
+	 * @return the station triplet
+	 */
+	String getStationTriplet () {
+		return this.stationTriplet;
+	}
+
+	/**
+	 * Return the timing central tendencies.
+	 * @return the timing central tendencies
+	 */
+	Map<String,TimingCentralTendency> getTimingCentralTendencies () {
+		return this.timingCentralTendencies;
+	}
+
+	/**
+	 * Return the data value.
+	 * @param i value position (0+)
+	 * @return the data value, NaN if missing
+	 */
+	double getValue ( int i ) {
+		return this.values[i];
+	}
+
+	/**
+	 * Set the error from the response.
+	 * @param error error from the response
+	 */
+	void setError ( String error ) {
+		this.error = error;
+	}
+
+	/**
+	 * Set the exception that occurred processing the values.
+	 * @param exception exception that occurred
+	 */
+	void setException ( Exception exception ) {
+		this.exception = exception;
+	}
+
+	/**
+	 * Set the station element.
+	 * @param stationElement station element
+	 */
+	void setStationElement ( StationElement stationElement ) {
+		this.stationElement = stationElement;
+	}
+
+	/**
+	 * Set the station triplet.
+	 * @param stationTriplet station triplet
+	 */
+	void setStationTriplet ( String stationTriplet ) {
+		this.stationTriplet = stationTriplet;
+	}
+
+	/**
+	 * Set the timing central tendencies.
+	 * @param timingCentralTendencies timing central tendencies
+	 */
+	void setTimingCentralTendencies ( Map<String,TimingCentralTendency> timingCentralTendencies ) {
+		this.timingCentralTendencies = timingCentralTendencies;
+	}
+
+	/**
+	 * Return the number of values.
+	 * @return the number of values
+	 */
+	int size () {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,64 @@
+// DataStoreConnectionLock - locks for datastore connections that are shared by commands
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2019 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.datastore;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+Locks for datastore connections.
+The datastore connection is shared by all commands that use the datastore, including commands run in other threads.
+Commands that change the auto-commit or transaction state of the connection lock the connection while the state is changed,
+so that only one command at a time has the connection in a transaction that it will commit, roll back, or restore.
+Code that uses the connection without the lock is not serialized.
+*/
+class DataStoreConnectionLock
+{
+
+/**
+Locks for connections, using the connection as the key.
+Entries are removed when a connection is no longer referenced.
+*/
+private static final Map<Connection,ReentrantLock> lockMap = new WeakHashMap<>();
+
+/**
+Constructor is private because only static methods are used.
+*/
+private DataStoreConnectionLock () {
+}
+
+/**
+Return the lock for a connection, creating the lock if necessary.
+@param connection database connection
+@return the lock for the connection
+*/
+public static ReentrantLock getLock ( Connection connection ) {
+    synchronized ( lockMap ) {
+        return lockMap.computeIfAbsent ( connection, c -> new ReentrantLock() );
+    }
+}
+
+}
@@ -30,13 +30,17 @@ import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 
 import java.io.File;
+import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import RTi.DMI.DMI;
 import RTi.DMI.DMIDatabaseType;
@@ -115,6 +119,8 @@ throws InvalidCommandParameterException {
     String SqlFile = parameters.getValue ( "SqlFile" );
     String DataStoreFunction = parameters.getValue ( "DataStoreFunction" );
     String DataStoreProcedure = parameters.getValue ( "DataStoreProcedure" );
+    String FetchSize = parameters.getValue ( "FetchSize" );
+    String MaxRows = parameters.getValue ( "MaxRows" );
     String TableID = parameters.getValue ( "TableID" );
 
 	String warning = "";
@@ -191,6 +197,24 @@ throws InvalidCommandParameterException {
             new CommandLogRecord(CommandStatusType.FAILURE,
                 message, "Specify the Top parameter as an integer." ) );
     }
+    if ( (FetchSize != null) && !FetchSize.isEmpty() ) {
+        if ( !StringUtil.isInteger(FetchSize) || (Integer.parseInt(FetchSize) <= 0) ) {
+            message = "The fetch size (" + FetchSize + ") is invalid.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the fetch size as an integer > 0." ) );
+        }
+    }
+    if ( (MaxRows != null) && !MaxRows.isEmpty() ) {
+        if ( !StringUtil.isInteger(MaxRows) || (Integer.parseInt(MaxRows) <= 0) ) {
+            message = "The maximum number of rows (" + MaxRows + ") is invalid.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the maximum number of rows as an integer > 0." ) );
+        }
+    }
     String SqlFile_full = null;
     if ( (SqlFile != null) && !SqlFile.isEmpty() && (SqlFile.indexOf("${") < 0) ) {
         String working_dir = null;
@@ -239,7 +263,7 @@ throws InvalidCommandParameterException {
     }
 
 	//  Check for invalid parameters.
-	List<String> validList = new ArrayList<>(18);
+	List<String> validList = new ArrayList<>(20);
     validList.add ( "DataStore" );
     validList.add ( "EditorDataStore" ); // Only used in the editor.
     validList.add ( "DataStoreCatalog" );
@@ -256,6 +280,8 @@ throws InvalidCommandParameterException {
     validList.add ( "ProcedureParameters" );
     validList.add ( "ProcedureReturnProperty" );
     validList.add ( "OutputProperties" );
+    validList.add ( "FetchSize" );
+    validList.add ( "MaxRows" );
     validList.add ( "TableID" );
     validList.add ( "RowCountProperty" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
@@ -269,6 +295,62 @@ throws InvalidCommandParameterException {
     status.refreshPhaseSeverity(CommandPhaseType.INITIALIZATION,CommandStatusType.SUCCESS);
 }
 
+/**
+Execute a query using a forward-only, read-only statement with the requested fetch size and maximum number of rows,
+so that the JDBC driver returns rows in blocks as the table is created rather than buffering all rows.
+PostgreSQL only uses a cursor for the fetch size if auto-commit is off,
+so runCommand() turns off auto-commit for the query if necessary and restores it when the rows have been read.
+@param dmi DMI for the datastore
+@param queryString SQL query to execute
+@param fetchSize number of rows to fetch from the database at a time, or 0 to use the driver default
+@param maxRows maximum number of rows to return, or 0 for no limit
+@return the result set for the query, which should be closed with closeQuery()
+@exception SQLException if the query fails
+*/
+private ResultSet executeQuery ( DMI dmi, String queryString, int fetchSize, int maxRows )
+throws SQLException {
+    Statement stmt = dmi.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    try {
+        if ( fetchSize > 0 ) {
+            stmt.setFetchSize(fetchSize);
+        }
+        if ( maxRows > 0 ) {
+            stmt.setMaxRows(maxRows);
+        }
+        return stmt.executeQuery(queryString);
+    }
+    catch ( SQLException e ) {
+        stmt.close();
+        throw e;
+    }
+}
+
+/**
+Close a result set and its statement, when the statement was created by executeQuery().
+@param rs result set to close, can be null
+*/
+private void closeQuery ( ResultSet rs ) {
+    if ( rs == null ) {
+        return;
+    }
+    Statement stmt = null;
+    try {
+        stmt = rs.getStatement();
+    }
+    catch ( SQLException e ) {
+        // Swallow.
+    }
+    DMI.closeResultSet(rs);
+    if ( stmt != null ) {
+        try {
+            stmt.close();
+        }
+        catch ( SQLException e ) {
+            // Swallow.
+        }
+    }
+}
+
 /**
 Edit the command.
 @param parent The parent JFrame to which the command dialog will belong.
@@ -558,6 +640,18 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
    		TableID = TSCommandProcessorUtil.expandParameterValue(processor, this, TableID);
     }
     String RowCountProperty = parameters.getValue ( "RowCountProperty" );
+    String FetchSize = parameters.getValue ( "FetchSize" );
+    int fetchSize = 0; // Default is to use the driver default.
+    if ( (FetchSize != null) && !FetchSize.isEmpty() ) {
+        fetchSize = Integer.parseInt(FetchSize);
+    }
+    String MaxRows = parameters.getValue ( "MaxRows" );
+    int maxRows = 0; // Default is to return all rows.
+    if ( (MaxRows != null) && !MaxRows.isEmpty() ) {
+        maxRows = Integer.parseInt(MaxRows);
+    }
+    // Table, SQL, and SQL file queries use a statement with the fetch size and maximum rows.
+    boolean useQueryStatement = (fetchSize > 0) || (maxRows > 0);
 
     // Find the data store to use.
     DataStore dataStore = ((TSCommandProcessor)processor).getDataStoreForName (
@@ -694,11 +788,31 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
         DMIStoredProcedureData procedureData = null; // Used below if stored procedure.
         int errorCount = 0; // Count of errors that will prevent further processing.
        	String messageType = ""; // Used with messaging to indicate function or procedure.
+        ReentrantLock connectionLock = null; // Lock for the shared connection, if auto-commit may be changed.
+        boolean restoreAutoCommit = false; // Whether auto-commit was turned off for the query.
         try {
+        	if ( useQueryStatement && (fetchSize > 0) && (dmi.getDatabaseEngineType() == DMIDatabaseType.POSTGRESQL) ) {
+        		// PostgreSQL reads all rows into memory unless auto-commit is off, in which case a cursor is used.
+        		// The connection is shared so lock it until auto-commit is restored,
+        		// and only change auto-commit if it is on, in which case there is no open transaction.
+        		Connection connection = dmi.getConnection();
+        		ReentrantLock lock = DataStoreConnectionLock.getLock(connection);
+        		lock.lock();
+        		connectionLock = lock;
+        		if ( connection.getAutoCommit() ) {
+        			connection.setAutoCommit(false);
+        			restoreAutoCommit = true;
+        		}
+        	}
             if ( DataStoreTable != null ) {
                 // Query using the statement that was built above.
                 queryString = q.toString();
-                rs = dmi.dmiSelect(q);
+                if ( useQueryStatement ) {
+                	rs = executeQuery(dmi, queryString, fetchSize, maxRows);
+                }
+                else {
+                	rs = dmi.dmiSelect(q);
+                }
                 Message.printStatus(2, routine, "Executed query \"" + queryString + "\".");
             }
             else if ( (Sql != null) && !Sql.equals("") ) {
@@ -708,7 +822,12 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                 if ( dmi.getDatabaseEngineType() == DMIDatabaseType.ACCESS ) {
                     queryString = DMIUtil.removeCommentsFromSql(queryString);
                 }
-                rs = dmi.dmiSelect(queryString);
+                if ( useQueryStatement ) {
+                	rs = executeQuery(dmi, queryString, fetchSize, maxRows);
+                }
+                else {
+                	rs = dmi.dmiSelect(queryString);
+                }
                 Message.printStatus(2, routine, "Executed query \"" + queryString + "\".");
             }
             else if ( (SqlFile != null) && !SqlFile.equals("") ) {
@@ -733,7 +852,12 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                 if ( dmi.getDatabaseEngineType() == DMIDatabaseType.ACCESS ) {
                     queryString = DMIUtil.removeCommentsFromSql(queryString);
                 }
-                rs = dmi.dmiSelect(queryString);
+                if ( useQueryStatement ) {
+                	rs = executeQuery(dmi, queryString, fetchSize, maxRows);
+                }
+                else {
+                	rs = dmi.dmiSelect(queryString);
+                }
                 Message.printStatus(2, routine, "Executed query \"" + queryString + "\".");
             }
             else if ( ((DataStoreProcedure != null) && !DataStoreProcedure.equals("")) ||
@@ -986,7 +1110,28 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
             Message.printWarning ( 3, routine, e );
         }
         finally {
-            DMI.closeResultSet(rs);
+        	if ( useQueryStatement && (procedureData == null) ) {
+        		closeQuery(rs);
+        	}
+        	else {
+        		DMI.closeResultSet(rs);
+        	}
+        	if ( restoreAutoCommit ) {
+        		// Turning auto-commit back on commits the transaction, which only includes the query,
+        		// and any statements run on the connection without the lock, as auto-commit would have done.
+        		try {
+        			dmi.getConnection().setAutoCommit(true);
+        		}
+        		catch ( SQLException e ) {
+        			Message.printWarning ( 3, routine, e );
+        		}
+        	}
+        	if ( connectionLock != null ) {
+        		connectionLock.unlock();
+        	}
+        }
+        if ( (table != null) && (maxRows > 0) && (table.getNumberOfRecords() == maxRows) ) {
+        	Message.printStatus(2, routine, "Table has " + maxRows + " rows, the maximum requested by MaxRows - query results may be truncated.");
         }
         if ( table != null ) {
         	// Do some final checks, which may be indicative of database not being fully supported.
@@ -1122,6 +1267,8 @@ public String toString ( PropList parameters ) {
 		"ProcedureParameters",
 		"ProcedureReturnProperty",
 		"OutputProperties",
+		"FetchSize",
+		"MaxRows",
     	"TableID",
     	"RowCountProperty"
 	};
@@ -101,6 +101,8 @@ private JTextField __DataStoreExpanded_JTextField;
 private SimpleJComboBox __EditorDataStore_JComboBox = null;
 private JTextField __TableID_JTextField = null;
 private JTextField __RowCountProperty_JTextField = null;
+private JTextField __FetchSize_JTextField = null;
+private JTextField __MaxRows_JTextField = null;
 private JTabbedPane __main_JTabbedPane = null;
 private SimpleJComboBox __DataStoreCatalog_JComboBox = null;
 private SimpleJComboBox __DataStoreSchema_JComboBox = null;
@@ -426,6 +428,8 @@ private void checkInput () {
 	String OutputProperties = __OutputProperties_JTextArea.getText().trim().replace("\n"," ");
     String TableID = __TableID_JTextField.getText().trim();
     String RowCountProperty = __RowCountProperty_JTextField.getText().trim();
+    String FetchSize = __FetchSize_JTextField.getText().trim();
+    String MaxRows = __MaxRows_JTextField.getText().trim();
 	__error_wait = false;
 
     if ( DataStoreCatalog.length() > 0 ) {
@@ -475,6 +479,12 @@ private void checkInput () {
     }
     if ( RowCountProperty.length() > 0 ) {
         props.set ( "RowCountProperty", RowCountProperty );
+    }
+    if ( FetchSize.length() > 0 ) {
+        props.set ( "FetchSize", FetchSize );
+    }
+    if ( MaxRows.length() > 0 ) {
+        props.set ( "MaxRows", MaxRows );
     }
 	try {
 	    // This will warn the user.
@@ -511,6 +521,8 @@ private void commitEdits () {
 	String OutputProperties = __OutputProperties_JTextArea.getText().trim();
     String TableID = __TableID_JTextField.getText().trim();
     String RowCountProperty = __RowCountProperty_JTextField.getText().trim();
+    String FetchSize = __FetchSize_JTextField.getText().trim();
+    String MaxRows = __MaxRows_JTextField.getText().trim();
     __command.setCommandParameter ( "DataStore", DataStore );
     __command.setCommandParameter ( "EditorDataStore", EditorDataStore );
     __command.setCommandParameter ( "DataStoreCatalog", DataStoreCatalog );
@@ -529,6 +541,8 @@ private void commitEdits () {
 	__command.setCommandParameter ( "OutputProperties", OutputProperties );
     __command.setCommandParameter ( "TableID", TableID );
 	__command.setCommandParameter ( "RowCountProperty", RowCountProperty );
+	__command.setCommandParameter ( "FetchSize", FetchSize );
+	__command.setCommandParameter ( "MaxRows", MaxRows );
 }
 
 /**
@@ -1037,6 +1051,28 @@ private void initialize ( JFrame parent, ReadTableFromDataStore_Command command,
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Optional - processor property to set as output table row count." ),
         3, y, 3, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Fetch size:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __FetchSize_JTextField = new JTextField (10);
+    __FetchSize_JTextField.setToolTipText("Rows returned from the database at a time for table, SQL, and SQL file queries, " +
+        "to limit memory use for large queries.  For PostgreSQL, auto-commit is turned off for the query " +
+        "so that the fetch size is used.");
+    __FetchSize_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __FetchSize_JTextField,
+        1, y, 1, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Optional - rows to fetch from the database at a time (default=driver default)." ),
+        3, y, 3, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Maximum rows:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxRows_JTextField = new JTextField (10);
+    __MaxRows_JTextField.setToolTipText("Maximum number of rows to read for table, SQL, and SQL file queries.");
+    __MaxRows_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __MaxRows_JTextField,
+        1, y, 1, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Optional - maximum number of rows to read (default=all)." ),
+        3, y, 3, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ("Command:"),
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__command_JTextArea = new JTextArea (6,50);
@@ -1815,6 +1851,8 @@ try {
     String OutputProperties = "";
     String TableID = "";
     String RowCountProperty = "";
+    String FetchSize = "";
+    String MaxRows = "";
 	PropList props = __command.getCommandParameters();
 	if (__first_time) {
 		__first_time = false;
@@ -1841,6 +1879,8 @@ try {
         OutputProperties = props.getValue ( "OutputProperties" );
 		TableID = props.getValue ( "TableID" );
         RowCountProperty = props.getValue ( "RowCountProperty" );
+        FetchSize = props.getValue ( "FetchSize" );
+        MaxRows = props.getValue ( "MaxRows" );
 
 		// Get initial command parameter values, which will be shown in lists in addition to other values:
 		// - needed to handle ${Property} in parameter values
@@ -2043,6 +2083,12 @@ try {
         if ( RowCountProperty != null ) {
             __RowCountProperty_JTextField.setText ( RowCountProperty );
         }
+        if ( FetchSize != null ) {
+            __FetchSize_JTextField.setText ( FetchSize );
+        }
+        if ( MaxRows != null ) {
+            __MaxRows_JTextField.setText ( MaxRows );
+        }
 	}
 	// Regardless, reset the command from the fields.
     DataStore = __DataStore_JComboBox.getSelected();
@@ -2090,6 +2136,8 @@ try {
 	OutputProperties = __OutputProperties_JTextArea.getText().trim().replace("\n"," ");
     TableID = __TableID_JTextField.getText().trim();
 	RowCountProperty = __RowCountProperty_JTextField.getText().trim();
+	FetchSize = __FetchSize_JTextField.getText().trim();
+	MaxRows = __MaxRows_JTextField.getText().trim();
 	props = new PropList ( __command.getCommandName() );
 	props.add ( "DataStore=" + DataStore );
 	props.add ( "EditorDataStore=" + EditorDataStore );
@@ -2108,6 +2156,8 @@ try {
 	props.add ( "ProcedureParameters=" + ProcedureParameters );
 	props.add ( "ProcedureReturnProperty=" + ProcedureReturnProperty );
 	props.add ( "OutputProperties=" + OutputProperties );
+	props.add ( "FetchSize=" + FetchSize );
+	props.add ( "MaxRows=" + MaxRows );
     props.add ( "TableID=" + TableID );
 	props.add ( "RowCountProperty=" + RowCountProperty );
 
@@ -29,10 +29,19 @@ import riverside.datastore.DataStore;
 import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import RTi.DMI.DMI;
 import RTi.DMI.DMISelectStatement;
@@ -89,6 +98,8 @@ throws InvalidCommandParameterException
     String DataStoreTable = parameters.getValue ( "DataStoreTable" );
     String TableID = parameters.getValue ( "TableID" );
     String WriteMode = parameters.getValue ( "WriteMode" );
+    String BatchSize = parameters.getValue ( "BatchSize" );
+    String CommitInterval = parameters.getValue ( "CommitInterval" );
 
 	String warning = "";
     String message;
@@ -124,6 +135,38 @@ throws InvalidCommandParameterException
             new CommandLogRecord(CommandStatusType.FAILURE,
                 message, "Specify a valid write mode." ) );
     }
+    if ( (BatchSize != null) && !BatchSize.isEmpty() ) {
+        if ( !StringUtil.isInteger(BatchSize) || (Integer.parseInt(BatchSize) <= 0) ) {
+            message = "The batch size (" + BatchSize + ") is invalid.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the batch size as an integer > 0." ) );
+        }
+        if ( DMIWriteModeType.valueOfIgnoreCase(WriteMode) != DMIWriteModeType.INSERT ) {
+            message = "The batch size can only be specified when the write mode is " + DMIWriteModeType.INSERT + ".";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify WriteMode=" + DMIWriteModeType.INSERT + " or do not specify the batch size." ) );
+        }
+    }
+    if ( (CommitInterval != null) && !CommitInterval.isEmpty() ) {
+        if ( !StringUtil.isInteger(CommitInterval) || (Integer.parseInt(CommitInterval) <= 0) ) {
+            message = "The commit interval (" + CommitInterval + ") is invalid.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the commit interval as an integer > 0." ) );
+        }
+        if ( (BatchSize == null) || BatchSize.isEmpty() ) {
+            message = "The commit interval is only used when the batch size is specified.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the batch size or do not specify the commit interval." ) );
+        }
+    }
     
 	//  Check for invalid parameters...
 	List<String> validList = new ArrayList<>();
@@ -135,6 +178,8 @@ throws InvalidCommandParameterException
     validList.add ( "ColumnMap" );
     validList.add ( "DataStoreRelatedColumnsMap" );
     validList.add ( "WriteMode" );
+    validList.add ( "BatchSize" );
+    validList.add ( "CommitInterval" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );    
 
 	if ( warning.length() > 0 ) {
@@ -289,6 +334,16 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     if ( writeMode == null ) {
         writeMode = DMIWriteModeType.UPDATE_INSERT; // default
     }
+    String BatchSize = parameters.getValue ( "BatchSize" );
+    int batchSize = 0; // Default is to write each row with a separate statement
+    if ( (BatchSize != null) && !BatchSize.isEmpty() ) {
+        batchSize = Integer.parseInt(BatchSize);
+    }
+    String CommitInterval = parameters.getValue ( "CommitInterval" );
+    int commitInterval = 0; // Default is to commit after all rows are written
+    if ( (CommitInterval != null) && !CommitInterval.isEmpty() ) {
+        commitInterval = Integer.parseInt(CommitInterval);
+    }
     
     // Find the datastore to use...
     DataStore dataStore = ((TSCommandProcessor)processor).getDataStoreForName (
@@ -525,12 +580,28 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                 }
             }
         }
-        // For now create statements for every row.
-        // TODO SAM 2013-02-28 Need to optimize by creating a prepared statement
+        if ( batchSize > 0 ) {
+            // Write the rows using a prepared statement and batches.
+            List<String> problems = new ArrayList<>();
+            sqlString = writeTableRowsInBatches ( dmi, table, DataStoreTable, columnOkToWrite, tableFieldNamesMapped, tableColumnTypes,
+                dataStoreRelatedTables, dataStoreRelatedLookupColumns, dataStoreRelatedPrimaryKeyColumns,
+                batchSize, commitInterval, problems );
+            for ( String problem : problems ) {
+                Message.printWarning ( 3, routine, problem );
+                status.addToLog ( commandPhase,
+                    new CommandLogRecord(CommandStatusType.FAILURE,
+                        problem, "Check log file for details." ) );
+            }
+        }
+        // Create statements for every row, if not written in batches above.
         Object o; // Generic table cell values
         DMIWriteStatement ws; // Write statement
         DMISelectStatement fkSelect; // Used when foreign key select is used
         int nTableRows = table.getNumberOfRecords();
+        if ( batchSize > 0 ) {
+            // Rows were written in batches above.
+            nTableRows = 0;
+        }
         for ( iRow = 0; iRow < nTableRows; iRow++ ) {
             if ( (iRow == 0) || (iRow == (nTableRows - 1)) || (iRow%5 == 0) ) {
                 // Update the progress bar every 5%
@@ -758,6 +829,295 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     status.refreshPhaseSeverity(commandPhase,CommandStatusType.SUCCESS);
 }
 
+/**
+Return the SQL type used to write a table column type with a prepared statement.
+@param tableColumnType table column type
+@return the java.sql.Types value, or Types.NULL if the column type is not supported
+*/
+private int getSqlType ( int tableColumnType ) {
+    if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+        return Types.VARCHAR;
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_INT ) {
+        return Types.INTEGER;
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_SHORT ) {
+        return Types.SMALLINT;
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_LONG ) {
+        return Types.BIGINT;
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_DOUBLE ) {
+        return Types.DOUBLE;
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_FLOAT ) {
+        return Types.REAL;
+    }
+    else if ( (tableColumnType == TableField.DATA_TYPE_DATE) || (tableColumnType == TableField.DATA_TYPE_DATETIME) ) {
+        return Types.TIMESTAMP;
+    }
+    else {
+        return Types.NULL;
+    }
+}
+
+/**
+Set a prepared statement parameter from a table value.
+@param ps prepared statement
+@param pos parameter position (1+)
+@param tableColumnType table column type
+@param o table value, can be null
+*/
+private void setParameterValue ( PreparedStatement ps, int pos, int tableColumnType, Object o )
+throws SQLException {
+    if ( o == null ) {
+        ps.setNull(pos, getSqlType(tableColumnType));
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+        ps.setString(pos, (String)o);
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_INT ) {
+        ps.setInt(pos, (Integer)o);
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_SHORT ) {
+        ps.setShort(pos, (Short)o);
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_LONG ) {
+        ps.setLong(pos, (Long)o);
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_DOUBLE ) {
+        ps.setDouble(pos, (Double)o);
+    }
+    else if ( tableColumnType == TableField.DATA_TYPE_FLOAT ) {
+        ps.setFloat(pos, (Float)o);
+    }
+    else if ( o instanceof Date ) {
+        ps.setTimestamp(pos, new Timestamp(((Date)o).getTime()));
+    }
+    else if ( o instanceof DateTime ) {
+        ps.setTimestamp(pos, new Timestamp(((DateTime)o).getDate(TimeZoneDefaultType.LOCAL).getTime()));
+    }
+    else {
+        ps.setNull(pos, getSqlType(tableColumnType));
+    }
+}
+
+/**
+Write the table rows using a prepared statement and batches, which is much faster than writing each row with a
+separate statement for large tables.  Rows are inserted and foreign key values for related table columns
+are looked up once for each distinct value and saved for the remainder of the run.
+@param dmi DMI for the datastore
+@param table table to write
+@param dataStoreTable datastore table to write
+@param columnOkToWrite indicates which table columns should be written
+@param tableFieldNamesMapped datastore column names corresponding to the table columns
+@param tableColumnTypes table column types
+@param dataStoreRelatedTables datastore related tables for foreign keys, or null if not a related column
+@param dataStoreRelatedLookupColumns datastore related table columns used to match the table values
+@param dataStoreRelatedPrimaryKeyColumns datastore related table primary key columns, the values of which are written
+@param batchSize number of rows to add to a batch before executing the batch
+@param commitInterval number of rows between commits, or 0 to commit after all rows have been written
+@param problems list of problems to be populated if errors occur
+@return the SQL string for the prepared statement, for messages
+*/
+private String writeTableRowsInBatches ( DMI dmi, DataTable table, String dataStoreTable, boolean [] columnOkToWrite,
+    String [] tableFieldNamesMapped, int [] tableColumnTypes, String [] dataStoreRelatedTables,
+    String [] dataStoreRelatedLookupColumns, String [] dataStoreRelatedPrimaryKeyColumns,
+    int batchSize, int commitInterval, List<String> problems )
+{   String routine = getClass().getSimpleName() + ".writeTableRowsInBatches";
+    int numTableColumns = table.getNumberOfFields();
+    // Determine the columns to write and form the SQL.
+    List<Integer> writeColumns = new ArrayList<>();
+    boolean [] isRelatedColumn = new boolean[numTableColumns];
+    StringBuilder sql = new StringBuilder ( "INSERT INTO " + dataStoreTable + " (" );
+    for ( int iCol = 0; iCol < numTableColumns; iCol++ ) {
+        if ( !columnOkToWrite[iCol] ) {
+            continue;
+        }
+        isRelatedColumn[iCol] = (dataStoreRelatedTables[iCol] != null) && (dataStoreRelatedLookupColumns[iCol] != null) &&
+            (dataStoreRelatedPrimaryKeyColumns[iCol] != null);
+        if ( getSqlType(tableColumnTypes[iCol]) == Types.NULL ) {
+            problems.add ( "Datastore table column \"" + tableFieldNamesMapped[iCol] + " type \"" +
+                TableColumnType.valueOf(tableColumnTypes[iCol]) + "\" handling is not supported.  Unable to write table." );
+            continue;
+        }
+        if ( writeColumns.size() > 0 ) {
+            sql.append ( "," );
+        }
+        sql.append ( tableFieldNamesMapped[iCol] );
+        writeColumns.add ( iCol );
+    }
+    sql.append ( ") VALUES (" );
+    for ( int i = 0; i < writeColumns.size(); i++ ) {
+        if ( i > 0 ) {
+            sql.append ( "," );
+        }
+        sql.append ( "?" );
+    }
+    sql.append ( ")" );
+    if ( problems.size() > 0 ) {
+        problems.add ( "Not writing data due to errors." );
+        return sql.toString();
+    }
+    // Foreign key lookups, for each related column:
+    // - prepared statements are created when first needed
+    // - cache of table value to related table primary key value (null if not found)
+    PreparedStatement [] fkSelects = new PreparedStatement[numTableColumns];
+    PreparedStatement [] fkNullSelects = new PreparedStatement[numTableColumns];
+    int [] fkTypes = new int[numTableColumns];
+    List<Map<Object,Object>> fkCacheList = new ArrayList<>();
+    for ( int iCol = 0; iCol < numTableColumns; iCol++ ) {
+        fkTypes[iCol] = Types.INTEGER;
+        fkCacheList.add ( isRelatedColumn[iCol] ? new HashMap<>() : null );
+    }
+    Connection connection = dmi.getConnection();
+    PreparedStatement ps = null;
+    boolean autoCommit = true;
+    int nTableRows = table.getNumberOfRecords();
+    int progressInterval = Math.max(1, nTableRows/20);
+    int iRow = -1; // Table row being written
+    int rowsInBatch = 0; // Number of rows in the current batch
+    int rowsCommitted = 0; // Number of rows that have been committed
+    int fkLookupCount = 0; // Number of foreign key lookup queries
+    // Lock the shared connection while auto-commit is off.
+    ReentrantLock connectionLock = DataStoreConnectionLock.getLock(connection);
+    connectionLock.lock();
+    try {
+        autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        ps = connection.prepareStatement(sql.toString());
+        for ( iRow = 0; iRow < nTableRows; iRow++ ) {
+            if ( (iRow == 0) || (iRow == (nTableRows - 1)) || (iRow%progressInterval == 0) ) {
+                // Update the progress bar every 5%
+                notifyCommandProgressListeners ( iRow, nTableRows, (float)-1.0, "Writing row " + (iRow + 1) + " of " + nTableRows );
+            }
+            int pos = 0;
+            for ( int iCol : writeColumns ) {
+                ++pos;
+                Object o = table.getFieldValue(iRow, iCol);
+                if ( isRelatedColumn[iCol] ) {
+                    // Look up the related table primary key, first checking the cache.
+                    Map<Object,Object> fkCache = fkCacheList.get(iCol);
+                    Object key = (o instanceof DateTime) ? o.toString() : o;
+                    Object fkValue;
+                    if ( fkCache.containsKey(key) ) {
+                        fkValue = fkCache.get(key);
+                    }
+                    else {
+                        PreparedStatement fkSelect;
+                        if ( o == null ) {
+                            if ( fkNullSelects[iCol] == null ) {
+                                fkNullSelects[iCol] = connection.prepareStatement ( "SELECT " + dataStoreRelatedPrimaryKeyColumns[iCol] +
+                                    " FROM " + dataStoreRelatedTables[iCol] + " WHERE " + dataStoreRelatedLookupColumns[iCol] + " is null" );
+                            }
+                            fkSelect = fkNullSelects[iCol];
+                        }
+                        else {
+                            if ( fkSelects[iCol] == null ) {
+                                fkSelects[iCol] = connection.prepareStatement ( "SELECT " + dataStoreRelatedPrimaryKeyColumns[iCol] +
+                                    " FROM " + dataStoreRelatedTables[iCol] + " WHERE " + dataStoreRelatedLookupColumns[iCol] + " = ?" );
+                            }
+                            fkSelect = fkSelects[iCol];
+                            setParameterValue ( fkSelect, 1, tableColumnTypes[iCol], o );
+                        }
+                        fkValue = null;
+                        ResultSet rs = fkSelect.executeQuery();
+                        try {
+                            fkTypes[iCol] = rs.getMetaData().getColumnType(1);
+                            if ( rs.next() ) {
+                                fkValue = rs.getObject(1);
+                            }
+                        }
+                        finally {
+                            // Close only the result set because the statement is reused.
+                            rs.close();
+                        }
+                        ++fkLookupCount;
+                        fkCache.put(key, fkValue);
+                    }
+                    if ( fkValue == null ) {
+                        ps.setNull(pos, fkTypes[iCol]);
+                    }
+                    else {
+                        ps.setObject(pos, fkValue);
+                    }
+                }
+                else if ( (tableColumnTypes[iCol] == TableField.DATA_TYPE_STRING) && (o == null) ) {
+                    // Consistent with writing each row.
+                    ps.setString(pos, "");
+                }
+                else {
+                    setParameterValue ( ps, pos, tableColumnTypes[iCol], o );
+                }
+            }
+            ps.addBatch();
+            ++rowsInBatch;
+            if ( rowsInBatch == batchSize ) {
+                ps.executeBatch();
+                rowsInBatch = 0;
+            }
+            if ( (commitInterval > 0) && ((iRow + 1)%commitInterval == 0) ) {
+                if ( rowsInBatch > 0 ) {
+                    ps.executeBatch();
+                    rowsInBatch = 0;
+                }
+                connection.commit();
+                rowsCommitted = iRow + 1;
+            }
+        }
+        if ( rowsInBatch > 0 ) {
+            ps.executeBatch();
+        }
+        connection.commit();
+        rowsCommitted = nTableRows;
+        Message.printStatus(2, routine, "Wrote " + nTableRows + " rows in batches of " + batchSize +
+            " with " + fkLookupCount + " foreign key lookups using SQL \"" + sql + "\"." );
+    }
+    catch ( Exception e ) {
+        problems.add ( "Error writing to datastore table \"" + dataStoreTable + "\" in batch ending at row " + iRow +
+            " using prepared statement \"" + sql + "\" (" + e + ")." );
+        if ( (e instanceof SQLException) && (((SQLException)e).getNextException() != null) ) {
+            // Batch errors often have the database error as the next exception.
+            problems.add ( "Database error: " + ((SQLException)e).getNextException() );
+        }
+        Message.printWarning ( 3, routine, e );
+        try {
+            connection.rollback();
+            problems.add ( "Wrote " + rowsCommitted + " rows before the error.  Rows after that were not written." );
+        }
+        catch ( SQLException e2 ) {
+            // Swallow.
+        }
+    }
+    finally {
+        List<PreparedStatement> statements = new ArrayList<>();
+        statements.add ( ps );
+        for ( int iCol = 0; iCol < numTableColumns; iCol++ ) {
+            statements.add ( fkSelects[iCol] );
+            statements.add ( fkNullSelects[iCol] );
+        }
+        for ( PreparedStatement statement : statements ) {
+            if ( statement != null ) {
+                try {
+                    statement.close();
+                }
+                catch ( SQLException e ) {
+                    // Swallow.
+                }
+            }
+        }
+        try {
+            connection.setAutoCommit(autoCommit);
+        }
+        catch ( SQLException e ) {
+            // Swallow.
+        }
+        connectionLock.unlock();
+    }
+    return sql.toString();
+}
+
+
 /**
 Return the string representation of the command.
 @param parameters to include in the command
@@ -772,9 +1132,11 @@ public String toString ( PropList parameters ) {
 		"DataStoreTable",
 		"ColumnMap",
 		"DataStoreRelatedColumnsMap",
-		"WriteMode"
+		"WriteMode",
+		"BatchSize",
+		"CommitInterval"
 	};
 	return this.toString(parameters, parameterOrder);
 }
 
-}
\ No newline at end of file
+}
@@ -83,6 +83,8 @@ private SimpleJComboBox __DataStoreTable_JComboBox = null;
 private JTextArea __ColumnMap_JTextArea = null;
 private JTextArea __DataStoreRelatedColumnsMap_JTextArea = null;
 private SimpleJComboBox __WriteMode_JComboBox = null;
+private JTextField __BatchSize_JTextField = null;
+private JTextField __CommitInterval_JTextField = null;
 private SimpleJButton __cancel_JButton = null;
 private SimpleJButton __ok_JButton = null;
 private SimpleJButton __help_JButton = null;
@@ -204,6 +206,8 @@ private void checkInput () {
 	String ColumnMap = __ColumnMap_JTextArea.getText().trim().replace("\n"," ");
 	String DataStoreRelatedColumnsMap = __DataStoreRelatedColumnsMap_JTextArea.getText().trim().replace("\n"," ");
 	String WriteMode = __WriteMode_JComboBox.getSelected();
+	String BatchSize = __BatchSize_JTextField.getText().trim();
+	String CommitInterval = __CommitInterval_JTextField.getText().trim();
 	__error_wait = false;
 
     if ( TableID.length() > 0 ) {
@@ -237,6 +241,12 @@ private void checkInput () {
     }
     if ( WriteMode.length() > 0 ) {
         props.set ( "WriteMode", WriteMode );
+    }
+    if ( BatchSize.length() > 0 ) {
+        props.set ( "BatchSize", BatchSize );
+    }
+    if ( CommitInterval.length() > 0 ) {
+        props.set ( "CommitInterval", CommitInterval );
     }
 	try {
 	    // This will warn the user.
@@ -262,6 +272,8 @@ private void commitEdits () {
     String ColumnMap = __ColumnMap_JTextArea.getText().trim();
     String DataStoreRelatedColumnsMap = __DataStoreRelatedColumnsMap_JTextArea.getText().trim();
     String WriteMode = __WriteMode_JComboBox.getSelected();
+    String BatchSize = __BatchSize_JTextField.getText().trim();
+    String CommitInterval = __CommitInterval_JTextField.getText().trim();
     __command.setCommandParameter ( "TableID", TableID );
     __command.setCommandParameter ( "IncludeColumns", IncludeColumns );
     __command.setCommandParameter ( "ExcludeColumns", ExcludeColumns );
@@ -270,6 +282,8 @@ private void commitEdits () {
 	__command.setCommandParameter ( "ColumnMap", ColumnMap );
 	__command.setCommandParameter ( "DataStoreRelatedColumnsMap", DataStoreRelatedColumnsMap );
 	__command.setCommandParameter ( "WriteMode", WriteMode );
+	__command.setCommandParameter ( "BatchSize", BatchSize );
+	__command.setCommandParameter ( "CommitInterval", CommitInterval );
 }
 
 /**
@@ -516,6 +530,25 @@ private void initialize ( JFrame parent, WriteTableToDataStore_Command command,
         DMIWriteModeType.UPDATE_INSERT + ")."),
         3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Batch size:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __BatchSize_JTextField = new JTextField (10);
+    __BatchSize_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __BatchSize_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel("Optional - rows per batch for " + DMIWriteModeType.INSERT +
+        " using a prepared statement (default=write each row)."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Commit interval:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __CommitInterval_JTextField = new JTextField (10);
+    __CommitInterval_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __CommitInterval_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel("Optional - rows between commits when using batches (default=commit at end)."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ("Command:"),
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__command_JTextArea = new JTextArea (6,50);
@@ -650,6 +683,8 @@ try{
     String ColumnMap = "";
     String DataStoreRelatedColumnsMap = "";
     String WriteMode = "";
+    String BatchSize = "";
+    String CommitInterval = "";
 	PropList props = __command.getCommandParameters();
 	if (__first_time) {
 		__first_time = false;
@@ -661,6 +696,8 @@ try{
 	    ColumnMap = props.getValue ( "ColumnMap" );
 	    DataStoreRelatedColumnsMap = props.getValue ( "DataStoreRelatedColumnsMap" );
 	    WriteMode = props.getValue ( "WriteMode" );
+	    BatchSize = props.getValue ( "BatchSize" );
+	    CommitInterval = props.getValue ( "CommitInterval" );
         if ( TableID == null ) {
             // Select default.
             __TableID_JComboBox.select ( 0 );
@@ -737,6 +774,12 @@ try{
                 __error_wait = true;
             }
         }
+        if ( BatchSize != null ) {
+            __BatchSize_JTextField.setText ( BatchSize );
+        }
+        if ( CommitInterval != null ) {
+            __CommitInterval_JTextField.setText ( CommitInterval );
+        }
 	}
 	// Regardless, reset the command from the fields.
 	TableID = __TableID_JComboBox.getSelected();
@@ -753,6 +796,8 @@ try{
     ColumnMap = __ColumnMap_JTextArea.getText().trim();
     DataStoreRelatedColumnsMap = __DataStoreRelatedColumnsMap_JTextArea.getText().trim();
     WriteMode = __WriteMode_JComboBox.getSelected();
+    BatchSize = __BatchSize_JTextField.getText().trim();
+    CommitInterval = __CommitInterval_JTextField.getText().trim();
 	props = new PropList ( __command.getCommandName() );
     props.add ( "TableID=" + TableID );
     props.add ( "IncludeColumns=" + IncludeColumns );
@@ -762,6 +807,8 @@ try{
 	props.add ( "ColumnMap=" + ColumnMap );
 	props.add ( "DataStoreRelatedColumnsMap=" + DataStoreRelatedColumnsMap );
 	props.add ( "WriteMode=" + WriteMode );
+	props.add ( "BatchSize=" + BatchSize );
+	props.add ( "CommitInterval=" + CommitInterval );
 	__command_JTextArea.setText( __command.toString ( props ).trim() );
 }
 catch ( Exception e ) {
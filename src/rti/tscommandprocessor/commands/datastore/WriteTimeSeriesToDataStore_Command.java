@@ -23,13 +23,25 @@ NoticeEnd */
 
 package rti.tscommandprocessor.commands.datastore;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.swing.JFrame;
 
@@ -39,6 +51,7 @@ import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 import rti.tscommandprocessor.core.TSListType;
 import RTi.DMI.DMI;
+import RTi.DMI.DMIDatabaseType;
 import RTi.DMI.DMIDeleteStatement;
 import RTi.DMI.DMISelectStatement;
 import RTi.DMI.DMIUtil;
@@ -78,7 +91,13 @@ protected final String _DeleteAllThenInsert = "DeleteAllThenInsert";
 protected final String _DeletePeriodThenInsert = "DeletePeriodThenInsert";
 
 /**
-Prepared statement to re-use when writing time series.
+Write mode to insert new values and update existing values with a single database-native statement
+(INSERT ... ON CONFLICT for PostgreSQL and SQLite, MERGE for SQL Server and Derby).
+*/
+protected final String _BulkUpsert = "BulkUpsert";
+
+/**
+Prepared statements to re-use when writing time series with the datastore connection, using the SQL as the key.
 */
 private Hashtable<String, PreparedStatement> __preparedStatementHash = null;
 
@@ -111,6 +130,9 @@ throws InvalidCommandParameterException
 	String DataStore = parameters.getValue ( "DataStore" );
     String DataStoreMissingValue = parameters.getValue("DataStoreMissingValue" );
 	String WriteMode = parameters.getValue ( "WriteMode" );
+	String BatchSize = parameters.getValue ( "BatchSize" );
+	String CommitInterval = parameters.getValue ( "CommitInterval" );
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
 	String warning = "";
 	String routine = getCommandName() + ".checkCommandParameters";
 	String message;
@@ -162,7 +184,8 @@ throws InvalidCommandParameterException
                 message, "Specify the missing value as a number, NaN, or null." ) );
     }
     if ( (WriteMode != null) && !WriteMode.equals("") ) {
-        if ( WriteMode.equalsIgnoreCase(_DeleteAllThenInsert) || WriteMode.equalsIgnoreCase(_DeletePeriodThenInsert)) {
+        if ( WriteMode.equalsIgnoreCase(_DeleteAllThenInsert) || WriteMode.equalsIgnoreCase(_DeletePeriodThenInsert) ||
+            WriteMode.equalsIgnoreCase(_BulkUpsert) ) {
             // OK
         }
         else if ( DMIWriteModeType.valueOfIgnoreCase(WriteMode) == null ) {
@@ -173,9 +196,36 @@ throws InvalidCommandParameterException
                     message, "Specify a valid write mode." ) );
         }
     }
+    if ( (BatchSize != null) && !BatchSize.isEmpty() ) {
+        if ( !StringUtil.isInteger(BatchSize) || (Integer.parseInt(BatchSize) <= 0) ) {
+            message = "The batch size (" + BatchSize + ") is invalid.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the batch size as an integer > 0." ) );
+        }
+    }
+    if ( (CommitInterval != null) && !CommitInterval.isEmpty() ) {
+        if ( !StringUtil.isInteger(CommitInterval) || (Integer.parseInt(CommitInterval) <= 0) ) {
+            message = "The commit interval (" + CommitInterval + ") is invalid.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the commit interval as an integer > 0." ) );
+        }
+    }
+    if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+        if ( !StringUtil.isInteger(MaxThreads) || (Integer.parseInt(MaxThreads) <= 0) ) {
+            message = "The maximum number of threads (" + MaxThreads + ") is invalid.";
+            warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the maximum number of threads as an integer > 0." ) );
+        }
+    }
 
 	// Check for invalid parameters...
-	List<String> validList = new ArrayList<String>(15);
+	List<String> validList = new ArrayList<String>(18);
     validList.add ( "TSList" );
     validList.add ( "TSID" );
     validList.add ( "EnsembleID" );
@@ -191,6 +241,9 @@ throws InvalidCommandParameterException
     validList.add ( "DataStoreUnits" );
 	validList.add ( "DataStoreMissingValue" );
 	validList.add ( "WriteMode" );
+	validList.add ( "BatchSize" );
+	validList.add ( "CommitInterval" );
+	validList.add ( "MaxThreads" );
 	warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
 
 	if ( warning.length() > 0 ) {
@@ -268,16 +321,51 @@ public boolean editCommand ( JFrame parent ) {
 }
 
 /**
-Return a prepared statement that has been used previously in the command.
+Open additional database connections to write time series concurrently.
+The DMI does not provide the password that was used to open the datastore connection
+and datastores discard the password from their properties,
+so additional connections are only opened for embedded Derby databases, which are opened in the JVM without a password.
+Connecting to other databases without the password would fail and could lock the database account,
+so other databases, and SQLite, which only allows one writer at a time, are written using the datastore connection.
+@param dmi DMI for the datastore
+@param dbMeta database metadata for the datastore connection, used to get the URL and user name
+@param connectionCount number of connections to open
+@return queue of open connections, or null if the connections could not be opened
 */
-private PreparedStatement getPreparedStatement ( String key )
-{
-    if ( __preparedStatementHash == null ) {
+private BlockingQueue<WriteConnection> openWriteConnections ( DMI dmi, DatabaseMetaData dbMeta, int connectionCount )
+{   String routine = getClass().getSimpleName() + ".openWriteConnections";
+    if ( dmi.getDatabaseEngineType() == DMIDatabaseType.SQLITE ) {
+        Message.printStatus ( 2, routine, "SQLite allows only one writer - writing time series sequentially." );
         return null;
     }
-    else {
-        return __preparedStatementHash.get(key);
+    BlockingQueue<WriteConnection> writeConnectionQueue = new ArrayBlockingQueue<>(connectionCount);
+    try {
+        String url = dbMeta.getURL();
+        if ( (dmi.getDatabaseEngineType() != DMIDatabaseType.DERBY) || (url == null) ||
+            !url.toLowerCase().startsWith("jdbc:derby:") || url.toLowerCase().startsWith("jdbc:derby://") ) {
+            // Don't try to connect without the password.
+            Message.printStatus ( 2, routine, "Additional database connections require the datastore password, " +
+                "which is not available - writing time series sequentially using the datastore connection." );
+            return null;
+        }
+        Properties connectionProps = new Properties();
+        String userName = dbMeta.getUserName();
+        if ( (userName != null) && !userName.isEmpty() ) {
+            connectionProps.setProperty ( "user", userName );
+        }
+        for ( int i = 0; i < connectionCount; i++ ) {
+            writeConnectionQueue.add ( new WriteConnection(DriverManager.getConnection(url, connectionProps),
+                new HashMap<String,PreparedStatement>()) );
+        }
     }
+    catch ( Exception e ) {
+        Message.printStatus ( 2, routine, "Unable to open additional database connections (" + e +
+            ") - writing time series sequentially using the datastore connection." );
+        closeWriteConnections ( writeConnectionQueue );
+        return null;
+    }
+    Message.printStatus ( 2, routine, "Opened " + connectionCount + " database connections to write time series concurrently." );
+    return writeConnectionQueue;
 }
 
 /**
@@ -365,6 +453,21 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     if ( writeMode == null ) {
         writeMode = DMIWriteModeType.UPDATE_INSERT; // default
     }
+    String BatchSize = parameters.getValue ( "BatchSize" );
+    int batchSize = 0; // Default is to write each time series with one batch
+    if ( (BatchSize != null) && !BatchSize.isEmpty() ) {
+        batchSize = Integer.parseInt(BatchSize);
+    }
+    String CommitInterval = parameters.getValue ( "CommitInterval" );
+    int commitInterval = 0; // Default is to commit after each time series is written
+    if ( (CommitInterval != null) && !CommitInterval.isEmpty() ) {
+        commitInterval = Integer.parseInt(CommitInterval);
+    }
+    String MaxThreads = parameters.getValue ( "MaxThreads" );
+    int maxThreads = 1; // Default is to write one time series at a time
+    if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+        maxThreads = Integer.parseInt(MaxThreads);
+    }
     
     // Find the datastore to use...
     DataStore dataStore = ((TSCommandProcessor)processor).getDataStoreForName (
@@ -481,38 +584,105 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	
 	List<String> problems = new ArrayList<String>();
     if ( (tslist != null) && (tslist.size() > 0) ) {
+        // The datastore connection is used to write data unless additional connections are opened to write concurrently.
+        if ( __preparedStatementHash == null ) {
+            __preparedStatementHash = new Hashtable<String,PreparedStatement>();
+        }
+        WriteConnection dataStoreWriteConnection = null;
+        if ( dmi != null ) {
+            dataStoreWriteConnection = new WriteConnection ( dmi.getConnection(), __preparedStatementHash );
+        }
+        BlockingQueue<WriteConnection> writeConnectionQueue = null;
+        ExecutorService executor = null;
+        if ( (maxThreads > 1) && (tslist.size() > 1) && (dbMeta != null) ) {
+            writeConnectionQueue = openWriteConnections ( dmi, dbMeta, Math.min(maxThreads, tslist.size()) );
+            if ( writeConnectionQueue != null ) {
+                executor = Executors.newFixedThreadPool ( writeConnectionQueue.size() );
+            }
+        }
+        // Time series and their data writes that are running concurrently.
+        List<TS> futureTSList = new ArrayList<>();
+        List<Future<List<String>>> futureList = new ArrayList<>();
         int nts = tslist.size();
         int its = -1;
-        for ( TS ts : tslist ) {
-            ++its;
-            problems.clear();
-            message = "Writing time series " + its + " of " + nts;
-            notifyCommandProgressListeners ( its, nts, (float)-1.0, message );
-            try {
-                // Convert to an absolute path...
-                Message.printStatus ( 2, routine, "Writing time series " +
-                    ts.getIdentifier().toStringAliasAndTSID() + " to datastore \"" + DataStore + "\"" );
-                writeTimeSeries ( its, ts, OutputStart_DateTime, OutputEnd_DateTime, dataStore, dmi, dbMeta,
-                    DataStoreLocationType, DataStoreLocationID, DataStoreDataSource, DataStoreDataType, DataStoreInterval,
-                    DataStoreScenario, DataStoreUnits, DataStoreMissingValue, writeMode, WriteMode, problems );
-                for ( String problem : problems ) {
-                    Message.printWarning ( 3, routine, problem );
+        try {
+            for ( TS ts : tslist ) {
+                ++its;
+                problems.clear();
+                message = "Writing time series " + its + " of " + nts;
+                notifyCommandProgressListeners ( its, nts, (float)-1.0, message );
+                try {
+                    // Convert to an absolute path...
+                    Message.printStatus ( 2, routine, "Writing time series " +
+                        ts.getIdentifier().toStringAliasAndTSID() + " to datastore \"" + DataStore + "\"" );
+                    TimeSeriesDataWriter dataWriter = writeTimeSeries ( its, ts, OutputStart_DateTime, OutputEnd_DateTime,
+                        dataStore, dmi, dbMeta,
+                        DataStoreLocationType, DataStoreLocationID, DataStoreDataSource, DataStoreDataType, DataStoreInterval,
+                        DataStoreScenario, DataStoreUnits, DataStoreMissingValue, writeMode, WriteMode,
+                        batchSize, commitInterval, problems );
+                    if ( dataWriter != null ) {
+                        if ( executor == null ) {
+                            problems.addAll ( dataWriter.write(dataStoreWriteConnection) );
+                        }
+                        else {
+                            // Metadata was checked above so only the data records are written in the thread.
+                            final BlockingQueue<WriteConnection> queue = writeConnectionQueue;
+                            futureList.add ( executor.submit(() -> writeTimeSeriesData(dataWriter, queue)) );
+                            futureTSList.add ( ts );
+                        }
+                    }
+                    for ( String problem : problems ) {
+                        Message.printWarning ( 3, routine, problem );
+                        status.addToLog ( commandPhase,
+                            new CommandLogRecord(CommandStatusType.FAILURE,
+                                problem, "Check log file for details." ) );
+                    }
+                }
+                catch ( Exception e ) {
+                    message = "Unexpected error writing time series " + ts.getIdentifier().toStringAliasAndTSID() +
+                        " to datastore \"" + DataStore + "\""+ "\" (" + e + ")";
+                    Message.printWarning ( warning_level, 
+                            MessageUtil.formatMessageTag(command_tag, ++warning_count),routine, message );
+                    Message.printWarning ( 3, routine, e );
                     status.addToLog ( commandPhase,
-                        new CommandLogRecord(CommandStatusType.FAILURE,
-                            problem, "Check log file for details." ) );
+        				new CommandLogRecord(CommandStatusType.FAILURE,
+        						message, "Check log file for details." ) );
+                    throw new CommandException ( message );
                 }
             }
-            catch ( Exception e ) {
-                message = "Unexpected error writing time series " + ts.getIdentifier().toStringAliasAndTSID() +
-                    " to datastore \"" + DataStore + "\""+ "\" (" + e + ")";
-                Message.printWarning ( warning_level, 
-                        MessageUtil.formatMessageTag(command_tag, ++warning_count),routine, message );
-                Message.printWarning ( 3, routine, e );
-                status.addToLog ( commandPhase,
-    				new CommandLogRecord(CommandStatusType.FAILURE,
-    						message, "Check log file for details." ) );
-                throw new CommandException ( message );
+            if ( executor != null ) {
+                executor.shutdown();
+            }
+            // Wait for concurrent writes to complete, reporting problems in time series order.
+            for ( int ifuture = 0; ifuture < futureList.size(); ifuture++ ) {
+                TS ts = futureTSList.get(ifuture);
+                try {
+                    for ( String problem : futureList.get(ifuture).get() ) {
+                        Message.printWarning ( 3, routine, problem );
+                        status.addToLog ( commandPhase,
+                            new CommandLogRecord(CommandStatusType.FAILURE,
+                                problem, "Check log file for details." ) );
+                    }
+                }
+                catch ( ExecutionException | InterruptedException e ) {
+                    Throwable cause = (e.getCause() == null) ? e : e.getCause();
+                    message = "Unexpected error writing time series " + ts.getIdentifier().toStringAliasAndTSID() +
+                        " to datastore \"" + DataStore + "\" (" + cause + ")";
+                    Message.printWarning ( warning_level, 
+                            MessageUtil.formatMessageTag(command_tag, ++warning_count),routine, message );
+                    Message.printWarning ( 3, routine, e );
+                    status.addToLog ( commandPhase,
+        				new CommandLogRecord(CommandStatusType.FAILURE,
+        						message, "Check log file for details." ) );
+                    throw new CommandException ( message );
+                }
+            }
+        }
+        finally {
+            if ( (executor != null) && !executor.isTerminated() ) {
+                executor.shutdownNow();
             }
+            closeWriteConnections ( writeConnectionQueue );
         }
     }
 	
@@ -520,15 +690,75 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 }
 
 /**
-Set the prepared statement used to write time series, reused for each time series written.
-@param ps PreparedStatement used to write time series.
+Close the additional connections that were opened to write time series concurrently.
+@param writeConnectionQueue connections to close, can be null
 */
-private void setPreparedStatement ( String key, PreparedStatement ps )
+private void closeWriteConnections ( BlockingQueue<WriteConnection> writeConnectionQueue )
 {
-    if ( __preparedStatementHash == null ) {
-        __preparedStatementHash = new Hashtable<String,PreparedStatement>();
+    if ( writeConnectionQueue == null ) {
+        return;
+    }
+    for ( WriteConnection writeConnection : writeConnectionQueue ) {
+        writeConnection.close();
     }
-    __preparedStatementHash.put(key,ps);
+    writeConnectionQueue.clear();
+}
+
+/**
+Create the SQL for a prepared statement that inserts a time series value or updates the existing value,
+using the database-native statement.  The time series data table must have a primary key or unique constraint
+on the metadata ID and date/time columns.
+@param databaseType database engine type
+@param table time series data table
+@param metadataIDColumn metadata ID (foreign key) column in the data table
+@param dateTimeColumn date/time column in the data table
+@param valueColumn value column in the data table
+@param flagColumn flag column in the data table, or null if flags are not written
+@return the SQL, or null if the database engine is not supported
+*/
+private String createUpsertSql ( DMIDatabaseType databaseType, String table, String metadataIDColumn,
+    String dateTimeColumn, String valueColumn, String flagColumn )
+{
+    StringBuilder sql = new StringBuilder();
+    if ( (databaseType == DMIDatabaseType.POSTGRESQL) || (databaseType == DMIDatabaseType.SQLITE) ) {
+        sql.append ( "INSERT INTO " + table + " (" + metadataIDColumn + "," + dateTimeColumn + "," + valueColumn );
+        if ( flagColumn != null ) {
+            sql.append ( "," + flagColumn );
+        }
+        sql.append ( ") VALUES (?,?,?" + ((flagColumn == null) ? "" : ",?") + ")" );
+        sql.append ( " ON CONFLICT (" + metadataIDColumn + "," + dateTimeColumn + ") DO UPDATE SET " +
+            valueColumn + "=EXCLUDED." + valueColumn );
+        if ( flagColumn != null ) {
+            sql.append ( "," + flagColumn + "=EXCLUDED." + flagColumn );
+        }
+    }
+    else if ( databaseType == DMIDatabaseType.SQLSERVER ) {
+        String columns = metadataIDColumn + "," + dateTimeColumn + "," + valueColumn +
+            ((flagColumn == null) ? "" : "," + flagColumn);
+        sql.append ( "MERGE INTO " + table + " AS t USING (VALUES (?,?,?" + ((flagColumn == null) ? "" : ",?") + ")) AS s (" +
+            columns + ") ON t." + metadataIDColumn + "=s." + metadataIDColumn + " AND t." + dateTimeColumn + "=s." + dateTimeColumn );
+        sql.append ( " WHEN MATCHED THEN UPDATE SET " + valueColumn + "=s." + valueColumn );
+        if ( flagColumn != null ) {
+            sql.append ( "," + flagColumn + "=s." + flagColumn );
+        }
+        sql.append ( " WHEN NOT MATCHED THEN INSERT (" + columns + ") VALUES (s." + metadataIDColumn + ",s." + dateTimeColumn +
+            ",s." + valueColumn + ((flagColumn == null) ? "" : ",s." + flagColumn) + ");" );
+    }
+    else if ( databaseType == DMIDatabaseType.DERBY ) {
+        // Derby does not allow a VALUES source so match on parameters and repeat the values for the insert.
+        sql.append ( "MERGE INTO " + table + " USING SYSIBM.SYSDUMMY1 ON " + table + "." + metadataIDColumn + "=? AND " +
+            table + "." + dateTimeColumn + "=?" );
+        sql.append ( " WHEN MATCHED THEN UPDATE SET " + valueColumn + "=?" );
+        if ( flagColumn != null ) {
+            sql.append ( "," + flagColumn + "=?" );
+        }
+        sql.append ( " WHEN NOT MATCHED THEN INSERT (" + metadataIDColumn + "," + dateTimeColumn + "," + valueColumn +
+            ((flagColumn == null) ? "" : "," + flagColumn) + ") VALUES (?,?,?" + ((flagColumn == null) ? "" : ",?") + ")" );
+    }
+    else {
+        return null;
+    }
+    return sql.toString();
 }
 
 /**
@@ -552,7 +782,10 @@ public String toString ( PropList parameters ) {
     	"DataStoreScenario",
     	"DataStoreUnits",
 		"DataStoreMissingValue",
-		"WriteMode"
+		"WriteMode",
+		"BatchSize",
+		"CommitInterval",
+		"MaxThreads"
 	};
 	return this.toString(parameters, parameterOrder);
 }
@@ -575,13 +808,17 @@ Write a single time series to the datastore.
 @param missingValue missing value for floating point values, as a string to allow "null" and "NaN" to be specified literally
 @param writeMode mode to write data records
 @param writeModeString write mode string write mode as string, for messaging
+@param batchSize number of values to add to a batch before executing the batch, or 0 to use one batch
+@param commitInterval number of values between commits, or 0 to commit after all values have been written
 @param problems list of strings to be populated with problems if they occur
+@return the writer for the time series data records if the data are written with a prepared statement,
+which can be run with any connection, or null if the data were written or there were problems
 */
-private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime outputEnd,
+private TimeSeriesDataWriter writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime outputEnd,
     DataStore dataStore, DMI dmi, DatabaseMetaData dbMeta, String dataStoreLocationType, String dataStoreLocationID,
     String dataStoreDataSource, String dataStoreDataType,
     String dataStoreInterval, String dataStoreScenario, String dataStoreUnits, String missingValue,
-    DMIWriteModeType writeMode, String writeModeString, List<String> problems )
+    DMIWriteModeType writeMode, String writeModeString, int batchSize, int commitInterval, List<String> problems )
 {   String routine = "WriteTimeSeriesToDataStore.writeTimeSeries";
     // Get the properties necessary to map the time series to the database
     // Expand the properties based on time series internal properties
@@ -755,7 +992,7 @@ private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime ou
         }
     }
     if ( problems.size() > 0 ) {
-        return;
+        return null;
     }
     // Get the metadata ID value from the metadata parts
     int timeSeriesMetadataTableMetadataID = -1;
@@ -858,7 +1095,7 @@ private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime ou
         problems.add ( "Error adding where clause to metadata select statement (" + e + ")."); 
     }
     if ( problems.size() > 0 ) {
-        return;
+        return null;
     }
     String sqlString = ss.toString();
     ResultSet rs = null;
@@ -885,7 +1122,7 @@ private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime ou
         DMI.closeResultSet(rs);
     }
     if ( problems.size() > 0 ) {
-        return;
+        return null;
     }
     // If requested, delete all the records or records in the period.  These options allow writing the data in bulk
     // rather than checking each value
@@ -928,9 +1165,12 @@ private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime ou
         // Reset the write mode for below - OK just to insert since there should be no conflicts
         writeMode = DMIWriteModeType.INSERT;
     }
+    else if ( (writeModeString != null) && writeModeString.equalsIgnoreCase(_BulkUpsert) ) {
+        usePreparedStatement = true;
+    }
     if ( problems.size() > 0 ) {
         problems.add ( "Not writing data due to errors." );
-        return;
+        return null;
     }
     // Write the time series
     DMIWriteStatement ws;
@@ -940,18 +1180,30 @@ private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime ou
     }
     catch ( Exception e ) {
         problems.add("Unable to get iterator for time series data (" + e + ")." );
-        return;
+        return null;
     }
     // Write the time series data records using the metadata ID as the foreign key
-    // For now create statements for every time series value.
-    // TODO SAM 2013-06-08 Need to optimize by creating a prepared statement
+    // Prepared statements are used for the bulk write modes, otherwise create statements for every time series value.
     TSData tsdata;
     double value;
-    String flag;
     if ( usePreparedStatement ) {
-        // Use a prepared statement to batch all the inserts
-        StringBuffer sql = new StringBuffer();
-        try {
+        // Use a prepared statement to batch the values, which is run by the caller
+        String dataFlagColumn = dsDataHasFlag ? timeSeriesDataTableFlagColumn : null;
+        boolean bindValuesTwice = false;
+        if ( writeModeString.equalsIgnoreCase(_BulkUpsert) ) {
+            DMIDatabaseType databaseType = dmi.getDatabaseEngineType();
+            sqlString = createUpsertSql ( databaseType, timeSeriesDataTable, timeSeriesDataTableMetadataIDColumn,
+                timeSeriesDataTableDateTimeColumn, timeSeriesDataTableValueColumn, dataFlagColumn );
+            if ( sqlString == null ) {
+                problems.add ( "WriteMode=" + _BulkUpsert + " is not supported for database engine " + databaseType +
+                    " - use another write mode." );
+                return null;
+            }
+            // The Derby statement uses the values in the match and the insert.
+            bindValuesTwice = (databaseType == DMIDatabaseType.DERBY);
+        }
+        else {
+            StringBuffer sql = new StringBuffer();
             sql.append ( "INSERT INTO " + timeSeriesDataTable + "(" + timeSeriesMetadataTableMetadataIDColumn + "," +
                 timeSeriesDataTableDateTimeColumn + "," +
                 timeSeriesDataTableValueColumn
@@ -964,57 +1216,10 @@ private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime ou
                 sql.append ( ",?" );
             }
             sql.append ( ")" );
-            // Check to see if a prepared statement already exists for the table...
-            PreparedStatement ps = getPreparedStatement ( sql.toString() );
-            if ( ps == null ) {
-                // Create and save the prepared statement so it can be used again
-                ps = dmi.getConnection().prepareStatement(sql.toString());
-                setPreparedStatement(sql.toString(),ps);
-            }
-            else {
-                ps.clearBatch(); // Clear previous load data
-            }
-            dmi.getConnection().setAutoCommit(false);
-            while ( (tsdata = tsi.next()) != null ) {
-                ps.setInt(1,timeSeriesMetadataTableMetadataID);
-                ps.setInt(2,tsdata.getDate().getYear());
-                value = tsdata.getDataValue();
-                if ( ts.isDataMissing(value)) {
-                    if ( missingValueUseNull ) {
-                        ps.setNull(3, java.sql.Types.DOUBLE);
-                    }
-                    else if ( missingValueDouble != null ) {
-                        ps.setDouble(3,missingValueDouble);
-                    }
-                    else {
-                        // Just use the time series value.
-                        ps.setDouble(3,value);
-                    }
-                }
-                else {
-                    ps.setDouble(3,value);
-                }
-                if ( dsDataHasFlag ) {
-                    flag = tsdata.getDataFlag();
-                    ps.setString(4,flag);
-                }
-                ps.addBatch();
-            }
-            ps.executeBatch();
-            dmi.getConnection().commit();
-        }
-        catch ( SQLException e ) {
-            problems.add ( "Error writing time series \"" + ts.getIdentifier().toStringAliasAndTSID() +
-                "\" to database using prepared statement \"" + sql + "\" (" + e + ")."); 
-        }
-        finally {
-            try {
-                dmi.getConnection().setAutoCommit(true);
-            }
-            catch ( SQLException e ) {
-                // Swallow.
-            }
+            sqlString = sql.toString();
         }
+        return new TimeSeriesDataWriter ( ts, tsi, sqlString, bindValuesTwice, timeSeriesMetadataTableMetadataID,
+            dsDataHasFlag, missingValueUseNull, missingValueDouble, batchSize, commitInterval );
     }
     else {
         // Use the standard DMI package and process each value
@@ -1085,6 +1290,251 @@ private void writeTimeSeries ( int its, TS ts, DateTime outputStart, DateTime ou
             }
         }
     }
+    return null;
+}
+
+/**
+Write the data records for a time series using a connection from the queue, called in a thread.
+@param dataWriter writer for the time series data records
+@param writeConnectionQueue queue of connections, one of which is used and then returned to the queue
+@return list of problems writing the data
+@exception InterruptedException if interrupted waiting for a connection
+*/
+private List<String> writeTimeSeriesData ( TimeSeriesDataWriter dataWriter, BlockingQueue<WriteConnection> writeConnectionQueue )
+throws InterruptedException
+{
+    WriteConnection writeConnection = writeConnectionQueue.take();
+    try {
+        return dataWriter.write ( writeConnection );
+    }
+    finally {
+        writeConnectionQueue.put ( writeConnection );
+    }
+}
+
+/**
+Writer for the data records of one time series using a prepared statement.
+The writer is created by writeTimeSeries() after the time series metadata ID has been determined
+and can be run with any connection to the database.
+*/
+private class TimeSeriesDataWriter
+{
+    private TS ts;
+    private TSIterator tsi;
+    private String sql;
+    private boolean bindValuesTwice;
+    private int metadataID;
+    private boolean hasFlag;
+    private boolean missingValueUseNull;
+    private Double missingValueDouble;
+    private int batchSize;
+    private int commitInterval;
+
+    /**
+    Constructor.
+    @param ts time series to write
+    @param tsi iterator for the period to write
+    @param sql SQL for the prepared statement, with parameters for metadata ID, date/time, value, and optionally flag
+    @param bindValuesTwice if true, the statement parameters are repeated (Derby MERGE)
+    @param metadataID time series metadata ID, written as the foreign key
+    @param hasFlag whether the flag is written
+    @param missingValueUseNull whether missing values are written as null
+    @param missingValueDouble value to write for missing values, or null to write the time series value
+    @param batchSize number of values to add to a batch before executing the batch, or 0 to use one batch
+    @param commitInterval number of values between commits, or 0 to commit after all values have been written
+    */
+    public TimeSeriesDataWriter ( TS ts, TSIterator tsi, String sql, boolean bindValuesTwice, int metadataID,
+        boolean hasFlag, boolean missingValueUseNull, Double missingValueDouble, int batchSize, int commitInterval ) {
+        this.ts = ts;
+        this.tsi = tsi;
+        this.sql = sql;
+        this.bindValuesTwice = bindValuesTwice;
+        this.metadataID = metadataID;
+        this.hasFlag = hasFlag;
+        this.missingValueUseNull = missingValueUseNull;
+        this.missingValueDouble = missingValueDouble;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+    Set the statement parameters for a time series value.
+    @param ps prepared statement
+    @param pos0 position before the first parameter to set
+    @param tsdata time series data to write
+    */
+    private void setParameterValues ( PreparedStatement ps, int pos0, TSData tsdata )
+    throws SQLException {
+        ps.setInt(pos0 + 1,this.metadataID);
+        // TODO SAM 2013-06-10 Need some configuration sophistication to know
+        // whether writing a date/time, integer (for year), etc.
+        // For now hard-code for INSIGHT year as integer
+        ps.setInt(pos0 + 2,tsdata.getDate().getYear());
+        double value = tsdata.getDataValue();
+        if ( this.ts.isDataMissing(value)) {
+            if ( this.missingValueUseNull ) {
+                ps.setNull(pos0 + 3, java.sql.Types.DOUBLE);
+            }
+            else if ( this.missingValueDouble != null ) {
+                ps.setDouble(pos0 + 3,this.missingValueDouble);
+            }
+            else {
+                // Just use the time series value.
+                ps.setDouble(pos0 + 3,value);
+            }
+        }
+        else {
+            ps.setDouble(pos0 + 3,value);
+        }
+        if ( this.hasFlag ) {
+            ps.setString(pos0 + 4,tsdata.getDataFlag());
+        }
+    }
+
+    /**
+    Write the time series data records.
+    @param writeConnection connection to write with, which is used by only one thread at a time
+    @return list of problems writing the data
+    */
+    public List<String> write ( WriteConnection writeConnection ) {
+        String routine = getClass().getSimpleName() + ".write";
+        List<String> problems = new ArrayList<>();
+        Connection connection = writeConnection.getConnection();
+        int parameterCount = this.hasFlag ? 4 : 3;
+        boolean autoCommit = true;
+        int valueCount = 0; // Number of values that have been added to batches
+        int rowsInBatch = 0; // Number of values in the current batch
+        int rowsCommitted = 0; // Number of values that have been committed
+        // Lock the connection while auto-commit is off, in case it is the shared datastore connection.
+        ReentrantLock connectionLock = DataStoreConnectionLock.getLock(connection);
+        connectionLock.lock();
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            PreparedStatement ps = writeConnection.getPreparedStatement(this.sql);
+            TSData tsdata;
+            while ( (tsdata = this.tsi.next()) != null ) {
+                setParameterValues ( ps, 0, tsdata );
+                if ( this.bindValuesTwice ) {
+                    setParameterValues ( ps, parameterCount, tsdata );
+                }
+                ps.addBatch();
+                ++valueCount;
+                ++rowsInBatch;
+                if ( rowsInBatch == this.batchSize ) {
+                    ps.executeBatch();
+                    rowsInBatch = 0;
+                }
+                if ( (this.commitInterval > 0) && (valueCount%this.commitInterval == 0) ) {
+                    if ( rowsInBatch > 0 ) {
+                        ps.executeBatch();
+                        rowsInBatch = 0;
+                    }
+                    connection.commit();
+                    rowsCommitted = valueCount;
+                }
+            }
+            if ( rowsInBatch > 0 ) {
+                ps.executeBatch();
+            }
+            connection.commit();
+            rowsCommitted = valueCount;
+            Message.printStatus(2, routine, "Wrote " + valueCount + " values for \"" + this.ts.getIdentifier().toStringAliasAndTSID() +
+                "\" using SQL \"" + this.sql + "\"." );
+        }
+        catch ( SQLException e ) {
+            problems.add ( "Error writing time series \"" + this.ts.getIdentifier().toStringAliasAndTSID() +
+                "\" to database using prepared statement \"" + this.sql + "\" (" + e + ")."); 
+            if ( e.getNextException() != null ) {
+                // Batch errors often have the database error as the next exception.
+                problems.add ( "Database error: " + e.getNextException() );
+            }
+            try {
+                connection.rollback();
+                problems.add ( "Wrote " + rowsCommitted + " values before the error.  Values after that were not written." );
+            }
+            catch ( SQLException e2 ) {
+                // Swallow.
+            }
+        }
+        finally {
+            try {
+                connection.setAutoCommit(autoCommit);
+            }
+            catch ( SQLException e ) {
+                // Swallow.
+            }
+            connectionLock.unlock();
+        }
+        return problems;
+    }
+}
+
+/**
+Database connection and its prepared statements, used by one thread at a time to write time series data.
+*/
+private class WriteConnection
+{
+    private Connection connection;
+    private Map<String,PreparedStatement> preparedStatementMap;
+
+    /**
+    Constructor.
+    @param connection database connection
+    @param preparedStatementMap map to save prepared statements for the connection, using the SQL as the key
+    */
+    public WriteConnection ( Connection connection, Map<String,PreparedStatement> preparedStatementMap ) {
+        this.connection = connection;
+        this.preparedStatementMap = preparedStatementMap;
+    }
+
+    /**
+    Close the prepared statements and the connection.
+    */
+    public void close () {
+        for ( PreparedStatement ps : this.preparedStatementMap.values() ) {
+            try {
+                ps.close();
+            }
+            catch ( SQLException e ) {
+                // Swallow.
+            }
+        }
+        this.preparedStatementMap.clear();
+        try {
+            this.connection.close();
+        }
+        catch ( SQLException e ) {
+            // Swallow.
+        }
+    }
+
+    /**
+    Return the connection.
+    @return the connection
+    */
+    public Connection getConnection () {
+        return this.connection;
+    }
+
+    /**
+    Return a prepared statement for the SQL, creating and saving the statement if it has not been used before.
+    @param sql SQL for the prepared statement
+    @return the prepared statement, with no batch data
+    */
+    public PreparedStatement getPreparedStatement ( String sql )
+    throws SQLException {
+        PreparedStatement ps = this.preparedStatementMap.get(sql);
+        if ( ps == null ) {
+            // Create and save the prepared statement so it can be used again
+            ps = this.connection.prepareStatement(sql);
+            this.preparedStatementMap.put(sql, ps);
+        }
+        else {
+            ps.clearBatch(); // Clear previous load data
+        }
+        return ps;
+    }
 }
 
 }
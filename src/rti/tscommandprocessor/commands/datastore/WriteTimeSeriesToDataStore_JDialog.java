@@ -99,6 +99,9 @@ private JTextField __DataStoreInterval_JTextField = null;
 private JTextField __DataStoreUnits_JTextField = null;
 private JTextField __DataStoreMissingValue_JTextField = null;
 private SimpleJComboBox __WriteMode_JComboBox = null;
+private JTextField __BatchSize_JTextField = null;
+private JTextField __CommitInterval_JTextField = null;
+private JTextField __MaxThreads_JTextField = null;
 private boolean __error_wait = false;	// Is there an error to be cleared up?
 private boolean __first_time = true;
 private boolean __ok = false;		// Has user pressed OK to close the dialog.
@@ -203,6 +206,9 @@ private void checkInput ()
     String DataStoreUnits = __DataStoreUnits_JTextField.getText().trim();
     String DataStoreMissingValue = __DataStoreMissingValue_JTextField.getText().trim();
     String WriteMode = __WriteMode_JComboBox.getSelected();
+    String BatchSize = __BatchSize_JTextField.getText().trim();
+    String CommitInterval = __CommitInterval_JTextField.getText().trim();
+    String MaxThreads = __MaxThreads_JTextField.getText().trim();
 
 	__error_wait = false;
 	
@@ -254,6 +260,15 @@ private void checkInput ()
     }
     if ( WriteMode.length() > 0 ) {
         parameters.set ( "WriteMode", WriteMode );
+    }
+    if ( BatchSize.length() > 0 ) {
+        parameters.set ( "BatchSize", BatchSize );
+    }
+    if ( CommitInterval.length() > 0 ) {
+        parameters.set ( "CommitInterval", CommitInterval );
+    }
+    if ( MaxThreads.length() > 0 ) {
+        parameters.set ( "MaxThreads", MaxThreads );
     }
 	try {
 	    // This will warn the user...
@@ -286,6 +301,9 @@ private void commitEdits ()
     String DataStoreUnits = __DataStoreUnits_JTextField.getText().trim();
     String DataStoreMissingValue = __DataStoreMissingValue_JTextField.getText().trim();
     String WriteMode = __WriteMode_JComboBox.getSelected();
+    String BatchSize = __BatchSize_JTextField.getText().trim();
+    String CommitInterval = __CommitInterval_JTextField.getText().trim();
+    String MaxThreads = __MaxThreads_JTextField.getText().trim();
 	__command.setCommandParameter ( "TSList", TSList );
     __command.setCommandParameter ( "TSID", TSID );
     __command.setCommandParameter ( "EnsembleID", EnsembleID );
@@ -301,6 +319,9 @@ private void commitEdits ()
     __command.setCommandParameter ( "DataStoreUnits", DataStoreUnits );
     __command.setCommandParameter ( "DataStoreMissingValue", DataStoreMissingValue );
     __command.setCommandParameter ( "WriteMode", WriteMode );
+    __command.setCommandParameter ( "BatchSize", BatchSize );
+    __command.setCommandParameter ( "CommitInterval", CommitInterval );
+    __command.setCommandParameter ( "MaxThreads", MaxThreads );
 }
 
 // TODO smalers 2021-10-24 diable when code below tests out.
@@ -602,6 +623,7 @@ private void initialize ( JFrame parent, WriteTimeSeriesToDataStore_Command comm
     writeModeChoices.add ( "" );
     writeModeChoices.add ( "" + __command._DeleteAllThenInsert );
     writeModeChoices.add ( "" + __command._DeletePeriodThenInsert );
+    writeModeChoices.add ( "" + __command._BulkUpsert );
     writeModeChoices.add ( "" + DMIWriteModeType.DELETE_INSERT );
     writeModeChoices.add ( "" + DMIWriteModeType.INSERT );
     writeModeChoices.add ( "" + DMIWriteModeType.INSERT_UPDATE );
@@ -614,6 +636,36 @@ private void initialize ( JFrame parent, WriteTimeSeriesToDataStore_Command comm
     JGUIUtil.addComponent(ds_JPanel, new JLabel("Optional - how to write data records (default=" +
         DMIWriteModeType.INSERT_UPDATE + ")."), 
         3, yDS, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
+    JGUIUtil.addComponent(ds_JPanel, new JLabel ( "Batch size:"),
+        0, ++yDS, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __BatchSize_JTextField = new JTextField ( 10 );
+    __BatchSize_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(ds_JPanel, __BatchSize_JTextField,
+        1, yDS, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(ds_JPanel, new JLabel("Optional - values per batch for " + __command._DeleteAllThenInsert + ", " +
+        __command._DeletePeriodThenInsert + ", " + __command._BulkUpsert + " (default=one batch per time series)."), 
+        3, yDS, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
+    JGUIUtil.addComponent(ds_JPanel, new JLabel ( "Commit interval:"),
+        0, ++yDS, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __CommitInterval_JTextField = new JTextField ( 10 );
+    __CommitInterval_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(ds_JPanel, __CommitInterval_JTextField,
+        1, yDS, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(ds_JPanel, new JLabel("Optional - values between commits when using batches (default=commit each time series)."), 
+        3, yDS, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
+    JGUIUtil.addComponent(ds_JPanel, new JLabel ( "Maximum threads:"),
+        0, ++yDS, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxThreads_JTextField = new JTextField ( 10 );
+    __MaxThreads_JTextField.setToolTipText("Time series written concurrently using separate database connections, " +
+        "for embedded Derby databases (otherwise written sequentially using the datastore connection).");
+    __MaxThreads_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(ds_JPanel, __MaxThreads_JTextField,
+        1, yDS, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(ds_JPanel, new JLabel("Optional - time series to write concurrently when using batches (default=1)."), 
+        3, yDS, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
     
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Command:" ), 
     		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
@@ -716,6 +768,9 @@ private void refresh ()
     String DataStoreUnits = "";
     String DataStoreMissingValue = "";
     String WriteMode = "";
+    String BatchSize = "";
+    String CommitInterval = "";
+    String MaxThreads = "";
 	__error_wait = false;
 	PropList parameters = null;
 	if ( __first_time ) {
@@ -737,6 +792,9 @@ private void refresh ()
         DataStoreUnits = parameters.getValue ( "DataStoreUnits" );
         DataStoreMissingValue = parameters.getValue("DataStoreMissingValue");
         WriteMode = parameters.getValue ( "WriteMode" );
+        BatchSize = parameters.getValue ( "BatchSize" );
+        CommitInterval = parameters.getValue ( "CommitInterval" );
+        MaxThreads = parameters.getValue ( "MaxThreads" );
 		if ( OutputStart != null ) {
 			__OutputStart_JTextField.setText (OutputStart);
 		}
@@ -844,6 +902,15 @@ private void refresh ()
                 __error_wait = true;
             }
         }
+        if ( BatchSize != null ) {
+            __BatchSize_JTextField.setText ( BatchSize );
+        }
+        if ( CommitInterval != null ) {
+            __CommitInterval_JTextField.setText ( CommitInterval );
+        }
+        if ( MaxThreads != null ) {
+            __MaxThreads_JTextField.setText ( MaxThreads );
+        }
 	}
 	// Regardless, reset the command from the fields...
 	OutputStart = __OutputStart_JTextField.getText().trim();
@@ -864,6 +931,9 @@ private void refresh ()
     DataStoreUnits = __DataStoreUnits_JTextField.getText().trim();
     DataStoreMissingValue = __DataStoreMissingValue_JTextField.getText().trim();
     WriteMode = __WriteMode_JComboBox.getSelected();
+    BatchSize = __BatchSize_JTextField.getText().trim();
+    CommitInterval = __CommitInterval_JTextField.getText().trim();
+    MaxThreads = __MaxThreads_JTextField.getText().trim();
 	parameters = new PropList ( __command.getCommandName() );
 	parameters.add ( "TSList=" + TSList );
     parameters.add ( "TSID=" + TSID );
@@ -880,6 +950,9 @@ private void refresh ()
 	parameters.add ( "DataStoreUnits=" + DataStoreUnits );
 	parameters.add ( "DataStoreMissingValue=" + DataStoreMissingValue );
 	parameters.add ( "WriteMode=" + WriteMode );
+	parameters.add ( "BatchSize=" + BatchSize );
+	parameters.add ( "CommitInterval=" + CommitInterval );
+	parameters.add ( "MaxThreads=" + MaxThreads );
 	__command_JTextArea.setText( __command.toString ( parameters ).trim() );
 }
 
@@ -0,0 +1,207 @@
+// OutputLineFormatTemplate - compiled output line format for the WriteTimeSeriesToDataStream() command
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.datastream;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+Output line format that has been compiled into literal text and ${tsdata:...} slots.
+The format is compiled once for a time series after time series and processor properties have been expanded,
+so that each data value only needs to fill in the value, date/time, and flag.
+The ${tsdata:value}, ${tsdata:datetime}, and ${tsdata:flag} strings are matched exactly,
+consistent with the previous String.replace() handling.
+<p>
+An instance is not thread-safe because a buffer is reused to format lines.
+*/
+class OutputLineFormatTemplate
+{
+
+/**
+Segment types.
+*/
+private static final int LITERAL = 0;
+private static final int VALUE = 1;
+private static final int DATETIME = 2;
+private static final int FLAG = 3;
+
+/**
+Slot strings, in the order of the segment types.
+*/
+private static final String [] SLOT_STRINGS = { null, "${tsdata:value}", "${tsdata:datetime}", "${tsdata:flag}" };
+
+/**
+Segment type for each segment.
+*/
+private int [] segmentTypes;
+
+/**
+Literal text for each segment, null for slots.
+*/
+private String [] segmentLiterals;
+
+/**
+Whether the template uses each slot type, indexed by segment type.
+*/
+private boolean [] hasSlot = new boolean[SLOT_STRINGS.length];
+
+/**
+Buffer used to format lines.
+*/
+private StringBuilder buffer = new StringBuilder();
+
+/**
+Constructor.  Use compile() to create an instance.
+*/
+private OutputLineFormatTemplate ( List<Integer> typeList, List<String> literalList ) {
+	int size = typeList.size();
+	this.segmentTypes = new int[size];
+	this.segmentLiterals = new String[size];
+	for ( int i = 0; i < size; i++ ) {
+		this.segmentTypes[i] = typeList.get(i);
+		this.segmentLiterals[i] = literalList.get(i);
+		this.hasSlot[this.segmentTypes[i]] = true;
+	}
+}
+
+/**
+Compile an output line format.
+@param format output line format, with time series and processor properties already expanded
+@return compiled template
+*/
+static OutputLineFormatTemplate compile ( String format ) {
+	if ( format == null ) {
+		format = "";
+	}
+	List<Integer> typeList = new ArrayList<>();
+	List<String> literalList = new ArrayList<>();
+	int pos = 0;
+	int literalStart = 0;
+	while ( pos < format.length() ) {
+		pos = format.indexOf("${tsdata:", pos);
+		if ( pos < 0 ) {
+			break;
+		}
+		int slotType = LITERAL;
+		for ( int i = VALUE; i < SLOT_STRINGS.length; i++ ) {
+			if ( format.startsWith(SLOT_STRINGS[i], pos) ) {
+				slotType = i;
+				break;
+			}
+		}
+		if ( slotType == LITERAL ) {
+			// Not a recognized slot so keep as literal text.
+			++pos;
+			continue;
+		}
+		if ( pos > literalStart ) {
+			typeList.add(LITERAL);
+			literalList.add(format.substring(literalStart, pos));
+		}
+		typeList.add(slotType);
+		literalList.add(null);
+		pos += SLOT_STRINGS[slotType].length();
+		literalStart = pos;
+	}
+	if ( literalStart < format.length() ) {
+		typeList.add(LITERAL);
+		literalList.add(format.substring(literalStart));
+	}
+	return new OutputLineFormatTemplate ( typeList, literalList );
+}
+
+/**
+Format a line.
+@param valueString formatted data value
+@param dateTimeString formatted date/time
+@param flagString data flag
+@return the formatted line
+*/
+String format ( String valueString, String dateTimeString, String flagString ) {
+	this.buffer.setLength(0);
+	for ( int i = 0; i < this.segmentTypes.length; i++ ) {
+		this.buffer.append ( getSegment(i, valueString, dateTimeString, flagString) );
+	}
+	return this.buffer.toString();
+}
+
+/**
+Return the string for a segment.
+*/
+private String getSegment ( int i, String valueString, String dateTimeString, String flagString ) {
+	int segmentType = this.segmentTypes[i];
+	if ( segmentType == VALUE ) {
+		return valueString;
+	}
+	else if ( segmentType == DATETIME ) {
+		return dateTimeString;
+	}
+	else if ( segmentType == FLAG ) {
+		return flagString;
+	}
+	else {
+		return this.segmentLiterals[i];
+	}
+}
+
+/**
+Indicate whether the template uses ${tsdata:datetime}, in which case the date/time needs to be formatted.
+@return true if the template uses ${tsdata:datetime}
+*/
+boolean hasDateTime () {
+	return this.hasSlot[DATETIME];
+}
+
+/**
+Indicate whether the template uses ${tsdata:flag}.
+@return true if the template uses ${tsdata:flag}
+*/
+boolean hasFlag () {
+	return this.hasSlot[FLAG];
+}
+
+/**
+Indicate whether the template uses ${tsdata:value}, in which case the value needs to be formatted.
+@return true if the template uses ${tsdata:value}
+*/
+boolean hasValue () {
+	return this.hasSlot[VALUE];
+}
+
+/**
+Write a line, without creating an intermediate string for the line.
+@param fout writer to write to
+@param valueString formatted data value
+@param dateTimeString formatted date/time
+@param flagString data flag
+*/
+void println ( PrintWriter fout, String valueString, String dateTimeString, String flagString ) {
+	for ( int i = 0; i < this.segmentTypes.length; i++ ) {
+		fout.write ( getSegment(i, valueString, dateTimeString, flagString) );
+	}
+	fout.println();
+}
+
+}
@@ -26,6 +26,7 @@ package rti.tscommandprocessor.commands.datastream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
@@ -45,7 +46,6 @@ import RTi.Util.IO.CommandException;
 import RTi.Util.IO.CommandLogRecord;
 import RTi.Util.IO.CommandPhaseType;
 import RTi.Util.IO.CommandProcessor;
-import RTi.Util.IO.CommandProcessorRequestResultsBean;
 import RTi.Util.IO.CommandStatus;
 import RTi.Util.IO.CommandStatusType;
 import RTi.Util.IO.CommandWarningException;
@@ -464,13 +464,9 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     }
 
 	// Get the time series to process...
-	PropList request_params = new PropList ( "" );
-	request_params.set ( "TSList", TSList );
-	request_params.set ( "TSID", TSID );
-    request_params.set ( "EnsembleID", EnsembleID );
-	CommandProcessorRequestResultsBean bean = null;
+	Object o_TSList = null;
 	try {
-        bean = processor.processRequest( "GetTimeSeriesToProcess", request_params);
+        o_TSList = TSCommandProcessorUtil.getTimeSeriesToProcess ( processor, TSList, TSID, EnsembleID, null ).getTimeSeriesList();
 	}
 	catch ( Exception e ) {
         message = "Error requesting GetTimeSeriesToProcess(TSList=\"" + TSList +
@@ -482,8 +478,6 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 				new CommandLogRecord(CommandStatusType.FAILURE,
 						message, "Check TSList, TSID, EnsembleID parameters." ) );
 	}
-	PropList bean_PropList = bean.getResultsPropList();
-	Object o_TSList = bean_PropList.getContents ( "TSToProcessList" );
 	if ( o_TSList == null ) {
         message = "Null TSToProcessList returned from processor for GetTimeSeriesToProcess(TSList=\"" + TSList +
         "\" TSID=\"" + TSID + "\", EnsembleID=\"" + EnsembleID + "\").";
@@ -725,7 +719,6 @@ private void writeTimeSeries ( List<TS> tslist, String outputFile, boolean appen
         if ( tslist == null ) {
             return;
         }
-        String dataLineExpanded;
         if ( precision == null ) {
             precision = 4;
         }
@@ -739,8 +732,15 @@ private void writeTimeSeries ( List<TS> tslist, String outputFile, boolean appen
             // Set to null to simplify checks below
             dateTimeFormat = null;
         }
+        CommandStatus cs = null;//status; // Set to null once debugged
         for ( TS ts : tslist ) {
-            List<String> outputLines = new ArrayList<String>(); // Used when nonMissingOutputCount is used
+            // Used when nonMissingOutputCount is negative, to retain only the last lines.
+            ArrayDeque<String> outputLines = null;
+            int outputLinesMax = 0;
+            if ( (nonMissingOutputCount != null) && (nonMissingOutputCount < 0) ) {
+                outputLines = new ArrayDeque<String>();
+                outputLinesMax = -nonMissingOutputCount;
+            }
             // Missing value can be output as a string so check
             if ( (missingValue == null) || missingValue.equals("") ) {
                 // Use the time series value
@@ -769,24 +769,31 @@ private void writeTimeSeries ( List<TS> tslist, String outputFile, boolean appen
                 problems.add("Error setting up data iterator (no data?) - skipping time series (" + e + ").");
                 continue;
             }
+            // Expand the time series properties once for the time series and compile the output line formats:
+            // - the ${tsdata:...} properties are filled in for each value
+            // - comment status to avoid many messages
+            OutputLineFormatTemplate lineTemplate = OutputLineFormatTemplate.compile (
+                TSCommandProcessorUtil.expandTimeSeriesMetadataString ( processor, ts, outputLineFormat, cs, commandPhase ) );
+            OutputLineFormatTemplate lastLineTemplate = lineTemplate;
+            if ( doLastOutputLineFormat ) {
+                lastLineTemplate = OutputLineFormatTemplate.compile (
+                    TSCommandProcessorUtil.expandTimeSeriesMetadataString ( processor, ts, lastOutputLineFormat, cs, commandPhase ) );
+            }
+            OutputLineFormatTemplate template = lineTemplate;
             TSData tsdata = null;
             //String units = ts.getDataUnits();
             double value;
-            String valueString, dateTimeString = "";
-            CommandStatus cs = null;//status; // Set to null once debugged
+            String valueString, dateTimeString, flagString;
             while ( (tsdata = it.next()) != null ) {
             	// If a last output line is specified, need to do a bit more work to check if the last data value
             	if ( doLastOutputLineFormat ) {
             		if ( !it.hasNext() ) {
             			// This is the last line - just use tsdata below
-            			outputLineFormat = lastOutputLineFormat;
+            			template = lastLineTemplate;
             		}
             	}
-                // First expand the line to replace time series properties
                 value = tsdata.getDataValue();
                 //Message.printStatus(2, "", "Processing " + tsdata.getDate() + " " + value );
-                dataLineExpanded = TSCommandProcessorUtil.expandTimeSeriesMetadataString (
-                    processor, ts, outputLineFormat, cs, commandPhase ); // Comment status to avoid many messages
                 if ( ts.isDataMissing(value) ) {
                     if ( nonMissingOutputCount != null ) {
                         // Skip missing
@@ -794,12 +801,15 @@ private void writeTimeSeries ( List<TS> tslist, String outputFile, boolean appen
                     }
                     valueString = missingValueString;
                 }
-                else {
+                else if ( template.hasValue() ) {
                     valueString = StringUtil.formatString(value, valueFormat);
                 }
-                // Do a brute force replace of the ${tsdata:value} and ${tsdata:datetime} properties with the value
-                dataLineExpanded = dataLineExpanded.replace("${tsdata:value}", valueString);
-                if ( dateTimeFormatterType == DateTimeFormatterType.C ) {
+                else {
+                    valueString = "";
+                }
+                // Only format the date/time and flag if used in the output line.
+                dateTimeString = "";
+                if ( template.hasDateTime() && (dateTimeFormatterType == DateTimeFormatterType.C) ) {
                     if ( dateTimeFormat == null ) {
                         // Just use the default
                         dateTimeString = tsdata.getDate().toString();
@@ -809,24 +819,26 @@ private void writeTimeSeries ( List<TS> tslist, String outputFile, boolean appen
                         dateTimeString = TimeUtil.formatDateTime(tsdata.getDate(), dateTimeFormat);
                     }
                 }
-                dataLineExpanded = dataLineExpanded.replace("${tsdata:datetime}", dateTimeString );
-                dataLineExpanded = dataLineExpanded.replace("${tsdata:flag}", "" + tsdata.getDataFlag());
+                flagString = "";
+                if ( template.hasFlag() ) {
+                    flagString = "" + tsdata.getDataFlag();
+                }
                 //TSData.toString(outputLineFormat,valueFormat, tsdata.getDate(), value, 0.0, tsdata.getDataFlag().trim(),units);
-                if ( nonMissingOutputCount != null ) {
-                    outputLines.add(dataLineExpanded);
+                if ( outputLines != null ) {
+                    // Only retain the last lines that will be output.
+                    outputLines.add(template.format(valueString, dateTimeString, flagString));
+                    if ( outputLines.size() > outputLinesMax ) {
+                        outputLines.removeFirst();
+                    }
                 }
                 else {
-                    fout.println(dataLineExpanded);
+                    template.println(fout, valueString, dateTimeString, flagString);
                 }
             }
-            if ( (nonMissingOutputCount != null) && (outputLines.size() > 0) ) {
+            if ( outputLines != null ) {
                 // Write the output as requested
-                int istart = 0;
-                if ( nonMissingOutputCount < 0 ) {
-                    istart = outputLines.size() + nonMissingOutputCount;
-                }
-                for ( int i = istart; i < outputLines.size(); i++ ) {
-                    fout.println(outputLines.get(i));
+                for ( String outputLine : outputLines ) {
+                    fout.println(outputLine);
                 }
             }
         }
@@ -0,0 +1,1286 @@
+// DelimitedFileParallelReader - fast path for ReadDelimitedFile() using memory-mapped file chunks parsed in parallel
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.delimited;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import RTi.TS.TS;
+import RTi.Util.Message.Message;
+import RTi.Util.String.StringUtil;
+import RTi.Util.Time.DateTime;
+import RTi.Util.Time.DateTimeParser;
+import RTi.Util.Time.TimeInterval;
+import RTi.Util.Time.TimeUtil;
+
+/**
+Fast path for ReadDelimitedFile_Command.readTimeSeriesList(), used for large local files.
+The file is split at line boundaries into chunks that are read into heap buffers and parsed in parallel
+and the parsed values are then set in the time series in file order, so that the results,
+including error messages, are the same as reading the file one line at a time.
+<p>
+Each chunk is parsed without creating strings for typical lines:
+<ul>
+<li> Tokens are located using start and end positions in the chunk buffer.</li>
+<li> Numbers are parsed directly from the bytes when they can be converted exactly,
+     otherwise Double.parseDouble() is used.</li>
+<li> Date/times in YYYY-MM, YYYY-MM-DD, and YYYY-MM-DD hh, hh:mm, hh:mm:ss formats (' ' or 'T' separator)
+     are parsed directly from the bytes for regular interval time series when DateTimeFormat is not specified,
+     otherwise DateTime.parse() or the DateTimeParser are used.</li>
+<li> Lines that contain quotes or non-ASCII characters are parsed using the original string-based approach.</li>
+</ul>
+Use canRead() to determine whether the fast path can be used, which requires a local file and simple options.
+*/
+class DelimitedFileParallelReader
+{
+
+/**
+Minimum file size to use the fast path.  Smaller files are read quickly with the original approach.
+*/
+static final long MIN_FILE_SIZE = 1024*1024;
+
+/**
+Default nominal chunk size, adjusted to end at a line boundary.
+*/
+private static final int CHUNK_SIZE = 32*1024*1024;
+
+/**
+Row status values.
+*/
+private static final byte ROW_OK = 0;
+private static final byte ROW_ERROR = 1;
+
+/**
+Value kinds.
+*/
+private static final byte VALUE_VALID = 0;
+private static final byte VALUE_MISSING = 1;
+private static final byte VALUE_ERROR = 2;
+private static final byte VALUE_SKIP = 3;
+
+/**
+Date/time precisions for packed date/times, in the order of the DateTime precision lookup.
+*/
+private static final int [] PRECISIONS = {
+	DateTime.PRECISION_MONTH,
+	DateTime.PRECISION_DAY,
+	DateTime.PRECISION_HOUR,
+	DateTime.PRECISION_MINUTE,
+	DateTime.PRECISION_SECOND
+};
+
+/**
+Exact powers of 10 as double, used to convert numbers that have 15 or fewer significant digits.
+*/
+private static final double [] POW10 = {
+	1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+	1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+};
+
+/**
+Command that is being run, used to call shared methods.
+*/
+private ReadDelimitedFile_Command command;
+
+/**
+Full path to the input file.
+*/
+private String inputFileFull;
+
+/**
+Delimiter character.
+*/
+private byte delim;
+
+/**
+Delimiter as a string, for the original approach.
+*/
+private String delimString;
+
+/**
+Number of columns that are expected.
+*/
+private int columnCount;
+
+/**
+Column positions (0+).
+*/
+private int dateTimePos;
+private int datePos;
+private int timePos;
+private int [] valuePos;
+private int [] flagPos;
+
+/**
+Column names, for messages.
+*/
+private String dateTimeColumn;
+private List<String> valueColumns;
+
+/**
+Date/time format, or null to determine from the date/time string.
+*/
+private String dateTimeFormat;
+
+/**
+Comment characters.
+*/
+private String commentChar;
+
+/**
+Rows to skip.
+*/
+private int [][] skipRows;
+private int skipRowsAfterComments;
+
+/**
+Whether the first non-comment row is a header.
+*/
+private boolean doReadColumnNamesFromFile;
+
+/**
+Missing value strings as upper-case bytes.
+*/
+private byte [][] missingBytes;
+
+/**
+Time series being read, one per value column.
+*/
+private List<TS> tslist;
+
+/**
+Requested period.
+*/
+private DateTime inputStartReq;
+private DateTime inputEndReq;
+
+/**
+Whether date/times can be packed into a long, which requires regular interval time series and no date/time format.
+*/
+private boolean packDateTimes;
+
+/**
+Maximum number of threads used to count and parse chunks.
+*/
+private int maxThreads;
+
+/**
+Nominal chunk size, adjusted to end at a line boundary.
+*/
+private int chunkSize = CHUNK_SIZE;
+
+/**
+Row (1+) of the first line that is not a comment, determined before parsing chunks.
+*/
+private int firstNonHeaderRow = -1;
+
+/**
+Row (1+) of the column header line, or -1 if no header line is read.
+*/
+private int headerRow = -1;
+
+/**
+Constructor.
+See ReadDelimitedFile_Command.readTimeSeriesList() for other parameter descriptions.
+@param maxThreads maximum number of threads used to read the file, or 0 to use the number of processors
+*/
+DelimitedFileParallelReader ( ReadDelimitedFile_Command command, String inputFileFull, String delim, int columnCount,
+	int dateTimePos, int datePos, int timePos, int [] valuePos, int [] flagPos,
+	String dateTimeColumn, List<String> valueColumns, String dateTimeFormat,
+	String commentChar, int [][] skipRows, int skipRowsAfterComments, boolean doReadColumnNamesFromFile,
+	List<String> missing, TimeInterval interval, List<TS> tslist, DateTime inputStartReq, DateTime inputEndReq, int maxThreads ) {
+	this.command = command;
+	this.inputFileFull = inputFileFull;
+	this.delimString = delim;
+	this.delim = (byte)delim.charAt(0);
+	this.columnCount = columnCount;
+	this.dateTimePos = dateTimePos;
+	this.datePos = datePos;
+	this.timePos = timePos;
+	this.valuePos = valuePos;
+	this.flagPos = flagPos;
+	this.dateTimeColumn = dateTimeColumn;
+	this.valueColumns = valueColumns;
+	if ( (dateTimeFormat != null) && !dateTimeFormat.trim().isEmpty() ) {
+		this.dateTimeFormat = dateTimeFormat;
+	}
+	this.commentChar = commentChar;
+	this.skipRows = skipRows;
+	this.skipRowsAfterComments = skipRowsAfterComments;
+	this.doReadColumnNamesFromFile = doReadColumnNamesFromFile;
+	int missingCount = (missing == null) ? 0 : missing.size();
+	this.missingBytes = new byte[missingCount][];
+	for ( int i = 0; i < missingCount; i++ ) {
+		this.missingBytes[i] = missing.get(i).toUpperCase().getBytes(StandardCharsets.US_ASCII);
+	}
+	this.tslist = tslist;
+	this.inputStartReq = inputStartReq;
+	this.inputEndReq = inputEndReq;
+	this.packDateTimes = (this.dateTimeFormat == null) && TimeInterval.isRegularInterval(interval.getBase());
+	if ( maxThreads <= 0 ) {
+		maxThreads = Runtime.getRuntime().availableProcessors();
+	}
+	this.maxThreads = maxThreads;
+}
+
+/**
+Determine whether the fast path can be used.
+The fast path is used for large local files with a single character delimiter and simple options,
+and the original approach is used otherwise.
+See ReadDelimitedFile_Command.readTimeSeriesList() for parameter descriptions.
+@return true if the fast path can be used
+*/
+static boolean canRead ( String inputFileFull, String delim, boolean treatConsecutiveDelimitersAsOne,
+	String commentChar, List<String> missing, int [] valuePos, int [] flagPos, List<TS> tslist, boolean readData ) {
+	if ( !readData || Message.isDebugOn ) {
+		return false;
+	}
+	File f = new File ( inputFileFull );
+	String nameUpper = f.getName().toUpperCase();
+	if ( !f.isFile() || (f.length() < MIN_FILE_SIZE) || nameUpper.endsWith(".GZ") || nameUpper.endsWith(".ZIP") ) {
+		return false;
+	}
+	if ( (delim == null) || (delim.length() != 1) || !isAscii(delim) || (delim.charAt(0) == '"') ||
+		(delim.charAt(0) == '\'') || treatConsecutiveDelimitersAsOne ) {
+		return false;
+	}
+	if ( (commentChar == null) || !isAscii(commentChar) ) {
+		return false;
+	}
+	if ( missing != null ) {
+		for ( String m : missing ) {
+			if ( (m == null) || !isAscii(m) ) {
+				return false;
+			}
+		}
+	}
+	// Line breaks are found in the bytes so the file encoding must be compatible with ASCII.
+	String charset = Charset.defaultCharset().name().toUpperCase();
+	if ( !charset.equals("UTF-8") && !charset.equals("ISO-8859-1") && !charset.equals("US-ASCII") && !charset.equals("WINDOWS-1252") ) {
+		return false;
+	}
+	if ( flagPos.length != valuePos.length ) {
+		return false;
+	}
+	for ( int i = 0; i < valuePos.length; i++ ) {
+		if ( (valuePos[i] >= 0) && (tslist.get(i) == null) ) {
+			// Let the original approach handle the error.
+			return false;
+		}
+	}
+	return true;
+}
+
+/**
+Count the lines in a chunk and check for line endings that are not supported.
+@return the number of lines in the chunk, or -1 if the chunk contains a carriage return that is not followed by a newline
+*/
+private int countLines ( FileChannel channel, long start, long end, long fileSize )
+throws IOException {
+	ByteBuffer b = readBytes ( channel, start, end );
+	int size = (int)(end - start);
+	int count = 0;
+	for ( int i = 0; i < size; i++ ) {
+		byte c = b.get(i);
+		if ( c == '\n' ) {
+			++count;
+		}
+		else if ( c == '\r' ) {
+			if ( (i + 1) < size ) {
+				if ( b.get(i + 1) != '\n' ) {
+					// BufferedReader.readLine() treats a carriage return as a line break.
+					return -1;
+				}
+			}
+			else if ( (start + size) < fileSize ) {
+				return -1;
+			}
+		}
+	}
+	if ( (size > 0) && (b.get(size - 1) != '\n') ) {
+		// Last line in the file without a newline.
+		++count;
+	}
+	return count;
+}
+
+/**
+Determine the first non-header row and the column header row by reading the start of the file,
+using the same logic as the original approach.
+@return true if a data row was found
+*/
+private boolean determineHeaderRows ()
+throws IOException {
+	BufferedReader in = null;
+	try {
+		in = new BufferedReader ( new InputStreamReader(new FileInputStream(this.inputFileFull)) );
+		int row = 0;
+		String s;
+		while ( (s = in.readLine()) != null ) {
+			++row;
+			if ( this.command.needToSkipRow( row, this.firstNonHeaderRow, this.skipRows, this.skipRowsAfterComments ) ) {
+				continue;
+			}
+			if ( s.trim().isEmpty() || (this.commentChar.indexOf(s.charAt(0)) >= 0) ) {
+				continue;
+			}
+			if ( this.firstNonHeaderRow < 0 ) {
+				this.firstNonHeaderRow = row;
+			}
+			if ( this.command.needToSkipRow( row, this.firstNonHeaderRow, this.skipRows, this.skipRowsAfterComments ) ) {
+				continue;
+			}
+			// First data row.
+			if ( this.doReadColumnNamesFromFile ) {
+				this.headerRow = row;
+			}
+			return true;
+		}
+		return false;
+	}
+	finally {
+		if ( in != null ) {
+			in.close();
+		}
+	}
+}
+
+/**
+Find the end of a chunk, which is the position after the first newline at or after the nominal end.
+*/
+private long findChunkEnd ( FileChannel channel, long nominalEnd, long fileSize )
+throws IOException {
+	if ( nominalEnd >= fileSize ) {
+		return fileSize;
+	}
+	ByteBuffer buffer = ByteBuffer.allocate(64*1024);
+	long pos = nominalEnd - 1;
+	while ( pos < fileSize ) {
+		buffer.clear();
+		int n = channel.read(buffer, pos);
+		if ( n <= 0 ) {
+			break;
+		}
+		for ( int i = 0; i < n; i++ ) {
+			if ( buffer.get(i) == '\n' ) {
+				return pos + i + 1;
+			}
+		}
+		pos += n;
+	}
+	return fileSize;
+}
+
+/**
+Indicate whether a string only contains ASCII characters.
+*/
+private static boolean isAscii ( String s ) {
+	for ( int i = 0; i < s.length(); i++ ) {
+		if ( s.charAt(i) > 127 ) {
+			return false;
+		}
+	}
+	return true;
+}
+
+/**
+Determine whether a token matches a missing value string, ignoring case.
+*/
+private boolean isMissing ( ByteBuffer b, int start, int end ) {
+	int len = end - start;
+	for ( byte [] m : this.missingBytes ) {
+		if ( m.length != len ) {
+			continue;
+		}
+		boolean match = true;
+		for ( int i = 0; i < len; i++ ) {
+			byte c = b.get(start + i);
+			if ( (c >= 'a') && (c <= 'z') ) {
+				c = (byte)(c - 32);
+			}
+			if ( c != m[i] ) {
+				match = false;
+				break;
+			}
+		}
+		if ( match ) {
+			return true;
+		}
+	}
+	return false;
+}
+
+/**
+Parse a date/time in YYYY-MM, YYYY-MM-DD, YYYY-MM-DD hh, YYYY-MM-DD hh:mm, or YYYY-MM-DD hh:mm:ss format.
+@return the packed date/time, or 0 if the string does not match a format or is not a valid date/time
+*/
+private static long parseDateTimeBytes ( ByteBuffer b, int start, int end ) {
+	int len = end - start;
+	if ( (len != 7) && (len != 10) && (len != 13) && (len != 16) && (len != 19) ) {
+		return 0;
+	}
+	int year = parseDigits(b, start, 4);
+	if ( (year < 0) || (b.get(start + 4) != '-') ) {
+		return 0;
+	}
+	int month = parseDigits(b, start + 5, 2);
+	if ( (month < 1) || (month > 12) ) {
+		return 0;
+	}
+	int day = 0, hour = 0, minute = 0, second = 0, precision = 0;
+	if ( len >= 10 ) {
+		if ( b.get(start + 7) != '-' ) {
+			return 0;
+		}
+		day = parseDigits(b, start + 8, 2);
+		if ( (day < 1) || (day > TimeUtil.numDaysInMonth(month, year)) ) {
+			return 0;
+		}
+		precision = 1;
+	}
+	if ( len >= 13 ) {
+		byte sep = b.get(start + 10);
+		if ( (sep != ' ') && (sep != 'T') ) {
+			return 0;
+		}
+		hour = parseDigits(b, start + 11, 2);
+		if ( (hour < 0) || (hour > 23) ) {
+			return 0;
+		}
+		precision = 2;
+	}
+	if ( len >= 16 ) {
+		if ( b.get(start + 13) != ':' ) {
+			return 0;
+		}
+		minute = parseDigits(b, start + 14, 2);
+		if ( (minute < 0) || (minute > 59) ) {
+			return 0;
+		}
+		precision = 3;
+	}
+	if ( len == 19 ) {
+		if ( b.get(start + 16) != ':' ) {
+			return 0;
+		}
+		second = parseDigits(b, start + 17, 2);
+		if ( (second < 0) || (second > 59) ) {
+			return 0;
+		}
+		precision = 4;
+	}
+	// Pack into a long, with the low bit set so that a valid date/time is never 0.
+	return ((long)year << 36) | ((long)month << 32) | ((long)day << 26) | ((long)hour << 20) |
+		((long)minute << 14) | ((long)second << 8) | ((long)precision << 1) | 1L;
+}
+
+/**
+Parse unsigned decimal digits.
+@return the integer value, or -1 if a character is not a digit
+*/
+private static int parseDigits ( ByteBuffer b, int start, int count ) {
+	int value = 0;
+	for ( int i = start; i < (start + count); i++ ) {
+		int d = b.get(i) - '0';
+		if ( (d < 0) || (d > 9) ) {
+			return -1;
+		}
+		value = value*10 + d;
+	}
+	return value;
+}
+
+/**
+Parse a decimal number from bytes when the result is known to be the same as Double.parseDouble(),
+which is the case when there are 15 or fewer significant digits and the power of 10 is 22 or less.
+@param result array of length 1 to receive the value
+@return true if the number was parsed, false if Double.parseDouble() should be used
+*/
+private static boolean parseDoubleBytes ( ByteBuffer b, int start, int end, double [] result ) {
+	int i = start;
+	boolean negative = false;
+	if ( i < end ) {
+		byte c = b.get(i);
+		if ( (c == '-') || (c == '+') ) {
+			negative = (c == '-');
+			++i;
+		}
+	}
+	long mantissa = 0;
+	int digitCount = 0;
+	int exponent = 0;
+	boolean haveDigit = false;
+	for ( ; i < end; i++ ) {
+		int d = b.get(i) - '0';
+		if ( (d < 0) || (d > 9) ) {
+			break;
+		}
+		haveDigit = true;
+		if ( (mantissa != 0) || (d != 0) ) {
+			if ( ++digitCount > 15 ) {
+				return false;
+			}
+			mantissa = mantissa*10 + d;
+		}
+	}
+	if ( (i < end) && (b.get(i) == '.') ) {
+		for ( ++i; i < end; i++ ) {
+			int d = b.get(i) - '0';
+			if ( (d < 0) || (d > 9) ) {
+				break;
+			}
+			haveDigit = true;
+			--exponent;
+			if ( (mantissa != 0) || (d != 0) ) {
+				if ( ++digitCount > 15 ) {
+					return false;
+				}
+				mantissa = mantissa*10 + d;
+			}
+		}
+	}
+	if ( !haveDigit ) {
+		return false;
+	}
+	if ( (i < end) && ((b.get(i) == 'e') || (b.get(i) == 'E')) ) {
+		++i;
+		boolean negativeExponent = false;
+		if ( (i < end) && ((b.get(i) == '-') || (b.get(i) == '+')) ) {
+			negativeExponent = (b.get(i) == '-');
+			++i;
+		}
+		int e = 0;
+		int eDigits = 0;
+		for ( ; i < end; i++ ) {
+			int d = b.get(i) - '0';
+			if ( (d < 0) || (d > 9) || (eDigits > 3) ) {
+				return false;
+			}
+			e = e*10 + d;
+			++eDigits;
+		}
+		if ( eDigits == 0 ) {
+			return false;
+		}
+		exponent += negativeExponent ? -e : e;
+	}
+	if ( i != end ) {
+		// Other characters such as Java "d" and "f" suffixes, hexadecimal, Infinity, NaN.
+		return false;
+	}
+	double value;
+	if ( mantissa == 0 ) {
+		value = 0.0;
+	}
+	else if ( (exponent >= 0) && (exponent <= 22) ) {
+		value = mantissa*POW10[exponent];
+	}
+	else if ( (exponent < 0) && (exponent >= -22) ) {
+		value = mantissa/POW10[-exponent];
+	}
+	else {
+		return false;
+	}
+	result[0] = negative ? -value : value;
+	return true;
+}
+
+/**
+Parse a chunk of the file.
+@param chunk the chunk to parse, with rows counted
+@return the parsed chunk
+*/
+private Chunk parseChunk ( FileChannel channel, Chunk chunk )
+throws IOException {
+	ByteBuffer b = readBytes ( channel, chunk.start, chunk.end );
+	int size = (int)(chunk.end - chunk.start);
+	chunk.allocate ( chunk.lineCount, this.valuePos.length, this.flagPos );
+	DateTimeParser dateTimeParser = null;
+	if ( this.dateTimeFormat != null ) {
+		// Each chunk uses its own parser because the parser may not be thread-safe.
+		dateTimeParser = new DateTimeParser ( this.dateTimeFormat );
+	}
+	int [] tokenStart = new int[Math.max(this.columnCount,16)];
+	int [] tokenEnd = new int[tokenStart.length];
+	double [] number = new double[1];
+	int row = chunk.startRow - 1;
+	int lineStart = 0;
+	while ( lineStart < size ) {
+		// Find the end of the line.
+		int lineEnd = lineStart;
+		while ( (lineEnd < size) && (b.get(lineEnd) != '\n') ) {
+			++lineEnd;
+		}
+		int next = lineEnd + 1;
+		if ( (lineEnd > lineStart) && (b.get(lineEnd - 1) == '\r') ) {
+			--lineEnd;
+		}
+		++row;
+		int ls = lineStart;
+		lineStart = next;
+		if ( row < this.firstNonHeaderRow ) {
+			// Rows before the first non-header row are comments or skipped rows.
+			continue;
+		}
+		if ( this.command.needToSkipRow( row, this.firstNonHeaderRow, this.skipRows, this.skipRowsAfterComments ) ) {
+			continue;
+		}
+		// Comment or blank line, consistent with String.trim().
+		boolean blank = true;
+		for ( int i = ls; i < lineEnd; i++ ) {
+			byte c = b.get(i);
+			if ( (c < 0) || (c > ' ') ) {
+				blank = false;
+				break;
+			}
+		}
+		if ( blank || (this.commentChar.indexOf((char)b.get(ls)) >= 0) ) {
+			continue;
+		}
+		if ( row == this.headerRow ) {
+			continue;
+		}
+		// Locate the tokens, checking for characters that require the original approach.
+		int ntokens = 0;
+		boolean useStrings = false;
+		tokenStart[0] = ls;
+		for ( int i = ls; i < lineEnd; i++ ) {
+			byte c = b.get(i);
+			if ( c == this.delim ) {
+				tokenEnd[ntokens] = i;
+				++ntokens;
+				if ( ntokens == tokenStart.length ) {
+					tokenStart = Arrays.copyOf(tokenStart, tokenStart.length*2);
+					tokenEnd = Arrays.copyOf(tokenEnd, tokenEnd.length*2);
+				}
+				tokenStart[ntokens] = i + 1;
+			}
+			else if ( (c < 0) || (c == '"') || (c == '\'') ) {
+				useStrings = true;
+				break;
+			}
+		}
+		int iRow = chunk.rowCount++;
+		chunk.rows[iRow] = row;
+		if ( useStrings ) {
+			byte [] bytes = new byte[lineEnd - ls];
+			for ( int i = 0; i < bytes.length; i++ ) {
+				bytes[i] = b.get(ls + i);
+			}
+			parseRowString ( chunk, iRow, row, new String(bytes), dateTimeParser );
+			continue;
+		}
+		tokenEnd[ntokens] = lineEnd;
+		++ntokens;
+		if ( ntokens < this.columnCount ) {
+			chunk.rowStatus[iRow] = ROW_ERROR;
+			chunk.messages.add ( "Read " + ntokens + " tokens for row " + row +
+				" but at least " + this.columnCount + " are expected - not parsing line: \"" +
+				bytesToString(b, ls, lineEnd) + "\"" );
+			continue;
+		}
+		// Date/time.
+		int dtStart, dtEnd;
+		String dateTimeString = null;
+		if ( this.dateTimePos >= 0 ) {
+			dtStart = tokenStart[this.dateTimePos];
+			dtEnd = tokenEnd[this.dateTimePos];
+		}
+		else {
+			dtStart = tokenStart[this.datePos];
+			dtEnd = tokenEnd[this.datePos];
+			if ( this.timePos >= 0 ) {
+				dateTimeString = bytesToString(b, dtStart, dtEnd) + ":" +
+					bytesToString(b, tokenStart[this.timePos], tokenEnd[this.timePos]);
+			}
+		}
+		long packed = 0;
+		if ( this.packDateTimes && (dateTimeString == null) ) {
+			packed = parseDateTimeBytes ( b, dtStart, dtEnd );
+		}
+		if ( packed != 0 ) {
+			chunk.packedDateTimes[iRow] = packed;
+		}
+		else {
+			if ( dateTimeString == null ) {
+				dateTimeString = bytesToString(b, dtStart, dtEnd);
+			}
+			if ( !parseDateTimeString ( chunk, iRow, row, dateTimeString, dateTimeParser ) ) {
+				continue;
+			}
+		}
+		// Values and flags.
+		int nval = this.valuePos.length;
+		for ( int ival = 0; ival < nval; ival++ ) {
+			int iCell = iRow*nval + ival;
+			if ( this.valuePos[ival] < 0 ) {
+				chunk.valueKinds[iCell] = VALUE_SKIP;
+				continue;
+			}
+			if ( this.flagPos[ival] >= 0 ) {
+				int fStart = trimStart(b, tokenStart[this.flagPos[ival]], tokenEnd[this.flagPos[ival]]);
+				int fEnd = trimEnd(b, fStart, tokenEnd[this.flagPos[ival]]);
+				chunk.flags[iCell] = (fEnd > fStart) ? bytesToString(b, fStart, fEnd) : "";
+			}
+			int vStart = trimStart(b, tokenStart[this.valuePos[ival]], tokenEnd[this.valuePos[ival]]);
+			int vEnd = trimEnd(b, vStart, tokenEnd[this.valuePos[ival]]);
+			if ( (vEnd == vStart) || isMissing(b, vStart, vEnd) ) {
+				chunk.valueKinds[iCell] = VALUE_MISSING;
+			}
+			else if ( parseDoubleBytes(b, vStart, vEnd, number) ) {
+				chunk.valueKinds[iCell] = VALUE_VALID;
+				chunk.values[iCell] = number[0];
+			}
+			else {
+				setValueFromString ( chunk, iCell, ival, row, bytesToString(b, vStart, vEnd) );
+			}
+		}
+	}
+	return chunk;
+}
+
+/**
+Parse a date/time string using DateTime.parse() or the DateTimeParser.
+@return true if the date/time was parsed, false if an error
+*/
+private boolean parseDateTimeString ( Chunk chunk, int iRow, int row, String dateTimeString, DateTimeParser dateTimeParser ) {
+	try {
+		DateTime dateTime;
+		if ( dateTimeParser != null ) {
+			dateTime = dateTimeParser.parse(null,dateTimeString);
+		}
+		else {
+			dateTime = DateTime.parse(dateTimeString);
+		}
+		chunk.setDateTime ( iRow, dateTime );
+		return true;
+	}
+	catch ( Exception dte ) {
+		chunk.rowStatus[iRow] = ROW_ERROR;
+		chunk.messages.add ( "Error parsing date/time in row " + row + " column " +
+			this.dateTimeColumn + " \"" + dateTimeString + "\" (" + dte + ")" );
+		if ( chunk.dateTimeException == null ) {
+			chunk.dateTimeException = dte;
+		}
+		return false;
+	}
+}
+
+/**
+Parse a row using strings, consistent with the original approach.
+This is used for lines that contain quoted strings or non-ASCII characters.
+*/
+private void parseRowString ( Chunk chunk, int iRow, int row, String s, DateTimeParser dateTimeParser ) {
+	List<String> tokens = StringUtil.breakStringList ( s, this.delimString, StringUtil.DELIM_ALLOW_STRINGS);
+	int ntokens = 0;
+	if ( tokens == null ) {
+		tokens = new ArrayList<>();
+	}
+	else {
+		if ( s.endsWith(this.delimString) ) {
+			tokens.add("");
+		}
+		ntokens = tokens.size();
+	}
+	if ( tokens.size() < this.columnCount ) {
+		chunk.rowStatus[iRow] = ROW_ERROR;
+		chunk.messages.add ( "Read " + ntokens + " tokens for row " + row +
+			" but at least " + this.columnCount + " are expected - not parsing line: \"" + s + "\"" );
+		return;
+	}
+	String dateTimeString;
+	if ( this.dateTimePos >= 0 ) {
+		dateTimeString = tokens.get(this.dateTimePos);
+	}
+	else if ( this.timePos >= 0 ) {
+		dateTimeString = tokens.get(this.datePos) + ":" + tokens.get(this.timePos);
+	}
+	else {
+		dateTimeString = tokens.get(this.datePos);
+	}
+	if ( !parseDateTimeString ( chunk, iRow, row, dateTimeString, dateTimeParser ) ) {
+		return;
+	}
+	int nval = this.valuePos.length;
+	for ( int ival = 0; ival < nval; ival++ ) {
+		int iCell = iRow*nval + ival;
+		if ( this.valuePos[ival] < 0 ) {
+			chunk.valueKinds[iCell] = VALUE_SKIP;
+			continue;
+		}
+		if ( this.flagPos[ival] >= 0 ) {
+			chunk.flags[iCell] = tokens.get(this.flagPos[ival]).trim();
+		}
+		String valueString = tokens.get(this.valuePos[ival]).trim();
+		if ( valueString.isEmpty() || isMissing(valueString) ) {
+			chunk.valueKinds[iCell] = VALUE_MISSING;
+		}
+		else {
+			setValueFromString ( chunk, iCell, ival, row, valueString );
+		}
+	}
+}
+
+/**
+Determine whether a string matches a missing value string, ignoring case.
+*/
+private boolean isMissing ( String s ) {
+	ByteBuffer b = ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+	return isMissing ( b, 0, b.capacity() );
+}
+
+/**
+Read the time series data from the file.
+The time series must have been initialized by the calling code.
+@param errorMessages list of error messages to append to, in file order
+@return true if the file was read, false if the file must be read using the original approach
+*/
+boolean read ( List<String> errorMessages )
+throws Exception {
+	String routine = getClass().getSimpleName() + ".read";
+	if ( !determineHeaderRows() ) {
+		// No data rows so let the original approach handle.
+		return false;
+	}
+	ExecutorService executor = null;
+	FileInputStream fis = null;
+	try {
+		fis = new FileInputStream ( this.inputFileFull );
+		final FileChannel channel = fis.getChannel();
+		long fileSize = channel.size();
+		// Split the file into chunks at line boundaries.
+		List<Chunk> chunkList = new ArrayList<>();
+		long start = 0;
+		while ( start < fileSize ) {
+			long end = findChunkEnd ( channel, start + this.chunkSize, fileSize );
+			chunkList.add ( new Chunk(start, end) );
+			start = end;
+		}
+		// Don't start more threads than there are chunks.
+		int threadCount = Math.max ( 1, Math.min(this.maxThreads, chunkList.size()) );
+		executor = Executors.newFixedThreadPool ( threadCount );
+		// Count the lines in each chunk in parallel to determine the starting row of each chunk.
+		List<Future<Integer>> countList = new ArrayList<>();
+		for ( Chunk chunk : chunkList ) {
+			countList.add ( executor.submit(() -> countLines(channel, chunk.start, chunk.end, fileSize)) );
+		}
+		int startRow = 1;
+		for ( int i = 0; i < chunkList.size(); i++ ) {
+			int lineCount = getFuture(countList.get(i)).intValue();
+			if ( lineCount < 0 ) {
+				Message.printStatus ( 2, routine, "File uses carriage return without newline - using sequential read." );
+				return false;
+			}
+			chunkList.get(i).startRow = startRow;
+			chunkList.get(i).lineCount = lineCount;
+			startRow += lineCount;
+		}
+		Message.printStatus ( 2, routine, "Reading " + (startRow - 1) + " lines from \"" + this.inputFileFull +
+			"\" in " + chunkList.size() + " chunks using " + threadCount + " threads." );
+		// Parse the chunks in parallel, limiting the number of parsed chunks in memory, and set the data in file order.
+		int window = threadCount*2;
+		List<Future<Chunk>> parseList = new ArrayList<>();
+		for ( int i = 0; i < chunkList.size(); i++ ) {
+			parseList.add ( null );
+		}
+		for ( int i = 0; (i < window) && (i < chunkList.size()); i++ ) {
+			final Chunk chunk = chunkList.get(i);
+			parseList.set ( i, executor.submit(parseCallable(channel, chunk)) );
+		}
+		SetDataState state = new SetDataState();
+		for ( int i = 0; i < chunkList.size(); i++ ) {
+			Chunk chunk = getFuture(parseList.get(i));
+			parseList.set ( i, null );
+			if ( (i + window) < chunkList.size() ) {
+				parseList.set ( (i + window), executor.submit(parseCallable(channel, chunkList.get(i + window))) );
+			}
+			setData ( chunk, state, errorMessages );
+			// Release the parsed data.
+			chunkList.set ( i, null );
+		}
+		return true;
+	}
+	finally {
+		if ( executor != null ) {
+			executor.shutdownNow();
+		}
+		if ( fis != null ) {
+			fis.close();
+		}
+	}
+}
+
+/**
+Read a chunk of the file into a heap buffer.
+A memory-mapped buffer is not used because it keeps the file locked on Windows until the buffer is garbage collected.
+@param start start position in the file (inclusive)
+@param end end position in the file (exclusive)
+@return buffer containing the bytes, positioned at 0
+*/
+private static ByteBuffer readBytes ( FileChannel channel, long start, long end )
+throws IOException {
+	ByteBuffer b = ByteBuffer.allocate ( (int)(end - start) );
+	long pos = start;
+	while ( b.hasRemaining() ) {
+		int n = channel.read ( b, pos );
+		if ( n < 0 ) {
+			throw new IOException ( "Unexpected end of file at position " + pos + "." );
+		}
+		pos += n;
+	}
+	b.flip();
+	return b;
+}
+
+/**
+Return a Callable to parse a chunk.
+*/
+private Callable<Chunk> parseCallable ( FileChannel channel, Chunk chunk ) {
+	return () -> parseChunk ( channel, chunk );
+}
+
+/**
+Get the result of a Future, passing through exceptions.
+*/
+private static <T> T getFuture ( Future<T> future )
+throws Exception {
+	try {
+		return future.get();
+	}
+	catch ( ExecutionException e ) {
+		Throwable cause = e.getCause();
+		if ( cause instanceof Exception ) {
+			throw (Exception)cause;
+		}
+		throw e;
+	}
+}
+
+/**
+Set the nominal chunk size, which is adjusted to end at a line boundary.
+This is used to test small files with several chunks.
+@param chunkSize nominal chunk size in bytes
+*/
+void setChunkSize ( int chunkSize ) {
+	this.chunkSize = chunkSize;
+}
+
+/**
+Set the parsed data from a chunk in the time series, using the same logic as the original approach.
+*/
+private void setData ( Chunk chunk, SetDataState state, List<String> errorMessages )
+throws IOException {
+	String routine = getClass().getSimpleName() + ".setData";
+	// Messages are in row order for the chunk and chunks are processed in file order.
+	errorMessages.addAll ( chunk.messages );
+	if ( chunk.dateTimeException != null ) {
+		if ( state.dtErrorCount == 0 ) {
+			// Print one exception to help with troubleshooting.
+			Message.printWarning(3, routine, chunk.dateTimeException);
+		}
+		++state.dtErrorCount;
+	}
+	int nval = this.valuePos.length;
+	for ( int iRow = 0; iRow < chunk.rowCount; iRow++ ) {
+		++state.dataRowCount;
+		if ( chunk.rowStatus[iRow] != ROW_OK ) {
+			continue;
+		}
+		DateTime dateTime = chunk.getDateTime ( iRow, state );
+		if ( state.dataRowCount == 1 ) {
+			// First data row so set the period and allocate the data space.
+			setPeriod ( state, dateTime );
+		}
+		for ( int ival = 0; ival < nval; ival++ ) {
+			int iCell = iRow*nval + ival;
+			byte kind = chunk.valueKinds[iCell];
+			if ( (kind == VALUE_SKIP) || (kind == VALUE_ERROR) ) {
+				continue;
+			}
+			TS ts = this.tslist.get(ival);
+			String flag = (chunk.flags == null) ? null : chunk.flags[iCell];
+			if ( kind == VALUE_MISSING ) {
+				if ( ts.isIrregularInterval() || ((flag != null) && !flag.isEmpty()) ) {
+					ts.setDataValue ( dateTime, ts.getMissing(), flag, 0 );
+				}
+				continue;
+			}
+			if ( state.periodRequested && dateTime.lessThan(state.earliest) || dateTime.greaterThan(state.latest) ) {
+				// Data record is not in period so don't set.
+				continue;
+			}
+			if ( (flag != null) && !flag.isEmpty() ) {
+				ts.setDataValue ( dateTime, chunk.values[iCell], flag, 0 );
+			}
+			else {
+				ts.setDataValue ( dateTime, chunk.values[iCell] );
+			}
+		}
+	}
+}
+
+/**
+Set the period of the time series and allocate the data space, using the first data row and the last row in the file.
+*/
+private void setPeriod ( SetDataState state, DateTime dateTime )
+throws IOException {
+	DateTime lastFileDateTime = this.command.determineEndDateTimeFromFile (
+		this.inputFileFull, this.dateTimePos, this.datePos, this.timePos, this.delimString, 0,
+		(this.dateTimeFormat == null) ? null : new DateTimeParser(this.dateTimeFormat) );
+	if ( lastFileDateTime == null ) {
+		throw new IOException ( "Unable to determine date/time from last line in file." );
+	}
+	// Copy the first date/time because packed date/times reuse the same object.
+	DateTime first = new DateTime(dateTime);
+	if ( first.greaterThan(lastFileDateTime)) {
+		// Reverse time order.
+		state.earliest = lastFileDateTime;
+		state.latest = first;
+	}
+	else {
+		// Chronological order.
+		state.earliest = first;
+		state.latest = lastFileDateTime;
+	}
+	state.periodRequested = (this.inputStartReq != null) && (this.inputEndReq != null);
+	for ( int ival = 0; ival < this.valuePos.length; ival++ ) {
+		if ( this.valuePos[ival] < 0 ) {
+			continue;
+		}
+		TS ts = this.tslist.get(ival);
+		// Always set the original to the file but only set period if not passed in.
+		if ( this.inputStartReq == null ) {
+			ts.setDate1(state.earliest);
+		}
+		ts.setDate1Original(state.earliest);
+		if ( this.inputEndReq == null ) {
+			ts.setDate2(state.latest);
+		}
+		ts.setDate2Original(state.latest);
+		ts.addToGenesis ( "Read time series from file \"" + this.inputFileFull + "\" for period " +
+			ts.getDate1() + " to " + ts.getDate2() );
+		ts.allocateDataSpace();
+	}
+}
+
+/**
+Set a value from a string, consistent with the original approach.
+*/
+private void setValueFromString ( Chunk chunk, int iCell, int ival, int row, String valueString ) {
+	if ( !StringUtil.isDouble(valueString) ) {
+		chunk.valueKinds[iCell] = VALUE_ERROR;
+		chunk.messages.add ( "Data value (" + valueString + ") in row " + row + " column " +
+			this.valueColumns.get(ival) + " is not a number and is not a recognized missing value." );
+	}
+	else {
+		chunk.valueKinds[iCell] = VALUE_VALID;
+		chunk.values[iCell] = Double.parseDouble(valueString);
+	}
+}
+
+/**
+Create a string from ASCII bytes.
+*/
+private static String bytesToString ( ByteBuffer b, int start, int end ) {
+	char [] c = new char[end - start];
+	for ( int i = 0; i < c.length; i++ ) {
+		c[i] = (char)b.get(start + i);
+	}
+	return new String(c);
+}
+
+/**
+Return the start of a token after trimming whitespace, consistent with String.trim().
+*/
+private static int trimStart ( ByteBuffer b, int start, int end ) {
+	while ( (start < end) && (b.get(start) >= 0) && (b.get(start) <= ' ') ) {
+		++start;
+	}
+	return start;
+}
+
+/**
+Return the end of a token after trimming whitespace, consistent with String.trim().
+*/
+private static int trimEnd ( ByteBuffer b, int start, int end ) {
+	while ( (end > start) && (b.get(end - 1) >= 0) && (b.get(end - 1) <= ' ') ) {
+		--end;
+	}
+	return end;
+}
+
+/**
+Chunk of the file and the parsed data for the chunk.
+*/
+private static class Chunk
+{
+	/**
+	Start position in the file (inclusive) and end position (exclusive).
+	*/
+	long start;
+	long end;
+
+	/**
+	Row (1+) of the first line in the chunk and the number of lines.
+	*/
+	int startRow;
+	int lineCount;
+
+	/**
+	Number of data rows that were parsed.
+	*/
+	int rowCount = 0;
+
+	/**
+	File row (1+) for each data row.
+	*/
+	int [] rows;
+
+	/**
+	Status for each data row.
+	*/
+	byte [] rowStatus;
+
+	/**
+	Packed date/time for each data row, or 0 if the date/time is in 'dateTimes'.
+	*/
+	long [] packedDateTimes;
+
+	/**
+	Date/time objects for data rows that could not be packed, allocated when needed.
+	*/
+	DateTime [] dateTimes;
+
+	/**
+	Values, kinds, and flags for each data row and value column.
+	Flags are null if a flag column is not used and otherwise the trimmed flag, which may be empty.
+	*/
+	double [] values;
+	byte [] valueKinds;
+	String [] flags;
+
+	/**
+	Error messages in row order.
+	*/
+	List<String> messages = new ArrayList<>();
+
+	/**
+	First exception parsing a date/time.
+	*/
+	Exception dateTimeException = null;
+
+	Chunk ( long start, long end ) {
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	Allocate arrays for the maximum number of data rows.
+	*/
+	void allocate ( int maxRows, int nval, int [] flagPos ) {
+		this.rows = new int[maxRows];
+		this.rowStatus = new byte[maxRows];
+		this.packedDateTimes = new long[maxRows];
+		this.values = new double[maxRows*nval];
+		this.valueKinds = new byte[maxRows*nval];
+		for ( int pos : flagPos ) {
+			if ( pos >= 0 ) {
+				this.flags = new String[maxRows*nval];
+				break;
+			}
+		}
+	}
+
+	/**
+	Return the date/time for a data row.
+	Packed date/times are returned using a reused object for each precision, which is OK for regular interval time series.
+	*/
+	DateTime getDateTime ( int iRow, SetDataState state ) {
+		long packed = this.packedDateTimes[iRow];
+		if ( packed == 0 ) {
+			return this.dateTimes[iRow];
+		}
+		int precision = (int)((packed >> 1) & 0x7);
+		DateTime dateTime = state.packedDateTimes[precision];
+		if ( dateTime == null ) {
+			dateTime = new DateTime(PRECISIONS[precision]);
+			state.packedDateTimes[precision] = dateTime;
+		}
+		dateTime.setYear ( (int)(packed >> 36) );
+		dateTime.setMonth ( (int)((packed >> 32) & 0xF) );
+		if ( precision >= 1 ) {
+			dateTime.setDay ( (int)((packed >> 26) & 0x3F) );
+		}
+		if ( precision >= 2 ) {
+			dateTime.setHour ( (int)((packed >> 20) & 0x3F) );
+		}
+		if ( precision >= 3 ) {
+			dateTime.setMinute ( (int)((packed >> 14) & 0x3F) );
+		}
+		if ( precision >= 4 ) {
+			dateTime.setSecond ( (int)((packed >> 8) & 0x3F) );
+		}
+		return dateTime;
+	}
+
+	/**
+	Set the date/time object for a data row.
+	*/
+	void setDateTime ( int iRow, DateTime dateTime ) {
+		if ( this.dateTimes == null ) {
+			this.dateTimes = new DateTime[this.rows.length];
+		}
+		this.dateTimes[iRow] = dateTime;
+	}
+}
+
+/**
+State used when setting data in the time series, carried from one chunk to the next.
+*/
+private static class SetDataState
+{
+	int dataRowCount = 0;
+	int dtErrorCount = 0;
+	boolean periodRequested = false;
+	DateTime earliest = null;
+	DateTime latest = null;
+	DateTime [] packedDateTimes = new DateTime[PRECISIONS.length];
+}
+
+}
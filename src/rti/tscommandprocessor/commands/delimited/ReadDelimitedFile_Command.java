@@ -145,6 +145,7 @@ throws InvalidCommandParameterException {
     String Alias = parameters.getValue("Alias" );
 	String InputStart = parameters.getValue("InputStart");
 	String InputEnd = parameters.getValue("InputEnd");
+	String MaxThreads = parameters.getValue("MaxThreads");
 
     String InputFile_full = null;
     if ( (InputFile == null) || InputFile.isEmpty() ) {
@@ -368,8 +369,18 @@ throws InvalidCommandParameterException {
         }
     }
 
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		if ( !StringUtil.isInteger(MaxThreads) || (Integer.parseInt(MaxThreads) < 1) ) {
+            message = "Invalid MaxThreads parameter \"" + MaxThreads + "\"";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify an integer 1 or larger." ) );
+		}
+	}
+
 	// Check for invalid parameters.
-    List<String> validList = new ArrayList<>(23);
+    List<String> validList = new ArrayList<>(24);
     validList.add ( "InputFile" );
     validList.add ( "Delimiter" );
     validList.add ( "TreatConsecutiveDelimitersAsOne" );
@@ -393,6 +404,7 @@ throws InvalidCommandParameterException {
     validList.add ( "Alias" );
     validList.add ( "InputStart" );
     validList.add ( "InputEnd" );
+    validList.add ( "MaxThreads" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
 
 	// Throw an InvalidCommandParameterException in case of errors.
@@ -409,7 +421,7 @@ throws InvalidCommandParameterException {
 Determine the time series end date/time by reading the end of the file to determine the last date.
 This opens a temporary connection, reads the end of the file, and parses out data to get the date.
 */
-private DateTime determineEndDateTimeFromFile ( String inputFileFull, int dateTimePos, int datePos, int timePos,
+DateTime determineEndDateTimeFromFile ( String inputFileFull, int dateTimePos, int datePos, int timePos,
     String delim, int parseFlag, DateTimeParser dateTimeParser )
 throws FileNotFoundException, IOException {
     String routine = getClass().getSimpleName() + ".determineEndDateTimeFromFile";
@@ -1128,7 +1140,7 @@ Determine if a row needs to be skipped, based on command parameters.
 @param skipRows ranges of rows (1+ each) that are to be skipped
 @param skipRowsAfterComments the number of rows after the header comments to be skipped
 */
-private boolean needToSkipRow( int row, int firstNonHeaderRow, int[][] skipRows, int skipRowsAfterComments ) {
+boolean needToSkipRow( int row, int firstNonHeaderRow, int[][] skipRows, int skipRowsAfterComments ) {
     if ( skipRows != null ) {
         // First check the absolute skips.
         for ( int ipair = 0; ipair < skipRows.length; ipair++ ) {
@@ -1308,6 +1320,7 @@ Only 1-character is checked but more than one special character can be indicated
 @param inputStartReq requested start of data (null to return all).
 @param inputEndReq requested end of data (null to return all).
 @param readData True to read data, false to only read the header information.
+@param maxThreads maximum number of threads used to read large files, or 0 to use the number of processors.
 @param errorMessages Error message strings to be propagated back to calling code.
 */
 private List<TS> readTimeSeriesList ( String inputFileFull,
@@ -1318,14 +1331,12 @@ private List<TS> readTimeSeriesList ( String inputFileFull,
     List<String> ids, List<String> providers, List<String> datatypes, TimeInterval interval,
     List<String> scenarios, List<String> units, List<String> missing,
     DateTime inputStartReq, DateTime inputEndReq,
-    boolean readData, List<String> errorMessages )
+    boolean readData, int maxThreads, List<String> errorMessages )
 throws IOException {
     String routine = getClass().getSimpleName() + ".readTimeSeriesList";
     // Allocate the list.
     List<TS> tslist = new ArrayList<>();
-    // Open the file.
     BufferedReader in = null;
-    in = new BufferedReader ( new InputStreamReader(IOUtil.getInputStream ( inputFileFull )) );
     // Translate column names to integer values to speed up processing below - these have been expanded for runtime.
     int dateTimePos = getColumnNumberFromName(dateTimeColumn,columnNames);
     if ( Message.isDebugOn ) {
@@ -1425,9 +1436,28 @@ throws IOException {
         // Always add, even if null.
         tslist.add ( ts );
     }
+    // Use the parallel reader for large local files with simple options.
+    if ( DelimitedFileParallelReader.canRead ( inputFileFull, delim, treatConsecutiveDelimitersAsOne,
+        commentChar, missing, valuePos, flagPos, tslist, readData ) ) {
+        DelimitedFileParallelReader reader = new DelimitedFileParallelReader ( this, inputFileFull, delim, columnNames.size(),
+            dateTimePos, datePos, timePos, valuePos, flagPos, dateTimeColumn, valueColumns, dateTimeFormat,
+            commentChar, skipRows, skipRowsAfterComments, doReadColumnNamesFromFile,
+            missing, interval, tslist, inputStartReq, inputEndReq, maxThreads );
+        try {
+            if ( reader.read ( errorMessages ) ) {
+                return tslist;
+            }
+        }
+        catch ( Exception e ) {
+            Message.printWarning ( 3, routine, e );
+            throw new IOException ( "Error reading from file (" + e + ")." );
+        }
+    }
     // Loop through reading the rows from the file, perform actions as needed.
     int row = 0;
     try {
+        // Open the file.
+        in = new BufferedReader ( new InputStreamReader(IOUtil.getInputStream ( inputFileFull )) );
         String s, sTrimmed;
         TS ts = null; // Time series to read.
         boolean rowIsComment;
@@ -1755,6 +1785,11 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	if ( (InputEnd == null) || InputEnd.isEmpty() ) {
 		InputEnd = "${InputEnd}";
 	}
+	String MaxThreads = parameters.getValue("MaxThreads");
+	int maxThreads = 0; // Default is the number of processors.
+	if ( (MaxThreads != null) && StringUtil.isInteger(MaxThreads) ) {
+		maxThreads = Integer.parseInt(MaxThreads);
+	}
 	String ColumnNames = parameters.getValue("ColumnNames");
     if ( (ColumnNames != null) && !ColumnNames.isEmpty() && (ColumnNames.indexOf("${") >= 0) && (commandPhase == CommandPhaseType.RUN)) {
     	ColumnNames = TSCommandProcessorUtil.expandParameterValue(processor, this, ColumnNames);
@@ -1988,7 +2023,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
             Comment, getSkipRows(), getSkipRowsAfterComments(),
             locationIDRuntime, providerRuntime, dataTypeRuntime, getInterval(), scenarioRuntime,
             unitsRuntime, missingValues,
-            InputStart_DateTime, InputEnd_DateTime, readData, errorMessages );
+            InputStart_DateTime, InputEnd_DateTime, readData, maxThreads, errorMessages );
 
 		if ( tslist != null ) {
 			int tscount = tslist.size();
@@ -2138,7 +2173,8 @@ public String toString ( PropList parameters ) {
     	"MissingValue",
     	"Alias",
 		"InputStart",
-		"InputEnd"
+		"InputEnd",
+		"MaxThreads"
 	};
 	return this.toString(parameters, parameterOrder);
 }
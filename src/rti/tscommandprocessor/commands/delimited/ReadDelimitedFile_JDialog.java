@@ -107,6 +107,7 @@ private JTextField __Units_JTextField = null;
 private JTextField __MissingValue_JTextField = null;
 private JTextField __InputStart_JTextField = null;
 private JTextField __InputEnd_JTextField = null;
+private JTextField __MaxThreads_JTextField = null;
 private JTextArea __Command_JTextArea = null;
 private boolean __error_wait = false;	// Is there an error to be cleared up or Cancel?
 private boolean __first_time = true;
@@ -270,6 +271,7 @@ private void checkInput () {
 	String Alias = __Alias_JTextField.getText().trim();
 	String InputStart = __InputStart_JTextField.getText().trim();
 	String InputEnd = __InputEnd_JTextField.getText().trim();
+	String MaxThreads = __MaxThreads_JTextField.getText().trim();
 
 	__error_wait = false;
 
@@ -342,6 +344,9 @@ private void checkInput () {
 	if (InputEnd.length() > 0 ) {
 		props.set("InputEnd", InputEnd);
 	}
+	if (MaxThreads.length() > 0 ) {
+		props.set("MaxThreads", MaxThreads);
+	}
 	try {
 	    // This will warn the user.
 		__command.checkCommandParameters ( props, null, 1 );
@@ -381,6 +386,7 @@ private void commitEdits() {
     String Alias = __Alias_JTextField.getText().trim();
     String InputStart = __InputStart_JTextField.getText().trim();
 	String InputEnd = __InputEnd_JTextField.getText().trim();
+	String MaxThreads = __MaxThreads_JTextField.getText().trim();
 
 	__command.setCommandParameter("InputFile", InputFile);
 	__command.setCommandParameter("Comment", Comment);
@@ -405,6 +411,7 @@ private void commitEdits() {
 	__command.setCommandParameter("Alias", Alias);
 	__command.setCommandParameter("InputStart", InputStart);
 	__command.setCommandParameter("InputEnd", InputEnd);
+	__command.setCommandParameter("MaxThreads", MaxThreads);
 }
 
 /**
@@ -770,6 +777,17 @@ private void initialize(JFrame parent, ReadDelimitedFile_Command command) {
     JGUIUtil.addComponent(data2_JPanel, new JLabel ( "Optional - overrides the global input end."),
         3, yData2, 3, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
 
+    JGUIUtil.addComponent(data2_JPanel, new JLabel ( "Maximum threads:"),
+        0, ++yData2, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxThreads_JTextField = new JTextField (5);
+    __MaxThreads_JTextField.setToolTipText("Number of threads used to read large local files with simple options, "
+        + "which are read in chunks in parallel.");
+    __MaxThreads_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(data2_JPanel, __MaxThreads_JTextField,
+        1, yData2, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(data2_JPanel, new JLabel ( "Optional - threads to read large files (default=number of processors)."),
+        3, yData2, 3, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Command:"),
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__Command_JTextArea = new JTextArea(5, 55);
@@ -876,6 +894,7 @@ private void refresh() {
     String Alias = "";
     String InputStart = "";
     String InputEnd = "";
+    String MaxThreads = "";
 
 	PropList props = null;
 
@@ -907,6 +926,7 @@ private void refresh() {
 	    Alias = props.getValue("Alias");
 		InputStart = props.getValue("InputStart");
 		InputEnd = props.getValue("InputEnd");
+		MaxThreads = props.getValue("MaxThreads");
 		// Set the control fields.
 		if (InputFile != null) {
 			__InputFile_JTextField.setText(InputFile);
@@ -1020,6 +1040,9 @@ private void refresh() {
 		if (InputEnd != null) {
 			__InputEnd_JTextField.setText(InputEnd);
 		}
+		if (MaxThreads != null) {
+			__MaxThreads_JTextField.setText(MaxThreads);
+		}
 	}
 
 	// Regardless, reset the command from the fields.
@@ -1047,6 +1070,7 @@ private void refresh() {
     Alias = __Alias_JTextField.getText().trim();
 	InputStart = __InputStart_JTextField.getText().trim();
 	InputEnd = __InputEnd_JTextField.getText().trim();
+	MaxThreads = __MaxThreads_JTextField.getText().trim();
 
 	props = new PropList(__command.getCommandName());
 	props.add("InputFile=" + InputFile);
@@ -1072,6 +1096,7 @@ private void refresh() {
     props.add("Alias=" + Alias );
 	props.add("InputStart=" + InputStart);
 	props.add("InputEnd=" + InputEnd);
+	props.add("MaxThreads=" + MaxThreads);
 
 	__Command_JTextArea.setText( __command.toString(props).trim() );
 
@@ -0,0 +1,406 @@
+// CompiledExpression - EvalEx expression compiled once with ${Property} references bound as variables
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.expression;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ezylang.evalex.Expression;
+import com.ezylang.evalex.config.ExpressionConfiguration;
+import com.ezylang.evalex.data.EvaluationValue;
+
+import RTi.Util.IO.Command;
+import RTi.Util.IO.CommandProcessor;
+import RTi.Util.Message.Message;
+import rti.tscommandprocessor.core.TSCommandProcessor;
+import rti.tscommandprocessor.core.TSCommandProcessorUtil;
+
+/**
+EvalEx expression that is parsed once, with ${Property} references bound as EvalEx variables.
+This allows a command such as If() or EvaluateExpression() that is run many times,
+for example in a For() loop, to reuse the parsed expression and only set the variable values before evaluating.
+<p>
+The expression is translated as follows, consistent with expanding the ${Property} text:
+<ul>
+<li> ${Property} outside of a string literal is replaced with a variable that is set to the property value,
+     if the value is a Boolean, a number, or a string that can be parsed as a boolean or number</li>
+<li> a string literal that only contains a ${Property}, such as '${Property}', is replaced with a variable that is set to
+     the property value as a string</li>
+</ul>
+If the expression cannot be translated (for example a string literal contains a ${Property} and other text,
+or properties are nested), or if a property value cannot be bound as a variable for an evaluation
+(for example the property is not defined or is a DateTime), the ${Property} text is expanded and the expanded
+expression is evaluated, as was done before the expression was compiled.
+Recently expanded expressions are also cached so that they are only parsed once.
+<p>
+Evaluation is synchronized because EvalEx Expression instances are not thread-safe.
+*/
+public class CompiledExpression
+{
+
+/**
+Prefix for variable names that are used for properties.
+*/
+private static final String VARIABLE_PREFIX = "_tsprop";
+
+/**
+Maximum number of expanded expressions to cache.
+*/
+private static final int EXPANDED_EXPRESSION_CACHE_SIZE = 16;
+
+/**
+Original expression text, with ${Property} references.
+*/
+private String expressionText;
+
+/**
+Configuration used for the EvalEx expressions.
+*/
+private ExpressionConfiguration configuration;
+
+/**
+Parsed expression with properties replaced by variables, or null if the expression could not be compiled.
+*/
+private Expression expression = null;
+
+/**
+Property names for the variables.
+*/
+private String [] propertyNames = new String[0];
+
+/**
+Variable names used in the compiled expression, corresponding to propertyNames.
+*/
+private String [] variableNames = new String[0];
+
+/**
+Whether each variable is set as a string because the property was in a string literal.
+*/
+private boolean [] variableIsString = new boolean[0];
+
+/**
+Parsed expressions for expanded expression text, used when the compiled expression cannot be used.
+Use access order so that the least recently used expression is removed when the cache is full.
+*/
+private Map<String,Expression> expandedExpressionCache = new LinkedHashMap<String,Expression>(16, 0.75f, true) {
+	private static final long serialVersionUID = 1L;
+	@Override
+	protected boolean removeEldestEntry ( Map.Entry<String,Expression> eldest ) {
+		return size() > EXPANDED_EXPRESSION_CACHE_SIZE;
+	}
+};
+
+/**
+Create a compiled expression.  Use compile() to create an instance.
+@param expressionText expression text, with ${Property} references
+@param configuration EvalEx configuration
+@param singleQuoteStringLiteralsAllowed whether the configuration allows single quotes for string literals
+*/
+private CompiledExpression ( String expressionText, ExpressionConfiguration configuration,
+	boolean singleQuoteStringLiteralsAllowed ) {
+	String routine = getClass().getSimpleName() + ".CompiledExpression";
+	this.expressionText = expressionText;
+	this.configuration = configuration;
+	// Replace escaped characters, consistent with expanding the parameter value.
+	String text = expressionText.replace("\\\"", "\"" ).replace("\\'", "'" );
+	List<String> propertyList = new ArrayList<>();
+	List<Boolean> isStringList = new ArrayList<>();
+	String translated = translate ( text, singleQuoteStringLiteralsAllowed, propertyList, isStringList );
+	if ( translated == null ) {
+		Message.printStatus(2, routine, "Expression will be expanded for each evaluation: " + expressionText );
+		return;
+	}
+	int size = propertyList.size();
+	this.propertyNames = new String[size];
+	this.variableNames = new String[size];
+	this.variableIsString = new boolean[size];
+	for ( int i = 0; i < size; i++ ) {
+		this.propertyNames[i] = propertyList.get(i);
+		this.variableNames[i] = VARIABLE_PREFIX + i;
+		this.variableIsString[i] = isStringList.get(i);
+	}
+	try {
+		Expression compiled = new Expression ( translated, configuration );
+		// Parse now so that the syntax tree is reused for each evaluation.
+		compiled.getAbstractSyntaxTree();
+		this.expression = compiled;
+	}
+	catch ( Exception e ) {
+		// Expanding the expression will generate the error when evaluated.
+		Message.printStatus(2, routine, "Unable to compile expression (" + e + ").  Will expand for each evaluation.");
+	}
+}
+
+/**
+Compile an expression.
+@param expressionText expression text, with ${Property} references
+@param configuration EvalEx configuration, or null to use the default
+@param singleQuoteStringLiteralsAllowed whether the configuration allows single quotes for string literals
+@return the compiled expression
+*/
+public static CompiledExpression compile ( String expressionText, ExpressionConfiguration configuration,
+	boolean singleQuoteStringLiteralsAllowed ) {
+	if ( configuration == null ) {
+		configuration = ExpressionConfiguration.defaultConfiguration();
+	}
+	return new CompiledExpression ( expressionText, configuration, singleQuoteStringLiteralsAllowed );
+}
+
+/**
+Evaluate the expression.
+@param processor command processor used to look up property values
+@param command command that is being run, used to expand the expression if necessary
+@param values additional variable values to set, can be null
+@return the evaluation result
+@exception Exception if the expression cannot be parsed or evaluated
+*/
+public synchronized EvaluationValue evaluate ( CommandProcessor processor, Command command, Map<String,?> values )
+throws Exception {
+	if ( this.expression != null ) {
+		// Try to set the variables from the property values.
+		Object [] variableValues = new Object[this.propertyNames.length];
+		boolean canBind = true;
+		for ( int i = 0; i < this.propertyNames.length; i++ ) {
+			variableValues[i] = toVariableValue ( lookupPropContents(processor, this.propertyNames[i]), this.variableIsString[i] );
+			if ( variableValues[i] == null ) {
+				canBind = false;
+				break;
+			}
+		}
+		if ( canBind ) {
+			if ( values != null ) {
+				this.expression.withValues ( values );
+			}
+			for ( int i = 0; i < this.variableNames.length; i++ ) {
+				this.expression.with ( this.variableNames[i], variableValues[i] );
+			}
+			return this.expression.evaluate();
+		}
+	}
+	// Expand the properties and evaluate the expanded expression.
+	String expandedText = TSCommandProcessorUtil.expandParameterValue(processor, command, this.expressionText);
+	Expression expandedExpression = this.expandedExpressionCache.get(expandedText);
+	if ( expandedExpression == null ) {
+		expandedExpression = new Expression ( expandedText, this.configuration );
+		this.expandedExpressionCache.put(expandedText, expandedExpression);
+	}
+	if ( values != null ) {
+		expandedExpression.withValues ( values );
+	}
+	return expandedExpression.evaluate();
+}
+
+/**
+Return the original expression text.
+@return the original expression text, with ${Property} references
+*/
+public String getExpressionText () {
+	return this.expressionText;
+}
+
+/**
+Indicate whether the expression was compiled with variables.
+@return true if the expression was compiled, false if the expression is expanded for each evaluation
+*/
+public boolean isCompiled () {
+	return this.expression != null;
+}
+
+/**
+Determine whether a character can be part of an identifier or number,
+in which case a ${Property} next to the character cannot be replaced with a variable.
+*/
+private static boolean isIdentifierCharacter ( char c ) {
+	return Character.isLetterOrDigit(c) || (c == '_') || (c == '.');
+}
+
+/**
+Look up a processor property without throwing an exception.
+@param processor command processor used to look up property values
+@param propertyName name of property to look up
+@return property contents or null if not found
+*/
+private static Object lookupPropContents ( CommandProcessor processor, String propertyName ) {
+	if ( processor instanceof TSCommandProcessor ) {
+		return ((TSCommandProcessor)processor).lookupPropContents ( propertyName );
+	}
+	try {
+		return processor.getPropContents ( propertyName );
+	}
+	catch ( Exception e ) {
+		return null;
+	}
+}
+
+/**
+Convert a property value to a variable value, consistent with expanding the property value as text.
+@param propval property value
+@param isString whether the property is used in a string literal
+@return the variable value, or null if the value cannot be set as a variable and the expression must be expanded
+*/
+private static Object toVariableValue ( Object propval, boolean isString ) {
+	if ( propval == null ) {
+		// Expanding will retain the ${Property} text.
+		return null;
+	}
+	if ( isString ) {
+		return "" + propval;
+	}
+	if ( propval instanceof Boolean ) {
+		return propval;
+	}
+	if ( (propval instanceof Integer) || (propval instanceof Long) || (propval instanceof Short) || (propval instanceof Byte) ) {
+		return BigDecimal.valueOf(((Number)propval).longValue());
+	}
+	if ( (propval instanceof Double) || (propval instanceof Float) ) {
+		double d = ((Number)propval).doubleValue();
+		if ( Double.isNaN(d) || Double.isInfinite(d) ) {
+			return null;
+		}
+		// Use the text representation so that the value is the same as when expanded.
+		return new BigDecimal("" + propval);
+	}
+	if ( propval instanceof BigDecimal ) {
+		return propval;
+	}
+	if ( propval instanceof String ) {
+		// Expanded text is interpreted as part of the expression so only handle simple values.
+		String s = ((String)propval).trim();
+		if ( s.equalsIgnoreCase("true") ) {
+			return Boolean.TRUE;
+		}
+		else if ( s.equalsIgnoreCase("false") ) {
+			return Boolean.FALSE;
+		}
+		else if ( !s.isEmpty() && (Character.isDigit(s.charAt(0)) || (s.charAt(0) == '.')) ) {
+			try {
+				return new BigDecimal(s);
+			}
+			catch ( NumberFormatException e ) {
+				return null;
+			}
+		}
+	}
+	return null;
+}
+
+/**
+Translate the expression text by replacing ${Property} references with variable names.
+@param text expression text
+@param singleQuoteStringLiteralsAllowed whether single quotes are used for string literals
+@param propertyList list of property names, in order of variables, will be filled in
+@param isStringList list indicating whether variables are strings, will be filled in
+@return the translated expression or null if the expression cannot be translated
+*/
+private static String translate ( String text, boolean singleQuoteStringLiteralsAllowed,
+	List<String> propertyList, List<Boolean> isStringList ) {
+	StringBuilder b = new StringBuilder(text.length());
+	int n = text.length();
+	int i = 0;
+	while ( i < n ) {
+		char c = text.charAt(i);
+		if ( (c == '"') || ((c == '\'') && singleQuoteStringLiteralsAllowed) ) {
+			// String literal:
+			// - find the end, allowing for escaped characters
+			int j = i + 1;
+			boolean escaped = false;
+			while ( j < n ) {
+				char c2 = text.charAt(j);
+				if ( escaped ) {
+					escaped = false;
+				}
+				else if ( c2 == '\\' ) {
+					escaped = true;
+				}
+				else if ( c2 == c ) {
+					break;
+				}
+				++j;
+			}
+			if ( j >= n ) {
+				// Unterminated string.
+				return null;
+			}
+			String literal = text.substring(i + 1, j);
+			if ( literal.contains("${") ) {
+				if ( literal.startsWith("${") && (literal.indexOf('}') == (literal.length() - 1)) &&
+					(literal.indexOf("${", 2) < 0) ) {
+					// Only a property in the string.
+					b.append ( lookupVariable(literal.substring(2, literal.length() - 1), true, propertyList, isStringList) );
+				}
+				else {
+					// Property in a string with other text.
+					return null;
+				}
+			}
+			else {
+				b.append ( text, i, j + 1 );
+			}
+			i = j + 1;
+		}
+		else if ( text.startsWith("${", i) ) {
+			int end = text.indexOf('}', i + 2);
+			if ( end < 0 ) {
+				return null;
+			}
+			String propertyName = text.substring(i + 2, end);
+			if ( propertyName.contains("${") ) {
+				// Nested property.
+				return null;
+			}
+			if ( ((i > 0) && isIdentifierCharacter(text.charAt(i - 1))) ||
+				(((end + 1) < n) && isIdentifierCharacter(text.charAt(end + 1))) ) {
+				// Property is part of a larger token.
+				return null;
+			}
+			b.append ( lookupVariable(propertyName, false, propertyList, isStringList) );
+			i = end + 1;
+		}
+		else {
+			b.append ( c );
+			++i;
+		}
+	}
+	return b.toString();
+}
+
+/**
+Return the variable name for a property, adding to the lists if not previously added.
+*/
+private static String lookupVariable ( String propertyName, boolean isString,
+	List<String> propertyList, List<Boolean> isStringList ) {
+	for ( int i = 0; i < propertyList.size(); i++ ) {
+		if ( propertyList.get(i).equals(propertyName) && (isStringList.get(i) == isString) ) {
+			return VARIABLE_PREFIX + i;
+		}
+	}
+	propertyList.add(propertyName);
+	isStringList.add(isString);
+	return VARIABLE_PREFIX + (propertyList.size() - 1);
+}
+
+}
@@ -25,7 +25,6 @@ package rti.tscommandprocessor.commands.expression;
 
 import javax.swing.JFrame;
 
-import com.ezylang.evalex.Expression;
 import com.ezylang.evalex.data.EvaluationValue;
 import com.ezylang.evalex.data.EvaluationValue.DataType;
 
@@ -84,6 +83,12 @@ Property set during discovery.
 */
 private Prop discoveryProp = null;
 
+/**
+Compiled Expression parameter, reused when the command is run more than once, such as in a For() loop.
+The expression is recompiled if the Expression parameter changes.
+*/
+private CompiledExpression compiledExpression = null;
+
 /**
 Constructor.
 */
@@ -268,10 +273,8 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	PropList parameters = getCommandParameters();
 
 	// Use Expression0 to not conflict with the Expression class.
+	// - properties are set as expression variables when evaluated rather than expanding the text
 	String Expression0 = parameters.getValue ( "Expression" );
-	if ( commandPhase == CommandPhaseType.RUN ) {
-		Expression0 = TSCommandProcessorUtil.expandParameterValue(processor, this, Expression0);
-	}
 	String PropertyName = parameters.getValue ( "PropertyName" );
 	if ( commandPhase == CommandPhaseType.RUN ) {
 		// Allow expansion of the property name to set dynamic names:
@@ -313,13 +316,15 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
         			propertyMap.put(propertyName, inputPropertyValue );
         		}
         	}
-	    	Expression expression = new Expression(Expression0);
+	    	CompiledExpression expression = this.compiledExpression;
+	    	if ( (expression == null) || !expression.getExpressionText().equals(Expression0) ) {
+	    		expression = CompiledExpression.compile(Expression0, null, false);
+	    		this.compiledExpression = expression;
+	    	}
 	    	EvaluationValue result = null;
 	    	boolean evalWasSuccess = true;
 	    	try {
-	    		result = expression
-	    		.withValues(propertyMap)
-	    		.evaluate();
+	    		result = expression.evaluate(processor, this, propertyMap);
 	    	}
 	    	catch ( Exception e ) {
 	    		evalWasSuccess = false;
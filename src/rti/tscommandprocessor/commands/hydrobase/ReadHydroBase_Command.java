@@ -31,6 +31,7 @@ import javax.swing.JFrame;
 import riverside.datastore.DataStore;
 import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
+import rti.tscommandprocessor.core.TimeSeriesReadExecutor;
 import RTi.GR.GRLimits;
 import RTi.TS.TS;
 import RTi.TS.TSIdent;
@@ -325,6 +326,16 @@ throws InvalidCommandParameterException {
                             message, "Specify " + _Ignore + ", " + _Warn +
                             ", or blank for default of " + _Warn + "." ) );
         }
+	String MaxRequestsPerSecond = parameters.getValue ( "MaxRequestsPerSecond" );
+	if ( (MaxRequestsPerSecond != null) && !MaxRequestsPerSecond.isEmpty() ) {
+		if ( !StringUtil.isDouble(MaxRequestsPerSecond) || (Double.parseDouble(MaxRequestsPerSecond) <= 0.0) ) {
+            message = "The MaxRequestsPerSecond parameter \"" + MaxRequestsPerSecond + "\" is invalid.";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify the maximum number of requests per second as a number > 0." ) );
+		}
+	}
 
     // Check for invalid parameters.
     List<String> validList = new ArrayList<>();
@@ -346,6 +357,7 @@ throws InvalidCommandParameterException {
     validList.add ( "FillUsingDivComments" );
     validList.add ( "FillUsingDivCommentsFlag" );
     validList.add ( "IfMissing" );
+    validList.add ( "MaxRequestsPerSecond" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
 
 	if ( warning.length() > 0 ) {
@@ -662,6 +674,11 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     if ( (IfMissing != null) && IfMissing.equalsIgnoreCase(_Ignore) ) {
         IfMissingWarn = false;  // Ignore when time series are not found.
     }
+	String MaxRequestsPerSecond = parameters.getValue ( "MaxRequestsPerSecond" );
+	double maxRequestsPerSecond = -1.0; // Default is no limit.
+	if ( (MaxRequestsPerSecond != null) && !MaxRequestsPerSecond.isEmpty() ) {
+		maxRequestsPerSecond = Double.parseDouble(MaxRequestsPerSecond);
+	}
 
 	if ( warning_count > 0 ) {
 		message = "There were " + warning_count + " warnings about command parameters.";
@@ -1153,14 +1170,18 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     			    inputName = "~HydroBase"; // No input name so use default legacy DMI connection.
     			}
 			}
+			// Read the time series in catalog order:
+			// - the DMI, period, and properties are the same for each time series
+			// - the rate limit is for the database server
+			// - one time series is read at a time because the DMI has a single database connection
+			final HydroBaseDMI readDMI = hbdmi;
+			final DateTime readStart = InputStart_DateTime;
+			final DateTime readEnd = InputEnd_DateTime;
+			final boolean readTSData = read_data;
+			TimeSeriesReadExecutor readExecutor = new TimeSeriesReadExecutor ( hbdmi.getDatabaseServer(), 1, maxRequestsPerSecond,
+				tsid -> readDMI.readTimeSeries ( tsid, readStart, readEnd, null, readTSData, HydroBase_props ) );
+			List<String> tsidentStringList = new ArrayList<>(size);
 			for ( int i = 0; i < size; i++ ) {
-				// Check to see if reading time series should be canceled because the command has been canceled.
-				if ( tsprocessor.getCancelProcessingRequested() ) {
-					// The user has requested that command processing should be canceled.
-					// Check here in this command because a very large query could take a long time before a single command finishes.
-					Message.printStatus(2, routine, "Cancel processing based on user request.");
-					break;
-				}
 				// List in order of likelihood to improve performance.
 				if ( is_Station ) {
 					// Station TS.
@@ -1260,33 +1281,49 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 						+ "." + Interval
 						+ inputName;
 				}
-	            // Update the progress.
-				message = "Reading HydroBase time series " + (i + 1) + " of " + size + " \"" + tsident_string + "\"";
-                notifyCommandProgressListeners ( i, size, (float)-1.0, message );
-				try {
-				    ts = hbdmi.readTimeSeries (
-						tsident_string,
-						InputStart_DateTime,
-						InputEnd_DateTime, null, read_data,
-						HydroBase_props );
-					// Add the time series to the temporary list.  It will be further processed below.
-	                if ( (ts != null) && (Alias != null) && !Alias.equals("") ) {
-	                    ts.setAlias ( TSCommandProcessorUtil.expandTimeSeriesMetadataString(
-	                        processor, ts, Alias, status, command_phase) );
-	                }
-	                // Allow null to be added here.
-					tslist.add ( ts );
-				}
-				catch ( Exception e ) {
-					message = "Unexpected error reading HydroBase time series \"" + tsident_string + "\" (" + e + ").";
-					Message.printWarning ( 2, routine, message );
-					Message.printWarning ( 2, routine, e );
-					++warning_count;
-                    status.addToLog ( command_phase,
-                        new CommandLogRecord(CommandStatusType.FAILURE,
-                           message, "Report the problem to software support - also see the log file." ) );
+				tsidentStringList.add ( tsident_string );
+				readExecutor.add ( tsident_string );
+			}
+			try {
+				readExecutor.start();
+				for ( int i = 0; i < size; i++ ) {
+					// Check to see if reading time series should be canceled because the command has been canceled.
+					if ( tsprocessor.getCancelProcessingRequested() ) {
+						// The user has requested that command processing should be canceled.
+						// Check here in this command because a very large query could take a long time before a single command finishes.
+						Message.printStatus(2, routine, "Cancel processing based on user request.");
+						break;
+					}
+					tsident_string = tsidentStringList.get(i);
+		            // Update the progress.
+					message = "Reading HydroBase time series " + (i + 1) + " of " + size + " \"" + tsident_string + "\"";
+	                notifyCommandProgressListeners ( i, size, (float)-1.0, message );
+					try {
+					    ts = readExecutor.getTimeSeries ( i );
+						// Add the time series to the temporary list.  It will be further processed below.
+		                if ( (ts != null) && (Alias != null) && !Alias.equals("") ) {
+		                    ts.setAlias ( TSCommandProcessorUtil.expandTimeSeriesMetadataString(
+		                        processor, ts, Alias, status, command_phase) );
+		                }
+		                // Allow null to be added here.
+						tslist.add ( ts );
+					}
+					catch ( Exception e ) {
+						// Continue reading other time series.
+						message = "Unexpected error reading HydroBase time series \"" + tsident_string + "\" (" + e + ").";
+						Message.printWarning ( 2, routine, message );
+						Message.printWarning ( 2, routine, e );
+						++warning_count;
+	                    status.addToLog ( command_phase,
+	                        new CommandLogRecord(CommandStatusType.FAILURE,
+	                           message, "Report the problem to software support - also see the log file." ) );
+					}
 				}
 			}
+			finally {
+				// Cancel reads that have not started, for example if processing was canceled.
+				readExecutor.shutdown();
+			}
 		}
 
         int size = 0;
@@ -1419,6 +1456,7 @@ public String toString ( PropList parameters, int majorVersion ) {
 		"FillUsingDivComments",
 		"FillUsingDivCommentsFlag",
 		"IfMissing",
+		"MaxRequestsPerSecond",
 	};
 
 	// Form the final property list.
@@ -120,6 +120,7 @@ private SimpleJComboBox	__FillDailyDiv_JComboBox,
 			*/
 private SimpleJComboBox	__FillUsingDivComments_JComboBox;
 private SimpleJComboBox __IfMissing_JComboBox;
+private JTextField __MaxRequestsPerSecond_JTextField;
 
 private JTextArea __command_JTextArea = null;
 // Contains all input filter panels.
@@ -389,6 +390,10 @@ private void checkInput () {
     String IfMissing = __IfMissing_JComboBox.getSelected();
     if ( IfMissing.length() > 0 ) {
         props.set ("IfMissing",IfMissing);
+    }
+    String MaxRequestsPerSecond = __MaxRequestsPerSecond_JTextField.getText().trim();
+    if ( MaxRequestsPerSecond.length() > 0 ) {
+        props.set ("MaxRequestsPerSecond",MaxRequestsPerSecond);
     }
 	try {
 	    // This will warn the user.
@@ -450,6 +455,8 @@ private void commitEdits () {
 	__command.setCommandParameter (	"FillUsingDivCommentsFlag", FillUsingDivCommentsFlag );
     String IfMissing = __IfMissing_JComboBox.getSelected();
     __command.setCommandParameter ( "IfMissing", IfMissing );
+    String MaxRequestsPerSecond = __MaxRequestsPerSecond_JTextField.getText().trim();
+    __command.setCommandParameter ( "MaxRequestsPerSecond", MaxRequestsPerSecond );
 }
 
 /**
@@ -907,6 +914,17 @@ private void initialize ( JFrame parent, ReadHydroBase_Command command ) {
         "Optional - how to handle missing time series (blank=" + __command._Warn + ")."),
         3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Maximum requests per second:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxRequestsPerSecond_JTextField = new JTextField ( "", 10 );
+    __MaxRequestsPerSecond_JTextField.setToolTipText("Limit for time series reads, shared by all commands that use the same database server.");
+    __MaxRequestsPerSecond_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(main_JPanel, __MaxRequestsPerSecond_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+        "Optional - maximum time series reads per second for the database server (default=no limit)."),
+        3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Command:"),
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__command_JTextArea = new JTextArea (4,50);
@@ -1312,6 +1330,7 @@ private void refresh () {
 	String FillUsingDivComments = "";
 	String FillUsingDivCommentsFlag = "";
 	String IfMissing = "";
+	String MaxRequestsPerSecond = "";
 	PropList props = null;
 	if ( __first_time ) {
 		__first_time = false;
@@ -1332,6 +1351,7 @@ private void refresh () {
 		FillUsingDivComments = props.getValue ( "FillUsingDivComments" );
 		FillUsingDivCommentsFlag = props.getValue ( "FillUsingDivCommentsFlag" );
 		IfMissing = props.getValue ( "IfMissing" );
+		MaxRequestsPerSecond = props.getValue ( "MaxRequestsPerSecond" );
         // The input name list is set up in initialize() but is selected here.
 		// It may also be reset below from the TSID.
         if ( JGUIUtil.isSimpleJComboBoxItem(__InputName_JComboBox, InputName, JGUIUtil.NONE, null, null ) ) {
@@ -1551,6 +1571,9 @@ private void refresh () {
                 __error_wait = true;
             }
         }
+        if ( MaxRequestsPerSecond != null ) {
+            __MaxRequestsPerSecond_JTextField.setText ( MaxRequestsPerSecond );
+        }
 	}
 	// Regardless, reset the command from the fields.
 	InputName = __InputName_JComboBox.getSelected();
@@ -1641,6 +1664,8 @@ private void refresh () {
 	props.add ( "FillUsingDivCommentsFlag=" + FillUsingDivCommentsFlag );
 	IfMissing = __IfMissing_JComboBox.getSelected();
     props.add ( "IfMissing=" + IfMissing );
+    MaxRequestsPerSecond = __MaxRequestsPerSecond_JTextField.getText().trim();
+    props.add ( "MaxRequestsPerSecond=" + MaxRequestsPerSecond );
 	__command_JTextArea.setText( __command.toString ( props ).trim() );
 
 	// Check the GUI state to determine whether some controls should be disabled.
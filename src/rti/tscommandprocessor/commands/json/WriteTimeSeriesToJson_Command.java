@@ -302,13 +302,11 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	String OutputFile = parameters.getValue ( "OutputFile" );
 
 	// Get the time series to process...
-	PropList request_params = new PropList ( "" );
-	request_params.set ( "TSList", TSList );
-	request_params.set ( "TSID", TSID );
-    request_params.set ( "EnsembleID", EnsembleID );
+	PropList request_params = null;
 	CommandProcessorRequestResultsBean bean = null;
+	Object o_TSList = null;
 	try {
-        bean = processor.processRequest( "GetTimeSeriesToProcess", request_params);
+        o_TSList = TSCommandProcessorUtil.getTimeSeriesToProcess ( processor, TSList, TSID, EnsembleID, null ).getTimeSeriesList();
 	}
 	catch ( Exception e ) {
         message = "Error requesting GetTimeSeriesToProcess(TSList=\"" + TSList +
@@ -320,8 +318,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 				new CommandLogRecord(CommandStatusType.FAILURE,
 						message, "Report problem to software support." ) );
 	}
-	PropList bean_PropList = bean.getResultsPropList();
-	Object o_TSList = bean_PropList.getContents ( "TSToProcessList" );
+	PropList bean_PropList = null;
 	if ( o_TSList == null ) {
         message = "Null TSToProcessList returned from processor for GetTimeSeriesToProcess(TSList=\"" + TSList +
         "\" TSID=\"" + TSID + "\", EnsembleID=\"" + EnsembleID + "\").";
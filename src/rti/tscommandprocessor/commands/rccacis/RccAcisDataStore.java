@@ -49,6 +49,7 @@ import org.xml.sax.SAXException;
 import com.google.gson.Gson;
 
 import riverside.datastore.AbstractWebServiceDataStore;
+import rti.tscommandprocessor.core.TimeSeriesCache;
 
 import RTi.TS.TS;
 import RTi.TS.TSDataFlagMetadata;
@@ -646,6 +647,26 @@ if false, construct the time series and populate properties but do not read the
 @return the time series read from the ACIS web services
 */
 public TS readTimeSeries ( String tsidentString, DateTime readStart, DateTime readEnd, boolean readData )
+throws MalformedURLException, Exception {
+    TimeSeriesCache cache = TimeSeriesCache.getInstance ( this );
+    if ( readData && (cache != null) ) {
+        // Station data are typically quality controlled within a few weeks.
+        return cache.readTimeSeries ( this, tsidentString, 30, readStart, readEnd,
+            (start, end) -> readTimeSeriesFromService ( tsidentString, start, end, true ) );
+    }
+    return readTimeSeriesFromService ( tsidentString, readStart, readEnd, readData );
+}
+
+/**
+Read a time series from the web service, without using the time series cache.  Only one element type is read.
+@param tsidentString the time series identifier string as per TSTool conventions.
+@param readStart the starting date/time to read, or null to read all data.
+@param readEnd the ending date/time to read, or null to read all data.
+@param readData if true, read the data;
+if false, construct the time series and populate properties but do not read the data
+@return the time series read from the ACIS web services
+*/
+private TS readTimeSeriesFromService ( String tsidentString, DateTime readStart, DateTime readEnd, boolean readData )
 throws MalformedURLException, Exception {
     // Make sure data store is initialized.
     initialize();
@@ -0,0 +1,105 @@
+// CellStylePool - pool of cell styles for a workbook, to share styles that have the same formatting
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.spreadsheet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+
+import RTi.GR.GRColor;
+
+/**
+Pool of cell styles for a workbook, used so that cells and columns with the same formatting share one style.
+Excel limits the number of styles in a workbook (64000 for *.xlsx) and each style is saved in the workbook,
+so creating a style for each column and condition can result in large files or errors for large tables.
+Styles returned by the pool are shared and must not be modified.
+*/
+class CellStylePool
+{
+
+/**
+Workbook used to create styles.
+*/
+private Workbook wb = null;
+
+/**
+Data format used to look up format strings.
+*/
+private DataFormat dataFormat = null;
+
+/**
+Styles, using key from the data format and fill foreground color.
+*/
+private Map<String,CellStyle> styleMap = new HashMap<>();
+
+/**
+Create a style pool for a workbook.
+@param wb workbook used to create styles
+*/
+CellStylePool ( Workbook wb ) {
+	this.wb = wb;
+	this.dataFormat = wb.createDataFormat();
+}
+
+/**
+Return a style with the requested formatting, creating the style if not already in the pool.
+@param format Excel data format (e.g., "0.00"), or null to use the default format
+@param fillForegroundColor solid fill foreground color, or null for no fill
+@return a shared style that must not be modified
+*/
+CellStyle getStyle ( String format, GRColor fillForegroundColor ) {
+	String key = format + "|";
+	if ( fillForegroundColor != null ) {
+		key = key + fillForegroundColor.getRed() + "," + fillForegroundColor.getGreen() + "," + fillForegroundColor.getBlue();
+	}
+	CellStyle style = this.styleMap.get(key);
+	if ( style == null ) {
+		style = this.wb.createCellStyle();
+		if ( format != null ) {
+			style.setDataFormat(this.dataFormat.getFormat(format));
+		}
+		if ( fillForegroundColor != null ) {
+			// Setting background does nothing for solid since foreground is used.
+			((XSSFCellStyle)style).setFillForegroundColor(new XSSFColor(fillForegroundColor));
+			style.setFillPattern(CellStyle.SOLID_FOREGROUND);
+		}
+		this.styleMap.put(key, style);
+	}
+	return style;
+}
+
+/**
+Return the workbook for the pool.
+@return the workbook used to create styles
+*/
+Workbook getWorkbook () {
+	return this.wb;
+}
+
+}
@@ -0,0 +1,795 @@
+// ExcelSheetEventReader - read worksheet rows from an *.xlsx file using the XSSF event model
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.spreadsheet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import RTi.Util.Message.Message;
+
+/**
+Read worksheet rows from an *.xlsx workbook file using the XSSF event model (SAX parsing of the worksheet XML).
+The worksheet is parsed as a stream and only the cells in the requested area are passed to the caller,
+so the workbook cell objects are not created in memory, which is much faster and uses much less memory
+than WorkbookFactory.create() for large worksheets.
+Shared strings are read using the read-only shared strings table.
+<p>
+Limitations compared to the in-memory workbook:
+<ul>
+<li> formulas are not evaluated - the value that was cached when the workbook was last saved is used</li>
+<li> only *.xlsx (and *.xlsm) files can be read</li>
+<li> Excel tables are handled as named ranges, consistent with ExcelToolkit.getAreaReference()</li>
+</ul>
+Call close() when done reading.
+*/
+class ExcelSheetEventReader
+{
+
+/**
+Namespace for relationship attributes in workbook.xml.
+*/
+private static final String RELATIONSHIPS_NAMESPACE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+/**
+Cell value read from the worksheet XML.
+The cell type is one of the Cell.CELL_TYPE_* values other than formula,
+with formula cells indicated by isFormula() and having the type of the cached result.
+*/
+static class EventCell
+{
+	/**
+	Cell type, one of Cell.CELL_TYPE_NUMERIC, CELL_TYPE_STRING, CELL_TYPE_BOOLEAN, CELL_TYPE_BLANK, CELL_TYPE_ERROR.
+	*/
+	private int cellType = Cell.CELL_TYPE_BLANK;
+
+	/**
+	Whether the cell contains a formula.
+	*/
+	private boolean isFormula = false;
+
+	/**
+	Whether the cell is formatted as a date.
+	*/
+	private boolean isDateFormatted = false;
+
+	/**
+	Whether the workbook uses the 1904 date system.
+	*/
+	private boolean use1904Dates = false;
+
+	/**
+	Cell value text from the XML, which is converted for numeric and boolean cells.
+	*/
+	private String text = null;
+
+	/**
+	Return the boolean value of the cell.
+	@return the boolean value of the cell
+	*/
+	boolean getBooleanValue () {
+		return "1".equals(this.text) || "true".equalsIgnoreCase(this.text);
+	}
+
+	/**
+	Return the cell type.
+	@return the cell type, one of Cell.CELL_TYPE_* other than formula
+	*/
+	int getCellType () {
+		return this.cellType;
+	}
+
+	/**
+	Return the date value of a numeric cell.
+	@return the date value of a numeric cell, or null if not a valid Excel date
+	*/
+	Date getDateValue () {
+		double value = getNumericValue();
+		if ( !DateUtil.isValidExcelDate(value) ) {
+			return null;
+		}
+		return DateUtil.getJavaDate(value, this.use1904Dates);
+	}
+
+	/**
+	Return the numeric value of the cell.
+	@return the numeric value of the cell, or NaN if the value cannot be parsed
+	*/
+	double getNumericValue () {
+		try {
+			return Double.parseDouble(this.text);
+		}
+		catch ( Exception e ) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	Return the string value of the cell.
+	@return the string value of the cell, "" if blank
+	*/
+	String getStringValue () {
+		if ( this.text == null ) {
+			return "";
+		}
+		return this.text;
+	}
+
+	/**
+	Indicate whether the cell is numeric and formatted as a date, consistent with DateUtil.isCellDateFormatted().
+	@return true if the cell is a date
+	*/
+	boolean isDateFormatted () {
+		return (this.cellType == Cell.CELL_TYPE_NUMERIC) && this.isDateFormatted &&
+			DateUtil.isValidExcelDate(getNumericValue());
+	}
+
+	/**
+	Return the cell value, as used by ReadTableFromExcel_Command.setTableFieldFromCellValue().
+	@return String for a string cell, Date for a numeric cell formatted as a date, Double for other numeric cells,
+	Boolean for a boolean cell, or null for blank and error cells
+	*/
+	Object getValue () {
+		switch ( this.cellType ) {
+			case Cell.CELL_TYPE_STRING:
+				return getStringValue();
+			case Cell.CELL_TYPE_NUMERIC:
+				if ( isDateFormatted() ) {
+					return getDateValue();
+				}
+				return Double.valueOf(getNumericValue());
+			case Cell.CELL_TYPE_BOOLEAN:
+				return Boolean.valueOf(getBooleanValue());
+			default:
+				return null;
+		}
+	}
+
+	/**
+	Indicate whether the cell contains a formula.
+	@return true if the cell contains a formula
+	*/
+	boolean isFormula () {
+		return this.isFormula;
+	}
+
+	/**
+	Return the cell as a string, consistent with the in-memory cell toString().
+	@return the cell as a string
+	*/
+	public String toString () {
+		switch ( this.cellType ) {
+			case Cell.CELL_TYPE_NUMERIC:
+				if ( isDateFormatted() ) {
+					return new SimpleDateFormat("dd-MMM-yyyy").format(getDateValue());
+				}
+				return "" + getNumericValue();
+			case Cell.CELL_TYPE_BOOLEAN:
+				return getBooleanValue() ? "TRUE" : "FALSE";
+			case Cell.CELL_TYPE_BLANK:
+				return "";
+			default:
+				return getStringValue();
+		}
+	}
+}
+
+/**
+Handler that is called for each row that is read.
+*/
+interface RowHandler
+{
+	/**
+	Handle a row from the worksheet.
+	Rows that are not in the worksheet XML (no cells have been defined) are not passed to the handler.
+	@param row row number (0+)
+	@param firstColumnCell the cell in the first column of the worksheet (column A),
+	used to check for comments, or null if the cell is not defined
+	@param cells the cells for the requested columns,
+	with null for cells that are not defined and blank cells for cells that are defined with no value
+	@return true to continue reading, false to stop reading
+	@exception Exception if an error occurs processing the row
+	*/
+	boolean handleRow ( int row, EventCell firstColumnCell, EventCell [] cells ) throws Exception;
+}
+
+/**
+Exception used to stop parsing when the requested rows have been read.
+*/
+private static class StopParsingException extends SAXException
+{
+	private static final long serialVersionUID = 1L;
+
+	StopParsingException () {
+		super("Stop parsing");
+	}
+}
+
+/**
+Workbook file that is read.
+*/
+private String workbookFile = null;
+
+/**
+Package for the workbook file.
+*/
+private OPCPackage pkg = null;
+
+/**
+Reader for the workbook parts.
+*/
+private XSSFReader xssfReader = null;
+
+/**
+Shared strings for the workbook, read when needed.
+*/
+private ReadOnlySharedStringsTable sharedStrings = null;
+
+/**
+Sheet names and relationship identifiers, in workbook order.
+*/
+private Map<String,String> sheetRelIdMap = new LinkedHashMap<>();
+
+/**
+Defined names (named ranges) and the formula that they refer to.
+*/
+private Map<String,String> definedNameMap = new HashMap<>();
+
+/**
+Whether each cell style (by index in cellXfs) is a date format.
+*/
+private List<Boolean> styleIsDateList = new ArrayList<>();
+
+/**
+Whether the workbook uses the 1904 date system.
+*/
+private boolean use1904Dates = false;
+
+/**
+Open a workbook file for reading.
+@param workbookFile path to the workbook file (*.xlsx)
+@exception IOException if the file cannot be opened
+@exception SAXException if the workbook XML cannot be parsed
+@exception OpenXML4JException if the file is not a valid *.xlsx file
+*/
+ExcelSheetEventReader ( String workbookFile )
+throws IOException, SAXException, OpenXML4JException {
+	this.workbookFile = workbookFile;
+	this.pkg = OPCPackage.open(workbookFile, PackageAccess.READ);
+	try {
+		this.xssfReader = new XSSFReader(this.pkg);
+		readWorkbook();
+		readStyles();
+	}
+	catch ( IOException | SAXException | OpenXML4JException | RuntimeException e ) {
+		close();
+		throw e;
+	}
+}
+
+/**
+Close the workbook file.
+The file is not modified.
+*/
+void close () {
+	if ( this.pkg != null ) {
+		// Revert rather than close because the package is read-only.
+		this.pkg.revert();
+		this.pkg = null;
+	}
+}
+
+/**
+Create a namespace-aware XML reader.
+@return a new XML reader
+@exception SAXException if the reader cannot be created
+*/
+private XMLReader createXMLReader ()
+throws SAXException {
+	SAXParserFactory factory = SAXParserFactory.newInstance();
+	factory.setNamespaceAware(true);
+	try {
+		return factory.newSAXParser().getXMLReader();
+	}
+	catch ( ParserConfigurationException e ) {
+		throw new SAXException(e);
+	}
+}
+
+/**
+Get the area to read, consistent with ExcelToolkit.getAreaReference().
+@param sheetName name of the sheet, or null or empty for the first sheet
+@param excelAddress Excel address range (e.g., A1:D10 or $A1:$D10 or variant)
+@param excelNamedRange a named range
+@param excelTableName a table name, treated as named range
+@return the area to read, or null if the area cannot be determined
+@exception IOException if the worksheet cannot be read
+@exception SAXException if the worksheet XML cannot be parsed
+@exception OpenXML4JException if the worksheet part cannot be read
+*/
+AreaReference getAreaReference ( String sheetName, String excelAddress, String excelNamedRange, String excelTableName )
+throws IOException, SAXException, OpenXML4JException {
+	String routine = getClass().getSimpleName() + ".getAreaReference";
+	if ( (excelTableName != null) && !excelTableName.isEmpty() ) {
+		// Table name takes precedence as range name.
+		excelNamedRange = excelTableName;
+	}
+	if ( (excelAddress != null) && !excelAddress.isEmpty() ) {
+		return new AreaReference(excelAddress);
+	}
+	else if ( (excelNamedRange != null) && !excelNamedRange.isEmpty() ) {
+		String formula = null;
+		for ( Map.Entry<String,String> entry : this.definedNameMap.entrySet() ) {
+			if ( entry.getKey().equalsIgnoreCase(excelNamedRange) ) {
+				formula = entry.getValue();
+				break;
+			}
+		}
+		if ( formula == null ) {
+			Message.printWarning(3, routine, "Unable to find named range \"" + excelNamedRange + "\" in workbook." );
+			return null;
+		}
+		AreaReference [] arefs = AreaReference.generateContiguous(formula);
+		// Can only handle one area.
+		if ( arefs.length != 1 ) {
+			return null;
+		}
+		return arefs[0];
+	}
+	else {
+		// Read the entire sheet, using the dimension that is saved at the top of the worksheet XML.
+		final String [] dimension = new String[1];
+		InputStream in = getSheetInputStream(sheetName);
+		if ( in == null ) {
+			return null;
+		}
+		try {
+			XMLReader xmlReader = createXMLReader();
+			xmlReader.setContentHandler(new DefaultHandler() {
+				@Override
+				public void startElement ( String uri, String localName, String qName, Attributes attributes )
+				throws SAXException {
+					if ( localName.equals("dimension") ) {
+						dimension[0] = attributes.getValue("ref");
+						throw new StopParsingException();
+					}
+					else if ( localName.equals("sheetData") ) {
+						// Dimension is before the data so is not in the file.
+						throw new StopParsingException();
+					}
+				}
+			});
+			xmlReader.parse(new InputSource(in));
+		}
+		catch ( StopParsingException e ) {
+			// Expected.
+		}
+		finally {
+			in.close();
+		}
+		if ( dimension[0] == null ) {
+			Message.printWarning(3, routine, "Worksheet does not include the dimension - cannot determine the area to read." );
+			return null;
+		}
+		return new AreaReference(dimension[0]);
+	}
+}
+
+/**
+Get the input stream for a worksheet.
+@param sheetName name of the sheet, or null or empty for the first sheet
+@return the input stream for the worksheet XML, or null if the sheet is not found
+*/
+private InputStream getSheetInputStream ( String sheetName )
+throws IOException, OpenXML4JException {
+	String relId = null;
+	if ( (sheetName == null) || sheetName.isEmpty() ) {
+		for ( String id : this.sheetRelIdMap.values() ) {
+			relId = id;
+			break;
+		}
+	}
+	else {
+		relId = this.sheetRelIdMap.get(sheetName);
+	}
+	if ( relId == null ) {
+		return null;
+	}
+	return this.xssfReader.getSheet(relId);
+}
+
+/**
+Indicate whether the workbook includes a sheet.
+@param sheetName name of the sheet, or null or empty for the first sheet
+@return true if the sheet is in the workbook
+*/
+boolean hasSheet ( String sheetName ) {
+	if ( (sheetName == null) || sheetName.isEmpty() ) {
+		return !this.sheetRelIdMap.isEmpty();
+	}
+	return this.sheetRelIdMap.containsKey(sheetName);
+}
+
+/**
+Parse the cell reference column from a cell reference, for example "AB12".
+@param ref cell reference
+@return the column (0+), or -1 if the reference does not start with a column
+*/
+private static int parseColumn ( String ref ) {
+	int col = 0;
+	int len = ref.length();
+	int i = 0;
+	for ( ; i < len; i++ ) {
+		char c = ref.charAt(i);
+		if ( (c >= 'A') && (c <= 'Z') ) {
+			col = col*26 + (c - 'A' + 1);
+		}
+		else if ( c != '$' ) {
+			break;
+		}
+	}
+	return col - 1;
+}
+
+/**
+Read rows from a worksheet, passing the rows to the handler.
+@param sheetName name of the sheet, or null or empty for the first sheet
+@param rowStart first row (0+) to read
+@param rowEnd last row (0+) to read
+@param colStart first column (0+) to read
+@param colEnd last column (0+) to read
+@param handler handler that is called for each row
+@exception Exception if an error occurs reading the worksheet or processing the rows
+*/
+void readRows ( String sheetName, final int rowStart, final int rowEnd, final int colStart, final int colEnd,
+	final RowHandler handler )
+throws Exception {
+	String routine = getClass().getSimpleName() + ".readRows";
+	InputStream in = getSheetInputStream(sheetName);
+	if ( in == null ) {
+		throw new IOException ( "Workbook \"" + this.workbookFile + "\" does not include worksheet \"" + sheetName + "\"." );
+	}
+	if ( this.sharedStrings == null ) {
+		this.sharedStrings = new ReadOnlySharedStringsTable(this.pkg);
+	}
+	final ReadOnlySharedStringsTable strings = this.sharedStrings;
+	final List<Boolean> styleIsDate = this.styleIsDateList;
+	final boolean use1904Dates = this.use1904Dates;
+	// Exception from the handler, which is rethrown after parsing stops.
+	final Exception [] handlerException = new Exception[1];
+	try {
+		XMLReader xmlReader = createXMLReader();
+		xmlReader.setContentHandler(new DefaultHandler() {
+			// Current row (0+).
+			private int row = -1;
+			// Whether the current row is in the requested rows.
+			private boolean inRow = false;
+			// Cells for the current row.
+			private EventCell [] cells = null;
+			// Cell in column A for the current row.
+			private EventCell firstColumnCell = null;
+			// Current column (0+).
+			private int col = -1;
+			// Current cell, or null if not in the requested columns.
+			private EventCell cell = null;
+			// Cell type attribute for the current cell.
+			private String cellTypeAttribute = null;
+			// Whether inside a value or inline string text element.
+			private boolean inValue = false;
+			// Text for the value.
+			private StringBuilder value = new StringBuilder();
+
+			@Override
+			public void startElement ( String uri, String localName, String qName, Attributes attributes )
+			throws SAXException {
+				if ( localName.equals("row") ) {
+					String r = attributes.getValue("r");
+					if ( r != null ) {
+						this.row = Integer.parseInt(r) - 1;
+					}
+					else {
+						++this.row;
+					}
+					if ( this.row > rowEnd ) {
+						throw new StopParsingException();
+					}
+					this.inRow = (this.row >= rowStart);
+					this.col = -1;
+					if ( this.inRow ) {
+						this.cells = new EventCell[colEnd - colStart + 1];
+						this.firstColumnCell = null;
+					}
+				}
+				else if ( this.inRow && localName.equals("c") ) {
+					String r = attributes.getValue("r");
+					if ( r != null ) {
+						this.col = parseColumn(r);
+					}
+					else {
+						++this.col;
+					}
+					this.cell = null;
+					if ( ((this.col >= colStart) && (this.col <= colEnd)) || (this.col == 0) ) {
+						this.cell = new EventCell();
+						this.cell.use1904Dates = use1904Dates;
+						this.cellTypeAttribute = attributes.getValue("t");
+						String s = attributes.getValue("s");
+						if ( s != null ) {
+							int styleIndex = Integer.parseInt(s);
+							if ( (styleIndex >= 0) && (styleIndex < styleIsDate.size()) ) {
+								this.cell.isDateFormatted = styleIsDate.get(styleIndex);
+							}
+						}
+						this.value.setLength(0);
+					}
+				}
+				else if ( (this.cell != null) && (localName.equals("v") || localName.equals("t")) ) {
+					// Value, or inline string text, which may be split into runs.
+					this.inValue = true;
+				}
+				else if ( (this.cell != null) && localName.equals("f") ) {
+					this.cell.isFormula = true;
+				}
+			}
+
+			@Override
+			public void endElement ( String uri, String localName, String qName )
+			throws SAXException {
+				if ( localName.equals("v") || localName.equals("t") ) {
+					this.inValue = false;
+				}
+				else if ( (this.cell != null) && localName.equals("c") ) {
+					setCellValue();
+					if ( (this.col >= colStart) && (this.col <= colEnd) ) {
+						this.cells[this.col - colStart] = this.cell;
+					}
+					if ( this.col == 0 ) {
+						this.firstColumnCell = this.cell;
+					}
+					this.cell = null;
+				}
+				else if ( this.inRow && localName.equals("row") ) {
+					boolean doContinue = true;
+					try {
+						doContinue = handler.handleRow(this.row, this.firstColumnCell, this.cells);
+					}
+					catch ( Exception e ) {
+						handlerException[0] = e;
+						doContinue = false;
+					}
+					this.inRow = false;
+					this.cells = null;
+					if ( !doContinue ) {
+						throw new StopParsingException();
+					}
+				}
+			}
+
+			@Override
+			public void characters ( char [] ch, int start, int length )
+			throws SAXException {
+				if ( this.inValue ) {
+					this.value.append(ch, start, length);
+				}
+			}
+
+			/**
+			Set the cell type and value from the XML cell type attribute and value text.
+			*/
+			private void setCellValue () {
+				String text = this.value.toString();
+				String t = this.cellTypeAttribute;
+				if ( "s".equals(t) ) {
+					this.cell.cellType = Cell.CELL_TYPE_STRING;
+					try {
+						this.cell.text = strings.getEntryAt(Integer.parseInt(text.trim()));
+					}
+					catch ( Exception e ) {
+						this.cell.cellType = Cell.CELL_TYPE_ERROR;
+						this.cell.text = text;
+					}
+				}
+				else if ( "inlineStr".equals(t) || "str".equals(t) || "d".equals(t) ) {
+					this.cell.cellType = Cell.CELL_TYPE_STRING;
+					this.cell.text = text;
+				}
+				else if ( "b".equals(t) ) {
+					this.cell.cellType = Cell.CELL_TYPE_BOOLEAN;
+					this.cell.text = text;
+				}
+				else if ( "e".equals(t) ) {
+					this.cell.cellType = Cell.CELL_TYPE_ERROR;
+					this.cell.text = text;
+				}
+				else if ( text.isEmpty() ) {
+					// Cell with formatting but no value, or formula without a cached value.
+					this.cell.cellType = Cell.CELL_TYPE_BLANK;
+				}
+				else {
+					this.cell.cellType = Cell.CELL_TYPE_NUMERIC;
+					this.cell.text = text;
+				}
+			}
+		});
+		xmlReader.parse(new InputSource(in));
+	}
+	catch ( StopParsingException e ) {
+		// Expected when the last requested row has been read or the handler stopped reading.
+		if ( Message.isDebugOn ) {
+			Message.printDebug(1, routine, "Stopped reading worksheet after requested rows." );
+		}
+	}
+	finally {
+		in.close();
+	}
+	if ( handlerException[0] != null ) {
+		throw handlerException[0];
+	}
+}
+
+/**
+Read the styles to determine which cell styles are date formats, consistent with DateUtil.isCellDateFormatted().
+*/
+private void readStyles ()
+throws IOException, SAXException, OpenXML4JException {
+	InputStream in = null;
+	try {
+		in = this.xssfReader.getStylesData();
+	}
+	catch ( Exception e ) {
+		// Workbook does not have styles so no cells are dates.
+		return;
+	}
+	final Map<Integer,String> numFmtMap = new HashMap<>();
+	final List<Integer> xfNumFmtList = new ArrayList<>();
+	try {
+		XMLReader xmlReader = createXMLReader();
+		xmlReader.setContentHandler(new DefaultHandler() {
+			private boolean inCellXfs = false;
+
+			@Override
+			public void startElement ( String uri, String localName, String qName, Attributes attributes ) {
+				if ( localName.equals("numFmt") ) {
+					try {
+						numFmtMap.put(Integer.valueOf(attributes.getValue("numFmtId")), attributes.getValue("formatCode"));
+					}
+					catch ( NumberFormatException e ) {
+						// Ignore.
+					}
+				}
+				else if ( localName.equals("cellXfs") ) {
+					this.inCellXfs = true;
+				}
+				else if ( this.inCellXfs && localName.equals("xf") ) {
+					String numFmtId = attributes.getValue("numFmtId");
+					int id = 0;
+					try {
+						if ( numFmtId != null ) {
+							id = Integer.parseInt(numFmtId);
+						}
+					}
+					catch ( NumberFormatException e ) {
+						// Use general format.
+					}
+					xfNumFmtList.add(Integer.valueOf(id));
+				}
+			}
+
+			@Override
+			public void endElement ( String uri, String localName, String qName ) {
+				if ( localName.equals("cellXfs") ) {
+					this.inCellXfs = false;
+				}
+			}
+		});
+		xmlReader.parse(new InputSource(in));
+	}
+	finally {
+		in.close();
+	}
+	for ( Integer id : xfNumFmtList ) {
+		String format = numFmtMap.get(id);
+		if ( format == null ) {
+			format = BuiltinFormats.getBuiltinFormat(id);
+		}
+		this.styleIsDateList.add(Boolean.valueOf((format != null) && DateUtil.isADateFormat(id, format)));
+	}
+}
+
+/**
+Read the workbook to determine the sheets, defined names, and date system.
+*/
+private void readWorkbook ()
+throws IOException, SAXException, OpenXML4JException {
+	InputStream in = this.xssfReader.getWorkbookData();
+	try {
+		XMLReader xmlReader = createXMLReader();
+		xmlReader.setContentHandler(new DefaultHandler() {
+			private String definedName = null;
+			private StringBuilder text = new StringBuilder();
+
+			@Override
+			public void startElement ( String uri, String localName, String qName, Attributes attributes ) {
+				if ( localName.equals("sheet") ) {
+					sheetRelIdMap.put(attributes.getValue("name"), attributes.getValue(RELATIONSHIPS_NAMESPACE, "id"));
+				}
+				else if ( localName.equals("workbookPr") ) {
+					String date1904 = attributes.getValue("date1904");
+					use1904Dates = "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+				}
+				else if ( localName.equals("definedName") ) {
+					this.definedName = attributes.getValue("name");
+					this.text.setLength(0);
+				}
+			}
+
+			@Override
+			public void endElement ( String uri, String localName, String qName ) {
+				if ( localName.equals("definedName") ) {
+					if ( this.definedName != null ) {
+						definedNameMap.put(this.definedName, this.text.toString().trim());
+					}
+					this.definedName = null;
+				}
+			}
+
+			@Override
+			public void characters ( char [] ch, int start, int length ) {
+				if ( this.definedName != null ) {
+					this.text.append(ch, start, length);
+				}
+			}
+		});
+		xmlReader.parse(new InputSource(in));
+	}
+	finally {
+		in.close();
+	}
+}
+
+}
@@ -28,6 +28,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -55,6 +56,8 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.AreaReference;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import RTi.Util.Message.Message;
 import RTi.Util.String.StringFilterList;
@@ -72,6 +75,12 @@ Toolkit that contains useful Excel methods, for use with Apache POI Excel packag
 public class ExcelToolkit
 {
 
+/**
+Default number of rows kept in memory when writing with a streaming workbook.
+Rows before the window are written to a temporary file and cannot be accessed.
+*/
+public static final int DEFAULT_STREAMING_ROW_ACCESS_WINDOW_SIZE = 100;
+
 /**
 Construct an Excel toolkit instance.
 Once an instance is created, its methods can be called to manipulate Excel workbook, worksheet, and cell objects.
@@ -431,6 +440,81 @@ public String createFormatForFloat ( int precision ) {
     return format;
 }
 
+/**
+Create a streaming workbook from a new *.xlsx workbook, used to write large amounts of data to a worksheet without
+keeping all of the rows in memory.  Rows must be written in increasing order.
+Rows that are outside of the row access window are written to a temporary file and cannot be accessed,
+so comments and styles must be set on cells when the cells are written.
+Streaming is only useful for a new workbook:  an existing workbook must be fully read into memory before it can be
+wrapped in a streaming workbook, and the POI streaming workbook replaces the rows of all worksheets when written.
+Therefore a streaming workbook is not created if any worksheet contains rows.
+The streaming workbook should be written with write() and then dispose() should be called to remove temporary files.
+@param wb the new workbook to write, containing only empty worksheets
+@param rowAccessWindowSize the number of rows to keep in memory
+@param problems list of problems explaining why a streaming workbook could not be created
+@return a streaming workbook, or null if a streaming workbook cannot be used for the workbook
+*/
+public SXSSFWorkbook createStreamingWorkbook ( Workbook wb, int rowAccessWindowSize, List<String> problems ) {
+	if ( !(wb instanceof XSSFWorkbook) ) {
+		problems.add ( "Streaming output is only supported for *.xlsx workbooks." );
+		return null;
+	}
+	for ( int iSheet = 0; iSheet < wb.getNumberOfSheets(); iSheet++ ) {
+		Sheet sheet = wb.getSheetAt(iSheet);
+		if ( sheet.getPhysicalNumberOfRows() > 0 ) {
+			problems.add ( "Streaming output is only used for a new workbook but worksheet \"" + sheet.getSheetName() +
+				"\" contains rows." );
+			return null;
+		}
+	}
+	return new SXSSFWorkbook((XSSFWorkbook)wb, rowAccessWindowSize);
+}
+
+/**
+Estimate the number of characters needed to display a cell value, used to set column widths
+when the cells are not available to auto-size the column, such as when writing a streaming workbook.
+@param cell cell containing a numeric, string, or blank value
+@param precision number of digits after the decimal, for numeric values
+@return the estimated number of characters
+*/
+public int estimateCellTextLength ( Cell cell, int precision ) {
+	int cellType = cell.getCellType();
+	if ( cellType == Cell.CELL_TYPE_NUMERIC ) {
+		return estimateNumberTextLength ( cell.getNumericCellValue(), precision );
+	}
+	else if ( cellType == Cell.CELL_TYPE_STRING ) {
+		return cell.getStringCellValue().length();
+	}
+	else {
+		return 0;
+	}
+}
+
+/**
+Estimate the number of characters needed to display a number, used to set column widths
+when the cells are not available to auto-size the column, such as when writing a streaming workbook.
+@param value number to display
+@param precision number of digits after the decimal
+@return the estimated number of characters
+*/
+public int estimateNumberTextLength ( double value, int precision ) {
+	if ( Double.isNaN(value) || Double.isInfinite(value) ) {
+		return 8;
+	}
+	int length = 1;
+	double absValue = Math.abs(value);
+	if ( absValue >= 10.0 ) {
+		length = (int)Math.log10(absValue) + 1;
+	}
+	if ( value < 0.0 ) {
+		++length;
+	}
+	if ( precision > 0 ) {
+		length += precision + 1;
+	}
+	return length;
+}
+
 //TODO SAM 2014-09-25 evaluate whether all values should be checked to determine column type.
 /**
 Create DataTable table columns from the first valid cell for each column.  This DOES NOT check the types for all rows in a column.
@@ -721,6 +805,34 @@ protected Object [] createTableColumns ( DataTable table, Workbook wb, Sheet she
     return o;
 }
 
+/**
+Create DataTable table columns for a worksheet that is read using the event model.
+The column types are determined by the caller, for example using getTableColumnTypeFromCell() on data rows.
+@param table new table that will have columns added
+@param columnNames names of the columns to create
+@param columnTypes table column types (TableField.DATA_TYPE_*), or -1 if the type could not be determined,
+in which case a string column is created
+@param precisionForFloats number of digits after decimal for double columns
+*/
+protected void createTableColumns ( DataTable table, String [] columnNames, int [] columnTypes, int precisionForFloats ) {
+    String routine = getClass().getSimpleName() + ".createTableColumns";
+    for ( int iCol = 0; iCol < columnNames.length; iCol++ ) {
+        int columnType = columnTypes[iCol];
+        if ( columnType < 0 ) {
+            // Default is to treat as a string.
+            Message.printStatus(2,routine,"Table column [" + iCol + "] cell type is unknown.  Treating as string.");
+            columnType = TableField.DATA_TYPE_STRING;
+        }
+        Message.printStatus(2,routine,"Creating table column " + columnNames[iCol] + "[" + iCol + "]=" + TableColumnType.valueOf(columnType));
+        if ( columnType == TableField.DATA_TYPE_DOUBLE ) {
+            table.addField ( new TableField(columnType, columnNames[iCol], -1, precisionForFloats), null );
+        }
+        else {
+            table.addField ( new TableField(columnType, columnNames[iCol], -1, -1), null );
+        }
+    }
+}
+
 /**
 Find the column number (0+) by matching the cell contents.
 @param wb workbook object
@@ -908,6 +1020,93 @@ public int getSheetMinColumn ( Sheet sheet ) {
 	return icolMin;
 }
 
+/**
+Get the table column type requested for a column, consistent with createTableColumns().
+@param columnName name of the column
+@param excelDoubleColumns names of columns that should be treated as doubles, or null if none
+@param excelIntegerColumns names of columns that should be treated as integers, or null if none
+@param excelDateTimeColumns names of columns that should be treated as dates, or null if none
+@param excelTextColumns names of columns that should be treated as text, or null if none
+@param readAllAsText if True, treat all data as text values
+@return the requested table column type (TableField.DATA_TYPE_*), or -1 if the type was not requested
+*/
+protected int getRequestedTableColumnType ( String columnName,
+    String [] excelDoubleColumns, String [] excelIntegerColumns, String [] excelDateTimeColumns, String [] excelTextColumns,
+    boolean readAllAsText ) {
+    if ( readAllAsText ) {
+        return TableField.DATA_TYPE_STRING;
+    }
+    String [][] requestedColumns = { excelDoubleColumns, excelIntegerColumns, excelDateTimeColumns, excelTextColumns };
+    int [] requestedTypes = { TableField.DATA_TYPE_DOUBLE, TableField.DATA_TYPE_INT, TableField.DATA_TYPE_DATETIME, TableField.DATA_TYPE_STRING };
+    for ( int iType = 0; iType < requestedTypes.length; iType++ ) {
+        if ( requestedColumns[iType] != null ) {
+            for ( String requestedColumn : requestedColumns[iType] ) {
+                if ( columnName.equalsIgnoreCase(requestedColumn) ) {
+                    return requestedTypes[iType];
+                }
+            }
+        }
+    }
+    return -1;
+}
+
+/**
+Get the table column name from a worksheet cell that is read using the event model, consistent with createTableColumns().
+@param cell the heading cell, or null if not defined
+@param columnIndex the column index (0+) relative to the start of the area, used for the default name
+@return the column name
+*/
+protected String getTableColumnNameFromCell ( ExcelSheetEventReader.EventCell cell, int columnIndex ) {
+    String columnName;
+    if ( (cell == null) || (cell.getCellType() == Cell.CELL_TYPE_BLANK) || (cell.getCellType() == Cell.CELL_TYPE_ERROR) ) {
+        // Default.
+        columnName = "Column" + (columnIndex + 1);
+    }
+    else if ( (cell.getCellType() == Cell.CELL_TYPE_NUMERIC) && !cell.isDateFormatted() ) {
+        // Assume column headings are integers.
+        // Double to integer - use an offset to help make sure integer value is correct.
+        double cellValueDouble = cell.getNumericValue();
+        if ( cellValueDouble >= 0.0 ) {
+            columnName = "" + Integer.valueOf((int)(cellValueDouble + .0001));
+        }
+        else {
+            columnName = "" + Integer.valueOf((int)(cellValueDouble - .0001));
+        }
+    }
+    else {
+        columnName = "" + cell;
+    }
+    // Make sure there are no random whitespace characters that will complicate column mapping.
+    return columnName.trim();
+}
+
+/**
+Get the table column type from a worksheet cell that is read using the event model, consistent with createTableColumns().
+@param cell the data cell, or null if not defined
+@return the table column type (TableField.DATA_TYPE_*), or -1 if the cell is blank or an error and the type cannot be determined
+*/
+protected int getTableColumnTypeFromCell ( ExcelSheetEventReader.EventCell cell ) {
+    if ( cell == null ) {
+        return -1;
+    }
+    int cellType = cell.getCellType();
+    if ( cellType == Cell.CELL_TYPE_STRING ) {
+        return TableField.DATA_TYPE_STRING;
+    }
+    else if ( cellType == Cell.CELL_TYPE_NUMERIC ) {
+        if ( cell.isDateFormatted() ) {
+            return TableField.DATA_TYPE_DATE;
+        }
+        return TableField.DATA_TYPE_DOUBLE;
+    }
+    else if ( cellType == Cell.CELL_TYPE_BOOLEAN ) {
+        // Use integer for boolean.
+        return TableField.DATA_TYPE_INT;
+    }
+    // Blank or error - will have to keep evaluating.
+    return -1;
+}
+
 /**
 Is the row a comment?
 @param sheet sheet being read
@@ -923,20 +1122,48 @@ public boolean isRowComment ( Sheet sheet, int iRow, String comment ) {
     if ( dataRow != null ) {
     	Cell cell = dataRow.getCell(0);
     	if ( (cell != null) && (cell.getCellType() == Cell.CELL_TYPE_STRING) ) {
-        	String cellValue = cell.getStringCellValue();
-        	if ( (cellValue != null) && (cellValue.length() >= comment.length()) &&
-            	cellValue.substring(0,comment.length()).equals(comment) ) {
-        		// The cell contains a string that is at least as long as the comment string
-        		// and the first part of the string matches the comment string.
-        		// This allows, for example, '#' to be specified as the comment indicator.
-            	return true;
-        	}
+        	return isRowCommentValue ( cell.getStringCellValue(), comment );
     	}
     }
     // Comment indicator was not matched so not a comment.
     return false;
 }
 
+/**
+Is the row a comment, for a worksheet that is read using the event model?
+@param firstColumnCell the cell in the first column of the worksheet, or null if not defined
+@param comment if not null, character at start of row that indicates comment
+*/
+protected boolean isRowComment ( ExcelSheetEventReader.EventCell firstColumnCell, String comment ) {
+    if ( (comment == null) || comment.isEmpty() ) {
+    	// No comment indicator provided so the row is not a comment.
+        return false;
+    }
+    if ( (firstColumnCell != null) && (firstColumnCell.getCellType() == Cell.CELL_TYPE_STRING) ) {
+        // Same check as for the in-memory cell.
+        return isRowCommentValue ( firstColumnCell.getStringValue(), comment );
+    }
+    return false;
+}
+
+/**
+Is the string value of the first column cell a comment?
+This is used for both the in-memory and event model cells.
+@param cellValue the string value of the cell in the first column
+@param comment character(s) at start of row that indicate a comment
+*/
+private boolean isRowCommentValue ( String cellValue, String comment ) {
+	if ( (cellValue != null) && (cellValue.length() >= comment.length()) &&
+    	cellValue.substring(0,comment.length()).equals(comment) ) {
+		// The cell contains a string that is at least as long as the comment string
+		// and the first part of the string matches the comment string.
+		// This allows, for example, '#' to be specified as the comment indicator.
+    	return true;
+	}
+	// Comment indicator was not matched so not a comment.
+	return false;
+}
+
 /**
 Look up an Excel cell type, for messages.
 @param cellType cell type from Apache POI Cell.getCellType()
@@ -2261,6 +2488,19 @@ public Cell setCellValue ( Sheet sheet, int row, int col, String s ) {
 	return wbCell;
 }
 
+/**
+Set a column width from the number of characters in the longest value, similar to auto-sizing the column.
+This is used when the cells are not available to auto-size the column, such as when writing a streaming workbook.
+@param sheet worksheet to update
+@param col column (0+)
+@param textLength number of characters in the longest value in the column
+*/
+public void setColumnWidthFromTextLength ( Sheet sheet, int col, int textLength ) {
+	// Width is in 1/256 of a character, with a small margin and a maximum of 255 characters.
+	int width = Math.min(textLength + 2, 255);
+	sheet.setColumnWidth(col, width*256);
+}
+
 /**
 Write a list of values to table cells in an Excel worksheet.
 @param table the table to output
@@ -2280,10 +2520,13 @@ throws FileNotFoundException, IOException {
 
     Workbook wb = null;
     InputStream inp = null;
+    boolean pinned = false; // Whether the open workbook is pinned in the cache.
     try {
         // See if an open workbook by the same name exists.
-        WorkbookFileMetadata wbMeta = ExcelUtil.getOpenWorkbook(workbookFile);
+        // Pin the open workbook so that it is not evicted from the cache while it is modified.
+        WorkbookFileMetadata wbMeta = ExcelUtil.pinOpenWorkbook(workbookFile);
         if ( wbMeta != null ) {
+        	pinned = true;
         	wb = wbMeta.getWorkbook();
         }
         if ( wb == null ) {
@@ -2635,6 +2878,9 @@ throws FileNotFoundException, IOException {
         Message.printWarning(3,routine,e);
     }
     finally {
+        if ( pinned ) {
+            ExcelUtil.unpinOpenWorkbook(workbookFile);
+        }
         // Now write the workbook and close.  If keeping open skip because it will be written by a later command.
         if ( keepOpen ) {
             // Save the open workbook for other commands to use.
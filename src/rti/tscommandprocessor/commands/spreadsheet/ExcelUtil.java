@@ -23,87 +23,304 @@ NoticeEnd */
 
 package rti.tscommandprocessor.commands.spreadsheet;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
 
 import RTi.Util.Message.Message;
 
 /**
 Utility package for Excel.  This class contains static methods.
 Use the ExcelToolkit class for most other methods that don't require static data.
+<p>
+Open workbooks (for example from commands with KeepOpen=True) are kept in a cache so that Excel manipulations
+can span multiple commands.  The cache is shared by all processors in the JVM and is synchronized.
+The cache is bounded by the number of workbooks and the estimated memory used by the workbooks.
+When a limit is exceeded, the least recently used workbooks that are not pinned are evicted.
+Only workbooks opened to read ("r" mode) are evicted, since they can be read again from the file.
+Workbooks opened to write ("w" mode) may have changes that have not been written and eviction never writes a file,
+because the commands control whether and where the output file is written (for example WriteFile=False),
+so these workbooks remain in the cache until removed, even if the cache limits are exceeded.
+An evicted workbook is read again from the file the next time it is requested, so evictions are transparent to commands.
+Commands that modify an open workbook use pinOpenWorkbook() to prevent the workbook from being evicted while it is modified,
+and then call setOpenWorkbook() with "w" mode if the workbook is kept open.
 */
 public class ExcelUtil
 {
 
 /**
-Static list of open Excel files, to allow Excel manipulations to span multiple commands.
+Default maximum number of open workbooks in the cache.
 */
-private static List<WorkbookFileMetadata> openWorkbooks = new ArrayList<>();
+public static final int DEFAULT_MAX_OPEN_WORKBOOKS = 20;
+
+/**
+Estimated in-memory bytes for each byte of a workbook file, used to estimate the memory used by a workbook.
+Workbook files are compressed and the in-memory cell objects are much larger than the file.
+*/
+private static final long ESTIMATED_MEMORY_BYTES_PER_FILE_BYTE = 20;
+
+/**
+Minimum estimated memory for a workbook, used for new workbooks that have not been written to a file.
+*/
+private static final long MINIMUM_ESTIMATED_MEMORY_BYTES = 1024*1024;
+
+/**
+Lock for the open workbook cache data.
+*/
+private static final Object openWorkbooksLock = new Object();
+
+/**
+Open Excel workbooks, using key from getOpenWorkbookKey(), in least recently used order.
+*/
+private static Map<String,WorkbookFileMetadata> openWorkbooks = new LinkedHashMap<>(16, 0.75f, true);
+
+/**
+Workbooks that were evicted from the cache and can be read again from the file, using key from getOpenWorkbookKey().
+The value is the mode of the evicted workbook.
+*/
+private static Map<String,String> evictedWorkbookModes = new HashMap<>();
+
+/**
+Maximum number of open workbooks in the cache.
+*/
+private static int maxOpenWorkbooks = DEFAULT_MAX_OPEN_WORKBOOKS;
+
+/**
+Maximum estimated memory in bytes for open workbooks in the cache, by default 1/4 of the maximum heap.
+*/
+private static long maxOpenWorkbookMemoryBytes = Runtime.getRuntime().maxMemory()/4;
+
+/**
+Total estimated memory in bytes for open workbooks in the cache.
+*/
+private static long openWorkbookMemoryBytes = 0;
+
+/**
+Cache metrics.
+*/
+private static long hitCount = 0;
+private static long missCount = 0;
+private static long evictionCount = 0;
+private static long reloadCount = 0;
+
+/**
+Evict the least recently used workbooks that are not pinned until the cache is within limits.
+Workbooks opened to write are not evicted because they may have changes that have not been written.
+Must be called while holding openWorkbooksLock.
+@param keepKey key for a workbook that should not be evicted (the workbook that was just added)
+*/
+private static void evictOpenWorkbooks ( String keepKey ) {
+	String routine = ExcelUtil.class.getSimpleName() + ".evictOpenWorkbooks";
+	if ( (openWorkbooks.size() <= maxOpenWorkbooks) && (openWorkbookMemoryBytes <= maxOpenWorkbookMemoryBytes) ) {
+		return;
+	}
+	// Copy the entries because the map is modified, eldest first.
+	List<Map.Entry<String,WorkbookFileMetadata>> entries = new ArrayList<>(openWorkbooks.entrySet());
+	for ( Map.Entry<String,WorkbookFileMetadata> entry : entries ) {
+		if ( (openWorkbooks.size() <= maxOpenWorkbooks) && (openWorkbookMemoryBytes <= maxOpenWorkbookMemoryBytes) ) {
+			break;
+		}
+		String key = entry.getKey();
+		WorkbookFileMetadata m = entry.getValue();
+		if ( key.equals(keepKey) || m.isPinned() || m.getMode().equalsIgnoreCase("w") ) {
+			// Workbooks opened to write are kept because the changes cannot be read again from the file.
+			continue;
+		}
+		openWorkbooks.remove(key);
+		openWorkbookMemoryBytes -= m.getEstimatedMemoryBytes();
+		evictedWorkbookModes.put(key, m.getMode());
+		++evictionCount;
+		Message.printStatus(2, routine, "Evicted workbook \"" + m.getFilename() + "\" (mode \"" + m.getMode() +
+			"\") from the open workbook cache.  It will be read from the file if requested again.");
+	}
+	if ( (openWorkbooks.size() > maxOpenWorkbooks) || (openWorkbookMemoryBytes > maxOpenWorkbookMemoryBytes) ) {
+		Message.printStatus(2, routine, "Open workbook cache exceeds limits because the remaining workbooks are pinned " +
+			"or are open for writing (" + openWorkbooks.size() + " workbooks, estimated " + openWorkbookMemoryBytes + " bytes).");
+	}
+}
+
+/**
+Estimate the memory used by a workbook.
+@param wbfile workbook filename
+@return the estimated memory in bytes
+*/
+private static long estimateMemoryBytes ( String wbfile ) {
+	File f = new File(wbfile);
+	long bytes = 0;
+	if ( f.exists() ) {
+		bytes = f.length()*ESTIMATED_MEMORY_BYTES_PER_FILE_BYTE;
+	}
+	return Math.max(bytes, MINIMUM_ESTIMATED_MEMORY_BYTES);
+}
 
 /**
 Return an open Excel workbook.
+If the workbook was evicted from the cache, it is read again from the file.
 @param wbfile name of workbook file to look up - a case-independent search will be performed.
 Because string comparisons are made, make sure to use the IOUtil.verifyPathForOS method with
 IOUtil.toAbsolutePath method.
 @return the matching Excel workbook or null if a match is not found.
 */
 public static WorkbookFileMetadata getOpenWorkbook ( String wbfile ) {
-	// Replace backslashes in path with forward slashes for comparison.
-	wbfile = wbfile.replace("\\", "/");
-	for ( WorkbookFileMetadata m : openWorkbooks ) {
-		if ( Message.isDebugOn ) {
-			String routine = ExcelUtil.class.getSimpleName() + ".getOpenWorkbook";
-			Message.printStatus(2, routine, "Checking workbook \"" + wbfile + "\" against open workbook \"" + m.getFilename() + "\"");
+	String routine = ExcelUtil.class.getSimpleName() + ".getOpenWorkbook";
+	String key = getOpenWorkbookKey(wbfile);
+	synchronized ( openWorkbooksLock ) {
+		WorkbookFileMetadata m = openWorkbooks.get(key);
+		if ( m != null ) {
+			// Found the workbook in the open workbook cache.
+			++hitCount;
+			return m;
 		}
-		if ( m.getFilename().replace("\\","/").equalsIgnoreCase(wbfile) ) {
-			// Found the workbook in the open workbook list.
+		String mode = evictedWorkbookModes.get(key);
+		if ( mode == null ) {
+			++missCount;
+			return null;
+		}
+		// Workbook was evicted so read again from the file.
+		// Use an input stream, consistent with other code, so that the file is not held open for writing.
+		try ( InputStream inp = new FileInputStream(wbfile) ) {
+			Workbook wb = WorkbookFactory.create(inp);
+			evictedWorkbookModes.remove(key);
+			m = new WorkbookFileMetadata(wbfile.replace("\\", "/"), mode, wb);
+			m.setEstimatedMemoryBytes(estimateMemoryBytes(wbfile));
+			openWorkbooks.put(key, m);
+			openWorkbookMemoryBytes += m.getEstimatedMemoryBytes();
+			++reloadCount;
+			Message.printStatus(2, routine, "Read evicted workbook \"" + wbfile + "\" again from the file.");
+			evictOpenWorkbooks(key);
 			return m;
 		}
+		catch ( Exception e ) {
+			Message.printWarning(3, routine, "Error reading evicted workbook \"" + wbfile + "\" from the file (" + e + ")." );
+			++missCount;
+			return null;
+		}
+	}
+}
+
+/**
+Return the open workbook cache metrics, for troubleshooting and performance evaluation.
+@return a map of metric name to value, including the hit, miss, eviction,
+and reload (read after eviction) counts, the number of open workbooks, and the estimated memory in bytes
+*/
+public static Map<String,Long> getOpenWorkbookCacheMetrics () {
+	Map<String,Long> metrics = new LinkedHashMap<>();
+	synchronized ( openWorkbooksLock ) {
+		metrics.put("HitCount", hitCount);
+		metrics.put("MissCount", missCount);
+		metrics.put("EvictionCount", evictionCount);
+		metrics.put("ReloadCount", reloadCount);
+		metrics.put("OpenWorkbookCount", Long.valueOf(openWorkbooks.size()));
+		metrics.put("EvictedWorkbookCount", Long.valueOf(evictedWorkbookModes.size()));
+		metrics.put("EstimatedMemoryBytes", openWorkbookMemoryBytes);
+		metrics.put("MaxOpenWorkbookCount", Long.valueOf(maxOpenWorkbooks));
+		metrics.put("MaxEstimatedMemoryBytes", maxOpenWorkbookMemoryBytes);
+	}
+	return metrics;
+}
+
+/**
+Return the key for the open workbook cache, which is case-independent and uses forward slashes in the path.
+@param wbfile workbook filename
+@return the key for the workbook
+*/
+private static String getOpenWorkbookKey ( String wbfile ) {
+	// Replace backslashes in path with forward slashes for comparison.
+	return wbfile.replace("\\", "/").toUpperCase();
+}
+
+/**
+Return an open workbook and pin it so that it is not evicted from the cache, for example while it is being modified.
+If a workbook is returned, the call must be matched by a call to unpinOpenWorkbook().
+@param wbfile name of workbook file to look up and pin
+@return the matching Excel workbook or null if a match is not found (and nothing is pinned)
+*/
+public static WorkbookFileMetadata pinOpenWorkbook ( String wbfile ) {
+	synchronized ( openWorkbooksLock ) {
+		// Get and pin while holding the lock so that the workbook cannot be evicted in between.
+		WorkbookFileMetadata m = getOpenWorkbook ( wbfile );
+		if ( m != null ) {
+			m.setPinCount(m.getPinCount() + 1);
+		}
+		return m;
 	}
-    return null;
 }
 
 /**
-Remove an open Excel workbook from the list.
+Remove an open Excel workbook from the cache.
 @param wbfile name of workbook file to remove
 */
 public static void removeOpenWorkbook ( String wbfile ) {
-	// Replace backslashes in path with forward slashes for comparison.
-	wbfile = wbfile.replace("\\", "/");
-	for ( WorkbookFileMetadata m : openWorkbooks ) {
-		if ( m.getFilename().replace("\\","/").equalsIgnoreCase(wbfile) ) {
-			// Found existing, remove the workbook from the open workbook list.
-			openWorkbooks.remove(m);
-			break;
+	String key = getOpenWorkbookKey(wbfile);
+	synchronized ( openWorkbooksLock ) {
+		WorkbookFileMetadata m = openWorkbooks.remove(key);
+		if ( m != null ) {
+			openWorkbookMemoryBytes -= m.getEstimatedMemoryBytes();
 		}
+		evictedWorkbookModes.remove(key);
+	}
+}
+
+/**
+Set the limits for the open workbook cache.
+Workbooks are evicted if necessary the next time a workbook is added.
+@param maxWorkbooks maximum number of open workbooks
+@param maxMemoryBytes maximum estimated memory in bytes for open workbooks
+*/
+public static void setOpenWorkbookCacheLimits ( int maxWorkbooks, long maxMemoryBytes ) {
+	synchronized ( openWorkbooksLock ) {
+		maxOpenWorkbooks = maxWorkbooks;
+		maxOpenWorkbookMemoryBytes = maxMemoryBytes;
 	}
 }
 
 /**
 Set the open workbook in the cache so that it can be accessed later during processing.
 The filename is treated case-independent when getOpenWorkbook() is called.
+If the cache limits are exceeded, least recently used workbooks are evicted.
 @param wbfile workbook filename
 @param mode mode that file was opened, "r" for read and "w" for write.
 In both cases it is possible to write the file later but the modes give an indication of the initial action.
 */
 public static void setOpenWorkbook(String wbfile, String mode, Workbook wb) {
-	// Search for an existing workbook.
 	// Replace backslashes in path with forward slashes for comparison.
 	wbfile = wbfile.replace("\\", "/");
-	int i = -1;
-	for ( WorkbookFileMetadata m : openWorkbooks ) {
-		++i;
-		if ( m.getFilename().replace("\\","/").equalsIgnoreCase(wbfile) ) {
-			// Found an existing open workbook, replace with the new workbook.
-			// Often the same workbook is kept open in sequential commands.
-			openWorkbooks.set(i, new WorkbookFileMetadata(wbfile,mode,wb));
-			return;
+	String key = getOpenWorkbookKey(wbfile);
+	WorkbookFileMetadata m = new WorkbookFileMetadata(wbfile,mode,wb);
+	m.setEstimatedMemoryBytes(estimateMemoryBytes(wbfile));
+	synchronized ( openWorkbooksLock ) {
+		// Often the same workbook is kept open in sequential commands so replace an existing open workbook.
+		WorkbookFileMetadata existing = openWorkbooks.put(key, m);
+		if ( existing != null ) {
+			m.setPinCount(existing.getPinCount());
+			openWorkbookMemoryBytes -= existing.getEstimatedMemoryBytes();
+		}
+		openWorkbookMemoryBytes += m.getEstimatedMemoryBytes();
+		evictedWorkbookModes.remove(key);
+		evictOpenWorkbooks(key);
+	}
+}
+
+/**
+Unpin an open workbook that was pinned with pinOpenWorkbook(), so that it can be evicted from the cache.
+@param wbfile name of workbook file to unpin
+*/
+public static void unpinOpenWorkbook ( String wbfile ) {
+	String key = getOpenWorkbookKey(wbfile);
+	synchronized ( openWorkbooksLock ) {
+		WorkbookFileMetadata m = openWorkbooks.get(key);
+		if ( (m != null) && (m.getPinCount() > 0) ) {
+			m.setPinCount(m.getPinCount() - 1);
 		}
 	}
-	// If here need to add to the open workbook list.
-	openWorkbooks.add(new WorkbookFileMetadata(wbfile,mode,wb));
 }
-    
-}
\ No newline at end of file
+
+}
@@ -79,6 +79,11 @@ A useful link is:  http://poi.apache.org/spreadsheet/quick-guide.html
 public class ReadTableFromExcel_Command extends AbstractCommand implements Command, CommandDiscoverable, ObjectListProvider
 {
 
+/**
+Cell type used with setTableFieldFromCellValue() when the worksheet cell is not defined.
+*/
+private static final int CELL_TYPE_UNDEFINED = -1;
+
 /**
 Possible values for ReadAllAsText parameter.
 */
@@ -119,6 +124,7 @@ throws InvalidCommandParameterException {
     String NumberPrecision = parameters.getValue ( "NumberPrecision" );
 	String ReadAllAsText = parameters.getValue ( "ReadAllAsText" );
     String KeepOpen = parameters.getValue ( "KeepOpen" );
+    String Streaming = parameters.getValue ( "Streaming" );
 	String warning = "";
     String message;
 
@@ -236,11 +242,19 @@ throws InvalidCommandParameterException {
             new CommandLogRecord(CommandStatusType.FAILURE,
                 message, "KeepOpen must be specified as " + _False + " (default) or " + _True ) );
     }
+    if ( Streaming != null && !Streaming.equalsIgnoreCase(_True) &&
+        !Streaming.equalsIgnoreCase(_False) && !Streaming.equalsIgnoreCase("") ) {
+        message = "Streaming is invalid.";
+        warning += "\n" + message;
+        status.addToLog ( CommandPhaseType.INITIALIZATION,
+            new CommandLogRecord(CommandStatusType.FAILURE,
+                message, "Streaming must be specified as " + _False + " (default) or " + _True ) );
+    }
 
 	// TODO SAM 2005-11-18 Check the format.
 
 	//  Check for invalid parameters.
-	List<String> validList = new ArrayList<>(18);
+	List<String> validList = new ArrayList<>(19);
     validList.add ( "TableID" );
     validList.add ( "NumberPrecision" );
     validList.add ( "InputFile" );
@@ -250,6 +264,7 @@ throws InvalidCommandParameterException {
     validList.add ( "ExcelTableName" );
     validList.add ( "ExcelColumnNames" );
     validList.add ( "KeepOpen" );
+    validList.add ( "Streaming" );
     validList.add ( "ColumnIncludeFilters" );
     validList.add ( "ColumnExcludeFilters" );
     validList.add ( "Comment" );
@@ -330,7 +345,7 @@ excelNamedRange, excelTableName.
 @param problems list of problems encountered during read, for formatted logging in calling code
 @return a DataTable with the Excel contents
 */
-private DataTable readTableFromExcelFile ( String workbookFile, String sheetName, boolean keepOpen,
+DataTable readTableFromExcelFile ( String workbookFile, String sheetName, boolean keepOpen,
     String excelAddress, String excelNamedRange, String excelTableName, ExcelColumnNameRowType excelColumnNames,
     StringFilterList columnIncludeFilterList, StringFilterList columnExcludeFilterList,
     String comment,
@@ -419,13 +434,8 @@ private DataTable readTableFromExcelFile ( String workbookFile, String sheetName
         Message.printStatus(2, routine, "Cell range is [" + rowStart + "][" + colStart + "] to [" + rowEnd + "][" + colEnd + "]");
         int cellType;
         int iRowOut = -1, iColOut;
-        String cellValueString;
         Object cellValueObject = null; // Generic cell object for logging.
-        boolean cellValueBoolean;
-        double cellValueDouble;
-        Date cellValueDate;
         CellValue formulaCellValue = null; // Cell value after formula evaluation.
-        DateTime dt;
         boolean cellIsFormula; // Used to know when the evaluate cell formula to get output object.
         boolean needToSkipRow = false; // Whether a row should be skipped when reading (depends on columnIncludeFilterList and columnExcludeFilterList).
         int nRowsToRead = rowEnd - rowStart + 1;
@@ -465,36 +475,15 @@ private DataTable readTableFromExcelFile ( String workbookFile, String sheetName
                 try {
                     if ( cell == null ) {
                     	// Handle null cells specifically - might cause row to be ignored.
-                        String cellValue = null;
-                        if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_STRING ) {
-                            cellValue = "";
-                        }
-                        table.setFieldValue(iRowOut, iColOut, cellValue, true);
-                        // Default the cell value to check, assuming a String.
-                        String checkValue = "" + cellValue;
-                        if ( !needToSkipRow &&
-                            !tk.cellMatchesIncludeFilter(columnNames[iCol - colStart], checkValue, columnIncludeFilterList, true, true) ) {
-                            // Row was added but will remove at the end after all columns are processed.
-                        	// Only change from false to true to handle previous columns setting to true.
-                        	needToSkipRow = true;
-                        }
-                        if ( !needToSkipRow &&
-                            tk.cellMatchesExcludeFilter(columnNames[iCol - colStart], checkValue, columnExcludeFilterList, true, true) ) {
-                            // Row was added but will remove at the end after all columns are processed.
-                        	// Only change from false to true since include takes precedence.
-                        	// In other words, if the include has set to true then the row is already excluded so don't undo that setting.
-                    		needToSkipRow = true;
-                        }
-                        continue;
+                        cellType = CELL_TYPE_UNDEFINED;
+                    }
+                    else {
+                        cellType = cell.getCellType();
                     }
-                    // If here the cell is not null.
                     // First get the data using the type indicated for the cell.
-                    // Then translate to the appropriate type in the data table.
+                    // Then translate to the appropriate type in the data table, using the same conversions as the streaming reader.
                     // Handling at cell level is needed because the Excel worksheet might have cell values that are mixed type in the column.
-                    // The checks are exhaustive, so list in the order that is most likely (string, double,
-                    // boolean, blank, error, formula).
-                    cellValueObject = null; // For try/catch.
-                    cellType = cell.getCellType();
+                    cellValueObject = null;
                     if ( Message.isDebugOn ) {
                         Message.printDebug(1, routine, "Cell [" + iRow + "][" + iCol + "]= \"" + cell + "\" type=" +
                             cellType + " " + tk.lookupExcelCellType(cellType));
@@ -522,92 +511,19 @@ private DataTable readTableFromExcelFile ( String workbookFile, String sheetName
                     }
                     if ( cellType == Cell.CELL_TYPE_STRING ) {
                         if ( cellIsFormula ) {
-                            cellValueString = formulaCellValue.getStringValue();
+                            cellValueObject = formulaCellValue.getStringValue();
                         }
                         else {
-                            cellValueString = cell.getStringCellValue();
-                        }
-                        cellValueObject = cellValueString; // For try/catch
-                        if ( !needToSkipRow && !tk.cellMatchesIncludeFilter(columnNames[iCol - colStart], cellValueString, columnIncludeFilterList, true, true) ) {
-                            // Add the row but will remove at the end after all columns are processed.
-                        	// Only change from false to true to handle previous columns setting to true.
-                        	needToSkipRow = true;
-                        }
-                        if ( !needToSkipRow && tk.cellMatchesExcludeFilter(columnNames[iCol - colStart], cellValueString, columnExcludeFilterList, true, true) ) {
-                            // Add the row but will remove at the end after all columns are processed.
-                        	// Only change from false to true since include takes precedence.
-                        	// In other words, if the include has set to true then the row is already excluded so don't undo that setting.
-                        	needToSkipRow = true;
-                        }
-                        if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_STRING ) {
-                            // Just set.
-                            table.setFieldValue(iRowOut, iColOut, cellValueString, true);
-                        }
-                        else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_DOUBLE ) {
-                            // Parse to the double.
-                            try {
-                                table.setFieldValue(iRowOut, iColOut, Double.valueOf(cellValueString), true);
-                            }
-                            catch ( NumberFormatException e ) {
-                                // Set to NaN.
-                                table.setFieldValue(iRowOut, iColOut, Double.NaN, true);
-                            }
-                        }
-                        else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_INT ) {
-                            // Parse to the boolean.
-                            if ( cellValueString.equalsIgnoreCase("True") || cellValueString.equals("1") ) {
-                                table.setFieldValue(iRowOut, iColOut, Integer.valueOf(1), true);
-                            }
-                            else {
-                                // Set to null.
-                                table.setFieldValue(iRowOut, iColOut, null, true);
-                            }
-                        }
-                        else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_DATE ) {
-                            // Try to parse to a date/time string.
-                        	// TODO SAM 2016-03-10 Need to understand better how to handle time zone.
-                        	// Format is like Sun Jan 01 00:00:00 MST 2012.
-                            try {
-                                dt = DateTime.parse(cellValueString);
-                                Date d = dt.getDate(TimeZoneDefaultType.LOCAL);
-                                //Message.printStatus(2, routine, "Original Excel date string \"" + cellValueString + "\" DateTime=\"" + dt + "\" Date=\"" + d + "\"");
-                                table.setFieldValue(iRowOut, iColOut, d, true);
-                            }
-                            catch ( Exception e ) {
-                                // Set to null.
-                                table.setFieldValue(iRowOut, iColOut, null, true);
-                            }
-                        }
-                        else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_DATETIME ) {
-                            // Try to parse to a date/time string.
-                            try {
-                                dt = DateTime.parse(cellValueString);
-                                //Message.printStatus(2, routine, "Original Excel date string \"" + cellValueString + "\" DateTime=\"" + dt + "\"");
-                                table.setFieldValue(iRowOut, iColOut, dt, true);
-                            }
-                            catch ( Exception e ) {
-                                // Set to null.
-                                table.setFieldValue(iRowOut, iColOut, null, true);
-                            }
-                        }
-                        else {
-                            // Other cell types don't translate.
-                            table.setFieldValue(iRowOut, iColOut, null, true);
+                            cellValueObject = cell.getStringCellValue();
                         }
                     }
                     else if ( cellType == Cell.CELL_TYPE_NUMERIC ) {
                     	// Excel Numeric:
                     	// - stores float, integer, and date/time
-                       	if ( Message.isDebugOn ) {
-                           	Message.printDebug(1, routine, "Cell type is numeric, from formula=" + cellIsFormula);
-                       	}
                         if (DateUtil.isCellDateFormatted(cell)) {
                         	// The above returns true if the cell value "looks like a date" (from Apache POI docs).
-                           	if ( Message.isDebugOn ) {
-                               	Message.printDebug(1, routine, "Cell is number and formatted as date.");
-                           	}
                             if ( cellIsFormula ) {
-                                cellValueDate = DateUtil.getJavaDate((double)cell.getNumericCellValue());
+                                cellValueObject = DateUtil.getJavaDate((double)cell.getNumericCellValue());
                                 // See explanation of Excel date/time:
                                 //   https://www.myonlinetraininghub.com/excel-date-and-time
                                 // Therefore, if the input is just a fraction with whole number of zero,
@@ -615,144 +531,27 @@ private DataTable readTableFromExcelFile ( String workbookFile, String sheetName
                                 // This is accurate according to the Excel specification.
                             }
                             else {
-                                cellValueDate = cell.getDateCellValue();
-                            }
-                            cellValueObject = cellValueDate; // For try/catch.
-                            if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_DATE ) {
-                                // Date to date.
-                                table.setFieldValue(iRowOut, iColOut, cellValueDate, true);
-                            }
-                            else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_DATETIME ) {
-                                // Date to date/time:
-                            	// - if the intended final format is just time
-                                table.setFieldValue(iRowOut, iColOut, new DateTime(cellValueDate), true);
-                            }
-                            else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_STRING ) {
-                                // Date to string.
-                                try {
-                                    dt = new DateTime ( cellValueDate );
-                                    table.setFieldValue(iRowOut, iColOut, dt.toString(), true);
-                                }
-                                catch ( Exception e ) {
-                                    table.setFieldValue(iRowOut, iColOut, null, true);
-                                }
-                            }
-                            else {
-                                table.setFieldValue(iRowOut, iColOut, null, true);
+                                cellValueObject = cell.getDateCellValue();
                             }
                         }
+                        else if ( cellIsFormula ) {
+                            cellValueObject = Double.valueOf(formulaCellValue.getNumberValue());
+                        }
                         else {
-                            // Excel cell type is a number:
-                        	// - could be a float or an integer
-                            if ( cellIsFormula ) {
-                                cellValueDouble = formulaCellValue.getNumberValue();
-                            }
-                            else {
-                                cellValueDouble = cell.getNumericCellValue();
-                            }
-                            cellValueObject = cellValueDouble; // For try/catch.
-                            if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_DOUBLE ) {
-                                // Double to double.
-                                table.setFieldValue(iRowOut, iColOut, Double.valueOf(cellValueDouble), true);
-                            }
-                            else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_STRING ) {
-                                // Double to string - have to format number because Java will use exponential notation.
-                                table.setFieldValue(iRowOut, iColOut, StringUtil.formatString(cellValueDouble,numberFormat), true);
-                            }
-                            else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_INT ) {
-                                // Double to integer - use an offset to help make sure integer value is correct:
-                            	// - for example, double stored internally as .9999 should be integer 1, as intended
-                            	Integer intValue = null;
-                                if ( cellValueDouble >= 0.0 ) {
-                                	intValue = Integer.valueOf((int)(cellValueDouble + .0001));
-                                    table.setFieldValue(iRowOut, iColOut, intValue, true);
-                                }
-                                else {
-                                	intValue = Integer.valueOf((int)(cellValueDouble - .0001));
-                                    table.setFieldValue(iRowOut, iColOut, intValue, true);
-                                }
-                                String checkValue = "" + intValue;
-                                if ( Message.isDebugOn ) {
-                                	Message.printDebug(1, routine, "Checking filters for cell value: " + checkValue );
-                                }
-                                if ( !needToSkipRow && !tk.cellMatchesIncludeFilter(columnNames[iCol - colStart], checkValue, columnIncludeFilterList, true, true) ) {
-                                    // Add the row but will remove at the end after all columns are processed.
-                        	        // Only change from false to true to handle previous columns setting to true.
-                        	        needToSkipRow = true;
-                                }
-                                if ( !needToSkipRow && tk.cellMatchesExcludeFilter(columnNames[iCol - colStart], checkValue, columnExcludeFilterList, true, true) ) {
-                                    // Add the row but will remove at the end after all columns are processed.
-                        	        // Only change from false to true since include takes precedence.
-                        	        // In other words, if the include has set to true then the row is already excluded so don't undo that setting.
-                        	        needToSkipRow = true;
-                                }
-                            }
-                            else {
-                                table.setFieldValue(iRowOut, iColOut, null, true);
-                            }
+                            cellValueObject = Double.valueOf(cell.getNumericCellValue());
                         }
                     }
                     else if ( cellType == Cell.CELL_TYPE_BOOLEAN ) {
                         if ( cellIsFormula ) {
-                            cellValueBoolean = formulaCellValue.getBooleanValue();
-                        }
-                        else {
-                            cellValueBoolean = cell.getBooleanCellValue();
-                        }
-                        cellValueObject = cellValueBoolean; // For try/catch.
-                        if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_INT ) {
-                            table.setFieldValue(iRowOut, iColOut, cellValueBoolean, true);
-                        }
-                        else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_STRING ) {
-                            // Just set
-                            table.setFieldValue(iRowOut, iColOut, "" + cellValueBoolean, true);
-                        }
-                        else if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_DOUBLE ) {
-                            if ( cellValueBoolean ) {
-                                table.setFieldValue(iRowOut, iColOut, Double.valueOf(1.0), true);
-                            }
-                            else {
-                                table.setFieldValue(iRowOut, iColOut, Double.valueOf(0.0), true);
-                            }
+                            cellValueObject = Boolean.valueOf(formulaCellValue.getBooleanValue());
                         }
                         else {
-                            // Not able to convert.
-                            table.setFieldValue(iRowOut, iColOut, null, true);
+                            cellValueObject = Boolean.valueOf(cell.getBooleanCellValue());
                         }
                     }
-                    else if ( cellType == Cell.CELL_TYPE_BLANK ) {
-                        // Null works for all object types.  If truly a blank string in text cell, use "" as text.
-                        if ( !needToSkipRow && !tk.cellMatchesIncludeFilter(columnNames[iColOut],"",columnIncludeFilterList, true, true) ) {
-                            // Add the row but will remove at the end after all columns are processed.
-                        	// Only change from false to true to handle previous columns setting to true.
-                        	needToSkipRow = true;
-                        }
-                        if ( !needToSkipRow && tk.cellMatchesExcludeFilter(columnNames[iColOut],"",columnExcludeFilterList, true, true) ) {
-                            // Add the row but will remove at the end after all columns are processed.
-                        	// Only change from false to true since include takes precedence.
-                        	// In other words, if the include has set to true then the row is already excluded so don't undo that setting.
-                        	needToSkipRow = true;
-                        }
-                        cellValueObject = "blank"; // For try/catch.
-                        if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_STRING ) {
-                            table.setFieldValue(iRowOut, iColOut, "", true);
-                        }
-                        else {
-                            table.setFieldValue(iRowOut, iColOut, null, true);
-                        }
-                    }
-                    else if ( cellType == Cell.CELL_TYPE_ERROR ) {
-                        if ( tableColumnTypes[iColOut] == TableField.DATA_TYPE_STRING ) {
-                            table.setFieldValue(iRowOut, iColOut, "", true);
-                        }
-                        else {
-                            table.setFieldValue(iRowOut, iColOut, null, true);
-                        }
-                        cellValueObject = "error"; // For try/catch.
-                    }
-                    else {
-                        table.setFieldValue(iRowOut, iColOut, null, true);
-                    }
+                    needToSkipRow = setTableFieldFromCellValue ( tk, table, iRowOut, iColOut, tableColumnTypes[iColOut],
+                        columnNames[iColOut], cellType, cellValueObject, numberFormat,
+                        columnIncludeFilterList, columnExcludeFilterList, needToSkipRow );
                 }
                 catch ( Exception e ) {
                     problems.add ( "Error processing Excel [" + iRow + "][" + iCol + "] = " +
@@ -795,6 +594,87 @@ private DataTable readTableFromExcelFile ( String workbookFile, String sheetName
     return table;
 }
 
+/**
+Read the table from an Excel *.xlsx file using the event model, which streams the worksheet rather than
+creating the in-memory workbook, and transfers the rows directly to the table.
+Formulas are not evaluated and the cached formula results are used.
+The parameters are the same as readTableFromExcelFile(), except that the workbook cannot be kept open.
+@return a DataTable with the Excel contents
+*/
+DataTable readTableFromExcelFileStreaming ( String workbookFile, String sheetName,
+    String excelAddress, String excelNamedRange, String excelTableName, ExcelColumnNameRowType excelColumnNames,
+    StringFilterList columnIncludeFilterList, StringFilterList columnExcludeFilterList,
+    String comment,
+    String [] excelDoubleColumns, String [] excelIntegerColumns, String [] excelDateTimeColumns, String [] excelTextColumns,
+    int numberPrecision, boolean readAllAsText, List<String> problems ) {
+    String routine = getClass().getSimpleName() + ".readTableFromExcelFileStreaming";
+    Message.printStatus(2, routine, "Reading Excel file \"" + workbookFile + "\" sheet name \"" + sheetName + "\" using streaming." );
+    DataTable table = new DataTable();
+    if ( (comment != null) && (comment.trim().length() == 0) ) {
+        // Set to null to simplify logic below.
+        comment = null;
+    }
+
+    ExcelToolkit tk = new ExcelToolkit();
+    ExcelSheetEventReader reader = null;
+    try {
+    	StopWatch sw = new StopWatch();
+    	sw.start();
+        try {
+            reader = new ExcelSheetEventReader ( workbookFile );
+        }
+        catch ( Exception e ) {
+            problems.add ( "Error opening workbook file \"" + workbookFile + "\" (" + e + ")." );
+            return null;
+        }
+        if ( !reader.hasSheet(sheetName) ) {
+            if ( (sheetName == null) || sheetName.isEmpty() ) {
+                problems.add ( "Workbook does not include any worksheets." );
+            }
+            else {
+                problems.add ( "Workbook does not include worksheet named \"" + sheetName + "\"." );
+            }
+            return null;
+        }
+        // Get the contiguous block of data to process by evaluating user input.
+        AreaReference area = reader.getAreaReference ( sheetName, excelAddress, excelNamedRange, excelTableName );
+        if ( area == null ) {
+            problems.add ( "Unable to get worksheet area reference from address information." );
+            return null;
+        }
+        Message.printStatus(2,routine,"Excel address block to read: " + area );
+        int rowStart = area.getFirstCell().getRow();
+        int rowEnd = area.getLastCell().getRow();
+        int colStart = area.getFirstCell().getCol();
+        int colEnd = area.getLastCell().getCol();
+        Message.printStatus(2, routine, "Cell range is [" + rowStart + "][" + colStart + "] to [" + rowEnd + "][" + colEnd + "]");
+        StreamingRowHandler handler = new StreamingRowHandler ( table, tk, rowStart, rowEnd, colEnd - colStart + 1,
+            excelColumnNames, comment, columnIncludeFilterList, columnExcludeFilterList,
+            excelDoubleColumns, excelIntegerColumns, excelDateTimeColumns, excelTextColumns,
+            numberPrecision, readAllAsText, problems );
+        // The row before the range may be needed for column names so start reading at the top of the worksheet.
+        int readRowStart = rowStart;
+        if ( excelColumnNames == ExcelColumnNameRowType.ROW_BEFORE_RANGE ) {
+            readRowStart = 0;
+        }
+        reader.readRows ( sheetName, readRowStart, rowEnd, colStart, colEnd, handler );
+        handler.finish();
+        setFirstDataRow(handler.getFirstDataRow());
+        sw.stop();
+       	Message.printStatus(2,routine,"Done reading " + table.getNumberOfRecords() + " rows using streaming (took " + sw.getMilliseconds() + " ms).");
+    }
+    catch ( Exception e ) {
+        problems.add ( "Error reading workbook \"" + workbookFile + "\" (" + e + ")." );
+        Message.printWarning(3,routine,e);
+    }
+    finally {
+        if ( reader != null ) {
+            reader.close();
+        }
+    }
+    return table;
+}
+
 /**
 Run the command.
 @param command_number Command number in sequence.
@@ -965,10 +845,15 @@ CommandWarningException, CommandException {
     	RowCountProperty = TSCommandProcessorUtil.expandParameterValue(processor, this, RowCountProperty);
     }
     String KeepOpen = parameters.getValue ( "KeepOpen" );
+    String Streaming = parameters.getValue ( "Streaming" );
     boolean keepOpen = false; // Default.
     if ( (KeepOpen != null) && KeepOpen.equalsIgnoreCase(_True) ) {
         keepOpen = true;
     }
+    boolean streaming = false; // Default.
+    if ( (Streaming != null) && Streaming.equalsIgnoreCase(_True) ) {
+        streaming = true;
+    }
 
 	String InputFile_full = IOUtil.verifyPathForOS(
         IOUtil.toAbsolutePath(TSCommandProcessorUtil.getWorkingDir(processor),
@@ -1006,11 +891,38 @@ CommandWarningException, CommandException {
 	List<String> problems = new ArrayList<>();
 	try {
 	    if ( commandPhase == CommandPhaseType.RUN ) {
-            table = readTableFromExcelFile ( InputFile_full, Worksheet, keepOpen,
-                ExcelAddress, ExcelNamedRange, ExcelTableName, excelColumnNames,
-                columnIncludeFilterList, columnExcludeFilterList, comment,
-                excelDoubleColumns, excelIntegerColumns, excelDateTimeColumns, excelTextColumns,
-                numberPrecision, readAllAsText, problems );
+            // Use streaming if requested:
+            // - the workbook must be an *.xlsx file that is not kept open for other commands
+            boolean doStreaming = false;
+            if ( streaming ) {
+                String streamingProblem = null;
+                if ( keepOpen || (ExcelUtil.getOpenWorkbook(InputFile_full) != null) ) {
+                    streamingProblem = "Streaming cannot be used with a workbook that is kept open.";
+                }
+                else if ( !InputFile_full.toLowerCase().endsWith(".xlsx") && !InputFile_full.toLowerCase().endsWith(".xlsm") ) {
+                    streamingProblem = "Streaming can only be used with *.xlsx and *.xlsm workbook files.";
+                }
+                else {
+                    doStreaming = true;
+                }
+                if ( streamingProblem != null ) {
+                    Message.printStatus(2, routine, streamingProblem + "  Reading the workbook in memory.");
+                }
+            }
+            if ( doStreaming ) {
+                table = readTableFromExcelFileStreaming ( InputFile_full, Worksheet,
+                    ExcelAddress, ExcelNamedRange, ExcelTableName, excelColumnNames,
+                    columnIncludeFilterList, columnExcludeFilterList, comment,
+                    excelDoubleColumns, excelIntegerColumns, excelDateTimeColumns, excelTextColumns,
+                    numberPrecision, readAllAsText, problems );
+            }
+            else {
+                table = readTableFromExcelFile ( InputFile_full, Worksheet, keepOpen,
+                    ExcelAddress, ExcelNamedRange, ExcelTableName, excelColumnNames,
+                    columnIncludeFilterList, columnExcludeFilterList, comment,
+                    excelDoubleColumns, excelIntegerColumns, excelDateTimeColumns, excelTextColumns,
+                    numberPrecision, readAllAsText, problems );
+            }
             for ( String problem: problems ) {
                 Message.printWarning ( 3, routine, problem );
                 message = "Error reading from Excel: " + problem;
@@ -1097,6 +1009,201 @@ private void setDiscoveryTable ( DataTable table ) {
     __table = table;
 }
 
+/**
+Set a table cell from a worksheet cell value.
+This is used by readTableFromExcelFile() and readTableFromExcelFileStreaming() so that the in-memory and event model
+readers convert values and check filters the same way.
+@param tk Excel toolkit used to check the filters
+@param table table being read
+@param iRowOut table row (0+)
+@param iColOut table column (0+)
+@param tableColumnType table column type
+@param columnName table column name, used to check the filters
+@param cellType cell type, one of Cell.CELL_TYPE_* other than formula (formulas must have been evaluated),
+or CELL_TYPE_UNDEFINED if the cell is not defined
+@param cellValue the cell value: String for string cells, Double or Date (if formatted as a date) for numeric cells,
+Boolean for boolean cells, ignored for other cell types
+@param numberFormat format used to convert numbers to text
+@param columnIncludeFilterList patterns for column values, to include rows
+@param columnExcludeFilterList patterns for column values, to exclude rows
+@param needToSkipRow whether the row has already been determined to be skipped
+@return whether the row should be skipped, based on the filters
+*/
+private boolean setTableFieldFromCellValue ( ExcelToolkit tk, DataTable table, int iRowOut, int iColOut, int tableColumnType,
+    String columnName, int cellType, Object cellValue, String numberFormat,
+    StringFilterList columnIncludeFilterList, StringFilterList columnExcludeFilterList, boolean needToSkipRow )
+    throws Exception {
+    // Value to check with the filters, or null if the filters are not checked for the cell type.
+    String checkValue = null;
+    if ( cellType == CELL_TYPE_UNDEFINED ) {
+        // Handle null cells specifically - might cause row to be ignored.
+        String cellValueString = null;
+        if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+            cellValueString = "";
+        }
+        table.setFieldValue(iRowOut, iColOut, cellValueString, true);
+        // Default the cell value to check, assuming a String.
+        checkValue = "" + cellValueString;
+    }
+    else if ( cellType == Cell.CELL_TYPE_STRING ) {
+        String cellValueString = (String)cellValue;
+        checkValue = cellValueString;
+        if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+            // Just set.
+            table.setFieldValue(iRowOut, iColOut, cellValueString, true);
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_DOUBLE ) {
+            // Parse to the double.
+            try {
+                table.setFieldValue(iRowOut, iColOut, Double.valueOf(cellValueString), true);
+            }
+            catch ( NumberFormatException e ) {
+                // Set to NaN.
+                table.setFieldValue(iRowOut, iColOut, Double.NaN, true);
+            }
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_INT ) {
+            // Parse to the boolean.
+            if ( cellValueString.equalsIgnoreCase("True") || cellValueString.equals("1") ) {
+                table.setFieldValue(iRowOut, iColOut, Integer.valueOf(1), true);
+            }
+            else {
+                // Set to null.
+                table.setFieldValue(iRowOut, iColOut, null, true);
+            }
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_DATE ) {
+            // Try to parse to a date/time string.
+        	// TODO SAM 2016-03-10 Need to understand better how to handle time zone.
+        	// Format is like Sun Jan 01 00:00:00 MST 2012.
+            try {
+                table.setFieldValue(iRowOut, iColOut, DateTime.parse(cellValueString).getDate(TimeZoneDefaultType.LOCAL), true);
+            }
+            catch ( Exception e ) {
+                // Set to null.
+                table.setFieldValue(iRowOut, iColOut, null, true);
+            }
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_DATETIME ) {
+            // Try to parse to a date/time string.
+            try {
+                table.setFieldValue(iRowOut, iColOut, DateTime.parse(cellValueString), true);
+            }
+            catch ( Exception e ) {
+                // Set to null.
+                table.setFieldValue(iRowOut, iColOut, null, true);
+            }
+        }
+        else {
+            // Other cell types don't translate.
+            table.setFieldValue(iRowOut, iColOut, null, true);
+        }
+    }
+    else if ( (cellType == Cell.CELL_TYPE_NUMERIC) && (cellValue instanceof Date) ) {
+        // Number formatted as a date.
+        Date cellValueDate = (Date)cellValue;
+        if ( tableColumnType == TableField.DATA_TYPE_DATE ) {
+            // Date to date.
+            table.setFieldValue(iRowOut, iColOut, cellValueDate, true);
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_DATETIME ) {
+            // Date to date/time.
+            table.setFieldValue(iRowOut, iColOut, new DateTime(cellValueDate), true);
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+            // Date to string.
+            try {
+                table.setFieldValue(iRowOut, iColOut, new DateTime(cellValueDate).toString(), true);
+            }
+            catch ( Exception e ) {
+                table.setFieldValue(iRowOut, iColOut, null, true);
+            }
+        }
+        else {
+            table.setFieldValue(iRowOut, iColOut, null, true);
+        }
+    }
+    else if ( cellType == Cell.CELL_TYPE_NUMERIC ) {
+        // Excel cell type is a number:
+    	// - could be a float or an integer
+        double cellValueDouble = ((Double)cellValue).doubleValue();
+        if ( tableColumnType == TableField.DATA_TYPE_DOUBLE ) {
+            // Double to double.
+            table.setFieldValue(iRowOut, iColOut, Double.valueOf(cellValueDouble), true);
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+            // Double to string - have to format number because Java will use exponential notation.
+            table.setFieldValue(iRowOut, iColOut, StringUtil.formatString(cellValueDouble,numberFormat), true);
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_INT ) {
+            // Double to integer - use an offset to help make sure integer value is correct:
+        	// - for example, double stored internally as .9999 should be integer 1, as intended
+            Integer intValue = null;
+            if ( cellValueDouble >= 0.0 ) {
+                intValue = Integer.valueOf((int)(cellValueDouble + .0001));
+            }
+            else {
+                intValue = Integer.valueOf((int)(cellValueDouble - .0001));
+            }
+            table.setFieldValue(iRowOut, iColOut, intValue, true);
+            checkValue = "" + intValue;
+        }
+        else {
+            table.setFieldValue(iRowOut, iColOut, null, true);
+        }
+    }
+    else if ( cellType == Cell.CELL_TYPE_BOOLEAN ) {
+        boolean cellValueBoolean = ((Boolean)cellValue).booleanValue();
+        if ( tableColumnType == TableField.DATA_TYPE_INT ) {
+            table.setFieldValue(iRowOut, iColOut, cellValueBoolean, true);
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+            // Just set.
+            table.setFieldValue(iRowOut, iColOut, "" + cellValueBoolean, true);
+        }
+        else if ( tableColumnType == TableField.DATA_TYPE_DOUBLE ) {
+            table.setFieldValue(iRowOut, iColOut, Double.valueOf(cellValueBoolean ? 1.0 : 0.0), true);
+        }
+        else {
+            // Not able to convert.
+            table.setFieldValue(iRowOut, iColOut, null, true);
+        }
+    }
+    else if ( cellType == Cell.CELL_TYPE_BLANK ) {
+        // Null works for all object types.  If truly a blank string in text cell, use "" as text.
+        checkValue = "";
+        if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+            table.setFieldValue(iRowOut, iColOut, "", true);
+        }
+        else {
+            table.setFieldValue(iRowOut, iColOut, null, true);
+        }
+    }
+    else if ( cellType == Cell.CELL_TYPE_ERROR ) {
+        if ( tableColumnType == TableField.DATA_TYPE_STRING ) {
+            table.setFieldValue(iRowOut, iColOut, "", true);
+        }
+        else {
+            table.setFieldValue(iRowOut, iColOut, null, true);
+        }
+    }
+    else {
+        table.setFieldValue(iRowOut, iColOut, null, true);
+    }
+    if ( checkValue != null ) {
+        // Add the row but will remove at the end after all columns are processed.
+        // Only change from false to true to handle previous columns setting to true,
+        // and include takes precedence over exclude.
+        if ( !needToSkipRow && !tk.cellMatchesIncludeFilter(columnName, checkValue, columnIncludeFilterList, true, true) ) {
+            needToSkipRow = true;
+        }
+        if ( !needToSkipRow && tk.cellMatchesExcludeFilter(columnName, checkValue, columnExcludeFilterList, true, true) ) {
+            needToSkipRow = true;
+        }
+    }
+    return needToSkipRow;
+}
+
 /**
 Set the first data row (0+).
 @param row the first data row
@@ -1121,6 +1228,7 @@ public String toString ( PropList parameters ) {
 		"ExcelTableName",
 		"ExcelColumnNames",
 		"KeepOpen",
+		"Streaming",
 		"ColumnIncludeFilters",
 		"ColumnExcludeFilters",
 		"Comment",
@@ -1134,4 +1242,233 @@ public String toString ( PropList parameters ) {
 	return this.toString(parameters, parameterOrder);
 }
 
+/**
+Row handler used by readTableFromExcelFileStreaming().
+Column names are determined from the heading row and column types from the first non-blank data cell in each column,
+consistent with ExcelToolkit.createTableColumns().
+Data rows are buffered until the column types are known and then rows are transferred to the table as they are read.
+*/
+private class StreamingRowHandler implements ExcelSheetEventReader.RowHandler {
+	private DataTable table;
+	private ExcelToolkit tk;
+	private int rowStart;
+	private int rowEnd;
+	private int columnCount;
+	private ExcelColumnNameRowType excelColumnNames;
+	private String comment;
+	private StringFilterList columnIncludeFilterList;
+	private StringFilterList columnExcludeFilterList;
+	private String [] excelDoubleColumns;
+	private String [] excelIntegerColumns;
+	private String [] excelDateTimeColumns;
+	private String [] excelTextColumns;
+	private int numberPrecision;
+	private boolean readAllAsText;
+	private List<String> problems;
+	private String numberFormat;
+	private String [] columnNames = null; // Null until the heading row is processed.
+	private int [] columnTypes = null; // Requested and detected types, -1 if not yet known.
+	private int [] tableColumnTypes = null; // Null until the table columns are created.
+	private ExcelSheetEventReader.EventCell [] rowBeforeRangeCells = null; // Last non-comment row before the range.
+	private List<ExcelSheetEventReader.EventCell []> bufferedRows = new ArrayList<>();
+	private List<Integer> bufferedRowNumbers = new ArrayList<>();
+	private int firstDataRow = -1;
+	private int iRowOut = -1;
+	private int nRowsToRead;
+	private int updateDelta;
+
+	StreamingRowHandler ( DataTable table, ExcelToolkit tk, int rowStart, int rowEnd, int columnCount,
+		ExcelColumnNameRowType excelColumnNames, String comment,
+		StringFilterList columnIncludeFilterList, StringFilterList columnExcludeFilterList,
+		String [] excelDoubleColumns, String [] excelIntegerColumns, String [] excelDateTimeColumns, String [] excelTextColumns,
+		int numberPrecision, boolean readAllAsText, List<String> problems ) {
+		this.table = table;
+		this.tk = tk;
+		this.rowStart = rowStart;
+		this.rowEnd = rowEnd;
+		this.columnCount = columnCount;
+		this.excelColumnNames = excelColumnNames;
+		this.comment = comment;
+		this.columnIncludeFilterList = columnIncludeFilterList;
+		this.columnExcludeFilterList = columnExcludeFilterList;
+		this.excelDoubleColumns = excelDoubleColumns;
+		this.excelIntegerColumns = excelIntegerColumns;
+		this.excelDateTimeColumns = excelDateTimeColumns;
+		this.excelTextColumns = excelTextColumns;
+		this.numberPrecision = numberPrecision;
+		this.readAllAsText = readAllAsText;
+		this.problems = problems;
+		this.numberFormat = "%." + numberPrecision + "f"; // Used to format numeric to text to avoid Java exponential notation.
+		this.nRowsToRead = rowEnd - rowStart + 1;
+		this.updateDelta = this.nRowsToRead/20;
+		if ( this.updateDelta == 0 ) {
+			this.updateDelta = 2;
+		}
+	}
+
+	/**
+	Add a data row to the table.
+	*/
+	private void addRow ( int iRow, ExcelSheetEventReader.EventCell [] cells )
+	throws Exception {
+		String routine = getClass().getSimpleName() + ".addRow";
+		// Other skipped rows are handled by removing the row and decrementing iRowOut.
+		++this.iRowOut;
+		boolean needToSkipRow = false;
+		for ( int iColOut = 0; iColOut < this.columnCount; iColOut++ ) {
+			try {
+				ExcelSheetEventReader.EventCell cell = cells[iColOut];
+				needToSkipRow = setTableFieldFromCellValue ( this.tk, this.table, this.iRowOut, iColOut, this.tableColumnTypes[iColOut],
+					this.columnNames[iColOut], (cell == null ? CELL_TYPE_UNDEFINED : cell.getCellType()),
+					(cell == null ? null : cell.getValue()), this.numberFormat,
+					this.columnIncludeFilterList, this.columnExcludeFilterList, needToSkipRow );
+			}
+			catch ( Exception e ) {
+				this.problems.add ( "Error processing Excel [" + iRow + "][" + iColOut + "] = " +
+					cells[iColOut] + " (as string) skipping cell (" + e + ")." );
+				Message.printWarning(3,routine,e);
+			}
+		}
+		if ( needToSkipRow ) {
+			// Remove the row because an include filter was not matched or an exclude filter was matched.
+			this.table.deleteRecord(this.iRowOut);
+			--this.iRowOut;
+		}
+	}
+
+	/**
+	Create the table columns and add the buffered rows.
+	*/
+	private void createColumns ()
+	throws Exception {
+		this.tk.createTableColumns ( this.table, this.columnNames, this.columnTypes, this.numberPrecision );
+		this.tableColumnTypes = this.table.getFieldDataTypes();
+		for ( int i = 0; i < this.bufferedRows.size(); i++ ) {
+			addRow ( this.bufferedRowNumbers.get(i), this.bufferedRows.get(i) );
+		}
+		this.bufferedRows.clear();
+		this.bufferedRowNumbers.clear();
+	}
+
+	/**
+	Finish processing after the last row has been read.
+	*/
+	void finish ()
+	throws Exception {
+		if ( this.columnNames == null ) {
+			if ( this.excelColumnNames == ExcelColumnNameRowType.COLUMN_N ) {
+				setColumnNames ( null );
+			}
+			else if ( (this.excelColumnNames == ExcelColumnNameRowType.ROW_BEFORE_RANGE) && (this.rowBeforeRangeCells != null) ) {
+				setColumnNames ( this.rowBeforeRangeCells );
+			}
+			else if ( this.excelColumnNames == ExcelColumnNameRowType.ROW_BEFORE_RANGE ) {
+				this.problems.add ( "Specified ExcelColumnNames=" + ExcelColumnNameRowType.ROW_BEFORE_RANGE +
+					" but this results in row not on sheet.  Check address range." );
+				return;
+			}
+			else {
+				this.problems.add ( "Unable to find the column name row in the worksheet.  Check address range." );
+				return;
+			}
+		}
+		if ( this.tableColumnTypes == null ) {
+			// Column types for columns that only have blank values default to string.
+			createColumns();
+		}
+	}
+
+	/**
+	Return the first data row (0+) in the worksheet.
+	*/
+	int getFirstDataRow () {
+		if ( this.firstDataRow < 0 ) {
+			return this.rowStart;
+		}
+		return this.firstDataRow;
+	}
+
+	@Override
+	public boolean handleRow ( int iRow, ExcelSheetEventReader.EventCell firstColumnCell, ExcelSheetEventReader.EventCell [] cells )
+	throws Exception {
+		boolean isComment = this.tk.isRowComment ( firstColumnCell, this.comment );
+		if ( this.columnNames == null ) {
+			if ( this.excelColumnNames == ExcelColumnNameRowType.ROW_BEFORE_RANGE ) {
+				if ( iRow < this.rowStart ) {
+					if ( !isComment ) {
+						this.rowBeforeRangeCells = cells;
+					}
+					return true;
+				}
+				if ( this.rowBeforeRangeCells == null ) {
+					// Problem is added in finish().
+					return false;
+				}
+				setColumnNames ( this.rowBeforeRangeCells );
+			}
+			else if ( this.excelColumnNames == ExcelColumnNameRowType.FIRST_ROW_IN_RANGE ) {
+				if ( !isComment ) {
+					// Column names are from the first non-comment row.
+					setColumnNames ( cells );
+				}
+				return true;
+			}
+			else {
+				setColumnNames ( null );
+			}
+		}
+		if ( (iRow == this.rowStart) || (iRow == this.rowEnd) || (iRow%this.updateDelta == 0) ) {
+			// Update the progress bar every 5%.
+			notifyCommandProgressListeners ( (iRow - this.rowStart), this.nRowsToRead, (float)-1.0,
+				"Reading row " + (iRow - this.rowStart + 1) + " of " + this.nRowsToRead );
+		}
+		if ( isComment ) {
+			// No need to process the row.
+			return true;
+		}
+		if ( this.firstDataRow < 0 ) {
+			this.firstDataRow = iRow;
+		}
+		if ( this.tableColumnTypes != null ) {
+			addRow ( iRow, cells );
+			return true;
+		}
+		// Still determining column types so buffer the row.
+		this.bufferedRows.add(cells);
+		this.bufferedRowNumbers.add(Integer.valueOf(iRow));
+		boolean typesKnown = true;
+		for ( int iCol = 0; iCol < this.columnCount; iCol++ ) {
+			if ( this.columnTypes[iCol] < 0 ) {
+				this.columnTypes[iCol] = this.tk.getTableColumnTypeFromCell(cells[iCol]);
+				if ( this.columnTypes[iCol] < 0 ) {
+					typesKnown = false;
+				}
+			}
+		}
+		if ( typesKnown ) {
+			createColumns();
+		}
+		return true;
+	}
+
+	/**
+	Set the column names and requested column types.
+	@param headingCells cells for the column names, or null to use default names
+	*/
+	private void setColumnNames ( ExcelSheetEventReader.EventCell [] headingCells ) {
+		this.columnNames = new String[this.columnCount];
+		this.columnTypes = new int[this.columnCount];
+		for ( int iCol = 0; iCol < this.columnCount; iCol++ ) {
+			if ( headingCells == null ) {
+				this.columnNames[iCol] = "Column" + (iCol + 1);
+			}
+			else {
+				this.columnNames[iCol] = this.tk.getTableColumnNameFromCell(headingCells[iCol], iCol);
+			}
+			this.columnTypes[iCol] = this.tk.getRequestedTableColumnType ( this.columnNames[iCol],
+				this.excelDoubleColumns, this.excelIntegerColumns, this.excelDateTimeColumns, this.excelTextColumns, this.readAllAsText );
+		}
+	}
+}
+
 }
\ No newline at end of file
@@ -104,6 +104,7 @@ private JTextField __NumberPrecision_JTextField = null;
 private SimpleJComboBox __ReadAllAsText_JComboBox = null;
 private JTextField __RowCountProperty_JTextField = null;
 private SimpleJComboBox __KeepOpen_JComboBox = null;
+private SimpleJComboBox __Streaming_JComboBox = null;
 private SimpleJButton __cancel_JButton = null;
 private SimpleJButton __ok_JButton = null;
 private SimpleJButton __help_JButton = null;
@@ -258,6 +259,7 @@ private void checkInput () {
 	String ReadAllAsText  = __ReadAllAsText_JComboBox.getSelected();
 	String RowCountProperty = __RowCountProperty_JTextField.getText().trim();
 	String KeepOpen = __KeepOpen_JComboBox.getSelected();
+	String Streaming = __Streaming_JComboBox.getSelected();
 	__error_wait = false;
 
     if ( TableID.length() > 0 ) {
@@ -311,6 +313,9 @@ private void checkInput () {
     if ( KeepOpen.length() > 0 ) {
         props.set ( "KeepOpen", KeepOpen );
     }
+    if ( Streaming.length() > 0 ) {
+        props.set ( "Streaming", Streaming );
+    }
     if ( RowCountProperty.length() > 0 ) {
         props.set ( "RowCountProperty", RowCountProperty );
     }
@@ -348,6 +353,7 @@ private void commitEdits () {
 	String ReadAllAsText  = __ReadAllAsText_JComboBox.getSelected();
     String RowCountProperty = __RowCountProperty_JTextField.getText().trim();
     String KeepOpen  = __KeepOpen_JComboBox.getSelected();
+    String Streaming  = __Streaming_JComboBox.getSelected();
     __command.setCommandParameter ( "TableID", TableID );
 	__command.setCommandParameter ( "InputFile", InputFile );
 	__command.setCommandParameter ( "Worksheet", Worksheet );
@@ -366,6 +372,7 @@ private void commitEdits () {
 	__command.setCommandParameter ( "ReadAllAsText", ReadAllAsText );
 	__command.setCommandParameter ( "RowCountProperty", RowCountProperty );
 	__command.setCommandParameter ( "KeepOpen", KeepOpen );
+	__command.setCommandParameter ( "Streaming", Streaming );
 }
 
 /**
@@ -567,6 +574,22 @@ private void initialize ( JFrame parent, ReadTableFromExcel_Command command ) {
     JGUIUtil.addComponent(excel_JPanel, new JLabel ( "Optional - keep Excel file open? (default=" + __command._False + ")."),
         3, yExcel, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(excel_JPanel, new JLabel( "Streaming?:"),
+        0, ++yExcel, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __Streaming_JComboBox = new SimpleJComboBox ( false );
+    List<String> streamingChoices = new ArrayList<>();
+    __Streaming_JComboBox.setPrototypeDisplayValue(__command._False + "MMMM"); // to fix some issues with layout of dynamic components.
+    streamingChoices.add("");
+    streamingChoices.add(__command._False);
+    streamingChoices.add(__command._True);
+    __Streaming_JComboBox.setData(streamingChoices);
+    __Streaming_JComboBox.select ( 0 );
+    __Streaming_JComboBox.addItemListener ( this );
+    JGUIUtil.addComponent(excel_JPanel, __Streaming_JComboBox,
+        1, yExcel, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(excel_JPanel, new JLabel ( "Optional - stream *.xlsx without loading workbook (default=" + __command._False + ")."),
+        3, yExcel, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     // Panel for filter parameters.
     int yFilter = -1;
     JPanel filter_JPanel = new JPanel();
@@ -806,6 +829,7 @@ private void refresh () {
 	String ReadAllAsText = "";
     String RowCountProperty = "";
     String KeepOpen = "";
+    String Streaming = "";
 	PropList props = __command.getCommandParameters();
 	if (__first_time) {
 		__first_time = false;
@@ -827,6 +851,7 @@ private void refresh () {
 		ReadAllAsText = props.getValue ( "ReadAllAsText" );
         RowCountProperty = props.getValue ( "RowCountProperty" );
 		KeepOpen = props.getValue ( "KeepOpen" );
+		Streaming = props.getValue ( "Streaming" );
         if ( TableID != null ) {
             __TableID_JTextField.setText ( TableID );
         }
@@ -915,6 +940,19 @@ private void refresh () {
                     KeepOpen + "\".  Select a different choice or Cancel." );
             }
         }
+        if ( Streaming == null || Streaming.equals("") ) {
+            // Select a default.
+            __Streaming_JComboBox.select ( 0 );
+        }
+        else {
+            if ( JGUIUtil.isSimpleJComboBoxItem( __Streaming_JComboBox, Streaming, JGUIUtil.NONE, null, null ) ) {
+                __Streaming_JComboBox.select ( Streaming );
+            }
+            else {
+                Message.printWarning ( 1, routine, "Existing command references an invalid\nStreaming \"" +
+                    Streaming + "\".  Select a different choice or Cancel." );
+            }
+        }
 	}
 	// Regardless, reset the command from the fields.
     TableID = __TableID_JTextField.getText().trim();
@@ -935,6 +973,7 @@ private void refresh () {
 	ReadAllAsText = __ReadAllAsText_JComboBox.getSelected();
 	RowCountProperty = __RowCountProperty_JTextField.getText().trim();
 	KeepOpen = __KeepOpen_JComboBox.getSelected();
+	Streaming = __Streaming_JComboBox.getSelected();
 	props = new PropList ( __command.getCommandName() );
     props.add ( "TableID=" + TableID );
 	props.add ( "InputFile=" + InputFile );
@@ -954,6 +993,7 @@ private void refresh () {
 	props.add ( "ReadAllAsText=" + ReadAllAsText );
 	props.add ( "RowCountProperty=" + RowCountProperty );
 	props.add ( "KeepOpen=" + KeepOpen );
+	props.add ( "Streaming=" + Streaming );
 	__command_JTextArea.setText( __command.toString ( props ).trim() );
 	// Check the path and determine what the label on the path button should be.
 	if (__path_JButton != null) {
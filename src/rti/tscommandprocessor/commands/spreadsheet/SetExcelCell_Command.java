@@ -511,6 +511,7 @@ throws FileNotFoundException, IOException
     
     Workbook wb = null;
     InputStream inp = null;
+    boolean pinned = false; // Whether the open workbook is pinned in the cache.
     boolean doSetComment = false;
     try {
     	// Set some booleans to make processing faster below
@@ -520,8 +521,10 @@ throws FileNotFoundException, IOException
     	// Create a toolkit for utility functions.
     	ExcelToolkit tk = new ExcelToolkit();
         // See if an open workbook by the same name exists
-        WorkbookFileMetadata wbMeta = ExcelUtil.getOpenWorkbook(workbookFile);
+        // Pin the open workbook so that it is not evicted from the cache while it is modified.
+        WorkbookFileMetadata wbMeta = ExcelUtil.pinOpenWorkbook(workbookFile);
         if ( wbMeta != null ) {
+        	pinned = true;
         	wb = wbMeta.getWorkbook();
         }
         if ( wb == null ) {
@@ -679,6 +682,9 @@ throws FileNotFoundException, IOException
         Message.printWarning(3,routine,e);
     }
     finally {
+        if ( pinned ) {
+            ExcelUtil.unpinOpenWorkbook(workbookFile);
+        }
         // Now write the workbook and close.  If keeping open skip because it will be written by a later command.
         if ( keepOpen ) {
             // Save the open workbook for other commands to use
@@ -225,11 +225,14 @@ CommandWarningException, CommandException {
 
 	// Now process the file.
 
+	boolean pinned = false; // Whether the open workbook is pinned in the cache.
 	try {
         // See if an open workbook by the same name exists.
 		Workbook wb = null;
-        WorkbookFileMetadata wbMeta = ExcelUtil.getOpenWorkbook(OutputFile_full);
+        // Pin the open workbook so that it is not evicted from the cache while it is modified.
+        WorkbookFileMetadata wbMeta = ExcelUtil.pinOpenWorkbook(OutputFile_full);
         if ( wbMeta != null ) {
+        	pinned = true;
         	wb = wbMeta.getWorkbook();
         }
         if ( wb == null ) {
@@ -328,7 +331,11 @@ CommandWarningException, CommandException {
 	            }
         	}
             // If keeping open skip because it will be written by a later command.
-            if ( !keepOpen ) {
+            if ( keepOpen ) {
+                // The workbook has been modified so indicate that it is open for writing, so that it is not evicted from the cache.
+                ExcelUtil.setOpenWorkbook(OutputFile_full,"w",wb);
+            }
+            else {
                 // Close the workbook and remove from the cache.
                 wb.setForceFormulaRecalculation(true); // Will cause Excel to recalculate formulas when it opens.
                 FileOutputStream fout = new FileOutputStream(OutputFile_full);
@@ -346,6 +353,11 @@ CommandWarningException, CommandException {
             message, "Verify that the file exists and is readable." ) );
 		throw new CommandWarningException ( message );
 	}
+	finally {
+		if ( pinned ) {
+			ExcelUtil.unpinOpenWorkbook(OutputFile_full);
+		}
+	}
 
 	if ( warning_count > 0 ) {
 		message = "There were " + warning_count + " warnings processing the command.";
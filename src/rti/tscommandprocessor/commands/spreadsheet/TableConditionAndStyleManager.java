@@ -28,10 +28,7 @@ import java.util.Hashtable;
 import java.util.List;
 
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFCellStyle;
-import org.apache.poi.xssf.usermodel.XSSFColor;
 
 import RTi.GR.GRColor;
 import RTi.Util.Message.Message;
@@ -92,10 +89,14 @@ Column styles are those defined by legacy command parameters and formatTable ent
 private CellStyle [] columnStyles = null;
 
 /**
-Excel data formats corresponding to defaults for the columns, will be augmented by cell styles.
-Column styles are those defined by legacy command parameters and formatTable entries where condition is blank.
+Excel data format strings corresponding to defaults for the columns, null to use the default format.
 */
-private DataFormat [] columnDataFormats = null;
+private String [] columnDataFormatStrings = null;
+
+/**
+Pool of styles, so that columns and cells with the same formatting share a style.
+*/
+private CellStylePool stylePool = null;
 
 /**
 Excel styles corresponding to the style table rows.
@@ -112,20 +113,24 @@ Prior to these requests some column-based styles may be set.
 private boolean cellStylesInitialized = false;
 
 /**
-Workbook used to create styles.
+Constructor.
 */
-private Workbook wb = null;
+public TableConditionAndStyleManager ( DataTable dataTable, int [] includeColumnNumbers, DataTable conditionTable, DataTable styleTable, Workbook wb )
+{
+	this ( dataTable, includeColumnNumbers, conditionTable, styleTable, new CellStylePool(wb) );
+}
 
 /**
-Constructor.
+Constructor using a style pool, to share styles with other output to the workbook.
 */
-public TableConditionAndStyleManager ( DataTable dataTable, int [] includeColumnNumbers, DataTable conditionTable, DataTable styleTable, Workbook wb )
+TableConditionAndStyleManager ( DataTable dataTable, int [] includeColumnNumbers, DataTable conditionTable, DataTable styleTable,
+	CellStylePool stylePool )
 {
 	this.dataTable = dataTable;
 	this.includeColumnNumbers = includeColumnNumbers;
 	this.styleTable = styleTable;
 	this.conditionTable = conditionTable;
-	this.wb = wb;
+	this.stylePool = stylePool;
 	try {
 		// The "Column" column provides glob-style patterns to match for the conditions.
 		this.conditionTableColumnNum = conditionTable.getFieldIndex("Column");
@@ -153,14 +158,13 @@ public TableConditionAndStyleManager ( DataTable dataTable, int [] includeColumn
 	}
 	// Create styles for each column in the table
 	this.columnStyles = new CellStyle[this.includeColumnNumbers.length];
-	this.columnDataFormats = new DataFormat[this.includeColumnNumbers.length];
+	this.columnDataFormatStrings = new String[this.includeColumnNumbers.length];
 	for ( int i = 0; i < this.columnStyles.length; i++ ) {
-		// The following creates default styles that can be modified by calls to:
+		// The following are default styles that can be replaced by calls to:
 		// - setColumnDataFormat().
-		this.columnStyles[i] = wb.createCellStyle();
-		this.columnDataFormats[i] = wb.createDataFormat();
+		this.columnStyles[i] = this.stylePool.getStyle(null,null);
 	}
-	// Cell styles will be a copy of the column style but with version for each format,
+	// Cell styles will use the column format with each style table fill color,
 	// as initialized in initializeCellStyles() - don't do here because other methods
 	// may be called to provide additional defaults.
 }
@@ -869,21 +873,15 @@ private void initializeCellStyles ()
 			catch ( Exception e ) {
 				continue;
 			}
-			// Create a new style that is a copy of the column style
-			XSSFCellStyle cs = (XSSFCellStyle)this.wb.createCellStyle();
-			cs.cloneStyleFrom(this.columnStyles[iColStyle]);
-			// Now set more specific styles based on information in the style table
+			// Get a style with the column format and more specific styles based on information in the style table:
+			// - styles with the same format and color are shared, rather than creating a style for each column and style ID
+			CellStyle cs = null;
 			if ( fillFGColorColNum >= 0 ) {
 				// Color may have various forms so parse using GRColor method
 				// Apparently foreground default is black
-				// Setting background does nothing for solid since foreground is used.
 				GRColor c = GRColor.parseColor(fillFGColor);
 				//Message.printStatus(2,routine,"Color is \"" + fillFGColor + "\" " + c.getRed() + "," + c.getGreen() + "," + c.getBlue());
-				cs.setFillForegroundColor(new XSSFColor(c));
-				//cs.setFillBackgroundColor(new XSSFColor(c));
-				//cs.setFillForegroundColor(IndexedColors.ORANGE.getIndex());
-				//cs.setFillBackgroundColor(IndexedColors.RED.getIndex());
-				cs.setFillPattern(CellStyle.SOLID_FOREGROUND);
+				cs = this.stylePool.getStyle(this.columnDataFormatStrings[iColStyle], c);
 				//Message.printStatus(2,routine,"Setting style fill foreground color for " + fillFGColor + " to " + c);
 				if ( Message.isDebugOn ) {
 					Message.printDebug(1,routine,"Setting style fill foreground color for " + fillFGColor + " to " +
@@ -891,6 +889,7 @@ private void initializeCellStyles ()
 				}
 			}
 			else {
+				cs = this.columnStyles[iColStyle];
 				if ( Message.isDebugOn ) {
 					Message.printDebug(1,routine,"No fill foreground for style \"" + styleID + "\"");
 				}
@@ -912,7 +911,9 @@ Set the data format for a column.
 */
 public void setColumnDataFormat(int col, String format)
 {
-	this.columnStyles[col].setDataFormat(this.columnDataFormats[col].getFormat(format));
+	// Styles are shared so replace the column style rather than modifying it.
+	this.columnDataFormatStrings[col] = format;
+	this.columnStyles[col] = this.stylePool.getStyle(format,null);
 }
 
 }
@@ -47,6 +47,16 @@ Workbook instance that is being managed, as created with POI.
 */
 private Workbook wb = null;
 
+/**
+Number of times the workbook has been pinned in the open workbook cache, to prevent eviction.
+*/
+private int pinCount = 0;
+
+/**
+Estimated memory in bytes used by the workbook, used to limit the size of the open workbook cache.
+*/
+private long estimatedMemoryBytes = 0;
+
 /**
 Constructor with metadata.
 */
@@ -57,6 +67,14 @@ public WorkbookFileMetadata ( String filename, String mode, Workbook wb )
 	this.wb = wb;
 }
 
+/**
+Return the estimated memory in bytes used by the workbook.
+*/
+public long getEstimatedMemoryBytes ()
+{
+	return this.estimatedMemoryBytes;
+}
+
 /**
 Return the workbook filename.
 */
@@ -73,6 +91,14 @@ public String getMode ()
 	return this.mode;
 }
 
+/**
+Return the number of times the workbook has been pinned in the open workbook cache.
+*/
+public int getPinCount ()
+{
+	return this.pinCount;
+}
+
 /**
 Return the Workbook instance.
 */
@@ -81,6 +107,22 @@ public Workbook getWorkbook ()
 	return this.wb;
 }
 
+/**
+Indicate whether the workbook is pinned in the open workbook cache, in which case it will not be evicted.
+*/
+public boolean isPinned ()
+{
+	return this.pinCount > 0;
+}
+
+/**
+Set the estimated memory in bytes used by the workbook.
+*/
+void setEstimatedMemoryBytes ( long estimatedMemoryBytes )
+{
+	this.estimatedMemoryBytes = estimatedMemoryBytes;
+}
+
 /**
 Set the read/write mode for the workbook, "r" for reading and "w" for writing.
 Typically this is set as "r" when opening for reading and "w" when opening/creating for writing.
@@ -91,4 +133,13 @@ public void setMode ( String mode )
 	this.mode = mode;
 }
 
+/**
+Set the number of times the workbook has been pinned in the open workbook cache.
+This is managed by ExcelUtil.pinOpenWorkbook() and ExcelUtil.unpinOpenWorkbook().
+*/
+void setPinCount ( int pinCount )
+{
+	this.pinCount = pinCount;
+}
+
 }
@@ -28,7 +28,6 @@ import javax.swing.JFrame;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.Name;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -37,6 +36,8 @@ import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.AreaReference;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
@@ -138,6 +139,7 @@ throws InvalidCommandParameterException {
     String OutputFile = parameters.getValue ( "OutputFile" );
     String ExcelColumnNames = parameters.getValue ( "ExcelColumnNames" );
 	String KeepOpen = parameters.getValue ( "KeepOpen" );
+	String Streaming = parameters.getValue ( "Streaming" );
 	String warning = "";
     String message;
 
@@ -226,10 +228,19 @@ throws InvalidCommandParameterException {
                 message, "KeepOpen must be specified as " + _False + " (default) or " + _True ) );
     }
 
+    if ( Streaming != null && !Streaming.equalsIgnoreCase(_True) &&
+        !Streaming.equalsIgnoreCase(_False) && !Streaming.isEmpty() ) {
+        message = "Streaming is invalid.";
+        warning += "\n" + message;
+        status.addToLog ( CommandPhaseType.INITIALIZATION,
+            new CommandLogRecord(CommandStatusType.FAILURE,
+                message, "Streaming must be specified as " + _False + " (default) or " + _True ) );
+    }
+
 	// TODO SAM 2005-11-18 Check the format.
 
 	//  Check for invalid parameters.
-	List<String> validList = new ArrayList<>(22);
+	List<String> validList = new ArrayList<>(23);
     validList.add ( "TableID" );
     validList.add ( "IncludeColumns" );
     validList.add ( "ExcludeColumns" );
@@ -245,6 +256,7 @@ throws InvalidCommandParameterException {
     validList.add ( "WriteAllAsText" );
     validList.add ( "ColumnNamedRanges" );
     validList.add ( "KeepOpen" );
+    validList.add ( "Streaming" );
     validList.add ( "ColumnCellTypes" );
     validList.add ( "ColumnWidths" );
     validList.add ( "ColumnDecimalPlaces" );
@@ -539,6 +551,11 @@ throws InvalidCommandParameterException, CommandWarningException {
     if ( (KeepOpen != null) && KeepOpen.equalsIgnoreCase("True") ) {
         keepOpen = true;
     }
+    String Streaming = parameters.getValue ( "Streaming" );
+    boolean streaming = false; // Default is to write the workbook in memory.
+    if ( (Streaming != null) && Streaming.equalsIgnoreCase("True") ) {
+        streaming = true;
+    }
     String ColumnCellTypes = parameters.getValue ( "ColumnCellTypes" );
     if ( commandPhase == CommandPhaseType.RUN ) {
     	ColumnCellTypes = TSCommandProcessorUtil.expandParameterValue(processor, this, ColumnCellTypes);
@@ -761,7 +778,7 @@ throws InvalidCommandParameterException, CommandWarningException {
         writeTableToExcelFile ( table, includeColumnNumbers, OutputFile_full, Worksheet,
             ExcelAddress, ExcelNamedRange, ExcelTableName, ExcelColumnNames,
             columnIncludeFilters, columnExcludeFilters,
-            columnNamedRanges, keepOpen, columnCellTypes, columnWidths, columnDecimalPlaces,
+            columnNamedRanges, keepOpen, streaming, columnCellTypes, columnWidths, columnDecimalPlaces,
             conditionTable, styleTable, LegendWorksheet, LegendAddress,
             problems );
         for ( String problem: problems ) {
@@ -821,6 +838,7 @@ public String toString ( PropList parameters ) {
 		"ColumnExcludeFilters",
 		"ColumnNamedRanges",
 		"KeepOpen",
+		"Streaming",
 		"ColumnCellTypes",
 		"ColumnWidths",
 		"ColumnDecimalPlaces",
@@ -926,6 +944,8 @@ by one of the parameters excelAddress, excelNamedRange, excelTableName.
 @param columnExcludeFiltersMap a map indicating patters for column values, to exclude rows
 @param columnNamedRanges column names and name range name to define
 @param keepOpen if True, the Excel workbook will be kept open and not written
+@param streaming if True and the workbook file does not exist, create a new workbook and write the rows with a streaming workbook,
+which limits the number of rows in memory, used for large *.xlsx output
 @param columnCellTypes column names and Excel cell types
 @param columnWidths column names and widths ("Auto" to auto-size, or integer points)
 @param columnDecimalPlaces column names and number of decimal places (used for floating point data)
@@ -946,6 +966,7 @@ private void writeTableToExcelFile (
 	StringDictionary columnExcludeFilters,
     Hashtable<String,String> columnNamedRanges,
 	boolean keepOpen,
+	boolean streaming,
     StringDictionary columnCellTypes,
 	StringDictionary columnWidths,
     StringDictionary columnDecimalPlaces,
@@ -959,6 +980,7 @@ throws FileNotFoundException, IOException {
 
     Workbook wb = null;
     InputStream inp = null;
+    boolean pinned = false; // Whether the open workbook is pinned in the cache.
     try {
         // Get include filter columns and glob-style regular expressions.
         int [] columnIncludeFiltersNumbers = new int[0];
@@ -1013,11 +1035,27 @@ throws FileNotFoundException, IOException {
     	// Create a toolkit for utility functions.
     	ExcelToolkit tk = new ExcelToolkit();
         // See if an open workbook by the same name exists.
-        WorkbookFileMetadata wbMeta = ExcelUtil.getOpenWorkbook(workbookFile);
+        // Pin the open workbook so that it is not evicted from the cache while it is modified.
+        WorkbookFileMetadata wbMeta = ExcelUtil.pinOpenWorkbook(workbookFile);
         if ( wbMeta != null ) {
+        	pinned = true;
         	Message.printStatus(2, routine, "Writing to open workbook \"" + workbookFile + "\".");
         	wb = wbMeta.getWorkbook();
         }
+        boolean newWorkbook = false;
+        if ( (wb == null) && streaming && !keepOpen && workbookFile.toLowerCase().endsWith(".xlsx") &&
+            !new File(workbookFile).exists() ) {
+            // Create a new workbook so that it can be streamed.
+            Message.printStatus(2, routine, "Creating new workbook \"" + workbookFile + "\".");
+            wb = new XSSFWorkbook();
+            if ( (sheetName == null) || sheetName.isEmpty() ) {
+                wb.createSheet();
+            }
+            else {
+                wb.createSheet(sheetName);
+            }
+            newWorkbook = true;
+        }
         if ( wb == null ) {
             // Workbook is not open in memory so Open the file.
             try {
@@ -1067,6 +1105,37 @@ throws FileNotFoundException, IOException {
             return;
         }
         Message.printStatus(2,routine,"Excel address block to write: " + area );
+        // Use a streaming workbook if requested:
+        // - the workbook must be new so that an existing file is not fully read before streaming
+        // - the workbook must be written by this command
+        // - the legend is not written because the legend may be written to a worksheet that is not streamed
+        boolean doStreaming = false;
+        if ( streaming ) {
+        	List<String> streamingProblems = new ArrayList<>();
+        	if ( keepOpen || (wbMeta != null) ) {
+        		streamingProblems.add ( "Streaming output cannot be used with a workbook that is kept open." );
+        	}
+        	else if ( !newWorkbook ) {
+        		streamingProblems.add ( "Streaming output is only used when the workbook file does not exist " +
+        			"because an existing workbook must be fully read." );
+        	}
+        	else if ( (legendAddress != null) && !legendAddress.isEmpty() ) {
+        		streamingProblems.add ( "Streaming output cannot be used when writing a legend." );
+        	}
+        	else {
+        		Workbook swb = tk.createStreamingWorkbook ( wb,
+        			ExcelToolkit.DEFAULT_STREAMING_ROW_ACCESS_WINDOW_SIZE, streamingProblems );
+        		if ( swb != null ) {
+        			wb = swb;
+        			sheet = wb.getSheet(sheet.getSheetName());
+        			doStreaming = true;
+        			Message.printStatus(2, routine, "Using streaming output to write worksheet \"" + sheet.getSheetName() + "\".");
+        		}
+        	}
+        	for ( String streamingProblem : streamingProblems ) {
+        		Message.printStatus(2, routine, streamingProblem + "  Writing the workbook in memory.");
+        	}
+        }
         // Get the upper left row/column to write from the addresses.
         int cols = includeColumnNumbers.length;
         int rows = table.getNumberOfRecords();
@@ -1107,13 +1176,20 @@ throws FileNotFoundException, IOException {
         //  2) write column names (if requested)
         //  3) indicate whether to auto-size column or set column specifically
         //  4) set up column styles/formatting for data values
-        DataFormat [] columnCellFormats = new DataFormat[cols];
         CellStyle [] columnCellStyles = new CellStyle[cols];
+        // Styles are shared by columns with the same formatting to limit the number of styles in the workbook.
+        CellStylePool stylePool = new CellStylePool(wb);
         // Initialize styles corresponding to styleTable, newer approach to styling.
         // The styles in this table will be used by default with the above setting style information to the below.
         TableConditionAndStyleManager styleManager = null;
         if ( styleTable != null ) {
-        	styleManager = new TableConditionAndStyleManager(table,includeColumnNumbers,conditionTable,styleTable,wb);
+        	styleManager = new TableConditionAndStyleManager(table,includeColumnNumbers,conditionTable,styleTable,stylePool);
+        }
+        // Length of the longest value in each column, used to set column widths when streaming because
+        // streamed rows are not available to auto-size the columns.
+        int [] columnTextLengths = null;
+        if ( doStreaming ) {
+        	columnTextLengths = new int[cols];
         }
         int tableFieldType;
         int precision;
@@ -1169,6 +1245,9 @@ throws FileNotFoundException, IOException {
             try {
                 if ( doWriteColumnNames ) {
                     wbCell.setCellValue(tableColumnName);
+                    if ( columnTextLengths != null ) {
+                    	columnTextLengths[col] = tableColumnName.length();
+                    }
                 }
                 Message.printStatus(2, routine, "Setting [" + rowOutColumnNames + "][" + col + "] = " + tableColumnName );
             }
@@ -1181,8 +1260,7 @@ throws FileNotFoundException, IOException {
             // 3. Set the column width:
             //    - actually, have to do this after the data have been set so see post-write section below
             // 4. Create the styles for the data values, including number of decimals (precision).
-            columnCellFormats[col] = wb.createDataFormat();
-            columnCellStyles[col] = wb.createCellStyle();
+            columnCellStyles[col] = stylePool.getStyle(null,null);
             if ( (tableFieldType == TableField.DATA_TYPE_FLOAT) || (tableFieldType == TableField.DATA_TYPE_DOUBLE) ) {
                 precision = table.getFieldPrecision(includeColumnNumbers[col]);
                 String numDec = columnDecimalPlaces.get(tableColumnName);
@@ -1213,7 +1291,7 @@ throws FileNotFoundException, IOException {
                 }
                 if ( styleManager == null ) {
                 	// Old-style.
-                	columnCellStyles[col].setDataFormat(columnCellFormats[col].getFormat(tk.createFormatForFloat(precision)));
+                	columnCellStyles[col] = stylePool.getStyle(tk.createFormatForFloat(precision),null);
                 }
                 else {
                 	// New-style.
@@ -1223,7 +1301,7 @@ throws FileNotFoundException, IOException {
             else if ( (tableFieldType == TableField.DATA_TYPE_INT) || (tableFieldType == TableField.DATA_TYPE_LONG) ) {
             	if ( styleManager == null ) {
             		// Old-style.
-            		columnCellStyles[col].setDataFormat(columnCellFormats[col].getFormat("0"));
+            		columnCellStyles[col] = stylePool.getStyle("0",null);
             	}
             	else {
             		// New-style.
@@ -1493,6 +1571,10 @@ throws FileNotFoundException, IOException {
                         cellString = "" + fieldValue;
                         wbCell.setCellValue(cellString);
                     }
+                    if ( columnTextLengths != null ) {
+                    	// Track the longest value to set the column width.
+                    	columnTextLengths[col] = Math.max(columnTextLengths[col], tk.estimateCellTextLength(wbCell, precision));
+                    }
                     //Message.printStatus(2,routine,"After cell data set, cell style fill foreground color is " + wbCell.getCellStyle().getFillForegroundColor());
                     //Message.printStatus(2,routine,"After cell data set, cell style fill background color is " + wbCell.getCellStyle().getFillBackgroundColor());
                     //Message.printStatus(2,routine,"After cell data set, cell style fill pattern is " + wbCell.getCellStyle().getFillPattern());
@@ -1552,7 +1634,13 @@ throws FileNotFoundException, IOException {
                 // Have found the column width:
             	// - set the column width
                 if ( width.equalsIgnoreCase("Auto") ) {
-                    sheet.autoSizeColumn(colOut);
+                	if ( columnTextLengths != null ) {
+                		// Streamed rows are not available so set the width from the longest value.
+                		tk.setColumnWidthFromTextLength(sheet, colOut, columnTextLengths[col]);
+                	}
+                	else {
+                		sheet.autoSizeColumn(colOut);
+                	}
                     Message.printStatus(2,routine,"Setting column \"" + tableColumnName + "\" [" + colOut + "] width to auto.");
                 }
                 else {
@@ -1580,6 +1668,9 @@ throws FileNotFoundException, IOException {
         Message.printWarning(3,routine,e);
     }
     finally {
+        if ( pinned ) {
+            ExcelUtil.unpinOpenWorkbook(workbookFile);
+        }
         // Now write the workbook and close.  If keeping open skip because it will be written by a later command.
         if ( keepOpen ) {
             // Save the open workbook for other commands to use.
@@ -1592,6 +1683,10 @@ throws FileNotFoundException, IOException {
             FileOutputStream fout = new FileOutputStream(workbookFile);
             wb.write(fout);
             fout.close();
+            if ( wb instanceof SXSSFWorkbook ) {
+            	// Remove the temporary files used for streamed rows.
+            	((SXSSFWorkbook)wb).dispose();
+            }
             ExcelUtil.removeOpenWorkbook(workbookFile);
         }
     }
@@ -98,6 +98,7 @@ private JTextArea __ColumnIncludeFilters_JTextArea = null;
 private JTextArea __ColumnExcludeFilters_JTextArea = null;
 private JTextArea __ColumnNamedRanges_JTextArea = null;
 private SimpleJComboBox __KeepOpen_JComboBox = null;
+private SimpleJComboBox __Streaming_JComboBox = null;
 private JTextArea __ColumnWidths_JTextArea = null;
 private JTextArea __ColumnCellTypes_JTextArea = null;
 private JTextArea __ColumnDecimalPlaces_JTextArea = null;
@@ -332,6 +333,7 @@ private void checkInput () {
 	String LegendWorksheet = __LegendWorksheet_JTextField.getText().trim();
 	String LegendAddress = __LegendAddress_JTextField.getText().trim();
 	String KeepOpen = __KeepOpen_JComboBox.getSelected();
+	String Streaming = __Streaming_JComboBox.getSelected();
 	__error_wait = false;
 
     if ( TableID.length() > 0 ) {
@@ -373,6 +375,9 @@ private void checkInput () {
     if ( KeepOpen.length() > 0 ) {
         props.set ( "KeepOpen", KeepOpen );
     }
+    if ( Streaming.length() > 0 ) {
+        props.set ( "Streaming", Streaming );
+    }
     if ( ColumnCellTypes.length() > 0 ) {
         props.set ( "ColumnCellTypes", ColumnCellTypes );
     }
@@ -425,6 +430,7 @@ private void commitEdits () {
 	//String ExcelDateTimeColumns  = __ExcelDateTimeColumns_JTextField.getText().trim();
 	String ColumnNamedRanges = __ColumnNamedRanges_JTextArea.getText().trim().replace("\n"," ");
 	String KeepOpen  = __KeepOpen_JComboBox.getSelected();
+	String Streaming = __Streaming_JComboBox.getSelected();
     String ColumnCellTypes = __ColumnCellTypes_JTextArea.getText().trim().replace("\n"," ");
     String ColumnWidths = __ColumnWidths_JTextArea.getText().trim().replace("\n"," ");
     String ColumnDecimalPlaces = __ColumnDecimalPlaces_JTextArea.getText().trim().replace("\n"," ");
@@ -447,6 +453,7 @@ private void commitEdits () {
 	//__command.setCommandParameter ( "ExcelDateTimeColumns", ExcelDateTimeColumns );
 	__command.setCommandParameter ( "ColumnNamedRanges", ColumnNamedRanges );
 	__command.setCommandParameter ( "KeepOpen", KeepOpen );
+	__command.setCommandParameter ( "Streaming", Streaming );
 	__command.setCommandParameter ( "ColumnCellTypes", ColumnCellTypes );
 	__command.setCommandParameter ( "ColumnWidths", ColumnWidths );
 	__command.setCommandParameter ( "ColumnDecimalPlaces", ColumnDecimalPlaces );
@@ -732,6 +739,20 @@ private void initialize ( JFrame parent, WriteTableToExcel_Command command, List
     JGUIUtil.addComponent(excelOutput_JPanel, new JLabel ( "Optional - keep Excel file open? (default=" + __command._False + ")."),
         3, yExcelOutput, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(excelOutput_JPanel, new JLabel( "Streaming?:"),
+        0, ++yExcelOutput, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __Streaming_JComboBox = new SimpleJComboBox ( false );
+    __Streaming_JComboBox.add("");
+    __Streaming_JComboBox.add(__command._False);
+    __Streaming_JComboBox.add(__command._True);
+    __Streaming_JComboBox.select ( 0 );
+    __Streaming_JComboBox.addItemListener ( this );
+    JGUIUtil.addComponent(excelOutput_JPanel, __Streaming_JComboBox,
+        1, yExcelOutput, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(excelOutput_JPanel, new JLabel (
+        "Optional - stream rows when creating a new *.xlsx file, for large output (default=" + __command._False + ")."),
+        3, yExcelOutput, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     // Panel for Excel formatting.
     int yExcelFormat = -1;
     JPanel excelFormat_JPanel = new JPanel();
@@ -959,6 +980,7 @@ private void refresh () {
 	String WriteAllAsText = "";
 	String ColumnNamedRanges = "";
 	String KeepOpen = "";
+	String Streaming = "";
 	String ColumnCellTypes = "";
 	String ColumnWidths = "";
 	String ColumnDecimalPlaces = "";
@@ -986,6 +1008,7 @@ private void refresh () {
 		WriteAllAsText = props.getValue ( "WriteAllAsText" );
 		ColumnNamedRanges = props.getValue ( "ColumnNamedRanges" );
 		KeepOpen = props.getValue ( "KeepOpen" );
+		Streaming = props.getValue ( "Streaming" );
 		ColumnCellTypes = props.getValue ( "ColumnCellTypes" );
 		ColumnWidths = props.getValue ( "ColumnWidths" );
 		ColumnDecimalPlaces = props.getValue ( "ColumnDecimalPlaces" );
@@ -1068,6 +1091,19 @@ private void refresh () {
                     KeepOpen + "\".  Select a different choice or Cancel." );
             }
         }
+        if ( Streaming == null || Streaming.equals("") ) {
+            // Select a default.
+            __Streaming_JComboBox.select ( 0 );
+        }
+        else {
+            if ( JGUIUtil.isSimpleJComboBoxItem( __Streaming_JComboBox, Streaming, JGUIUtil.NONE, null, null ) ) {
+                __Streaming_JComboBox.select ( Streaming );
+            }
+            else {
+                Message.printWarning ( 1, routine, "Existing command references an invalid\nStreaming \"" +
+                    Streaming + "\".  Select a different choice or Cancel." );
+            }
+        }
         if ( ColumnCellTypes != null ) {
             __ColumnCellTypes_JTextArea.setText ( ColumnCellTypes );
         }
@@ -1128,6 +1164,7 @@ private void refresh () {
 	ColumnExcludeFilters = __ColumnExcludeFilters_JTextArea.getText().trim();
 	ColumnNamedRanges = __ColumnNamedRanges_JTextArea.getText().trim().replace("\n"," ");
 	KeepOpen = __KeepOpen_JComboBox.getSelected();
+	Streaming = __Streaming_JComboBox.getSelected();
 	ColumnCellTypes = __ColumnCellTypes_JTextArea.getText().trim().replace("\n"," ");
 	ColumnWidths = __ColumnWidths_JTextArea.getText().trim().replace("\n"," ");
 	ColumnDecimalPlaces = __ColumnDecimalPlaces_JTextArea.getText().trim().replace("\n"," ");
@@ -1153,6 +1190,7 @@ private void refresh () {
 	props.add ( "WriteAllAsText=" + WriteAllAsText );
 	props.add ( "ColumnNamedRanges=" + ColumnNamedRanges );
 	props.add ( "KeepOpen=" + KeepOpen );
+	props.add ( "Streaming=" + Streaming );
 	props.add ( "ColumnCellTypes=" + ColumnCellTypes );
 	props.add ( "ColumnWidths=" + ColumnWidths );
 	props.add ( "ColumnDecimalPlaces=" + ColumnDecimalPlaces );
@@ -978,12 +978,15 @@ throws FileNotFoundException, IOException
 {   String routine = getClass().getSimpleName() + ".writeTimeSeries", message;
     Workbook wb = null;
     InputStream inp = null;
+    boolean pinned = false; // Whether the open workbook is pinned in the cache.
     try {
     	// Create toolkit instance for useful Excel methods
     	ExcelToolkit tk = new ExcelToolkit();
         // See if an open workbook by the same name exists
-        WorkbookFileMetadata wbMeta = ExcelUtil.getOpenWorkbook(workbookFile);
+        // Pin the open workbook so that it is not evicted from the cache while it is modified.
+        WorkbookFileMetadata wbMeta = ExcelUtil.pinOpenWorkbook(workbookFile);
         if ( wbMeta != null ) {
+        	pinned = true;
         	wb = wbMeta.getWorkbook();
         }
         if ( wb == null ) {
@@ -1421,6 +1424,9 @@ throws FileNotFoundException, IOException
         Message.printWarning(3,routine,e);
     }
     finally {
+        if ( pinned ) {
+            ExcelUtil.unpinOpenWorkbook(workbookFile);
+        }
         // Now write the workbook and close.  If keeping open skip because it will be written by a later command.
         if ( keepOpen ) {
             // Save the open workbook for other commands to use
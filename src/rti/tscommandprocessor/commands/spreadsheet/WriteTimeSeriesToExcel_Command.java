@@ -30,12 +30,12 @@ import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 //import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.AreaReference;
 import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import rti.tscommandprocessor.core.TSCommandProcessor;
@@ -95,7 +95,7 @@ Output file that is created by this command.
 private File __OutputFile_File = null;
 
 /**
-Possible values for KeepOpen parameter.
+Possible values for KeepOpen and Streaming parameters.
 */
 protected final String _False = "False";
 protected final String _True = "True";
@@ -139,6 +139,7 @@ throws InvalidCommandParameterException {
 	String ExcelNamedRange = parameters.getValue ( "ExcelNamedRange" );
 	String ExcelTableName = parameters.getValue ( "ExcelTableName" );
 	String KeepOpen = parameters.getValue ( "KeepOpen" );
+	String Streaming = parameters.getValue ( "Streaming" );
 	String ColumnCommentWidth = parameters.getValue ( "ColumnCommentWidth" );
 	String ColumnCommentHeight = parameters.getValue ( "ColumnCommentHeight" );
 	String SkipValueCommentIfNoFlag = parameters.getValue ( "SkipValueCommentIfNoFlag" );
@@ -273,6 +274,15 @@ throws InvalidCommandParameterException {
 	            message, "KeepOpen must be " + _False + " (default) or " + _True ) );
 	}
 
+	if ( Streaming != null && !Streaming.equalsIgnoreCase(_True) &&
+	    !Streaming.equalsIgnoreCase(_False) && !Streaming.equalsIgnoreCase("") ) {
+	    message = "Streaming is invalid.";
+	    warning += "\n" + message;
+	    status.addToLog ( CommandPhaseType.INITIALIZATION,
+	        new CommandLogRecord(CommandStatusType.FAILURE,
+	            message, "Streaming must be " + _False + " (default) or " + _True ) );
+	}
+
 	if ( SkipValueCommentIfNoFlag != null && !SkipValueCommentIfNoFlag.equalsIgnoreCase(_True) &&
 	    !SkipValueCommentIfNoFlag.equalsIgnoreCase(_False) && !SkipValueCommentIfNoFlag.equalsIgnoreCase("") ) {
 	    message = "SkipValueCommentIfNoFlag is invalid.";
@@ -317,7 +327,7 @@ throws InvalidCommandParameterException {
 	// TODO SAM 2005-11-18 Check the format.
 
 	//  Check for invalid parameters.
-	List<String> validList = new ArrayList<>(36);
+	List<String> validList = new ArrayList<>(37);
 	validList.add ( "TSList" );
 	validList.add ( "TSID" );
 	validList.add ( "EnsembleID" );
@@ -332,6 +342,7 @@ throws InvalidCommandParameterException {
 	validList.add ( "ExcelNamedRange" );
 	validList.add ( "ExcelTableName" );
 	validList.add ( "KeepOpen" );
+	validList.add ( "Streaming" );
 	validList.add ( "DateTimeColumn" );
 	validList.add ( "DateTimeFormatterType" );
 	validList.add ( "DateTimeFormat" );
@@ -511,6 +522,11 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	if ( (KeepOpen != null) && KeepOpen.equalsIgnoreCase(_True) ) {
 		keepOpen = true;
 	}
+	String Streaming = parameters.getValue ( "Streaming" );
+	boolean streaming = false;
+	if ( (Streaming != null) && Streaming.equalsIgnoreCase(_True) ) {
+		streaming = true;
+	}
 	String DateTimeColumn = parameters.getValue ( "DateTimeColumn" );
     String DateTimeFormatterType0 = parameters.getValue ( "DateTimeFormatterType" );
     if ( (DateTimeFormatterType0 == null) || DateTimeFormatterType0.equals("") ) {
@@ -774,7 +790,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
         Message.printStatus ( 2, routine, "Writing time series to Excel file \"" + OutputFile_full + "\"" );
         writeTimeSeries ( tslist,
         		precision, MissingValue, OutputStart_DateTime, OutputEnd_DateTime,
-        		OutputFile_full, append, Worksheet, ExcelAddress, ExcelNamedRange, ExcelTableName, keepOpen,
+        		OutputFile_full, append, Worksheet, ExcelAddress, ExcelNamedRange, ExcelTableName, keepOpen, streaming,
         		DateTimeColumn, dateTimeFormatterType, DateTimeFormat,
         		DateColumn, dateFormatterType, DateFormat,
         		TimeColumn, timeFormatterType, TimeFormat,
@@ -842,6 +858,7 @@ public String toString ( PropList parameters ) {
 		"ExcelNamedRange",
 		"ExcelTableName",
 		"KeepOpen",
+		"Streaming",
 		"DateTimeColumn",
 		"DateTimeFormatterType",
 		"DateTimeFormat",
@@ -982,6 +999,8 @@ Write a time series to the Excel file.
 @param output End end for output values
 @param workbookFile full path to output file
 @param keepOpen indicate whether Excel file should be kept open after writing
+@param streaming indicate whether to write the rows with a streaming workbook when a new workbook is created,
+which limits the number of rows in memory, used for large *.xlsx output
 @param dateTimeColumn name of column for date/time
 @param dateTimeFormatterType formatter type for date/times
 @param dateTimeFormat the format to use for date/times, when processed by the date/time formatter
@@ -999,6 +1018,7 @@ Write a time series to the Excel file.
 private void writeTimeSeries ( List<TS> tslist,
 	Integer precision, String missingValue, DateTime outputStart, DateTime outputEnd,
 	String workbookFile, boolean append, String sheetName, String excelAddress, String excelNamedRange, String excelTableName, boolean keepOpen,
+	boolean streaming,
 	String dateTimeColumn, DateTimeFormatterType dateTimeFormatterType, String dateTimeFormat,
 	String dateColumn, DateTimeFormatterType dateFormatterType, String dateFormat,
 	String timeColumn, DateTimeFormatterType timeFormatterType, String timeFormat,
@@ -1012,13 +1032,16 @@ throws FileNotFoundException, IOException {
    String routine = getClass().getSimpleName() + ".writeTimeSeries", message;
     Workbook wb = null;
     InputStream inp = null;
+    boolean pinned = false; // Whether the open workbook is pinned in the cache.
     Message.printStatus(2,routine,"author=\""+author+"\" columnComment=\""+columnComment+"\" valueComment=\""+valueComment+"\"");
     try {
     	// Create toolkit instance for useful Excel methods.
     	ExcelToolkit tk = new ExcelToolkit();
         // See if an open workbook by the same name exists.
-        WorkbookFileMetadata wbMeta = ExcelUtil.getOpenWorkbook(workbookFile);
+        // Pin the open workbook so that it is not evicted from the cache while it is modified.
+        WorkbookFileMetadata wbMeta = ExcelUtil.pinOpenWorkbook(workbookFile);
         if ( wbMeta != null ) {
+        	pinned = true;
         	wb = wbMeta.getWorkbook();
         }
         if ( wb == null ) {
@@ -1111,6 +1134,41 @@ throws FileNotFoundException, IOException {
             colOutStart = area.getFirstCell().getCol();
             rowOutStart = area.getFirstCell().getRow();
         }
+        // Use a streaming workbook if requested:
+        // - the workbook must be new so that an existing file is not fully read before streaming
+        // - the workbook must be written by this command
+        // - comments are not written because they are positioned using the rows in the worksheet
+        // - the legend is not written because the legend may be written to a worksheet that is not streamed
+        boolean doStreaming = false;
+        if ( streaming ) {
+        	List<String> streamingProblems = new ArrayList<>();
+        	if ( keepOpen || (wbMeta != null) ) {
+        		streamingProblems.add ( "Streaming output cannot be used with a workbook that is kept open." );
+        	}
+        	else if ( append ) {
+        		streamingProblems.add ( "Streaming output is only used when a new workbook is created (Append=" + _False +
+        			") because an existing workbook must be fully read." );
+        	}
+        	else if ( ((columnComment != null) && !columnComment.isEmpty()) || ((valueComment != null) && !valueComment.isEmpty()) ) {
+        		streamingProblems.add ( "Streaming output cannot be used when writing comments." );
+        	}
+        	else if ( (legendAddress != null) && !legendAddress.isEmpty() && (styleTable != null) ) {
+        		streamingProblems.add ( "Streaming output cannot be used when writing a legend." );
+        	}
+        	else {
+        		Workbook swb = tk.createStreamingWorkbook ( wb,
+        			ExcelToolkit.DEFAULT_STREAMING_ROW_ACCESS_WINDOW_SIZE, streamingProblems );
+        		if ( swb != null ) {
+        			wb = swb;
+        			sheet = wb.getSheet(sheet.getSheetName());
+        			doStreaming = true;
+        			Message.printStatus(2, routine, "Using streaming output to write worksheet \"" + sheet.getSheetName() + "\".");
+        		}
+        	}
+        	for ( String streamingProblem : streamingProblems ) {
+        		Message.printStatus(2, routine, streamingProblem + "  Writing the workbook in memory.");
+        	}
+        }
 
         if ( (tslist == null) || (tslist.size() == 0) ) {
         	// Cannot continue because time series need to be accessed below.
@@ -1251,19 +1309,19 @@ throws FileNotFoundException, IOException {
         int cols = tslist.size() + numDateTimeCol;
         // Set the cell formats for output (will be used for the data rows).
         // All formats for the column headings are text.
-        DataFormat [] cellFormats = new DataFormat[cols];
-        //DataFormat cellFormatHeader = wb.createDataFormat();
         CellStyle [] cellStyles = new CellStyle[cols];
         //CellStyle cellStyleHeader = wb.createCellStyle();
+        // Styles are shared by columns with the same formatting to limit the number of styles in the workbook.
+        CellStylePool stylePool = new CellStylePool(wb);
         // Initialize styles corresponding to styleTable, newer approach to styling.
         // The styles in this table will be used by default with the above setting style information to the below.
         TimeSeriesConditionAndStyleManager columnStyleManager = null;
         if ( columnStyleTable != null ) {
-        	columnStyleManager = new TimeSeriesConditionAndStyleManager(tslist,columnConditionTable,columnStyleTable,wb);
+        	columnStyleManager = new TimeSeriesConditionAndStyleManager(tslist,columnConditionTable,columnStyleTable,stylePool);
         }
         TimeSeriesConditionAndStyleManager styleManager = null;
         if ( styleTable != null ) {
-        	styleManager = new TimeSeriesConditionAndStyleManager(tslist,conditionTable,styleTable,wb);
+        	styleManager = new TimeSeriesConditionAndStyleManager(tslist,conditionTable,styleTable,stylePool);
         }
         int [] cellTypes = new int[cols];
         //int cellTypeHeader = Cell.CELL_TYPE_STRING;
@@ -1271,39 +1329,43 @@ throws FileNotFoundException, IOException {
         // TODO SAM 2015-02-17 Need to figure out how to store date/time in numeric - for now format a string.
         List<String> columnNames = new ArrayList<>();
         if ( dateTimeCol >= 0 ) {
-        	cellFormats[col] = wb.createDataFormat();
-            cellStyles[col] = wb.createCellStyle();
+            cellStyles[col] = stylePool.getStyle(null,null);
             cellTypes[col] = Cell.CELL_TYPE_STRING;
             columnNames.add(dateTimeColumn);
             ++col;
         }
         if ( dateCol >= 0 ) {
-        	cellFormats[col] = wb.createDataFormat();
-            cellStyles[col] = wb.createCellStyle();
+            cellStyles[col] = stylePool.getStyle(null,null);
             cellTypes[col] = Cell.CELL_TYPE_STRING;
             columnNames.add(dateColumn);
             ++col;
         }
         if ( timeCol >= 0 ) {
-        	cellFormats[col] = wb.createDataFormat();
-            cellStyles[col] = wb.createCellStyle();
+            cellStyles[col] = stylePool.getStyle(null,null);
             cellTypes[col] = Cell.CELL_TYPE_STRING;
             columnNames.add(timeColumn);
             ++col;
         }
         for ( col = numDateTimeCol, its = 0; col < cols; col++, its++ ) {
         	TS ts = tslist.get(its);
-        	cellFormats[col] = wb.createDataFormat();
-            cellStyles[col] = wb.createCellStyle();
-            cellStyles[col].setDataFormat(cellFormats[col].getFormat(tk.createFormatForFloat(tsPrecision[its])));
+            cellStyles[col] = stylePool.getStyle(tk.createFormatForFloat(tsPrecision[its]),null);
             cellTypes[col] = Cell.CELL_TYPE_NUMERIC;
             columnNames.add(ts.formatExtendedLegend(valueColumns));
         }
+        // Length of the longest value in each column, used to set column widths when streaming because
+        // streamed rows are not available to auto-size the columns.
+        int [] columnTextLengths = null;
+        if ( doStreaming ) {
+        	columnTextLengths = new int[cols];
+        }
         // Write the column names - but output column comments after data because need more rows to position comments.
         int rowOutColumnNames = rowOutStart;
         int colOut = colOutStart - 1;
         for ( String columnName: columnNames ) {
         	++colOut;
+        	if ( columnTextLengths != null ) {
+        		columnTextLengths[colOut - colOutStart] = columnName.length();
+        	}
             // 2. Write the column names:
             // - first try to get an existing cell for the heading
             // - first try to get an existing row
@@ -1317,6 +1379,15 @@ throws FileNotFoundException, IOException {
                 Message.printWarning(3, routine, e);
             }
         }
+        if ( doStreaming && (columnStyleManager != null) ) {
+        	// Streamed rows are not available after the data are written so set the column heading styles now.
+        	its = -1;
+        	for ( TS ts : tslist ) {
+        		++its;
+        		col = colOutStart + numDateTimeCol + its;
+        		sheet.getRow(rowOutStart).getCell(col).setCellStyle(columnStyleManager.getStyle(ts,its,0.0,null));
+        	}
+        }
         // Output the data rows:
         // - loop through date/time corresponding to each row in the output file
         double value;
@@ -1344,6 +1415,9 @@ throws FileNotFoundException, IOException {
                 }
             	try {
             		tk.setCellValue(sheet,row,dateTimeCol,dateTimeString);
+            		if ( columnTextLengths != null ) {
+            			columnTextLengths[dateTimeCol - colOutStart] = Math.max(columnTextLengths[dateTimeCol - colOutStart], dateTimeString.length());
+            		}
                 }
                 catch ( Exception e ) {
                     // Log but let the output continue.
@@ -1363,6 +1437,9 @@ throws FileNotFoundException, IOException {
                 }
             	try {
             		tk.setCellValue(sheet,row,dateCol,dateString);
+            		if ( columnTextLengths != null ) {
+            			columnTextLengths[dateCol - colOutStart] = Math.max(columnTextLengths[dateCol - colOutStart], dateString.length());
+            		}
                 }
                 catch ( Exception e ) {
                     // Log but let the output continue.
@@ -1382,6 +1459,9 @@ throws FileNotFoundException, IOException {
                 }
             	try {
             		tk.setCellValue(sheet,row,timeCol,timeString);
+            		if ( columnTextLengths != null ) {
+            			columnTextLengths[timeCol - colOutStart] = Math.max(columnTextLengths[timeCol - colOutStart], timeString.length());
+            		}
                 }
                 catch ( Exception e ) {
                     // Log but let the output continue.
@@ -1442,6 +1522,10 @@ throws FileNotFoundException, IOException {
 	                		tk.setCellComment(wb, sheet, cell, comment, author, commentWidthInt, commentHeightInt);
 	                	}
 	                }
+	                if ( columnTextLengths != null ) {
+	                	columnTextLengths[col - colOutStart] = Math.max(columnTextLengths[col - colOutStart],
+	                		tk.estimateCellTextLength(cell, tsPrecision[its]));
+	                }
             	}
                 catch ( Exception e ) {
                     // Log but let the output continue.
@@ -1454,23 +1538,26 @@ throws FileNotFoundException, IOException {
         }
         // Output column headings AFTER outputting data because comments are anchored to rows and columns
         // that might extend below the initial column heading row.
-        its = -1;
-        for ( TS ts : tslist ) {
-            // Iterate through data in the time series and output each value according to the format.
-            ++its;
-            col = colOutStart + numDateTimeCol + its;
-    		Cell cell = sheet.getRow(rowOutStart).getCell(col);
-            if ( (columnComment != null) && !columnComment.isEmpty() ) {
-            	// Create the column comment and set.
-            	String comment = TSCommandProcessorUtil.expandTimeSeriesMetadataString (
-            		processor, ts, columnComment, cs, commandPhase );
-        		tk.setCellComment(wb, sheet, cell, comment, author, columnCommentWidthInt, columnCommentHeightInt);
-            }
-            if ( columnStyleManager != null ) {
-            	// Can set the style independent of the column comment.
-            	// New-style - data value and flag are not used.
-            	cell.setCellStyle(columnStyleManager.getStyle(ts,its,0.0,null));
-            }
+        // When streaming, the column heading styles were set before the data and comments are not written.
+        if ( !doStreaming ) {
+	        its = -1;
+	        for ( TS ts : tslist ) {
+	            // Iterate through data in the time series and output each value according to the format.
+	            ++its;
+	            col = colOutStart + numDateTimeCol + its;
+	    		Cell cell = sheet.getRow(rowOutStart).getCell(col);
+	            if ( (columnComment != null) && !columnComment.isEmpty() ) {
+	            	// Create the column comment and set.
+	            	String comment = TSCommandProcessorUtil.expandTimeSeriesMetadataString (
+	            		processor, ts, columnComment, cs, commandPhase );
+	        		tk.setCellComment(wb, sheet, cell, comment, author, columnCommentWidthInt, columnCommentHeightInt);
+	            }
+	            if ( columnStyleManager != null ) {
+	            	// Can set the style independent of the column comment.
+	            	// New-style - data value and flag are not used.
+	            	cell.setCellStyle(columnStyleManager.getStyle(ts,its,0.0,null));
+	            }
+	        }
         }
         // Now do post-data set operations:
         // - get the column width
@@ -1481,7 +1568,13 @@ throws FileNotFoundException, IOException {
             if ( width != null ) {
                 // Set the column width.
                 if ( width.equalsIgnoreCase("Auto") ) {
-                    sheet.autoSizeColumn(col);
+                	if ( columnTextLengths != null ) {
+                		// Streamed rows are not available so set the width from the longest value.
+                		tk.setColumnWidthFromTextLength(sheet, col, columnTextLengths[col - colOutStart]);
+                	}
+                	else {
+                		sheet.autoSizeColumn(col);
+                	}
                     Message.printStatus(2,routine,"Setting column [" + col + "] width to auto.");
                 }
                 else {
@@ -1507,6 +1600,9 @@ throws FileNotFoundException, IOException {
         Message.printWarning(3,routine,e);
     }
     finally {
+        if ( pinned ) {
+            ExcelUtil.unpinOpenWorkbook(workbookFile);
+        }
         // Now write the workbook and close.  If keeping open skip because it will be written by a later command.
         if ( keepOpen ) {
             // Save the open workbook for other commands to use.
@@ -1518,6 +1614,10 @@ throws FileNotFoundException, IOException {
             FileOutputStream fout = new FileOutputStream(workbookFile);
             wb.write(fout);
             fout.close();
+            if ( wb instanceof SXSSFWorkbook ) {
+            	// Remove the temporary files used for streamed rows.
+            	((SXSSFWorkbook)wb).dispose();
+            }
             ExcelUtil.removeOpenWorkbook(workbookFile);
         }
     }
@@ -109,6 +109,7 @@ private JTextField __ExcelAddress_JTextField = null;
 private JTextField __ExcelNamedRange_JTextField = null;
 private JTextField __ExcelTableName_JTextField = null;
 private SimpleJComboBox __KeepOpen_JComboBox = null;
+private SimpleJComboBox __Streaming_JComboBox = null;
 private JTextField __DateTimeColumn_JTextField = null;
 private DateTimeFormatterSpecifiersJPanel __DateTimeFormat_JPanel = null;
 private JTextField __DateColumn_JTextField = null;
@@ -318,6 +319,7 @@ private void checkInput () {
 	String ExcelNamedRange = __ExcelNamedRange_JTextField.getText().trim();
 	String ExcelTableName = __ExcelTableName_JTextField.getText().trim();
 	String KeepOpen = __KeepOpen_JComboBox.getSelected();
+	String Streaming = __Streaming_JComboBox.getSelected();
 	String DateTimeColumn = __DateTimeColumn_JTextField.getText().trim();
     String DateTimeFormatterType = __DateTimeFormat_JPanel.getSelectedFormatterType().trim();
     String DateTimeFormat = __DateTimeFormat_JPanel.getText().trim();
@@ -386,6 +388,9 @@ private void checkInput () {
     if ( KeepOpen.length() > 0 ) {
         props.set ( "KeepOpen", KeepOpen );
     }
+    if ( Streaming.length() > 0 ) {
+        props.set ( "Streaming", Streaming );
+    }
     if  ( DateTimeColumn.length() > 0 ) {
     	props.set("DateTimeColumn", DateTimeColumn);
     }
@@ -488,6 +493,7 @@ private void commitEdits () {
 	String ExcelNamedRange = __ExcelNamedRange_JTextField.getText().trim();
 	String ExcelTableName = __ExcelTableName_JTextField.getText().trim();
 	String KeepOpen  = __KeepOpen_JComboBox.getSelected();
+	String Streaming = __Streaming_JComboBox.getSelected();
 	String DateTimeColumn = __DateTimeColumn_JTextField.getText().trim();
 	String DateTimeFormatterType = __DateTimeFormat_JPanel.getSelectedFormatterType().trim();
 	String DateTimeFormat = __DateTimeFormat_JPanel.getText().trim();
@@ -526,6 +532,7 @@ private void commitEdits () {
 	__command.setCommandParameter ( "ExcelNamedRange", ExcelNamedRange );
 	__command.setCommandParameter ( "ExcelTableName", ExcelTableName );
 	__command.setCommandParameter ( "KeepOpen", KeepOpen );
+	__command.setCommandParameter ( "Streaming", Streaming );
     __command.setCommandParameter ( "DateTimeColumn", DateTimeColumn );
     __command.setCommandParameter ( "DateTimeFormatterType", DateTimeFormatterType );
 	__command.setCommandParameter ( "DateTimeFormat", DateTimeFormat );
@@ -807,6 +814,20 @@ private void initialize ( JFrame parent, WriteTimeSeriesToExcel_Command command,
     JGUIUtil.addComponent(excelOutput_JPanel, new JLabel ( "Optional - keep Excel file open? (default=" + __command._False + ")."),
         3, yExcelOutput, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(excelOutput_JPanel, new JLabel( "Streaming?:"),
+        0, ++yExcelOutput, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __Streaming_JComboBox = new SimpleJComboBox ( false );
+    __Streaming_JComboBox.add("");
+    __Streaming_JComboBox.add(__command._False);
+    __Streaming_JComboBox.add(__command._True);
+    __Streaming_JComboBox.select ( 0 );
+    __Streaming_JComboBox.addItemListener ( this );
+    JGUIUtil.addComponent(excelOutput_JPanel, __Streaming_JComboBox,
+        1, yExcelOutput, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(excelOutput_JPanel, new JLabel (
+        "Optional - stream rows when creating a new *.xlsx workbook (Append=False), for large output (default=" + __command._False + ")."),
+        3, yExcelOutput, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     JGUIUtil.addComponent(excelOutput_JPanel, new JLabel ("Date/time column:"),
         0, ++yExcelOutput, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
     __DateTimeColumn_JTextField = new JTextField (10);
@@ -1271,6 +1292,7 @@ private void refresh () {
 	String ExcelNamedRange = "";
 	String ExcelTableName = "";
 	String KeepOpen = "";
+	String Streaming = "";
 	String DateTimeColumn = "";
     String dateTimeFormatterType = "";
     String DateTimeFormat = "";
@@ -1312,6 +1334,7 @@ private void refresh () {
 		ExcelNamedRange = props.getValue ( "ExcelNamedRange" );
 		ExcelTableName = props.getValue ( "ExcelTableName" );
 		KeepOpen = props.getValue ( "KeepOpen" );
+		Streaming = props.getValue ( "Streaming" );
 		DateTimeColumn = props.getValue ( "DateTimeColumn" );
 	    dateTimeFormatterType = props.getValue ( "DateTimeFormatterType" );
 	    DateTimeFormat = props.getValue ( "DateTimeFormat" );
@@ -1439,6 +1462,19 @@ private void refresh () {
                     KeepOpen + "\".  Select a different choice or Cancel." );
             }
         }
+        if ( Streaming == null || Streaming.equals("") ) {
+            // Select a default.
+            __Streaming_JComboBox.select ( 0 );
+        }
+        else {
+            if ( JGUIUtil.isSimpleJComboBoxItem( __Streaming_JComboBox, Streaming, JGUIUtil.NONE, null, null ) ) {
+                __Streaming_JComboBox.select ( Streaming );
+            }
+            else {
+                Message.printWarning ( 1, routine, "Existing command references an invalid\nStreaming \"" +
+                    Streaming + "\".  Select a different choice or Cancel." );
+            }
+        }
         if (DateTimeColumn != null) {
             __DateTimeColumn_JTextField.setText(DateTimeColumn);
         }
@@ -1621,6 +1657,7 @@ private void refresh () {
 	ExcelNamedRange = __ExcelNamedRange_JTextField.getText().trim();
 	ExcelTableName = __ExcelTableName_JTextField.getText().trim();
 	KeepOpen = __KeepOpen_JComboBox.getSelected();
+	Streaming = __Streaming_JComboBox.getSelected();
 	DateTimeColumn = __DateTimeColumn_JTextField.getText().trim();
     dateTimeFormatterType = __DateTimeFormat_JPanel.getSelectedFormatterType().trim();
     DateTimeFormat = __DateTimeFormat_JPanel.getText().trim();
@@ -1660,6 +1697,7 @@ private void refresh () {
 	props.add ( "ExcelNamedRange=" + ExcelNamedRange );
 	props.add ( "ExcelTableName=" + ExcelTableName );
 	props.add ( "KeepOpen=" + KeepOpen );
+	props.add ( "Streaming=" + Streaming );
 	props.add ( "DateTimeColumn=" + DateTimeColumn );
 	props.add ( "DateTimeFormatterType=" + dateTimeFormatterType );
 	props.add ( "DateTimeFormat=" + DateTimeFormat );
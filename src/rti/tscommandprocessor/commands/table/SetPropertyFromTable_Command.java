@@ -42,7 +42,6 @@ import RTi.Util.IO.CommandException;
 import RTi.Util.IO.CommandLogRecord;
 import RTi.Util.IO.CommandPhaseType;
 import RTi.Util.IO.CommandProcessor;
-import RTi.Util.IO.CommandProcessorRequestResultsBean;
 import RTi.Util.IO.CommandStatus;
 import RTi.Util.IO.CommandStatusType;
 import RTi.Util.IO.CommandWarningException;
@@ -856,14 +855,11 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 
     DataTable table = null;
     if ( commandPhase == CommandPhaseType.RUN ) {
-        PropList request_params = null;
-        CommandProcessorRequestResultsBean bean = null;
         if ( (TableID != null) && !TableID.equals("") ) {
             // Get the table to be updated.
-            request_params = new PropList ( "" );
-            request_params.set ( "TableID", TableID );
+            Object o_Table = null;
             try {
-                bean = processor.processRequest( "GetTable", request_params);
+                o_Table = TSCommandProcessorUtil.getTable ( processor, TableID );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTable(TableID=\"" + TableID + "\") from processor.";
@@ -872,8 +868,6 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                 status.addToLog ( CommandPhaseType.RUN, new CommandLogRecord(CommandStatusType.FAILURE,
                     message, "Report problem to software support." ) );
             }
-            PropList bean_PropList = bean.getResultsPropList();
-            Object o_Table = bean_PropList.getContents ( "Table" );
             if ( o_Table == null ) {
                 message = "Unable to find table to process using TableID=\"" + TableID + "\".";
                 Message.printWarning ( warning_level,
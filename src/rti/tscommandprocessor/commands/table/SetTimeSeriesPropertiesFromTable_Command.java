@@ -28,6 +28,7 @@ import javax.swing.JFrame;
 import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 import rti.tscommandprocessor.core.TSListType;
+import rti.tscommandprocessor.core.TableColumnIndex;
 
 import java.util.ArrayList;
 import java.util.Hashtable;
@@ -350,6 +351,8 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                 message, "Specify a valid TSID column." ) );
         }
         if ( tableTSIDColumnNum >= 0 ) {
+            // Index the TSID column so that each time series does not search the table.
+            TableColumnIndex tableTSIDColumnIndex = TSCommandProcessorUtil.getTableColumnIndex ( processor, table, tableTSIDColumnNum );
             for ( int its = 0; its < nts; its++ ) {
                 // The the time series to process, from the list that was returned above.
                 o_ts = tslist.get(its);
@@ -380,7 +383,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                                 tsid = ts.getIdentifierString();
                             }
                         }
-                        TableRecord rec = table.getRecord ( tableTSIDColumnNum, tsid );
+                        TableRecord rec = tableTSIDColumnIndex.getRecord ( tsid );
                         if ( rec == null ) {
                             message = "Cannot find table \"" + TableID + "\" cell in column \"" + TableTSIDColumn +
                                 "\" matching TSID formatted as \"" + tsid + "\" - skipping time series \"" +
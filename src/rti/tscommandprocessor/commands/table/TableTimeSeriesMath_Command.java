@@ -28,6 +28,7 @@ import javax.swing.JFrame;
 import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 import rti.tscommandprocessor.core.TSListType;
+import rti.tscommandprocessor.core.TableColumnIndex;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -442,6 +443,19 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
         Object o_ts = null;
         Object tableObject; // The table value as a generic object
         Double tableValue; // The value used to perform math
+        // Index the TSID column so that each time series does not search the table.
+        // If the column is not found, the error is handled when getting the record below.
+        TableColumnIndex tableTSIDColumnIndex = null;
+        int tableTSIDColumn = -1;
+        try {
+            tableTSIDColumn = table.getFieldIndex(TableTSIDColumn);
+        }
+        catch ( Exception e ) {
+            tableTSIDColumn = -1;
+        }
+        if ( tableTSIDColumn >= 0 ) {
+            tableTSIDColumnIndex = TSCommandProcessorUtil.getTableColumnIndex ( processor, table, tableTSIDColumn );
+        }
         for ( int its = 0; its < nts; its++ ) {
             // The the time series to process, from the list that was returned above.
             o_ts = tslist.get(its);
@@ -471,7 +485,13 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                         tsid = ts.getIdentifierString();
                     }
                 }
-                TableRecord rec = table.getRecord ( TableTSIDColumn, tsid );
+                TableRecord rec = null;
+                if ( tableTSIDColumnIndex != null ) {
+                    rec = tableTSIDColumnIndex.getRecord ( tsid );
+                }
+                else {
+                    rec = table.getRecord ( TableTSIDColumn, tsid );
+                }
                 if ( rec == null ) {
                     message = "Cannot find table cell in column \"" + TableTSIDColumn +
                     "\" matching TSID formatted as \"" + tsid + "\" - skipping time series \"" +
@@ -44,7 +44,6 @@ import RTi.Util.IO.CommandException;
 import RTi.Util.IO.CommandLogRecord;
 import RTi.Util.IO.CommandPhaseType;
 import RTi.Util.IO.CommandProcessor;
-import RTi.Util.IO.CommandProcessorRequestResultsBean;
 import RTi.Util.IO.CommandStatus;
 import RTi.Util.IO.CommandStatusType;
 import RTi.Util.IO.CommandWarningException;
@@ -450,11 +449,9 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     	outputSchemaFormat = _JSONTableSchema;
     }
 
-    PropList request_params = new PropList ( "" );
-    request_params.set ( "TableID", TableID );
-    CommandProcessorRequestResultsBean bean = null;
+    Object o_Table = null;
     try {
-        bean = processor.processRequest( "GetTable", request_params);
+        o_Table = TSCommandProcessorUtil.getTable ( processor, TableID );
     }
     catch ( Exception e ) {
         message = "Error requesting GetTable(TableID=\"" + TableID + "\") from processor.";
@@ -463,8 +460,6 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
         status.addToLog ( CommandPhaseType.RUN, new CommandLogRecord(CommandStatusType.FAILURE,
             message, "Report problem to software support." ) );
     }
-    PropList bean_PropList = bean.getResultsPropList();
-    Object o_Table = bean_PropList.getContents ( "Table" );
     DataTable table = null;
     if ( o_Table == null ) {
         message = "Unable to find table to process using TableID=\"" + TableID + "\".";
@@ -25,8 +25,8 @@ package rti.tscommandprocessor.commands.template;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -38,10 +38,10 @@ import java.util.Set;
 
 import javax.swing.JFrame;
 
-import freemarker.cache.FileTemplateLoader;
 import freemarker.template.Configuration;
 //import freemarker.template.SimpleSequence;
 import freemarker.template.Template;
+import rti.tscommandprocessor.core.FreeMarkerTemplateCache;
 import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 import RTi.Util.IO.AbstractCommand;
@@ -308,6 +308,42 @@ private StringBuffer formatTemplateForWarning ( List<String> templateLines, Stri
     return templateFormatted;
 }
 
+/**
+Read the template lines from the input file or input text.
+@param inputFile template file, or null if the template is provided as text
+@param inputText template text, used if the input file is null
+@return the template lines
+*/
+private List<String> readTemplateLines ( String inputFile, String inputText )
+throws IOException {
+    List<String> templateLines = new ArrayList<>();
+    if ( inputFile != null ) {
+        templateLines = IOUtil.fileToStringList(inputFile);
+    }
+    else if ( (inputText != null) && !inputText.equals("") ) {
+        templateLines.add(inputText);
+    }
+    return templateLines;
+}
+
+/**
+Read the template lines for a warning message, if not already read.
+The lines are not read when the parsed template is found in the template cache.
+@param inputFile template file, or null if the template is provided as text
+@param inputText template text, used if the input file is null
+@param templateLines template lines, which are added to if empty
+*/
+private void readTemplateLinesForWarning ( String inputFile, String inputText, List<String> templateLines ) {
+    if ( templateLines.isEmpty() ) {
+        try {
+            templateLines.addAll(readTemplateLines(inputFile, inputText));
+        }
+        catch ( Exception e ) {
+            // Warning will not include the template lines.
+        }
+    }
+}
+
 /**
 Return the property defined in discovery phase.
 @return the property defined in discovery phase.
@@ -539,45 +575,46 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
             }
         }
         else if ( commandPhase == CommandPhaseType.RUN ) {
-            // Call the FreeMarker API.
-        	// TODO sam 2017-04-08 figure out whether can re-use a singleton.
-        	// Configuration is intended to be a shared singleton but templates can exist in many folders.
-        	// Make sure the version is the same as the FreeMarker jar file packaged with the software.
-            Configuration config = new Configuration(Configuration.VERSION_2_3_33);
-            // TODO smalers 2024-10-22 may need to handle format to enable specific FreeMarker features.
-            //config.setOutputFormat(HTMLOutputFormat.INSTANCE);
-            // TODO SAM 2009-10-07 Not sure what configuration is needed for TSTool since most
-            // templates will be located with command files and user data.
-            //config.setSharedVariable("shared", "avoid global variables");
-            // See comment below on why this is used.
-            config.setSharedVariable("normalizeNewlines", new freemarker.template.utility.NormalizeNewlines());
-            config.setTemplateLoader(new FileTemplateLoader(new File(".")));
-
-            // In some apps, use config to load templates as it provides caching.
-            //Template template = config.getTemplate("some-template.ftl");
-
-            // Manipulate the template file into an in-memory string so it can be manipulated.
-            StringBuffer b = new StringBuffer();
+            // Call the FreeMarker API:
+            // - the configuration and parsed template are shared using the processor's cache
+            //   so that expanding the template again (e.g., in a loop) does not parse the template again
+            // - the template file is only read if the template is not in the cache
+            // - make sure the version is the same as the FreeMarker jar file packaged with the software
+            // TODO smalers 2024-10-22 may need to handle format to enable specific FreeMarker features,
+            // for example config.setOutputFormat(HTMLOutputFormat.INSTANCE) in FreeMarkerTemplateCache.
+
             // Prepend any extra FreeMarker content that should be handled transparently.
             // "normalizeNewlines" is used to ensure that output has line breaks consistent with the OS
             // (e.g., so that the results can be edited in Notepad on Windows).
             String nl = System.getProperty("line.separator");
-            b.append("<@normalizeNewlines>" + nl );
+            String templatePrefix = "<@normalizeNewlines>" + nl;
+            String inputFileFull = InputFile_full;
+            String inputText = InputText;
             List<String> templateLines = new ArrayList<>();
-            if ( InputFile_full != null ) {
-                templateLines = IOUtil.fileToStringList(InputFile_full);
-            }
-            else if ( (InputText != null) && !InputText.equals("") ) {
-                templateLines.add(InputText);
-            }
-            b.append(StringUtil.toString(templateLines,nl));
-            b.append(nl + "</@normalizeNewlines>" );
             Template template = null;
             boolean error = false;
             try {
-                template = new Template("template", new StringReader(b.toString()), config);
+                String templateKey = null;
+                if ( inputFileFull != null ) {
+                    templateKey = FreeMarkerTemplateCache.createFileTemplateKey(templatePrefix, new File(inputFileFull));
+                }
+                else {
+                    // Key on the text, which may be empty.
+                    templateKey = FreeMarkerTemplateCache.createTextTemplateKey(templatePrefix, (inputText == null) ? "" : inputText);
+                }
+                template = TSCommandProcessorUtil.getFreeMarkerTemplateCache(processor).getTemplate (
+                	Configuration.VERSION_2_3_33, templateKey, () -> {
+                    // Manipulate the template file into an in-memory string so it can be manipulated.
+                    StringBuffer b = new StringBuffer();
+                    b.append(templatePrefix);
+                    templateLines.addAll(readTemplateLines(inputFileFull, inputText));
+                    b.append(StringUtil.toString(templateLines,nl));
+                    b.append(nl + "</@normalizeNewlines>" );
+                    return b.toString();
+                });
             }
             catch ( Exception e1 ) {
+                readTemplateLinesForWarning ( inputFileFull, inputText, templateLines );
                 message = "Freemarker error expanding command template file \"" + InputFile_full +
                     "\" + (" + e1 + ") template text (with internal inserts at ends) =" + nl +
                     formatTemplateForWarning(templateLines,nl);
@@ -725,6 +762,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                         }
                     }
                     catch ( Exception e1 ) {
+                        readTemplateLinesForWarning ( inputFileFull, inputText, templateLines );
                         message = "Freemarker error expanding command template file \"" + InputFile_full +
                             "\" + (" + e1 + ") template text (with internal inserts at ends) =\n" +
                             formatTemplateForWarning(templateLines,nl);
@@ -767,6 +805,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                         }
                     }
                     catch ( Exception e1 ) {
+                        readTemplateLinesForWarning ( inputFileFull, inputText, templateLines );
                         message = "Freemarker error expanding command template file \"" + InputFile_full +
                             "\" + (" + e1 + ") template text to property (with internal inserts at ends) =\n" +
                             formatTemplateForWarning(templateLines,nl);;
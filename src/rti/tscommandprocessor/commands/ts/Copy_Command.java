@@ -46,7 +46,6 @@ import RTi.Util.IO.CommandException;
 import RTi.Util.IO.CommandLogRecord;
 import RTi.Util.IO.CommandPhaseType;
 import RTi.Util.IO.CommandProcessor;
-import RTi.Util.IO.CommandProcessorRequestResultsBean;
 import RTi.Util.IO.CommandSavesMultipleVersions;
 import RTi.Util.IO.CommandStatus;
 import RTi.Util.IO.CommandStatusType;
@@ -475,12 +474,9 @@ CommandWarningException, CommandException {
     }
     else if ( commandPhase == CommandPhaseType.RUN ) {
     	try {
-    	    PropList request_params = new PropList ( "" );
-    		request_params.set ( "CommandTag", command_tag );
-    		request_params.set ( "TSID", TSID );
-    		CommandProcessorRequestResultsBean bean = null;
+    		Object o_TS = null;
     		try {
-    		    bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+    		    o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSID );
     		}
     		catch ( Exception e ) {
     			message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSID + "\") from processor.";
@@ -492,8 +488,6 @@ CommandWarningException, CommandException {
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
     		}
-    		PropList bean_PropList = bean.getResultsPropList();
-    		Object o_TS = bean_PropList.getContents ( "TS");
     		if ( o_TS == null ) {
     			message = "Null TS requesting GetTimeSeriesForTSID(TSID=\"" + TSID + "\") from processor.";
     			Message.printWarning(log_level,
@@ -44,7 +44,6 @@ import RTi.Util.IO.CommandException;
 import RTi.Util.IO.CommandLogRecord;
 import RTi.Util.IO.CommandPhaseType;
 import RTi.Util.IO.CommandProcessor;
-import RTi.Util.IO.CommandProcessorRequestResultsBean;
 import RTi.Util.IO.CommandStatus;
 import RTi.Util.IO.CommandStatusType;
 import RTi.Util.IO.CommandWarningException;
@@ -288,13 +287,9 @@ CommandWarningException, CommandException
 
 	// Get the time series to process
 	
-    PropList request_params = new PropList ( "" );
-    request_params.set ( "TSList", TSList );
-    request_params.set ( "TSID", TSID );
-    request_params.set ( "EnsembleID", EnsembleID );
-    CommandProcessorRequestResultsBean bean = null;
+    Object o_TSList = null;
     try {
-        bean = processor.processRequest( "GetTimeSeriesToProcess", request_params);
+        o_TSList = TSCommandProcessorUtil.getTimeSeriesToProcess ( processor, TSList, TSID, EnsembleID, null ).getTimeSeriesList();
     }
     catch ( Exception e ) {
         message = "Error requesting GetTimeSeriesToProcess(TSList=\"" + TSList +
@@ -306,11 +301,6 @@ CommandWarningException, CommandException
                 new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
     }
-    if ( bean == null ) {
-        Message.printStatus ( 2, routine, "Bean is null.");
-    }
-    PropList bean_PropList = bean.getResultsPropList();
-    Object o_TSList = bean_PropList.getContents ( "TSToProcessList" );
     List<TS> tslist = null;
     if ( o_TSList == null ) {
         message = "Null TSToProcessList returned from processor for GetTimeSeriesToProcess(TSList=\"" + TSList +
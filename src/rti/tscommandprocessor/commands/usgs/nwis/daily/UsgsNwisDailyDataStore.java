@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import riverside.datastore.AbstractWebServiceDataStore;
+import rti.tscommandprocessor.core.TimeSeriesCache;
 import rti.tscommandprocessor.commands.usgs.nwis.daily.UsgsNwisParameterType;
 import rti.tscommandprocessor.commands.usgs.nwis.daily.UsgsNwisSiteTimeSeriesMetadata;
 import rti.tscommandprocessor.commands.usgs.nwis.daily.UsgsNwisStatisticType;
@@ -306,6 +307,26 @@ if false, construct the time series and populate properties but do not read the
 @return the time series list read from the USGS NWIS daily web services
 */
 public TS readTimeSeries ( String tsid, DateTime readStart, DateTime readEnd, boolean readData )
+throws MalformedURLException, IOException, Exception {
+    TimeSeriesCache cache = TimeSeriesCache.getInstance ( this );
+    if ( readData && (cache != null) ) {
+        // Provisional daily values are typically revised within several months.
+        return cache.readTimeSeries ( this, tsid, 120, readStart, readEnd,
+            (start, end) -> readTimeSeriesFromService ( tsid, start, end, true ) );
+    }
+    return readTimeSeriesFromService ( tsid, readStart, readEnd, readData );
+}
+
+/**
+Read a single time series from the web service, without using the time series cache.
+@param tsid time series identifier string of form SiteID..ParameterCode-StatisticCode.Day~DataStoreID
+@param readStart the starting date/time to read, or null to read all data.
+@param readEnd the ending date/time to read, or null to read all data.
+@param readData if true, read the data;
+if false, construct the time series and populate properties but do not read the data
+@return the time series list read from the USGS NWIS daily web services
+*/
+private TS readTimeSeriesFromService ( String tsid, DateTime readStart, DateTime readEnd, boolean readData )
 throws MalformedURLException, IOException, Exception {
 	// Initialize empty query parameters.
     List<String> siteList = new ArrayList<>();
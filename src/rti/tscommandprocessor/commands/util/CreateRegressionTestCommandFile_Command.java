@@ -32,6 +32,8 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 import javax.swing.JFrame;
 
@@ -72,6 +74,12 @@ Output file that is created by this command.
 */
 private File __OutputFile_File = null;
 
+/**
+Pattern for a time series identifier input type that is a datastore, for example "~HydroBase",
+which unlike file input types (for example "~DateValue~file") is not followed by another "~".
+*/
+private static final Pattern dataStoreInputTypePattern = Pattern.compile ( ".*~\\w+(?![\\w~]).*" );
+
 /**
 Constructor.
 */
@@ -96,6 +104,7 @@ throws InvalidCommandParameterException {
 	String EndCommandFile = parameters.getValue ( "EndCommandFile" );
 	//String FilenamePattern = parameters.getValue ( "FilenamePattern" );
 	String Append = parameters.getValue ( "Append" );
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
 	String warning = "";
     String message;
 
@@ -266,8 +275,18 @@ throws InvalidCommandParameterException {
 		}
 	}
 
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		if ( !StringUtil.isInteger(MaxThreads) || (Integer.parseInt(MaxThreads) < 1) ) {
+            message = "Invalid MaxThreads parameter \"" + MaxThreads + "\"";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify an integer 1 or larger." ) );
+		}
+	}
+
 	// Check for invalid parameters.
-	List<String> validList = new ArrayList<>(12);
+	List<String> validList = new ArrayList<>(13);
 	validList.add ( "SearchFolder" );
 	validList.add ( "OutputFile" );
     validList.add ( "SetupCommandFile" );
@@ -280,6 +299,7 @@ throws InvalidCommandParameterException {
 	validList.add ( "IncludeOS" );
 	validList.add ( "UseOrder" );
 	validList.add ( "TestResultsTableID" );
+	validList.add ( "MaxThreads" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
 
     // Throw an InvalidCommandParameterException in case of errors.
@@ -628,6 +648,11 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 		useOrder = false;
 	}
     String TestResultsTableID = parameters.getValue ( "TestResultsTableID" );
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
+	int maxThreads = 1; // Default is to run tests sequentially.
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		maxThreads = Integer.parseInt(MaxThreads);
+	}
     // Get Java regular expression pattern to match.
     String IncludeTestSuitePattern = StringUtil.replaceString(IncludeTestSuite,"*",".*");
     String ExcludeTestSuitePattern = StringUtil.replaceString(ExcludeTestSuite,"*",".*");
@@ -780,7 +805,11 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
         if ( (TestResultsFile != null) && !TestResultsFile.isEmpty() ) {
         	outputFile = TestResultsFile;
         }
-		out.println ( "StartRegressionTestResultsReport(OutputFile=\"" + outputFile + "\"" + tableParam + ")");
+        String maxThreadsParam = "";
+        if ( maxThreads > 1 ) {
+        	maxThreadsParam = ",MaxThreads=" + maxThreads;
+        }
+		out.println ( "StartRegressionTestResultsReport(OutputFile=\"" + outputFile + "\"" + tableParam + maxThreadsParam + ")");
 		// Find the list of matching files.
 		String commandFileToRun;
 		for ( CommandFile commandFile: commandFiles ) {
@@ -788,8 +817,14 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 			commandFileToRun = IOUtil.toRelativePath ( OutputFile_full_File.getParent(), commandFile.getFilename() );
 			// Determine if the command file has @expectedStatus in it.
 			// If so, define an ExpectedStatus parameter for the command.
+			// If tests are run in parallel, tests that do not use datastores do not share the datastores
+			// so that they can be run in parallel with other tests.
+			String shareDataStoresParam = "";
+			if ( (maxThreads > 1) && !usesDataStores(commandFile) ) {
+				shareDataStoresParam = ",ShareDataStores=\"DoNotShare\"";
+			}
 			out.println ( "RunCommands(InputFile=\"" + commandFileToRun + "\"" +
-		        determineExpectedStatusParameter(commandFile) + ")");
+		        determineExpectedStatusParameter(commandFile) + shareDataStoresParam + ")");
 		}
 		// Include the end command file if requested.
 		//Message.printStatus ( 2, routine, "Adding commands from end command file \"" + EndCommandFile_full + "\"");
@@ -982,9 +1017,38 @@ public String toString ( PropList parameters ) {
 		"ExcludeTestSuite",
 		"IncludeOS",
 		"UseOrder",
-		"TestResultsTableID"
+		"TestResultsTableID",
+		"MaxThreads"
 	};
 	return this.toString(parameters, parameterOrder);
 }
 
+/**
+Determine whether a test command file appears to use datastores, in which case the test must share the datastores
+of the regression test processor and cannot be run in parallel with other tests.
+The check is conservative:  the test is assumed to use datastores if the command file contains "DataStore"
+(for example a DataStore parameter or @require datastore), "HydroBase", or "RunCommands(" (nested command files are not checked),
+or a time series identifier with a datastore input type, for example "~HydroBase".
+@param commandFile command file to check
+@return true if the command file appears to use datastores, or cannot be read
+*/
+private boolean usesDataStores ( CommandFile commandFile ) {
+	String routine = getClass().getSimpleName() + ".usesDataStores";
+	try ( BufferedReader in = new BufferedReader ( new InputStreamReader( IOUtil.getInputStream ( commandFile.getFilename() )) ) ) {
+		String line;
+		while ( (line = in.readLine()) != null ) {
+			String lineUpper = line.toUpperCase(Locale.ROOT);
+			if ( lineUpper.contains("DATASTORE") || lineUpper.contains("HYDROBASE") || lineUpper.contains("RUNCOMMANDS(") ||
+				dataStoreInputTypePattern.matcher(line).matches() ) {
+				return true;
+			}
+		}
+	}
+	catch ( Exception e ) {
+		Message.printWarning ( 3, routine, "Unable to check \"" + commandFile.getFilename() + "\" for datastores (" + e + ")." );
+		return true;
+	}
+	return false;
+}
+
 }
\ No newline at end of file
@@ -97,6 +97,7 @@ private JTextField __ExcludeTestSuite_JTextField = null;
 private JTextField __IncludeOS_JTextField = null;
 private SimpleJComboBox __UseOrder_JComboBox = null;
 private JTextField __TestResultsTableID_JTextField = null;
+private JTextField __MaxThreads_JTextField = null;
 private JTextArea __command_JTextArea = null;
 private String __working_dir = null;
 private boolean __error_wait = false;
@@ -424,6 +425,7 @@ private void checkInput () {
 	String IncludeOS = __IncludeOS_JTextField.getText().trim();
 	String UseOrder = __UseOrder_JComboBox.getSelected();
 	String TestResultsTableID = __TestResultsTableID_JTextField.getText().trim();
+	String MaxThreads = __MaxThreads_JTextField.getText().trim();
 
 	if ( SearchFolder.length() > 0 ) {
 		props.set ( "SearchFolder", SearchFolder );
@@ -461,6 +463,9 @@ private void checkInput () {
 	if ( TestResultsTableID.length() > 0 ) {
 		props.set ( "TestResultsTableID", TestResultsTableID );
 	}
+	if ( MaxThreads.length() > 0 ) {
+		props.set ( "MaxThreads", MaxThreads );
+	}
 	try {
 	    // This will warn the user.
 		__command.checkCommandParameters ( props, null, 1 );
@@ -489,6 +494,7 @@ private void commitEdits () {
 	String IncludeOS = __IncludeOS_JTextField.getText().trim();
 	String UseOrder = __UseOrder_JComboBox.getSelected();
 	String TestResultsTableID = __TestResultsTableID_JTextField.getText().trim();
+	String MaxThreads = __MaxThreads_JTextField.getText().trim();
 	__command.setCommandParameter ( "SearchFolder", SearchFolder );
     __command.setCommandParameter ( "OutputFile", OutputFile );
     __command.setCommandParameter ( "SetupCommandFile", SetupCommandFile );
@@ -501,6 +507,7 @@ private void commitEdits () {
 	__command.setCommandParameter ( "IncludeOS", IncludeOS );
 	__command.setCommandParameter ( "UseOrder", UseOrder );
 	__command.setCommandParameter ( "TestResultsTableID", TestResultsTableID );
+	__command.setCommandParameter ( "MaxThreads", MaxThreads );
 }
 
 /**
@@ -548,6 +555,13 @@ private void initialize ( JFrame parent, CreateRegressionTestCommandFile_Command
     JGUIUtil.addComponent(main_JPanel, new JLabel (
         "An \"end\" command file can be inserted at the end of the generated command file, for example to process the summary table."),
         0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+        "If MaxThreads is greater than 1, tests are run in parallel and tests that do not appear to use datastores " +
+        "are run with ShareDataStores=DoNotShare.  Tests that use datastores are run sequentially."),
+        0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+        "If MaxThreads is not specified (the default), the generated command file runs all tests sequentially."),
+        0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
     if ( __working_dir != null ) {
     	JGUIUtil.addComponent(main_JPanel, new JLabel (
 		"It is recommended that file names are relative to the working directory, which is:"),
@@ -762,6 +776,17 @@ private void initialize ( JFrame parent, CreateRegressionTestCommandFile_Command
     JGUIUtil.addComponent(main_JPanel, new JLabel ("Optional - identifier for table containing results."),
         3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Maximum threads:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxThreads_JTextField = new JTextField (10);
+    __MaxThreads_JTextField.setToolTipText("Maximum number of tests to run at the same time, " +
+        "written to StartRegressionTestResultsReport(MaxThreads=...).  Tests that use datastores are run sequentially.");
+    __MaxThreads_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __MaxThreads_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Optional - number of tests to run in parallel (default=1, sequential)."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Command:" ),
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__command_JTextArea = new JTextArea ( 4, 60 );
@@ -839,6 +864,7 @@ private void refresh () {
 	String IncludeOS = "*";
 	String UseOrder = "";
 	String TestResultsTableID = "";
+	String MaxThreads = "";
 	PropList props = null;
 	if ( __first_time ) {
 		__first_time = false;
@@ -855,6 +881,7 @@ private void refresh () {
 		IncludeOS = props.getValue ( "IncludeOS" );
 		UseOrder = props.getValue ( "UseOrder" );
 		TestResultsTableID = props.getValue ( "TestResultsTableID" );
+		MaxThreads = props.getValue ( "MaxThreads" );
 		if ( SearchFolder != null ) {
 			__SearchFolder_JTextField.setText ( SearchFolder );
 		}
@@ -915,6 +942,9 @@ private void refresh () {
 		if ( TestResultsTableID != null ) {
 			__TestResultsTableID_JTextField.setText ( TestResultsTableID );
 		}
+		if ( MaxThreads != null ) {
+			__MaxThreads_JTextField.setText ( MaxThreads );
+		}
 	}
 	// Regardless, reset the command from the fields.
 	// This is only  visible information that has not been committed in the command.
@@ -930,6 +960,7 @@ private void refresh () {
 	IncludeOS = __IncludeOS_JTextField.getText().trim();
 	UseOrder = __UseOrder_JComboBox.getSelected();
 	TestResultsTableID = __TestResultsTableID_JTextField.getText().trim();
+	MaxThreads = __MaxThreads_JTextField.getText().trim();
 	props = new PropList ( __command.getCommandName() );
 	props.add ( "SearchFolder=" + SearchFolder );
 	props.add ( "OutputFile=" + OutputFile );
@@ -943,6 +974,7 @@ private void refresh () {
 	props.add ( "IncludeOS=" + IncludeOS );
 	props.add ( "UseOrder=" + UseOrder );
 	props.add ( "TestResultsTableID=" + TestResultsTableID );
+	props.add ( "MaxThreads=" + MaxThreads );
 	__command_JTextArea.setText( __command.toString(props).trim() );
 	// Check the path and determine what the label on the path button should be.
 	if ( __pathSearchFolder_JButton != null ) {
@@ -0,0 +1,425 @@
+// FileListWalker - list the files and folders in a folder using glob patterns and multiple threads
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import RTi.Util.Message.Message;
+
+/**
+List the files and folders in a folder, as used by the ListFiles() command.
+Names are matched using glob patterns (e.g., "*.csv") that are compiled once,
+and each matched file or folder is passed to a listener as it is found so that results can be used
+without first creating a list of all files, which is slow for folders with many files.
+Glob patterns use the default file system rules and therefore ignore case on Windows.
+<p>
+If one thread is used, the folder is walked with Files.walkFileTree() in the calling thread.
+If multiple threads are used and subfolders are listed, each folder is listed in a separate task
+and the listener is called in the calling thread as files are found, so the listener does not need to be thread-safe.
+The order of files found with multiple threads depends on the time to list each folder and is not repeatable.
+<p>
+Symbolic links are followed, consistent with java.io.File, and folder loops are not walked more than once.
+*/
+class FileListWalker
+{
+
+/**
+Interface for the code that handles each matched file or folder.
+*/
+interface FileListener {
+	/**
+	Handle a matched file or folder.
+	@param path path to the file or folder
+	@param attributes attributes for the file or folder, read when the folder was listed
+	@return true to continue listing, false to stop (e.g., if processing was canceled)
+	@exception Exception if an error occurs handling the file, which stops listing
+	*/
+	public boolean fileFound ( Path path, BasicFileAttributes attributes ) throws Exception;
+}
+
+/**
+Maximum number of found files that are queued for the listener when listing with multiple threads,
+so that listing does not get too far ahead of the listener.
+*/
+private static final int QUEUE_SIZE = 10000;
+
+/**
+Glob matcher for names to include, or null to include all names.
+*/
+private PathMatcher includeMatcher = null;
+
+/**
+Glob matcher for names to exclude, or null to not exclude any names.
+*/
+private PathMatcher excludeMatcher = null;
+
+/**
+Whether to list files.
+*/
+private boolean listFiles = true;
+
+/**
+Whether to list folders.
+*/
+private boolean listFolders = false;
+
+/**
+Whether to list subfolders.
+*/
+private boolean listRecursive = false;
+
+/**
+Maximum number of threads used to list folders.
+*/
+private int maxThreads = 1;
+
+/**
+Number of files and folders that could not be read.
+*/
+private AtomicInteger errorCount = new AtomicInteger();
+
+/**
+File or folder found when listing with multiple threads, queued for the listener.
+*/
+private static class FoundFile {
+	Path path;
+	BasicFileAttributes attributes;
+	FoundFile ( Path path, BasicFileAttributes attributes ) {
+		this.path = path;
+		this.attributes = attributes;
+	}
+}
+
+/**
+Queue item indicating that all folders have been listed.
+*/
+private static final FoundFile END = new FoundFile ( null, null );
+
+/**
+Create a walker.
+@param listRecursive whether to list subfolders
+@param listFiles whether to list files
+@param listFolders whether to list folders
+@param includeNames glob pattern for file and folder names to include (e.g., "*.csv"), or null to include all names
+@param excludeNames glob pattern for file and folder names to exclude, or null to not exclude any names
+@param maxThreads maximum number of threads used to list folders, 1 to list in the calling thread
+@exception IllegalArgumentException if a glob pattern is invalid
+*/
+FileListWalker ( boolean listRecursive, boolean listFiles, boolean listFolders,
+	String includeNames, String excludeNames, int maxThreads ) {
+	this.listRecursive = listRecursive;
+	this.listFiles = listFiles;
+	this.listFolders = listFolders;
+	this.includeMatcher = getNameMatcher ( includeNames );
+	this.excludeMatcher = getNameMatcher ( excludeNames );
+	if ( maxThreads > 1 ) {
+		this.maxThreads = maxThreads;
+	}
+}
+
+/**
+Return the number of files and folders that could not be read, which are skipped and logged.
+@return the number of files and folders that could not be read
+*/
+int getErrorCount () {
+	return this.errorCount.get();
+}
+
+/**
+Return the matcher for a glob pattern.
+Matching is case-insensitive on Windows and case-sensitive on other operating systems.
+@param glob glob pattern (e.g., "*.csv")
+@return the matcher for the pattern, or null if the pattern is null or empty
+@exception IllegalArgumentException if the pattern is invalid
+*/
+static PathMatcher getNameMatcher ( String glob ) {
+	if ( (glob == null) || glob.isEmpty() ) {
+		return null;
+	}
+	return FileSystems.getDefault().getPathMatcher ( "glob:" + glob );
+}
+
+/**
+Return the key used to detect folders that have already been listed.
+The file key is used if available, which is the case on Linux.
+The file key is null on Windows (NTFS), in which case the real path is used.
+@param folder folder path
+@param attributes attributes for the folder
+@return the key for the folder
+*/
+static Object getFolderKey ( Path folder, BasicFileAttributes attributes ) {
+	Object folderKey = attributes.fileKey();
+	if ( folderKey == null ) {
+		try {
+			// Resolves symbolic links.
+			folderKey = folder.toRealPath();
+		}
+		catch ( IOException e ) {
+			// Should not happen because the attributes were read, but use the path without resolving links.
+			folderKey = folder.toAbsolutePath().normalize();
+		}
+	}
+	return folderKey;
+}
+
+/**
+Handle a file or folder that could not be read by logging and counting the error.
+@param path path that could not be read
+@param e exception reading the path
+*/
+private void handleError ( Path path, IOException e ) {
+	String routine = getClass().getSimpleName() + ".handleError";
+	this.errorCount.incrementAndGet();
+	Message.printWarning ( 3, routine, "Error reading \"" + path + "\" (" + e + ") - skipping." );
+}
+
+/**
+Determine whether a file or folder should be passed to the listener.
+@param path path to the file or folder
+@param attributes attributes for the file or folder
+@return true if the file or folder is matched
+*/
+private boolean isMatch ( Path path, BasicFileAttributes attributes ) {
+	if ( attributes.isDirectory() ) {
+		if ( !this.listFolders ) {
+			return false;
+		}
+	}
+	else if ( !this.listFiles ) {
+		return false;
+	}
+	Path name = path.getFileName();
+	if ( name == null ) {
+		return false;
+	}
+	if ( (this.includeMatcher != null) && !this.includeMatcher.matches(name) ) {
+		return false;
+	}
+	if ( (this.excludeMatcher != null) && this.excludeMatcher.matches(name) ) {
+		return false;
+	}
+	return true;
+}
+
+/**
+List the files and folders in a folder, calling the listener for each matched file or folder.
+The folder itself is not listed.
+@param folder folder to list
+@param listener code to handle each matched file or folder
+@return true if all files were listed, false if the listener stopped listing
+@exception Exception if the folder does not exist or the listener throws an exception
+*/
+boolean walk ( Path folder, FileListener listener )
+throws Exception {
+	if ( !Files.isDirectory(folder) ) {
+		throw new FileNotFoundException ( "Folder does not exist: " + folder );
+	}
+	if ( this.listRecursive && (this.maxThreads > 1) ) {
+		return walkParallel ( folder, listener );
+	}
+	else {
+		return walkSequential ( folder, listener );
+	}
+}
+
+/**
+List the files and folders using multiple threads, one task per folder.
+@param folder folder to list
+@param listener code to handle each matched file or folder, called in the calling thread
+@return true if all files were listed, false if the listener stopped listing
+*/
+private boolean walkParallel ( Path folder, FileListener listener )
+throws Exception {
+	String routine = getClass().getSimpleName() + ".walkParallel";
+	Message.printStatus ( 2, routine, "Listing \"" + folder + "\" using " + this.maxThreads + " threads." );
+	BlockingQueue<FoundFile> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	// Folders that have been listed or are queued, to avoid loops from symbolic links.
+	Set<Object> folderKeySet = ConcurrentHashMap.newKeySet();
+	AtomicInteger pendingFolderCount = new AtomicInteger();
+	ExecutorService executor = Executors.newFixedThreadPool ( this.maxThreads );
+	try {
+		submitFolder ( executor, queue, folderKeySet, pendingFolderCount, folder, Files.readAttributes(folder, BasicFileAttributes.class) );
+		while ( true ) {
+			FoundFile foundFile = queue.take();
+			if ( foundFile == END ) {
+				return true;
+			}
+			if ( !listener.fileFound(foundFile.path, foundFile.attributes) ) {
+				return false;
+			}
+		}
+	}
+	finally {
+		// Stop listing if the listener stopped or threw an exception.
+		executor.shutdownNow();
+		executor.awaitTermination ( 10, TimeUnit.SECONDS );
+	}
+}
+
+/**
+List the files and folders in the calling thread using Files.walkFileTree().
+@param folder folder to list
+@param listener code to handle each matched file or folder
+@return true if all files were listed, false if the listener stopped listing
+*/
+private boolean walkSequential ( Path folder, FileListener listener )
+throws Exception {
+	// Exception thrown by the listener, which cannot be thrown from the visitor.
+	Exception [] listenerException = new Exception[1];
+	boolean [] stopped = new boolean[1];
+	int maxDepth = 1;
+	if ( this.listRecursive ) {
+		maxDepth = Integer.MAX_VALUE;
+	}
+	Files.walkFileTree ( folder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>() {
+		@Override
+		public FileVisitResult preVisitDirectory ( Path dir, BasicFileAttributes attributes ) {
+			if ( dir.equals(folder) ) {
+				// Don't list the top folder.
+				return FileVisitResult.CONTINUE;
+			}
+			return visitFile ( dir, attributes );
+		}
+
+		@Override
+		public FileVisitResult visitFile ( Path file, BasicFileAttributes attributes ) {
+			if ( !isMatch(file, attributes) ) {
+				return FileVisitResult.CONTINUE;
+			}
+			try {
+				if ( !listener.fileFound(file, attributes) ) {
+					stopped[0] = true;
+					return FileVisitResult.TERMINATE;
+				}
+			}
+			catch ( Exception e ) {
+				listenerException[0] = e;
+				return FileVisitResult.TERMINATE;
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFileFailed ( Path file, IOException e ) {
+			if ( e instanceof FileSystemLoopException ) {
+				// Folder was already listed, for example a symbolic link to a parent folder.
+				return FileVisitResult.CONTINUE;
+			}
+			handleError ( file, e );
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult postVisitDirectory ( Path dir, IOException e ) {
+			if ( e != null ) {
+				handleError ( dir, e );
+			}
+			return FileVisitResult.CONTINUE;
+		}
+	});
+	if ( listenerException[0] != null ) {
+		throw listenerException[0];
+	}
+	return !stopped[0];
+}
+
+/**
+List one folder in a task, queuing matched files and folders and submitting a task for each subfolder.
+The last task to complete queues END.
+@param executor executor that runs the tasks
+@param queue queue of matched files and folders for the listener
+@param folderKeySet keys for folders that have been submitted, to avoid loops
+@param pendingFolderCount number of folders that have been submitted and not completed
+@param folder folder to list
+@param attributes attributes for the folder
+@return true if the folder was submitted, false if it was already submitted
+*/
+private boolean submitFolder ( ExecutorService executor, BlockingQueue<FoundFile> queue, Set<Object> folderKeySet,
+	AtomicInteger pendingFolderCount, Path folder, BasicFileAttributes attributes ) {
+	if ( !folderKeySet.add(getFolderKey(folder, attributes)) ) {
+		// Folder was already listed, for example a symbolic link to a parent folder.
+		return false;
+	}
+	pendingFolderCount.incrementAndGet();
+	executor.submit ( () -> {
+		try ( DirectoryStream<Path> stream = Files.newDirectoryStream(folder) ) {
+			for ( Path path : stream ) {
+				BasicFileAttributes pathAttributes = null;
+				try {
+					// Follow symbolic links.
+					pathAttributes = Files.readAttributes ( path, BasicFileAttributes.class );
+				}
+				catch ( IOException e ) {
+					handleError ( path, e );
+					continue;
+				}
+				if ( pathAttributes.isDirectory()
+					&& !submitFolder ( executor, queue, folderKeySet, pendingFolderCount, path, pathAttributes ) ) {
+					// Folder was already listed so don't list again, consistent with walkSequential().
+					continue;
+				}
+				if ( isMatch(path, pathAttributes) ) {
+					queue.put ( new FoundFile(path, pathAttributes) );
+				}
+			}
+		}
+		catch ( DirectoryIteratorException e ) {
+			// Error reading the folder while iterating.
+			handleError ( folder, e.getCause() );
+		}
+		catch ( IOException e ) {
+			handleError ( folder, e );
+		}
+		finally {
+			if ( pendingFolderCount.decrementAndGet() == 0 ) {
+				queue.put ( END );
+			}
+		}
+		return null;
+	});
+	return true;
+}
+
+}
@@ -39,7 +39,6 @@ import RTi.Util.IO.CommandException;
 import RTi.Util.IO.CommandLogRecord;
 import RTi.Util.IO.CommandPhaseType;
 import RTi.Util.IO.CommandProcessor;
-import RTi.Util.IO.CommandProcessorRequestResultsBean;
 import RTi.Util.IO.CommandStatus;
 import RTi.Util.IO.CommandStatusType;
 import RTi.Util.IO.CommandWarningException;
@@ -61,6 +60,9 @@ See also Break(), which will be handled in the processor to interrupt a loop.
 The command processor (TSEngine) first calls 'next'.
 If not at the end of the loop, true will be returned, indicating that the command can be run.
 The first time that next() is called, the loop is positioned at the starting value.
+
+If Parallel=True, the processor runs the commands in the loop for each iteration in a separate processor,
+using up to MaxThreads threads, and merges the results after all iterations have completed.
 */
 public class For_Command extends AbstractCommand
 {
@@ -264,6 +266,8 @@ throws InvalidCommandParameterException {
 	String IteratorProperty = parameters.getValue ( "IteratorProperty" );
 	String IndexProperty = parameters.getValue ( "IndexProperty" );
 	String ShowProgress = parameters.getValue ( "ShowProgress" );
+	String Parallel = parameters.getValue ( "Parallel" );
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
 	// List.
 	String List = parameters.getValue ( "List" );
 	// Sequence.
@@ -448,6 +452,26 @@ throws InvalidCommandParameterException {
 		}
 	}
 
+	if ( (Parallel != null) && !Parallel.isEmpty() ) {
+		if ( !Parallel.equalsIgnoreCase(_True) && !Parallel.equalsIgnoreCase(_False) ) {
+            message = "Invalid Parallel parameter \"" + Parallel + "\"";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify " + _False + " (default) or " + _True + "." ) );
+		}
+	}
+
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		if ( !StringUtil.isInteger(MaxThreads) || (Integer.parseInt(MaxThreads) < 1) ) {
+            message = "Invalid MaxThreads parameter \"" + MaxThreads + "\"";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify an integer 1 or larger." ) );
+		}
+	}
+
     if ( count == 0 ) {
         message = "A list, sequence, table, or time series list must be specified.";
         warning += "\n" + message;
@@ -463,12 +487,14 @@ throws InvalidCommandParameterException {
     }
 
 	// Check for invalid parameters.
-    List<String> validList = new ArrayList<>(19);
+    List<String> validList = new ArrayList<>(21);
     // General.
 	validList.add ( "Name" );
 	validList.add ( "IteratorProperty" );
 	validList.add ( "IndexProperty" );
 	validList.add ( "ShowProgress" );
+	validList.add ( "Parallel" );
+	validList.add ( "MaxThreads" );
 	// List.
 	validList.add ( "IteratorValueProperty" );
 	validList.add ( "List" );
@@ -529,6 +555,18 @@ public Object getIteratorPropertyValue () {
     return this.iteratorObject;
 }
 
+/**
+Return the maximum number of threads used to run iterations when Parallel=True.
+@return the MaxThreads parameter value, or the number of available processors if not specified.
+*/
+public int getMaxThreads () {
+	String MaxThreads = getCommandParameters().getValue("MaxThreads");
+	if ( (MaxThreads != null) && StringUtil.isInteger(MaxThreads) && (Integer.parseInt(MaxThreads) > 0) ) {
+		return Integer.parseInt(MaxThreads);
+	}
+	return Runtime.getRuntime().availableProcessors();
+}
+
 /**
 Return the name of the for command.
 @return the name of the for command, should not be null.
@@ -537,6 +575,15 @@ public String getName () {
     return getCommandParameters().getValue("Name");
 }
 
+/**
+Indicate whether iterations should be run in parallel (Parallel=True).
+@return true if iterations should be run in parallel, false if run sequentially (default).
+*/
+public boolean isParallel () {
+	String Parallel = getCommandParameters().getValue("Parallel");
+	return (Parallel != null) && Parallel.equalsIgnoreCase(this._True);
+}
+
 /**
 Set the value of the index property.
 This is the current index value that can be used by commands within the loop to control logic.
@@ -785,13 +832,9 @@ private int initializeTsListIterator ( TSCommandProcessor processor,
 	}
 
 	// Get the time series to process.
-	PropList request_params = new PropList ( "" );
-	request_params.set ( "TSList", TSList );
-	request_params.set ( "TSID", TSID );
-    request_params.set ( "EnsembleID", EnsembleID );
-	CommandProcessorRequestResultsBean bean = null;
+	Object o_TSList = null;
 	try {
-        bean = processor.processRequest( "GetTimeSeriesToProcess", request_params);
+		o_TSList = TSCommandProcessorUtil.getTimeSeriesToProcess ( processor, TSList, TSID, EnsembleID, null ).getTimeSeriesList();
 	}
 	catch ( Exception e ) {
         String message = "Error requesting GetTimeSeriesToProcess(TSList=\"" + TSList +
@@ -803,8 +846,6 @@ private int initializeTsListIterator ( TSCommandProcessor processor,
 				new CommandLogRecord(CommandStatusType.FAILURE,
 						message, "Report problem to software support." ) );
 	}
-	PropList bean_PropList = bean.getResultsPropList();
-	Object o_TSList = bean_PropList.getContents ( "TSToProcessList" );
 	if ( o_TSList == null ) {
         String message = "Null TSToProcessList returned from processor for GetTimeSeriesToProcess(TSList=\"" + TSList +
         "\" TSID=\"" + TSID + "\", EnsembleID=\"" + EnsembleID + "\").";
@@ -1001,17 +1042,14 @@ public boolean next () {
 	        // TODO SAM 2014-06-29 Need to optimize all of this - currently have duplicate code in runCommand().
 	        CommandStatus status = getCommandStatus();
 	        status.clearLog(CommandPhaseType.RUN);
-	        PropList request_params = null;
-	        CommandProcessorRequestResultsBean bean = null;
 	        int warning_level = 2;
 	        String command_tag = "";
 	        int warning_count = 0;
 	        if ( (TableID != null) && !TableID.equals("") ) {
 	            // Get the table providing the list.
-	            request_params = new PropList ( "" );
-	            request_params.set ( "TableID", TableID );
+	            Object o_Table = null;
 	            try {
-	                bean = processor.processRequest( "GetTable", request_params);
+	                o_Table = TSCommandProcessorUtil.getTable ( processor, TableID );
 	            }
 	            catch ( Exception e ) {
 	                message = "Error requesting GetTable(TableID=\"" + TableID + "\") from processor.";
@@ -1020,8 +1058,6 @@ public boolean next () {
 	                status.addToLog ( CommandPhaseType.RUN, new CommandLogRecord(CommandStatusType.FAILURE,
 	                    message, "Report problem to software support." ) );
 	            }
-	            PropList bean_PropList = bean.getResultsPropList();
-	            Object o_Table = bean_PropList.getContents ( "Table" );
 	            if ( o_Table == null ) {
 	                message = "Unable to find table to process using TableID=\"" + TableID + "\".";
 	                Message.printWarning ( warning_level,
@@ -1861,15 +1897,12 @@ throws CommandWarningException, CommandException, InvalidCommandParameterExcepti
 
     // Get the table to process.  This logic is repeated in next() because next() is called first.
 
-    PropList request_params = null;
-    CommandProcessorRequestResultsBean bean = null;
     this.table = null;
     if ( (TableID != null) && !TableID.equals("") ) {
         // Get the table to provide the list.
-        request_params = new PropList ( "" );
-        request_params.set ( "TableID", TableID );
+        Object o_Table = null;
         try {
-            bean = processor.processRequest( "GetTable", request_params);
+            o_Table = TSCommandProcessorUtil.getTable ( processor, TableID );
         }
         catch ( Exception e ) {
             message = "Error requesting GetTable(TableID=\"" + TableID + "\") from processor.";
@@ -1878,8 +1911,6 @@ throws CommandWarningException, CommandException, InvalidCommandParameterExcepti
             status.addToLog ( CommandPhaseType.RUN, new CommandLogRecord(CommandStatusType.FAILURE,
                 message, "Report problem to software support." ) );
         }
-        PropList bean_PropList = bean.getResultsPropList();
-        Object o_Table = bean_PropList.getContents ( "Table" );
         if ( o_Table == null ) {
             message = "Unable to find table to process using TableID=\"" + TableID + "\".";
             Message.printWarning ( warning_level,
@@ -1903,7 +1934,7 @@ throws CommandWarningException, CommandException, InvalidCommandParameterExcepti
 	try {
 	    // next() will have been called by the command processor so at this point just set the processor property.
 	    // Set the basic property as well as property with 0 and 1 indicating zero and 1 offset list positions.
-        request_params = new PropList ( "" );
+        PropList request_params = new PropList ( "" );
         request_params.setUsingObject ( "PropertyName", this.iteratorPropertyName );
         request_params.setUsingObject ( "PropertyValue", this.iteratorObject );
         try {
@@ -2024,6 +2055,8 @@ public String toString ( PropList parameters ) {
     	"IteratorProperty",
     	"IndexProperty",
     	"ShowProgress",
+    	"Parallel",
+    	"MaxThreads",
     	// List.
     	"IteratorValueProperty",
     	"List",
@@ -78,6 +78,8 @@ private JTextField __Name_JTextField = null;
 private JTextField __IteratorProperty_JTextField = null;
 private JTextField __IndexProperty_JTextField = null;
 private SimpleJComboBox __ShowProgress_JComboBox;
+private SimpleJComboBox __Parallel_JComboBox;
+private JTextField __MaxThreads_JTextField = null;
 private JTabbedPane __main_JTabbedPane = null;
 // List.
 private JTextField __IteratorValueProperty_JTextField = null;
@@ -216,6 +218,8 @@ private void checkInput () {
     String IteratorProperty = __IteratorProperty_JTextField.getText().trim();
     String IndexProperty = __IndexProperty_JTextField.getText().trim();
 	String ShowProgress = __ShowProgress_JComboBox.getSelected();
+	String Parallel = __Parallel_JComboBox.getSelected();
+    String MaxThreads = __MaxThreads_JTextField.getText().trim();
 	// List.
     String IteratorValueProperty = __IteratorValueProperty_JTextField.getText().trim();
     String List = __List_JTextArea.getText().trim().replace('\n', ' ').replace('\t', ' ');
@@ -249,6 +253,12 @@ private void checkInput () {
 	if ( !ShowProgress.isEmpty() ) {
 		props.set ( "ShowProgress", ShowProgress );
 	}
+	if ( !Parallel.isEmpty() ) {
+		props.set ( "Parallel", Parallel );
+	}
+    if ( !MaxThreads.isEmpty() ) {
+        props.set ( "MaxThreads", MaxThreads );
+    }
 	// List.
     if ( IteratorValueProperty.length() > 0 ) {
         props.set ( "IteratorValueProperty", IteratorValueProperty );
@@ -318,6 +328,8 @@ private void commitEdits () {
     String IteratorProperty = __IteratorProperty_JTextField.getText().trim();
     String IndexProperty = __IndexProperty_JTextField.getText().trim();
     String ShowProgress = __ShowProgress_JComboBox.getSelected();
+    String Parallel = __Parallel_JComboBox.getSelected();
+    String MaxThreads = __MaxThreads_JTextField.getText().trim();
 	// List.
     String IteratorValueProperty = __IteratorValueProperty_JTextField.getText().trim();
     String List = __List_JTextArea.getText().trim().replace('\n', ' ').replace('\t', ' ');
@@ -343,6 +355,8 @@ private void commitEdits () {
     __command.setCommandParameter ( "IteratorProperty", IteratorProperty );
     __command.setCommandParameter ( "IndexProperty", IndexProperty );
     __command.setCommandParameter ( "ShowProgress", ShowProgress );
+    __command.setCommandParameter ( "Parallel", Parallel );
+    __command.setCommandParameter ( "MaxThreads", MaxThreads );
     // List.
     __command.setCommandParameter ( "IteratorValueProperty", IteratorValueProperty );
     __command.setCommandParameter ( "List", List );
@@ -448,6 +462,34 @@ private void initialize ( JFrame parent, For_Command command, List<String> table
 		"Optional - show progress in TSTool (default=" + __command._False + ")."),
 		3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Run iterations in parallel?:"),
+		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    List<String> Parallel_List = new ArrayList<>( 3 );
+	Parallel_List.add ( "" );
+	Parallel_List.add ( __command._False );
+	Parallel_List.add ( __command._True );
+	__Parallel_JComboBox = new SimpleJComboBox ( false );
+	__Parallel_JComboBox.setToolTipText("Run each iteration in a separate processor and merge results in iteration order at EndFor?  "
+		+ "Loops that use commands that may modify shared data (e.g., Scale, datastore and Excel commands) are run sequentially.");
+	__Parallel_JComboBox.setData ( Parallel_List);
+	__Parallel_JComboBox.select ( 0 );
+	__Parallel_JComboBox.addActionListener ( this );
+    JGUIUtil.addComponent(main_JPanel, __Parallel_JComboBox,
+		1, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+		"Optional - run iterations in parallel (default=" + __command._False + ")."),
+		3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Maximum threads:" ),
+        0, ++y, 1, 1, 0, 0, insetsNONE, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxThreads_JTextField = new JTextField (10);
+    __MaxThreads_JTextField.setToolTipText("Maximum number of iterations to run at the same time when Parallel=True.");
+    __MaxThreads_JTextField.addKeyListener(this);
+    JGUIUtil.addComponent(main_JPanel, __MaxThreads_JTextField,
+        1, y, 1, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel("Optional - maximum threads for parallel iterations (default=number of processors)."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     // Tabbed panel for For input types.
 
     __main_JTabbedPane = new JTabbedPane ();
@@ -781,6 +823,8 @@ private void refresh () {
     String IteratorProperty = "";
     String IndexProperty = "";
 	String ShowProgress = "";
+	String Parallel = "";
+	String MaxThreads = "";
 	// List.
     String IteratorValueProperty = "";
     String List = "";
@@ -810,6 +854,8 @@ private void refresh () {
 	    IteratorProperty = props.getValue( "IteratorProperty" );
 	    IndexProperty = props.getValue( "IndexProperty" );
 		ShowProgress = props.getValue ( "ShowProgress" );
+		Parallel = props.getValue ( "Parallel" );
+	    MaxThreads = props.getValue( "MaxThreads" );
 		// List.
 	    IteratorValueProperty = props.getValue( "IteratorValueProperty" );
 	    List = props.getValue( "List" );
@@ -856,6 +902,25 @@ private void refresh () {
 				__error_wait = true;
 			}
 		}
+		if ( (Parallel == null) || Parallel.isEmpty() ) {
+			// Select default.
+			__Parallel_JComboBox.select ( 0 );
+		}
+		else {
+		    if ( JGUIUtil.isSimpleJComboBoxItem( __Parallel_JComboBox,
+				Parallel, JGUIUtil.NONE, null, null ) ) {
+				__Parallel_JComboBox.select ( Parallel );
+			}
+			else {
+			    Message.printWarning ( 1, routine,
+				"Existing command references an invalid Parallel value \"" +
+				Parallel + "\".  Select a different value or Cancel.");
+				__error_wait = true;
+			}
+		}
+        if ( MaxThreads != null ) {
+            __MaxThreads_JTextField.setText( MaxThreads );
+        }
 		// List.
         if ( IteratorValueProperty != null ) {
             __IteratorValueProperty_JTextField.setText( IteratorValueProperty );
@@ -979,6 +1044,8 @@ private void refresh () {
     IteratorProperty = __IteratorProperty_JTextField.getText().trim();
     IndexProperty = __IndexProperty_JTextField.getText().trim();
     ShowProgress = __ShowProgress_JComboBox.getSelected();
+    Parallel = __Parallel_JComboBox.getSelected();
+    MaxThreads = __MaxThreads_JTextField.getText().trim();
     // List.
     IteratorValueProperty = __IteratorValueProperty_JTextField.getText().trim();
     List = __List_JTextArea.getText().trim().replace('\n', ' ').replace('\t', ' ');
@@ -1005,6 +1072,8 @@ private void refresh () {
     props.add ( "IteratorProperty=" + IteratorProperty );
     props.add ( "IndexProperty=" + IndexProperty );
     props.add ( "ShowProgress=" + ShowProgress );
+    props.add ( "Parallel=" + Parallel );
+    props.add ( "MaxThreads=" + MaxThreads );
     // List.
     props.add ( "IteratorValueProperty=" + IteratorValueProperty );
     props.add ( "List=" + List );
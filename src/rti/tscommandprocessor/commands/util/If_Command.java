@@ -31,11 +31,11 @@ import java.util.Map;
 
 import javax.swing.JFrame;
 
-import com.ezylang.evalex.Expression;
 import com.ezylang.evalex.config.ExpressionConfiguration;
 import com.ezylang.evalex.data.EvaluationValue;
 
 import rti.tscommandprocessor.core.TSCommandProcessor;
+import rti.tscommandprocessor.commands.expression.CompiledExpression;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 import RTi.TS.TS;
 import RTi.Util.IO.AbstractCommand;
@@ -74,6 +74,12 @@ Result of evaluating the condition.
 */
 private boolean conditionEvalTotal = true;
 
+/**
+Compiled Expression parameter, reused when the command is run more than once, such as in a For() loop.
+The expression is recompiled if the Expression parameter changes.
+*/
+private CompiledExpression compiledExpression = null;
+
 /**
 Constructor.
 */
@@ -347,13 +353,8 @@ throws CommandWarningException, CommandException {
 	if ( commandPhase == CommandPhaseType.RUN ) {
 		DataStoreIsNotOk = TSCommandProcessorUtil.expandParameterValue(processor, this, DataStoreIsNotOk);
 	}
+	// The Expression parameter is not expanded because properties are set as variables in the compiled expression.
 	String Expression = parameters.getValue ( "Expression" );
-	String expressionExpanded = Expression;
-	if ( commandPhase == CommandPhaseType.RUN ) {
-		// Expand the expression to fill in properties:
-		// - if quotes are required, they need to be in the expression
-		expressionExpanded = TSCommandProcessorUtil.expandParameterValue(processor, this, Expression );
-	}
 	String FileExists = parameters.getValue ( "FileExists" );
 	if ( commandPhase == CommandPhaseType.RUN ) {
 		FileExists = TSCommandProcessorUtil.expandParameterValue(processor, this, FileExists);
@@ -956,16 +957,24 @@ throws CommandWarningException, CommandException {
        		     Message.printStatus(2,routine,"After evaluating DataStoreIsNotOk, result=" + dsConditionEval);
     	    }
 	    }
-	    if ( (expressionExpanded != null) && !expressionExpanded.isEmpty() ) {
-	    	Message.printStatus(2, routine, "Expanded expression: " + expressionExpanded);
+	    if ( (Expression != null) && !Expression.isEmpty() ) {
+	    	if ( Message.isDebugOn ) {
+	    		// Only expand for troubleshooting because the compiled expression does not use the expanded text.
+	    		Message.printDebug(1, routine, "Expanded expression: " +
+	    			TSCommandProcessorUtil.expandParameterValue(processor, this, Expression));
+	    	}
     		// Enable single quotes to indicate strings.
-    		ExpressionConfiguration configuration = ExpressionConfiguration.builder()
-    			.singleQuoteStringLiteralsAllowed(true)
-    			.build();
-	    	Expression expression = null;
+	    	CompiledExpression expression = this.compiledExpression;
 	    	boolean hadProblem = false;
 	    	try {
-	    		expression = new Expression ( expressionExpanded, configuration );
+	    		if ( (expression == null) || !expression.getExpressionText().equals(Expression) ) {
+	    			// Compile the unexpanded expression so that properties are set as variables when evaluated.
+    				ExpressionConfiguration configuration = ExpressionConfiguration.builder()
+    					.singleQuoteStringLiteralsAllowed(true)
+    					.build();
+	    			expression = CompiledExpression.compile ( Expression, configuration, true );
+	    			this.compiledExpression = expression;
+	    		}
 	    	}
 	    	catch ( Exception e ) {
 	    		hadProblem = true;
@@ -980,7 +989,7 @@ throws CommandWarningException, CommandException {
 	    	}
 	    	EvaluationValue result = null;
 	    	try {
-	    		result = expression.evaluate();
+	    		result = expression.evaluate ( processor, this, null );
 	    	}
 	    	catch ( Exception e ) {
 	    		hadProblem = true;
@@ -1261,12 +1270,9 @@ throws CommandWarningException, CommandException {
   			boolean tableConditionEval = false;
 	        // Get the table to process.  The table is searched backwards until the first match.
 	        DataTable table = null;
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TableID", TableExists );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_Table = null;
             try {
-                bean = processor.processRequest( "GetTable", request_params);
+                o_Table = TSCommandProcessorUtil.getTable ( processor, TableExists );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTable(TableID=\"" + TableExists + "\") from processor.";
@@ -1277,8 +1283,6 @@ throws CommandWarningException, CommandException {
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
             }
-            PropList bean_PropList = bean.getResultsPropList();
-            Object o_Table = bean_PropList.getContents ( "Table");
             if ( o_Table != null ) {
                 table = (DataTable)o_Table;
             }
@@ -1300,12 +1304,9 @@ throws CommandWarningException, CommandException {
   			boolean tableConditionEval = false;
 	        // Get the table to process.  The table is searched backwards until the first match.
 	        DataTable table = null;
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TableID", TableDoesNotExist );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_Table = null;
             try {
-                bean = processor.processRequest( "GetTable", request_params);
+                o_Table = TSCommandProcessorUtil.getTable ( processor, TableDoesNotExist );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTable(TableID=\"" + TableDoesNotExist + "\") from processor.";
@@ -1316,8 +1317,6 @@ throws CommandWarningException, CommandException {
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
             }
-            PropList bean_PropList = bean.getResultsPropList();
-            Object o_Table = bean_PropList.getContents ( "Table");
             if ( o_Table != null ) {
                 table = (DataTable)o_Table;
             }
@@ -1338,12 +1337,9 @@ throws CommandWarningException, CommandException {
   			boolean tsConditionEval = false;
 	        // Get the time series to process.  The time series list is searched backwards until the first match.
 	        TS ts = null;
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TSID", TSExists );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_TS = null;
             try {
-                bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+                o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSExists );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSExists + "\") from processor.";
@@ -1354,11 +1350,6 @@ throws CommandWarningException, CommandException {
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
             }
-            Object o_TS = null;
-            if ( bean != null ) {
-            	PropList bean_PropList = bean.getResultsPropList();
-            	o_TS = bean_PropList.getContents ( "TS");
-            }
             if ( o_TS != null ) {
                 ts = (TS)o_TS;
             }
@@ -1383,12 +1374,9 @@ throws CommandWarningException, CommandException {
   			boolean tsConditionEval = false;
 	        // Get the time series to process.  The time series list is searched backwards until the first match.
 	        TS ts = null;
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TSID", TSDoesNotExist );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_TS = null;
             try {
-                bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+                o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSDoesNotExist );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSDoesNotExist + "\") from processor.";
@@ -1399,11 +1387,6 @@ throws CommandWarningException, CommandException {
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
             }
-            Object o_TS = null;
-            if ( bean != null ) {
-            	PropList bean_PropList = bean.getResultsPropList();
-            	o_TS = bean_PropList.getContents ( "TS");
-            }
             if ( o_TS != null ) {
                 ts = (TS)o_TS;
             }
@@ -1424,12 +1407,9 @@ throws CommandWarningException, CommandException {
   			boolean tsConditionEval = false;
 	        // Get the time series to process.  The time series list is searched backwards until the first match.
 	        TS ts = null;
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TSID", TSHasData );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_TS = null;
             try {
-                bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+                o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSHasData );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSHasData + "\") from processor.";
@@ -1440,11 +1420,6 @@ throws CommandWarningException, CommandException {
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
             }
-            Object o_TS = null;
-            if ( bean != null ) {
-            	PropList bean_PropList = bean.getResultsPropList();
-            	o_TS = bean_PropList.getContents ( "TS");
-            }
             if ( o_TS != null ) {
                 ts = (TS)o_TS;
             }
@@ -1482,12 +1457,9 @@ throws CommandWarningException, CommandException {
   			boolean tsConditionEval = false;
 	        // Get the time series to process.  The time series list is searched backwards until the first match.
 	        TS ts = null;
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TSID", TSHasNoData );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_TS = null;
             try {
-                bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+                o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSHasNoData );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSHasNoData + "\") from processor.";
@@ -1498,11 +1470,6 @@ throws CommandWarningException, CommandException {
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
             }
-            Object o_TS = null;
-            if ( bean != null ) {
-            	PropList bean_PropList = bean.getResultsPropList();
-            	o_TS = bean_PropList.getContents ( "TS");
-            }
             if ( o_TS != null ) {
                 ts = (TS)o_TS;
             }
@@ -1543,12 +1510,9 @@ throws CommandWarningException, CommandException {
 	    	// Check to see whether the specified time series property exists.
 	    	// All cases need to be evaluated below to properly set the result.
 	        // Get the time series to process.  The time series list is searched backwards until the first match.
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TSID", TSID );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_TS = null;
             try {
-                bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+                o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSID );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSID + "\") from processor.";
@@ -1558,11 +1522,6 @@ throws CommandWarningException, CommandException {
                 status.addToLog ( CommandPhaseType.RUN,
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
-            }
-            Object o_TS = null;
-            if ( bean != null ) {
-            	PropList bean_PropList = bean.getResultsPropList();
-            	o_TS = bean_PropList.getContents ( "TS");
             }
 	        TS ts = null;
             if ( o_TS != null ) {
@@ -1615,12 +1574,9 @@ throws CommandWarningException, CommandException {
 	    	// Check to see whether the specified property exists.
 	    	// All cases need to be evaluated below to properly set the result.
 	        // Get the time series to process.  The time series list is searched backwards until the first match.
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TSID", TSID );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_TS = null;
             try {
-                bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+                o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSID );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSID + "\") from processor.";
@@ -1630,11 +1586,6 @@ throws CommandWarningException, CommandException {
                 status.addToLog ( CommandPhaseType.RUN,
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
-            }
-            Object o_TS = null;
-            if ( bean != null ) {
-            	PropList bean_PropList = bean.getResultsPropList();
-            	o_TS = bean_PropList.getContents ( "TS");
             }
 	        TS ts = null;
             if ( o_TS != null ) {
@@ -1678,12 +1629,9 @@ throws CommandWarningException, CommandException {
 	    	// Check to see whether the specified property exists and is not an empty string.
 	    	// All cases need to be evaluated below to properly set the result.
 	        // Get the time series to process.  The time series list is searched backwards until the first match.
-            PropList request_params = new PropList ( "" );
-            request_params.set ( "CommandTag", command_tag );
-            request_params.set ( "TSID", TSID );
-            CommandProcessorRequestResultsBean bean = null;
+            Object o_TS = null;
             try {
-                bean = processor.processRequest( "GetTimeSeriesForTSID", request_params);
+                o_TS = TSCommandProcessorUtil.getTimeSeriesForTSID ( processor, command_tag, TSID );
             }
             catch ( Exception e ) {
                 message = "Error requesting GetTimeSeriesForTSID(TSID=\"" + TSID + "\") from processor.";
@@ -1693,11 +1641,6 @@ throws CommandWarningException, CommandException {
                 status.addToLog ( CommandPhaseType.RUN,
                     new CommandLogRecord(CommandStatusType.FAILURE,
                         message, "Report the problem to software support." ) );
-            }
-            Object o_TS = null;
-            if ( bean != null ) {
-            	PropList bean_PropList = bean.getResultsPropList();
-            	o_TS = bean_PropList.getContents ( "TS");
             }
 	        TS ts = null;
             if ( o_TS != null ) {
@@ -26,13 +26,12 @@ package rti.tscommandprocessor.commands.util;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.FileOwnerAttributeView;
 import java.nio.file.attribute.FileTime;
-import java.nio.file.attribute.UserPrincipal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.swing.JFrame;
 
 import rti.tscommandprocessor.core.TSCommandProcessor;
@@ -55,6 +54,7 @@ import RTi.Util.IO.ObjectListProvider;
 import RTi.Util.IO.PropList;
 import RTi.Util.Message.Message;
 import RTi.Util.Message.MessageUtil;
+import RTi.Util.String.StringUtil;
 import RTi.Util.Table.DataTable;
 import RTi.Util.Table.TableField;
 import RTi.Util.Table.TableRecord;
@@ -105,6 +105,9 @@ throws InvalidCommandParameterException {
 	String ListScope = parameters.getValue ( "ListScope" );
 	String ListFiles = parameters.getValue ( "ListFiles" );
 	String ListFolders = parameters.getValue ( "ListFolders" );
+	String IncludeNames = parameters.getValue ( "IncludeNames" );
+	String ExcludeNames = parameters.getValue ( "ExcludeNames" );
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
     String TableID = parameters.getValue ( "TableID" );
 	String Append = parameters.getValue ( "Append" );
 	String CountProperty = parameters.getValue ( "CountProperty" );
@@ -151,6 +154,39 @@ throws InvalidCommandParameterException {
 					message, "Specify the parameter as " + _False + " (default) or " + _True + "."));
 		}
 	}
+	if ( (IncludeNames != null) && !IncludeNames.isEmpty() ) {
+		try {
+			FileListWalker.getNameMatcher ( IncludeNames );
+		}
+		catch ( IllegalArgumentException e ) {
+			message = "The IncludeNames parameter \"" + IncludeNames + "\" is not a valid pattern (" + e.getMessage() + ").";
+			warning += "\n" + message;
+			status.addToLog(CommandPhaseType.INITIALIZATION,
+				new CommandLogRecord(CommandStatusType.FAILURE,
+					message, "Specify a pattern using * to match any characters (e.g., *.csv)."));
+		}
+	}
+	if ( (ExcludeNames != null) && !ExcludeNames.isEmpty() ) {
+		try {
+			FileListWalker.getNameMatcher ( ExcludeNames );
+		}
+		catch ( IllegalArgumentException e ) {
+			message = "The ExcludeNames parameter \"" + ExcludeNames + "\" is not a valid pattern (" + e.getMessage() + ").";
+			warning += "\n" + message;
+			status.addToLog(CommandPhaseType.INITIALIZATION,
+				new CommandLogRecord(CommandStatusType.FAILURE,
+					message, "Specify a pattern using * to match any characters (e.g., *.csv)."));
+		}
+	}
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		if ( !StringUtil.isInteger(MaxThreads) || (Integer.parseInt(MaxThreads) < 1) ) {
+            message = "Invalid MaxThreads parameter \"" + MaxThreads + "\"";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify an integer 1 or larger." ) );
+		}
+	}
 	int outputCount = 0;
     if ( (TableID != null) && !TableID.isEmpty() ) {
     	++outputCount;
@@ -175,13 +211,14 @@ throws InvalidCommandParameterException {
 		}
 	}
 	// Check for invalid parameters.
-	List<String> validList = new ArrayList<>(9);
+	List<String> validList = new ArrayList<>(10);
 	validList.add ( "Folder" );
 	validList.add ( "ListScope" );
 	validList.add ( "ListFiles" );
 	validList.add ( "ListFolders" );
 	validList.add ( "IncludeNames" );
 	validList.add ( "ExcludeNames" );
+	validList.add ( "MaxThreads" );
 	validList.add ( "TableID" );
 	validList.add ( "Append" );
 	validList.add ( "CountProperty" );
@@ -329,23 +366,14 @@ CommandWarningException, CommandException {
 	        listFolders = true;
 	    }
 	}
-    // Replace the globbing notation with Java wildcarding.
+    // Glob patterns are compiled once when listing.
 	String IncludeNames = parameters.getValue ( "IncludeNames" );
-	String includePattern = null;
-	List<String> includePatterns = new ArrayList<>();
-	List<String> excludePatterns = new ArrayList<>();
-	if ( (IncludeNames != null) && !IncludeNames.equals("") ) {
-	    includePattern = IncludeNames.replace("*",".*");
-	    // Currently only allow one pattern.
-	    includePatterns.add(includePattern);
-	}
 	String ExcludeNames = parameters.getValue ( "ExcludeNames" );
-    String excludePattern = null;
-    if ( (ExcludeNames != null) && !ExcludeNames.equals("") ) {
-        excludePattern = ExcludeNames.replace("*",".*");
-	    // Currently only allow one pattern.
-	    excludePatterns.add(excludePattern);
-    }
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
+	int maxThreads = 1; // Default.
+	if ( (MaxThreads != null) && StringUtil.isInteger(MaxThreads) ) {
+		maxThreads = Integer.parseInt(MaxThreads);
+	}
 	String TableID = parameters.getValue ( "TableID" );
 	boolean doTable = false;
 	if ( (TableID != null) && !TableID.isEmpty() ) {
@@ -485,89 +513,95 @@ CommandWarningException, CommandException {
    	    		}
    	    	}
 
-    	    // Get the list of all the files in the folder.
+    	    // List the files in the folder, adding each matched file to the table as it is found
+    	    // rather than first creating a list of all files, which is slow for large folders.
 
     	    String workingDir = TSCommandProcessorUtil.getWorkingDir(processor);
 
-    	    boolean oldCode = false;
-
     	    File folder = new File(
     	    	IOUtil.verifyPathForOS(IOUtil.toAbsolutePath(workingDir,
     	    		TSCommandProcessorUtil.expandParameterValue(processor, this, Folder)) ) );
-    	    List<File> filePathList = new ArrayList<>();
-    	    if ( oldCode ) {
-    	    	File [] filePathArray = folder.listFiles();
-    	    	// Convert the array to a list.
-    	    	for ( File file : filePathArray ) {
-    	    		filePathList.add(file);
+    	    // Records in an existing table, by absolute path, so that a file that is already in the table is updated:
+    	    // - a map is used rather than searching the table for each file
+    	    Map<String,TableRecord> existingRecordMap = new HashMap<>();
+    	    if ( (table != null) && append ) {
+    	    	for ( int irec = 0; irec < table.getNumberOfRecords(); irec++ ) {
+    	    		TableRecord existingRec = table.getRecord(irec);
+    	    		Object absPath = existingRec.getFieldValue(absPathCol);
+    	    		if ( absPath != null ) {
+    	    			existingRecordMap.put ( absPath.toString(), existingRec );
+    	    		}
+    	    	}
+    	    }
+    	    // Copy values used in the listener, which must be final.
+    	    final DataTable outputTable = table;
+    	    final int fileNameCol2 = fileNameCol;
+    	    final int relPathCol2 = relPathCol;
+    	    final int absPathCol2 = absPathCol;
+    	    final int parentFolderCol2 = parentFolderCol;
+    	    final int typeCol2 = typeCol;
+    	    final int sizeCol2 = sizeCol;
+    	    final int ownerCol2 = ownerCol;
+    	    final int lastModifiedCol2 = lastModifiedCol;
+    	    int [] count = new int[1];
+    	    FileListWalker walker = new FileListWalker ( listRecursive, listFiles, listFolders, IncludeNames, ExcludeNames, maxThreads );
+    	    boolean listedAll = walker.walk ( folder.toPath(), (Path path, BasicFileAttributes attributes) -> {
+    	    	// Increment the counter.
+    	    	++count[0];
+    	    	if ( outputTable != null ) {
+    	    		// Add to the table.
+    	    		String absPath = path.toString();
+    	    		if ( Message.isDebugOn ) {
+    	    			Message.printStatus(2, routine, "Matched file \"" + absPath + "\"" );
+    	    		}
+    	    		TableRecord rec = existingRecordMap.get ( absPath );
+    	    		if ( rec == null ) {
+    	    			// Create a new record.
+    	    			rec = outputTable.addRecord(outputTable.emptyRecord());
+    	    		}
+    	    		// Set the data in the record.
+    	    		rec.setFieldValue(fileNameCol2,path.getFileName().toString());
+    	    		rec.setFieldValue(relPathCol2,IOUtil.toRelativePath(workingDir, absPath));
+    	    		rec.setFieldValue(absPathCol2,absPath);
+    	    		rec.setFieldValue(parentFolderCol2,path.getParent().toString());
+    	    		if ( attributes.isRegularFile() ) {
+    	    			rec.setFieldValue(typeCol2,"File");
+    	    			// File size.
+    	    			rec.setFieldValue(sizeCol2,Long.valueOf(attributes.size()));
+    	    		}
+    	    		else if ( attributes.isDirectory() ) {
+    	    			rec.setFieldValue(typeCol2,"Folder");
+    	    		}
+    	    		// User.
+    	    		rec.setFieldValue(ownerCol2,Files.getOwner(path).getName());
+    	    		// Modification time, from the attributes that were read when the folder was listed.
+    	    		FileTime modTime = attributes.lastModifiedTime();
+    	    		// Use the local timezone.
+    	    		DateTime modDateTime = new DateTime(modTime.toInstant(), 0, null);
+    	    		rec.setFieldValue(lastModifiedCol2,modDateTime);
+    	    	}
+    	    	// Check to see if the processor needs to break.
+    	    	if ( (processor instanceof TSCommandProcessor) && ((TSCommandProcessor)processor).getCancelProcessingRequested() ) {
+    	    		return false;
     	    	}
+    	    	return true;
+    	    });
+    	    if ( !listedAll ) {
+    	    	Message.printStatus ( 2, routine, "Cancel processing was requested after listing " + count[0] + " files." );
     	    }
-    	    else {
-    	    	// New code that is more flexible.
-    	    	filePathList = IOUtil.getFiles ( folder, listRecursive, listFiles, listFolders, includePatterns, excludePatterns );
+    	    if ( walker.getErrorCount() > 0 ) {
+    	    	message = "" + walker.getErrorCount() + " files or folders could not be read and were not listed.";
+    	    	Message.printWarning ( warning_level,
+    	    		MessageUtil.formatMessageTag(command_tag, ++warning_count),routine, message );
+    	    	status.addToLog ( commandPhase, new CommandLogRecord(CommandStatusType.WARNING,
+    	    		message, "Check the log file for details and folder permissions." ) );
     	    }
-    	    // Whether duplicates are allowed in the table:
-    	    // - TODO smalers 2023-03-28 this should never happen anyhow?
-    	    boolean allowDuplicates = false;
-    	    TableRecord rec = null;
-    	    int count = 0;
-        	for ( File filePath : filePathList ) {
-        	    // See if the file matches the include and exclude patterns.  To do this split out the filename from the parent.
-        	    String file = filePath.getName();
-        	    if ( (includePattern != null) && !file.matches(includePattern) ) {
-        	        continue;
-        	    }
-                if ( (excludePattern != null) && file.matches(excludePattern) ) {
-                    continue;
-                }
-                // If here add to the table.
-                String absPath = filePath.getAbsolutePath();
-                String relPath = IOUtil.toRelativePath(workingDir, absPath);
-                if ( Message.isDebugOn ) {
-                	Message.printStatus(2, routine, "Matched file \"" + absPath + "\"" );
-                }
-                // Try to get the record by matching the absolute path, which should be unique.
-                if ( !allowDuplicates ) {
-                    // Try to match the TSID.
-                    rec = table.getRecord ( absPathCol, absPath );
-                }
-                if ( rec == null ) {
-                    // Create a new record.
-                    rec = table.addRecord(table.emptyRecord());
-                }
-                // Set the data in the record.
-                rec.setFieldValue(fileNameCol,filePath.getName());
-                rec.setFieldValue(relPathCol,relPath);
-                rec.setFieldValue(absPathCol,absPath);
-                rec.setFieldValue(parentFolderCol,filePath.getParent());
-               	Path path = Paths.get(filePath.getAbsolutePath());
-                if ( filePath.isFile() ) {
-                	rec.setFieldValue(typeCol,"File");
-                	// File size.
-                	rec.setFieldValue(sizeCol,Long.valueOf(Files.size(path)));
-                }
-                else if ( filePath.isDirectory() ) {
-                	rec.setFieldValue(typeCol,"Folder");
-                }
-               	// User.
-               	FileOwnerAttributeView view = Files.getFileAttributeView(path, FileOwnerAttributeView.class);
-               	UserPrincipal user = view.getOwner();
-               	rec.setFieldValue(ownerCol,user.getName());
-               	// Modification time.
-               	BasicFileAttributes attr = Files.readAttributes(path, BasicFileAttributes.class);
-               	FileTime modTime = attr.lastModifiedTime();
-               	// Use the local timezone.
-               	DateTime modDateTime = new DateTime(modTime.toInstant(), 0, null);
-               	rec.setFieldValue(lastModifiedCol,modDateTime);
-               	// Increment the counter.
-               	++count;
-        	}
 
         	// Set the property indicating the number of output items.
            	if ( (CountProperty != null) && !CountProperty.isEmpty() ) {
                	request_params = new PropList ( "" );
                	request_params.setUsingObject ( "PropertyName", CountProperty );
-               	request_params.setUsingObject ( "PropertyValue", new Integer(count) );
+               	request_params.setUsingObject ( "PropertyValue", Integer.valueOf(count[0]) );
                	try {
                    	processor.processRequest( "SetProperty", request_params);
                	}
@@ -636,6 +670,7 @@ public String toString ( PropList parameters ) {
 		"ListFolders",
 		"IncludeNames",
 		"ExcludeNames",
+		"MaxThreads",
 		"TableID",
 		"Append",
 		"CountProperty"
@@ -80,6 +80,7 @@ private SimpleJComboBox __ListFiles_JComboBox = null;
 private SimpleJComboBox __ListFolders_JComboBox = null;
 private JTextField __IncludeNames_JTextField = null;
 private JTextField __ExcludeNames_JTextField = null;
+private JTextField __MaxThreads_JTextField = null;
 private SimpleJComboBox __TableID_JComboBox = null;
 private SimpleJComboBox __Append_JComboBox = null;
 private JTextField __CountProperty_JTextField = null;
@@ -188,6 +189,7 @@ private void checkInput () {
 	String ListFolders = __ListFolders_JComboBox.getSelected();
 	String IncludeNames = __IncludeNames_JTextField.getText().trim();
 	String ExcludeNames = __ExcludeNames_JTextField.getText().trim();
+	String MaxThreads = __MaxThreads_JTextField.getText().trim();
 	String TableID = __TableID_JComboBox.getSelected();
 	String Append = __Append_JComboBox.getSelected();
 	String CountProperty = __CountProperty_JTextField.getText().trim();
@@ -210,6 +212,9 @@ private void checkInput () {
     if ( ExcludeNames.length() > 0 ) {
         props.set ( "ExcludeNames", ExcludeNames );
     }
+    if ( MaxThreads.length() > 0 ) {
+        props.set ( "MaxThreads", MaxThreads );
+    }
     if ( TableID.length() > 0 ) {
         props.set ( "TableID", TableID );
     }
@@ -240,6 +245,7 @@ private void commitEdits () {
 	String ListFolders = __ListFolders_JComboBox.getSelected();
     String IncludeNames = __IncludeNames_JTextField.getText().trim();
     String ExcludeNames = __ExcludeNames_JTextField.getText().trim();
+    String MaxThreads = __MaxThreads_JTextField.getText().trim();
     String TableID = __TableID_JComboBox.getSelected();
     String Append = __Append_JComboBox.getSelected();
 	String CountProperty = __CountProperty_JTextField.getText().trim();
@@ -249,6 +255,7 @@ private void commitEdits () {
     __command.setCommandParameter ( "ListFolders", ListFolders );
 	__command.setCommandParameter ( "IncludeNames", IncludeNames );
 	__command.setCommandParameter ( "ExcludeNames", ExcludeNames );
+	__command.setCommandParameter ( "MaxThreads", MaxThreads );
 	__command.setCommandParameter ( "TableID", TableID );
 	__command.setCommandParameter ( "Append", Append );
 	__command.setCommandParameter ( "CountProperty", CountProperty );
@@ -286,6 +293,9 @@ private void initialize ( JFrame parent, ListFiles_Command command, List<String>
     JGUIUtil.addComponent(main_JPanel, new JLabel (
         "The include and exclude name patterns can use * and will match the name only." ),
         0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+        "If more than one thread is used to list all folders, the order of the output depends on the time to list each folder." ),
+        0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
     if ( __working_dir != null ) {
     	JGUIUtil.addComponent(main_JPanel, new JLabel (
 		"It is recommended that the folder name be relative to the working directory, which is:"),
@@ -371,6 +381,8 @@ private void initialize ( JFrame parent, ListFiles_Command command, List<String>
     JGUIUtil.addComponent(main_JPanel, new JLabel ("Names(s) to include:" ),
         0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
     __IncludeNames_JTextField = new JTextField ( 40 );
+    __IncludeNames_JTextField.setToolTipText("Glob pattern for file and folder names to include (e.g., *.csv), "
+        + "matching is case-insensitive on Windows and case-sensitive on other operating systems.");
     __IncludeNames_JTextField.addKeyListener ( this );
     JGUIUtil.addComponent(main_JPanel, __IncludeNames_JTextField,
         1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
@@ -381,6 +393,8 @@ private void initialize ( JFrame parent, ListFiles_Command command, List<String>
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Names(s) to exclude:"),
         0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
     __ExcludeNames_JTextField = new JTextField ( 40 );
+    __ExcludeNames_JTextField.setToolTipText("Glob pattern for file and folder names to exclude (e.g., *.csv), "
+        + "matching is case-insensitive on Windows and case-sensitive on other operating systems.");
     __ExcludeNames_JTextField.addKeyListener ( this );
     JGUIUtil.addComponent(main_JPanel, __ExcludeNames_JTextField,
         1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
@@ -388,6 +402,18 @@ private void initialize ( JFrame parent, ListFiles_Command command, List<String>
         "Optional - names to exclude (default=exclude none)."),
         3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Maximum threads:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxThreads_JTextField = new JTextField ( 5 );
+    __MaxThreads_JTextField.setToolTipText("Number of threads used to list folders when ListScope=" + __command._All
+        + ", for example for network shares with many folders.");
+    __MaxThreads_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(main_JPanel, __MaxThreads_JTextField,
+        1, y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel(
+        "Optional - threads used to list folders (default=1)."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Table ID:" ),
         0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
     __TableID_JComboBox = new SimpleJComboBox ( 12, true ); // Allow edit.
@@ -516,6 +542,7 @@ private void refresh () {
 	String ListFolders = "";
 	String IncludeNames = "";
 	String ExcludeNames = "";
+	String MaxThreads = "";
 	String TableID = "";
 	String Append = "";
     String CountProperty = "";
@@ -529,6 +556,7 @@ private void refresh () {
 		ListFolders = parameters.getValue ( "ListFolders" );
 		IncludeNames = parameters.getValue ( "IncludeNames" );
 		ExcludeNames = parameters.getValue ( "ExcludeNames" );
+		MaxThreads = parameters.getValue ( "MaxThreads" );
 		TableID = parameters.getValue ( "TableID" );
 		Append = parameters.getValue ( "Append" );
 		CountProperty = parameters.getValue ( "CountProperty" );
@@ -589,6 +617,9 @@ private void refresh () {
         if ( ExcludeNames != null ) {
             __ExcludeNames_JTextField.setText ( ExcludeNames );
         }
+        if ( MaxThreads != null ) {
+            __MaxThreads_JTextField.setText ( MaxThreads );
+        }
         if ( TableID == null ) {
             // Select default.
             __TableID_JComboBox.select ( 0 );
@@ -636,6 +667,7 @@ private void refresh () {
 	ListFolders = __ListFolders_JComboBox.getSelected();
 	IncludeNames = __IncludeNames_JTextField.getText().trim();
 	ExcludeNames = __ExcludeNames_JTextField.getText().trim();
+	MaxThreads = __MaxThreads_JTextField.getText().trim();
 	TableID = __TableID_JComboBox.getSelected();
 	Append = __Append_JComboBox.getSelected();
 	CountProperty = __CountProperty_JTextField.getText().trim();
@@ -646,6 +678,7 @@ private void refresh () {
 	props.add ( "ListFolders=" + ListFolders );
 	props.add ( "IncludeNames=" + IncludeNames );
 	props.add ( "ExcludeNames=" + ExcludeNames );
+	props.add ( "MaxThreads=" + MaxThreads );
 	props.add ( "TableID=" + TableID );
 	props.add ( "Append=" + Append );
 	props.add ( "CountProperty=" + CountProperty );
@@ -25,6 +25,8 @@ package rti.tscommandprocessor.commands.util;
 
 import javax.swing.JFrame;
 
+import rti.tscommandprocessor.core.CommandProfiler;
+import rti.tscommandprocessor.core.TSCommandProcessor;
 import rti.tscommandprocessor.core.TSCommandProcessorUtil;
 
 import java.util.ArrayList;
@@ -68,6 +70,16 @@ The summary table that is created.
 */
 private DataTable __summaryTable = null;
 
+/**
+The statistics table that is created.
+*/
+private DataTable __statisticsTable = null;
+
+/**
+The histogram table that is created.
+*/
+private DataTable __histogramTable = null;
+
 /**
 Constructor.
 */
@@ -95,6 +107,8 @@ throws InvalidCommandParameterException
 	List<String> validParameterNames = new ArrayList<String>();
     validParameterNames.add ( "SummaryTableID" );
     validParameterNames.add ( "DetailTableID" );
+    validParameterNames.add ( "StatisticsTableID" );
+    validParameterNames.add ( "HistogramTableID" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validParameterNames, this, warning );    
 
 	if ( warning.length() > 0 ) {
@@ -125,6 +139,22 @@ private DataTable getDiscoveryDetailTable()
     return __detailTable;
 }
 
+/**
+Return the histogram table that is read by this class when run in discovery mode.
+*/
+private DataTable getDiscoveryHistogramTable()
+{
+    return __histogramTable;
+}
+
+/**
+Return the statistics table that is read by this class when run in discovery mode.
+*/
+private DataTable getDiscoveryStatisticsTable()
+{
+    return __statisticsTable;
+}
+
 /**
 Return the summary table that is read by this class when run in discovery mode.
 */
@@ -141,6 +171,8 @@ The following classes can be requested: DataTable
 public <T> List<T> getObjectList ( Class<T> c )
 {   DataTable summaryTable = getDiscoverySummaryTable();
     DataTable detailTable = getDiscoveryDetailTable();
+    DataTable statisticsTable = getDiscoveryStatisticsTable();
+    DataTable histogramTable = getDiscoveryHistogramTable();
     List<T> v = new ArrayList<T>();
     if ( (summaryTable != null) && (c == summaryTable.getClass()) ) {
         v.add ( (T)summaryTable );
@@ -148,6 +180,12 @@ public <T> List<T> getObjectList ( Class<T> c )
     if ( (detailTable != null) && (c == detailTable.getClass()) ) {
         v.add ( (T)detailTable );
     }
+    if ( (statisticsTable != null) && (c == statisticsTable.getClass()) ) {
+        v.add ( (T)statisticsTable );
+    }
+    if ( (histogramTable != null) && (c == histogramTable.getClass()) ) {
+        v.add ( (T)histogramTable );
+    }
     return v;
 }
 
@@ -262,6 +300,110 @@ throws Exception
     return table;
 }
 
+/**
+Create the histogram table from the command profiler, with a row for each non-empty elapsed time bucket of each command.
+Commands run by nested profilers (e.g., RunCommands()) are listed after the commands of the main profiler.
+@param histogramTableID identifier for the table
+@param profiler the command profiler for the processor
+*/
+private DataTable profileCommandsHistogram ( String histogramTableID, CommandProfiler profiler )
+throws Exception
+{   List<TableField> columnList = new ArrayList<TableField>();
+    columnList.add ( new TableField(TableField.DATA_TYPE_STRING, "CommandFile", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_INT, "CommandNum", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_STRING, "Command", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "BucketLimit (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "Count", -1, -1) );
+    DataTable table = new DataTable( columnList );
+    table.setTableID ( histogramTableID );
+    List<CommandProfiler> profilerList = new ArrayList<CommandProfiler>();
+    addProfilers ( profiler, profilerList );
+    int row = -1;
+    for ( CommandProfiler p : profilerList ) {
+        for ( CommandProfiler.CommandStatistics stats : p.getStatistics() ) {
+            for ( int bucket = 0; bucket < CommandProfiler.HISTOGRAM_BUCKETS; bucket++ ) {
+                long count = stats.getHistogramCount(bucket);
+                if ( count == 0 ) {
+                    continue;
+                }
+                ++row;
+                int col = 0;
+                table.setFieldValue(row,col++, p.getLabel(),true);
+                table.setFieldValue(row,col++, Integer.valueOf(stats.getCommandNumber()),true);
+                table.setFieldValue(row,col++, stats.getCommandName(),true);
+                table.setFieldValue(row,col++, Long.valueOf(CommandProfiler.getHistogramBucketLimit(bucket)),true);
+                table.setFieldValue(row,col++, Long.valueOf(count),true);
+            }
+        }
+    }
+    return table;
+}
+
+/**
+Create the statistics table from the command profiler, with a row for each command that has been run,
+which accumulates all runs of the command, for example in a For() loop.
+Commands run by nested profilers (e.g., RunCommands()) are listed after the commands of the main profiler.
+@param statisticsTableID identifier for the table
+@param profiler the command profiler for the processor
+*/
+private DataTable profileCommandsStatistics ( String statisticsTableID, CommandProfiler profiler )
+throws Exception
+{   List<TableField> columnList = new ArrayList<TableField>();
+    columnList.add ( new TableField(TableField.DATA_TYPE_STRING, "CommandFile", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_INT, "CommandNum", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_STRING, "Command", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "Count", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "TotalTime (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "MeanTime (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "MinimumTime (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "MaximumTime (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "P50Time (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "P90Time (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "P99Time (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "CpuTime (ns)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "Allocated (bytes)", -1, -1) );
+    columnList.add ( new TableField(TableField.DATA_TYPE_LONG, "NestedTime (ns)", -1, -1) );
+    DataTable table = new DataTable( columnList );
+    table.setTableID ( statisticsTableID );
+    List<CommandProfiler> profilerList = new ArrayList<CommandProfiler>();
+    addProfilers ( profiler, profilerList );
+    int row = -1;
+    for ( CommandProfiler p : profilerList ) {
+        for ( CommandProfiler.CommandStatistics stats : p.getStatistics() ) {
+            ++row;
+            int col = 0;
+            table.setFieldValue(row,col++, p.getLabel(),true);
+            table.setFieldValue(row,col++, Integer.valueOf(stats.getCommandNumber()),true);
+            table.setFieldValue(row,col++, stats.getCommandName(),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getCount()),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getTotalTime()),true);
+            table.setFieldValue(row,col++, Long.valueOf((stats.getCount() == 0) ? 0 : stats.getTotalTime()/stats.getCount()),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getMinTime()),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getMaxTime()),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getPercentileTime(50.0)),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getPercentileTime(90.0)),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getPercentileTime(99.0)),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getCpuTime()),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getAllocatedBytes()),true);
+            table.setFieldValue(row,col++, Long.valueOf(stats.getNestedTime()),true);
+        }
+    }
+    return table;
+}
+
+/**
+Add a profiler and its nested profilers to a list, in the order that is output.
+@param profiler profiler to add
+@param profilerList list of profilers to add to
+*/
+private void addProfilers ( CommandProfiler profiler, List<CommandProfiler> profilerList )
+{
+    profilerList.add ( profiler );
+    for ( CommandProfiler nestedProfiler : profiler.getNestedProfilers() ) {
+        addProfilers ( nestedProfiler, profilerList );
+    }
+}
+
 /**
 Fill the summary table with command statistics.
 @param table the table to fill
@@ -417,6 +559,8 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     if ( commandPhase == CommandPhaseType.DISCOVERY ) {
         setDiscoverySummaryTable ( null );
         setDiscoveryDetailTable ( null );
+        setDiscoveryStatisticsTable ( null );
+        setDiscoveryHistogramTable ( null );
     }
 
 	// Make sure there are time series available to operate on...
@@ -431,6 +575,14 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	if ( (commandPhase == CommandPhaseType.RUN) && (DetailTableID != null) && (DetailTableID.indexOf("${") >= 0) ) {
 		DetailTableID = TSCommandProcessorUtil.expandParameterValue(processor, this, DetailTableID);
 	}
+    String StatisticsTableID = parameters.getValue ( "StatisticsTableID" );
+	if ( (commandPhase == CommandPhaseType.RUN) && (StatisticsTableID != null) && (StatisticsTableID.indexOf("${") >= 0) ) {
+		StatisticsTableID = TSCommandProcessorUtil.expandParameterValue(processor, this, StatisticsTableID);
+	}
+    String HistogramTableID = parameters.getValue ( "HistogramTableID" );
+	if ( (commandPhase == CommandPhaseType.RUN) && (HistogramTableID != null) && (HistogramTableID.indexOf("${") >= 0) ) {
+		HistogramTableID = TSCommandProcessorUtil.expandParameterValue(processor, this, HistogramTableID);
+	}
 
 	if ( warning_count > 0 ) {
 		message = "There were " + warning_count + " warnings for command parameters.";
@@ -497,6 +649,62 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                 setDiscoveryDetailTable ( table );
             }
         }
+        if ( (StatisticsTableID != null) && !StatisticsTableID.equals("") ) {
+            if ( commandPhase == CommandPhaseType.RUN ) {
+                DataTable table = profileCommandsStatistics ( StatisticsTableID, ((TSCommandProcessor)processor).getCommandProfiler() );
+                
+                // Set the table in the processor...
+                
+                PropList request_params = new PropList ( "" );
+                request_params.setUsingObject ( "Table", table );
+                try {
+                    processor.processRequest( "SetTable", request_params);
+                }
+                catch ( Exception e ) {
+                    message = "Error requesting SetTable(Table=...) from processor.";
+                    Message.printWarning(warning_level,
+                            MessageUtil.formatMessageTag( command_tag, ++warning_count),
+                            routine, message );
+                    status.addToLog ( commandPhase,
+                            new CommandLogRecord(CommandStatusType.FAILURE,
+                               message, "Report problem to software support." ) );
+                }
+            }
+            else if ( commandPhase == CommandPhaseType.DISCOVERY ) {
+                // Create an empty table and set the ID
+                DataTable table = new DataTable();
+                table.setTableID ( StatisticsTableID );
+                setDiscoveryStatisticsTable ( table );
+            }
+        }
+        if ( (HistogramTableID != null) && !HistogramTableID.equals("") ) {
+            if ( commandPhase == CommandPhaseType.RUN ) {
+                DataTable table = profileCommandsHistogram ( HistogramTableID, ((TSCommandProcessor)processor).getCommandProfiler() );
+                
+                // Set the table in the processor...
+                
+                PropList request_params = new PropList ( "" );
+                request_params.setUsingObject ( "Table", table );
+                try {
+                    processor.processRequest( "SetTable", request_params);
+                }
+                catch ( Exception e ) {
+                    message = "Error requesting SetTable(Table=...) from processor.";
+                    Message.printWarning(warning_level,
+                            MessageUtil.formatMessageTag( command_tag, ++warning_count),
+                            routine, message );
+                    status.addToLog ( commandPhase,
+                            new CommandLogRecord(CommandStatusType.FAILURE,
+                               message, "Report problem to software support." ) );
+                }
+            }
+            else if ( commandPhase == CommandPhaseType.DISCOVERY ) {
+                // Create an empty table and set the ID
+                DataTable table = new DataTable();
+                table.setTableID ( HistogramTableID );
+                setDiscoveryHistogramTable ( table );
+            }
+        }
 	}
 	catch ( Exception e ) {
 		Message.printWarning ( 3, routine, e );
@@ -524,6 +732,20 @@ private void setDiscoveryDetailTable ( DataTable table ) {
     __detailTable = table;
 }
 
+/**
+Set the histogram table that is read by this class in discovery mode.
+*/
+private void setDiscoveryHistogramTable ( DataTable table ) {
+    __histogramTable = table;
+}
+
+/**
+Set the statistics table that is read by this class in discovery mode.
+*/
+private void setDiscoveryStatisticsTable ( DataTable table ) {
+    __statisticsTable = table;
+}
+
 /**
 Set the summary table that is read by this class in discovery mode.
 */
@@ -539,7 +761,9 @@ Return the string representation of the command.
 public String toString ( PropList parameters ) {
 	String [] parameterOrder = {
 		"SummaryTableID",
-		"DetailTableID"
+		"DetailTableID",
+		"StatisticsTableID",
+		"HistogramTableID"
 	};
 	return this.toString(parameters, parameterOrder);
 }
@@ -62,6 +62,8 @@ private boolean __first_time = true; // Indicate first time display
 private JTextArea __command_JTextArea = null;
 private JTextField __SummaryTableID_JTextField = null;
 private JTextField __DetailTableID_JTextField = null;
+private JTextField __StatisticsTableID_JTextField = null;
+private JTextField __HistogramTableID_JTextField = null;
 private SimpleJButton __cancel_JButton = null;
 private SimpleJButton __ok_JButton = null;
 private SimpleJButton __help_JButton = null;
@@ -110,6 +112,8 @@ private void checkInput ()
 	PropList props = new PropList ( "" );
     String SummaryTableID = __SummaryTableID_JTextField.getText().trim();
     String DetailTableID = __DetailTableID_JTextField.getText().trim();
+    String StatisticsTableID = __StatisticsTableID_JTextField.getText().trim();
+    String HistogramTableID = __HistogramTableID_JTextField.getText().trim();
 	__error_wait = false;
 
     if ( SummaryTableID.length() > 0 ) {
@@ -117,6 +121,12 @@ private void checkInput ()
     }
     if ( DetailTableID.length() > 0 ) {
         props.set ( "DetailTableID", DetailTableID );
+    }
+    if ( StatisticsTableID.length() > 0 ) {
+        props.set ( "StatisticsTableID", StatisticsTableID );
+    }
+    if ( HistogramTableID.length() > 0 ) {
+        props.set ( "HistogramTableID", HistogramTableID );
     }
 	try {
 	    // This will warn the user...
@@ -136,8 +146,12 @@ already been checked and no errors were detected.
 private void commitEdits ()
 {	String SummaryTableID = __SummaryTableID_JTextField.getText().trim();
     String DetailTableID = __DetailTableID_JTextField.getText().trim();
+    String StatisticsTableID = __StatisticsTableID_JTextField.getText().trim();
+    String HistogramTableID = __HistogramTableID_JTextField.getText().trim();
     __command.setCommandParameter ( "SummaryTableID", SummaryTableID );
     __command.setCommandParameter ( "DetailTableID", DetailTableID );
+    __command.setCommandParameter ( "StatisticsTableID", StatisticsTableID );
+    __command.setCommandParameter ( "HistogramTableID", HistogramTableID );
 }
 
 /**
@@ -174,7 +188,10 @@ private void initialize ( JFrame parent, ProfileCommands_Command command )
         "The profile information for this command and following commands will be incomplete (because this command does not know about later commands)."),
         0, ++yy, 7, 1, 0, 0, insetsTLBR, GridBagConstraints.BOTH, GridBagConstraints.WEST);
     JGUIUtil.addComponent(paragraph, new JLabel (
-        "Commands within a For() loop are currently only profiled for the last executed iteration."),
+        "Commands within a For() loop are only profiled for the last executed iteration in the detail and summary tables."),
+        0, ++yy, 7, 1, 0, 0, insetsTLBR, GridBagConstraints.BOTH, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(paragraph, new JLabel (
+        "The statistics and histogram tables accumulate all runs of each command (nanoseconds), including For() iterations and RunCommands() command files."),
         0, ++yy, 7, 1, 0, 0, insetsTLBR, GridBagConstraints.BOTH, GridBagConstraints.WEST);
 
 	JGUIUtil.addComponent(main_JPanel, paragraph,
@@ -202,6 +219,27 @@ private void initialize ( JFrame parent, ProfileCommands_Command command )
     JGUIUtil.addComponent(main_JPanel, new JLabel ("Optional - unique identifier for the detail table."),
         3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
     
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Statistics table ID:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __StatisticsTableID_JTextField = new JTextField (10);
+    __StatisticsTableID_JTextField.setToolTipText("Specify the table ID for the command statistics output "
+    	+ "(count, time percentiles, CPU time, allocated bytes), can contain ${Property}");
+    __StatisticsTableID_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __StatisticsTableID_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Optional - unique identifier for the statistics table."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
+    
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Histogram table ID:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __HistogramTableID_JTextField = new JTextField (10);
+    __HistogramTableID_JTextField.setToolTipText("Specify the table ID for the command run time histogram output, can contain ${Property}");
+    __HistogramTableID_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __HistogramTableID_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Optional - unique identifier for the histogram table."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
+    
     JGUIUtil.addComponent(main_JPanel, new JLabel ("Command:"), 
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__command_JTextArea = new JTextArea (4,40);
@@ -280,24 +318,38 @@ Refresh the command from the other text field contents.
 private void refresh ()
 {	String SummaryTableID = "";
     String DetailTableID = "";
+    String StatisticsTableID = "";
+    String HistogramTableID = "";
 	PropList props = __command.getCommandParameters();
 	if (__first_time) {
 		__first_time = false;
         SummaryTableID = props.getValue ( "SummaryTableID" );
         DetailTableID = props.getValue ( "DetailTableID" );
+        StatisticsTableID = props.getValue ( "StatisticsTableID" );
+        HistogramTableID = props.getValue ( "HistogramTableID" );
         if ( SummaryTableID != null ) {
             __SummaryTableID_JTextField.setText ( SummaryTableID );
         }
         if ( DetailTableID != null ) {
             __DetailTableID_JTextField.setText ( DetailTableID );
         }
+        if ( StatisticsTableID != null ) {
+            __StatisticsTableID_JTextField.setText ( StatisticsTableID );
+        }
+        if ( HistogramTableID != null ) {
+            __HistogramTableID_JTextField.setText ( HistogramTableID );
+        }
 	}
 	// Regardless, reset the command from the fields...
     SummaryTableID = __SummaryTableID_JTextField.getText().trim();
     DetailTableID = __DetailTableID_JTextField.getText().trim();
+    StatisticsTableID = __StatisticsTableID_JTextField.getText().trim();
+    HistogramTableID = __HistogramTableID_JTextField.getText().trim();
 	props = new PropList ( __command.getCommandName() );
     props.add ( "SummaryTableID=" + SummaryTableID );
     props.add ( "DetailTableID=" + DetailTableID );
+    props.add ( "StatisticsTableID=" + StatisticsTableID );
+    props.add ( "HistogramTableID=" + HistogramTableID );
 	__command_JTextArea.setText( __command.toString ( props ).trim() );
 }
 
@@ -97,6 +97,12 @@ AppendResults parameter values.
  */
 private List<File> outputFileList = new ArrayList<>();
 
+/**
+Whether the command is run in parallel with other RunCommands() commands,
+set by ParallelRegressionTestRunner when StartRegressionTestResultsReport(MaxThreads=...) is used.
+*/
+private boolean runInParallel = false;
+
 /**
 Constructor.
 */
@@ -534,11 +540,21 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
             // Need to share the built-in StartLogEnabled property because it is used in troubleshooting
             // to ensure all logging goes to the main log file.
             Prop prop = processor.getProp("StartLogEnabled");
-            if ( prop != null ) {
+            if ( this.runInParallel ) {
+            	// The log file is shared by all threads so StartLog() commands in the command file must not change it.
+            	runner.getProcessor().setPropContents("StartLogEnabled", Boolean.FALSE);
+            }
+            else if ( prop != null ) {
             	// Will be a Boolean.
             	runner.getProcessor().setPropContents("StartLogEnabled", prop.getContents());
             }
 
+            // Accumulate profile statistics for the commands in a nested profiler of the main processor:
+            // - ProfileCommands() in the main command file can then report statistics for the command file
+            // - the command file is read for each run so use the command to look up the profiler
+            runner.getProcessor().setCommandProfiler (
+            	tsprocessor.getCommandProfiler().getNestedProfiler(tsprocessor.indexOf(this) + 1, this, InputFile_full) );
+
             // Run the commands:
             // - currently, the following will reset the processor properties to initial values; therefore,
             //   don't set properties above
@@ -712,6 +728,15 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
     status.refreshPhaseSeverity(CommandPhaseType.RUN,CommandStatusType.SUCCESS);
 }
 
+/**
+Set whether the command is run in parallel with other RunCommands() commands.
+@param runInParallel if true, the command file is run in a thread with other command files
+and StartLog() commands in the command file are disabled
+*/
+public void setRunInParallel ( boolean runInParallel ) {
+	this.runInParallel = runInParallel;
+}
+
 /**
 Return the string representation of the command.
 @param parameters to include in the command
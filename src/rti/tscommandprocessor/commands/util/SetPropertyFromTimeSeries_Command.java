@@ -355,17 +355,15 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 
 	// Get the time series to process.  Allow TSID to be a pattern or specific time series.
 
-	PropList request_params = new PropList ( "" );
-	request_params.set ( "TSList", TSList );
-	request_params.set ( "TSID", TSID );
-    request_params.set ( "EnsembleID", EnsembleID );
+	PropList request_params = null;
 	CommandProcessorRequestResultsBean bean = null;
+	Object o_TSList = null;
 	List<TS> tslist = null;
 	DateTime dateTime = null;
 	int nts = 0;
 	if ( commandPhase == CommandPhaseType.RUN ) {
 		try {
-	        bean = processor.processRequest( "GetTimeSeriesToProcess", request_params);
+	        o_TSList = TSCommandProcessorUtil.getTimeSeriesToProcess ( processor, TSList, TSID, EnsembleID, null ).getTimeSeriesList();
 		}
 		catch ( Exception e ) {
 			message = "Error processing GetTimeSeriesToProcess(TSList=\"" + TSList + "\", TSID=\"" + TSID + "\") request.";
@@ -379,15 +377,6 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	                new CommandLogRecord(CommandStatusType.FAILURE,
 	                        message, "Report the problem to software support." ) );
 		}
-    	PropList bean_PropList = null;
-	   	Object o_TSList = null;
-	    if ( bean == null ) {
-	        Message.printStatus ( 2, routine, "Bean is null.");
-	    }
-	    else {
-	    	bean_PropList = bean.getResultsPropList();
-	    	o_TSList = bean_PropList.getContents ( "TSToProcessList" );
-	    }
 		if ( o_TSList == null ) {
 			message = "Null TSToProcessList returned for processor request GetTimeSeriesToProcess(TSList=\"" + TSList +
 			"\" TSID=\"" + TSID + "\").";
@@ -461,7 +450,7 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 					throw new InvalidCommandParameterException ( message );
 				}
 
-				bean_PropList = bean.getResultsPropList();
+				PropList bean_PropList = bean.getResultsPropList();
 				Object prop_contents = bean_PropList.getContents ( "DateTime" );
 				if ( prop_contents == null ) {
 					message = "Null value for SetDateTime DateTime(DateTime=" + DateTime + "\") returned from processor.";
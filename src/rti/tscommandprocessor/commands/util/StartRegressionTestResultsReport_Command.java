@@ -47,11 +47,14 @@ import RTi.Util.IO.ObjectListProvider;
 import RTi.Util.IO.PropList;
 import RTi.Util.Message.Message;
 import RTi.Util.Message.MessageUtil;
+import RTi.Util.String.StringUtil;
 import RTi.Util.Table.DataTable;
 import RTi.Util.Table.TableField;
 
 /**
 This class initializes, checks, and runs the StartRegressionTestResultsReport() command.
+If MaxThreads is greater than 1, the processor runs consecutive RunCommands() commands that follow this command
+in parallel using ParallelRegressionTestRunner.
 */
 public class StartRegressionTestResultsReport_Command extends AbstractCommand implements Command, FileGenerator, CommandDiscoverable, ObjectListProvider
 {
@@ -86,6 +89,7 @@ public void checkCommandParameters ( PropList parameters, String command_tag,int
 throws InvalidCommandParameterException
 {	String routine = getCommandName() + "_checkCommandParameters";
 	String OutputFile = parameters.getValue ( "OutputFile" );
+	String MaxThreads = parameters.getValue ( "MaxThreads" );
 	String working_dir = null;
 	String warning = "";
 	String message;
@@ -143,10 +147,21 @@ throws InvalidCommandParameterException
 						message, "Verify that the path information is consistent." ) );
 	}
 	
+	if ( (MaxThreads != null) && !MaxThreads.isEmpty() ) {
+		if ( !StringUtil.isInteger(MaxThreads) || (Integer.parseInt(MaxThreads) < 1) ) {
+            message = "Invalid MaxThreads parameter \"" + MaxThreads + "\"";
+			warning += "\n" + message;
+            status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify an integer 1 or larger." ) );
+		}
+	}
+
 	// Check for invalid parameters.
 	List<String> validList = new ArrayList<>();
 	validList.add ( "Outputfile" );
 	validList.add ( "TestResultsTableID" );
+	validList.add ( "MaxThreads" );
 	warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
 	
 	if ( warning.length() > 0 ) {
@@ -203,6 +218,18 @@ public <T> List<T> getObjectList ( Class<T> c )
     return v;
 }
 
+/**
+Return the maximum number of threads used to run the RunCommands() commands that follow this command.
+@return the MaxThreads parameter value, or 1 if not specified, which runs the tests sequentially.
+*/
+public int getMaxThreads () {
+	String MaxThreads = getCommandParameters().getValue("MaxThreads");
+	if ( (MaxThreads != null) && StringUtil.isInteger(MaxThreads) && (Integer.parseInt(MaxThreads) > 0) ) {
+		return Integer.parseInt(MaxThreads);
+	}
+	return 1;
+}
+
 /**
 Return the output file generated by this file.  This method is used internally.
 */
@@ -376,7 +403,8 @@ Return the string representation of the command.
 public String toString ( PropList parameters ) {
 	String [] parameterOrder = {
 		"OutputFile",
-		"TestResultsTableID"
+		"TestResultsTableID",
+		"MaxThreads"
 	};
 	return this.toString(parameters, parameterOrder);
 }
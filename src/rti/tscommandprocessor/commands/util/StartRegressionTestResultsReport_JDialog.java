@@ -73,6 +73,7 @@ private SimpleJButton __help_JButton = null;
 private SimpleJButton __path_JButton = null;
 private JTextField __OutputFile_JTextField = null;
 private JTextField __TestResultsTableID_JTextField = null;
+private JTextField __MaxThreads_JTextField = null;
 private JTextArea __command_JTextArea = null;
 private boolean __error_wait = false;
 private boolean __first_time = true;
@@ -177,12 +178,16 @@ private void checkInput ()
 	PropList props = new PropList ( "" );
 	String OutputFile = __OutputFile_JTextField.getText().trim();
 	String TestResultsTableID = __TestResultsTableID_JTextField.getText().trim();
+	String MaxThreads = __MaxThreads_JTextField.getText().trim();
 	if ( OutputFile.length() > 0 ) {
 		props.set ( "OutputFile", OutputFile );
 	}
 	if ( TestResultsTableID.length() > 0 ) {
 		props.set ( "TestResultsTableID", TestResultsTableID );
 	}
+	if ( MaxThreads.length() > 0 ) {
+		props.set ( "MaxThreads", MaxThreads );
+	}
 	try {	// This will warn the user...
 		__command.checkCommandParameters ( props, null, 1 );
 	}
@@ -199,8 +204,10 @@ to check its low-level values.
 private void commitEdits ()
 {	String OutputFile = __OutputFile_JTextField.getText().trim();
 	String TestResultsTableID = __TestResultsTableID_JTextField.getText().trim();
+	String MaxThreads = __MaxThreads_JTextField.getText().trim();
 	__command.setCommandParameter ( "OutputFile", OutputFile );
 	__command.setCommandParameter ( "TestResultsTableID", TestResultsTableID );
+	__command.setCommandParameter ( "MaxThreads", MaxThreads );
 }
 
 /**
@@ -246,6 +253,17 @@ private void initialize ( JFrame parent, StartRegressionTestResultsReport_Comman
     JGUIUtil.addComponent(main_JPanel, new JLabel (
 		"An output file with 'nonum' in the name is automatically created and is formatted to allow comparison with previous runs."),
 		0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+		"If MaxThreads is greater than 1, consecutive RunCommands() commands that follow this command are run in parallel " +
+		"and the results are added to the report in command order."),
+		0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+		"Tests that share datastores (RunCommands(ShareDataStores=Share), the default) are run sequentially, " +
+		"and tests that write the same output files are run one at a time."),
+		0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel (
+		"Test suites created by CreateRegressionTestCommandFile() without MaxThreads use the default and are therefore run sequentially."),
+		0, ++y, 8, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
 	JGUIUtil.addComponent(main_JPanel, new JSeparator(SwingConstants.HORIZONTAL),
 		0, ++y, 8, 1, 0, 0, 5, 0, 10, 0, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
@@ -281,6 +299,16 @@ private void initialize ( JFrame parent, StartRegressionTestResultsReport_Comman
     JGUIUtil.addComponent(main_JPanel, new JLabel ("Optional - identifier for table containing results."),
         3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Maximum threads:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxThreads_JTextField = new JTextField (10);
+    __MaxThreads_JTextField.setToolTipText("Maximum number of RunCommands() tests to run at the same time, each with its own processor.");
+    __MaxThreads_JTextField.addKeyListener (this);
+    JGUIUtil.addComponent(main_JPanel, __MaxThreads_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.HORIZONTAL, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel ("Optional - number of tests to run in parallel (default=1)."),
+        3, y, 4, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST );
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Command:" ), 
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
 	__command_JTextArea = new JTextArea ( 4, 60 );
@@ -346,6 +374,7 @@ Refresh the command from the other text field contents.
 private void refresh ()
 {	String OutputFile = "";
     String TestResultsTableID = "";
+    String MaxThreads = "";
     PropList parameters = null;
 	if ( __first_time ) {
 		__first_time = false;
@@ -353,20 +382,26 @@ private void refresh ()
         parameters = __command.getCommandParameters();
 		OutputFile = parameters.getValue ( "OutputFile" );
 		TestResultsTableID = parameters.getValue ( "TestResultsTableID" );
+		MaxThreads = parameters.getValue ( "MaxThreads" );
 		if ( OutputFile != null ) {
 			__OutputFile_JTextField.setText ( OutputFile );
 		}
 		if ( TestResultsTableID != null ) {
 			__TestResultsTableID_JTextField.setText ( TestResultsTableID );
 		}
+		if ( MaxThreads != null ) {
+			__MaxThreads_JTextField.setText ( MaxThreads );
+		}
 	}
 	// Regardless, reset the command from the fields.  This is only visible
 	// information that has not been committed in the command.
 	OutputFile = __OutputFile_JTextField.getText().trim();
 	TestResultsTableID = __TestResultsTableID_JTextField.getText().trim();
+	MaxThreads = __MaxThreads_JTextField.getText().trim();
 	parameters = new PropList ( __command.getCommandName() );
 	parameters.add ( "OutputFile=" + OutputFile );
 	parameters.add ( "TestResultsTableID=" + TestResultsTableID );
+	parameters.add ( "MaxThreads=" + MaxThreads );
 	__command_JTextArea.setText( __command.toString(parameters).trim() );
 	// Check the path and determine what the label on the path button should be...
 	if ( (OutputFile == null) || (OutputFile.length() == 0) ) {
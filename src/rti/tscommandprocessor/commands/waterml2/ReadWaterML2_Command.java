@@ -70,6 +70,7 @@ Possible values for ReadMethod parameter.
 */
 protected final String _API = "API";
 protected final String _ParseDOM = "ParseDOM";
+protected final String _Stream = "Stream";
 
 /**
 Private data members shared between the checkCommandParameter() and the 
@@ -172,12 +173,12 @@ throws InvalidCommandParameterException
     }
     
     if ( (ReadMethod != null) && !ReadMethod.isEmpty() && !ReadMethod.equalsIgnoreCase(_API) && 
-        !ReadMethod.equalsIgnoreCase(_ParseDOM) ) {
+        !ReadMethod.equalsIgnoreCase(_ParseDOM) && !ReadMethod.equalsIgnoreCase(_Stream) ) {
         message = "ReadMethod ( " + ReadMethod + ") is invalid.";
         warning += "\n" + message;
         status.addToLog ( CommandPhaseType.INITIALIZATION,
             new CommandLogRecord(CommandStatusType.FAILURE,
-                message, "ReadMethod must be " + _API + " (default) or " + _ParseDOM + "." ) );
+                message, "ReadMethod must be " + _API + ", " + _ParseDOM + ", or " + _Stream + " (default)." ) );
     }
 
 	// InputStart
@@ -371,10 +372,14 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	PropList parameters = getCommandParameters();
 	String InputFile = parameters.getValue("InputFile");
 	String ReadMethod = parameters.getValue("ReadMethod");
-	boolean readUsingApi = false; // default
+	boolean readUsingApi = false;
+	boolean readUsingDom = false;
 	if ( (ReadMethod != null) && ReadMethod.equalsIgnoreCase(_API) ) {
 		readUsingApi = true;
 	}
+	else if ( (ReadMethod != null) && ReadMethod.equalsIgnoreCase(_ParseDOM) ) {
+		readUsingDom = true;
+	}
 	//String NewUnits = parameters.getValue("NewUnits");
 	String InputStart = parameters.getValue("InputStart");
 	if ( (InputStart == null) || InputStart.isEmpty() ) {
@@ -488,9 +493,17 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	        else {
 	            WaterML2Reader watermlReader = new WaterML2Reader ( new File(InputFile_full) );
 	            Message.printStatus(2,routine, "Reading WaterML 2 file \"" + InputFile_full + "\"");
-	            tslist = watermlReader.readTimeSeriesList( readUsingApi, interval, RequireDataToMatchInterval_boolean,
-	            	OutputTimeZoneOffset, OutputTimeZone,
-	            	InputStart_DateTime, InputEnd_DateTime, readData );
+	            if ( readUsingApi || readUsingDom ) {
+	            	tslist = watermlReader.readTimeSeriesList( readUsingApi, interval, RequireDataToMatchInterval_boolean,
+	            		OutputTimeZoneOffset, OutputTimeZone,
+	            		InputStart_DateTime, InputEnd_DateTime, readData );
+	            }
+	            else {
+	            	// Default is to use the stream reader, which falls back to the DOM if necessary.
+	            	tslist = watermlReader.readTimeSeriesListUsingStream( interval, RequireDataToMatchInterval_boolean,
+	            		OutputTimeZoneOffset, OutputTimeZone,
+	            		InputStart_DateTime, InputEnd_DateTime, readData );
+	            }
 	            List<String> warningMessages = watermlReader.getWarningMessages();
 	            for ( String warningMessage: warningMessages ) {
 	                status.addToLog ( commandPhase, new CommandLogRecord(CommandStatusType.WARNING,
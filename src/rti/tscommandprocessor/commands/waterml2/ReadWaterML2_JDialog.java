@@ -389,16 +389,18 @@ private void initialize(JFrame parent, ReadWaterML2_Command command) {
         0, ++yGeneral, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
     __ReadMethod_JComboBox = new SimpleJComboBox ( false );
     __ReadMethod_JComboBox.setToolTipText(__command._API + " will use objects generated from WaterML 2 XML schema, " +
-    	__command._ParseDOM + " will parse XML document directly.");
+    	__command._ParseDOM + " will parse XML document directly, " +
+    	__command._Stream + " will read the XML in a single pass (uses " + __command._ParseDOM + " if the content is not recognized).");
     __ReadMethod_JComboBox.add("");
     __ReadMethod_JComboBox.add(__command._API);
     __ReadMethod_JComboBox.add(__command._ParseDOM);
+    __ReadMethod_JComboBox.add(__command._Stream);
     // Select a default...
     __ReadMethod_JComboBox.select ( 0 );
     __ReadMethod_JComboBox.addItemListener ( this );
     JGUIUtil.addComponent(general_JPanel, __ReadMethod_JComboBox,
         1, yGeneral, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
-    JGUIUtil.addComponent(general_JPanel, new JLabel ( "Optional - how to read (default=" + __command._ParseDOM + ")."),
+    JGUIUtil.addComponent(general_JPanel, new JLabel ( "Optional - how to read (default=" + __command._Stream + ")."),
         3, yGeneral, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
         
     JGUIUtil.addComponent(general_JPanel, new JLabel("Alias to assign:"),
@@ -23,15 +23,20 @@ NoticeEnd */
 
 package rti.tscommandprocessor.commands.waterml2;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -42,6 +47,10 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
@@ -124,7 +133,8 @@ WaterML 2.0 name space as URI.
 private static final String WATERML_2_0_NS_URI = "http://www.opengis.net/waterml/2.0";
 
 /**
- * WaterML content as string.
+ * WaterML content as string:
+ * - if constructed with a file, the string is only read if needed for the API or DOM, see getWatermlString()
  */
 private String watermlString = "";
 
@@ -177,23 +187,14 @@ Constructor.
 public WaterML2Reader ( File watermlFile ) throws IOException {
     this.watermlString = null;
     this.url = null;
+    this.watermlFile = watermlFile;
 
-    // Read the content from the file.
-
-    StringBuilder fileContents = new StringBuilder();
-    BufferedReader reader = new BufferedReader(new FileReader(watermlFile));
-    String ls = System.getProperty ( "line.separator" );
-    String line;
-    int count = 0;
-    while ( (line = reader.readLine()) != null ) {
-        ++count;
-        if ( count > 1 ) {
-            fileContents.append(ls);
-        }
-        fileContents.append(line);
+    // The content is read from the file when the time series are read:
+    // - the stream reader reads the file directly
+    // - the API and DOM read the content into a string
+    if ( !watermlFile.canRead() ) {
+    	throw new FileNotFoundException("WaterML file is not readable: " + watermlFile.getAbsolutePath());
     }
-    this.watermlString = fileContents.toString();
-    reader.close();
 }
 
 /**
@@ -256,6 +257,29 @@ public List<String> getFailureMessages () {
     return this.failureMessages;
 }
 
+/**
+Return the WaterML content as a string, reading from the file if necessary.
+*/
+private String getWatermlString () throws IOException {
+	if ( (this.watermlString == null) && (this.watermlFile != null) ) {
+	    StringBuilder fileContents = new StringBuilder();
+	    BufferedReader reader = new BufferedReader(new FileReader(this.watermlFile));
+	    String ls = System.getProperty ( "line.separator" );
+	    String line;
+	    int count = 0;
+	    while ( (line = reader.readLine()) != null ) {
+	        ++count;
+	        if ( count > 1 ) {
+	            fileContents.append(ls);
+	        }
+	        fileContents.append(line);
+	    }
+	    this.watermlString = fileContents.toString();
+	    reader.close();
+	}
+	return this.watermlString;
+}
+
 /**
 Return the list of warning messages from the read.
 */
@@ -353,7 +377,7 @@ throws MalformedURLException, IOException, Exception {
 	    // Be aware of namespace to transparently handle ns1: in front of element names, but do not
 	    // do full validation with setValidating(true).
 	    dbf.setNamespaceAware(true);
-	    Document dom = dbf.newDocumentBuilder().parse(new ReaderInputStream(new StringReader(this.watermlString)));
+	    Document dom = dbf.newDocumentBuilder().parse(new ReaderInputStream(new StringReader(getWatermlString())));
 	    WaterMLVersion watermlVersion = determineWaterMLVersion(dom);
 	    String observationMemberNS = "";
 	    String observationMemberTag = "";
@@ -405,7 +429,7 @@ throws MalformedURLException, IOException, Exception {
 	}
 	try {
 		JAXBContext context = JAXBContext.newInstance("net.opengis.waterml._2");
-		StringReader stringReader = new StringReader(this.watermlString);
+		StringReader stringReader = new StringReader(getWatermlString());
 		Unmarshaller unmarshaller = context.createUnmarshaller();
 		// Don't know what the root element will be because, for example, USGS uses FeatureCollection but straight WaterML2 uses Collection.
 		@SuppressWarnings("rawtypes")
@@ -954,6 +978,103 @@ throws MalformedURLException, IOException, Exception {
     return tsList;
 }
 
+/**
+Read the time series list from the WaterML 2 content using a single-pass StAX stream reader.
+The WaterML version is determined from the root element and MeasurementTVP points are read directly into
+compact arrays for each time series, without creating a DOM or JAXB objects,
+and the arrays are then used to set the time series period and data.
+If the content cannot be processed using the stream reader, the DOM is parsed as a fallback.
+@param interval indicates the interval for data in the file, needed as a hint because there is nothing
+in the file that indicates that data are daily values, etc.
+@param requireDataToMatchInterval if true, require that all date/times for data fall on the exact interval; if false,
+allow the date/time to truncate
+@param outputTimeZoneOffset the time zone to align times for interval < day, needed when time zone in date/time varies in format +-NN:NN as per
+OffsetDateTime time zone.
+@param outputTimeZone the time zone to assign for interval < day, user-preferred text representation
+@param readStart starting date/time to read
+@param readEnd ending date/time to read
+@param readData if true, read all the data values; if false, only initialize the time series header information
+*/
+public List<TS> readTimeSeriesListUsingStream ( TimeInterval interval, boolean requireDataToMatchInterval,
+	String outputTimeZoneOffset, String outputTimeZone,
+	DateTime readStart, DateTime readEnd, boolean readData )
+throws MalformedURLException, IOException, Exception {
+    String routine = getClass().getSimpleName() + ".readTimeSeriesListUsingStream";
+	Message.printStatus(2, routine, "Reading WaterML 2 time series using stream reader.");
+	List<TS> tsList = new ArrayList<>();
+	XMLInputFactory factory = XMLInputFactory.newInstance();
+	factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+	factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+	factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+	factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	XMLStreamReader xmlReader = null;
+	InputStream in = null;
+	try {
+		if ( (this.watermlString == null) && (this.watermlFile != null) ) {
+			// Read directly from the file so that the file contents are not held in memory.
+			in = new BufferedInputStream(new FileInputStream(this.watermlFile));
+			xmlReader = factory.createXMLStreamReader(in);
+		}
+		else {
+			xmlReader = factory.createXMLStreamReader(new StringReader(getWatermlString()));
+		}
+		WaterMLVersion watermlVersion = null;
+		// Interval determined from the Collection 'name' element 'codeSpace' attribute, used if interval is not specified.
+		String collectionInterval = null;
+		boolean collectionNameFound = false;
+		while ( xmlReader.hasNext() ) {
+			if ( xmlReader.next() != XMLStreamConstants.START_ELEMENT ) {
+				continue;
+			}
+			String localName = xmlReader.getLocalName();
+			if ( watermlVersion == null ) {
+				// Root element.
+				watermlVersion = readTimeSeriesUsingStream_DetermineWaterMLVersion(xmlReader);
+			}
+			if ( localName.equals("Collection") ) {
+				// Reset the interval information for each collection.
+				collectionInterval = null;
+				collectionNameFound = false;
+			}
+			else if ( localName.equals("name") && !collectionNameFound ) {
+				String codespace = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, null, "codespace");
+				if ( codespace != null ) {
+					collectionNameFound = true;
+					collectionInterval = readTimeSeriesUsingDOM_ParseIntervalFromCodespace(codespace);
+				}
+			}
+			else if ( localName.equals("observationMember") && WATERML_2_0_NS_URI.equals(xmlReader.getNamespaceURI()) ) {
+				tsList.add(readTimeSeriesUsingStream(watermlVersion, xmlReader, interval, collectionInterval,
+					requireDataToMatchInterval, outputTimeZoneOffset, outputTimeZone, this.url, this.watermlFile,
+					readStart, readEnd, readData));
+			}
+		}
+		if ( watermlVersion == null ) {
+			throw new IOException("WaterML content does not contain a root element.");
+		}
+		Message.printStatus(2, routine, "Read " + tsList.size() + " WaterML time series based on \"observationMember\" element." );
+	}
+	catch ( XMLStreamException | StreamFormatException e ) {
+		// Content could not be processed using the stream reader so try parsing the DOM:
+		// - messages from the stream reader are discarded because the DOM will generate similar messages
+		Message.printWarning(3, routine, "Error reading WaterML 2 using stream reader (" + e + ").  Parsing the DOM.");
+		Message.printWarning(3, routine, e);
+		this.warningMessages.clear();
+		this.failureMessages.clear();
+		return readTimeSeriesList ( false, interval, requireDataToMatchInterval, outputTimeZoneOffset, outputTimeZone,
+			readStart, readEnd, readData );
+	}
+	finally {
+		if ( xmlReader != null ) {
+			xmlReader.close();
+		}
+		if ( in != null ) {
+			in.close();
+		}
+	}
+	return tsList;
+}
+
 /**
 Read a single time series from the DOM given an element for the "observationMember" tag.
 @param watermlVersion WaterML version being read (element names are different)
@@ -1307,13 +1428,39 @@ in the file that indicates that data are daily values, etc.
 */
 private TSIdent readTimeSeriesUsingDOM_ParseIdent(WaterMLVersion watermlVersion, TimeInterval interval,
     Element monitoringPointElement, Element measurementTimeSeriesElement, Element collectionElement )
+throws IOException {
+    String monitoringPointId = this.xmlToolkit.getNodeAttribute("gml:id", monitoringPointElement);
+    String measurementTimeSeriesId = this.xmlToolkit.getNodeAttribute("gml:id", measurementTimeSeriesElement);
+    String collectionInterval = null;
+    if ( (interval == null) && (watermlVersion == WaterMLVersion.STANDARD_2_0) ) {
+    	// Try to get the interval from the file.
+    	collectionInterval = readTimeSeriesUsingDOM_ParseInterval(collectionElement);
+    }
+    return readTimeSeriesUsingDOM_ParseIdent(watermlVersion, interval, monitoringPointId, measurementTimeSeriesId,
+    	collectionInterval);
+}
+
+/**
+Create a unique TSIdent from the WaterML identifiers, which will be used to create a time series.
+This is used by the DOM and stream readers.
+@param watermlVersion the WaterML version being used
+@param interval indicates the interval for data in the file, needed as a hint because there is nothing
+in the file that indicates that data are daily values, etc.
+@param monitoringPointId MonitoringPoint element gml:id attribute
+@param measurementTimeSeriesId MeasurementTimeSeries element gml:id attribute
+@param collectionInterval interval determined from the Collection element, used if interval is null
+@return TSIdent instance suitable for the time series
+@throws IOException
+*/
+private TSIdent readTimeSeriesUsingDOM_ParseIdent(WaterMLVersion watermlVersion, TimeInterval interval,
+    String monitoringPointId, String measurementTimeSeriesId, String collectionInterval )
 throws IOException {
     //String routine = getClass().getSimpleName() + ".readTimeSeries_ParseIdent";
     TSIdent ident = new TSIdent();
 
     // Location ID for USGS is within the following:
     // <wml2:MonitoringPoint gml:id="USGS.MP.USGS.09070500.00060.18624.00003">
-    String id = this.xmlToolkit.getNodeAttribute("gml:id", monitoringPointElement);
+    String id = monitoringPointId;
     String siteId = null;
     if ( (id == null) || id.isEmpty() ) {
     	// Trouble.
@@ -1331,7 +1478,7 @@ throws IOException {
 
     // Data type is taken from the following:
     //  <wml2:MeasurementTimeseries gml:id="TS.USGS.09070500.00060.18624.00003">
-    String id2 = this.xmlToolkit.getNodeAttribute("gml:id", measurementTimeSeriesElement);
+    String id2 = measurementTimeSeriesId;
     String dataType = null;
     String dataTypeSub = null;
     if ( (id2 == null) || id2.isEmpty() ) {
@@ -1362,7 +1509,7 @@ throws IOException {
         else {
         	// Try to get the interval from the file.
             if ( watermlVersion == WaterMLVersion.STANDARD_2_0 ) {
-                ident.setInterval(readTimeSeriesUsingDOM_ParseInterval(collectionElement));
+                ident.setInterval(collectionInterval);
             }
         }
     }
@@ -1373,7 +1520,7 @@ throws IOException {
     // Data source is taken from the following:
     //  <wml2:MeasurementTimeseries gml:id="TS.USGS.09070500.00060.18624.00003">
     if (watermlVersion == WaterMLVersion.STANDARD_2_0) {
-    	String id3 = this.xmlToolkit.getNodeAttribute("gml:id", measurementTimeSeriesElement);
+    	String id3 = measurementTimeSeriesId;
         String source = null;
         if ( (id3 == null) || id3.isEmpty() ) {
         	// Trouble.
@@ -1403,20 +1550,30 @@ private String readTimeSeriesUsingDOM_ParseInterval(Element collectionElement) t
     Element nameElement = this.xmlToolkit.findSingleElement(collectionElement, "name", "codespace");
     if ( nameElement != null ) {
     	String codespace = this.xmlToolkit.getNodeAttribute("codespace", nameElement);
-    	if ( codespace != null ) {
-    		if ( codespace.indexOf("nwis/dv") >= 0 ) {
-    			// TODO smalers 2017-07-01 need to make more generic since this is hard-coded for NWIS.
-    			return TimeInterval.getName(TimeInterval.DAY,0);
-    		}
-    		else if ( codespace.indexOf("nwis/iv") >= 0 ) {
-    			// TODO smalers 2017-07-01 need to make more generic since this is hard-coded for NWIS.
-    			return "15" + TimeInterval.getName(TimeInterval.MINUTE,0);
-    		}
-    	}
+    	return readTimeSeriesUsingDOM_ParseIntervalFromCodespace(codespace);
     }
     return null;
 }
 
+/**
+ * Return the time series data interval given the Collection 'name' element 'codespace' attribute.
+ * @param codespace the 'codespace' attribute value
+ * @return the TSTool-compatible interval, or null if not determined
+ */
+private String readTimeSeriesUsingDOM_ParseIntervalFromCodespace(String codespace) {
+	if ( codespace != null ) {
+		if ( codespace.indexOf("nwis/dv") >= 0 ) {
+			// TODO smalers 2017-07-01 need to make more generic since this is hard-coded for NWIS.
+			return TimeInterval.getName(TimeInterval.DAY,0);
+		}
+		else if ( codespace.indexOf("nwis/iv") >= 0 ) {
+			// TODO smalers 2017-07-01 need to make more generic since this is hard-coded for NWIS.
+			return "15" + TimeInterval.getName(TimeInterval.MINUTE,0);
+		}
+	}
+	return null;
+}
+
 /**
 Parse data units from the DOM.
 @param measurementTimeSeriesElement the MeasurementTimeSeries element that contains unit information
@@ -1671,6 +1828,466 @@ throws IOException {
     }
 }
 
+/**
+Read a single time series using the stream reader, given that the reader is positioned at the start of
+the "observationMember" element.  The reader is positioned at the end of the element when the method returns.
+The elements that are used are the same as for readTimeSeriesUsingDOM().
+@param watermlVersion WaterML version being read (element names are different)
+@param xmlReader stream reader positioned at the start of the "observationMember" element
+@param interval indicates the interval for data in the file, needed as a hint because there is nothing
+in the file that indicates that data are daily values, etc.
+@param collectionInterval interval determined from the Collection, used if interval is null
+@param requireDataToMatchInterval if true, the date/times with data values must align with the interval (if they
+don't warnings will be generated)
+@param url the original URL used to read the WaterML (can be null or "" if read from a file), used to
+populate the history comments in the time series
+@param file the original File corresponding to the WaterML file (can be null or "" if read from a file), used to
+populate the history comments in the time series
+@param readStart starting date/time to read
+@param readEnd ending date/time to read
+@param readData whether to read data values (if false initialize the period but do not allocate
+memory or process the data values)
+*/
+private TS readTimeSeriesUsingStream ( WaterMLVersion watermlVersion, XMLStreamReader xmlReader,
+    TimeInterval interval, String collectionInterval, boolean requireDataToMatchInterval,
+    String outputTimeZoneOffset, String outputTimeZone, String url, File file,
+    DateTime readStart, DateTime readEnd, boolean readData )
+throws IOException, XMLStreamException, StreamFormatException {
+	String monitoringPointId = null;
+	String measurementTimeSeriesId = null;
+	String siteName = null;
+	String observedProperty = null;
+	String statistic = null;
+	String units = null;
+	String phenomenonBeginPosition = "";
+	String phenomenonEndPosition = "";
+	String coords = null;
+	String srsName = null;
+	Double latitude = null;
+	Double longitude = null;
+	// Default qualifiers, in order.
+	List<String> defaultQualifierList = new ArrayList<>();
+	// Data points for the first MeasurementTimeseries.
+	StreamPoints points = new StreamPoints();
+	// State for the current MeasurementTVP.
+	String pointTime = null;
+	String pointValue = null;
+	StringBuilder pointQualifier = null;
+	// Whether the first 'value' for a qualifier has been processed, consistent with the DOM.
+	boolean qualifierValueFound = false;
+	// Stack of element local names within the observationMember.
+	List<String> stack = new ArrayList<>();
+	int measurementTimeSeriesCount = 0;
+	boolean inFirstMeasurementTimeSeries = false;
+	while ( xmlReader.hasNext() ) {
+		int event = xmlReader.next();
+		if ( event == XMLStreamConstants.END_ELEMENT ) {
+			String localName = xmlReader.getLocalName();
+			if ( stack.isEmpty() ) {
+				// End of observationMember.
+				break;
+			}
+			stack.remove(stack.size() - 1);
+			if ( localName.equals("MeasurementTVP") && inFirstMeasurementTimeSeries ) {
+				points.add(pointTime, pointValue, (pointQualifier == null) ? null : pointQualifier.toString());
+				pointTime = null;
+				pointValue = null;
+				pointQualifier = null;
+			}
+			else if ( localName.equals("MeasurementTimeseries") ) {
+				inFirstMeasurementTimeSeries = false;
+			}
+			continue;
+		}
+		else if ( event != XMLStreamConstants.START_ELEMENT ) {
+			continue;
+		}
+		String localName = xmlReader.getLocalName();
+		String parentName = stack.isEmpty() ? "" : stack.get(stack.size() - 1);
+		// Elements that contain only text are read here and are not added to the stack.
+		if ( localName.equals("MonitoringPoint") && (monitoringPointId == null) ) {
+			monitoringPointId = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, "gml", "id");
+			if ( monitoringPointId == null ) {
+				monitoringPointId = "";
+			}
+		}
+		else if ( localName.equals("pos") && (coords == null) && stack.contains("MonitoringPoint") &&
+			stack.contains("shape") && stack.contains("Point") ) {
+			srsName = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, null, "srsName");
+			coords = xmlReader.getElementText();
+			continue;
+		}
+		else if ( localName.equals("MeasurementTimeseries") ) {
+			++measurementTimeSeriesCount;
+			if ( measurementTimeSeriesCount == 1 ) {
+				measurementTimeSeriesId = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, "gml", "id");
+				inFirstMeasurementTimeSeries = true;
+			}
+		}
+		else if ( localName.equals("observedProperty") && (observedProperty == null) ) {
+			observedProperty = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, "xlink", "title");
+			if ( observedProperty == null ) {
+				observedProperty = "";
+			}
+		}
+		else if ( localName.equals("name") && (statistic == null) && stack.contains("ObservationProcess") &&
+			stack.contains("parameter") ) {
+			statistic = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, "xlink", "title");
+		}
+		else if ( localName.equals("featureOfInterest") && (siteName == null) ) {
+			siteName = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, "xlink", "title");
+			if ( siteName == null ) {
+				siteName = "";
+			}
+		}
+		else if ( (localName.equals("beginPosition") || localName.equals("endPosition")) &&
+			stack.contains("phenomenonTime") && stack.contains("TimePeriod") ) {
+			String text = xmlReader.getElementText();
+			if ( localName.equals("beginPosition") ) {
+				phenomenonBeginPosition = text;
+			}
+			else {
+				phenomenonEndPosition = text;
+			}
+			continue;
+		}
+		else if ( localName.equals("uom") && (units == null) && inFirstMeasurementTimeSeries ) {
+			units = readTimeSeriesUsingStream_GetAttributeValue(xmlReader, "xlink", "title");
+		}
+		else if ( localName.equals("qualifier") ) {
+			qualifierValueFound = false;
+		}
+		else if ( localName.equals("MeasurementTVP") && inFirstMeasurementTimeSeries ) {
+			pointTime = null;
+			pointValue = null;
+			pointQualifier = null;
+		}
+		else if ( localName.equals("time") && parentName.equals("MeasurementTVP") && inFirstMeasurementTimeSeries ) {
+			pointTime = xmlReader.getElementText();
+			continue;
+		}
+		else if ( localName.equals("value") && inFirstMeasurementTimeSeries ) {
+			if ( parentName.equals("MeasurementTVP") ) {
+				pointValue = xmlReader.getElementText();
+				continue;
+			}
+			else if ( parentName.equals("Category") && stack.contains("qualifier") && !qualifierValueFound ) {
+				qualifierValueFound = true;
+				String text = xmlReader.getElementText();
+				if ( (text != null) && !text.isEmpty() ) {
+					if ( stack.contains("DefaultTVPMeasurementMetadata") ) {
+						defaultQualifierList.add(text);
+					}
+					else if ( stack.contains("TVPMeasurementMetadata") && stack.contains("MeasurementTVP") ) {
+						if ( pointQualifier == null ) {
+							pointQualifier = new StringBuilder(text);
+						}
+						else {
+							pointQualifier.append(",").append(text);
+						}
+					}
+				}
+				continue;
+			}
+		}
+		stack.add(localName);
+	}
+	if ( monitoringPointId == null ) {
+		throw new IOException("Unable to determine site id = no MonitoringPoint element");
+	}
+	if ( measurementTimeSeriesId == null ) {
+		// Structure is not as expected so let the DOM handle.
+		throw new StreamFormatException("No MeasurementTimeseries element in observationMember.");
+	}
+	if ( (coords != null) && (srsName != null) ) {
+		String coordsParts [] = coords.trim().split(" ");
+		if ( (srsName.indexOf("EPSG") >= 0) && (srsName.indexOf("4326") >= 0) && (coordsParts.length == 2) ) {
+			try {
+				latitude = Double.parseDouble(coordsParts[0]);
+				longitude = Double.parseDouble(coordsParts[1]);
+			}
+			catch ( Exception e ) {
+				this.warningMessages.add("Error parsing location coordinates \"" + coords + "\"" );
+			}
+		}
+	}
+
+	// Create the time series.
+	TSIdent ident = readTimeSeriesUsingDOM_ParseIdent(watermlVersion, interval, monitoringPointId, measurementTimeSeriesId,
+		collectionInterval );
+	TS ts = null;
+    try {
+        ts = TSUtil.newTimeSeries(ident.toString(), true);
+        ts.setIdentifier(ident);
+    }
+    catch (Exception ex) {
+        throw new IOException("Error setting time series identifier ", ex);
+    }
+    try {
+        ts.setMissing ( Double.NaN );
+        ts.setDataUnits((units == null) ? "" : units);
+        ts.setDataUnitsOriginal(ts.getDataUnits());
+        if ( siteName != null ) {
+        	if ( (observedProperty != null) && !observedProperty.isEmpty() ) {
+        		siteName = siteName + ", " + observedProperty;
+        	}
+        	if ( (statistic != null) && !statistic.isEmpty() ) {
+        		siteName = siteName + ", " + statistic;
+        	}
+            ts.setDescription(siteName);
+        }
+    	ts.setProperty("MonitoringPoint.id", monitoringPointId);
+    	ts.setProperty("phenomenonTime.beginPosition", phenomenonBeginPosition);
+    	ts.setProperty("phenomenonTime.endPosition", phenomenonEndPosition);
+    	ts.setProperty("latitude", latitude);
+    	ts.setProperty("longitude", longitude);
+        if ( (url != null) && !url.equals("") ) {
+            ts.addToGenesis("Create time series from WaterML 2 queried with URL:  " + url );
+        }
+        else {
+            if ( file != null ) {
+                ts.addToGenesis("Create time series from contents of file:  " + file.getAbsolutePath() );
+            }
+            ts.addToGenesis("Read time series by streaming WaterML 2 XML." );
+        }
+    }
+    catch (Exception ex) {
+        throw new IOException("Error setting time series properties ", ex);
+    }
+
+    readTimeSeriesUsingStream_SetValues ( ts, points, defaultQualifierList, readStart, readEnd,
+    	outputTimeZoneOffset, outputTimeZone, readData, requireDataToMatchInterval );
+	return ts;
+}
+
+/**
+Determine the WaterML version from the root element, consistent with determineWaterMLVersion(Document).
+@param xmlReader stream reader positioned at the start of the root element
+@throws StreamFormatException if the version cannot be determined, so that the DOM can be used to format the error
+*/
+private WaterMLVersion readTimeSeriesUsingStream_DetermineWaterMLVersion ( XMLStreamReader xmlReader )
+throws StreamFormatException {
+    String routine = getClass().getSimpleName() + ".readTimeSeriesUsingStream_DetermineWaterMLVersion";
+    String xmlns = xmlReader.getNamespaceURI("");
+    String xmlns_ns1 = xmlReader.getNamespaceURI("wml2");
+    Message.printStatus ( 2, routine, "Root element xmlns=\"" + xmlns + "\"" );
+    if ( WATERML_2_0_NS_URI.equals(xmlns) || WATERML_2_0_NS_URI.equals(xmlns_ns1) ) {
+	    Message.printStatus(2,routine, "WaterML version is " + WaterMLVersion.STANDARD_2_0);
+    	return WaterMLVersion.STANDARD_2_0;
+    }
+    throw new StreamFormatException("Unable to determine WaterML version based on xmlns \"" + xmlns + "\".");
+}
+
+/**
+Return an attribute value for the current element.
+@param xmlReader stream reader positioned at the start of an element
+@param prefix the attribute prefix to match (e.g., "gml"), or null to match any prefix
+@param localName the attribute local name to match, ignoring case
+@return the attribute value or null if not found
+*/
+private String readTimeSeriesUsingStream_GetAttributeValue ( XMLStreamReader xmlReader, String prefix, String localName ) {
+	for ( int i = 0; i < xmlReader.getAttributeCount(); i++ ) {
+		if ( xmlReader.getAttributeLocalName(i).equalsIgnoreCase(localName) &&
+			((prefix == null) || prefix.equals(xmlReader.getAttributePrefix(i))) ) {
+			return xmlReader.getAttributeValue(i);
+		}
+	}
+	return null;
+}
+
+/**
+Set the time series period and values from the data points read by the stream reader,
+consistent with readTimeSeriesUsingDOM_ParseValues().
+@param ts the time series that has been previously created and initialized
+@param points data points for the time series
+@param defaultQualifierList default qualifiers, applied to every value
+@param readStart starting date/time to read
+@param readEnd ending date/time to read
+@param outputTimeZoneOffset the desired output time zone in offset notation (e.g, "-07:00", null or empty to ignore)
+@param outputTimeZone the time zone to set after the offset is applied (empty will cause set, null will ignore).
+@param readData whether to read data values (if false initialize the period but do not allocate
+memory or process the data values)
+@param requireDataToMatchInterval if true, the date/times with data values must align with the interval (if they
+don't warnings will be generated)
+*/
+private void readTimeSeriesUsingStream_SetValues ( TS ts, StreamPoints points, List<String> defaultQualifierList,
+	DateTime readStart, DateTime readEnd, String outputTimeZoneOffset, String outputTimeZone,
+    boolean readData, boolean requireDataToMatchInterval )
+throws IOException {
+    String routine = getClass().getSimpleName() + ".readTimeSeriesUsingStream_SetValues";
+    int nPoints = points.size();
+    if ( nPoints == 0 ) {
+        // No data to process.  This may occur, for example, if a date range is requested that has no data.
+        return;
+    }
+    Message.printStatus(2, routine, "Have " + nPoints + " MeasurementTVP elements to process as time series data.");
+    DateTime dataStart = null;
+    try {
+        dataStart = DateTime.parse( points.getTime(0), DateTime.FORMAT_ISO_8601);
+    }
+    catch (Exception ex) {
+        throw new IOException("Error parsing first data time \"" + points.getTime(0) + "\"", ex);
+    }
+    DateTime dataEnd = null;
+    try {
+    	dataEnd = DateTime.parse( points.getTime(nPoints - 1), DateTime.FORMAT_ISO_8601);
+    }
+    catch (Exception ex) {
+        throw new IOException("Error parsing last data time \"" + points.getTime(nPoints - 1) + "\"", ex);
+    }
+    // Reset the time zone for regular interval to ensure consistency.
+    for ( DateTime dt : new DateTime[] { dataStart, dataEnd } ) {
+    	if ( dt.getPrecision() < DateTime.PRECISION_DAY ) {
+    		if ( (outputTimeZoneOffset != null) && !outputTimeZoneOffset.isEmpty() ) {
+    			dt.shiftTimeZone(outputTimeZoneOffset);
+    		}
+    		if ( outputTimeZone != null ) {
+    			dt.setTimeZone(outputTimeZone);
+    		}
+    	}
+    }
+    // Make sure the readStart and readEnd align with the interval.
+    if ( readStart == null ) {
+        readStart = new DateTime(dataStart);
+    }
+    else {
+        readStart = new DateTime(readStart);
+        readStart.round(-1, ts.getDataIntervalBase(), ts.getDataIntervalMult());
+    }
+    if ( readEnd == null ) {
+        readEnd = new DateTime(dataEnd);
+    }
+    else {
+        readEnd = new DateTime(readEnd);
+        readEnd.round(1, ts.getDataIntervalBase(), ts.getDataIntervalMult());
+    }
+    ts.setDate1(readStart);
+    ts.setDate1Original(dataStart);
+    ts.setDate2(readEnd);
+    ts.setDate2Original(dataEnd);
+    if ( !readData ) {
+    	return;
+    }
+    String intervalString = ts.getIdentifier().getInterval(); // Used to check alignment
+    TimeInterval interval = null;
+    try {
+        interval = TimeInterval.parseInterval(intervalString);
+    }
+    catch ( Exception e ) {
+        // Should not happen.
+    }
+	// Time zone is used for interval finer than day.
+    boolean doUseTimeZone = (interval.getBase() < TimeInterval.DAY);
+    ts.allocateDataSpace();
+    // Set the default qualifier, which will be applied to every value (and possibly other qualifiers).
+    StringBuilder defaultQualifierB = new StringBuilder();
+    for ( String qualifier : defaultQualifierList ) {
+    	if ( defaultQualifierB.length() > 0 ) {
+    		defaultQualifierB.append(",");
+    	}
+    	defaultQualifierB.append(qualifier);
+    	ts.addDataFlagMetadata(new TSDataFlagMetadata(qualifier, qualifier));
+    }
+    String defaultQualifier = defaultQualifierB.toString();
+    // Qualifiers for data points that have been added to the flag metadata.
+    List<String> pointQualifierList = new ArrayList<>();
+    String firstTimeZone = null; // First time zone encountered.
+    String dtTimeZone = null; // Time zone from parse date/time.
+    int maxTimeZoneErrors = 50;
+    int timeZoneErrorsCount = 0;
+    boolean isRegularInterval = TimeInterval.isRegularInterval(ts.getDataIntervalBase());
+    DateTime dateTime;
+    String dataFlag;
+    double dataValue;
+    for ( int i = 0; i < nPoints; i++ ) {
+        // Must parse the dates because missing results in gaps.
+        try {
+        	String timeString = points.getTime(i);
+            if ( timeString == null ) {
+            	Message.printStatus(2, routine, "Skipping data value since no time specified." );
+            	continue;
+            }
+            dateTime = DateTime.parse(timeString, DateTime.FORMAT_ISO_8601);
+            if ( doUseTimeZone ) {
+            	// Time zone applies because interval is < day.
+            	if ( (outputTimeZoneOffset != null) && !outputTimeZoneOffset.isEmpty() ) {
+            		// Desired time zone has been provided so use it to enforce consistency.
+            		dateTime.shiftTimeZone(outputTimeZoneOffset);
+            	}
+            	else if ( isRegularInterval ) {
+            		// Time zone has not been specified so check to make sure it is consistent - only if regular interval.
+	                if ( firstTimeZone == null ) {
+	                	firstTimeZone = dateTime.getTimeZoneAbbreviation();
+	                }
+	                else if ( timeZoneErrorsCount < maxTimeZoneErrors ) {
+	                	dtTimeZone = dateTime.getTimeZoneAbbreviation();
+	                	if ( (dtTimeZone != null) && !dtTimeZone.equalsIgnoreCase(firstTimeZone) )  {
+	                		this.failureMessages.add("Time zone for " + timeString +
+	                			" is different than initial time zone in content \"" + firstTimeZone + "\" - need to set time zone." );
+	                	}
+	                	++timeZoneErrorsCount;
+	                }
+            	}
+            	if ( outputTimeZone != null ) {
+            		dateTime.setTimeZone(outputTimeZone);
+            	}
+            }
+            if ( dateTime.lessThan(readStart) || dateTime.greaterThan(readEnd) ) {
+                // Date/time is not in the requested period.
+                continue;
+            }
+            if ( requireDataToMatchInterval ) {
+                // Do a check to see if the date/time aligns exactly with the interval.
+                if ( TimeUtil.compareDateTimePrecisionToTimeInterval(dateTime, interval, requireDataToMatchInterval ) != 0 ) {
+                    this.warningMessages.add("Date/time " + dateTime + " is not aligned with time series interval " +
+                        intervalString );
+                    // Ignore if regular interval.
+                    if ( isRegularInterval ) {
+                    	continue;
+                    }
+                }
+            }
+            String pointQualifier = points.getQualifier(i);
+            if ( pointQualifier == null ) {
+            	dataFlag = defaultQualifier;
+            }
+            else {
+            	// Add the qualifiers to the time series flag list if not already added.
+            	for ( String qualifier : pointQualifier.split(",") ) {
+            		if ( !pointQualifierList.contains(qualifier) ) {
+            			pointQualifierList.add(qualifier);
+            			boolean found = false;
+            			for ( TSDataFlagMetadata flagMeta : ts.getDataFlagMetadataList() ) {
+            				if ( flagMeta.getDataFlag().equals(qualifier) ) {
+            					found = true;
+            					break;
+            				}
+            			}
+            			if ( !found ) {
+            				ts.addDataFlagMetadata(new TSDataFlagMetadata(qualifier, qualifier));
+            			}
+            		}
+            	}
+            	dataFlag = defaultQualifier.isEmpty() ? pointQualifier : (defaultQualifier + "," + pointQualifier);
+            }
+            String dataValueString = points.getValue(i);
+            if ( dataValueString != null ) {
+                dataValue = Double.parseDouble(dataValueString);
+                if ( !dataFlag.isEmpty() ) {
+                    ts.setDataValue(dateTime, dataValue, dataFlag, 0);
+                }
+                else {
+                    ts.setDataValue(dateTime, dataValue);
+                }
+            }
+        }
+        catch ( Exception e ) {
+            // Bad record.
+            Message.printWarning(3, routine, "Bad data record (" + e + ") - skipping..." );
+        }
+    }
+}
+
 /**
 Set a time series property to a WaterML element's value.  For example, use to set the siteName as a property:
 <pre>
@@ -1787,4 +2404,61 @@ private void setTimeSeriesPropertyFromGenericPropertyElement ( TS ts, Element ti
      */
 }
 
-}
\ No newline at end of file
+/**
+Exception thrown when WaterML content cannot be processed using the stream reader, in which case the DOM is parsed.
+*/
+private static class StreamFormatException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public StreamFormatException ( String message ) {
+		super ( message );
+	}
+}
+
+/**
+Data points for a MeasurementTimeseries read using the stream reader,
+stored as text in arrays so that the values can be processed after the period is known.
+*/
+private static class StreamPoints {
+	private int size = 0;
+	private String [] times = new String[256];
+	private String [] values = new String[256];
+	private String [] qualifiers = new String[256];
+
+	/**
+	Add a point.
+	@param time time text, null if not specified
+	@param value value text, null if not specified
+	@param qualifier qualifiers separated by commas, null if none
+	*/
+	public void add ( String time, String value, String qualifier ) {
+		if ( this.size == this.times.length ) {
+			int newLength = this.times.length*2;
+			this.times = Arrays.copyOf(this.times, newLength);
+			this.values = Arrays.copyOf(this.values, newLength);
+			this.qualifiers = Arrays.copyOf(this.qualifiers, newLength);
+		}
+		this.times[this.size] = time;
+		this.values[this.size] = value;
+		this.qualifiers[this.size] = qualifier;
+		++this.size;
+	}
+
+	public String getQualifier ( int i ) {
+		return this.qualifiers[i];
+	}
+
+	public String getTime ( int i ) {
+		return this.times[i];
+	}
+
+	public String getValue ( int i ) {
+		return this.values[i];
+	}
+
+	public int size () {
+		return this.size;
+	}
+}
+
+}
@@ -0,0 +1,65 @@
+// CommandJfrEvent - Java Flight Recorder event for a command run
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+Java Flight Recorder (JFR) event for a command run, recorded by CommandProfiler when a JFR recording is active,
+for example when TSTool is started with -XX:StartFlightRecording.
+*/
+@Name("rti.tscommandprocessor.Command")
+@Label("Command")
+@Category("TSTool")
+@Description("Run of a command by the time series command processor.")
+class CommandJfrEvent extends Event
+{
+
+@Label("Command File")
+String commandFile;
+
+@Label("Command Number")
+int commandNumber;
+
+@Label("Command Name")
+String commandName;
+
+@Label("Command")
+String command;
+
+@Label("CPU Time")
+@Timespan(Timespan.NANOSECONDS)
+long cpuTime;
+
+@Label("Allocated")
+@DataAmount
+long allocatedBytes;
+
+}
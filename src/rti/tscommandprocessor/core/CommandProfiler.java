@@ -0,0 +1,435 @@
+// CommandProfiler - accumulate run statistics for each command across iterations and nested command files
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import RTi.Util.IO.Command;
+
+/**
+Accumulate run statistics for each command, used by ProfileCommands() to report where time is spent.
+The CommandProfile for a command only contains the last run, whereas the profiler accumulates
+statistics for all runs of a command, for example each iteration of a For() loop.
+A TSCommandProcessor has one instance, which is returned by TSCommandProcessor.getCommandProfiler().
+<p>
+For each command, the number of runs, total, minimum, and maximum elapsed time in nanoseconds,
+a histogram of elapsed time using power of 2 buckets, thread CPU time, and allocated bytes are saved.
+CPU time and allocated bytes are measured for the thread that runs the command
+and are only available if supported by the Java virtual machine.
+<p>
+RunCommands() runs commands with a nested profiler that is returned by getNestedProfiler(),
+so that the statistics for commands in the command file are also available,
+and the time spent in the nested commands is added to the RunCommands() command.
+<p>
+If a Java Flight Recorder (JFR) recording is active, an event is also recorded for each command run.
+*/
+public class CommandProfiler
+{
+
+/**
+Number of histogram buckets, one for each power of 2 nanoseconds.
+*/
+public static final int HISTOGRAM_BUCKETS = 64;
+
+/**
+Statistics for one command.
+*/
+public static class CommandStatistics {
+	private int commandNumber;
+	private String commandName;
+	private Command command;
+	private long count = 0;
+	private long totalTime = 0;
+	private long minTime = Long.MAX_VALUE;
+	private long maxTime = 0;
+	private long cpuTime = 0;
+	private long allocatedBytes = 0;
+	private long nestedTime = 0;
+	private long [] histogram = new long[HISTOGRAM_BUCKETS];
+
+	/**
+	Return the bytes allocated by the thread running the command, or 0 if not supported.
+	*/
+	public long getAllocatedBytes () {
+		return this.allocatedBytes;
+	}
+
+	/**
+	Return the command name.
+	*/
+	public String getCommandName () {
+		return this.commandName;
+	}
+
+	/**
+	Return the command number (1+) in the command list.
+	*/
+	public int getCommandNumber () {
+		return this.commandNumber;
+	}
+
+	/**
+	Return the command string, which is created from the command when requested rather than for each run.
+	*/
+	public String getCommandString () {
+		return this.command.toString();
+	}
+
+	/**
+	Return the number of times that the command was run.
+	*/
+	public long getCount () {
+		return this.count;
+	}
+
+	/**
+	Return the thread CPU time for all runs, nanoseconds, or 0 if not supported.
+	*/
+	public long getCpuTime () {
+		return this.cpuTime;
+	}
+
+	/**
+	Return the count of runs in a histogram bucket.
+	@param bucket bucket (0+), which includes elapsed times >= 2^(bucket - 1) and < 2^bucket nanoseconds
+	*/
+	public long getHistogramCount ( int bucket ) {
+		return this.histogram[bucket];
+	}
+
+	/**
+	Return the maximum elapsed time, nanoseconds.
+	*/
+	public long getMaxTime () {
+		return this.maxTime;
+	}
+
+	/**
+	Return the minimum elapsed time, nanoseconds, or 0 if the command has not been run.
+	*/
+	public long getMinTime () {
+		return (this.count == 0) ? 0 : this.minTime;
+	}
+
+	/**
+	Return the elapsed time for commands run by a nested processor, nanoseconds, for example for RunCommands().
+	*/
+	public long getNestedTime () {
+		return this.nestedTime;
+	}
+
+	/**
+	Return an estimate of a percentile of the elapsed time, nanoseconds,
+	which is the upper limit of the histogram bucket that contains the percentile.
+	@param percent percentile (0 to 100)
+	*/
+	public long getPercentileTime ( double percent ) {
+		long needed = (long)Math.ceil(this.count*percent/100.0);
+		long cumulative = 0;
+		for ( int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++ ) {
+			cumulative += this.histogram[bucket];
+			if ( (cumulative >= needed) && (cumulative > 0) ) {
+				return Math.min(getHistogramBucketLimit(bucket), this.maxTime);
+			}
+		}
+		return this.maxTime;
+	}
+
+	/**
+	Return the total elapsed time for all runs, nanoseconds.
+	*/
+	public long getTotalTime () {
+		return this.totalTime;
+	}
+}
+
+/**
+Values at the start of a command run, returned by start() and passed to end().
+*/
+public static class Sample {
+	private long startTime;
+	private long startCpuTime;
+	private long startAllocatedBytes;
+	private Object jfrEvent;
+}
+
+/**
+Thread bean used to measure CPU time and allocation.
+*/
+private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+/**
+Whether thread CPU time can be measured.
+*/
+private static boolean cpuTimeSupported = false;
+
+/**
+Whether thread allocated bytes can be measured.
+*/
+private static boolean allocationSupported = false;
+
+/**
+Whether JFR events can be created, set to false if JFR classes are not available.
+*/
+private static boolean jfrSupported = true;
+
+static {
+	try {
+		cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+		if ( threadBean instanceof com.sun.management.ThreadMXBean ) {
+			com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean)threadBean;
+			allocationSupported = sunThreadBean.isThreadAllocatedMemorySupported() && sunThreadBean.isThreadAllocatedMemoryEnabled();
+		}
+	}
+	catch ( Throwable e ) {
+		// Not supported by the JVM so measure elapsed time only.
+	}
+}
+
+/**
+Statistics for each command, by command number.
+*/
+private Map<Integer,CommandStatistics> statisticsMap = new TreeMap<>();
+
+/**
+Nested profilers, by the command that runs the nested commands (e.g., RunCommands()).
+*/
+private Map<Command,CommandProfiler> nestedProfilerMap = new IdentityHashMap<>();
+
+/**
+Label for the profiler, for example the command file for a nested profiler.
+*/
+private String label = "";
+
+/**
+Profiler that contains the command that runs the nested commands, or null if not nested.
+*/
+private CommandProfiler parentProfiler = null;
+
+/**
+Command number (1+) in the parent profiler of the command that runs the nested commands.
+*/
+private int parentCommandNumber = -1;
+
+/**
+Create a profiler.
+*/
+public CommandProfiler () {
+}
+
+/**
+Create a nested profiler.
+@param label label for the profiler
+@param parentProfiler profiler that contains the command that runs the nested commands
+@param parentCommandNumber command number (1+) in the parent profiler of the command that runs the nested commands
+*/
+private CommandProfiler ( String label, CommandProfiler parentProfiler, int parentCommandNumber ) {
+	this.label = label;
+	this.parentProfiler = parentProfiler;
+	this.parentCommandNumber = parentCommandNumber;
+}
+
+/**
+Add elapsed time to the nested time for a command.
+@param commandNumber command number (1+)
+@param elapsedTime elapsed time, nanoseconds
+*/
+private synchronized void addNestedTime ( int commandNumber, long elapsedTime ) {
+	CommandStatistics stats = this.statisticsMap.get(commandNumber);
+	if ( stats != null ) {
+		stats.nestedTime += elapsedTime;
+	}
+}
+
+/**
+Remove all statistics, for example when starting to run commands.
+*/
+public synchronized void clear () {
+	this.statisticsMap.clear();
+	this.nestedProfilerMap.clear();
+}
+
+/**
+Record the end of a command run.
+@param sample the sample returned by start()
+@param commandNumber command number (1+) in the command list
+@param command the command that was run
+*/
+public void end ( Sample sample, int commandNumber, Command command ) {
+	long elapsedTime = System.nanoTime() - sample.startTime;
+	long cpuTime = 0;
+	if ( cpuTimeSupported ) {
+		cpuTime = threadBean.getCurrentThreadCpuTime() - sample.startCpuTime;
+	}
+	long allocatedBytes = 0;
+	if ( allocationSupported ) {
+		allocatedBytes = getCurrentThreadAllocatedBytes() - sample.startAllocatedBytes;
+	}
+	synchronized ( this ) {
+		CommandStatistics stats = this.statisticsMap.get(commandNumber);
+		if ( stats == null ) {
+			stats = new CommandStatistics();
+			stats.commandNumber = commandNumber;
+			this.statisticsMap.put(commandNumber, stats);
+		}
+		stats.commandName = command.getCommandName();
+		stats.command = command;
+		++stats.count;
+		stats.totalTime += elapsedTime;
+		stats.minTime = Math.min(stats.minTime, elapsedTime);
+		stats.maxTime = Math.max(stats.maxTime, elapsedTime);
+		stats.cpuTime += cpuTime;
+		stats.allocatedBytes += allocatedBytes;
+		++stats.histogram[getHistogramBucket(elapsedTime)];
+	}
+	if ( this.parentProfiler != null ) {
+		this.parentProfiler.addNestedTime ( this.parentCommandNumber, elapsedTime );
+	}
+	if ( sample.jfrEvent != null ) {
+		CommandJfrEvent event = (CommandJfrEvent)sample.jfrEvent;
+		event.end();
+		if ( event.shouldCommit() ) {
+			event.commandFile = this.label;
+			event.commandNumber = commandNumber;
+			event.commandName = command.getCommandName();
+			event.command = command.toString();
+			event.cpuTime = cpuTime;
+			event.allocatedBytes = allocatedBytes;
+			event.commit();
+		}
+	}
+}
+
+/**
+Return the bytes allocated by the current thread.
+*/
+private static long getCurrentThreadAllocatedBytes () {
+	return ((com.sun.management.ThreadMXBean)threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+}
+
+/**
+Return the histogram bucket for an elapsed time.
+@param elapsedTime elapsed time, nanoseconds
+@return bucket (0+)
+*/
+private static int getHistogramBucket ( long elapsedTime ) {
+	if ( elapsedTime <= 0 ) {
+		return 0;
+	}
+	return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(elapsedTime));
+}
+
+/**
+Return the upper limit of a histogram bucket.
+@param bucket bucket (0+)
+@return upper limit of the bucket, nanoseconds
+*/
+public static long getHistogramBucketLimit ( int bucket ) {
+	if ( bucket >= 63 ) {
+		return Long.MAX_VALUE;
+	}
+	return 1L << bucket;
+}
+
+/**
+Return the label for the profiler, for example the command file for a nested profiler, or an empty string for the main profiler.
+*/
+public String getLabel () {
+	return this.label;
+}
+
+/**
+Return whether the profiler is nested, meaning that it is used by a processor that is run by a command such as RunCommands().
+*/
+public boolean isNested () {
+	return this.parentProfiler != null;
+}
+
+/**
+Return the nested profiler for a command that runs nested commands, creating the profiler if necessary.
+The same profiler is returned each time the command is run so that statistics are accumulated for all runs.
+@param commandNumber command number (1+) of the command that runs the nested commands
+@param command command that runs the nested commands, such as RunCommands()
+@param label label for the profiler, such as the command file
+@return the nested profiler
+*/
+public synchronized CommandProfiler getNestedProfiler ( int commandNumber, Command command, String label ) {
+	CommandProfiler profiler = this.nestedProfilerMap.get(command);
+	if ( profiler == null ) {
+		profiler = new CommandProfiler ( label, this, commandNumber );
+		this.nestedProfilerMap.put(command, profiler);
+	}
+	return profiler;
+}
+
+/**
+Return the nested profilers, in the order of the commands in this profiler.
+*/
+public synchronized List<CommandProfiler> getNestedProfilers () {
+	List<CommandProfiler> profilers = new ArrayList<>(this.nestedProfilerMap.values());
+	profilers.sort ( (p1, p2) -> Integer.compare(p1.parentCommandNumber, p2.parentCommandNumber) );
+	return profilers;
+}
+
+/**
+Return the statistics for each command, sorted by command number.
+*/
+public synchronized List<CommandStatistics> getStatistics () {
+	return new ArrayList<>(this.statisticsMap.values());
+}
+
+/**
+Record the start of a command run.
+@return sample that must be passed to end()
+*/
+public Sample start () {
+	Sample sample = new Sample();
+	if ( jfrSupported ) {
+		try {
+			CommandJfrEvent event = new CommandJfrEvent();
+			event.begin();
+			sample.jfrEvent = event;
+		}
+		catch ( Throwable e ) {
+			// JFR is not available in the Java runtime.
+			jfrSupported = false;
+		}
+	}
+	if ( cpuTimeSupported ) {
+		sample.startCpuTime = threadBean.getCurrentThreadCpuTime();
+	}
+	if ( allocationSupported ) {
+		sample.startAllocatedBytes = getCurrentThreadAllocatedBytes();
+	}
+	sample.startTime = System.nanoTime();
+	return sample;
+}
+
+}
@@ -0,0 +1,413 @@
+// ControlFlowIndex - index of For/EndFor, If/EndIf, Break, and Continue commands used when running commands
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import RTi.Util.IO.Command;
+import RTi.Util.IO.CommandLogRecord;
+import RTi.Util.IO.CommandPhaseType;
+import RTi.Util.IO.CommandStatusProvider;
+import RTi.Util.IO.CommandStatusType;
+import RTi.Util.Message.Message;
+import rti.tscommandprocessor.commands.util.Break_Command;
+import rti.tscommandprocessor.commands.util.CommentBlockEnd_Command;
+import rti.tscommandprocessor.commands.util.CommentBlockStart_Command;
+import rti.tscommandprocessor.commands.util.Continue_Command;
+import rti.tscommandprocessor.commands.util.EndFor_Command;
+import rti.tscommandprocessor.commands.util.EndIf_Command;
+import rti.tscommandprocessor.commands.util.For_Command;
+import rti.tscommandprocessor.commands.util.If_Command;
+
+/**
+Index of control flow commands (For/EndFor, If/EndIf, Break, Continue), built once before commands are run
+so that TSEngine.processCommands() can jump between commands without searching the command list.
+The matching rules are the same as the original command list searches:
+<ul>
+<li> For() and EndFor() commands are matched using the first command in the list with the same name (case is ignored).</li>
+<li> If() and EndIf() commands are matched using the first command in the list with the same name (case is ignored).</li>
+<li> Break() and Continue() commands use the innermost For() loop that encloses the command,
+     determined using a stack of For() commands that are popped by the matching EndFor() command,
+     so that a loop that ends before the command (e.g., a sibling inner loop) is not used.</li>
+<li> Commands in comment blocks (from CommentBlockStart to CommentBlockEnd) are ignored, consistent with TSEngine.processCommands(), which does not run them.</li>
+</ul>
+Problems such as a For() without an EndFor() are detected when the index is built and can be added to the command status
+before running so that users see the problems before the commands that have problems are reached.
+For(Parallel=True) loops that cannot be run in parallel are also detected and will be run sequentially with a warning.
+*/
+class ControlFlowIndex
+{
+
+/**
+The command list that is indexed.
+*/
+private List<Command> commandList = null;
+
+/**
+Index (0+) of the first For() command with a name, keyed by upper-case name.
+*/
+private Map<String,Integer> forIndexMap = new HashMap<>();
+
+/**
+Index (0+) of the first EndFor() command with a name, keyed by upper-case name.
+*/
+private Map<String,Integer> endForIndexMap = new HashMap<>();
+
+/**
+Index (0+) of the first If() command with a name, keyed by upper-case name.
+*/
+private Map<String,Integer> ifIndexMap = new HashMap<>();
+
+/**
+Whether each command is in a comment block, including the comment block start and end commands.
+*/
+private boolean [] inCommentBlock = new boolean[0];
+
+/**
+Index (0+) of the innermost For() command that encloses each command, -1 if none.
+A For() command encloses itself and an EndFor() command is enclosed by its For() command.
+*/
+private int [] enclosingForIndex = new int[0];
+
+/**
+EndIf() commands that must be processed when a Break() or Continue() command exits the loop,
+keyed by the command index of the Break() or Continue() command.
+*/
+private Map<Integer,List<EndIf_Command>> loopExitEndIfMap = new HashMap<>();
+
+/**
+Problem messages keyed by the command index, for commands that have control flow problems.
+*/
+private Map<Integer,String> problemMap = new HashMap<>();
+
+/**
+Recommendations corresponding to the problem messages, keyed by the command index.
+*/
+private Map<Integer,String> recommendationMap = new HashMap<>();
+
+/**
+Messages for For(Parallel=True) commands that must be run sequentially, keyed by the command index.
+*/
+private Map<Integer,String> parallelProblemMap = new HashMap<>();
+
+/**
+Build the index for a command list.
+@param commandList the list of commands to be run, which should not be modified while the index is used
+*/
+ControlFlowIndex ( List<Command> commandList ) {
+	this.commandList = commandList;
+	int size = commandList.size();
+	this.enclosingForIndex = new int[size];
+	this.inCommentBlock = new boolean[size];
+	// Stack of the For() commands that are open at each command, innermost last.
+	List<Integer> forStack = new ArrayList<>();
+	Command command;
+	boolean inBlockComment = false;
+	// First pass to determine the command positions.
+	for ( int i = 0; i < size; i++ ) {
+		command = commandList.get(i);
+		if ( command instanceof CommentBlockStart_Command ) {
+			inBlockComment = true;
+		}
+		this.inCommentBlock[i] = inBlockComment;
+		if ( command instanceof CommentBlockEnd_Command ) {
+			inBlockComment = false;
+		}
+		if ( this.inCommentBlock[i] ) {
+			// Commented commands are not run so do not index.
+			this.enclosingForIndex[i] = -1;
+			continue;
+		}
+		if ( command instanceof For_Command ) {
+			forStack.add(Integer.valueOf(i));
+			putFirst ( this.forIndexMap, ((For_Command)command).getName(), i );
+		}
+		else if ( command instanceof EndFor_Command ) {
+			putFirst ( this.endForIndexMap, ((EndFor_Command)command).getName(), i );
+		}
+		else if ( command instanceof If_Command ) {
+			putFirst ( this.ifIndexMap, ((If_Command)command).getName(), i );
+		}
+		if ( forStack.isEmpty() ) {
+			this.enclosingForIndex[i] = -1;
+		}
+		else {
+			this.enclosingForIndex[i] = forStack.get(forStack.size() - 1).intValue();
+		}
+		if ( command instanceof EndFor_Command ) {
+			// Close the matching loop and any loops inside it that were not closed (a problem is reported below).
+			// An EndFor() that does not match an open loop does not change the stack.
+			String name = ((EndFor_Command)command).getName();
+			for ( int iStack = forStack.size() - 1; iStack >= 0; iStack-- ) {
+				String forName = ((For_Command)commandList.get(forStack.get(iStack).intValue())).getName();
+				if ( (name != null) && name.equalsIgnoreCase(forName) ) {
+					while ( forStack.size() > iStack ) {
+						forStack.remove(forStack.size() - 1);
+					}
+					break;
+				}
+			}
+		}
+	}
+	// Second pass to determine the loop exits and check for problems.
+	List<Integer> forParallelList = new ArrayList<>();
+	for ( int i = 0; i < size; i++ ) {
+		if ( this.inCommentBlock[i] ) {
+			continue;
+		}
+		command = commandList.get(i);
+		if ( command instanceof For_Command ) {
+			String name = ((For_Command)command).getName();
+			if ( getEndForIndex(name) < 0 ) {
+				addProblem ( i, "Unable to match for loop name \"" + name + "\" in EndFor() commands.",
+					"Add a matching EndFor() command." );
+			}
+			else if ( ((For_Command)command).isParallel() ) {
+				forParallelList.add(Integer.valueOf(i));
+			}
+		}
+		else if ( command instanceof EndFor_Command ) {
+			String name = ((EndFor_Command)command).getName();
+			if ( getForIndex(name) < 0 ) {
+				addProblem ( i, "Unable to match EndFor() loop name \"" + name + "\" in For() commands.",
+					"Add a matching For() command." );
+			}
+		}
+		else if ( command instanceof EndIf_Command ) {
+			String name = ((EndIf_Command)command).getName();
+			int ifIndex = getIfIndex(name);
+			if ( (ifIndex < 0) || (ifIndex > i) ) {
+				addProblem ( i, "Unable to find matching If() command for EndIf(Name=\"" + name + "\").",
+					"Confirm that matching If() and EndIf() commands are specified." );
+			}
+		}
+		else if ( (command instanceof Break_Command) || (command instanceof Continue_Command) ) {
+			String commandName = (command instanceof Break_Command) ? "Break()" : "Continue()";
+			int forIndex = this.enclosingForIndex[i];
+			if ( forIndex < 0 ) {
+				addProblem ( i, "Unable to find a For() loop that contains the " + commandName + " command.",
+					"Remove the " + commandName + " command or add a For() command." );
+				continue;
+			}
+			String forName = ((For_Command)commandList.get(forIndex)).getName();
+			int endForIndex = getEndForIndex(forName);
+			if ( endForIndex < 0 ) {
+				addProblem ( i, "Unable to match for For() loop name \"" + forName + "\" in EndFor() commands for " +
+					commandName + " command.", "Add a matching EndFor() command." );
+				continue;
+			}
+			// Determine the EndIf commands for If/EndIf blocks that surround the command and end before the EndFor.
+			List<EndIf_Command> endIfList = new ArrayList<>();
+			for ( int j = i; j < endForIndex; j++ ) {
+				Command c = commandList.get(j);
+				if ( (c instanceof EndIf_Command) && !this.inCommentBlock[j] ) {
+					EndIf_Command ec = (EndIf_Command)c;
+					int ifIndex = getIfIndex(ec.getName());
+					if ( (ifIndex >= 0) && (ifIndex < i) ) {
+						endIfList.add(ec);
+					}
+				}
+			}
+			this.loopExitEndIfMap.put(Integer.valueOf(i), endIfList);
+		}
+	}
+	// Check parallel loops after the Break() and Continue() commands have been matched.
+	for ( Integer forIndex : forParallelList ) {
+		String name = ((For_Command)commandList.get(forIndex.intValue())).getName();
+		int endForIndex = getEndForIndex(name);
+		String problem = null;
+		if ( endForIndex < forIndex.intValue() ) {
+			problem = "The EndFor() command is before the For() command.";
+		}
+		else {
+			problem = ParallelForRunner.checkLoopCommands(commandList, forIndex.intValue(), endForIndex, this);
+		}
+		if ( problem != null ) {
+			this.parallelProblemMap.put(forIndex, problem);
+		}
+	}
+}
+
+/**
+Add a problem for a command.
+*/
+private void addProblem ( int commandIndex, String problem, String recommendation ) {
+	this.problemMap.put(Integer.valueOf(commandIndex), problem);
+	this.recommendationMap.put(Integer.valueOf(commandIndex), recommendation);
+}
+
+/**
+Add the control flow problems to the run status of the commands and print warnings to the log file.
+This should be called after the command status has been cleared for the run.
+@return the number of commands with problems
+*/
+int addProblemsToCommandStatus () {
+	String routine = getClass().getSimpleName() + ".addProblemsToCommandStatus";
+	for ( Map.Entry<Integer,String> entry : this.problemMap.entrySet() ) {
+		int i = entry.getKey().intValue();
+		Command command = this.commandList.get(i);
+		Message.printWarning ( 3, routine, "Command " + (i + 1) + " \"" + command + "\": " + entry.getValue() );
+		if ( command instanceof CommandStatusProvider ) {
+			((CommandStatusProvider)command).getCommandStatus().addToLog(CommandPhaseType.RUN,
+				new CommandLogRecord(CommandStatusType.FAILURE, entry.getValue(), this.recommendationMap.get(entry.getKey())));
+		}
+	}
+	for ( Map.Entry<Integer,String> entry : this.parallelProblemMap.entrySet() ) {
+		int i = entry.getKey().intValue();
+		Command command = this.commandList.get(i);
+		String message = "Loop will be run sequentially.  " + entry.getValue();
+		Message.printWarning ( 3, routine, "Command " + (i + 1) + " \"" + command + "\": " + message );
+		if ( command instanceof CommandStatusProvider ) {
+			((CommandStatusProvider)command).getCommandStatus().addToLog(CommandPhaseType.RUN,
+				new CommandLogRecord(CommandStatusType.WARNING, message,
+					"Change the commands in the loop or use Parallel=False."));
+		}
+	}
+	return this.problemMap.size();
+}
+
+/**
+Return the index (0+) of the EndFor() command for a For() loop name.
+@param forName name of the For() loop
+@return the index of the first EndFor() command with the name, or -1 if not found
+*/
+int getEndForIndex ( String forName ) {
+	return getIndex ( this.endForIndexMap, forName );
+}
+
+/**
+Return the For() command that a Break() or Continue() command applies to.
+@param commandIndex index (0+) of the Break() or Continue() command
+@return the innermost For() command that encloses the command, or null if not found
+*/
+For_Command getForCommandForLoopExit ( int commandIndex ) {
+	int forIndex = this.enclosingForIndex[commandIndex];
+	if ( forIndex < 0 ) {
+		return null;
+	}
+	return (For_Command)this.commandList.get(forIndex);
+}
+
+/**
+Return the For() command for a loop name.
+@param forName name of the For() loop
+@return the first For() command with the name, or null if not found
+*/
+For_Command getForCommand ( String forName ) {
+	int forIndex = getForIndex(forName);
+	if ( forIndex < 0 ) {
+		return null;
+	}
+	return (For_Command)this.commandList.get(forIndex);
+}
+
+/**
+Return the index (0+) of the For() command for a loop name.
+@param forName name of the For() loop
+@return the index of the first For() command with the name, or -1 if not found
+*/
+int getForIndex ( String forName ) {
+	return getIndex ( this.forIndexMap, forName );
+}
+
+/**
+Return the index (0+) of the If() command for a name.
+@param ifName name of the If() command
+@return the index of the first If() command with the name, or -1 if not found
+*/
+int getIfIndex ( String ifName ) {
+	return getIndex ( this.ifIndexMap, ifName );
+}
+
+/**
+Look up an index in a map.
+*/
+private int getIndex ( Map<String,Integer> map, String name ) {
+	if ( name == null ) {
+		return -1;
+	}
+	Integer index = map.get(name.toUpperCase());
+	if ( index == null ) {
+		return -1;
+	}
+	return index.intValue();
+}
+
+/**
+Return the EndIf() commands that need to be processed when a Break() or Continue() command jumps to the EndFor(),
+in order of innermost If/EndIf block to outermost block.
+@param commandIndex index (0+) of the Break() or Continue() command
+@return the list of EndIf() commands, guaranteed to be non-null
+*/
+List<EndIf_Command> getLoopExitEndIfCommands ( int commandIndex ) {
+	List<EndIf_Command> endIfList = this.loopExitEndIfMap.get(Integer.valueOf(commandIndex));
+	if ( endIfList == null ) {
+		return new ArrayList<>();
+	}
+	return endIfList;
+}
+
+/**
+Indicate whether a command has a control flow problem that was detected when the index was built.
+@param commandIndex index (0+) of the command
+@return true if the command has a problem
+*/
+boolean hasProblem ( int commandIndex ) {
+	return this.problemMap.containsKey(Integer.valueOf(commandIndex));
+}
+
+/**
+Indicate whether a For(Parallel=True) command can be run in parallel.
+@param commandIndex index (0+) of the For() command
+@return true if the command is a For(Parallel=True) command that can be run in parallel
+*/
+boolean isParallelFor ( int commandIndex ) {
+	Command command = this.commandList.get(commandIndex);
+	if ( !(command instanceof For_Command) || !((For_Command)command).isParallel() ) {
+		return false;
+	}
+	if ( hasProblem(commandIndex) || this.parallelProblemMap.containsKey(Integer.valueOf(commandIndex)) ) {
+		return false;
+	}
+	// Only the first For() command with a name is matched.
+	return getForIndex(((For_Command)command).getName()) == commandIndex;
+}
+
+/**
+Save the first index for a name, consistent with searching the list from the start.
+*/
+private void putFirst ( Map<String,Integer> map, String name, int index ) {
+	if ( name == null ) {
+		return;
+	}
+	String key = name.toUpperCase();
+	if ( !map.containsKey(key) ) {
+		map.put(key, Integer.valueOf(index));
+	}
+}
+
+}
@@ -0,0 +1,318 @@
+// DiscoveryIndex - incremental index of discovery data for commands, used when running discovery on many commands
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import RTi.TS.TS;
+import RTi.TS.TSEnsemble;
+import RTi.Util.IO.Command;
+import RTi.Util.IO.Prop;
+
+/**
+Incremental index of discovery data (time series, ensembles, properties, and table identifiers)
+for the commands in a TSCommandProcessor.
+The index is used when the processor runs discovery on commands in sequence, such as when loading a command file,
+where each command requests the discovery data from the commands before it.
+Rather than processing all of the previous commands for each request, which is quadratic in the number of commands,
+the index keeps the discovery data accumulated up to a command position and only processes the commands added since the last request.
+Command positions are also indexed so that the position of a command is found without searching the command list.
+<p>
+The index is only valid while the processor controls changes to the commands.
+The processor must call commandAdded() for appended commands, commandInserted() and commandRemoved() when the list changes,
+and commandChanged() when a command's discovery data change.
+The data for a command are only included after the command's discovery has run,
+which is the case for all commands before the last added command.
+Requests that cannot be answered from the index return null and the caller should process the commands directly.
+<p>
+Lists are returned as read-only views of the accumulated data, which are only valid until the next request.
+*/
+class DiscoveryIndex
+{
+
+/**
+Processor that manages the commands.
+*/
+private TSCommandProcessor processor;
+
+/**
+Whether the index can be used.
+This is set to false when a command is inserted, because the inserted command's discovery may not have run.
+*/
+private boolean valid = true;
+
+/**
+Command positions, using command identity.
+*/
+private Map<Command,Integer> positionMap = new IdentityHashMap<>();
+
+/**
+Position of the last added command, which is not included in the accumulated data because its discovery may not have run.
+*/
+private int lastAddedPosition = -1;
+
+/**
+Number of commands (from the start of the command list) that have been processed into the accumulated data.
+*/
+private int processedCount = 0;
+
+/**
+Time series from discovery for the processed commands, with Free() commands applied.
+*/
+private List<TS> tsList = new ArrayList<>();
+
+/**
+Ensembles from discovery for the processed commands.
+*/
+private List<TSEnsemble> ensembleList = new ArrayList<>();
+
+/**
+Properties from discovery for the processed commands, in command order.
+*/
+private List<Prop> propList = new ArrayList<>();
+
+/**
+Properties from discovery for the processed commands, sorted.
+Properties are inserted in sorted position as they are added so that the list does not need to be sorted for each request.
+*/
+private List<Prop> sortedPropList = new ArrayList<>();
+
+/**
+Table identifiers from discovery for the processed commands, with FreeTable() commands applied.
+*/
+private List<String> tableIDList = new ArrayList<>();
+
+/**
+Whether the processed commands end in a comment block, used when determining table identifiers.
+*/
+private boolean tableInComment = false;
+
+/**
+Create a discovery index.
+Commands that are already in the processor are indexed and are assumed to have had discovery run.
+@param processor the processor that manages the commands
+*/
+DiscoveryIndex ( TSCommandProcessor processor ) {
+	this.processor = processor;
+	indexPositions();
+	this.lastAddedPosition = this.processor.size() - 1;
+}
+
+/**
+Process the commands up to a position into the accumulated data.
+@param pos position (0+) of the command before which data are needed
+@return true if the data are available, false if the request cannot be answered from the index
+*/
+private boolean advanceTo ( int pos ) {
+	if ( !this.valid || (pos < this.processedCount) || (pos > this.lastAddedPosition) || (pos > this.processor.size()) ) {
+		// Index is not usable, earlier position, or the command's discovery may not have run.
+		return false;
+	}
+	if ( this.processedCount < pos ) {
+		// Process the commands since the last request.
+		List<Command> commands = this.processor.getCommands().subList ( this.processedCount, pos );
+		TSCommandProcessorUtil.addDiscoveryTSFromCommands ( this.tsList, commands );
+		TSCommandProcessorUtil.addDiscoveryEnsembleFromCommands ( this.ensembleList, commands );
+		int propCount = this.propList.size();
+		TSCommandProcessorUtil.addDiscoveryPropFromCommands ( this.propList, commands );
+		for ( int i = propCount; i < this.propList.size(); i++ ) {
+			insertSortedProp ( this.propList.get(i) );
+		}
+		this.tableInComment = TSCommandProcessorUtil.addTableIdentifiersFromCommands (
+			this.tableIDList, commands, this.tableInComment );
+		this.processedCount = pos;
+	}
+	return true;
+}
+
+/**
+Indicate that a command was added at the end of the command list.
+@param command the command that was added
+@param pos the position (0+) of the command
+*/
+void commandAdded ( Command command, int pos ) {
+	if ( !this.valid ) {
+		return;
+	}
+	this.positionMap.put ( command, Integer.valueOf(pos) );
+	this.lastAddedPosition = pos;
+}
+
+/**
+Indicate that a command's discovery data have changed, for example because discovery was run again.
+The accumulated data are discarded if they include the command.
+@param command the command that changed
+*/
+void commandChanged ( Command command ) {
+	int pos = indexOf ( command );
+	if ( (pos < 0) || (pos < this.processedCount) ) {
+		resetData();
+	}
+}
+
+/**
+Indicate that a command was inserted into the command list (not at the end).
+The index is invalidated because the inserted command's discovery may not have run and positions after it have changed.
+@param pos the position (0+) of the inserted command
+*/
+void commandInserted ( int pos ) {
+	this.valid = false;
+	this.positionMap.clear();
+	resetData();
+}
+
+/**
+Indicate that commands were removed from the command list.
+The accumulated data are discarded and positions are indexed again.
+@param index0 the position (0+) of the first removed command
+@param index1 the position (0+) of the last removed command
+*/
+void commandRemoved ( int index0, int index1 ) {
+	resetData();
+	if ( !this.valid ) {
+		return;
+	}
+	indexPositions();
+	if ( index1 < this.lastAddedPosition ) {
+		this.lastAddedPosition -= (index1 - index0 + 1);
+	}
+	else if ( index0 <= this.lastAddedPosition ) {
+		// The last added command was removed.
+		this.lastAddedPosition = index0 - 1;
+	}
+}
+
+/**
+Return the ensembles from discovery for commands before a position.
+@param pos position (0+) of the command before which ensembles are needed
+@return a read-only list of ensembles, or null if the request cannot be answered from the index
+*/
+List<TSEnsemble> getDiscoveryEnsemble ( int pos ) {
+	if ( !advanceTo(pos) ) {
+		return null;
+	}
+	return Collections.unmodifiableList(this.ensembleList);
+}
+
+/**
+Return the properties from discovery for commands before a position.
+@param pos position (0+) of the command before which properties are needed
+@param sort whether to sort the properties
+@return a read-only list of properties, or null if the request cannot be answered from the index
+*/
+List<Prop> getDiscoveryProp ( int pos, boolean sort ) {
+	if ( !advanceTo(pos) ) {
+		return null;
+	}
+	if ( sort ) {
+		return Collections.unmodifiableList(this.sortedPropList);
+	}
+	return Collections.unmodifiableList(this.propList);
+}
+
+/**
+Return the time series from discovery for commands before a position.
+@param pos position (0+) of the command before which time series are needed
+@return a read-only list of time series, or null if the request cannot be answered from the index
+*/
+List<TS> getDiscoveryTS ( int pos ) {
+	if ( !advanceTo(pos) ) {
+		return null;
+	}
+	return Collections.unmodifiableList(this.tsList);
+}
+
+/**
+Return the table identifiers from discovery for commands before a position.
+@param pos position (0+) of the command before which table identifiers are needed
+@return a read-only list of table identifiers, or null if the request cannot be answered from the index
+*/
+List<String> getTableIdentifiers ( int pos ) {
+	if ( !advanceTo(pos) ) {
+		return null;
+	}
+	return Collections.unmodifiableList(this.tableIDList);
+}
+
+/**
+Index the positions of the commands in the processor.
+*/
+private void indexPositions () {
+	this.positionMap.clear();
+	for ( int i = 0; i < this.processor.size(); i++ ) {
+		this.positionMap.put ( this.processor.get(i), Integer.valueOf(i) );
+	}
+}
+
+/**
+Return the position of a command.
+@param command command to find
+@return the position (0+) of the command, or -1 if not indexed
+*/
+int indexOf ( Command command ) {
+	Integer pos = this.positionMap.get ( command );
+	if ( (pos != null) && (pos < this.processor.size()) && (this.processor.get(pos) == command) ) {
+		return pos;
+	}
+	return -1;
+}
+
+/**
+Insert a property into the sorted property list, after properties that compare equal,
+which gives the same order as sorting the full list.
+@param prop property to insert
+*/
+private void insertSortedProp ( Prop prop ) {
+	int low = 0;
+	int high = this.sortedPropList.size();
+	while ( low < high ) {
+		int mid = (low + high) >>> 1;
+		if ( this.sortedPropList.get(mid).compareTo(prop) <= 0 ) {
+			low = mid + 1;
+		}
+		else {
+			high = mid;
+		}
+	}
+	this.sortedPropList.add ( low, prop );
+}
+
+/**
+Discard the accumulated data so that commands are processed again from the start of the list.
+*/
+private void resetData () {
+	this.processedCount = 0;
+	this.tsList.clear();
+	this.ensembleList.clear();
+	this.propList.clear();
+	this.sortedPropList.clear();
+	this.tableIDList.clear();
+	this.tableInComment = false;
+}
+
+}
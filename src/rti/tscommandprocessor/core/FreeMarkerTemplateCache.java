@@ -0,0 +1,164 @@
+// FreeMarkerTemplateCache - shared FreeMarker configuration and cache of parsed templates
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import RTi.Util.Message.Message;
+import freemarker.cache.FileTemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.Version;
+
+/**
+FreeMarker configurations and a cache of parsed templates, used so that expanding the same template many times,
+for example in a loop that creates a report for each location, only parses the template once.
+A TSCommandProcessor has one instance, which is returned by TSCommandProcessorUtil.getFreeMarkerTemplateCache().
+<p>
+One configuration is created for each FreeMarker version that is requested,
+because the version controls FreeMarker behavior and different commands were implemented with different versions.
+Templates are cached using a key that must identify the template text, for example the template file path
+and modification time, or the template text itself for templates that are provided as command parameters.
+FreeMarker configurations and templates can be used by multiple threads once created.
+*/
+public class FreeMarkerTemplateCache
+{
+
+/**
+Maximum number of templates to cache.
+*/
+private static final int MAX_TEMPLATES = 100;
+
+/**
+FreeMarker configuration for each FreeMarker version.
+*/
+private Map<Version,Configuration> configurationMap = new HashMap<>();
+
+/**
+Templates, by version and template key, with least recently used templates removed when the cache is full.
+*/
+private Map<String,Template> templateMap = new LinkedHashMap<String,Template>(16, 0.75f, true) {
+	private static final long serialVersionUID = 1L;
+	@Override
+	protected boolean removeEldestEntry ( Map.Entry<String,Template> eldest ) {
+		return size() > MAX_TEMPLATES;
+	}
+};
+
+/**
+Create a cache.
+*/
+public FreeMarkerTemplateCache () {
+}
+
+/**
+Remove all templates from the cache.
+*/
+public void clear () {
+	synchronized ( this.templateMap ) {
+		this.templateMap.clear();
+	}
+}
+
+/**
+Create a key for a template file, using the path, modification time, and size of the file
+so that a changed file is parsed again.
+@param prefix text that is added to the template when parsed, to distinguish from other uses of the same file
+@param file template file
+@return the key for the template file
+*/
+public static String createFileTemplateKey ( String prefix, File file ) {
+	return prefix + "\nfile:" + file.getAbsolutePath() + ";" + file.lastModified() + ";" + file.length();
+}
+
+/**
+Create a key for template text, for example if the template is provided as a command parameter.
+@param prefix text that is added to the template when parsed, to distinguish from other uses of the same text
+@param text template text
+@return the key for the template text
+*/
+public static String createTextTemplateKey ( String prefix, String text ) {
+	return prefix + "\ntext:" + text;
+}
+
+/**
+Return the FreeMarker configuration for a version, creating it if necessary.
+The configuration includes the 'normalizeNewlines' shared variable and loads templates from the current folder,
+consistent with configurations that were previously created by each command.
+@param version FreeMarker version, which controls FreeMarker behavior
+@return the configuration for the version
+@exception IOException if the template loader cannot be created
+*/
+public Configuration getConfiguration ( Version version )
+throws IOException {
+	synchronized ( this.configurationMap ) {
+		Configuration config = this.configurationMap.get(version);
+		if ( config == null ) {
+			config = new Configuration(version);
+		    // See ExpandTemplateFile() for why this is used.
+		    config.setSharedVariable("normalizeNewlines", new freemarker.template.utility.NormalizeNewlines());
+		    config.setTemplateLoader(new FileTemplateLoader(new File(".")));
+		    this.configurationMap.put(version, config);
+		}
+		return config;
+	}
+}
+
+/**
+Return a parsed template, parsing and caching the template if not already in the cache.
+@param version FreeMarker version, which controls FreeMarker behavior
+@param key key that identifies the template text, from createFileTemplateKey() or createTextTemplateKey()
+@param templateTextReader called to read the full template text if the template is not in the cache
+@return the parsed template
+@exception Exception if the template text cannot be read or parsed
+*/
+public Template getTemplate ( Version version, String key, Callable<String> templateTextReader )
+throws Exception {
+	String routine = getClass().getSimpleName() + ".getTemplate";
+	String versionKey = version + "\n" + key;
+	synchronized ( this.templateMap ) {
+		Template template = this.templateMap.get(versionKey);
+		if ( template != null ) {
+			return template;
+		}
+	}
+	// Parse outside of the lock so that other threads are not blocked, which may parse the same template twice.
+	Configuration config = getConfiguration ( version );
+	Template template = new Template("template", new StringReader(templateTextReader.call()), config);
+	synchronized ( this.templateMap ) {
+		this.templateMap.put(versionKey, template);
+	}
+	if ( Message.isDebugOn ) {
+		Message.printDebug(1, routine, "Parsed and cached template for key \"" + key + "\"." );
+	}
+	return template;
+}
+
+}
@@ -0,0 +1,683 @@
+// ParallelForRunner - run the iterations of a For() loop in parallel, for For(Parallel=True)
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import RTi.TS.TS;
+import RTi.Util.IO.Command;
+import RTi.Util.IO.CommandLogRecord;
+import RTi.Util.IO.CommandPhaseType;
+import RTi.Util.IO.CommandStatusProvider;
+import RTi.Util.IO.CommandStatusType;
+import RTi.Util.IO.PropList;
+import RTi.Util.Message.Message;
+import RTi.Util.Table.DataTable;
+import RTi.Util.Time.DateTime;
+import rti.tscommandprocessor.commands.datastream.WriteTimeSeriesToDataStream_Command;
+import rti.tscommandprocessor.commands.datevalue.ReadDateValue_Command;
+import rti.tscommandprocessor.commands.datevalue.WriteDateValue_Command;
+import rti.tscommandprocessor.commands.delimited.ReadDelimitedFile_Command;
+import rti.tscommandprocessor.commands.json.WriteTimeSeriesToJson_Command;
+import rti.tscommandprocessor.commands.logging.Message_Command;
+import rti.tscommandprocessor.commands.table.CopyTable_Command;
+import rti.tscommandprocessor.commands.table.NewTable_Command;
+import rti.tscommandprocessor.commands.table.ReadTableFromDelimitedFile_Command;
+import rti.tscommandprocessor.commands.table.SetPropertyFromTable_Command;
+import rti.tscommandprocessor.commands.table.WriteTableToDelimitedFile_Command;
+import rti.tscommandprocessor.commands.ts.Copy_Command;
+import rti.tscommandprocessor.commands.ts.NewTimeSeries_Command;
+import rti.tscommandprocessor.commands.ts.WriteTimeSeriesProperty_Command;
+import rti.tscommandprocessor.commands.util.Break_Command;
+import rti.tscommandprocessor.commands.util.CommentBlockEnd_Command;
+import rti.tscommandprocessor.commands.util.CommentBlockStart_Command;
+import rti.tscommandprocessor.commands.util.Comment_Command;
+import rti.tscommandprocessor.commands.util.Continue_Command;
+import rti.tscommandprocessor.commands.util.CopyFile_Command;
+import rti.tscommandprocessor.commands.util.CreateFolder_Command;
+import rti.tscommandprocessor.commands.util.Empty_Command;
+import rti.tscommandprocessor.commands.util.EndFor_Command;
+import rti.tscommandprocessor.commands.util.EndIf_Command;
+import rti.tscommandprocessor.commands.util.For_Command;
+import rti.tscommandprocessor.commands.util.FormatDateTimeProperty_Command;
+import rti.tscommandprocessor.commands.util.FormatStringProperty_Command;
+import rti.tscommandprocessor.commands.util.If_Command;
+import rti.tscommandprocessor.commands.util.RunProgram_Command;
+import rti.tscommandprocessor.commands.util.SetPropertyFromTimeSeries_Command;
+import rti.tscommandprocessor.commands.util.SetProperty_Command;
+import rti.tscommandprocessor.commands.util.WebGet_Command;
+import rti.tscommandprocessor.commands.util.WritePropertiesToFile_Command;
+import rti.tscommandprocessor.commands.util.WriteProperty_Command;
+
+/**
+Run the iterations of a For(Parallel=True) loop in parallel.
+The main processor calls For_Command.next() and runCommand() for each iteration, as for a sequential loop,
+so that the iterator properties are set, and then the commands in the loop are run in a separate
+TSCommandProcessor for the iteration, using up to MaxThreads threads.
+Each iteration processor is initialized with a copy of the main processor state at the start of the loop
+(time series, tables, and other results lists, datastores, input and output period, working directory)
+and the user-defined properties as set by the For() command for the iteration.
+<p>
+When all iterations have completed, the results of each iteration are merged into the main processor
+in iteration order, so that the results are the same as if the loop had been run sequentially
+for loops where iterations are independent:
+<ul>
+<li> New time series are appended to the results and replaced time series are set in the results.</li>
+<li> New and replaced tables are set in the results, replacing tables with the same identifier.</li>
+<li> New and changed user-defined properties are set in the main processor.</li>
+<li> Command log messages are added to the corresponding commands in the main processor.</li>
+<li> Output files are added to the main processor output file list.</li>
+</ul>
+The following rules apply to parallel loops:
+<ul>
+<li> Iterations cannot use the results of previous iterations (each iteration sees the state at the start of the loop).</li>
+<li> Time series and tables that existed before the loop are shared by the iterations and are not copied,
+     so only commands in PARALLEL_COMMAND_CLASSES can be used in the loop.
+     These commands read existing data and create new time series, tables, properties, and files,
+     and do not modify existing time series or tables in place or use shared resources that are not thread-safe,
+     such as datastore database connections, the Excel workbook cache, and logging levels.</li>
+<li> Changes to other processor state, such as the output period and working directory,
+     and new ensembles, networks, and objects, are not merged into the main processor.</li>
+<li> Break() and Continue() for the loop and If() blocks that cross the loop boundary cannot be used in the loop.</li>
+</ul>
+See checkLoopCommands(), which is used to run loops that do not meet these rules sequentially with a warning.
+*/
+class ParallelForRunner
+{
+
+/**
+Built-in processor properties that are copied from the main processor to each iteration processor.
+*/
+private static final String [] COPIED_PROPERTY_NAMES = {
+	"AutoExtendPeriod",
+	"AverageEnd",
+	"AverageStart",
+	"IgnoreLEZero",
+	"IncludeMissingTS",
+	"InputEnd",
+	"InputStart",
+	"OutputEnd",
+	"OutputStart",
+	"OutputYearType"
+};
+
+/**
+Commands that can be run in a parallel loop (an allow-list).
+Commands that are not in the list, including plugin commands, cause the loop to be run sequentially.
+Commands that modify time series or tables in place (e.g., Scale(), FillMissing(), SetTableValues()) are not included
+because time series and tables that existed before the loop are shared by the iterations.
+Commands that use datastores, Excel workbooks, or logging levels are not included
+because the resources are shared by all processors and are not thread-safe.
+*/
+private static final Set<Class<?>> PARALLEL_COMMAND_CLASSES = new HashSet<>(Arrays.asList(
+	// Comments and control flow within the iteration.
+	Comment_Command.class,
+	CommentBlockEnd_Command.class,
+	CommentBlockStart_Command.class,
+	Empty_Command.class,
+	Break_Command.class,
+	Continue_Command.class,
+	EndFor_Command.class,
+	EndIf_Command.class,
+	For_Command.class,
+	If_Command.class,
+	Message_Command.class,
+	// Properties, which are set in the iteration processor.
+	FormatDateTimeProperty_Command.class,
+	FormatStringProperty_Command.class,
+	SetProperty_Command.class,
+	SetPropertyFromTable_Command.class,
+	SetPropertyFromTimeSeries_Command.class,
+	// Commands that create new time series and tables.
+	Copy_Command.class,
+	CopyTable_Command.class,
+	NewTable_Command.class,
+	NewTimeSeries_Command.class,
+	ReadDateValue_Command.class,
+	ReadDelimitedFile_Command.class,
+	ReadTableFromDelimitedFile_Command.class,
+	// Commands that write files.
+	WriteDateValue_Command.class,
+	WritePropertiesToFile_Command.class,
+	WriteProperty_Command.class,
+	WriteTableToDelimitedFile_Command.class,
+	WriteTimeSeriesProperty_Command.class,
+	WriteTimeSeriesToDataStream_Command.class,
+	WriteTimeSeriesToJson_Command.class,
+	// File and program commands.
+	CopyFile_Command.class,
+	CreateFolder_Command.class,
+	RunProgram_Command.class,
+	WebGet_Command.class
+));
+
+/**
+Main processor.
+*/
+private TSCommandProcessor processor = null;
+
+/**
+Main processor engine, used to merge time series.
+*/
+private TSEngine engine = null;
+
+/**
+Command list that is being run.
+*/
+private List<Command> commandList = null;
+
+/**
+Index (0+) of the For() command.
+*/
+private int forIndex = -1;
+
+/**
+Index (0+) of the EndFor() command.
+*/
+private int endForIndex = -1;
+
+/**
+Properties used to run the main processor, used for CreateOutput.
+*/
+private PropList appPropList = null;
+
+/**
+Iteration processors that are running, used to cancel processing.
+*/
+private List<TSCommandProcessor> runningProcessors = Collections.synchronizedList(new ArrayList<>());
+
+/**
+Create a runner for a parallel loop.
+@param processor the main processor
+@param engine the main processor engine
+@param commandList the command list being run
+@param forIndex index (0+) of the For() command
+@param endForIndex index (0+) of the matching EndFor() command
+@param appPropList properties used to run the main processor
+*/
+ParallelForRunner ( TSCommandProcessor processor, TSEngine engine, List<Command> commandList,
+	int forIndex, int endForIndex, PropList appPropList ) {
+	this.processor = processor;
+	this.engine = engine;
+	this.commandList = commandList;
+	this.forIndex = forIndex;
+	this.endForIndex = endForIndex;
+	this.appPropList = appPropList;
+}
+
+/**
+Cancel the iteration processors that are running.
+*/
+private void cancelIterations () {
+	synchronized ( this.runningProcessors ) {
+		for ( TSCommandProcessor iterationProcessor : this.runningProcessors ) {
+			iterationProcessor.setCancelProcessingRequested ( true );
+		}
+	}
+}
+
+/**
+Check whether the commands in a loop can be run in parallel.
+@param commandList the command list
+@param forIndex index (0+) of the For() command
+@param endForIndex index (0+) of the matching EndFor() command
+@param controlFlowIndex control flow index for the command list, used to match Break(), Continue(), and If()
+@return a message describing why the loop cannot be run in parallel, or null if the loop can be run in parallel
+*/
+static String checkLoopCommands ( List<Command> commandList, int forIndex, int endForIndex, ControlFlowIndex controlFlowIndex ) {
+	For_Command forCommand = (For_Command)commandList.get(forIndex);
+	for ( int i = forIndex + 1; i < endForIndex; i++ ) {
+		Command command = commandList.get(i);
+		if ( (command instanceof Break_Command) || (command instanceof Continue_Command) ) {
+			if ( controlFlowIndex.getForCommandForLoopExit(i) == forCommand ) {
+				return "Command " + (i + 1) + " \"" + command + "\" controls the loop.";
+			}
+		}
+		else if ( !PARALLEL_COMMAND_CLASSES.contains(command.getClass()) ) {
+			return "Command " + (i + 1) + " \"" + command + "\" cannot be run in a parallel loop " +
+				"because it may modify data that are shared by iterations or use resources that are not thread-safe.";
+		}
+		else if ( command instanceof If_Command ) {
+			String name = ((If_Command)command).getName();
+			boolean found = false;
+			for ( int j = i + 1; j < endForIndex; j++ ) {
+				Command c = commandList.get(j);
+				if ( (c instanceof EndIf_Command) && (name != null) && name.equalsIgnoreCase(((EndIf_Command)c).getName()) ) {
+					found = true;
+					break;
+				}
+			}
+			if ( !found ) {
+				return "Command " + (i + 1) + " \"" + command + "\" does not have a matching EndIf() in the loop.";
+			}
+		}
+		else if ( command instanceof EndIf_Command ) {
+			int ifIndex = controlFlowIndex.getIfIndex(((EndIf_Command)command).getName());
+			if ( (ifIndex >= 0) && (ifIndex <= forIndex) ) {
+				return "Command " + (i + 1) + " \"" + command + "\" matches an If() command outside of the loop.";
+			}
+		}
+	}
+	return null;
+}
+
+/**
+Create and initialize the processor for an iteration.
+@param state main processor state at the start of the loop
+@param userProperties user-defined properties for the iteration
+@param commandStrings commands to run in the iteration
+@return the initialized processor
+*/
+@SuppressWarnings("unchecked")
+private TSCommandProcessor createIterationProcessor ( LoopState state, Map<String,Object> userProperties,
+	List<String> commandStrings )
+throws Exception {
+	TSCommandProcessor iterationProcessor = new TSCommandProcessor ( this.processor.getInitialPropList() );
+	iterationProcessor.setPluginCommandClasses ( this.processor.getPluginCommandClasses(), false );
+	// Share datastores with the main processor, similar to RunCommands(ShareDataStores=Share).
+	iterationProcessor.setDataStores ( this.processor.getDataStores(), false );
+	iterationProcessor.setDatastoreSubstituteList ( this.processor.getDataStoreSubstituteList() );
+	iterationProcessor.setPropContents ( "HydroBaseDMIList", this.processor.getPropContents("HydroBaseDMIList") );
+	iterationProcessor.setPropContents ( "StartLogEnabled", Boolean.FALSE );
+	// Run in the current working directory of the main processor:
+	// - the working directory is not reset to the initial working directory when running with ParallelForIteration=True
+	iterationProcessor.setInitialWorkingDir ( state.initialWorkingDir );
+	iterationProcessor.setPropContents ( "WorkingDir", state.workingDir );
+	for ( Map.Entry<String,Object> entry : state.copiedProperties.entrySet() ) {
+		Object value = entry.getValue();
+		if ( value instanceof DateTime ) {
+			// Copy because commands may modify the date/time.
+			value = new DateTime((DateTime)value);
+		}
+		iterationProcessor.setPropContents ( entry.getKey(), value );
+	}
+	for ( Map.Entry<String,Object> entry : userProperties.entrySet() ) {
+		iterationProcessor.setProperty ( entry.getKey(), entry.getValue() );
+	}
+	// Initialize the results lists with the main processor results, shallow copy.
+	iterationProcessor.setPropContents ( "TSResultsList", new Vector<>(state.tsList) );
+	iterationProcessor.__TableList.addAll ( state.tableList );
+	((List<Object>)iterationProcessor.getPropContents("EnsembleResultsList")).addAll (
+		(List<Object>)this.processor.getPropContents("EnsembleResultsList") );
+	iterationProcessor.__NodeNetworkList.addAll ( this.processor.__NodeNetworkList );
+	iterationProcessor.__jsonObjectList.addAll ( this.processor.__jsonObjectList );
+	iterationProcessor.addCommandsFromStringList ( commandStrings, true, false, false, null );
+	return iterationProcessor;
+}
+
+/**
+Merge the results of an iteration into the main processor.
+@param result the iteration results
+@param outputFileList output file list for the main processor run, to which iteration output files are added
+*/
+private void mergeIteration ( IterationResult result, List<File> outputFileList )
+throws Exception {
+	String routine = getClass().getSimpleName() + ".mergeIteration";
+	For_Command forCommand = (For_Command)this.commandList.get(this.forIndex);
+	// Time series that were replaced, and then new time series.
+	for ( Map.Entry<Integer,TS> entry : result.replacedTSMap.entrySet() ) {
+		this.engine.setTimeSeries ( entry.getValue(), entry.getKey().intValue() );
+	}
+	for ( TS ts : result.newTSList ) {
+		this.engine.appendTimeSeries ( ts );
+	}
+	// Tables, which replace tables with the same identifier.
+	for ( DataTable table : result.tableList ) {
+		PropList requestParams = new PropList ( "" );
+		requestParams.setUsingObject ( "Table", table );
+		this.processor.processRequest( "SetTable", requestParams);
+	}
+	// User-defined properties.
+	for ( Map.Entry<String,Object> entry : result.propertyMap.entrySet() ) {
+		this.processor.setProperty ( entry.getKey(), entry.getValue() );
+	}
+	// Command log messages, added to the corresponding commands in the main processor.
+	for ( int i = 0; i < result.commandLogList.size(); i++ ) {
+		Command command = null;
+		if ( result.commandLogList.size() == (this.endForIndex - this.forIndex - 1) ) {
+			command = this.commandList.get(this.forIndex + 1 + i);
+		}
+		else {
+			// Should not happen but add to the For() command if the commands can't be matched.
+			command = forCommand;
+		}
+		if ( command instanceof CommandStatusProvider ) {
+			for ( CommandLogRecord logRecord : result.commandLogList.get(i) ) {
+				((CommandStatusProvider)command).getCommandStatus().addToLog(CommandPhaseType.RUN, logRecord);
+			}
+		}
+	}
+	outputFileList.addAll ( result.outputFileList );
+	if ( result.exception != null ) {
+		String message = "Error running parallel iteration " + result.iteration + " (" + result.exception + ").";
+		Message.printWarning ( 3, routine, message );
+		Message.printWarning ( 3, routine, result.exception );
+		forCommand.getCommandStatus().addToLog(CommandPhaseType.RUN,
+			new CommandLogRecord(CommandStatusType.FAILURE, message, "Check the log file for details."));
+	}
+}
+
+/**
+Run the loop.  All iterations are run and the results are merged before returning.
+@param outputFileList output file list for the main processor run, to which iteration output files are added
+@return the number of iterations that were run
+@exception Exception if an error occurs determining the next iteration
+*/
+int run ( List<File> outputFileList )
+throws Exception {
+	String routine = getClass().getSimpleName() + ".run";
+	For_Command forCommand = (For_Command)this.commandList.get(this.forIndex);
+	int maxThreads = forCommand.getMaxThreads();
+	// Commands in the loop, which are created again for each iteration so that each iteration has its own command state.
+	List<String> commandStrings = new ArrayList<>();
+	for ( int i = this.forIndex + 1; i < this.endForIndex; i++ ) {
+		commandStrings.add ( this.commandList.get(i).toString() );
+	}
+	LoopState state = new LoopState();
+	Message.printStatus ( 2, routine, "Running For(Name=\"" + forCommand.getName() + "\") iterations in parallel using up to " +
+		maxThreads + " threads." );
+	ExecutorService executor = Executors.newFixedThreadPool ( maxThreads );
+	List<Future<IterationResult>> futureList = new ArrayList<>();
+	try {
+		while ( forCommand.next() ) {
+			if ( this.processor.getCancelProcessingRequested() ) {
+				break;
+			}
+			// Run the For() command in the main processor to set the iterator properties for the iteration.
+			forCommand.runCommand ( this.forIndex + 1 );
+			final int iteration = futureList.size() + 1;
+			final Map<String,Object> userProperties = getUserProperties(this.processor);
+			futureList.add ( executor.submit(() -> runIteration(iteration, state, userProperties, commandStrings)) );
+		}
+		forCommand.resetCommand();
+		executor.shutdown();
+		// Merge the results in iteration order.
+		for ( Future<IterationResult> future : futureList ) {
+			IterationResult result = waitForIteration ( future );
+			if ( result == null ) {
+				// Processing was canceled.
+				break;
+			}
+			mergeIteration ( result, outputFileList );
+		}
+	}
+	finally {
+		if ( !executor.isTerminated() ) {
+			cancelIterations();
+			executor.shutdownNow();
+		}
+	}
+	return futureList.size();
+}
+
+/**
+Run an iteration, called in a thread.
+@param iteration iteration number (1+)
+@param state main processor state at the start of the loop
+@param userProperties user-defined properties for the iteration
+@param commandStrings commands to run in the iteration
+@return the iteration results
+*/
+private IterationResult runIteration ( int iteration, LoopState state, Map<String,Object> userProperties,
+	List<String> commandStrings ) {
+	IterationResult result = new IterationResult ( iteration );
+	TSCommandProcessor iterationProcessor = null;
+	try {
+		iterationProcessor = createIterationProcessor ( state, userProperties, commandStrings );
+		this.runningProcessors.add ( iterationProcessor );
+		PropList runProps = new PropList ( "ParallelFor" );
+		runProps.set ( "ResetWorkflowProperties", "False" );
+		runProps.set ( "AppendResults", "True" );
+		runProps.set ( "ParallelForIteration", "True" );
+		String CreateOutput = this.appPropList.getValue ( "CreateOutput" );
+		if ( CreateOutput != null ) {
+			runProps.set ( "CreateOutput", CreateOutput );
+		}
+		iterationProcessor.runCommands ( null, runProps );
+	}
+	catch ( Exception e ) {
+		// Save the exception but also save the results that are available.
+		result.exception = e;
+	}
+	finally {
+		if ( iterationProcessor != null ) {
+			this.runningProcessors.remove ( iterationProcessor );
+			saveIterationResults ( iterationProcessor, state, userProperties, result );
+		}
+	}
+	return result;
+}
+
+/**
+Save the results of an iteration so that the iteration processor can be released.
+@param iterationProcessor processor used for the iteration
+@param state main processor state at the start of the loop
+@param userProperties user-defined properties that were set at the start of the iteration
+@param result the iteration results to fill in
+*/
+@SuppressWarnings("unchecked")
+private void saveIterationResults ( TSCommandProcessor iterationProcessor, LoopState state,
+	Map<String,Object> userProperties, IterationResult result ) {
+	try {
+		List<TS> tsList = (List<TS>)iterationProcessor.getPropContents("TSResultsList");
+		int size = tsList.size();
+		for ( int i = 0; i < size; i++ ) {
+			TS ts = tsList.get(i);
+			if ( i >= state.tsList.size() ) {
+				result.newTSList.add ( ts );
+			}
+			else if ( ts != state.tsList.get(i) ) {
+				result.replacedTSMap.put ( Integer.valueOf(i), ts );
+			}
+		}
+		for ( DataTable table : iterationProcessor.__TableList ) {
+			if ( !state.tableSet.containsKey(table) ) {
+				result.tableList.add ( table );
+			}
+		}
+		Map<String,Object> iterationProperties = getUserProperties ( iterationProcessor );
+		for ( Map.Entry<String,Object> entry : iterationProperties.entrySet() ) {
+			String key = entry.getKey();
+			if ( !userProperties.containsKey(key) || (userProperties.get(key) != entry.getValue()) ) {
+				result.propertyMap.put ( key, entry.getValue() );
+			}
+		}
+		for ( Command command : iterationProcessor.getCommands() ) {
+			List<CommandLogRecord> logList = new ArrayList<>();
+			if ( command instanceof CommandStatusProvider ) {
+				logList.addAll ( ((CommandStatusProvider)command).getCommandStatus().getCommandLog(CommandPhaseType.RUN) );
+			}
+			result.commandLogList.add ( logList );
+		}
+		List<File> outputFileList = (List<File>)iterationProcessor.getPropContents("OutputFileList");
+		if ( outputFileList != null ) {
+			result.outputFileList.addAll ( outputFileList );
+		}
+	}
+	catch ( Exception e ) {
+		if ( result.exception == null ) {
+			result.exception = e;
+		}
+	}
+}
+
+/**
+Return the user-defined properties from a processor.
+@param processor processor to get properties from
+@return a copy of the user-defined properties
+*/
+@SuppressWarnings("unchecked")
+private static Map<String,Object> getUserProperties ( TSCommandProcessor processor )
+throws Exception {
+	PropList requestParams = new PropList ( "" );
+	requestParams.setUsingObject ( "GetUserProperties", "True" );
+	Map<String,Object> ph = (Map<String,Object>)processor.processRequest("GetPropertyHashtable", requestParams)
+		.getResultsPropList().getContents("PropertyHashtable");
+	return new HashMap<>(ph);
+}
+
+/**
+Wait for an iteration to complete, checking whether processing has been canceled.
+@param future the iteration future
+@return the iteration results, or null if processing was canceled
+*/
+private IterationResult waitForIteration ( Future<IterationResult> future )
+throws Exception {
+	while ( true ) {
+		if ( this.processor.getCancelProcessingRequested() ) {
+			cancelIterations();
+			return null;
+		}
+		try {
+			return future.get ( 500, TimeUnit.MILLISECONDS );
+		}
+		catch ( TimeoutException e ) {
+			// Check for cancel and wait again.
+		}
+		catch ( ExecutionException e ) {
+			// Should not happen because runIteration() handles exceptions.
+			throw new RuntimeException ( e.getCause() );
+		}
+	}
+}
+
+/**
+Results of an iteration, saved so that the iteration processor can be released.
+*/
+private static class IterationResult
+{
+	/**
+	Iteration number (1+).
+	*/
+	int iteration;
+
+	/**
+	Time series added by the iteration.
+	*/
+	List<TS> newTSList = new ArrayList<>();
+
+	/**
+	Time series that replaced time series that existed at the start of the loop, by position.
+	*/
+	Map<Integer,TS> replacedTSMap = new LinkedHashMap<>();
+
+	/**
+	Tables added or replaced by the iteration.
+	*/
+	List<DataTable> tableList = new ArrayList<>();
+
+	/**
+	User-defined properties that were added or changed by the iteration.
+	*/
+	Map<String,Object> propertyMap = new LinkedHashMap<>();
+
+	/**
+	Run log records for each command in the iteration.
+	*/
+	List<List<CommandLogRecord>> commandLogList = new ArrayList<>();
+
+	/**
+	Output files created by the iteration.
+	*/
+	List<File> outputFileList = new ArrayList<>();
+
+	/**
+	Exception thrown when running the iteration, or null if no exception.
+	*/
+	Exception exception = null;
+
+	IterationResult ( int iteration ) {
+		this.iteration = iteration;
+	}
+}
+
+/**
+Main processor state at the start of the loop, used to initialize each iteration processor.
+*/
+private class LoopState
+{
+	/**
+	Time series results at the start of the loop.
+	*/
+	List<TS> tsList;
+
+	/**
+	Tables at the start of the loop.
+	*/
+	List<DataTable> tableList;
+
+	/**
+	Tables at the start of the loop, used to check whether an iteration table is new or replaced.
+	*/
+	Map<DataTable,Boolean> tableSet = new IdentityHashMap<>();
+
+	/**
+	Built-in properties copied to each iteration processor.
+	*/
+	Map<String,Object> copiedProperties = new LinkedHashMap<>();
+
+	/**
+	Initial working directory of the main processor.
+	*/
+	String initialWorkingDir;
+
+	/**
+	Current working directory of the main processor.
+	*/
+	String workingDir;
+
+	@SuppressWarnings("unchecked")
+	LoopState ()
+	throws Exception {
+		this.tsList = new ArrayList<>((List<TS>)processor.getPropContents("TSResultsList"));
+		this.tableList = new ArrayList<>(processor.__TableList);
+		for ( DataTable table : this.tableList ) {
+			this.tableSet.put ( table, Boolean.TRUE );
+		}
+		for ( String propName : COPIED_PROPERTY_NAMES ) {
+			this.copiedProperties.put ( propName, processor.getPropContents(propName) );
+		}
+		this.initialWorkingDir = processor.getInitialWorkingDir();
+		this.workingDir = (String)processor.getPropContents("WorkingDir");
+	}
+}
+
+}
@@ -0,0 +1,541 @@
+// ParallelRegressionTestRunner - run consecutive RunCommands() regression tests in parallel
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import RTi.Util.IO.Command;
+import RTi.Util.IO.CommandLogRecord;
+import RTi.Util.IO.CommandPhaseType;
+import RTi.Util.IO.CommandProfile;
+import RTi.Util.IO.CommandStatusType;
+import RTi.Util.IO.CommandStatusUtil;
+import RTi.Util.IO.IOUtil;
+import RTi.Util.IO.PropList;
+import RTi.Util.Message.Message;
+import rti.tscommandprocessor.commands.util.RunCommands_Command;
+
+/**
+Run a block of consecutive RunCommands() commands in parallel,
+for example the regression tests in a command file created by CreateRegressionTestCommandFile().
+The main processor uses this class after StartRegressionTestResultsReport(MaxThreads=...) has been run
+with MaxThreads greater than 1.
+<p>
+Each test is run by its RunCommands() command in a thread, using up to MaxThreads threads.
+As for sequential runs, RunCommands() creates a new TSCommandProcessor for each test,
+with the initial working directory set to the folder of the test command file,
+so that tests do not share time series, tables, or properties.
+Tests whose command files are in the same folder share the working directory.
+Tests that write the same output file, as determined from the output parameters in the test command files
+(see getOutputFileKeys()), are run one at a time, and other tests, including tests in the same folder, run at the same time.
+<p>
+Regression test report records for each test are saved while the test is run
+and are added to the report in command order after the test and the tests before it have completed,
+so that the report is the same as if the tests had been run sequentially (other than run times).
+The following rules apply to tests that are run in parallel:
+<ul>
+<li> Only RunCommands() commands that do not modify the main processor can be run in parallel
+     (see canRunInParallel()).  The block of tests ends at the first command that cannot be run in parallel,
+     which is run sequentially by the main processor.</li>
+<li> RunCommands() commands that share datastores with the main processor (ShareDataStores=Share,
+     which is the default) are run sequentially because datastore connections are not safe to use from multiple threads.
+     CreateRegressionTestCommandFile(MaxThreads=...) writes ShareDataStores=DoNotShare for tests that do not appear to
+     use datastores, so that those tests can be run in parallel.
+     Command files created without MaxThreads, and therefore with the default of Share, are run sequentially.</li>
+<li> StartLog() commands in the test command files are disabled because the log file is shared by all threads.</li>
+<li> Static data are shared by all tests, in particular Message settings, the ExcelUtil open workbook cache,
+     and the TimeSeriesCache.  Tests should therefore not read files that are written by other tests.</li>
+<li> Commands in tests that change global settings, such as SetDebugLevel() and SetWarningLevel(),
+     impact all tests that are running at the same time.</li>
+</ul>
+*/
+class ParallelRegressionTestRunner
+{
+
+/**
+Main processor.
+*/
+private TSCommandProcessor processor = null;
+
+/**
+Command list that is being run.
+*/
+private List<Command> commandList = null;
+
+/**
+Index (0+) of the first RunCommands() command to run.
+*/
+private int startIndex = -1;
+
+/**
+Index (0+) after the last RunCommands() command to run.
+*/
+private int endIndex = -1;
+
+/**
+Maximum number of tests to run at the same time.
+*/
+private int maxThreads = 1;
+
+/**
+Pattern to find output file and folder parameters in test command files, for example OutputFile="results/test-out.csv".
+*/
+private static final Pattern outputParameterPattern = Pattern.compile ( "\\b\\w*Output\\w*(File|Folder)\\b\\s*=\\s*\"([^\"]*)\"" );
+
+/**
+Lock for each test, by index (0+) from startIndex, used to run tests that write the same output file one at a time.
+The locks are created before tests are submitted and are only read by the threads.
+*/
+private Object [] testLocks = null;
+
+/**
+Create a runner for a block of tests.
+@param processor the main processor
+@param commandList the command list being run
+@param startIndex index (0+) of the first RunCommands() command
+@param endIndex index (0+) after the last RunCommands() command, as returned by findEndIndex()
+@param maxThreads maximum number of tests to run at the same time
+*/
+ParallelRegressionTestRunner ( TSCommandProcessor processor, List<Command> commandList,
+	int startIndex, int endIndex, int maxThreads ) {
+	this.processor = processor;
+	this.commandList = commandList;
+	this.startIndex = startIndex;
+	this.endIndex = endIndex;
+	this.maxThreads = maxThreads;
+}
+
+/**
+Check whether a command can be run in parallel with other tests.
+RunCommands() commands that append results or set properties in the main processor must be run sequentially,
+as must commands that share datastores with the main processor.
+@param command the command to check
+@return true if the command is a RunCommands() command that can be run in parallel
+*/
+static boolean canRunInParallel ( Command command ) {
+	if ( !(command instanceof RunCommands_Command) ) {
+		return false;
+	}
+	PropList parameters = command.getCommandParameters();
+	String AppendResults = parameters.getValue ( "AppendResults" );
+	if ( (AppendResults != null) && AppendResults.equalsIgnoreCase("True") ) {
+		return false;
+	}
+	String WarningCountProperty = parameters.getValue ( "WarningCountProperty" );
+	String FailureCountProperty = parameters.getValue ( "FailureCountProperty" );
+	if ( ((WarningCountProperty != null) && !WarningCountProperty.isEmpty()) ||
+		((FailureCountProperty != null) && !FailureCountProperty.isEmpty()) ) {
+		return false;
+	}
+	String ShareDataStores = parameters.getValue ( "ShareDataStores" );
+	if ( (ShareDataStores == null) || ShareDataStores.isEmpty() || ShareDataStores.equalsIgnoreCase("Share") ) {
+		// Share is the default.
+		return false;
+	}
+	return true;
+}
+
+/**
+Find the end of the block of tests that can be run in parallel.
+@param commandList the command list
+@param startIndex index (0+) of the first RunCommands() command
+@return index (0+) after the last command that can be run in parallel
+*/
+static int findEndIndex ( List<Command> commandList, int startIndex ) {
+	int endIndex = startIndex;
+	while ( (endIndex < commandList.size()) && canRunInParallel(commandList.get(endIndex)) ) {
+		++endIndex;
+	}
+	return endIndex;
+}
+
+/**
+Create the lock for each test.
+Tests that have an output file in common (see getOutputFileKeys()) are grouped and share a lock,
+including tests that are linked by other tests, so that they are run one at a time.
+Tests whose output files cannot be determined are grouped with all tests in the same folder.
+Called before tests are submitted, in the main processor thread.
+*/
+private void createTestLocks () {
+	int testCount = this.endIndex - this.startIndex;
+	// Group of each test, where each group is identified by a test in the group.
+	int [] group = new int[testCount];
+	for ( int i = 0; i < testCount; i++ ) {
+		group[i] = i;
+	}
+	// Test that was first found to use each output file key, and the first test in each folder.
+	Map<String,Integer> outputFileKeyMap = new HashMap<>();
+	Map<String,Integer> folderMap = new HashMap<>();
+	String [] folders = new String[testCount];
+	Set<String> unknownFolders = new HashSet<>();
+	for ( int i = 0; i < testCount; i++ ) {
+		folders[i] = getTestFolder ( this.startIndex + i );
+		folderMap.putIfAbsent ( folders[i], i );
+		Set<String> keys = getOutputFileKeys ( this.startIndex + i, folders[i] );
+		if ( keys == null ) {
+			unknownFolders.add ( folders[i] );
+			continue;
+		}
+		for ( String key : keys ) {
+			Integer other = outputFileKeyMap.putIfAbsent ( key, i );
+			if ( other != null ) {
+				// Merge the groups.
+				group[findGroup(group, i)] = findGroup(group, other);
+			}
+		}
+	}
+	for ( int i = 0; i < testCount; i++ ) {
+		if ( unknownFolders.contains(folders[i]) ) {
+			group[findGroup(group, i)] = findGroup(group, folderMap.get(folders[i]));
+		}
+	}
+	this.testLocks = new Object[testCount];
+	Map<Integer,Object> groupLocks = new HashMap<>();
+	for ( int i = 0; i < testCount; i++ ) {
+		this.testLocks[i] = groupLocks.computeIfAbsent ( findGroup(group, i), g -> new Object() );
+	}
+	Message.printStatus ( 2, getClass().getSimpleName() + ".createTestLocks", "Tests that write the same output files are run " +
+		"one at a time, resulting in " + groupLocks.size() + " groups for " + testCount + " tests." );
+}
+
+/**
+Find the group for a test.
+@param group group for each test, as a test in the group, which is the test itself for the test that identifies the group
+@param test test (0+) from startIndex
+@return the test that identifies the group
+*/
+private static int findGroup ( int [] group, int test ) {
+	while ( group[test] != test ) {
+		test = group[test];
+	}
+	return test;
+}
+
+/**
+Return the keys for the output files of a test, used to determine tests that cannot be run at the same time.
+Output files are determined from parameters in the test command file with names that contain "Output"
+and end in "File" or "Folder", for example OutputFile="results/test-out.csv".
+The key is the folder of the test command file and the output parameter value,
+with ${WorkingDir} removed and converted to lower case, or the value if it is an absolute path.
+@param index index (0+) of the RunCommands() command
+@param folder folder containing the test command file
+@return the output file keys for the test, or null if the test command file cannot be read
+*/
+private Set<String> getOutputFileKeys ( int index, String folder ) {
+	String routine = getClass().getSimpleName() + ".getOutputFileKeys";
+	Set<String> keys = new HashSet<>();
+	try {
+		for ( String line : Files.readAllLines(Paths.get(getTestFile(index)), StandardCharsets.ISO_8859_1) ) {
+			Matcher matcher = outputParameterPattern.matcher ( line );
+			while ( matcher.find() ) {
+				String output = matcher.group(2).trim().replace('\\', '/');
+				if ( output.startsWith("${WorkingDir}") ) {
+					output = output.substring("${WorkingDir}".length());
+				}
+				else if ( new File(output).isAbsolute() ) {
+					keys.add ( output.toLowerCase(Locale.ROOT) );
+					continue;
+				}
+				while ( output.startsWith("/") || output.startsWith("./") ) {
+					output = output.substring(output.startsWith("/") ? 1 : 2);
+				}
+				if ( !output.isEmpty() ) {
+					keys.add ( folder + "|" + output.toLowerCase(Locale.ROOT) );
+				}
+			}
+		}
+	}
+	catch ( Exception e ) {
+		// The command will show the error when run.
+		Message.printWarning ( 3, routine, "Unable to determine output files for command " + (index + 1) + " (" + e + ")." );
+		return null;
+	}
+	return keys;
+}
+
+/**
+Return the full path to the command file for a test, determined in the same way as RunCommands().
+@param index index (0+) of the RunCommands() command
+@return the full path to the test command file
+*/
+private String getTestFile ( int index )
+throws Exception {
+	Command command = this.commandList.get(index);
+	String InputFile = command.getCommandParameters().getValue ( "InputFile" );
+	return IOUtil.verifyPathForOS(
+		IOUtil.toAbsolutePath(TSCommandProcessorUtil.getWorkingDir(this.processor),
+			TSCommandProcessorUtil.expandParameterValue(this.processor, command, InputFile) ) );
+}
+
+/**
+Return the folder for the command file for a test.
+@param index index (0+) of the RunCommands() command
+@return the folder containing the test command file, or an empty string if the folder cannot be determined
+*/
+private String getTestFolder ( int index ) {
+	String routine = getClass().getSimpleName() + ".getTestFolder";
+	try {
+		String parent = new File(getTestFile(index)).getParent();
+		if ( parent != null ) {
+			return parent;
+		}
+	}
+	catch ( Exception e ) {
+		// Tests with unknown folders are grouped, and the command will show the error when run.
+		Message.printWarning ( 3, routine, "Unable to determine folder for command " + (index + 1) + " (" + e + ")." );
+	}
+	return "";
+}
+
+/**
+Initialize a command before running, similar to the main processor loop.
+The first command in the block has already been initialized by the main processor.
+@param index index (0+) of the command
+@return true if the command was initialized, false if the command parameters are invalid
+*/
+private boolean initializeCommand ( int index ) {
+	String routine = getClass().getSimpleName() + ".initializeCommand";
+	RunCommands_Command command = (RunCommands_Command)this.commandList.get(index);
+	try {
+		command.getCommandStatus().clearLog(CommandPhaseType.INITIALIZATION);
+		command.getCommandStatus().clearLog(CommandPhaseType.DISCOVERY);
+		command.initializeCommand ( command.toString(), this.processor, true );
+		command.checkCommandParameters ( command.getCommandParameters(), "" + (index + 1), 2 );
+		return true;
+	}
+	catch ( Exception e ) {
+		// The problem is in the command status.
+		Message.printWarning ( 3, routine, "Unable to initialize command " + (index + 1) + " (" + e + ")." );
+		return false;
+	}
+}
+
+/**
+Run the tests.  All tests are run and the results are added to the regression test report before returning.
+@return the number of tests that were run, which is less than the number of commands if processing was canceled
+*/
+int run ()
+throws Exception {
+	String routine = getClass().getSimpleName() + ".run";
+	int size = this.commandList.size();
+	int threads = Math.min ( this.maxThreads, this.endIndex - this.startIndex );
+	Message.printStatus ( 2, routine, "Running " + (this.endIndex - this.startIndex) + " RunCommands() tests (commands " +
+		(this.startIndex + 1) + " to " + this.endIndex + ") in parallel using up to " + threads + " threads." );
+	createTestLocks();
+	ExecutorService executor = Executors.newFixedThreadPool ( threads );
+	List<Future<TestResult>> futureList = new ArrayList<>();
+	int testCount = 0;
+	try {
+		// Submit the tests in command order so that tests early in the list are run first.
+		for ( int i = this.startIndex; i < this.endIndex; i++ ) {
+			final int index = i;
+			if ( (i == this.startIndex) || initializeCommand(i) ) {
+				final Object testLock = this.testLocks[i - this.startIndex];
+				futureList.add ( executor.submit(() -> runTest(index, testLock)) );
+			}
+			else {
+				futureList.add ( null );
+			}
+		}
+		executor.shutdown();
+		// Add the results to the report in command order.
+		for ( int i = this.startIndex; i < this.endIndex; i++ ) {
+			Command command = this.commandList.get(i);
+			if ( i > this.startIndex ) {
+				// The main processor notified listeners for the first command.
+				this.processor.notifyCommandProcessorListenersOfCommandStarted ( i, size, command );
+			}
+			Future<TestResult> future = futureList.get(i - this.startIndex);
+			if ( future != null ) {
+				TestResult result = waitForTest ( future, executor );
+				if ( (result == null) || result.canceled ) {
+					// Processing was canceled.
+					break;
+				}
+				saveTestResult ( result );
+				++testCount;
+			}
+			if ( i < (this.endIndex - 1) ) {
+				// The main processor notifies listeners for the last command.
+				this.processor.notifyCommandProcessorListenersOfCommandCompleted ( i, size, command );
+			}
+		}
+	}
+	finally {
+		if ( !executor.isTerminated() ) {
+			executor.shutdownNow();
+		}
+	}
+	return testCount;
+}
+
+/**
+Run a test, called in a thread.
+Tests that write the same output files are run one at a time using the test lock.
+@param index index (0+) of the RunCommands() command
+@param testLock lock for the group of tests that write the same output files
+@return the test results
+*/
+private TestResult runTest ( int index, Object testLock ) {
+	synchronized ( testLock ) {
+		return runTest ( index );
+	}
+}
+
+/**
+Run a test, called in a thread while holding the test lock.
+@param index index (0+) of the RunCommands() command
+@return the test results
+*/
+private TestResult runTest ( int index ) {
+	TestResult result = new TestResult ( index );
+	if ( this.processor.getCancelProcessingRequested() ) {
+		result.canceled = true;
+		return result;
+	}
+	RunCommands_Command command = (RunCommands_Command)this.commandList.get(index);
+	CommandProfile commandProfile = command.getCommandProfile(CommandPhaseType.RUN);
+	CommandProfiler commandProfiler = this.processor.getCommandProfiler();
+	commandProfile.setStartTime(System.currentTimeMillis());
+	commandProfile.setStartHeap(Runtime.getRuntime().totalMemory());
+	CommandProfiler.Sample profilerSample = commandProfiler.start();
+	TSCommandProcessorUtil.startDeferredRegressionTestRecords();
+	command.setRunInParallel ( true );
+	try {
+		command.runCommand ( index + 1 );
+	}
+	catch ( Exception e ) {
+		result.exception = e;
+	}
+	finally {
+		command.setRunInParallel ( false );
+		result.records = TSCommandProcessorUtil.endDeferredRegressionTestRecords();
+		commandProfile.setEndTime(System.currentTimeMillis());
+		commandProfile.setEndHeap(Runtime.getRuntime().totalMemory());
+		commandProfiler.end ( profilerSample, index + 1, command );
+	}
+	return result;
+}
+
+/**
+Save the results of a test, called in command order.
+@param result the test results
+*/
+private void saveTestResult ( TestResult result ) {
+	String routine = getClass().getSimpleName() + ".saveTestResult";
+	RunCommands_Command command = (RunCommands_Command)this.commandList.get(result.index);
+	TSCommandProcessorUtil.appendToRegressionTestReport ( result.records );
+	if ( result.exception != null ) {
+		Message.printWarning ( 3, routine, result.exception );
+		if ( !CommandStatusUtil.getHighestSeverity(command).greaterThan(CommandStatusType.UNKNOWN) ) {
+			// Same as the main processor for unexpected exceptions.
+			command.getCommandStatus().addToLog(CommandPhaseType.RUN,
+				new CommandLogRecord(CommandStatusType.FAILURE,
+					"Unexpected exception \"" + result.exception.getMessage() + "\"", "See log file for details.") );
+		}
+	}
+	if ( result.index < (this.endIndex - 1) ) {
+		// The main processor prints the message for the last command.
+		Message.printStatus ( 2, "", "<- Done processing command \"" + command + "\" (" + (result.index + 1) + " of " +
+			this.commandList.size() + " commands, " + command.getCommandProfile(CommandPhaseType.RUN).getRunTime() +
+			" ms runtime, run in parallel)" );
+	}
+}
+
+/**
+Wait for a test to complete, checking whether processing has been canceled.
+@param future the test future
+@param executor the executor running the tests, which is shut down if processing is canceled
+@return the test results, or null if processing was canceled
+*/
+private TestResult waitForTest ( Future<TestResult> future, ExecutorService executor )
+throws Exception {
+	while ( true ) {
+		if ( this.processor.getCancelProcessingRequested() ) {
+			// Interrupt the tests, which will be detected by the test processors.
+			executor.shutdownNow();
+			return null;
+		}
+		try {
+			return future.get ( 500, TimeUnit.MILLISECONDS );
+		}
+		catch ( TimeoutException e ) {
+			// Check for cancel and wait again.
+		}
+		catch ( ExecutionException e ) {
+			// Should not happen because runTest() handles exceptions.
+			throw new RuntimeException ( e.getCause() );
+		}
+	}
+}
+
+/**
+Results of a test, saved in the thread and added to the report in command order.
+*/
+private static class TestResult
+{
+	/**
+	Index (0+) of the RunCommands() command.
+	*/
+	int index;
+
+	/**
+	Whether the test was not run because processing was canceled.
+	*/
+	boolean canceled = false;
+
+	/**
+	Regression test report records for the test.
+	*/
+	List<TSCommandProcessorUtil.RegressionTestRecord> records = new ArrayList<>();
+
+	/**
+	Exception thrown when running the test, or null if no exception.
+	*/
+	Exception exception = null;
+
+	TestResult ( int index ) {
+		this.index = index;
+	}
+}
+
+}
@@ -0,0 +1,208 @@
+// ParameterValueTemplate - compiled form of a command parameter value containing ${Property} references
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import RTi.Util.IO.CommandProcessor;
+
+/**
+Compiled form of a command parameter value that contains ${Property} references.
+The parameter value is parsed once into literal and property segments so that expanding the value,
+for example in each iteration of a For() loop, only needs to look up the property values and
+append the segments to a StringBuilder.
+<p>
+The parsing is consistent with TSCommandProcessorUtil.expandParameterValue(),
+including handling of escaped quotes and malformed ${Property} strings.
+Parameter values that contain nested properties, such as ${${Property}}, are not compiled
+and isNested() will return true so that the caller can expand using the original approach.
+Property values are not scanned for additional ${Property} references.
+*/
+public class ParameterValueTemplate
+{
+
+/**
+Start delimiter for properties.
+*/
+private static final String DELIM_START = "${";
+
+/**
+End delimiter for properties.
+*/
+private static final String DELIM_END = "}";
+
+/**
+Literal strings, one more than the number of property names.
+*/
+private String [] literals = new String[0];
+
+/**
+Property names, without the surrounding ${ }.
+*/
+private String [] propertyNames = new String[0];
+
+/**
+Whether the parameter value contains nested properties and could not be compiled.
+*/
+private boolean isNested = false;
+
+/**
+Length of the parameter value, used to size the output buffer.
+*/
+private int length = 0;
+
+/**
+Create a template by parsing a parameter value.
+Use compile() to create an instance.
+@param parameterValue parameter value to parse, which has already been checked to contain ${
+*/
+private ParameterValueTemplate ( String parameterValue ) {
+	// First replace escaped characters, consistent with expandParameterValue().
+	parameterValue = parameterValue.replace("\\\"", "\"" );
+	parameterValue = parameterValue.replace("\\'", "'" );
+	this.length = parameterValue.length();
+
+	// Determine the list of all ${} substrings using the same search as expandParameterValue():
+	// - the search stops when a malformed property is found
+	Set<String> propertyStrings = new LinkedHashSet<>();
+	int searchPos = 0;
+	int foundStartPos;
+	int foundEndPos;
+	while ( searchPos < parameterValue.length() ) {
+		foundStartPos = parameterValue.indexOf(DELIM_START, searchPos);
+		foundEndPos = parameterValue.indexOf(DELIM_END, (searchPos + DELIM_START.length()));
+		if ( (foundStartPos >= 0) && (foundEndPos >= 0) && (foundEndPos > foundStartPos) ) {
+			String propertyString = parameterValue.substring(foundStartPos,(foundEndPos + 1));
+			if ( propertyString.indexOf(DELIM_START, DELIM_START.length()) >= 0 ) {
+				// Nested property so let the caller handle.
+				this.isNested = true;
+				return;
+			}
+			propertyStrings.add(propertyString);
+			searchPos = foundEndPos;
+		}
+		else {
+			break;
+		}
+	}
+
+	// Split the parameter value into literal and property segments:
+	// - every occurrence of a found property string is replaced, consistent with String.replace()
+	// - property strings cannot overlap because they end at the first } after ${
+	List<String> literalList = new ArrayList<>();
+	List<String> propertyList = new ArrayList<>();
+	int literalStart = 0;
+	int pos = parameterValue.indexOf(DELIM_START);
+	while ( pos >= 0 ) {
+		int endPos = parameterValue.indexOf(DELIM_END, pos + DELIM_START.length());
+		if ( endPos < 0 ) {
+			break;
+		}
+		String propertyString = parameterValue.substring(pos,(endPos + 1));
+		if ( propertyStrings.contains(propertyString) ) {
+			literalList.add(parameterValue.substring(literalStart,pos));
+			propertyList.add(propertyString.substring(DELIM_START.length(),(propertyString.length() - DELIM_END.length())));
+			literalStart = endPos + 1;
+			pos = parameterValue.indexOf(DELIM_START, literalStart);
+		}
+		else {
+			pos = parameterValue.indexOf(DELIM_START, pos + 1);
+		}
+	}
+	literalList.add(parameterValue.substring(literalStart));
+	this.literals = literalList.toArray(new String[0]);
+	this.propertyNames = propertyList.toArray(new String[0]);
+}
+
+/**
+Compile a parameter value into a template.
+@param parameterValue parameter value to compile, which should contain ${
+@return the compiled template
+*/
+public static ParameterValueTemplate compile ( String parameterValue ) {
+	return new ParameterValueTemplate ( parameterValue );
+}
+
+/**
+Expand the template using processor properties.
+Properties that are not found or have null values are retained as ${Property} in the result.
+@param processor command processor used to look up property values
+@return the expanded string
+*/
+public String expand ( CommandProcessor processor ) {
+	StringBuilder b = new StringBuilder(this.length + 32);
+	for ( int i = 0; i < this.propertyNames.length; i++ ) {
+		b.append ( this.literals[i] );
+		Object propval = lookupPropContents ( processor, this.propertyNames[i] );
+		if ( propval == null ) {
+			// Keep the original literal value to alert the user that the property could not be expanded.
+			b.append ( DELIM_START ).append ( this.propertyNames[i] ).append ( DELIM_END );
+		}
+		else {
+			// The following should work for all representations as long as the toString() does not truncate.
+			b.append ( propval );
+		}
+	}
+	b.append ( this.literals[this.literals.length - 1] );
+	return b.toString();
+}
+
+/**
+Return the property names in the template, in order of occurrence.
+@return the property names in the template, without the surrounding ${ }
+*/
+public String [] getPropertyNames () {
+	return this.propertyNames;
+}
+
+/**
+Indicate whether the parameter value contains nested properties, in which case the template cannot be used to expand.
+@return true if the parameter value contains nested properties
+*/
+public boolean isNested () {
+	return this.isNested;
+}
+
+/**
+Look up a processor property without throwing an exception.
+@param processor command processor used to look up property values
+@param propertyName name of property to look up
+@return property contents or null if not found
+*/
+private static Object lookupPropContents ( CommandProcessor processor, String propertyName ) {
+	if ( processor instanceof TSCommandProcessor ) {
+		return ((TSCommandProcessor)processor).lookupPropContents ( propertyName );
+	}
+	try {
+		return processor.getPropContents ( propertyName );
+	}
+	catch ( Exception e ) {
+		return null;
+	}
+}
+
+}
@@ -32,9 +32,13 @@ import java.net.InetAddress;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
@@ -115,6 +119,33 @@ This class processes time series commands and manages the relevant data.
 public class TSCommandProcessor implements CommandProcessor, TSSupplier, CommandProcessorEventListener
 {
 
+/**
+Handler for a built-in property, used with getPropContents().
+*/
+private interface PropContentsGetter {
+	Object getPropContents ( TSCommandProcessor processor ) throws Exception;
+}
+
+/**
+Handler for a request, used with processRequest().
+*/
+private interface RequestHandler {
+	CommandProcessorRequestResultsBean processRequest ( TSCommandProcessor processor, String request,
+		PropList requestParams, PropList processorProps ) throws Exception;
+}
+
+/**
+Built-in property handlers, using upper-case property names for case-insensitive lookups.
+The map is created once so that each getPropContents() call does a single hash lookup.
+*/
+private static final Map<String,PropContentsGetter> PROP_CONTENTS_GETTER_MAP = createPropContentsGetterMap();
+
+/**
+Request handlers, using upper-case request names for case-insensitive lookups.
+The map is created once so that each processRequest() call does a single hash lookup.
+*/
+private static final Map<String,RequestHandler> REQUEST_HANDLER_MAP = createRequestHandlerMap();
+
 /**
 The legacy TSEngine class did all of the processing in TSTool.
 It is now wrapped by this TSCommandProcessor class and code will continue to be moved to Command classes and this class.
@@ -126,6 +157,22 @@ The list of commands managed by this command processor, guaranteed to be non-nul
 */
 private List<Command> __CommandList = new Vector<>(); // Use Vector for thread-safe.
 
+/**
+Profiler that accumulates run statistics for each command, used by ProfileCommands().
+*/
+private CommandProfiler commandProfiler = new CommandProfiler();
+
+/**
+Index of discovery data for commands, used while running discovery when adding commands from strings,
+null if discovery is not being run on loaded commands.
+*/
+private DiscoveryIndex discoveryIndex = null;
+
+/**
+FreeMarker configurations and parsed templates, shared by commands that expand templates.
+*/
+private FreeMarkerTemplateCache freeMarkerTemplateCache = new FreeMarkerTemplateCache();
+
 /**
 List of plugin command classes, which allow third-party commands to be recognized and run.
 These are created in the TSTool main program.
@@ -233,6 +280,24 @@ List of DataTable objects maintained by the processor.
 */
 List<DataTable> __TableList = new Vector<>();
 
+/**
+Map of upper case table identifier to table, used to find tables without searching the table list.
+The map is rebuilt when the size of the table list changes, for example if tables are added directly to the list.
+*/
+private Map<String,DataTable> tableIDMap = new HashMap<>();
+
+/**
+Size of the table list when the table identifier map was built, -1 if the map needs to be rebuilt.
+*/
+private int tableIDMapListSize = -1;
+
+/**
+Table column indexes that have been requested by commands, by table (using table identity) and column number.
+An index is rebuilt when the number of records or columns in the table changes (see TableColumnIndex.isValid()),
+and the indexes for a table are discarded when the table is removed or replaced in the table list.
+*/
+private Map<DataTable,Map<Integer,TableColumnIndex>> tableColumnIndexMap = new IdentityHashMap<>();
+
 /**
 List of NodeNetwork objects maintained by the processor.
 */
@@ -311,6 +376,9 @@ Add a command at the end of the list.
 public void addCommand ( Command command, boolean notifyCommandListListeners ) {
 	String routine = getClass().getSimpleName() + ".addCommand";
 	__CommandList.add( command );
+	if ( this.discoveryIndex != null ) {
+		this.discoveryIndex.commandAdded ( command, this.__CommandList.size() - 1 );
+	}
 	// Also add this processor as a listener for events.
 	if ( command instanceof CommandProcessorEventProvider ) {
 	    CommandProcessorEventProvider ep = (CommandProcessorEventProvider)command;
@@ -480,6 +548,27 @@ which is typically specified because it would be set to the location of the comm
 */
 public void addCommandsFromStringList ( List<String> commandStrings, boolean createUnknownCommandIfNotRecognized,
     boolean append, boolean runDiscoveryOnLoad, File initialWorkingDir )
+throws IOException {
+    // If running discovery, index the discovery data so that each command does not process all previous commands.
+    if ( runDiscoveryOnLoad ) {
+        this.discoveryIndex = new DiscoveryIndex ( this );
+    }
+    try {
+        addCommandsFromStringList2 ( commandStrings, createUnknownCommandIfNotRecognized,
+            append, runDiscoveryOnLoad, initialWorkingDir );
+    }
+    finally {
+        // The index is only valid while commands are being added here.
+        this.discoveryIndex = null;
+    }
+}
+
+/**
+Add commands from a list of strings, called by addCommandsFromStringList().
+See addCommandsFromStringList() for parameter descriptions.
+*/
+private void addCommandsFromStringList2 ( List<String> commandStrings, boolean createUnknownCommandIfNotRecognized,
+    boolean append, boolean runDiscoveryOnLoad, File initialWorkingDir )
 throws IOException {
     String routine = getClass().getSimpleName() + ".initializeCommandsFromStringList";
     // Set the working directory because this may be used by other commands.
@@ -782,6 +871,8 @@ public void clearResults() {
     if ( this.__TableList != null ) {
         this.__TableList.clear();
     }
+    resetTableIDMap();
+    resetTableColumnIndexes();
     removeAllEnsembles();
     removeAllPatternTS();
 }
@@ -800,6 +891,110 @@ public void closeDataConnections ( boolean closeAll ) {
      HecDssAPI.closeAllFiles();
 }
 
+/**
+Create the map of built-in property handlers used by getPropContents().
+@return map of upper-case property name to handler
+*/
+private static Map<String,PropContentsGetter> createPropContentsGetterMap () {
+	Map<String,PropContentsGetter> map = new HashMap<>();
+	map.put ( "AutoExtendPeriod", p -> p.getPropContents_AutoExtendPeriod() );
+	map.put ( "AverageEnd", p -> p.getPropContents_AverageEnd() );
+	map.put ( "AverageStart", p -> p.getPropContents_AverageStart() );
+	map.put ( "CommandFileName", p -> p.getCommandFileName() );
+	map.put ( "CommandsShouldClearRunStatus", p -> p.getPropContents_CommandsShouldClearRunStatus() );
+	map.put ( "CreateOutput", p -> p.getPropContents_CreateOutput() );
+	map.put ( "DebugLevelLogFile", p -> Integer.valueOf(Message.getDebugLevel(Message.LOG_OUTPUT)) );
+	map.put ( "DebugLevelScreen", p -> Integer.valueOf(Message.getDebugLevel(Message.TERM_OUTPUT)) );
+	map.put ( "EnsembleResultsList", p -> p.getPropContents_EnsembleResultsList() );
+	map.put ( "HaveOutputPeriod", p -> p.getPropContents_HaveOutputPeriod() );
+	map.put ( "HydroBaseDMIList", p -> p.getPropContents_HydroBaseDMIList() );
+	map.put ( "HydroBaseDMIListSize", p -> p.getPropContents_HydroBaseDMIListSize() );
+	map.put ( "IgnoreLEZero", p -> p.getPropContents_IgnoreLEZero() );
+	map.put ( "IncludeMissingTS", p -> p.getPropContents_IncludeMissingTS() );
+	map.put ( "InitialWorkingDir", p -> p.getPropContents_InitialWorkingDir() );
+	map.put ( "InputEnd", p -> p.getPropContents_InputEnd() );
+	map.put ( "InputStart", p -> p.getPropContents_InputStart() );
+	map.put ( "NetworkResultsList", p -> p.getPropContents_NetworkResultsList() );
+	map.put ( "ObjectResultsList", p -> p.getPropContents_ObjectResultsList() );
+	map.put ( "OutputComments", p -> p.getPropContents_OutputComments() );
+	map.put ( "OutputEnd", p -> p.getPropContents_OutputEnd() );
+	map.put ( "OutputFileList", p -> p.getPropContents_OutputFileList() );
+	map.put ( "OutputStart", p -> p.getPropContents_OutputStart() );
+	map.put ( "OutputYearType", p -> p.getPropContents_OutputYearType() );
+	map.put ( "PatternTSList", p -> p.getPropContents_PatternTSList() );
+	map.put ( "StartLogEnabled", p -> p.getPropContents_StartLogEnabled() );
+	map.put ( "TableResultsList", p -> p.getPropContents_TableResultsList() );
+	map.put ( "TimeSeriesViewResultsList", p -> p.getPropContents_TimeSeriesViewResultsList() );
+	map.put ( "TSEnsembleResultsListSize", p -> p.getPropContents_TSEnsembleResultsListSize() );
+	map.put ( "TSProductAnnotationProviderList", p -> p.getPropContents_TSProductAnnotationProviderList() );
+	map.put ( "TSResultsList", p -> p.getPropContents_TSResultsList() );
+	map.put ( "TSResultsListSize", p -> p.getPropContents_TSResultsListSize() );
+	map.put ( "TSViewWindowListener", p -> p.getPropContents_TSViewWindowListener() );
+	map.put ( "WarningLevelLogFile", p -> Integer.valueOf(Message.getWarningLevel(Message.LOG_OUTPUT)) );
+	map.put ( "WarningLevelScreen", p -> Integer.valueOf(Message.getWarningLevel(Message.TERM_OUTPUT)) );
+	map.put ( "WorkingDir", p -> p.getPropContents_WorkingDir() );
+	map.put ( "WorkingDirPortable", p -> IOUtil.toPortablePath(p.getPropContents_WorkingDir()) );
+	map.put ( "WorkingDirPosix", p -> IOUtil.toPosixPath(p.getPropContents_WorkingDir()) );
+	return toUpperCaseKeyMap ( map );
+}
+
+/**
+Create the map of request handlers used by processRequest().
+@return map of upper-case request name to handler
+*/
+private static Map<String,RequestHandler> createRequestHandlerMap () {
+	Map<String,RequestHandler> map = new HashMap<>();
+	map.put ( "AddCommandProcessorEventListener", (p, request, params, props) -> p.processRequest_AddCommandProcessorEventListener ( request, params ) );
+	map.put ( "AppendTimeSeries", (p, request, params, props) -> p.processRequest_AppendTimeSeries ( request, params ) );
+	map.put ( "AppendEnsemble", (p, request, params, props) -> p.processRequest_AppendEnsemble ( request, params ) );
+	map.put ( "CalculateTSAverageLimits", (p, request, params, props) -> p.processRequest_CalculateTSAverageLimits ( request, params ) );
+	map.put ( "DateTime", (p, request, params, props) -> p.processRequest_DateTime ( request, params ) );
+	map.put ( "GetEnsemble", (p, request, params, props) -> p.processRequest_GetEnsemble ( request, params ) );
+	map.put ( "GetEnsembleAt", (p, request, params, props) -> p.processRequest_GetEnsembleAt ( request, params ) );
+	map.put ( "GetGeoMapProject", (p, request, params, props) -> p.processRequest_GetGeoMapProject ( request, params ) );
+	map.put ( "GetHydroBaseDMI", (p, request, params, props) -> p.processRequest_GetHydroBaseDMI ( request, params ) );
+	map.put ( "GetNetwork", (p, request, params, props) -> p.processRequest_GetNetwork ( request, params ) );
+	map.put ( "GetNwsrfsDMI", (p, request, params, props) -> p.processRequest_GetNwsrfsDMI ( request, params ) );
+	map.put ( "GetObject", (p, request, params, props) -> p.processRequest_GetObject ( request, params ) );
+	map.put ( "GetOutputPeriodForCommand", (p, request, params, props) -> p.processRequest_GetOutputPeriodForCommand ( request, params ) );
+	map.put ( "GetPropertyHashtable", (p, request, params, props) -> p.processRequest_GetPropertyHashtable ( request, params ) );
+	map.put ( "GetProperty", (p, request, params, props) -> p.processRequest_GetProperty ( request, params ) );
+	map.put ( "GetTable", (p, request, params, props) -> p.processRequest_GetTable ( request, params ) );
+	map.put ( "GetTimeSeries", (p, request, params, props) -> p.processRequest_GetTimeSeries ( request, params ) );
+	map.put ( "GetTimeSeriesForTSID", (p, request, params, props) -> p.processRequest_GetTimeSeriesForTSID ( request, params ) );
+	map.put ( "GetTimeSeriesToProcess", (p, request, params, props) -> p.processRequest_GetTimeSeriesToProcess ( request, params ) );
+	map.put ( "GetTSIDListNoInputAboveCommand", (p, request, params, props) -> p.processRequest_GetTSIDListNoInputAboveCommand ( request, params ) );
+	map.put ( "GetWorkingDirForCommand", (p, request, params, props) -> p.processRequest_GetWorkingDirForCommand ( request, params ) );
+	map.put ( "IndexOf", (p, request, params, props) -> p.processRequest_IndexOf ( request, params ) );
+	map.put ( "ProcessCommands", (p, request, params, props) -> p.processRequest_ProcessCommands ( request, params ) );
+	map.put ( "ProcessTimeSeriesAction", (p, request, params, props) -> p.processRequest_ProcessTimeSeriesAction ( request, params ) );
+	map.put ( "ProcessTimeSeriesResultsList", (p, request, params, props) -> p.processRequest_ProcessTimeSeriesResultsList ( request, params ) );
+	map.put ( "ReadTimeSeries", (p, request, params, props) -> p.processRequest_ReadTimeSeries ( request, params ) );
+	map.put ( "ReadTimeSeries2", (p, request, params, props) -> p.processRequest_ReadTimeSeries2 ( request, params ) );
+	map.put ( "RemoveAllFromEnsembleResultsList", (p, request, params, props) -> p.processRequest_RemoveAllFromEnsembleResultsList ( request, params ) );
+	map.put ( "RemoveAllFromTimeSeriesResultsList", (p, request, params, props) -> p.processRequest_RemoveAllFromTimeSeriesResultsList ( request, params ) );
+	map.put ( "RemoveGeoMapProjectFromResultsList", (p, request, params, props) -> p.processRequest_RemoveGeoMapProjectFromResultsList ( request, params ) );
+	map.put ( "RemoveObjectFromResultsList", (p, request, params, props) -> p.processRequest_RemoveObjectFromResultsList ( request, params ) );
+	map.put ( "RemoveProperty", (p, request, params, props) -> p.processRequest_RemoveProperty ( request, params ) );
+	map.put ( "RemoveTableFromResultsList", (p, request, params, props) -> p.processRequest_RemoveTableFromResultsList ( request, params ) );
+	map.put ( "RemoveTimeSeriesFromResultsList", (p, request, params, props) -> p.processRequest_RemoveTimeSeriesFromResultsList ( request, params ) );
+	// This requires the initial properties.
+	map.put ( "RunCommands", (p, request, params, props) -> p.processRequest_RunCommands ( request, params, props ) );
+	// TODO smalers 2024-11-20 should this be SetDataStore?
+	map.put ( "DataStore", (p, request, params, props) -> p.processRequest_SetDataStore ( request, params ) );
+	map.put ( "SetGeoMapProject", (p, request, params, props) -> p.processRequest_SetGeoMapProject ( request, params ) );
+	map.put ( "SetHydroBaseDMI", (p, request, params, props) -> p.processRequest_SetHydroBaseDMI ( request, params ) );
+	map.put ( "SetNetwork", (p, request, params, props) -> p.processRequest_SetNetwork ( request, params ) );
+	map.put ( "SetNWSRFSFS5FilesDMI", (p, request, params, props) -> p.processRequest_SetNWSRFSFS5FilesDMI ( request, params ) );
+	map.put ( "SetObject", (p, request, params, props) -> p.processRequest_SetObject ( request, params ) );
+	map.put ( "SetPatternTSList", (p, request, params, props) -> p.processRequest_SetPatternTSList ( request, params ) );
+	map.put ( "SetProperty", (p, request, params, props) -> p.processRequest_SetProperty ( request, params ) );
+	map.put ( "SetTable", (p, request, params, props) -> p.processRequest_SetTable ( request, params ) );
+	map.put ( "SetTimeSeries", (p, request, params, props) -> p.processRequest_SetTimeSeries ( request, params ) );
+	map.put ( "SetTimeSeriesView", (p, request, params, props) -> p.processRequest_SetTimeSeriesView ( request, params ) );
+	return toUpperCaseKeyMap ( map );
+}
+
 /**
 Return the Command instance at the requested position.
 @param pos the command position (0+).
@@ -1056,6 +1251,14 @@ public List<DataStoreSubstitute> getDataStoreSubstituteList() {
     return this.__tsengine.getDataStoreSubstituteList();
 }
 
+/**
+Return the discovery index, which is used by TSCommandProcessorUtil when running discovery while adding commands.
+@return the discovery index, or null if discovery is not being run on added commands
+*/
+DiscoveryIndex getDiscoveryIndex () {
+	return this.discoveryIndex;
+}
+
 /**
 Return an Ensemble matching the requested identifier, or null if not found.
 This method is meant to be used internally without going through the request mechanism.
@@ -1097,6 +1300,22 @@ protected TSEnsemble getEnsemble ( String EnsembleID ) {
     return tsensemble;
 }
 
+/**
+Return the profiler that accumulates run statistics for each command.
+@return the command profiler
+*/
+public CommandProfiler getCommandProfiler () {
+	return this.commandProfiler;
+}
+
+/**
+Return the FreeMarker configurations and parsed templates that are shared by commands that expand templates.
+@return the FreeMarker template cache
+*/
+public FreeMarkerTemplateCache getFreeMarkerTemplateCache () {
+	return this.freeMarkerTemplateCache;
+}
+
 /**
  * Return the initial properties, which are those from the application command line.
  * These properties should be chained from one processor to another
@@ -1313,119 +1532,10 @@ reflecting the initial working directory and changes from setWorkingDir() comman
 @exception UnrecognizedRequestException if an unknown property is requested (actually null is returned if not found).
 */
 public Object getPropContents ( String propName ) throws Exception {
-	if ( propName.equalsIgnoreCase("AutoExtendPeriod") ) {
-		return getPropContents_AutoExtendPeriod();
-	}
-    else if ( propName.equalsIgnoreCase("AverageEnd") ) {
-        return getPropContents_AverageEnd();
-    }
-    else if ( propName.equalsIgnoreCase("AverageStart") ) {
-        return getPropContents_AverageStart();
-    }
-    else if ( propName.equalsIgnoreCase("CommandFileName") ) {
-        return getCommandFileName();
-    }
-    else if ( propName.equalsIgnoreCase("CommandsShouldClearRunStatus") ) {
-        return getPropContents_CommandsShouldClearRunStatus();
-    }
-	else if ( propName.equalsIgnoreCase("CreateOutput") ) {
-		return getPropContents_CreateOutput();
-	}
-    else if ( propName.equalsIgnoreCase("DebugLevelLogFile") ) {
-        return Integer.valueOf(Message.getDebugLevel(Message.LOG_OUTPUT));
-    }
-    else if ( propName.equalsIgnoreCase("DebugLevelScreen") ) {
-        return Integer.valueOf(Message.getDebugLevel(Message.TERM_OUTPUT));
-    }
-    else if ( propName.equalsIgnoreCase("EnsembleResultsList") ) {
-        return getPropContents_EnsembleResultsList();
-    }
-	else if ( propName.equalsIgnoreCase("HaveOutputPeriod") ) {
-		return getPropContents_HaveOutputPeriod();
-	}
-    else if ( propName.equalsIgnoreCase("HydroBaseDMIList") ) {
-        return getPropContents_HydroBaseDMIList();
-    }
-    else if ( propName.equalsIgnoreCase("HydroBaseDMIListSize") ) {
-        return getPropContents_HydroBaseDMIListSize();
-    }
-    else if ( propName.equalsIgnoreCase("IgnoreLEZero") ) {
-        return getPropContents_IgnoreLEZero();
-    }
-	else if ( propName.equalsIgnoreCase("IncludeMissingTS") ) {
-		return getPropContents_IncludeMissingTS();
-	}
-	else if ( propName.equalsIgnoreCase("InitialWorkingDir") ) {
-		return getPropContents_InitialWorkingDir();
-	}
-	else if ( propName.equalsIgnoreCase("InputEnd") ) {
-		return getPropContents_InputEnd();
-	}
-	else if ( propName.equalsIgnoreCase("InputStart") ) {
-		return getPropContents_InputStart();
-	}
-    else if ( propName.equalsIgnoreCase("NetworkResultsList") ) {
-        return getPropContents_NetworkResultsList();
-    }
-    else if ( propName.equalsIgnoreCase("ObjectResultsList") ) {
-        return getPropContents_ObjectResultsList();
-    }
-	else if ( propName.equalsIgnoreCase("OutputComments") ) {
-		return getPropContents_OutputComments();
-	}
-	else if ( propName.equalsIgnoreCase("OutputEnd") ) {
-		return getPropContents_OutputEnd();
-	}
-	else if ( propName.equalsIgnoreCase("OutputFileList") ) {
-		return getPropContents_OutputFileList();
-	}
-	else if ( propName.equalsIgnoreCase("OutputStart") ) {
-		return getPropContents_OutputStart();
-	}
-	else if ( propName.equalsIgnoreCase("OutputYearType") ) {
-		return getPropContents_OutputYearType();
-	}
-    else if ( propName.equalsIgnoreCase("PatternTSList") ) {
-        return getPropContents_PatternTSList();
-    }
-    else if ( propName.equalsIgnoreCase("StartLogEnabled") ) {
-        return getPropContents_StartLogEnabled();
-    }
-    else if ( propName.equalsIgnoreCase("TableResultsList") ) {
-        return getPropContents_TableResultsList();
-    }
-    else if ( propName.equalsIgnoreCase("TimeSeriesViewResultsList") ) {
-        return getPropContents_TimeSeriesViewResultsList();
-    }
-    else if ( propName.equalsIgnoreCase("TSEnsembleResultsListSize") ) {
-        return getPropContents_TSEnsembleResultsListSize();
-    }
-	else if ( propName.equalsIgnoreCase("TSProductAnnotationProviderList") ) {
-		return getPropContents_TSProductAnnotationProviderList();
-	}
-	else if ( propName.equalsIgnoreCase("TSResultsList") ) {
-		return getPropContents_TSResultsList();
-	}
-	else if ( propName.equalsIgnoreCase("TSResultsListSize") ) {
-		return getPropContents_TSResultsListSize();
-	}
-	else if ( propName.equalsIgnoreCase("TSViewWindowListener") ) {
-		return getPropContents_TSViewWindowListener();
-	}
-    else if ( propName.equalsIgnoreCase("WarningLevelLogFile") ) {
-        return Integer.valueOf(Message.getWarningLevel(Message.LOG_OUTPUT));
-    }
-    else if ( propName.equalsIgnoreCase("WarningLevelScreen") ) {
-        return Integer.valueOf(Message.getWarningLevel(Message.TERM_OUTPUT));
-    }
-	else if ( propName.equalsIgnoreCase("WorkingDir") ) {
-		return getPropContents_WorkingDir();
-	}
-	else if ( propName.equalsIgnoreCase("WorkingDirPortable") ) {
-		return IOUtil.toPortablePath(getPropContents_WorkingDir());
-	}
-	else if ( propName.equalsIgnoreCase("WorkingDirPosix") ) {
-		return IOUtil.toPosixPath(getPropContents_WorkingDir());
+	// Built-in properties are looked up using upper-case names rather than comparing each property name.
+	PropContentsGetter getter = (propName == null) ? null : PROP_CONTENTS_GETTER_MAP.get ( propName.toUpperCase(Locale.ROOT) );
+	if ( getter != null ) {
+		return getter.getPropContents ( this );
 	}
 	else {
 	    // Property is not one of the individual objects that have been historically maintained,
@@ -1705,7 +1815,8 @@ Handle the TSResultsListSize property request.
 @return Size of the time series results list, as an Integer.
 */
 private Integer getPropContents_TSResultsListSize() {
-	return Integer.valueOf( this.__tsengine.getTimeSeriesList(null).size());
+	// Use the size so that the time series list is not considered to be returned to the caller.
+	return Integer.valueOf( this.__tsengine.getTimeSeriesSize());
 }
 
 /**
@@ -1725,6 +1836,23 @@ private String getPropContents_WorkingDir() {
 	return getWorkingDir();
 }
 
+/**
+Return the value of a property, equivalent to the GetProperty request
+but without creating request parameter and result objects, which is faster for frequent calls.
+User-specified properties are checked first and if not found the built-in properties are checked.
+@param propertyName name of the property to return
+@return the property value, or null if not found
+@exception Exception if there is an error getting the property
+*/
+public Object getProperty ( String propertyName ) throws Exception {
+    Object propertyValue = this.__propertyHashmap.get ( propertyName );
+    if ( propertyValue == null ) {
+        // Try the built-in properties.
+        propertyValue = getPropContents(propertyName);
+    }
+    return propertyValue;
+}
+
 /**
 Return the list of property names available from the processor.
 These properties can be requested using getPropContents().
@@ -1799,6 +1927,112 @@ public boolean getReadOnly () {
     return false;
 }
 
+/**
+Return the table matching the table identifier, equivalent to the GetTable request
+but without creating request parameter and result objects, which is faster for frequent calls.
+@param tableID table identifier to match (case-insensitive)
+@return the first matching table, or null if not found
+*/
+public DataTable getTable ( String tableID ) {
+    if ( (this.__TableList == null) || (tableID == null) ) {
+        return null;
+    }
+    synchronized ( this.tableIDMap ) {
+        if ( this.tableIDMapListSize != this.__TableList.size() ) {
+            // Tables have been added or removed so rebuild the map.
+            this.tableIDMap.clear();
+            this.tableIDMapListSize = this.__TableList.size();
+            for ( int i = 0; i < this.tableIDMapListSize; i++ ) {
+                DataTable table = this.__TableList.get(i);
+                if ( table.getTableID() != null ) {
+                    // Keep the first table for an identifier, consistent with searching the list.
+                    this.tableIDMap.putIfAbsent ( table.getTableID().toUpperCase(Locale.ROOT), table );
+                }
+            }
+        }
+        DataTable table = this.tableIDMap.get ( tableID.toUpperCase(Locale.ROOT) );
+        if ( (table != null) && tableID.equalsIgnoreCase(table.getTableID()) ) {
+            return table;
+        }
+    }
+    // Not found in the map, for example if a table identifier was changed after the table was added, so search the list.
+    // Use an index loop, consistent with other code that accesses the Vector.
+    for ( int i = 0; i < this.__TableList.size(); i++ ) {
+        DataTable table = this.__TableList.get(i);
+        if ( table.getTableID().equalsIgnoreCase(tableID) ) {
+            return table;
+        }
+    }
+    return null;
+}
+
+/**
+Return the index for a table column, which is used to find table records without searching the table.
+The index is shared by commands and is rebuilt if the number of records or columns in the table has changed.
+@param table table to index
+@param column column number (0+) to index
+@return the index for the table column
+@exception Exception if there is an error creating the index
+*/
+public TableColumnIndex getTableColumnIndex ( DataTable table, int column )
+throws Exception {
+    synchronized ( this.tableColumnIndexMap ) {
+        Map<Integer,TableColumnIndex> columnIndexMap = this.tableColumnIndexMap.get ( table );
+        if ( columnIndexMap == null ) {
+            columnIndexMap = new HashMap<>();
+            this.tableColumnIndexMap.put ( table, columnIndexMap );
+        }
+        TableColumnIndex index = columnIndexMap.get ( Integer.valueOf(column) );
+        if ( (index == null) || !index.isValid() ) {
+            index = new TableColumnIndex ( table, column );
+            columnIndexMap.put ( Integer.valueOf(column), index );
+        }
+        return index;
+    }
+}
+
+/**
+Return the time series at a position in the results list, equivalent to the GetTimeSeries request
+but without creating request parameter and result objects, which is faster for frequent calls.
+@param index position in the time series results list (0+)
+@return the time series or null if none is available at the position
+@exception Exception if there is an error getting the time series
+*/
+public TS getTimeSeries ( int index ) throws Exception {
+    return this.__tsengine.getTimeSeries ( index );
+}
+
+/**
+Return the time series matching a time series identifier or alias, equivalent to the GetTimeSeriesForTSID request
+but without creating request parameter and result objects, which is faster for frequent calls.
+The time series is located by processing backwards in the list.
+@param commandTag command tag for messages, can be empty
+@param tsid time series identifier or alias
+@return the matching time series, or null if not found
+@exception Exception if there is an error getting the time series
+*/
+public TS getTimeSeriesForTSID ( String commandTag, String tsid ) throws Exception {
+    if ( commandTag == null ) {
+        commandTag = "";
+    }
+    return this.__tsengine.getTimeSeries ( commandTag, tsid );
+}
+
+/**
+Return the time series to process, equivalent to the GetTimeSeriesToProcess request
+but without creating request parameter and result objects, which is faster for frequent calls.
+@param tsList TSList parameter value (e.g., "AllTS")
+@param tsid TSID parameter value, can be null
+@param ensembleID EnsembleID parameter value, can be null
+@param tsPosition TSPosition parameter value, can be null
+@return the time series to process, including positions and errors
+@exception Exception if there is an error getting the time series
+*/
+public TimeSeriesToProcess getTimeSeriesToProcess ( String tsList, String tsid, String ensembleID, String tsPosition )
+throws Exception {
+    return this.__tsengine.getTimeSeriesToProcess ( tsList, tsid, ensembleID, tsPosition );
+}
+
 /**
 Return the TSSupplier name.
 @return the TSSupplier name ("TSEngine").
@@ -1834,6 +2068,13 @@ Determine the index of a command in the processor.  A reference comparison occur
 @return the index (0+) of the matching command, or -1 if not found.
 */
 public int indexOf ( Command command ) {
+	if ( this.discoveryIndex != null ) {
+		// Commands are being loaded so use the index.
+		int pos = this.discoveryIndex.indexOf ( command );
+		if ( pos >= 0 ) {
+			return pos;
+		}
+	}
 	return TSCommandProcessorUtil.indexOf(this,command,0);
 }
 
@@ -1845,6 +2086,14 @@ Add a command using the Command instance.
 public void insertCommandAt ( Command command, int index ) {
 	String routine = getClass().getSimpleName() + ".insertCommandAt";
 	this.__CommandList.add( index, command);
+	if ( this.discoveryIndex != null ) {
+		if ( index == (this.__CommandList.size() - 1) ) {
+			this.discoveryIndex.commandAdded ( command, index );
+		}
+		else {
+			this.discoveryIndex.commandInserted ( index );
+		}
+	}
 	// Also add this processor as a listener for events.
     if ( command instanceof CommandProcessorEventProvider ) {
         CommandProcessorEventProvider ep = (CommandProcessorEventProvider)command;
@@ -1875,6 +2124,21 @@ public void insertCommandAt ( String command_string, int index ) {
 	Message.printStatus(2, routine, "Creating generic command from string \"" + command_string + "\"." );
 }
 
+/**
+Return the contents for a named property, without throwing an exception.
+This is used when expanding ${Property} strings, where a missing property is a normal condition.
+@param propName name of property to look up.
+@return the contents for a named property, or null if a value is not found.
+*/
+public Object lookupPropContents ( String propName ) {
+	try {
+		return getPropContents ( propName );
+	}
+	catch ( Exception e ) {
+		return null;
+	}
+}
+
 /**
 Return a SetWorkingDir(xxx) command where xxx is the initial working directory.
 This command should be prepended to the list of SetWorkingDir() commands that
@@ -2431,148 +2695,11 @@ Returned values from this request are:
 */
 public CommandProcessorRequestResultsBean processRequest ( String request, PropList request_params, PropList processorProps )
 throws Exception {
-	//return __tsengine.getPropContents ( prop );
-    if ( request.equalsIgnoreCase("AddCommandProcessorEventListener") ) {
-        return processRequest_AddCommandProcessorEventListener ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("AppendTimeSeries") ) {
-		return processRequest_AppendTimeSeries ( request, request_params );
-	}
-    else if ( request.equalsIgnoreCase("AppendEnsemble") ) {
-        return processRequest_AppendEnsemble( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("CalculateTSAverageLimits") ) {
-		return processRequest_CalculateTSAverageLimits ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("DateTime") ) {
-		return processRequest_DateTime ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("GetEnsemble") ) {
-        return processRequest_GetEnsemble ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("GetEnsembleAt") ) {
-        return processRequest_GetEnsembleAt ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("GetGeoMapProject") ) {
-        return processRequest_GetGeoMapProject ( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("GetHydroBaseDMI") ) {
-		return processRequest_GetHydroBaseDMI ( request, request_params );
-	}
-    else if ( request.equalsIgnoreCase("GetNetwork") ) {
-        return processRequest_GetNetwork ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("GetNwsrfsDMI") ) {
-        return processRequest_GetNwsrfsDMI ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("GetObject") ) {
-        return processRequest_GetObject ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("GetOutputPeriodForCommand") ) {
-        return processRequest_GetOutputPeriodForCommand ( request, request_params );
-    }
-    // Put before shorter GetProperty.
-    else if ( request.equalsIgnoreCase("GetPropertyHashtable") ) {
-        return processRequest_GetPropertyHashtable ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("GetProperty") ) {
-        return processRequest_GetProperty ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("GetTable") ) {
-        return processRequest_GetTable ( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("GetTimeSeries") ) {
-		return processRequest_GetTimeSeries ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("GetTimeSeriesForTSID") ) {
-		return processRequest_GetTimeSeriesForTSID ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("GetTimeSeriesToProcess") ) {
-		return processRequest_GetTimeSeriesToProcess ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("GetTSIDListNoInputAboveCommand") ) {
-		return processRequest_GetTSIDListNoInputAboveCommand ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("GetWorkingDirForCommand") ) {
-		return processRequest_GetWorkingDirForCommand ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("IndexOf") ) {
-		return processRequest_IndexOf ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("ProcessCommands") ) {
-		return processRequest_ProcessCommands ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("ProcessTimeSeriesAction") ) {
-		return processRequest_ProcessTimeSeriesAction ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("ProcessTimeSeriesResultsList") ) {
-		return processRequest_ProcessTimeSeriesResultsList ( request, request_params );
-	}
-    else if ( request.equalsIgnoreCase("ReadTimeSeries") ) {
-        return processRequest_ReadTimeSeries ( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("ReadTimeSeries2") ) {
-		return processRequest_ReadTimeSeries2 ( request, request_params );
+	// Requests are looked up using upper-case names rather than comparing each request name.
+	RequestHandler handler = (request == null) ? null : REQUEST_HANDLER_MAP.get ( request.toUpperCase(Locale.ROOT) );
+	if ( handler != null ) {
+		return handler.processRequest ( this, request, request_params, processorProps );
 	}
-    else if ( request.equalsIgnoreCase("RemoveAllFromEnsembleResultsList") ) {
-        return processRequest_RemoveAllFromEnsembleResultsList ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("RemoveAllFromTimeSeriesResultsList") ) {
-        return processRequest_RemoveAllFromTimeSeriesResultsList ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("RemoveGeoMapProjectFromResultsList") ) {
-        return processRequest_RemoveGeoMapProjectFromResultsList ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("RemoveObjectFromResultsList") ) {
-        return processRequest_RemoveObjectFromResultsList ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("RemoveProperty") ) {
-        return processRequest_RemoveProperty ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("RemoveTableFromResultsList") ) {
-        return processRequest_RemoveTableFromResultsList ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("RemoveTimeSeriesFromResultsList") ) {
-        return processRequest_RemoveTimeSeriesFromResultsList ( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("RunCommands") ) {
-		// This requires the initial properties.
-		return processRequest_RunCommands ( request, request_params, processorProps );
-	}
-    else if ( request.equalsIgnoreCase("DataStore") ) {
-    	// TODO smalers 2024-11-20 should this be SetDataStore?
-        return processRequest_SetDataStore ( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("SetGeoMapProject") ) {
-		return processRequest_SetGeoMapProject ( request, request_params );
-	}
-	else if ( request.equalsIgnoreCase("SetHydroBaseDMI") ) {
-		return processRequest_SetHydroBaseDMI ( request, request_params );
-	}
-    else if ( request.equalsIgnoreCase("SetNetwork") ) {
-        return processRequest_SetNetwork ( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("SetNWSRFSFS5FilesDMI") ) {
-		return processRequest_SetNWSRFSFS5FilesDMI ( request, request_params );
-	}
-    else if ( request.equalsIgnoreCase("SetObject") ) {
-        return processRequest_SetObject ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("SetPatternTSList") ) {
-        return processRequest_SetPatternTSList ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("SetProperty") ) {
-        return processRequest_SetProperty ( request, request_params );
-    }
-    else if ( request.equalsIgnoreCase("SetTable") ) {
-        return processRequest_SetTable ( request, request_params );
-    }
-	else if ( request.equalsIgnoreCase("SetTimeSeries") ) {
-		return processRequest_SetTimeSeries ( request, request_params );
-	}
-    else if ( request.equalsIgnoreCase("SetTimeSeriesView") ) {
-        return processRequest_SetTimeSeriesView ( request, request_params );
-    }
 	else {
 		TSCommandProcessorRequestResultsBean bean = new TSCommandProcessorRequestResultsBean();
 		String warning = "Unknown TSCommandProcessor request \"" + request + "\"";
@@ -2993,11 +3120,7 @@ throws Exception {
         throw new RequestParameterNotFoundException ( warning );
     }
     String PropertyName = (String)o;
-    Object PropertyValue = this.__propertyHashmap.get ( PropertyName );
-    if ( PropertyValue == null ) {
-        // Try the built-in properties.
-        PropertyValue = getPropContents(PropertyName);
-    }
+    Object PropertyValue = getProperty ( PropertyName );
     // Return the property value in the bean.
     PropList results = bean.getResultsPropList();
     // This will be set in the bean because the PropList is a reference.
@@ -3053,22 +3176,7 @@ throws Exception {
             throw new RequestParameterNotFoundException ( warning );
     }
     String TableID = (String)o;
-    int size = 0;
-    if ( this.__TableList != null ) {
-        size = this.__TableList.size();
-    }
-    DataTable table = null;
-    boolean found = false;
-    for ( int i = 0; i < size; i++ ) {
-        table = (DataTable)this.__TableList.get(i);
-        if ( table.getTableID().equalsIgnoreCase(TableID) ) {
-            found = true;
-            break;
-        }
-    }
-    if ( !found ) {
-        table = null;
-    }
+    DataTable table = getTable ( TableID );
     PropList results = bean.getResultsPropList();
     // This will be set in the bean because the PropList is a reference.
     results.setUsingObject("Table", table );
@@ -3090,7 +3198,7 @@ throws Exception {
 			throw new RequestParameterNotFoundException ( warning );
 	}
 	Integer Index = (Integer)o;
-	TS ts = this.__tsengine.getTimeSeries ( Index.intValue() );
+	TS ts = getTimeSeries ( Index.intValue() );
 	PropList results = bean.getResultsPropList();
 	// This will be set in the bean because the PropList is a reference.
 	results.setUsingObject("TS", ts );
@@ -3121,7 +3229,7 @@ throws Exception {
 	if ( o != null ) {
 		CommandTag = (String)o;
 	}
-	TS ts = this.__tsengine.getTimeSeries ( CommandTag, TSID );
+	TS ts = getTimeSeriesForTSID ( CommandTag, TSID );
 	PropList results = bean.getResultsPropList();
 	// This will be set in the bean because the PropList is a reference.
 	results.setUsingObject("TS", ts );
@@ -3166,7 +3274,7 @@ throws Exception {
 	// Get the information from TSEngine, which is returned as a list
 	// with the first element being the matching time series list and the second
 	// being the indices of those time series in the time series results list.
-    TimeSeriesToProcess tsToProcess = this.__tsengine.getTimeSeriesToProcess ( TSList, TSID, EnsembleID, TSPosition );
+    TimeSeriesToProcess tsToProcess = getTimeSeriesToProcess ( TSList, TSID, EnsembleID, TSPosition );
 	List<TS> tsList = tsToProcess.getTimeSeriesList();
 	int [] tsPos = tsToProcess.getTimeSeriesPositions();
 	List<String> errorList = tsToProcess.getErrors();
@@ -3709,8 +3817,10 @@ throws Exception {
         // Remove and decrement the counter so that the next table is checked.
         if ( table.getTableID().equalsIgnoreCase(TableID) ) {
             this.__TableList.remove(i--);
+            removeTableColumnIndexes ( table );
         }
     }
+    resetTableIDMap();
     return bean;
 }
 
@@ -4075,12 +4185,16 @@ throws Exception {
         table = (DataTable)this.__TableList.get(i);
         if ( table.getTableID().equalsIgnoreCase(o_DataTable.getTableID())) {
             this.__TableList.set(i,o_DataTable);
+            if ( table != o_DataTable ) {
+                removeTableColumnIndexes ( table );
+            }
             found = true;
         }
     }
     if ( !found ) {
         this.__TableList.add ( o_DataTable );
     }
+    resetTableIDMap();
     // No data are returned in the bean.
     return bean;
 }
@@ -4236,6 +4350,9 @@ private void readCommandFile_RunDiscoveryOnCommand ( Command command ) {
     }
     try {
         ((CommandDiscoverable)command).runCommandDiscovery(indexOf(command));
+        if ( this.discoveryIndex != null ) {
+            this.discoveryIndex.commandChanged ( command );
+        }
     }
     catch ( Exception e ) {
         // TODO SAM 2011-02-17 Need to show warning to user?  With current design, code should have complete input.
@@ -4346,6 +4463,9 @@ public void removeAllCommands () {
 	int size = this.__CommandList.size();
 	if ( size > 0 ) {
 		this.__CommandList.clear ();
+		if ( this.discoveryIndex != null ) {
+			this.discoveryIndex.commandRemoved ( 0, size - 1 );
+		}
 		notifyCommandListListenersOfRemove ( 0, size - 1 );
 	}
 }
@@ -4375,6 +4495,9 @@ Remove a command at a position.
 public void removeCommandAt ( int index ) {
 	String routine = getClass().getSimpleName() + ".removeCommandAt";
 	this.__CommandList.remove ( index );
+	if ( this.discoveryIndex != null ) {
+		this.discoveryIndex.commandRemoved ( index, index );
+	}
 	notifyCommandListListenersOfRemove ( index, index );
 	Message.printStatus(2, routine, "Remove command object at [" + index + "]" );
 }
@@ -4412,6 +4535,34 @@ public void removeCommandListListener ( CommandListListener listener ) {
 	}
 }
 
+/**
+Discard the column indexes for a table, called when the table is removed or replaced in the table list.
+@param table table that was removed
+*/
+private void removeTableColumnIndexes ( DataTable table ) {
+    synchronized ( this.tableColumnIndexMap ) {
+        this.tableColumnIndexMap.remove ( table );
+    }
+}
+
+/**
+Discard all table column indexes, called when the table list is cleared.
+*/
+private void resetTableColumnIndexes () {
+    synchronized ( this.tableColumnIndexMap ) {
+        this.tableColumnIndexMap.clear();
+    }
+}
+
+/**
+Indicate that the table identifier map needs to be rebuilt because tables were changed in the table list.
+*/
+private void resetTableIDMap () {
+    synchronized ( this.tableIDMap ) {
+        this.tableIDMapListSize = -1;
+    }
+}
+
 /**
 Reset the workflow global properties to defaults, necessary when a command processor is rerun.
 For example, initial properties include user name, home folder, etc.
@@ -4645,6 +4796,15 @@ public void setCommandFileName ( String filename ) {
 	this.__commandFilename = filename;
 }
 
+/**
+Set the profiler that accumulates run statistics for each command.
+For example, RunCommands() sets a nested profiler from the main processor so that statistics are available to ProfileCommands().
+@param commandProfiler the command profiler
+*/
+public void setCommandProfiler ( CommandProfiler commandProfiler ) {
+	this.commandProfiler = commandProfiler;
+}
+
 /**
 Set whether commands should clear their run status before running, used to accumulate status with For() commands.
 @param clear true if commands should clear their status before running, false if status should be accumulated.
@@ -5006,4 +5166,18 @@ public int size() {
 	return this.__CommandList.size();
 }
 
-}
\ No newline at end of file
+/**
+Copy a map to an unmodifiable map that uses upper-case keys, for case-insensitive lookups with a single hash lookup.
+Keys are converted using Locale.ROOT, and lookup keys must also be converted using Locale.ROOT.
+@param map map to copy
+@return unmodifiable map using upper-case keys
+*/
+private static <T> Map<String,T> toUpperCaseKeyMap ( Map<String,T> map ) {
+	Map<String,T> upperCaseMap = new HashMap<>();
+	for ( Map.Entry<String,T> entry : map.entrySet() ) {
+		upperCaseMap.put ( entry.getKey().toUpperCase(Locale.ROOT), entry.getValue() );
+	}
+	return Collections.unmodifiableMap(upperCaseMap);
+}
+
+}
@@ -31,8 +31,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
-import java.io.StringReader;
 import java.lang.StringBuffer;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -41,6 +42,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import rti.tscommandprocessor.commands.ts.ReadTimeSeries_Command;
 import RTi.DMI.DatabaseDataStore;
@@ -73,8 +75,6 @@ import RTi.Util.Table.DataTable;
 import RTi.Util.Table.TableRecord;
 import RTi.Util.Time.DateTime;
 import RTi.Util.Time.DateTimeRange;
-import freemarker.cache.FileTemplateLoader;
-import freemarker.template.Configuration;
 import freemarker.template.SimpleSequence;
 import freemarker.template.Template;
 import freemarker.template.Version;
@@ -118,6 +118,80 @@ Table to contain regression test results.
 */
 private static DataTable __regressionTestTable = null;
 
+/**
+Regression test report records that are saved for the current thread rather than being added to the report,
+used by ParallelRegressionTestRunner so that tests that are run in parallel are added to the report in command order.
+The list is null if records are added to the report when each test is run.
+*/
+private static final ThreadLocal<List<RegressionTestRecord>> __regressionTestDeferredRecords = new ThreadLocal<>();
+
+/**
+Regression test report record, saved when tests are run in parallel.
+*/
+static class RegressionTestRecord {
+	private boolean isEnabled;
+	private long runTimeMs;
+	private String testPassFail;
+	private String expectedStatus;
+	private CommandStatusType maxSeverity;
+	private String testCommandFile;
+}
+
+/**
+Maximum number of compiled parameter value templates cached for each command.
+*/
+private static final int PARAMETER_VALUE_TEMPLATE_CACHE_SIZE = 64;
+
+/**
+Cache of compiled parameter value templates, used by expandParameterValue():
+- the outer map is keyed by command identity using weak references so that commands that are deleted can be garbage collected
+- the inner map for each command is keyed by the parameter value string so that editing the command text,
+  which results in new parameter values, will result in new templates being compiled
+- the inner map is cleared when full so that old parameter values are discarded
+- concurrent maps are used so that commands run in parallel For() iterations do not wait on a lock
+*/
+private static final Map<ParameterValueTemplateKey,Map<String,ParameterValueTemplate>> __parameterValueTemplateCache = new ConcurrentHashMap<>();
+
+/**
+Compiled parameter value templates for expansions without a command.
+*/
+private static final Map<String,ParameterValueTemplate> __parameterValueTemplateCacheNoCommand = new ConcurrentHashMap<>();
+
+/**
+Queue of command keys for commands that have been garbage collected, used to remove cache entries.
+*/
+private static final ReferenceQueue<Command> __parameterValueTemplateQueue = new ReferenceQueue<>();
+
+/**
+Weak reference to a command, used as the key for the parameter value template cache.
+Keys are compared using command identity, consistent with the commands in the processor.
+*/
+private static class ParameterValueTemplateKey extends WeakReference<Command> {
+	private final int hashCode;
+
+	ParameterValueTemplateKey ( Command command, ReferenceQueue<Command> queue ) {
+		super ( command, queue );
+		this.hashCode = System.identityHashCode(command);
+	}
+
+	@Override
+	public boolean equals ( Object o ) {
+		if ( o == this ) {
+			return true;
+		}
+		if ( !(o instanceof ParameterValueTemplateKey) ) {
+			return false;
+		}
+		Command command = get();
+		return (command != null) && (command == ((ParameterValueTemplateKey)o).get());
+	}
+
+	@Override
+	public int hashCode () {
+		return this.hashCode;
+	}
+}
+
 /**
 Append a time series to the processor time series results list.
 @param processor the CommandProcessor to use to get data.
@@ -176,6 +250,46 @@ enabled in order to generate an inventory of disabled tests that need cleanup)
 @param testCommandFile the full path to the command file that was run.
 */
 public static void appendToRegressionTestReport(CommandProcessor processor, boolean isEnabled, long runTimeMs,
+    String testPassFail, String expectedStatus, CommandStatusType maxSeverity,
+    String testCommandFile ) {
+    List<RegressionTestRecord> deferredRecords = __regressionTestDeferredRecords.get();
+    if ( deferredRecords != null ) {
+    	// The test is being run in parallel so save the record to add to the report in command order.
+    	RegressionTestRecord record = new RegressionTestRecord();
+    	record.isEnabled = isEnabled;
+    	record.runTimeMs = runTimeMs;
+    	record.testPassFail = testPassFail;
+    	record.expectedStatus = expectedStatus;
+    	record.maxSeverity = maxSeverity;
+    	record.testCommandFile = testCommandFile;
+    	deferredRecords.add ( record );
+    	return;
+    }
+    appendToRegressionTestReport ( isEnabled, runTimeMs, testPassFail, expectedStatus, maxSeverity, testCommandFile );
+}
+
+/**
+Add regression test records that were saved while running tests in parallel to the report, in the order of the list.
+@param records records returned by endDeferredRegressionTestRecords()
+*/
+static synchronized void appendToRegressionTestReport ( List<RegressionTestRecord> records ) {
+	for ( RegressionTestRecord record : records ) {
+		appendToRegressionTestReport ( record.isEnabled, record.runTimeMs, record.testPassFail,
+			record.expectedStatus, record.maxSeverity, record.testCommandFile );
+	}
+}
+
+/**
+Add a record to the regression test results report and optionally results table.
+This is synchronized because tests may be run in parallel.
+@param isEnabled whether the command file is enabled
+@param runTimeMs run time for the command in milliseconds
+@param testPassFail whether the test was a success or failure
+@param expectedStatus the expected status (as a string)
+@param maxSeverity the maximum severity from the command file that was run.
+@param testCommandFile the full path to the command file that was run.
+*/
+private static synchronized void appendToRegressionTestReport ( boolean isEnabled, long runTimeMs,
     String testPassFail, String expectedStatus, CommandStatusType maxSeverity,
     String testCommandFile ) {
     ++__regressionTestLineCount;
@@ -299,7 +413,7 @@ Close the regression test report file.
 Also create a file that is the same but with name including '.nonum' at the end that
 does not have test numbers, which facilitates comparing the results, for example in KDiff3.
 */
-public static void closeRegressionTestReportFile () {
+public static synchronized void closeRegressionTestReportFile () {
 	String routine = TSCommandProcessorUtil.class.getSimpleName() + ".closeRegressionTestReportFile";
     if ( __regression_test_fp == null ) {
         return;
@@ -572,7 +686,6 @@ Properties ${${property}-abc} are nested and will be expanded twice to get the v
 @return the expanded string or null if the input string was null
 */
 public static String expandParameterValue ( CommandProcessor processor, Command command, String parameterValue ) {
-    String routine = TSCommandProcessorUtil.class.getSimpleName() + ".expandParameterValue";
     // Normal property start delimiter.
    	String delimStart = "${";
     if ( (parameterValue == null) || (parameterValue.length() == 0) || !parameterValue.contains(delimStart) ) { // }
@@ -582,6 +695,29 @@ public static String expandParameterValue ( CommandProcessor processor, Command
         // - just return the input
         return parameterValue;
     }
+    // Use the compiled template for the parameter value so that the string is only parsed once,
+    // for example when the command is run in a For() loop.
+    ParameterValueTemplate template = getParameterValueTemplate ( command, parameterValue );
+    if ( !template.isNested() ) {
+    	return template.expand ( processor );
+    }
+    // Nested properties require multiple passes.
+    return expandParameterValueNested ( processor, command, parameterValue );
+}
+
+/**
+Expand a command parameter string containing processor-level properties, handling nested properties.
+This method parses the parameter value each time it is called and is used when the parameter value
+cannot be handled by ParameterValueTemplate.  See expandParameterValue() for documentation.
+@param processor the CommandProcessor that has a list of named properties.
+@param command the command that is being processed (may be used later for context sensitive values).
+@param parameterValue the parameter value being expanded, containing literal substrings and optionally ${Property} properties.
+@return the expanded string
+*/
+private static String expandParameterValueNested ( CommandProcessor processor, Command command, String parameterValue ) {
+    String routine = TSCommandProcessorUtil.class.getSimpleName() + ".expandParameterValue";
+    // Normal property start delimiter.
+   	String delimStart = "${";
    	// End of property.
    	String delimEnd = "}";
    	// Nested delimiter:
@@ -819,41 +955,39 @@ public static String expandParameterValue ( CommandProcessor processor, Command
 public static int expandTemplateFile ( CommandProcessor processor, String inputFile, String outputFile, boolean useTables,
 	CommandStatus status, String commandTag, int warningLevel, int warningCount ) throws FileNotFoundException, IOException, Exception {
 	String message, routine = "TSCommandProcessorUtil.expandTemplateFile";
-	// Call the FreeMarker API.
-	// TODO sam 2017-04-08 figure out whether can re-use a singleton.
-	// Configuration is intended to be a shared singleton but templates can exist in many folders.
-    Configuration config = new Configuration(new Version(2,3,0));
-    // TODO SAM 2009-10-07 Not sure what configuration is needed for TSTool since most
-    // templates will be located with command files and user data.
-    //config.setSharedVariable("shared", "avoid global variables");
-    // See comment below on why this is used.
-    config.setSharedVariable("normalizeNewlines", new freemarker.template.utility.NormalizeNewlines());
-    config.setTemplateLoader(new FileTemplateLoader(new File(".")));
-
-    // In some applications, use config to load templates as it provides caching.
-    //Template template = config.getTemplate("some-template.ftl");
-
-    // Manipulate the template file into an in-memory string so it can be manipulated.
-    StringBuffer b = new StringBuffer();
+	// Call the FreeMarker API:
+	// - the configuration and parsed template are shared using the processor's cache
+	//   so that expanding the template again (e.g., in a loop) does not parse the template again
+	// - the template file is only read if the template is not in the cache
+
     // Prepend any extra FreeMarker content that should be handled transparently.
     // "normalizeNewlines" is used to ensure that output has line breaks consistent with the operating system
     // (e.g., so that results can be edited in Notepad on Windows).
     // Setting the number_format to "computer" ensures that output of an integer such as 1234 does not include comma like 1,234.
     String nl = System.getProperty("line.separator");
-    b.append("<#setting number_format=\"computer\">" + nl );
-    b.append("<@normalizeNewlines>" + nl );
+    String templatePrefix = "<#setting number_format=\"computer\">" + nl + "<@normalizeNewlines>" + nl;
     List<String> templateLines = new ArrayList<>();
-    if ( inputFile != null ) {
-        templateLines = IOUtil.fileToStringList(inputFile);
-    }
-    b.append(StringUtil.toString(templateLines,nl));
-    b.append(nl + "</@normalizeNewlines>" );
     Template template = null;
     boolean error = false;
     try {
-        template = new Template("template", new StringReader(b.toString()), config);
+        String templateKey = FreeMarkerTemplateCache.createTextTemplateKey(templatePrefix, "");
+        if ( inputFile != null ) {
+            templateKey = FreeMarkerTemplateCache.createFileTemplateKey(templatePrefix, new File(inputFile));
+        }
+        template = getFreeMarkerTemplateCache(processor).getTemplate ( new Version(2,3,0), templateKey, () -> {
+            // Manipulate the template file into an in-memory string so it can be manipulated.
+            StringBuffer b = new StringBuffer();
+            b.append(templatePrefix);
+            if ( inputFile != null ) {
+                templateLines.addAll(IOUtil.fileToStringList(inputFile));
+            }
+            b.append(StringUtil.toString(templateLines,nl));
+            b.append(nl + "</@normalizeNewlines>" );
+            return b.toString();
+        });
     }
     catch ( Exception e1 ) {
+        readTemplateLinesForWarning ( inputFile, templateLines );
         message = "Freemarker error expanding command template file \"" + inputFile +
             "\" + (" + e1 + ") template text (with internal inserts at ends) =" + nl +
             formatTemplateForWarning(templateLines,nl);
@@ -910,6 +1044,7 @@ public static int expandTemplateFile ( CommandProcessor processor, String inputF
                 template.process (model, out);
             }
             catch ( Exception e1 ) {
+                readTemplateLinesForWarning ( inputFile, templateLines );
                 message = "Freemarker error expanding command template file \"" + inputFile +
                     "\" + (" + e1 + ") template text (with internal inserts at ends) =\n" +
                     formatTemplateForWarning(templateLines,nl);
@@ -946,6 +1081,23 @@ private static StringBuffer formatTemplateForWarning ( List<String> templateLine
     return templateFormatted;
 }
 
+/**
+Read the template file lines for a warning message, if not already read.
+The lines are not read when the parsed template is found in the template cache.
+@param inputFile template file, can be null
+@param templateLines template file lines, which are added to if empty
+*/
+private static void readTemplateLinesForWarning ( String inputFile, List<String> templateLines ) {
+    if ( (inputFile != null) && templateLines.isEmpty() ) {
+        try {
+            templateLines.addAll(IOUtil.fileToStringList(inputFile));
+        }
+        catch ( Exception e ) {
+            // Warning will not include the template lines.
+        }
+    }
+}
+
 /**
 Expand a string using:
 <ol>
@@ -1017,12 +1169,10 @@ public static String expandTimeSeriesEnsembleMetadataString ( CommandProcessor p
                     else if ( processor != null ) {
                         // Not a time series property so this is a processor property.
                         // Get the property from the processor properties.
-                        PropList request_params = new PropList ( "" );
-                        request_params.set ( "PropertyName", propname );
-                        CommandProcessorRequestResultsBean bean = null;
+                        Object o_PropertyValue = null;
                         boolean processorError = false;
                         try {
-                            bean = processor.processRequest( "GetProperty", request_params);
+                            o_PropertyValue = getPropertyValue ( processor, propname );
                         }
                         /* TODO SAM 2015-07-05 Need to evaluate whether error should be absorbed and ${property} remain unexpanded, as javadoc'ed.
                         catch ( UnrecognizedRequestException e ) {
@@ -1042,34 +1192,20 @@ public static String expandTimeSeriesEnsembleMetadataString ( CommandProcessor p
                             processorError = true;
                         }
                         if ( !processorError ) {
-                            if ( bean == null ) {
-                                // Not an exception but the property was not found in the processor.
+                            // Have a property, but still need to check for null value.
+                            // TODO SAM 2013-09-09 should this be represented as "null" in output?
+                            if ( o_PropertyValue == null ) {
                                 if ( status != null ) {
-                                    String message = "Unable to find property from processor using GetProperty(Property=\"" + propname + "\").";
-                                    Message.printWarning ( 3,routine, message );
+                                    String message = "Null PropertyValue returned from processor for GetProperty(PropertyName=\"" + propname + "\").";
+                                    Message.printWarning ( 3, routine, message );
                                     status.addToLog ( commandPhase,
-                                        new CommandLogRecord(CommandStatusType.FAILURE,
-                                            message, "Verify that the property name is valid - must match case." ) );
+                                        new CommandLogRecord(CommandStatusType.FAILURE, message,
+                                            "Verify that the property name is valid - must match case." ) );
                                 }
                             }
                             else {
-                                // Have a property, but still need to check for null value.
-                                // TODO SAM 2013-09-09 should this be represented as "null" in output?
-                                PropList bean_PropList = bean.getResultsPropList();
-                                Object o_PropertyValue = bean_PropList.getContents ( "PropertyValue" );
-                                if ( o_PropertyValue == null ) {
-                                    if ( status != null ) {
-                                        String message = "Null PropertyValue returned from processor for GetProperty(PropertyName=\"" + propname + "\").";
-                                        Message.printWarning ( 3, routine, message );
-                                        status.addToLog ( commandPhase,
-                                            new CommandLogRecord(CommandStatusType.FAILURE, message,
-                                                "Verify that the property name is valid - must match case." ) );
-                                    }
-                                }
-                                else {
-                                    // This handles conversion of integers and dates to strings.
-                                    propvalString = "" + o_PropertyValue;
-                                }
+                                // This handles conversion of integers and dates to strings.
+                                propvalString = "" + o_PropertyValue;
                             }
                         }
                     }
@@ -1171,12 +1307,10 @@ public static String expandTimeSeriesMetadataString ( CommandProcessor processor
                     else if ( processor != null ) {
                         // Not a time series property so this is a processor property.
                         // Get the property from the processor properties.
-                        PropList request_params = new PropList ( "" );
-                        request_params.set ( "PropertyName", propname );
-                        CommandProcessorRequestResultsBean bean = null;
+                        Object o_PropertyValue = null;
                         boolean processorError = false;
                         try {
-                            bean = processor.processRequest( "GetProperty", request_params);
+                            o_PropertyValue = getPropertyValue ( processor, propname );
                         }
                         /* TODO SAM 2015-07-05 Need to evaluate whether error should be absorbed and ${property} remain unexpanded, as javadoc'ed.
                         catch ( UnrecognizedRequestException e ) {
@@ -1196,34 +1330,20 @@ public static String expandTimeSeriesMetadataString ( CommandProcessor processor
                             processorError = true;
                         }
                         if ( !processorError ) {
-                            if ( bean == null ) {
-                                // Not an exception but the property was not found in the processor.
+                            // Have a property, but still need to check for null value.
+                            // Show the value as the property name in output.
+                            if ( o_PropertyValue == null ) {
                                 if ( status != null ) {
-                                    String message = "Unable to find property from processor using GetProperty(Property=\"" + propname + "\").";
-                                    Message.printWarning ( 3,routine, message );
+                                    String message = "Null PropertyValue returned from processor for GetProperty(PropertyName=\"" + propname + "\").";
+                                    Message.printWarning ( 3, routine, message );
                                     status.addToLog ( commandPhase,
-                                        new CommandLogRecord(CommandStatusType.FAILURE,
-                                            message, "Verify that the property name is valid - must match case." ) );
+                                        new CommandLogRecord(CommandStatusType.FAILURE, message,
+                                            "Verify that the property name is valid - must match case." ) );
                                 }
                             }
                             else {
-                                // Have a property, but still need to check for null value.
-                                // Show the value as the property name in output.
-                                PropList bean_PropList = bean.getResultsPropList();
-                                Object o_PropertyValue = bean_PropList.getContents ( "PropertyValue" );
-                                if ( o_PropertyValue == null ) {
-                                    if ( status != null ) {
-                                        String message = "Null PropertyValue returned from processor for GetProperty(PropertyName=\"" + propname + "\").";
-                                        Message.printWarning ( 3, routine, message );
-                                        status.addToLog ( commandPhase,
-                                            new CommandLogRecord(CommandStatusType.FAILURE, message,
-                                                "Verify that the property name is valid - must match case." ) );
-                                    }
-                                }
-                                else {
-                                    // This handles conversion of integers and dates to strings.
-                                    propvalString = "" + o_PropertyValue;
-                                }
+                                // This handles conversion of integers and dates to strings.
+                                propvalString = "" + o_PropertyValue;
                             }
                         }
                     }
@@ -2034,6 +2154,22 @@ protected static List<TSEnsemble> getDiscoveryEnsembleFromCommands ( List<Comman
         return new ArrayList<>();
     }
     List<TSEnsemble> tsEnsembleList = new ArrayList<>();
+    addDiscoveryEnsembleFromCommands ( tsEnsembleList, commands );
+    /*
+    if ( sort ) {
+        TSUtil.sort(tsEnsembleList);
+    }
+    */
+    return tsEnsembleList;
+}
+
+/**
+Add the TSEnsemble (ensemble) from discovery for a list of commands to a list.
+This is called by getDiscoveryEnsembleFromCommands() and by DiscoveryIndex, which adds commands incrementally.
+@param tsEnsembleList list to add to
+@param commands commands to process, in order
+*/
+protected static void addDiscoveryEnsembleFromCommands ( List<TSEnsemble> tsEnsembleList, List<Command> commands ) {
     for ( Command command: commands ) {
         if ( (command != null) && (command instanceof ObjectListProvider) ) {
         	Object o = ((ObjectListProvider)command).getObjectList ( TSEnsemble.class );
@@ -2052,12 +2188,6 @@ protected static List<TSEnsemble> getDiscoveryEnsembleFromCommands ( List<Comman
             }
         }
     }
-    /*
-    if ( sort ) {
-        TSUtil.sort(tsEnsembleList);
-    }
-    */
-    return tsEnsembleList;
 }
 
 /**
@@ -2079,6 +2209,15 @@ public static List<TSEnsemble> getDiscoveryEnsembleFromCommandsBeforeCommand(
         // Just return a blank list.
         return new Vector<>();
     }
+    // Use the discovery index if available, for example when running discovery while loading commands.
+    // The list from the index is read-only.
+    DiscoveryIndex discoveryIndex = processor.getDiscoveryIndex();
+    if ( discoveryIndex != null ) {
+        List<TSEnsemble> availableEnsembles = discoveryIndex.getDiscoveryEnsemble ( pos );
+        if ( availableEnsembles != null ) {
+            return availableEnsembles;
+        }
+    }
     // Find the commands above the position.
     List<Command> commands = getCommandsBeforeIndex ( processor, pos );
     // Get the time series from the commands (sort on the identifiers).
@@ -2099,6 +2238,20 @@ protected static List<Prop> getDiscoveryPropFromCommands ( List<Command> command
         return new ArrayList<>();
     }
     List<Prop> proplist = new ArrayList<>();
+    addDiscoveryPropFromCommands ( proplist, commands );
+    if ( sort ) {
+    	Collections.sort(proplist);
+    }
+    return proplist;
+}
+
+/**
+Add the Prop (properties) from discovery for a list of commands to a list.
+This is called by getDiscoveryPropFromCommands() and by DiscoveryIndex, which adds commands incrementally.
+@param proplist list to add to
+@param commands commands to process, in order
+*/
+protected static void addDiscoveryPropFromCommands ( List<Prop> proplist, List<Command> commands ) {
     for ( Command command: commands ) {
         if ( (command != null) && (command instanceof ObjectListProvider) ) {
         	//TODO sam 2017-03-17 figure out how to do generics but for now the old way works.
@@ -2122,10 +2275,6 @@ protected static List<Prop> getDiscoveryPropFromCommands ( List<Command> command
             }
         }
     }
-    if ( sort ) {
-    	Collections.sort(proplist);
-    }
-    return proplist;
 }
 
 /**
@@ -2146,6 +2295,15 @@ public static List<Prop> getDiscoveryPropFromCommandsBeforeCommand( TSCommandPro
         // Just return a blank list.
         return new Vector<>();
     }
+    // Use the discovery index if available, for example when running discovery while loading commands.
+    // The list from the index is read-only.
+    DiscoveryIndex discoveryIndex = processor.getDiscoveryIndex();
+    if ( discoveryIndex != null ) {
+        List<Prop> availableProp = discoveryIndex.getDiscoveryProp ( pos, true );
+        if ( availableProp != null ) {
+            return availableProp;
+        }
+    }
     // Find the commands above the position.
     List<Command> commands = getCommandsBeforeIndex ( processor, pos );
     // Get the time series from the commands (sort on the property names).
@@ -2168,6 +2326,23 @@ protected static List<TS> getDiscoveryTSFromCommands ( List<Command> commands, b
         return new ArrayList<>();
     }
     List<TS> tslist = new ArrayList<>();
+    addDiscoveryTSFromCommands ( tslist, commands );
+    /*
+    if ( sort ) {
+        TSUtil.sort(tslist);
+    }
+    */
+    return tslist;
+}
+
+/**
+Add the TS (time series) from discovery for a list of commands to a list.
+Time series that match a Free() command are removed from the list.
+This is called by getDiscoveryTSFromCommands() and by DiscoveryIndex, which adds commands incrementally.
+@param tslist list to add to
+@param commands commands to process, in order
+*/
+protected static void addDiscoveryTSFromCommands ( List<TS> tslist, List<Command> commands ) {
     for ( Command command: commands ) {
         if ( (command != null) && (command instanceof ObjectListProvider) ) {
         	//TODO sam 2017-03-17 figure out how to do generics but for now the old way works.
@@ -2221,12 +2396,6 @@ protected static List<TS> getDiscoveryTSFromCommands ( List<Command> commands, b
             }
         }
     }
-    /*
-    if ( sort ) {
-        TSUtil.sort(tslist);
-    }
-    */
-    return tslist;
 }
 
 /**
@@ -2252,12 +2421,22 @@ public static List<TS> getDiscoveryTSFromCommandsBeforeCommand( TSCommandProcess
         // Just return a blank list.
         return new Vector<>();
     }
-    // Find the commands above the position.
-    List<Command> commands = getCommandsBeforeIndex ( processor, pos );
-    // Get the time series from the commands (sort on the identifiers).
-    List<TS> availableTS = getDiscoveryTSFromCommands ( commands, true );
-    // Get the ensembles from the commands (sort on the identifiers).
-    List<TSEnsemble> availableEnsembles = getDiscoveryEnsembleFromCommands ( commands, true );
+    List<TS> availableTS = null;
+    List<TSEnsemble> availableEnsembles = null;
+    // Use the discovery index if available, for example when running discovery while loading commands.
+    DiscoveryIndex discoveryIndex = processor.getDiscoveryIndex();
+    if ( discoveryIndex != null ) {
+        availableTS = discoveryIndex.getDiscoveryTS ( pos );
+        availableEnsembles = discoveryIndex.getDiscoveryEnsemble ( pos );
+    }
+    if ( (availableTS == null) || (availableEnsembles == null) ) {
+        // Find the commands above the position.
+        List<Command> commands = getCommandsBeforeIndex ( processor, pos );
+        // Get the time series from the commands (sort on the identifiers).
+        availableTS = getDiscoveryTSFromCommands ( commands, true );
+        // Get the ensembles from the commands (sort on the identifiers).
+        availableEnsembles = getDiscoveryEnsembleFromCommands ( commands, true );
+    }
     // Now filter out the ones that match the TSList criteria.
     // This code is essentially the same as TSEngine.getTimeSeriesToProcess();
     // however, the TSEngine code works on instances in the processor
@@ -2359,6 +2538,20 @@ public static List<String> getEnsembleIdentifiersFromCommandsBeforeCommand( TSCo
     return getEnsembleIdentifiersFromCommands ( commands );
 }
 
+/**
+Return the FreeMarker template cache for a processor.
+@param processor the processor that is running commands
+@return the processor's cache if a TSCommandProcessor, or a new cache that is not shared if another processor
+*/
+public static FreeMarkerTemplateCache getFreeMarkerTemplateCache ( CommandProcessor processor ) {
+	if ( processor instanceof TSCommandProcessor ) {
+		return ((TSCommandProcessor)processor).getFreeMarkerTemplateCache();
+	}
+	else {
+		return new FreeMarkerTemplateCache();
+	}
+}
+
 /**
 Get a list of object identifiers from a list of commands.  See documentation for fully loaded method.
 @param commands commands to search
@@ -2678,6 +2871,47 @@ throws InvalidCommandParameterException {
     return new DateTimeRange ( start_DateTime, end_DateTime );
 }
 
+/**
+Return the compiled template for a parameter value, compiling and caching the template if not previously compiled.
+@param command the command that is being processed, can be null
+@param parameterValue the parameter value to compile
+@return the compiled template for the parameter value
+*/
+private static ParameterValueTemplate getParameterValueTemplate ( Command command, String parameterValue ) {
+	Map<String,ParameterValueTemplate> commandCache = null;
+	if ( command == null ) {
+		commandCache = __parameterValueTemplateCacheNoCommand;
+	}
+	else {
+		commandCache = __parameterValueTemplateCache.get(new ParameterValueTemplateKey(command, null));
+		if ( commandCache == null ) {
+			// First expansion for the command:
+			// - remove entries for commands that have been garbage collected
+			// - another thread may add the map first, in which case its map is used
+			Object key;
+			while ( (key = __parameterValueTemplateQueue.poll()) != null ) {
+				__parameterValueTemplateCache.remove(key);
+			}
+			commandCache = new ConcurrentHashMap<>();
+			Map<String,ParameterValueTemplate> previousCache = __parameterValueTemplateCache.putIfAbsent(
+				new ParameterValueTemplateKey(command, __parameterValueTemplateQueue), commandCache);
+			if ( previousCache != null ) {
+				commandCache = previousCache;
+			}
+		}
+	}
+	ParameterValueTemplate template = commandCache.get(parameterValue);
+	if ( template == null ) {
+		template = ParameterValueTemplate.compile(parameterValue);
+		if ( commandCache.size() >= PARAMETER_VALUE_TEMPLATE_CACHE_SIZE ) {
+			// Discard old parameter values, for example from editing the command.
+			commandCache.clear();
+		}
+		commandCache.put(parameterValue, template);
+	}
+	return template;
+}
+
 /**
 Return the pattern time series for commands before a specific command in the TSCommandProcessor.
 This is used, for example, to provide a list of time identifiers to editor dialogs,
@@ -2790,6 +3024,29 @@ throws NumberFormatException {
 	}
 }
 
+/**
+Return a property value from the processor, consistent with the GetProperty request.
+If the processor is a TSCommandProcessor the property is requested directly,
+which avoids creating request parameter and result objects when expanding many strings.
+@param processor the command processor
+@param propName property name to look up
+@return the property value, or null if not found
+@exception Exception if there is an error requesting the property
+*/
+private static Object getPropertyValue ( CommandProcessor processor, String propName )
+throws Exception {
+	if ( processor instanceof TSCommandProcessor ) {
+		return ((TSCommandProcessor)processor).getProperty ( propName );
+	}
+	PropList requestParams = new PropList ( "" );
+	requestParams.set ( "PropertyName", propName );
+	CommandProcessorRequestResultsBean bean = processor.processRequest( "GetProperty", requestParams);
+	if ( bean == null ) {
+		return null;
+	}
+	return bean.getResultsPropList().getContents ( "PropertyValue" );
+}
+
 /**
 Return the list of property names available from the processor.
 These properties can be requested using getPropContents().
@@ -2803,6 +3060,19 @@ public static Collection<String> getPropertyNameList( CommandProcessor processor
 	return new Vector<>();
 }
 
+/**
+Stop saving regression test records for the current thread and return the records that were saved.
+@return the records that were saved since startDeferredRegressionTestRecords() was called, in the order tests were run
+*/
+static List<RegressionTestRecord> endDeferredRegressionTestRecords () {
+	List<RegressionTestRecord> records = __regressionTestDeferredRecords.get();
+	__regressionTestDeferredRecords.remove();
+	if ( records == null ) {
+		records = new ArrayList<>();
+	}
+	return records;
+}
+
 /**
 Return the regression test disabled count.
 @return the regression test disabled count.
@@ -2843,6 +3113,49 @@ public static long getRunTimeTotal ( List<Command> commands ) {
     return runTimeTotal;
 }
 
+/**
+Return a table from the processor, consistent with the GetTable request.
+If the processor is a TSCommandProcessor the table is requested directly,
+which avoids creating request parameter and result objects for commands that run many times, such as in a For() loop.
+@param processor the command processor
+@param tableID table identifier to match (case-insensitive)
+@return the matching table, or null if not found
+@exception Exception if there is an error requesting the table
+*/
+public static DataTable getTable ( CommandProcessor processor, String tableID )
+throws Exception {
+    if ( processor instanceof TSCommandProcessor ) {
+        return ((TSCommandProcessor)processor).getTable ( tableID );
+    }
+    PropList requestParams = new PropList ( "" );
+    requestParams.set ( "TableID", tableID );
+    CommandProcessorRequestResultsBean bean = processor.processRequest( "GetTable", requestParams);
+    if ( bean == null ) {
+        return null;
+    }
+    return (DataTable)bean.getResultsPropList().getContents ( "Table" );
+}
+
+/**
+Return the index for a table column, which is used to find table records matching a column value without searching the table.
+If the processor is a TSCommandProcessor, the index is shared by commands and is rebuilt when the table size changes.
+Otherwise, a new index is created.
+@param processor the processor that manages the table
+@param table table to index
+@param column column number (0+) to index
+@return the index for the table column
+@exception Exception if there is an error creating the index
+*/
+public static TableColumnIndex getTableColumnIndex ( CommandProcessor processor, DataTable table, int column )
+throws Exception {
+    if ( processor instanceof TSCommandProcessor ) {
+        return ((TSCommandProcessor)processor).getTableColumnIndex ( table, column );
+    }
+    else {
+        return new TableColumnIndex ( table, column );
+    }
+}
+
 // FIXME SAM 2008-01-31 Need to sort the column names.
 /**
 Return the table column names, searching commands before a specific command in the TSCommandProcessor.
@@ -2921,8 +3234,24 @@ protected static List<String> getTableIdentifiersFromCommands ( List<Command> co
         return new ArrayList<>();
     }
     List<String> tableIDList = new ArrayList<> ( 10 );
+    addTableIdentifiersFromCommands ( tableIDList, commands, false );
+    if ( sort ) {
+        java.util.Collections.sort(tableIDList);
+    }
+    return tableIDList;
+}
+
+/**
+Add the table identifiers from discovery for a list of commands to a list.
+Table identifiers that match a FreeTable() command are removed from the list.
+This is called by getTableIdentifiersFromCommands() and by DiscoveryIndex, which adds commands incrementally.
+@param tableIDList list of table identifiers to add to
+@param commands commands to process, in order
+@param in_comment whether the commands before the list end in a comment block
+@return whether the commands end in a comment block, to pass when processing the next commands
+*/
+protected static boolean addTableIdentifiersFromCommands ( List<String> tableIDList, List<Command> commands, boolean in_comment ) {
     int size = commands.size();
-    boolean in_comment = false;
     Command command = null;
     String commandString = null;
     String commandName = null;
@@ -2988,10 +3317,7 @@ protected static List<String> getTableIdentifiersFromCommands ( List<Command> co
             }
         }
     }
-    if ( sort ) {
-        java.util.Collections.sort(tableIDList);
-    }
-    return tableIDList;
+    return in_comment;
 }
 
 /**
@@ -3028,6 +3354,15 @@ public static List<String> getTableIdentifiersFromCommandsBeforeCommand( TSComma
     if ( inclusive ) {
    		++pos;
     }
+    // Use the discovery index if available, for example when running discovery while loading commands.
+    // The list from the index is read-only.
+    DiscoveryIndex discoveryIndex = processor.getDiscoveryIndex();
+    if ( discoveryIndex != null ) {
+        List<String> tableIDList = discoveryIndex.getTableIdentifiers ( pos );
+        if ( tableIDList != null ) {
+            return tableIDList;
+        }
+    }
     // Find the commands above the position.
     List<Command> commands = getCommandsBeforeIndex ( processor, pos );
     // Get the time series identifiers from the commands.
@@ -3293,6 +3628,71 @@ protected static List<String> getTSIdentifiersFromCommands ( List<Command> comma
 	return tsidsFromCommands;
 }
 
+/**
+Return a time series from the processor, consistent with the GetTimeSeriesForTSID request.
+If the processor is a TSCommandProcessor the time series is requested directly,
+which avoids creating request parameter and result objects for commands that run many times, such as in a For() loop.
+@param processor the command processor
+@param commandTag command tag for messages, can be null
+@param tsid time series identifier or alias
+@return the matching time series, or null if not found
+@exception Exception if there is an error requesting the time series
+*/
+public static TS getTimeSeriesForTSID ( CommandProcessor processor, String commandTag, String tsid )
+throws Exception {
+    if ( processor instanceof TSCommandProcessor ) {
+        return ((TSCommandProcessor)processor).getTimeSeriesForTSID ( commandTag, tsid );
+    }
+    PropList requestParams = new PropList ( "" );
+    if ( commandTag != null ) {
+        requestParams.set ( "CommandTag", commandTag );
+    }
+    requestParams.set ( "TSID", tsid );
+    CommandProcessorRequestResultsBean bean = processor.processRequest( "GetTimeSeriesForTSID", requestParams);
+    if ( bean == null ) {
+        return null;
+    }
+    return (TS)bean.getResultsPropList().getContents ( "TS" );
+}
+
+/**
+Return the time series to process from the processor, consistent with the GetTimeSeriesToProcess request.
+If the processor is a TSCommandProcessor the time series are requested directly,
+which avoids creating request parameter and result objects for commands that run many times, such as in a For() loop.
+@param processor the command processor
+@param tsList TSList parameter value (e.g., "AllTS")
+@param tsid TSID parameter value, can be null
+@param ensembleID EnsembleID parameter value, can be null
+@param tsPosition TSPosition parameter value, can be null
+@return the time series to process, including positions and errors
+@exception Exception if there is an error requesting the time series
+*/
+@SuppressWarnings("unchecked")
+public static TimeSeriesToProcess getTimeSeriesToProcess ( CommandProcessor processor,
+    String tsList, String tsid, String ensembleID, String tsPosition )
+throws Exception {
+    if ( processor instanceof TSCommandProcessor ) {
+        return ((TSCommandProcessor)processor).getTimeSeriesToProcess ( tsList, tsid, ensembleID, tsPosition );
+    }
+    PropList requestParams = new PropList ( "" );
+    requestParams.set ( "TSList", tsList );
+    requestParams.set ( "TSID", tsid );
+    requestParams.set ( "EnsembleID", ensembleID );
+    requestParams.set ( "TSPosition", tsPosition );
+    CommandProcessorRequestResultsBean bean = processor.processRequest( "GetTimeSeriesToProcess", requestParams);
+    if ( bean == null ) {
+        // Return an empty list, consistent with no matching time series.
+        List<String> errorList = new ArrayList<>();
+        errorList.add ( "No results from GetTimeSeriesToProcess request." );
+        return new TimeSeriesToProcess ( new ArrayList<>(), new int[0], errorList );
+    }
+    PropList results = bean.getResultsPropList();
+    List<TS> tslist = (List<TS>)results.getContents ( "TSToProcessList" );
+    int [] tspos = (int [])results.getContents ( "Indices" );
+    List<String> errorList = (List<String>)results.getContents ( "Errors" );
+    return new TimeSeriesToProcess ( tslist, tspos, errorList );
+}
+
 /**
 Return the time series identifiers for commands before a specific command in the TSCommandProcessor.
 This is used, for example, to provide a list of identifiers to editor dialogs.
@@ -3859,7 +4259,7 @@ Open a new regression test report file.
 @param table data table to receive report results, or null if no table will be used.
 @param append indicates whether the file should be opened in append mode.
 */
-public static void openNewRegressionTestReportFile ( String outputFile, DataTable table, boolean append )
+public static synchronized void openNewRegressionTestReportFile ( String outputFile, DataTable table, boolean append )
 throws FileNotFoundException {
     // Initialize the report counts.
     __regressionTestLineCount = 0;
@@ -3942,6 +4342,14 @@ public static int processTimeSeriesListAfterRead( CommandProcessor processor, Co
     return warning_count;
 }
 
+/**
+Start saving regression test records for the current thread rather than adding to the report,
+used when running tests in parallel.  endDeferredRegressionTestRecords() must be called when the test is complete.
+*/
+static void startDeferredRegressionTestRecords () {
+	__regressionTestDeferredRecords.set ( new ArrayList<>() );
+}
+
 /**
 Validate command parameter names and generate standard feedback.
 A list of allowed parameter names is provided.
@@ -33,7 +33,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import DWR.DMI.HydroBaseDMI.HydroBaseDMI;
@@ -63,6 +65,7 @@ import rti.tscommandprocessor.commands.util.EndIf_Command;
 import rti.tscommandprocessor.commands.util.Exit_Command;
 import rti.tscommandprocessor.commands.util.For_Command;
 import rti.tscommandprocessor.commands.util.If_Command;
+import rti.tscommandprocessor.commands.util.StartRegressionTestResultsReport_Command;
 import DWR.StateCU.StateCU_BTS;
 import DWR.StateCU.StateCU_CropPatternTS;
 import DWR.StateCU.StateCU_IrrigationPracticeTS;
@@ -314,6 +317,12 @@ List of time series vector that is the result of processing.  This will always b
 */
 private List<TS> __tslist = new Vector<>(50,50);
 
+/**
+Hash index for __tslist, used to look up time series by alias and TSID without scanning the list.
+The index must be updated or invalidated whenever __tslist is modified.
+*/
+private TimeSeriesIndex __tslistIndex = new TimeSeriesIndex();
+
 /**
 WindowListener for TSViewJFrame objects, used when calling application wants to listen for window events on plot windows.
 */
@@ -540,6 +549,7 @@ protected void clearTimeSeriesResults ( ) {
 	if ( __tslist != null ) {
 		__tslist.clear();
 	}
+	__tslistIndex.invalidate();
 }
 
 /**
@@ -1583,7 +1593,10 @@ throws Exception {
 		return null;
 	}
     // Else return the requested time series.
-	return __tslist.get(position);
+	TS ts = __tslist.get(position);
+	// The caller may modify the time series.
+	__tslistIndex.recordAccess ( ts );
+	return ts;
 }
 
 /**
@@ -1594,6 +1607,8 @@ Only indices within the time series list size will be returned.
 */
 protected List<TS> getTimeSeriesList ( int [] indices ) {
 	if ( indices == null ){
+		// The caller may modify the list and the time series.
+		__tslistIndex.recordAccessAll ();
 		return __tslist;
 	}
 	else {
@@ -1606,6 +1621,7 @@ protected List<TS> getTimeSeriesList ( int [] indices ) {
 		for ( int i = 0; i < indices.length; i++ ) {
 			if ( indices[i] < size ) {
 				v.add ( __tslist.get(indices[i]) );
+				__tslistIndex.recordAccess ( __tslist.get(indices[i]) );
 			}
 		}
 		return v;
@@ -1654,8 +1670,13 @@ protected TimeSeriesToProcess getTimeSeriesToProcess ( String TSList, String TSI
 throws Exception {
     @SuppressWarnings("unchecked")
 	List<TSEnsemble> ensembleList = (List<TSEnsemble>)__ts_processor.getPropContents("EnsembleResultsList");
-    return TSCommandProcessorUtil.getTSMatchingTSListParameters ( __tslist,
+    TimeSeriesToProcess tsToProcess = TSCommandProcessorUtil.getTSMatchingTSListParameters ( __tslist,
         ensembleList, TSList, TSID, TSPosition, EnsembleID );
+    // The caller may modify the time series.
+    for ( TS ts : tsToProcess.getTimeSeriesList() ) {
+        __tslistIndex.recordAccess ( ts );
+    }
+    return tsToProcess;
 }
 
 /**
@@ -1814,41 +1835,18 @@ private int indexOf ( String string, String traceID ) {
 	if ( (string == null) || string.equals("") ) {
 		return -1;
 	}
-	if ( (traceID != null) && !traceID.equals("") ) {
-	    pos = TSUtil.indexOf ( __tslist, string, "Alias", traceID, -1 );
-	}
-	else {
-        pos = TSUtil.indexOf ( __tslist, string, "Alias", -1 );
+	if ( __tslist == null ) {
+		return -1;
 	}
+	// Use the hash index to find the alias:
+	// - the index returns the last matching time series in the list, consistent with searching backwards
+	pos = __tslistIndex.indexOfAlias ( __tslist, string, traceID );
 	if ( pos >= 0 ) {
 		return pos;
 	}
 	// Now search the identifiers (can't totally rely on indexOf() because the alias must also be empty).
-	int size = 0;
-	if ( __tslist == null ) {
-		return -1;
-	}
-	else {
-        TS ts = null;
-		size = __tslist.size();
-		for ( int i = (size - 1); i >= 0; i-- ) {
-			ts = __tslist.get(i);
-			if ( ts == null ) {
-				continue;
-			}
-			if ( ts.getIdentifier().equals(string) ) {//&& ts.getAlias().equals("") ) {}
-				if ( (traceID != null) && !traceID.equals("") ) {
-					if ( ts.getSequenceID().equalsIgnoreCase(traceID) ) {
-						return i;
-					}
-				}
-				else {
-                    return i;
-				}
-			}
-		}
-	}
-	return -1;
+	// - if the index does not match, the list is searched using TSIdent.equals()
+	return __tslistIndex.indexOfTSID ( __tslist, string, traceID );
 }
 
 /**
@@ -1896,107 +1894,6 @@ private EndFor_Command lookupEndForCommand(List<Command> commandList, int iStart
     return null;
 }
 
-/**
-Lookup the command index for the EndFor() command with requested name.
-@param commandList list of commands to check
-@param forName the name of the "for" name to find
-*/
-private int lookupEndForCommandIndex(List<Command> commandList, String forName ) {
-    int i = -1;
-    EndFor_Command efc;
-    for ( Command c : commandList ) {
-        ++i;
-        if ( c instanceof EndFor_Command ) {
-            efc = (EndFor_Command)c;
-            if ( efc.getName().equalsIgnoreCase(forName) ) {
-                return i;
-            }
-        }
-    }
-    return -1;
-}
-
-/**
-Lookup EndIf commands between Continue statement and its corresponding EndFor,
-used when processing Continue commands.
-@param iContinue index (0+) in command list for Continue command of interest).
-@param iEndFor index (0+) in command list for EnfFor that follows the Continue command.
-@return list of EndIf for If/EndIf blocks that wrap the Continue command.
-*/
-private List<EndIf_Command> lookupEndIfForContinue(List<Command> commandList, int iContinue, int iEndFor) {
-	List<EndIf_Command> endIfCommands = new ArrayList<>();
-	Command c;
-	for ( int i = iContinue; i < iEndFor; i++ ) {
-		c = commandList.get(i);
-		if ( c instanceof EndIf_Command ) {
-			// Only add the EndIf command if its matching If command is prior to the Continue command index.
-			EndIf_Command ec = (EndIf_Command)c;
-			int index = lookupIfCommandIndex(commandList, ec.getName());
-			if ( (index >= 0) && (index < iContinue) ) {
-				endIfCommands.add(ec);
-			}
-		}
-	}
-	return endIfCommands;
-}
-
-/**
-Lookup the command index for the For() command with requested name.
-@param commandList list of commands to check.
-@param forName the name of the "for" name to find.
-@return the For command that matches "forName".
-*/
-private For_Command lookupForCommand(List<Command> commandList, String forName) {
-    For_Command fc;
-    for ( Command c : commandList ) {
-        if ( c instanceof For_Command ) {
-            fc = (For_Command)c;
-            if ( fc.getName().equalsIgnoreCase(forName) ) {
-                return fc;
-            }
-        }
-    }
-    return null;
-}
-
-/**
-Lookup the command index for the For() command with requested starting command index.
-@param commandList list of commands to check.
-@param iStart the starting index (0+) in the command list.
-@return the previous For() command, or null if not found.
-*/
-private For_Command lookupForCommand(List<Command> commandList, int iStart) {
-    Command c;
-    for ( int i = iStart; i >= 0; i-- ) {
-    	c = commandList.get(i);
-        if ( c instanceof For_Command ) {
-            return (For_Command)c;
-        }
-    }
-    return null;
-}
-
-// TODO SAM optimize this so that lookup searches backward from a starting point, for example from EndFor().
-/**
-Lookup the command index for the For() command with requested name
-@param commandList list of commands to check
-@param forName the name of the "for" name to find
-*/
-private int lookupForCommandIndex(List<Command> commandList, String forName ) {
-    int i = -1;
-    For_Command fc;
-    for ( Command c : commandList ) {
-        ++i;
-        if ( c instanceof For_Command ) {
-            fc = (For_Command)c;
-            if ( fc.getName().equalsIgnoreCase(forName) ) {
-                return i;
-            }
-        }
-    }
-    return -1;
-}
-
 /**
 Find a matching If_Command given a name to look up.
 @param ifCommandStack list of If_Command that are active.
@@ -2012,27 +1909,6 @@ private If_Command lookupIfCommand ( List<If_Command> ifCommandStack, String nam
     return null;
 }
 
-/**
-Lookup the command index for the If() command with requested name.
-@param commandList list of commands to check.
-@param ifName the name of the "if" name to find.
-@return the index of the requested If() command.
-*/
-private int lookupIfCommandIndex(List<Command> commandList, String ifName ) {
-    int i = -1;
-    If_Command ic;
-    for ( Command c : commandList ) {
-        ++i;
-        if ( c instanceof If_Command ) {
-            ic = (If_Command)c;
-            if ( ic.getName().equalsIgnoreCase(ifName) ) {
-                return i;
-            }
-        }
-    }
-    return -1;
-}
-
 // TODO smalers 2025-03-21 evaluate why this is not called.  Should it be used for checking matching start and end?
 /**
 Lookup the command index for the EndFor() command with requested name.
@@ -2122,6 +1998,13 @@ throws Exception {
 	}
 	// Save class version.
 	__processor_PropList = appPropList;
+	// Indicate whether the commands are an iteration of a For(Parallel=True) loop, run by ParallelForRunner:
+	// - the processor state has been initialized from the main processor and must not be reset
+	boolean ParallelForIteration_boolean = false;
+	String ParallelForIteration = appPropList.getValue ( "ParallelForIteration" );
+	if ( (ParallelForIteration != null) && ParallelForIteration.equalsIgnoreCase("True") ) {
+		ParallelForIteration_boolean = true;
+	}
 
 	// Initialize the working directory to the initial directory that is passed in.
 	// Do this because software may request the working directory that
@@ -2138,8 +2021,14 @@ throws Exception {
 	// FIXME SAM 2008-07-31 Remove redundant location of properties in TSEngine and TSCommandProcessor.
 	if ( InitialWorkingDir != null ) {
 	    __processor_PropList.set ( "InitialWorkingDir", InitialWorkingDir );
-		__processor_PropList.set ( "WorkingDir", InitialWorkingDir );
-	    __ts_processor.setPropContents ( "WorkingDir", InitialWorkingDir );
+	    if ( ParallelForIteration_boolean ) {
+	    	// Use the working directory from the main processor.
+	    	__processor_PropList.set ( "WorkingDir", (String)__ts_processor.getPropContents("WorkingDir") );
+	    }
+	    else {
+	    	__processor_PropList.set ( "WorkingDir", InitialWorkingDir );
+	    	__ts_processor.setPropContents ( "WorkingDir", InitialWorkingDir );
+	    }
 	}
 	Message.printStatus(2, routine,"InitialWorkingDir=" + __processor_PropList.getValue("InitialWorkingDir"));
 
@@ -2192,12 +2081,37 @@ throws Exception {
 	Command command = null;	// The command to process.
 	CommandStatus commandStatus = null; // Put outside of main try to be able to use in catch.
 
-    // Turn off interactive warnings to prevent overload on user in loops.
-    Message.setPropValue ( "ShowWarningDialog=false" );
+    if ( !ParallelForIteration_boolean ) {
+    	// Turn off interactive warnings to prevent overload on user in loops.
+    	Message.setPropValue ( "ShowWarningDialog=false" );
 
-    // Clear any settings that may have been left over from the previous run and which can impact the current run.
+    	// Clear any settings that may have been left over from the previous run and which can impact the current run.
 
-    processCommands_ResetDataForRunStart ( AppendResults_boolean );
+    	processCommands_ResetDataForRunStart ( AppendResults_boolean );
+    }
+    // Profiler to accumulate run statistics for each command:
+    // - nested profilers (RunCommands) accumulate statistics for all runs of the command file
+    CommandProfiler commandProfiler = __ts_processor.getCommandProfiler();
+    if ( !ParallelForIteration_boolean && !commandProfiler.isNested() ) {
+    	commandProfiler.clear();
+    }
+    CommandProfiler.Sample profilerSample = null;
+    // Command numbers (1+) in the processor used with the profiler:
+    // - if all commands are run the command number is iCommand + 1 and the array is not used
+    // - if a subset of commands is run (e.g., a For() loop iteration) the numbers are determined once here
+    int [] profilerCommandNumbers = null;
+    List<Command> processorCommandList = __ts_processor.getCommands();
+    if ( commandList != processorCommandList ) {
+    	Map<Command,Integer> processorCommandNumberMap = new IdentityHashMap<>();
+    	for ( int i = 0; i < processorCommandList.size(); i++ ) {
+    		processorCommandNumberMap.put ( processorCommandList.get(i), (i + 1) );
+    	}
+    	profilerCommandNumbers = new int[commandList.size()];
+    	for ( int i = 0; i < profilerCommandNumbers.length; i++ ) {
+    		Integer commandNumber = processorCommandNumberMap.get(commandList.get(i));
+    		profilerCommandNumbers[i] = (commandNumber == null) ? (i + 1) : commandNumber;
+    	}
+    }
 
 	// Now loop through the commands, query time series, and manipulate to produce a list of final time series.
     // The following loop does the initial queries.
@@ -2254,6 +2168,14 @@ throws Exception {
 	        commandStatusProvider.getCommandStatus().clearLog(CommandPhaseType.RUN);
         }
     }
+    // Build the control flow index for For(), If(), Break(), and Continue() commands so that jumps don't require
+    // searching the command list, and add any problems to the command status before running.
+    ControlFlowIndex controlFlowIndex = new ControlFlowIndex ( commandList );
+    int controlFlowProblemCount = controlFlowIndex.addProblemsToCommandStatus();
+    if ( controlFlowProblemCount > 0 ) {
+    	Message.printWarning ( 2, routine, "" + controlFlowProblemCount +
+    		" commands have For(), If(), Break(), or Continue() problems.  See the command status for details." );
+    }
     // Indicate that commands should not clear their logs when running - allows For() loop logging to accumulate.
     __ts_processor.setPropContents("CommandsShouldClearRunStatus", Boolean.FALSE);
     // Create a list for output files.  This is now needed because with For() a command may generate multiple output files.
@@ -2261,6 +2183,10 @@ throws Exception {
     setOutputFileList ( outputFileList );
     boolean commandsShouldClearRunStatus = getCommandsShouldClearRunStatus(); // For use below - constant for all processing.
     boolean outputFilesAdded = false;
+    // Whether the command profile was set by ParallelRegressionTestRunner, which runs a block of RunCommands() commands.
+    boolean profileSetByRunner = false;
+    // Maximum number of regression tests to run in parallel, set by StartRegressionTestResultsReport(MaxThreads=...).
+    int regressionTestMaxThreads = 1;
     // The following are used to get the count of warning and failure messages used with built-in WarningCount and FailureCount propoerties.
 	CommandPhaseType [] phases = { CommandPhaseType.RUN };
 	CommandStatusType [] warnStatuses = { CommandStatusType.WARNING };
@@ -2277,6 +2203,7 @@ throws Exception {
 		needToInterrupt = false;
 		// Output files have not been added for a command, allows check in exceptions.
 		outputFilesAdded = false;
+		profileSetByRunner = false;
 		// If for some reason the previous command did not notify listeners of its completion (e.g., due to continue in loop, do it now).
 		if ( !prev_command_complete_notified && (commandPrev != null) ) {
 			__ts_processor.notifyCommandProcessorListenersOfCommandCompleted ( (iCommand - 1), size, commandPrev );
@@ -2356,6 +2283,7 @@ throws Exception {
             stopWatch.start();
             commandProfile.setStartTime(System.currentTimeMillis());
             commandProfile.setStartHeap(Runtime.getRuntime().totalMemory());
+            profilerSample = commandProfiler.start();
     		// Notify any listeners that the command is running.
     		__ts_processor.notifyCommandProcessorListenersOfCommandStarted ( iCommand, size, command );
 
@@ -2517,25 +2445,20 @@ throws Exception {
         				    if ( Message.isDebugOn ) {
                            	    Message.printDebug(1, routine, "Looking up previous For() command for Break() command." );
         				    }
-                            For_Command forCommand = lookupForCommand(commandList,iCommand);
+                            For_Command forCommand = controlFlowIndex.getForCommandForLoopExit(iCommand);
                             if ( forCommand == null ) {
-                                // Did not find a prior For() command so generate an error and exit.
+                                // Did not find a prior For() command so generate an error and exit:
+                                // - the problem was added to the command status before running
                                 needToInterrupt = true;
-                                commandStatus.addToLog(CommandPhaseType.RUN,
-                                    new CommandLogRecord(CommandStatusType.FAILURE,
-                                    	"Unable to find a For() command before Break() command.",
-                                    	"Remove the Break() command or add a For() command."));
                                 throw new CommandException ( "Unable to find previous For() command for Break() command.");
                             }
                             else {
         	    			    // Then find the EndFor command that matches the beginning For command name.
-                                int endForIndex = lookupEndForCommandIndex(commandList,forCommand.getName());
+                                int endForIndex = controlFlowIndex.getEndForIndex(forCommand.getName());
                                 if ( endForIndex < 0 ) {
-                                    // Did not match the end of the For() so generate an error and exit.
+                                    // Did not match the end of the For() so generate an error and exit:
+                                    // - the problem was added to the command status before running
                                     needToInterrupt = true;
-                                    commandStatus.addToLog(CommandPhaseType.RUN,
-                                        new CommandLogRecord(CommandStatusType.FAILURE,
-                                    	    "Unable to match for For() loop name \"" + forCommand.getName() + "\" in EndFor() commands for Break() command.", "Add a matching EndFor() command."));
                                     throw new CommandException ( "Unable to match for loop name \"" + forCommand.getName() + "\" in EndFor() commands for Break() command.");
                                 }
                                 else {
@@ -2554,7 +2477,7 @@ throws Exception {
                                     if ( Message.isDebugOn ) {
                                   	    Message.printDebug(1, routine, "Found For() command for Break() command:  " + forCommand );
                                     }
-                            	    List<EndIf_Command> endifCommandList = lookupEndIfForContinue(commandList,iCommand,endForIndex);  // Method works for Continue and Break
+                            	    List<EndIf_Command> endifCommandList = controlFlowIndex.getLoopExitEndIfCommands(iCommand);  // Method works for Continue and Break
                             	    for ( EndIf_Command endifCommand: endifCommandList ) {
                             		    // Treat as if an EndIf had been encountered:
                             		    // - process in order of innermost If/EndIf block to outermost If/EndIf block until EndFor is encountered
@@ -2601,25 +2524,20 @@ throws Exception {
         	    		}
         	    		else if ( command instanceof Continue_Command ) {
         	    			// First find the For command that starts the loop.
-                            For_Command forCommand = lookupForCommand(commandList,iCommand);
+                            For_Command forCommand = controlFlowIndex.getForCommandForLoopExit(iCommand);
                             if ( forCommand == null ) {
-                                // Did not find a prior For() command so generate an error and exit.
+                                // Did not find a prior For() command so generate an error and exit:
+                                // - the problem was added to the command status before running
                                 needToInterrupt = true;
-                                commandStatus.addToLog(CommandPhaseType.RUN,
-                                    new CommandLogRecord(CommandStatusType.FAILURE,
-                                    	"Unable to find a For() command before Continue() command.",
-                                    	"Remove the Continue() command or add a For() command."));
-                                throw new CommandException ( "Unable to find previous For() command for Break() command.");
+                                throw new CommandException ( "Unable to find previous For() command for Continue() command.");
                             }
                             else {
         	    			    // Then find the EndFor command that matches the beginning For command name.
-                                int endForIndex = lookupEndForCommandIndex(commandList,forCommand.getName());
+                                int endForIndex = controlFlowIndex.getEndForIndex(forCommand.getName());
                                 if ( endForIndex < 0 ) {
-                                    // Did not match the end of the For() so generate an error and exit.
+                                    // Did not match the end of the For() so generate an error and exit:
+                                    // - the problem was added to the command status before running
                                     needToInterrupt = true;
-                                    commandStatus.addToLog(CommandPhaseType.RUN,
-                                        new CommandLogRecord(CommandStatusType.FAILURE,
-                                    	    "Unable to match for For() loop name \"" + forCommand.getName() + "\" in EndFor() commands", "Add a matching EndFor() command."));
                                     throw new CommandException ( "Unable to match for loop name \"" + forCommand.getName() + "\" in EndFor() commands");
                                 }
                                 else {
@@ -2635,7 +2553,7 @@ throws Exception {
                                 	//   Continue
                                 	//   If
                                 	//   EndIf
-                            	    List<EndIf_Command> endifCommandList = lookupEndIfForContinue(commandList,iCommand,endForIndex);
+                            	    List<EndIf_Command> endifCommandList = controlFlowIndex.getLoopExitEndIfCommands(iCommand);
                             	    for ( EndIf_Command endifCommand: endifCommandList ) {
                             		    // Treat as if an EndIf had been encountered:
                             		    // - process in order of innermost If/EndIf block to outermost If/EndIf block until EndFor is encountered
@@ -2684,6 +2602,38 @@ throws Exception {
                             // TODO SAM 2014-06-29 Need a For() loop stack and need to reinitialize all nested For() loops so that they will run through again.
                             // Initialize or increment the for loop.
                             For_Command forCommand = (For_Command)command;
+                            if ( controlFlowIndex.isParallelFor(iCommand) ) {
+                            	// Run all the iterations in parallel and then continue after the EndFor() command:
+                            	// - the loop was checked when the control flow index was built
+                            	int endForIndex = controlFlowIndex.getEndForIndex(forCommand.getName());
+                            	ParallelForRunner parallelForRunner = new ParallelForRunner ( __ts_processor, this,
+                            		commandList, iCommand, endForIndex, appPropList );
+                            	try {
+                            		int iterationCount = parallelForRunner.run ( outputFileList );
+                            		Message.printStatus ( 2, routine, "Ran " + iterationCount + " parallel iterations for For(Name=\"" +
+                            			forCommand.getName() + "\")." );
+                            	}
+                            	catch ( Exception e ) {
+                            		forCommand.resetCommand();
+                            		commandStatus.addToLog(CommandPhaseType.RUN,
+                            			new CommandLogRecord(CommandStatusType.FAILURE,
+                            				"Error running parallel iterations (" + e + ")", "Check For() command iteration data.  Has required input been read or created?") );
+                            		Message.printWarning(3, routine, e);
+                            	}
+                            	outputFilesAdded = true;
+                            	// Update the counts for the loop commands, which were not run in the main loop.
+                            	for ( int iLoop = iCommand; iLoop < endForIndex; iLoop++ ) {
+                            		Command loopCommand = commandList.get(iLoop);
+                            		if ( loopCommand instanceof CommandStatusProvider ) {
+                            			CommandStatus loopStatus = ((CommandStatusProvider)loopCommand).getCommandStatus();
+                            			warningCount += loopStatus.getCommandLog(phases, warnStatuses).size();
+                            			failureCount += loopStatus.getCommandLog(phases, failStatuses).size();
+                            		}
+                            	}
+                            	setProcessorCommandEndProperties ( warningCount, failureCount );
+                            	iCommand = endForIndex; // Loop will increment so EndFor() will be skipped.
+                            	continue;
+                            }
                             boolean okToRunFor;
                             try {
                                 okToRunFor = forCommand.next();
@@ -2703,7 +2653,7 @@ throws Exception {
                                         "Error going to next iteration (" + e + ")", "Check For() command iteration data.  Has required input been read or created?") );
                                 Message.printWarning(3, routine, e);
                                 // Same logic as ending the loop.
-                                int endForIndex = lookupEndForCommandIndex(commandList,forCommand.getName());
+                                int endForIndex = controlFlowIndex.getEndForIndex(forCommand.getName());
                                 // Modify the main command loop index and continue - the command after the end will be executed (or done).
                                 if ( endForIndex >= 0 ) {
                                     iCommand = endForIndex; // OK because we don't want to trigger EndFor() going back to the top.
@@ -2711,11 +2661,9 @@ throws Exception {
                                     continue;
                                 }
                                 else {
-                                    // Did not match the end of the For() so generate an error and exit.
+                                    // Did not match the end of the For() so generate an error and exit:
+                                    // - the problem was added to the command status before running
                                     needToInterrupt = true;
-                                    commandStatus.addToLog(CommandPhaseType.RUN,
-                                        new CommandLogRecord(CommandStatusType.FAILURE,
-                                        	"Unable to match for loop name \"" + forCommand.getName() + "\" in EndFor() commands", "Add a matching EndFor() command."));
                                     throw new CommandException ( "Unable to match for loop name \"" + forCommand.getName() + "\" in EndFor() commands");
                                 }
                             }
@@ -2733,18 +2681,16 @@ throws Exception {
                             }
                             else {
                                 // Done running the For() loop so jump to the matching EndFor() command.
-                                int endForIndex = lookupEndForCommandIndex(commandList,forCommand.getName());
+                                int endForIndex = controlFlowIndex.getEndForIndex(forCommand.getName());
                                 // Modify the main command loop index and continue - the command after the end will be executed (or done).
                                 if ( endForIndex >= 0 ) {
                                     iCommand = endForIndex; // Loop will increment so end EndFor will be skipped, which is OK - otherwise infinite loop.
                                     continue;
                                 }
                                 else {
-                                    // Did not match the end of the For() so generate an error and exit.
+                                    // Did not match the end of the For() so generate an error and exit:
+                                    // - the problem was added to the command status before running
                                     needToInterrupt = true;
-                                    commandStatus.addToLog(CommandPhaseType.RUN,
-                                        new CommandLogRecord(CommandStatusType.FAILURE,
-                                        	"Unable to match for loop name \"" + forCommand.getName() + "\" in EndFor() commands", "Add a matching EndFor() command."));
                                     throw new CommandException ( "Unable to match for loop name \"" + forCommand.getName() + "\" in EndFor() commands");
                                 }
                             }
@@ -2753,7 +2699,14 @@ throws Exception {
                             // Jump to matching For().
                             EndFor_Command efc = (EndFor_Command)command;
                             // Find the matching For() command.
-                            For_Command forCommand = lookupForCommand(commandList,efc.getName());
+                            int forIndex = controlFlowIndex.getForIndex(efc.getName());
+                            if ( forIndex < 0 ) {
+                                // Did not match the start of the loop so generate an error and exit:
+                                // - the problem was added to the command status before running
+                                needToInterrupt = true;
+                                throw new CommandException ( "Unable to match EndFor() loop name \"" + efc.getName() + "\" in For() commands");
+                            }
+                            For_Command forCommand = (For_Command)commandList.get(forIndex);
                             try {
                             	// Remove from the stack, will be added again when matching For() is executed (next command).
                             	forCommandStack.remove(forCommand);
@@ -2761,7 +2714,6 @@ throws Exception {
                             catch ( Exception e ) {
                             	// TODO SAM 2015-06-05 might need to log as mismatched nested loops.
                             }
-                            int forIndex = lookupForCommandIndex(commandList,efc.getName());
                             iCommand = forIndex - 1; // Decrement by one because the main loop will increment.
                             if ( Message.isDebugOn ) {
                             	Message.printDebug(1,routine,"At EndFor(Name=\"" + efc.getName() +
@@ -2769,12 +2721,41 @@ throws Exception {
                             }
                             continue; // Goes to the top of the loop to get the command at "i".
                         }
+                        else if ( (regressionTestMaxThreads > 1) && ParallelRegressionTestRunner.canRunInParallel(command) &&
+                        	((ParallelRegressionTestRunner.findEndIndex(commandList, iCommand) - iCommand) > 1) ) {
+                        	// Run the block of RunCommands() regression tests in parallel and then continue after the last test.
+                        	int endIndex = ParallelRegressionTestRunner.findEndIndex(commandList, iCommand);
+                        	ParallelRegressionTestRunner regressionTestRunner = new ParallelRegressionTestRunner ( __ts_processor,
+                        		commandList, iCommand, endIndex, regressionTestMaxThreads );
+                        	profileSetByRunner = true;
+                        	int testCount = regressionTestRunner.run();
+                        	Message.printStatus ( 2, routine, "Ran " + testCount + " RunCommands() tests in parallel." );
+                        	// Update the counts and output files for the tests, which were not run in the main loop.
+                        	for ( int iTest = iCommand; iTest < endIndex; iTest++ ) {
+                        		Command testCommand = commandList.get(iTest);
+                        		CommandStatus testStatus = ((CommandStatusProvider)testCommand).getCommandStatus();
+                        		warningCount += testStatus.getCommandLog(phases, warnStatuses).size();
+                        		failureCount += testStatus.getCommandLog(phases, failStatuses).size();
+                        		processCommands_AddOutputFiles(outputFileList, testCommand);
+                        	}
+                        	setProcessorCommandEndProperties ( warningCount, failureCount );
+                        	outputFilesAdded = true;
+                        	// Continue with the last test so that listeners are notified that it is complete.
+                        	iCommand = endIndex - 1;
+                        	command = commandList.get(iCommand);
+                        	commandString = command.toString();
+                        	commandProfile = command.getCommandProfile(CommandPhaseType.RUN);
+                        }
                         else {
                         	// A typical command.  Run it.
                             command.runCommand ( i_for_message );
    	                	    warningCount += commandStatusProvider.getCommandStatus().getCommandLog(phases, warnStatuses).size();
    	                	    failureCount += commandStatusProvider.getCommandStatus().getCommandLog(phases, failStatuses).size();
    	                	    setProcessorCommandEndProperties ( warningCount, failureCount );
+                            if ( command instanceof StartRegressionTestResultsReport_Command ) {
+                            	// Following RunCommands() commands may be run in parallel.
+                            	regressionTestMaxThreads = ((StartRegressionTestResultsReport_Command)command).getMaxThreads();
+                            }
                             // If the command generated an output file, add it in the list of output files.
                             // This list is used by the TSTool UI to display results.
                             if ( command instanceof FileGenerator ) {
@@ -2803,7 +2784,9 @@ throws Exception {
     	                // Remove from the if command stack (generate a warning if the matching If() is not found in the stack.
     	                EndIf_Command endifCommand = (EndIf_Command)command;
     	                If_Command ifCommand = lookupIfCommand(ifCommandStack,endifCommand.getName());
-    	                if ( ifCommand == null ) {
+    	                if ( (ifCommand == null) && !controlFlowIndex.hasProblem(iCommand) ) {
+    	                	// Unmatched EndIf commands are added to the status before running so only add here if
+    	                	// the If() command exists but is not in the stack.
     	                    commandStatus.addToLog(CommandPhaseType.RUN, new CommandLogRecord(CommandStatusType.FAILURE,
                                 "Unable to find matching If() command for EndIf(Name=\"" + endifCommand.getName() + "\").",
                                 "Confirm that matching If() and EndIf() commands are specified.") );
@@ -2976,10 +2959,17 @@ throws Exception {
     				}
     			}
                 finally {
+                    // The command may have changed aliases or identifiers of time series that it was given,
+                    // so check those time series before the next lookup.
+                    __tslistIndex.endCommand();
                     // Save the time spent running the command.
                     stopWatch.stop();
-                    commandProfile.setEndTime(System.currentTimeMillis());
-                    commandProfile.setEndHeap(Runtime.getRuntime().totalMemory());
+                    if ( !profileSetByRunner ) {
+                    	commandProfile.setEndTime(System.currentTimeMillis());
+                    	commandProfile.setEndHeap(Runtime.getRuntime().totalMemory());
+                    	int commandNumber = (profilerCommandNumbers == null) ? (iCommand + 1) : profilerCommandNumbers[iCommand];
+                    	commandProfiler.end ( profilerSample, commandNumber, command );
+                    }
     				if ( command instanceof FileGenerator && !outputFilesAdded ) {
     					// Need to check whether there are some output files that where not added due to exception.
                        	processCommands_AddOutputFiles(outputFileList, command);
@@ -3047,8 +3037,11 @@ throws Exception {
 	}
 	__ts_processor.setCancelProcessingRequested ( false );
 
-    // Make sure that important warnings are shown to the user.
-    Message.setPropValue ( "ShowWarningDialog=true" );
+    if ( !ParallelForIteration_boolean ) {
+    	// Make sure that important warnings are shown to the user.
+    	// Parallel iterations leave the setting as is because the main processor is still running.
+    	Message.setPropValue ( "ShowWarningDialog=true" );
+    }
 
 	Message.printStatus ( 1, routine, "Retrieved " + __tslist.size() + " time series." );
 
@@ -4967,6 +4960,7 @@ throws Exception {
 			}
 			if ( ts.getAlias().equalsIgnoreCase( tsident_string) ) {
 				Message.printStatus ( 2, routine,"Matched alias." );
+				__tslistIndex.recordAccess ( ts );
 				return ts;
 			}
 		}
@@ -4987,6 +4981,7 @@ throws Exception {
 			// If it has the input fields, then they will be checked.
 			if ( tsident.equals(tsident_string,full_tsid_check) ) {
 				Message.printStatus ( 1, routine,"Matched TSID using TSID with input fields." );
+				__tslistIndex.recordAccess ( ts );
 				return ts;
 			}
 		}
@@ -5220,6 +5215,7 @@ Remove all time series in the results list.
 */
 protected void removeAllTimeSeries () {
     __tslist.clear();
+    __tslistIndex.invalidate();
 }
 
 /**
@@ -5228,6 +5224,8 @@ Remove the time series at the specified index.
 */
 protected void removeTimeSeries ( int index ) {
     __tslist.remove ( index );
+    // Positions after the removed time series have shifted so rebuild the index.
+    __tslistIndex.invalidate();
 }
 
 /**
@@ -5640,7 +5638,13 @@ throws Exception {
 		__tslist = new Vector<> ( 50, 50 );
 	}
 	// Position is zero index.
-	if ( position >= __tslist.size() ) {
+	if ( position == __tslist.size() ) {
+		// Simple append so the index can be updated incrementally.
+		__tslist.add ( ts );
+		__tslistIndex.add ( ts, position );
+		return;
+	}
+	if ( position > __tslist.size() ) {
 		// Append to the list.  Fill in intervening positions with null references.
 		for ( int i = __tslist.size(); i <= position; i++ ) {
 			__tslist.add ( null );
@@ -5649,6 +5653,8 @@ throws Exception {
 	// Now update at the requested position.
 	__tslist.remove ( position );
 	__tslist.add ( position, ts );
+	// Replacing a time series may change which time series is the last match for an alias or TSID.
+	__tslistIndex.invalidate();
 }
 
 /**
@@ -5657,6 +5663,7 @@ Set the time series list, for example, when being processed through TSCommandsPr
 */
 protected void setTimeSeriesList ( List<TS> tslist ) {
 	__tslist = tslist;
+	__tslistIndex.invalidate();
 }
 
 /**
@@ -0,0 +1,165 @@
+// TableColumnIndex - hash index of the values in a table column, used to find records without searching the table
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import RTi.Util.Table.DataTable;
+import RTi.Util.Table.TableRecord;
+
+/**
+Hash index of the values in a table column, used to find the record matching a value
+without searching all of the records in the table, for example when matching time series identifiers
+to table rows for many time series.
+Records are matched consistent with DataTable.getRecord(int,Object):
+string values are compared ignoring case, other values using equals(), and the first matching record is returned.
+<p>
+The index is built when created and is not updated if the table is modified.
+Use isValid() to check whether the number of records or columns has changed since the index was built.
+Matched records are checked against the current cell value, and a value that is not in the index is
+searched for in the table, so that cells that are modified after the index is built are matched.
+Use TSCommandProcessorUtil.getTableColumnIndex() to use an index that is shared by commands
+and is rebuilt when the number of records or columns changes.
+*/
+public class TableColumnIndex
+{
+
+/**
+Table that is indexed.
+*/
+private DataTable table;
+
+/**
+Column number (0+) that is indexed.
+*/
+private int column;
+
+/**
+Number of records in the table when the index was built.
+*/
+private int numberOfRecords;
+
+/**
+Number of columns in the table when the index was built.
+*/
+private int numberOfFields;
+
+/**
+Map of column value to the position (0+) of the first record with the value.
+String values are converted to upper case.
+*/
+private Map<Object,Integer> recordPositionMap;
+
+/**
+Create an index for a table column.
+@param table table to index
+@param column column number (0+) to index
+@exception Exception if there is an error reading the table values
+*/
+public TableColumnIndex ( DataTable table, int column )
+throws Exception {
+	this.table = table;
+	this.column = column;
+	this.numberOfRecords = table.getNumberOfRecords();
+	this.numberOfFields = table.getNumberOfFields();
+	this.recordPositionMap = new HashMap<>((this.numberOfRecords*4)/3 + 1);
+	for ( int irec = 0; irec < this.numberOfRecords; irec++ ) {
+		Object key = toKey ( table.getRecord(irec).getFieldValue(column) );
+		if ( key != null ) {
+			// Keep the first matching record.
+			this.recordPositionMap.putIfAbsent ( key, Integer.valueOf(irec) );
+		}
+	}
+}
+
+/**
+Return the column number (0+) that is indexed.
+@return the column number that is indexed
+*/
+public int getColumn () {
+	return this.column;
+}
+
+/**
+Return the first record that matches a value in the indexed column.
+If the index is no longer valid or the value is not in the index, the table is searched,
+because a cell may have been modified to match the value after the index was built.
+@param value value to match, with strings being matched ignoring case
+@return the first matching record, or null if no record matches
+@exception Exception if there is an error reading the table
+*/
+public TableRecord getRecord ( Object value )
+throws Exception {
+	if ( !isValid() ) {
+		// The table has been modified so search the table.
+		return this.table.getRecord ( this.column, value );
+	}
+	Object key = toKey ( value );
+	if ( key == null ) {
+		return this.table.getRecord ( this.column, value );
+	}
+	Integer pos = this.recordPositionMap.get ( key );
+	if ( pos == null ) {
+		// Not in the index but a cell may have been modified so search the table.
+		return this.table.getRecord ( this.column, value );
+	}
+	TableRecord rec = this.table.getRecord ( pos.intValue() );
+	if ( !key.equals(toKey(rec.getFieldValue(this.column))) ) {
+		// The cell was modified after the index was built so search the table.
+		return this.table.getRecord ( this.column, value );
+	}
+	return rec;
+}
+
+/**
+Return the table that is indexed.
+@return the table that is indexed
+*/
+public DataTable getTable () {
+	return this.table;
+}
+
+/**
+Indicate whether the index is valid for the table, which is the case if the number of records and columns has not changed.
+@return true if the index is valid
+*/
+public boolean isValid () {
+	return (this.table.getNumberOfRecords() == this.numberOfRecords) && (this.table.getNumberOfFields() == this.numberOfFields);
+}
+
+/**
+Convert a value to a map key.
+@param value value to convert
+@return upper case string for strings, the value for other objects, or null if the value is null
+*/
+private static Object toKey ( Object value ) {
+	if ( value instanceof String ) {
+		return ((String)value).toUpperCase(Locale.ROOT);
+	}
+	return value;
+}
+
+}
@@ -0,0 +1,488 @@
+// TimeSeriesCache - read-through disk cache for time series read from web service datastores
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import riverside.datastore.DataStore;
+import RTi.TS.TS;
+import RTi.TS.TSData;
+import RTi.TS.TSDataFlagMetadata;
+import RTi.TS.TSUtil;
+import RTi.Util.IO.IOUtil;
+import RTi.Util.Message.Message;
+import RTi.Util.String.StringUtil;
+import RTi.Util.Time.DateTime;
+import RTi.Util.Time.TimeInterval;
+
+/**
+Read-through disk cache for time series read from web service datastores,
+used so that a command file that is run repeatedly (e.g., a nightly job) only requests the recent data
+that is missing or may have been revised, rather than the full period.
+The cache is enabled for a datastore by setting the following properties in the datastore configuration file:
+<ul>
+<li> TimeSeriesCacheFolder - folder for cache files, which can be shared by multiple runs and applications.</li>
+<li> TimeSeriesCacheMaxAge - time in seconds that cached data are used without a request, default is 3600.</li>
+<li> TimeSeriesCacheRevisionDays - number of days before the time data were cached that are read again,
+     because the data provider may revise recent data, default is set by the datastore.</li>
+</ul>
+<p>
+Each time series is saved in a compressed binary file, keyed by the datastore name, TSID (which includes the interval),
+and other read properties that change the data.
+When the cache includes the start of the requested period, only the tail of the period,
+starting at the end of cached data or the revision period, is read from the datastore and merged with the cached data.
+Otherwise, the full period is read and the cache is replaced.
+Only regular interval time series are cached, and a null read start, meaning all data, is always read from the datastore.
+<p>
+Time series properties are taken from the most recent read, except when cached data are used without a request,
+in which case the full identifier (including the input type and name), input name, description, units, missing value,
+original period, data flag metadata, and simple properties are restored from the cache.
+*/
+public class TimeSeriesCache
+{
+
+/**
+Interface for the code that reads a period of a time series from the datastore.
+*/
+public interface TimeSeriesPeriodReader {
+	/**
+	Read a time series for a period.
+	@param readStart start of the period to read
+	@param readEnd end of the period to read, or null to read all available data
+	@return the time series, or null if not found
+	@exception Exception if an error occurs reading the time series
+	*/
+	public TS readTimeSeries ( DateTime readStart, DateTime readEnd ) throws Exception;
+}
+
+/**
+Identifier written at the start of each cache file.
+*/
+private static final int FILE_MAGIC = 0x54534348;
+
+/**
+Cache file format version.
+*/
+private static final int FILE_VERSION = 2;
+
+/**
+Number of locks used to serialize reads for the same time series.
+*/
+private static final int LOCK_COUNT = 64;
+
+/**
+Cache instances, by cache folder, shared so that the same file is not written by two instances.
+*/
+private static Map<String,TimeSeriesCache> cacheMap = new HashMap<>();
+
+/**
+Folder for cache files.
+*/
+private File folder = null;
+
+/**
+Locks used to serialize reads for the same time series, selected using the cache key hash code.
+A fixed number of locks is used so that the locks do not grow with the number of time series.
+*/
+private Object [] locks = new Object[LOCK_COUNT];
+
+/**
+Create a cache.
+@param folder folder for cache files
+*/
+private TimeSeriesCache ( File folder ) {
+	this.folder = folder;
+	for ( int i = 0; i < this.locks.length; i++ ) {
+		this.locks[i] = new Object();
+	}
+}
+
+/**
+Create a key for a cache file name from the cache key.
+@param key cache key
+@return SHA-1 hex string for the key
+*/
+private String createFileKey ( String key )
+throws Exception {
+	MessageDigest digest = MessageDigest.getInstance("SHA-1");
+	StringBuilder b = new StringBuilder();
+	for ( byte c : digest.digest(key.getBytes(StandardCharsets.UTF_8)) ) {
+		b.append ( String.format("%02x", c) );
+	}
+	return b.toString();
+}
+
+/**
+Return the cache for a datastore, or null if the datastore does not enable caching.
+@param dataStore datastore that reads time series
+@return the cache, or null if TimeSeriesCacheFolder is not set for the datastore
+*/
+public static TimeSeriesCache getInstance ( DataStore dataStore ) {
+	String cacheFolder = dataStore.getProperty ( "TimeSeriesCacheFolder" );
+	if ( (cacheFolder == null) || cacheFolder.isEmpty() ) {
+		return null;
+	}
+	cacheFolder = IOUtil.expandPropertyForEnvironment ( "TimeSeriesCacheFolder", cacheFolder );
+	File folder = new File(cacheFolder, dataStore.getName().replaceAll("[^A-Za-z0-9_.-]", "_"));
+	synchronized ( cacheMap ) {
+		TimeSeriesCache cache = cacheMap.get(folder.getAbsolutePath());
+		if ( cache == null ) {
+			cache = new TimeSeriesCache ( folder );
+			cacheMap.put ( folder.getAbsolutePath(), cache );
+		}
+		return cache;
+	}
+}
+
+/**
+Return the lock for a cache key.
+Different keys may share a lock, which only serializes their reads.
+@param key cache key
+@return object to synchronize on
+*/
+private Object getLock ( String key ) {
+	return this.locks[(key.hashCode() & 0x7fffffff) % this.locks.length];
+}
+
+/**
+Return an integer datastore property, or the default if not set or invalid.
+@param dataStore datastore
+@param propertyName name of property
+@param defaultValue value if the property is not set
+*/
+private static int getIntProperty ( DataStore dataStore, String propertyName, int defaultValue ) {
+	String value = dataStore.getProperty ( propertyName );
+	if ( (value != null) && StringUtil.isInteger(value.trim()) ) {
+		return Integer.parseInt(value.trim());
+	}
+	return defaultValue;
+}
+
+/**
+Merge cached data that are before a date into a time series.
+@param ts time series read from the datastore, which is modified to include the cached data
+@param cachedTs cached time series
+@param mergeEnd date before which cached data are used
+*/
+private void mergeTimeSeries ( TS ts, TS cachedTs, DateTime mergeEnd )
+throws Exception {
+	if ( ts.getDate1() == null ) {
+		// No data were read for the tail.
+		ts.setDate1 ( new DateTime(cachedTs.getDate1()) );
+		ts.setDate2 ( new DateTime(mergeEnd) );
+		ts.allocateDataSpace();
+	}
+	else if ( cachedTs.getDate1().lessThan(ts.getDate1()) ) {
+		ts.changePeriodOfRecord ( cachedTs.getDate1(), ts.getDate2() );
+	}
+	if ( cachedTs.hasDataFlags() && !ts.hasDataFlags() ) {
+		ts.allocateDataFlagSpace ( null, true );
+	}
+	int intervalBase = cachedTs.getDataIntervalBase();
+	int intervalMult = cachedTs.getDataIntervalMult();
+	TSData tsdata = new TSData();
+	for ( DateTime date = new DateTime(cachedTs.getDate1()); date.lessThan(mergeEnd) && date.lessThanOrEqualTo(cachedTs.getDate2());
+		date.addInterval(intervalBase, intervalMult) ) {
+		tsdata = cachedTs.getDataPoint ( date, tsdata );
+		ts.setDataValue ( date, tsdata.getDataValue(), tsdata.getDataFlag(), 0 );
+	}
+	ts.addToGenesis ( "Used cached data before " + mergeEnd + " and read remaining data." );
+}
+
+/**
+Read a time series using the cache.
+@param dataStore datastore, used for cache properties
+@param key cache key, which must identify the time series and read properties, such as the TSID and fill options
+@param defaultRevisionDays number of days of recent data that are read again if TimeSeriesCacheRevisionDays is not set
+@param readStart start of the period to read, or null to read all data without using the cache
+@param readEnd end of the period to read, or null to read all available data
+@param reader code to read a period of the time series from the datastore
+@return the time series, or null if not found
+@exception Exception if an error occurs reading the time series
+*/
+public TS readTimeSeries ( DataStore dataStore, String key, int defaultRevisionDays,
+	DateTime readStart, DateTime readEnd, TimeSeriesPeriodReader reader )
+throws Exception {
+	String routine = getClass().getSimpleName() + ".readTimeSeries";
+	if ( readStart == null ) {
+		return reader.readTimeSeries ( readStart, readEnd );
+	}
+	int maxAge = getIntProperty ( dataStore, "TimeSeriesCacheMaxAge", 3600 );
+	int revisionDays = getIntProperty ( dataStore, "TimeSeriesCacheRevisionDays", defaultRevisionDays );
+	File file = new File ( this.folder, createFileKey(key) + ".tscache" );
+	synchronized ( getLock(key) ) {
+		long [] readTime = new long[1];
+		TS cachedTs = readTimeSeriesFromFile ( file, key, readTime );
+		if ( (cachedTs != null) && cachedTs.getDate1().greaterThan(readStart) ) {
+			// The cache does not include the start of the requested period so read the full period.
+			cachedTs = null;
+		}
+		if ( cachedTs == null ) {
+			TS ts = reader.readTimeSeries ( readStart, readEnd );
+			writeTimeSeriesToFile ( file, key, ts );
+			return ts;
+		}
+		// Data before the revision period were final when cached.
+		DateTime revisionStart = new DateTime ( new Date(readTime[0]) );
+		revisionStart.addDay ( -revisionDays );
+		revisionStart.setPrecision ( cachedTs.getDate1().getPrecision() );
+		boolean haveEnd = (readEnd != null) && cachedTs.getDate2().greaterThanOrEqualTo(readEnd);
+		if ( (haveEnd && readEnd.lessThan(revisionStart)) ||
+			((System.currentTimeMillis() - readTime[0]) <= (maxAge*1000L) && ((readEnd == null) || haveEnd)) ) {
+			// Use the cached data without a request.
+			if ( Message.isDebugOn ) {
+				Message.printDebug ( 1, routine, "Using cached time series \"" + key + "\"." );
+			}
+			cachedTs.changePeriodOfRecord ( readStart, (readEnd == null) ? cachedTs.getDate2() : readEnd );
+			cachedTs.addToGenesis ( "Read time series from cache file \"" + file + "\"." );
+			return cachedTs;
+		}
+		// Read the tail starting at the end of cached data or the revision period, whichever is earlier.
+		DateTime tailStart = new DateTime ( cachedTs.getDate2() );
+		if ( revisionStart.lessThan(tailStart) ) {
+			tailStart = revisionStart;
+		}
+		if ( tailStart.lessThan(readStart) ) {
+			tailStart = new DateTime ( readStart );
+		}
+		Message.printStatus ( 2, routine, "Reading time series \"" + key + "\" starting at " + tailStart + " and using cached data before." );
+		TS ts = reader.readTimeSeries ( tailStart, readEnd );
+		if ( (ts == null) || !TimeInterval.isRegularInterval(ts.getDataIntervalBase()) ) {
+			return ts;
+		}
+		mergeTimeSeries ( ts, cachedTs, tailStart );
+		writeTimeSeriesToFile ( file, key, ts );
+		if ( ts.getDate1().lessThan(readStart) ) {
+			ts.changePeriodOfRecord ( readStart, ts.getDate2() );
+		}
+		return ts;
+	}
+}
+
+/**
+Read a cached time series from a file.
+@param file cache file
+@param key cache key, which must match the key in the file
+@param readTime the time that the data were read from the datastore, in milliseconds, is returned in the first element
+@return the cached time series, or null if the file does not exist or cannot be read
+*/
+private TS readTimeSeriesFromFile ( File file, String key, long [] readTime ) {
+	String routine = getClass().getSimpleName() + ".readTimeSeriesFromFile";
+	if ( !file.exists() ) {
+		return null;
+	}
+	try ( DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)))) ) {
+		if ( (in.readInt() != FILE_MAGIC) || (in.readInt() != FILE_VERSION) || !in.readUTF().equals(key) ) {
+			return null;
+		}
+		readTime[0] = in.readLong();
+		// The identifier includes the input type and name.
+		String tsid = in.readUTF();
+		TS ts = TSUtil.newTimeSeries ( tsid, true );
+		ts.setIdentifier ( tsid );
+		ts.setInputName ( in.readUTF() );
+		ts.setDescription ( in.readUTF() );
+		ts.setDataUnits ( in.readUTF() );
+		ts.setDataUnitsOriginal ( in.readUTF() );
+		ts.setMissing ( in.readDouble() );
+		int nprops = in.readInt();
+		for ( int i = 0; i < nprops; i++ ) {
+			String name = in.readUTF();
+			char type = in.readChar();
+			String value = in.readUTF();
+			if ( type == 'I' ) {
+				ts.setProperty ( name, Integer.valueOf(value) );
+			}
+			else if ( type == 'D' ) {
+				ts.setProperty ( name, Double.valueOf(value) );
+			}
+			else if ( type == 'B' ) {
+				ts.setProperty ( name, Boolean.valueOf(value) );
+			}
+			else {
+				ts.setProperty ( name, value );
+			}
+		}
+		int nflags = in.readInt();
+		for ( int i = 0; i < nflags; i++ ) {
+			String flag = in.readUTF();
+			ts.addDataFlagMetadata ( new TSDataFlagMetadata(flag, in.readUTF()) );
+		}
+		// The original period is set by readers to the available period, which may differ from the data period.
+		String date1Original = in.readUTF();
+		String date2Original = in.readUTF();
+		DateTime date1 = DateTime.parse ( in.readUTF() );
+		DateTime date2 = DateTime.parse ( in.readUTF() );
+		ts.setDate1 ( date1 );
+		ts.setDate1Original ( date1Original.isEmpty() ? date1 : DateTime.parse(date1Original) );
+		ts.setDate2 ( date2 );
+		ts.setDate2Original ( date2Original.isEmpty() ? date2 : DateTime.parse(date2Original) );
+		ts.allocateDataSpace();
+		boolean hasFlags = in.readBoolean();
+		if ( hasFlags ) {
+			ts.allocateDataFlagSpace ( null, false );
+		}
+		int intervalBase = ts.getDataIntervalBase();
+		int intervalMult = ts.getDataIntervalMult();
+		for ( DateTime date = new DateTime(date1); date.lessThanOrEqualTo(date2); date.addInterval(intervalBase, intervalMult) ) {
+			double value = in.readDouble();
+			if ( hasFlags ) {
+				ts.setDataValue ( date, value, in.readUTF(), 0 );
+			}
+			else {
+				ts.setDataValue ( date, value );
+			}
+		}
+		return ts;
+	}
+	catch ( Exception e ) {
+		// Read from the datastore.
+		Message.printWarning ( 3, routine, "Error reading cache file \"" + file + "\" - ignoring (" + e + ")." );
+		return null;
+	}
+}
+
+/**
+Write a time series to a cache file.  The file is written to a temporary file and then renamed
+so that other processes do not read a partial file.  Errors are logged and otherwise ignored.
+@param file cache file
+@param key cache key
+@param ts time series to write
+*/
+private void writeTimeSeriesToFile ( File file, String key, TS ts ) {
+	String routine = getClass().getSimpleName() + ".writeTimeSeriesToFile";
+	if ( (ts == null) || (ts.getDate1() == null) || (ts.getDate2() == null) ||
+		!TimeInterval.isRegularInterval(ts.getDataIntervalBase()) ) {
+		return;
+	}
+	File tempFile = null;
+	try {
+		this.folder.mkdirs();
+		tempFile = File.createTempFile ( file.getName(), ".tmp", this.folder );
+		try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile)))) ) {
+			out.writeInt ( FILE_MAGIC );
+			out.writeInt ( FILE_VERSION );
+			out.writeUTF ( key );
+			out.writeLong ( System.currentTimeMillis() );
+			// Include the input type and name in the identifier.
+			out.writeUTF ( ts.getIdentifier().toString(true) );
+			out.writeUTF ( ts.getInputName() == null ? "" : ts.getInputName() );
+			out.writeUTF ( ts.getDescription() == null ? "" : ts.getDescription() );
+			out.writeUTF ( ts.getDataUnits() == null ? "" : ts.getDataUnits() );
+			out.writeUTF ( ts.getDataUnitsOriginal() == null ? "" : ts.getDataUnitsOriginal() );
+			out.writeDouble ( ts.getMissing() );
+			// Only save simple properties that can be restored.
+			Map<String,String> stringProps = new HashMap<>();
+			Map<String,Character> typeProps = new HashMap<>();
+			for ( Map.Entry<String,Object> prop : ts.getProperties().entrySet() ) {
+				Object value = prop.getValue();
+				char type;
+				if ( value instanceof String ) {
+					type = 'S';
+				}
+				else if ( value instanceof Integer ) {
+					type = 'I';
+				}
+				else if ( value instanceof Double ) {
+					type = 'D';
+				}
+				else if ( value instanceof Boolean ) {
+					type = 'B';
+				}
+				else {
+					continue;
+				}
+				if ( ("" + value).length() < 10000 ) {
+					stringProps.put ( prop.getKey(), "" + value );
+					typeProps.put ( prop.getKey(), type );
+				}
+			}
+			out.writeInt ( stringProps.size() );
+			for ( Map.Entry<String,String> prop : stringProps.entrySet() ) {
+				out.writeUTF ( prop.getKey() );
+				out.writeChar ( typeProps.get(prop.getKey()) );
+				out.writeUTF ( prop.getValue() );
+			}
+			List<TSDataFlagMetadata> flagMetadataList = ts.getDataFlagMetadataList();
+			if ( flagMetadataList == null ) {
+				out.writeInt ( 0 );
+			}
+			else {
+				out.writeInt ( flagMetadataList.size() );
+				for ( TSDataFlagMetadata flagMetadata : flagMetadataList ) {
+					out.writeUTF ( flagMetadata.getDataFlag() == null ? "" : flagMetadata.getDataFlag() );
+					out.writeUTF ( flagMetadata.getDescription() == null ? "" : flagMetadata.getDescription() );
+				}
+			}
+			out.writeUTF ( ts.getDate1Original() == null ? "" : ts.getDate1Original().toString() );
+			out.writeUTF ( ts.getDate2Original() == null ? "" : ts.getDate2Original().toString() );
+			DateTime date1 = ts.getDate1();
+			DateTime date2 = ts.getDate2();
+			out.writeUTF ( date1.toString() );
+			out.writeUTF ( date2.toString() );
+			boolean hasFlags = ts.hasDataFlags();
+			out.writeBoolean ( hasFlags );
+			int intervalBase = ts.getDataIntervalBase();
+			int intervalMult = ts.getDataIntervalMult();
+			TSData tsdata = new TSData();
+			for ( DateTime date = new DateTime(date1); date.lessThanOrEqualTo(date2); date.addInterval(intervalBase, intervalMult) ) {
+				tsdata = ts.getDataPoint ( date, tsdata );
+				out.writeDouble ( tsdata.getDataValue() );
+				if ( hasFlags ) {
+					String flag = tsdata.getDataFlag();
+					out.writeUTF ( flag == null ? "" : flag );
+				}
+			}
+		}
+		Files.move ( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		tempFile = null;
+	}
+	catch ( Exception e ) {
+		Message.printWarning ( 3, routine, "Error writing cache file \"" + file + "\" (" + e + ")." );
+		Message.printWarning ( 3, routine, e );
+	}
+	finally {
+		if ( tempFile != null ) {
+			tempFile.delete();
+		}
+	}
+}
+
+}
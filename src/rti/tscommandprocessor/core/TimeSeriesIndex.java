@@ -0,0 +1,471 @@
+// TimeSeriesIndex - hash index for looking up time series in the TSEngine results list by alias or TSID
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import RTi.TS.TS;
+import RTi.TS.TSIdent;
+
+/**
+Hash index for the TSEngine time series results list, used to look up time series by alias and TSID
+without scanning the full list.
+The index maps an upper-case alias or TSID (optionally with the sequence ID) to the last position in the list
+that has the key, which is consistent with the "latest wins" behavior of the original backwards list search.
+<p>
+Time series are mutable (e.g., the alias can be set by a command after the time series has been added to the list)
+so the index is handled as follows:
+<ul>
+<li> Appending a time series updates the index incrementally.</li>
+<li> Replacing or removing time series, or replacing the list, invalidates the index, which is rebuilt on the next lookup.</li>
+<li> Commands such as SetAlias() and SetTimeSeriesProperty() modify the alias and TSIdent of a time series in place,
+     and can only do so for time series that the processor has given to the command.
+     TSEngine therefore records each time series that it returns (see recordAccess()),
+     and before the next lookup the alias, TSID, and sequence ID of only those time series
+     are compared with the values saved when indexed.  The index is rebuilt only if something has changed.
+     Time series returned during a command are checked again after the command (see endCommand())
+     because they may be modified after a lookup in the same command.</li>
+<li> If the full list is returned (see recordAccessAll()), all time series are checked after the command,
+     including the time series references, because the list may have been modified directly.</li>
+<li> Each matched position is verified against the time series in the list before being returned,
+     and a failed verification indicates that the index is stale, in which case the index is rebuilt.</li>
+</ul>
+An alias lookup that is not matched is authoritative and the list does not need to be searched.
+A TSID lookup that is not matched falls back to searching the list with TSIdent.equals(),
+which can match identifiers that are formatted differently than the index key.
+The index is not thread-safe and is intended to be used only by TSEngine.
+*/
+class TimeSeriesIndex
+{
+
+/**
+Map of upper-case alias (and alias with sequence ID) to position in the time series list.
+*/
+private Map<String,Integer> aliasMap = new HashMap<>();
+
+/**
+Map of upper-case TSID (and TSID with sequence ID) to position in the time series list.
+*/
+private Map<String,Integer> tsidMap = new HashMap<>();
+
+/**
+Time series that were indexed, in the same order as the time series list.
+*/
+private List<TS> indexedTS = new ArrayList<>();
+
+/**
+Alias for each indexed time series, used to detect changes.
+*/
+private List<String> indexedAlias = new ArrayList<>();
+
+/**
+TSID string for each indexed time series, used to detect changes.
+*/
+private List<String> indexedTSID = new ArrayList<>();
+
+/**
+Sequence ID for each indexed time series, used to detect changes.
+*/
+private List<String> indexedSequenceID = new ArrayList<>();
+
+/**
+Last position of each indexed time series in the list, used to check time series that have been returned.
+*/
+private Map<TS,Integer> indexedPosition = new IdentityHashMap<>();
+
+/**
+Time series that have been returned since the last lookup and must be checked before the next lookup.
+*/
+private Set<TS> checkTS = Collections.newSetFromMap(new IdentityHashMap<>());
+
+/**
+Time series that have been returned during the current command, which are checked again after the command.
+*/
+private Set<TS> commandTS = Collections.newSetFromMap(new IdentityHashMap<>());
+
+/**
+Whether the full list has been returned during the current command.
+*/
+private boolean commandAccessAll = false;
+
+/**
+Whether the index must be rebuilt before the next lookup.
+*/
+private boolean needToRebuild = true;
+
+/**
+Whether all time series must be checked against the time series list before the next lookup.
+*/
+private boolean needToCheck = false;
+
+/**
+Construct an empty index.  The index will be built on the first lookup.
+*/
+TimeSeriesIndex () {
+}
+
+/**
+Add a time series to the index, for example when appended to the end of the list.
+If the index is waiting to be rebuilt, the time series is not added because it will be handled by the rebuild.
+@param ts time series that was added
+@param position position (0+) of the time series in the list
+*/
+void add ( TS ts, int position ) {
+	if ( this.needToRebuild ) {
+		return;
+	}
+	if ( position != this.indexedTS.size() ) {
+		// Not a simple append so rebuild.
+		invalidate();
+		return;
+	}
+	addToIndex ( ts, position );
+}
+
+/**
+Add a time series to the maps and the saved state lists.
+@param ts time series to add, can be null
+@param position position (0+) of the time series in the list
+*/
+private void addToIndex ( TS ts, int position ) {
+	if ( ts == null ) {
+		this.indexedTS.add(null);
+		this.indexedAlias.add(null);
+		this.indexedTSID.add(null);
+		this.indexedSequenceID.add(null);
+		return;
+	}
+	String alias = ts.getAlias();
+	TSIdent tsident = ts.getIdentifier();
+	String tsidString = null;
+	if ( tsident != null ) {
+		tsidString = tsident.toString();
+	}
+	String sequenceID = ts.getSequenceID();
+	this.indexedTS.add(ts);
+	this.indexedAlias.add(alias);
+	this.indexedTSID.add(tsidString);
+	this.indexedSequenceID.add(sequenceID);
+	Integer pos = Integer.valueOf(position);
+	this.indexedPosition.put(ts, pos);
+	// Later positions replace earlier positions so that the last time series in the list is matched.
+	if ( (alias != null) && !alias.isEmpty() ) {
+		this.aliasMap.put(formatKey(alias, null), pos);
+		if ( (sequenceID != null) && !sequenceID.isEmpty() ) {
+			this.aliasMap.put(formatKey(alias, sequenceID), pos);
+		}
+	}
+	if ( tsidString != null ) {
+		String tsid = formatTSIDKey(tsidString);
+		this.tsidMap.put(formatKey(tsid, null), pos);
+		if ( (sequenceID != null) && !sequenceID.isEmpty() ) {
+			this.tsidMap.put(formatKey(tsid, sequenceID), pos);
+		}
+	}
+}
+
+/**
+Check whether the index is consistent with the time series list and rebuild if necessary.
+@param tslist time series list that is indexed
+*/
+private void checkIndex ( List<TS> tslist ) {
+	if ( !this.needToRebuild ) {
+		if ( (tslist == null) || (tslist.size() != this.indexedTS.size()) ) {
+			this.needToRebuild = true;
+		}
+		else if ( this.needToCheck ) {
+			// Compare all time series to detect changes since the index was built,
+			// including changes to the list and aliases and identifiers that were modified in place.
+			int size = tslist.size();
+			TS ts;
+			for ( int i = 0; i < size; i++ ) {
+				ts = tslist.get(i);
+				if ( ts != this.indexedTS.get(i) ) {
+					this.needToRebuild = true;
+					break;
+				}
+				if ( isChanged(ts, i) ) {
+					this.needToRebuild = true;
+					break;
+				}
+			}
+		}
+		else {
+			// Only compare the time series that have been returned since the last check.
+			for ( TS ts : this.checkTS ) {
+				Integer pos = this.indexedPosition.get(ts);
+				if ( (pos != null) && isChanged(ts, pos.intValue()) ) {
+					this.needToRebuild = true;
+					break;
+				}
+			}
+		}
+	}
+	this.needToCheck = false;
+	this.checkTS.clear();
+	if ( this.needToRebuild ) {
+		rebuild ( tslist );
+	}
+}
+
+/**
+Indicate that a command has completed.
+Time series that were returned during the command are checked before the next lookup,
+because the command may have changed aliases or identifiers after a lookup.
+*/
+void endCommand () {
+	this.checkTS.addAll ( this.commandTS );
+	this.commandTS.clear();
+	if ( this.commandAccessAll ) {
+		this.needToCheck = true;
+		this.commandAccessAll = false;
+	}
+}
+
+/**
+Format a key for the maps.
+@param id alias or TSID
+@param sequenceID sequence ID, or null to ignore
+@return the key for the maps
+*/
+private String formatKey ( String id, String sequenceID ) {
+	if ( (sequenceID == null) || sequenceID.isEmpty() ) {
+		return id.toUpperCase();
+	}
+	else {
+		// Use a character that will not be in identifiers as the separator.
+		return id.toUpperCase() + "\u0000" + sequenceID.toUpperCase();
+	}
+}
+
+/**
+Format a TSID for use as a key, removing the input type and name because these are not used in comparisons.
+@param tsid time series identifier string
+@return TSID without input type and name
+*/
+private String formatTSIDKey ( String tsid ) {
+	int pos = tsid.indexOf('~');
+	if ( pos >= 0 ) {
+		return tsid.substring(0,pos);
+	}
+	return tsid;
+}
+
+/**
+Return the position of the last time series in the list with the requested alias.
+The result is authoritative, meaning that -1 indicates that no time series in the list has the alias.
+If the matched time series no longer has the alias, the index is stale and is rebuilt before trying again.
+@param tslist time series list that is indexed
+@param alias alias to match (case is ignored)
+@param sequenceID if non-null and non-blank, the sequence ID must also match
+@return the position (0+) of the matching time series, or -1 if not matched
+*/
+int indexOfAlias ( List<TS> tslist, String alias, String sequenceID ) {
+	if ( (alias == null) || alias.isEmpty() ) {
+		return -1;
+	}
+	checkIndex ( tslist );
+	String key = formatKey(alias, sequenceID);
+	Integer pos = this.aliasMap.get(key);
+	if ( pos == null ) {
+		return -1;
+	}
+	if ( !isAliasMatch(tslist, pos.intValue(), alias, sequenceID) ) {
+		// Time series was modified during the current command so rebuild and try again.
+		rebuild ( tslist );
+		pos = this.aliasMap.get(key);
+		if ( (pos == null) || !isAliasMatch(tslist, pos.intValue(), alias, sequenceID) ) {
+			return -1;
+		}
+	}
+	return pos.intValue();
+}
+
+/**
+Return the position of the last time series in the list with the requested TSID.
+The TSID is parsed and formatted so that the key is consistent with the indexed identifiers,
+and a non-negative result is verified with TSIdent.equals(String).
+If the index does not match, the list is searched using TSIdent.equals(String).
+@param tslist time series list that is indexed
+@param tsid time series identifier string to match
+@param sequenceID if non-null and non-blank, the sequence ID must also match
+@return the position (0+) of the matching time series, or -1 if not matched
+*/
+int indexOfTSID ( List<TS> tslist, String tsid, String sequenceID ) {
+	if ( (tsid == null) || tsid.isEmpty() ) {
+		return -1;
+	}
+	String tsidKey = null;
+	try {
+		tsidKey = formatTSIDKey(new TSIdent(tsid).toString());
+	}
+	catch ( Exception e ) {
+		// Not a valid TSID so cannot use the index.
+		return indexOfTSIDInList ( tslist, tsid, sequenceID );
+	}
+	checkIndex ( tslist );
+	String key = formatKey(tsidKey, sequenceID);
+	Integer pos = this.tsidMap.get(key);
+	if ( pos == null ) {
+		return indexOfTSIDInList ( tslist, tsid, sequenceID );
+	}
+	if ( !isTSIDMatch(tslist, pos.intValue(), tsid, sequenceID) ) {
+		// Time series was modified during the current command so rebuild and try again.
+		rebuild ( tslist );
+		pos = this.tsidMap.get(key);
+		if ( (pos == null) || !isTSIDMatch(tslist, pos.intValue(), tsid, sequenceID) ) {
+			return indexOfTSIDInList ( tslist, tsid, sequenceID );
+		}
+	}
+	return pos.intValue();
+}
+
+/**
+Return the position of the last time series in the list with the requested TSID, searching the list backwards,
+which is used when the index does not match because TSIdent.equals() can be more lenient than the index key.
+@param tslist time series list that is indexed
+@param tsid time series identifier string to match
+@param sequenceID if non-null and non-blank, the sequence ID must also match
+@return the position (0+) of the matching time series, or -1 if not matched
+*/
+private int indexOfTSIDInList ( List<TS> tslist, String tsid, String sequenceID ) {
+	if ( tslist == null ) {
+		return -1;
+	}
+	for ( int i = (tslist.size() - 1); i >= 0; i-- ) {
+		if ( isTSIDMatch(tslist, i, tsid, sequenceID) ) {
+			return i;
+		}
+	}
+	return -1;
+}
+
+/**
+Indicate that the index must be rebuilt before the next lookup,
+for example because time series have been removed or replaced.
+*/
+void invalidate () {
+	this.needToRebuild = true;
+}
+
+/**
+Determine whether the alias, TSID, or sequence ID of a time series has changed since it was indexed.
+@param ts time series to check, can be null
+@param pos position (0+) of the time series when indexed
+*/
+private boolean isChanged ( TS ts, int pos ) {
+	if ( ts == null ) {
+		return false;
+	}
+	TSIdent tsident = ts.getIdentifier();
+	return !Objects.equals(ts.getAlias(), this.indexedAlias.get(pos)) ||
+		!Objects.equals(ts.getSequenceID(), this.indexedSequenceID.get(pos)) ||
+		!Objects.equals((tsident == null ? null : tsident.toString()), this.indexedTSID.get(pos));
+}
+
+/**
+Determine whether the time series at a position matches the alias.
+*/
+private boolean isAliasMatch ( List<TS> tslist, int pos, String alias, String sequenceID ) {
+	if ( pos >= tslist.size() ) {
+		return false;
+	}
+	TS ts = tslist.get(pos);
+	// The time series alias and sequence ID may be null.
+	if ( (ts == null) || !alias.equalsIgnoreCase(ts.getAlias()) ) {
+		return false;
+	}
+	if ( (sequenceID != null) && !sequenceID.isEmpty() && !sequenceID.equalsIgnoreCase(ts.getSequenceID()) ) {
+		return false;
+	}
+	return true;
+}
+
+/**
+Determine whether the time series at a position matches the TSID, using the same comparison as the original list search.
+*/
+private boolean isTSIDMatch ( List<TS> tslist, int pos, String tsid, String sequenceID ) {
+	if ( pos >= tslist.size() ) {
+		return false;
+	}
+	TS ts = tslist.get(pos);
+	if ( (ts == null) || (ts.getIdentifier() == null) || !ts.getIdentifier().equals(tsid) ) {
+		return false;
+	}
+	if ( (sequenceID != null) && !sequenceID.isEmpty() && !sequenceID.equalsIgnoreCase(ts.getSequenceID()) ) {
+		return false;
+	}
+	return true;
+}
+
+/**
+Record that a time series has been returned by the processor and may be modified by the command.
+@param ts time series that was returned, can be null
+*/
+void recordAccess ( TS ts ) {
+	if ( ts != null ) {
+		this.checkTS.add ( ts );
+		this.commandTS.add ( ts );
+	}
+}
+
+/**
+Record that the full time series list has been returned by the processor and may be modified by the command.
+*/
+void recordAccessAll () {
+	this.needToCheck = true;
+	this.commandAccessAll = true;
+}
+
+/**
+Rebuild the index from the time series list.
+@param tslist time series list to index
+*/
+private void rebuild ( List<TS> tslist ) {
+	this.aliasMap.clear();
+	this.tsidMap.clear();
+	this.indexedTS.clear();
+	this.indexedAlias.clear();
+	this.indexedTSID.clear();
+	this.indexedSequenceID.clear();
+	this.indexedPosition.clear();
+	if ( tslist != null ) {
+		int size = tslist.size();
+		for ( int i = 0; i < size; i++ ) {
+			addToIndex ( tslist.get(i), i );
+		}
+	}
+	this.needToRebuild = false;
+	this.needToCheck = false;
+	this.checkTS.clear();
+}
+
+}
@@ -0,0 +1,233 @@
+// TimeSeriesReadExecutor - read a list of time series using multiple threads and a per-host request rate limit
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import RTi.TS.TS;
+import RTi.Util.Message.Message;
+
+/**
+Read a list of time series, for example the time series matched by input filters in a read command,
+using up to MaxThreads threads and limiting the number of requests per second to a host.
+Read commands add the time series identifiers in catalog order with add() and then call getTimeSeries()
+for each identifier in the same order, so that the results are in catalog order
+and a failure for one time series can be handled without stopping the other reads.
+<p>
+If one thread is used, each time series is read when getTimeSeries() is called,
+which is the same as reading in the command's loop.
+If multiple threads are used, start() submits all of the reads and getTimeSeries() waits for the read to complete.
+The reader must be safe to call from multiple threads when more than one thread is used.
+<p>
+The request rate limit is shared by all readers in the application that use the same host,
+for example two read commands that run in a parallel For() loop.
+*/
+public class TimeSeriesReadExecutor
+{
+
+/**
+Interface for the code that reads one time series.
+*/
+public interface TimeSeriesReader {
+	/**
+	Read a time series.
+	@param tsid time series identifier to read
+	@return the time series, or null if not found
+	@exception Exception if an error occurs reading the time series
+	*/
+	public TS readTimeSeries ( String tsid ) throws Exception;
+}
+
+/**
+Time (from System.nanoTime()) when the next request is allowed for each host.
+*/
+private static Map<String,long[]> nextRequestTimeMap = new HashMap<>();
+
+/**
+Host for the rate limit, or null to not limit the request rate.
+*/
+private String host = null;
+
+/**
+Maximum number of threads used to read time series.
+*/
+private int maxThreads = 1;
+
+/**
+Minimum time between requests to the host, nanoseconds, or 0 for no limit.
+*/
+private long requestInterval = 0;
+
+/**
+Reader for each time series.
+*/
+private TimeSeriesReader reader = null;
+
+/**
+Time series identifiers to read, in catalog order.
+*/
+private List<String> tsidList = new ArrayList<>();
+
+/**
+Executor used to read time series with multiple threads, or null if reading in the calling thread.
+*/
+private ExecutorService executor = null;
+
+/**
+Results for each identifier when reading with multiple threads, in catalog order.
+*/
+private List<Future<TS>> futureList = new ArrayList<>();
+
+/**
+Create an executor.
+@param host host for the request rate limit (e.g., web service host or database server),
+or null to not limit the request rate
+@param maxThreads maximum number of threads used to read time series, 1 to read in the calling thread
+@param maxRequestsPerSecond maximum number of requests per second for the host, or <= 0 for no limit
+@param reader code to read one time series
+*/
+public TimeSeriesReadExecutor ( String host, int maxThreads, double maxRequestsPerSecond, TimeSeriesReader reader ) {
+	this.host = host;
+	if ( maxThreads > 1 ) {
+		this.maxThreads = maxThreads;
+	}
+	if ( (host != null) && (maxRequestsPerSecond > 0.0) ) {
+		this.requestInterval = (long)(1.0e9/maxRequestsPerSecond);
+	}
+	this.reader = reader;
+}
+
+/**
+Add a time series identifier to read.  Identifiers must be added in the order that results will be requested.
+@param tsid time series identifier to read
+*/
+public void add ( String tsid ) {
+	this.tsidList.add ( tsid );
+}
+
+/**
+Wait until a request to the host is allowed by the request rate limit.
+@exception InterruptedException if interrupted while waiting, for example when canceled
+*/
+private void waitForRequest ()
+throws InterruptedException {
+	if ( this.requestInterval <= 0 ) {
+		return;
+	}
+	long [] nextRequestTime = null;
+	synchronized ( nextRequestTimeMap ) {
+		nextRequestTime = nextRequestTimeMap.get(this.host);
+		if ( nextRequestTime == null ) {
+			nextRequestTime = new long[] { System.nanoTime() };
+			nextRequestTimeMap.put(this.host, nextRequestTime);
+		}
+	}
+	long waitTime = 0;
+	synchronized ( nextRequestTime ) {
+		long now = System.nanoTime();
+		long requestTime = now;
+		if ( nextRequestTime[0] - now > 0 ) {
+			requestTime = nextRequestTime[0];
+		}
+		nextRequestTime[0] = requestTime + this.requestInterval;
+		waitTime = requestTime - now;
+	}
+	if ( waitTime > 0 ) {
+		TimeUnit.NANOSECONDS.sleep(waitTime);
+	}
+}
+
+/**
+Return the time series for an identifier, waiting for the read to complete if reading with multiple threads.
+@param i index (0+) of the identifier, in the order added
+@return the time series, or null if not found
+@exception Exception if an error occurs reading the time series, which is the exception thrown by the reader if available
+*/
+public TS getTimeSeries ( int i )
+throws Exception {
+	if ( this.executor == null ) {
+		return readTimeSeries ( this.tsidList.get(i) );
+	}
+	try {
+		return this.futureList.get(i).get();
+	}
+	catch ( ExecutionException e ) {
+		Throwable cause = e.getCause();
+		if ( cause instanceof Exception ) {
+			throw (Exception)cause;
+		}
+		throw e;
+	}
+}
+
+/**
+Read a time series, first waiting for the request rate limit.
+@param tsid time series identifier to read
+@return the time series, or null if not found
+*/
+private TS readTimeSeries ( String tsid )
+throws Exception {
+	waitForRequest ();
+	return this.reader.readTimeSeries ( tsid );
+}
+
+/**
+Stop reading, canceling reads that have not started.  This should be called in a finally block.
+*/
+public void shutdown () {
+	if ( this.executor != null ) {
+		this.executor.shutdownNow();
+		this.executor = null;
+	}
+}
+
+/**
+Start reading the time series.  If multiple threads are used, all of the reads are submitted
+in the order added so that time series early in the list are read first.
+*/
+public void start () {
+	String routine = getClass().getSimpleName() + ".start";
+	int nThreads = Math.min ( this.maxThreads, this.tsidList.size() );
+	if ( nThreads <= 1 ) {
+		// Read in the calling thread when getTimeSeries() is called.
+		return;
+	}
+	Message.printStatus ( 2, routine, "Reading " + this.tsidList.size() + " time series using " + nThreads + " threads." );
+	this.executor = Executors.newFixedThreadPool ( nThreads );
+	for ( String tsid : this.tsidList ) {
+		this.futureList.add ( this.executor.submit ( () -> readTimeSeries ( tsid ) ) );
+	}
+	// Threads end when the reads are complete.
+	this.executor.shutdown();
+}
+
+}
@@ -0,0 +1,256 @@
+// StationDataRequestExecutorTest - unit tests for StationDataRequestExecutor using a local HTTP stand-in
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 2026 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package gov.usda.egov.sc.wcc.tstool.plugin.nrcsawdb.datastore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+import RTi.Util.Time.DateTime;
+import RTi.Util.Time.TimeInterval;
+
+/**
+Unit tests for StationDataRequestExecutor, using a local HTTP server as a stand-in for the AWDB 'data' service.
+The stand-in returns one daily value for each day in the requested period for each station triplet,
+where the value is the number of days since 1970-01-01, and simulates errors:
+<ul>
+<li> the first request for each URL returns HTTP 503, which must be retried</li>
+<li> a request that includes a station triplet starting with "BAD:" returns HTTP 404, which is not retried</li>
+<li> a request that includes a station triplet starting with "DOWN:" always returns HTTP 503</li>
+</ul>
+*/
+public class StationDataRequestExecutorTest extends TestCase {
+
+/**
+Local HTTP server.
+*/
+private HttpServer server = null;
+
+/**
+Root URL for the server, with trailing slash.
+*/
+private String rootUrl = null;
+
+/**
+URLs that have been requested, used to return an error for the first request.
+*/
+private Set<String> requestedUrls = ConcurrentHashMap.newKeySet();
+
+/**
+Number of requests that were received.
+*/
+private AtomicInteger requestCount = new AtomicInteger();
+
+/**
+Format the response for a 'data' request.
+*/
+private String formatResponse ( List<String> stationTriplets, LocalDate beginDate, LocalDate endDate ) {
+	StringBuilder b = new StringBuilder("[");
+	for ( int i = 0; i < stationTriplets.size(); i++ ) {
+		if ( i > 0 ) {
+			b.append(",");
+		}
+		b.append("{\"stationTriplet\":\"" + stationTriplets.get(i) + "\",\"data\":[{\"values\":[");
+		for ( LocalDate d = beginDate; !d.isAfter(endDate); d = d.plusDays(1) ) {
+			if ( !d.equals(beginDate) ) {
+				b.append(",");
+			}
+			b.append("{\"date\":\"" + d + "\",\"value\":" + d.toEpochDay() + ",\"qcFlag\":\"V\"}");
+		}
+		b.append("]}]}");
+	}
+	b.append("]");
+	return b.toString();
+}
+
+/**
+Handle a 'data' request.
+*/
+private void handleData ( HttpExchange exchange )
+throws IOException {
+	this.requestCount.incrementAndGet();
+	String query = exchange.getRequestURI().getRawQuery();
+	Map<String,String> params = new HashMap<>();
+	for ( String param : query.split("&") ) {
+		int pos = param.indexOf('=');
+		params.put ( param.substring(0, pos), URLDecoder.decode(param.substring(pos + 1), "UTF-8") );
+	}
+	List<String> stationTriplets = Arrays.asList(params.get("stationTriplets").split(","));
+	int responseCode = 200;
+	String response;
+	if ( this.requestedUrls.add(query) ) {
+		// First request for the URL.
+		responseCode = 503;
+		response = "Service unavailable.";
+	}
+	else {
+		response = formatResponse ( stationTriplets,
+			LocalDate.parse(params.get("beginDate")), LocalDate.parse(params.get("endDate")) );
+	}
+	for ( String stationTriplet : stationTriplets ) {
+		if ( stationTriplet.startsWith("BAD:") ) {
+			responseCode = 404;
+			response = "Station not found.";
+		}
+		else if ( stationTriplet.startsWith("DOWN:") ) {
+			responseCode = 503;
+			response = "Service unavailable.";
+		}
+	}
+	byte [] bytes = response.getBytes(StandardCharsets.UTF_8);
+	exchange.sendResponseHeaders ( responseCode, bytes.length );
+	OutputStream out = exchange.getResponseBody();
+	try {
+		out.write ( bytes );
+	}
+	finally {
+		out.close();
+	}
+}
+
+/**
+Read a chunk from the stand-in, using the same response handling as the datastore.
+*/
+private List<StationDataValues> readChunk ( List<String> stationTriplets, DateTime beginDate, DateTime endDate )
+throws IOException {
+	String urlString = this.rootUrl + "data?stationTriplets=" + String.join(",", stationTriplets) +
+		"&beginDate=" + beginDate.toString(DateTime.FORMAT_YYYY_MM_DD) +
+		"&endDate=" + endDate.toString(DateTime.FORMAT_YYYY_MM_DD);
+	HttpURLConnection urlConnection = (HttpURLConnection)new URL(urlString).openConnection();
+	try {
+		int responseCode = urlConnection.getResponseCode();
+		if ( responseCode != 200 ) {
+			throw new StationDataRequestExecutor.ResponseException (
+				"Reading URL returned error (code=" + responseCode + ")", responseCode );
+		}
+		InputStream in = urlConnection.getInputStream();
+		try {
+			return new StationDataStreamReader(TimeInterval.DAY).read ( in );
+		}
+		finally {
+			in.close();
+		}
+	}
+	finally {
+		urlConnection.disconnect();
+	}
+}
+
+/**
+Start the local HTTP server.
+*/
+protected void setUp ()
+throws Exception {
+	this.server = HttpServer.create ( new InetSocketAddress("127.0.0.1", 0), 0 );
+	this.server.createContext ( "/data", exchange -> handleData(exchange) );
+	this.server.setExecutor ( Executors.newCachedThreadPool() );
+	this.server.start();
+	this.rootUrl = "http://127.0.0.1:" + this.server.getAddress().getPort() + "/";
+}
+
+/**
+Stop the local HTTP server.
+*/
+protected void tearDown () {
+	if ( this.server != null ) {
+		this.server.stop(0);
+	}
+}
+
+/**
+Check the data values for a station triplet, which must have one value for each day in the period, in order.
+*/
+private void checkDataValues ( Map<String,List<StationDataValues>> dataValuesMap, String stationTriplet,
+	LocalDate beginDate, LocalDate endDate ) {
+	List<StationDataValues> list = dataValuesMap.get(stationTriplet);
+	assertNotNull ( stationTriplet, list );
+	assertEquals ( 1, list.size() );
+	StationDataValues dataValues = list.get(0);
+	assertEquals ( endDate.toEpochDay() - beginDate.toEpochDay() + 1, dataValues.size() );
+	for ( int i = 0; i < dataValues.size(); i++ ) {
+		assertEquals ( (double)(beginDate.toEpochDay() + i), dataValues.getValue(i), 0.0 );
+		assertEquals ( "V", dataValues.getFlag(i) );
+	}
+}
+
+/**
+Station and period chunks must be read concurrently, retried after temporary errors,
+and assembled in the requested station order with the period chunks appended.
+A station that causes a chunk to fail must be read individually so that only that station is reported as an error.
+*/
+public void testReadChunksWithRetries ()
+throws Exception {
+	List<String> stationTriplets = Arrays.asList("A:CO:SNTL", "B:CO:SNTL", "BAD:CO:SNTL", "C:CO:SNTL", "D:CO:SNTL");
+	StationDataRequestExecutor executor = new StationDataRequestExecutor ( 2, 1, 3, 2, 1 );
+	Map<String,List<StationDataValues>> dataValuesMap = executor.read ( stationTriplets,
+		DateTime.parse("2019-06-01"), DateTime.parse("2021-05-31"), TimeInterval.DAY,
+		( chunkStationTriplets, chunkBeginDate, chunkEndDate ) -> readChunk(chunkStationTriplets, chunkBeginDate, chunkEndDate) );
+	assertEquals ( Arrays.asList("A:CO:SNTL", "B:CO:SNTL", "C:CO:SNTL", "D:CO:SNTL"), new ArrayList<>(dataValuesMap.keySet()) );
+	for ( String stationTriplet : dataValuesMap.keySet() ) {
+		checkDataValues ( dataValuesMap, stationTriplet, LocalDate.parse("2019-06-01"), LocalDate.parse("2021-05-31") );
+	}
+	Map<String,String> errorMap = executor.getErrorMap();
+	assertEquals ( 1, errorMap.size() );
+	assertTrue ( errorMap.get("BAD:CO:SNTL").contains("code=404") );
+}
+
+/**
+A station that returns a temporary error for every request must be reported as an error after the retries,
+without causing other stations to fail.
+*/
+public void testRetriesExhausted ()
+throws Exception {
+	List<String> stationTriplets = Arrays.asList("A:CO:SNTL", "DOWN:CO:SNTL");
+	StationDataRequestExecutor executor = new StationDataRequestExecutor ( 50, 0, 2, 1, 1 );
+	Map<String,List<StationDataValues>> dataValuesMap = executor.read ( stationTriplets,
+		DateTime.parse("2020-01-01"), DateTime.parse("2020-01-31"), TimeInterval.DAY,
+		( chunkStationTriplets, chunkBeginDate, chunkEndDate ) -> readChunk(chunkStationTriplets, chunkBeginDate, chunkEndDate) );
+	checkDataValues ( dataValuesMap, "A:CO:SNTL", LocalDate.parse("2020-01-01"), LocalDate.parse("2020-01-31") );
+	assertFalse ( dataValuesMap.containsKey("DOWN:CO:SNTL") );
+	assertTrue ( executor.getErrorMap().get("DOWN:CO:SNTL").contains("code=503") );
+	// Chunk with 2 tries, then each station with 2 tries.
+	assertEquals ( 6, this.requestCount.get() );
+}
+
+}
@@ -0,0 +1,194 @@
+// DelimitedFileParallelReaderTest - unit tests for DelimitedFileParallelReader
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.delimited;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import RTi.TS.DayTS;
+import RTi.TS.TS;
+import RTi.Util.Time.DateTime;
+import RTi.Util.Time.TimeInterval;
+
+/**
+Unit tests for DelimitedFileParallelReader.
+Small files are read with a small chunk size so that lines are split across several chunks.
+Each file has a header line and a "Date,Flow" data line for each day in January 2020,
+with the value for day N equal to N + 0.5.
+*/
+public class DelimitedFileParallelReaderTest extends TestCase {
+
+/**
+Temporary file for the test.
+*/
+private File file = null;
+
+/**
+Check the time series that was read.
+@param ts time series to check
+@param days number of days that are expected, starting on 2020-01-01
+*/
+private void checkTimeSeries ( TS ts, int days )
+throws Exception {
+	assertEquals ( DateTime.parse("2020-01-01"), ts.getDate1() );
+	assertEquals ( DateTime.parse("2020-01-" + pad(days)), ts.getDate2() );
+	for ( int day = 1; day <= days; day++ ) {
+		assertEquals ( "day " + day, day + 0.5, ts.getDataValue(DateTime.parse("2020-01-" + pad(day))), 1.0e-10 );
+	}
+}
+
+/**
+Create the reader for a file with "Date" and "Flow" columns.
+*/
+private DelimitedFileParallelReader createReader ( List<TS> tslist, int maxThreads )
+throws Exception {
+	TS ts = new DayTS();
+	ts.setIdentifier ( "Loc1..Flow.Day" );
+	ts.setDataInterval ( TimeInterval.DAY, 1 );
+	tslist.add ( ts );
+	return new DelimitedFileParallelReader ( new ReadDelimitedFile_Command(), this.file.getPath(), ",", 2,
+		0, -1, -1, new int[] { 1 }, new int[] { -1 },
+		"Date", Arrays.asList("Flow"), null,
+		"#", null, 0, true,
+		Arrays.asList("NaN"), TimeInterval.parseInterval("Day"), tslist, null, null, maxThreads );
+}
+
+/**
+Pad a day to 2 digits.
+*/
+private String pad ( int day ) {
+	return (day < 10) ? ("0" + day) : ("" + day);
+}
+
+/**
+Delete the temporary file.
+*/
+protected void tearDown () {
+	if ( this.file != null ) {
+		this.file.delete();
+	}
+}
+
+/**
+Write the temporary file.
+@param lines lines to write, without line endings
+@param eol line ending to use
+*/
+private void writeFile ( List<String> lines, String eol )
+throws IOException {
+	this.file = File.createTempFile ( "DelimitedFileParallelReaderTest", ".csv" );
+	StringBuilder b = new StringBuilder();
+	for ( String line : lines ) {
+		b.append ( line );
+		b.append ( eol );
+	}
+	FileOutputStream out = new FileOutputStream ( this.file );
+	try {
+		out.write ( b.toString().getBytes(StandardCharsets.US_ASCII) );
+	}
+	finally {
+		out.close();
+	}
+}
+
+/**
+Lines with CRLF line endings must be read the same as lines with LF,
+for chunk sizes that place the nominal chunk end at each position in the lines.
+*/
+public void testCRLFLineEndings ()
+throws Exception {
+	List<String> lines = new ArrayList<>();
+	lines.add ( "Date,Flow" );
+	for ( int day = 1; day <= 31; day++ ) {
+		lines.add ( "2020-01-" + pad(day) + "," + (day + 0.5) );
+	}
+	writeFile ( lines, "\r\n" );
+	for ( int chunkSize = 1; chunkSize <= 20; chunkSize++ ) {
+		List<TS> tslist = new ArrayList<>();
+		DelimitedFileParallelReader reader = createReader ( tslist, 4 );
+		reader.setChunkSize ( chunkSize );
+		List<String> errorMessages = new ArrayList<>();
+		assertTrue ( reader.read(errorMessages) );
+		assertEquals ( "chunk size " + chunkSize + ": " + errorMessages, 0, errorMessages.size() );
+		checkTimeSeries ( tslist.get(0), 31 );
+	}
+}
+
+/**
+A file with fewer lines than threads must be read.
+*/
+public void testFewerLinesThanThreads ()
+throws Exception {
+	List<String> lines = new ArrayList<>();
+	lines.add ( "Date,Flow" );
+	lines.add ( "2020-01-01,1.5" );
+	lines.add ( "2020-01-02,2.5" );
+	writeFile ( lines, "\n" );
+	for ( int chunkSize : new int[] { 1, 8, 1024 } ) {
+		List<TS> tslist = new ArrayList<>();
+		DelimitedFileParallelReader reader = createReader ( tslist, 16 );
+		reader.setChunkSize ( chunkSize );
+		List<String> errorMessages = new ArrayList<>();
+		assertTrue ( reader.read(errorMessages) );
+		assertEquals ( 0, errorMessages.size() );
+		checkTimeSeries ( tslist.get(0), 2 );
+	}
+}
+
+/**
+Quoted fields, which are parsed with the string approach, must be read when they span chunk boundaries.
+The chunk size is varied so that chunk boundaries fall at each position in the quoted fields.
+*/
+public void testQuotedFieldsAcrossChunkBoundaries ()
+throws Exception {
+	List<String> lines = new ArrayList<>();
+	lines.add ( "\"Date\",\"Flow\"" );
+	for ( int day = 1; day <= 31; day++ ) {
+		if ( (day % 2) == 0 ) {
+			lines.add ( "\"2020-01-" + pad(day) + "\",\"" + (day + 0.5) + "\"" );
+		}
+		else {
+			lines.add ( "2020-01-" + pad(day) + "," + (day + 0.5) );
+		}
+	}
+	writeFile ( lines, "\n" );
+	for ( int chunkSize = 1; chunkSize <= 30; chunkSize++ ) {
+		List<TS> tslist = new ArrayList<>();
+		DelimitedFileParallelReader reader = createReader ( tslist, 4 );
+		reader.setChunkSize ( chunkSize );
+		List<String> errorMessages = new ArrayList<>();
+		assertTrue ( reader.read(errorMessages) );
+		assertEquals ( "chunk size " + chunkSize + ": " + errorMessages, 0, errorMessages.size() );
+		checkTimeSeries ( tslist.get(0), 31 );
+	}
+}
+
+}
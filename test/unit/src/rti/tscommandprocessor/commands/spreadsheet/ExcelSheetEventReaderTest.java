@@ -0,0 +1,173 @@
+// ExcelSheetEventReaderTest - unit tests for ExcelSheetEventReader
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.spreadsheet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFFormulaEvaluator;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import RTi.Util.String.StringFilterList;
+import RTi.Util.Table.DataTable;
+
+/**
+Unit tests for ExcelSheetEventReader.
+A small *.xlsx workbook is created and read with the in-memory workbook and with the event model reader,
+and the resulting tables must be the same.
+The worksheet has a heading row, a comment row, and data rows with string, number, integer, date, boolean,
+formula, blank, and undefined cells, and a row that is excluded by a filter.
+*/
+public class ExcelSheetEventReaderTest extends TestCase {
+
+/**
+Temporary file for the test.
+*/
+private File file = null;
+
+/**
+Read the table from the workbook.
+@param streaming whether to use the event model reader
+*/
+private DataTable readTable ( boolean streaming )
+throws Exception {
+	ReadTableFromExcel_Command command = new ReadTableFromExcel_Command();
+	StringFilterList excludeFilters = new StringFilterList();
+	excludeFilters.add ( "Note", "skip" );
+	String [] integerColumns = { "Count" };
+	List<String> problems = new ArrayList<>();
+	DataTable table = null;
+	if ( streaming ) {
+		table = command.readTableFromExcelFileStreaming ( this.file.getPath(), "Data",
+			"A1:F6", null, null, ExcelColumnNameRowType.FIRST_ROW_IN_RANGE,
+			null, excludeFilters, "#",
+			null, integerColumns, null, null, 2, false, problems );
+	}
+	else {
+		table = command.readTableFromExcelFile ( this.file.getPath(), "Data", false,
+			"A1:F6", null, null, ExcelColumnNameRowType.FIRST_ROW_IN_RANGE,
+			null, excludeFilters, "#",
+			null, integerColumns, null, null, 2, false, problems );
+	}
+	assertEquals ( "streaming=" + streaming + ": " + problems, 0, problems.size() );
+	assertNotNull ( table );
+	return table;
+}
+
+/**
+Delete the temporary file.
+*/
+protected void tearDown () {
+	if ( this.file != null ) {
+		this.file.delete();
+	}
+}
+
+/**
+Write the temporary workbook.
+*/
+private void writeWorkbook ()
+throws Exception {
+	XSSFWorkbook wb = new XSSFWorkbook();
+	CellStyle dateStyle = wb.createCellStyle();
+	dateStyle.setDataFormat ( wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd") );
+	Sheet sheet = wb.createSheet ( "Data" );
+	Row row = sheet.createRow ( 0 );
+	String [] names = { "Name", "Value", "Count", "Date", "Flag", "Note" };
+	for ( int i = 0; i < names.length; i++ ) {
+		row.createCell(i).setCellValue ( names[i] );
+	}
+	sheet.createRow(1).createCell(0).setCellValue ( "# Comment row" );
+	String [] noteValues = { "x", null, null, "skip" };
+	for ( int i = 0; i < 4; i++ ) {
+		row = sheet.createRow ( i + 2 );
+		row.createCell(0).setCellValue ( "" + (char)('A' + i) );
+		if ( i == 1 ) {
+			// Formula using the value in the previous row.
+			row.createCell(1).setCellFormula ( "B3*2" );
+		}
+		else if ( i == 2 ) {
+			// Text in a number column.
+			row.createCell(1).setCellValue ( "text" );
+		}
+		else {
+			row.createCell(1).setCellValue ( 1.5 + i );
+		}
+		row.createCell(2).setCellValue ( i + 2 );
+		row.createCell(3).setCellValue ( new GregorianCalendar(2020, 0, i + 1).getTime() );
+		row.getCell(3).setCellStyle ( dateStyle );
+		row.createCell(4).setCellValue ( (i % 2) == 0 );
+		if ( noteValues[i] != null ) {
+			row.createCell(5).setCellValue ( noteValues[i] );
+		}
+		else if ( i == 1 ) {
+			// Blank cell, whereas the next row does not define the cell.
+			row.createCell(5);
+		}
+	}
+	// Save the formula results, which are used by the event model reader.
+	XSSFFormulaEvaluator.evaluateAllFormulaCells ( wb );
+	this.file = File.createTempFile ( "ExcelSheetEventReaderTest", ".xlsx" );
+	FileOutputStream out = new FileOutputStream ( this.file );
+	try {
+		wb.write ( out );
+	}
+	finally {
+		out.close();
+	}
+}
+
+/**
+The event model reader must produce the same table as the in-memory workbook.
+*/
+public void testSameTableAsInMemoryWorkbook ()
+throws Exception {
+	writeWorkbook();
+	DataTable expected = readTable ( false );
+	DataTable table = readTable ( true );
+	// The comment row is skipped and row D is excluded by the filter.
+	assertEquals ( 3, expected.getNumberOfRecords() );
+	assertEquals ( 3.0, ((Double)expected.getFieldValue(1, 1)).doubleValue(), 1.0e-10 );
+	assertTrue ( ((Double)expected.getFieldValue(2, 1)).isNaN() );
+	assertEquals ( expected.getNumberOfFields(), table.getNumberOfFields() );
+	assertEquals ( expected.getNumberOfRecords(), table.getNumberOfRecords() );
+	for ( int iCol = 0; iCol < expected.getNumberOfFields(); iCol++ ) {
+		assertEquals ( expected.getFieldName(iCol), table.getFieldName(iCol) );
+		assertEquals ( expected.getFieldDataType(iCol), table.getFieldDataType(iCol) );
+		for ( int iRow = 0; iRow < expected.getNumberOfRecords(); iRow++ ) {
+			assertEquals ( "[" + iRow + "][" + iCol + "]",
+				"" + expected.getFieldValue(iRow, iCol), "" + table.getFieldValue(iRow, iCol) );
+		}
+	}
+}
+
+}
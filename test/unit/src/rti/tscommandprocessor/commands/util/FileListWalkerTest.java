@@ -0,0 +1,201 @@
+// FileListWalkerTest - unit tests for FileListWalker
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.commands.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+/**
+Unit tests for FileListWalker.
+A temporary folder is created with files in the folder and two levels of subfolders,
+and the names that are listed sequentially and with multiple threads are checked.
+*/
+public class FileListWalkerTest extends TestCase {
+
+/**
+Temporary folder for the test.
+*/
+private Path folder = null;
+
+/**
+Create the temporary folder:
+<pre>
+a.csv
+b.txt
+sub/c.csv
+sub/sub2/d.csv
+</pre>
+*/
+protected void setUp ()
+throws Exception {
+	this.folder = Files.createTempDirectory ( "FileListWalkerTest" );
+	Path sub2 = Files.createDirectories ( this.folder.resolve("sub").resolve("sub2") );
+	Files.createFile ( this.folder.resolve("a.csv") );
+	Files.createFile ( this.folder.resolve("b.txt") );
+	Files.createFile ( this.folder.resolve("sub").resolve("c.csv") );
+	Files.createFile ( sub2.resolve("d.csv") );
+}
+
+/**
+Delete the temporary folder.
+*/
+protected void tearDown ()
+throws Exception {
+	if ( this.folder != null ) {
+		delete ( this.folder );
+	}
+}
+
+/**
+Delete a file or folder, including the contents of a folder.
+Symbolic links are deleted without deleting the target.
+*/
+private void delete ( Path path )
+throws IOException {
+	if ( Files.isDirectory(path) && !Files.isSymbolicLink(path) ) {
+		List<Path> children = new ArrayList<>();
+		try ( Stream<Path> stream = Files.list(path) ) {
+			stream.forEach ( children::add );
+		}
+		for ( Path child : children ) {
+			delete ( child );
+		}
+	}
+	Files.delete ( path );
+}
+
+/**
+List the names of the matched files and folders, sorted.
+*/
+private List<String> list ( FileListWalker walker )
+throws Exception {
+	List<String> names = new ArrayList<>();
+	assertTrue ( walker.walk ( this.folder, (Path path, BasicFileAttributes attributes) -> {
+		names.add ( this.folder.relativize(path).toString().replace('\\', '/') );
+		return true;
+	}));
+	Collections.sort ( names );
+	return names;
+}
+
+/**
+Only files in the top folder are listed if not recursive, and the include pattern is used.
+*/
+public void testFolder ()
+throws Exception {
+	FileListWalker walker = new FileListWalker ( false, true, false, "*.csv", null, 1 );
+	assertEquals ( "[a.csv]", "" + list(walker) );
+}
+
+/**
+Files in subfolders are listed if recursive, and the exclude pattern is used.
+*/
+public void testRecursive ()
+throws Exception {
+	FileListWalker walker = new FileListWalker ( true, true, false, null, "d.*", 1 );
+	assertEquals ( "[a.csv, b.txt, sub/c.csv]", "" + list(walker) );
+}
+
+/**
+Listing with multiple threads finds the same files and folders as listing with one thread.
+*/
+public void testRecursiveParallel ()
+throws Exception {
+	List<String> expected = list ( new FileListWalker(true, true, true, null, null, 1) );
+	assertEquals ( "[a.csv, b.txt, sub, sub/c.csv, sub/sub2, sub/sub2/d.csv]", "" + expected );
+	assertEquals ( expected, list(new FileListWalker(true, true, true, null, null, 4)) );
+	assertEquals ( "[sub, sub/sub2]", "" + list(new FileListWalker(true, false, true, null, null, 4)) );
+}
+
+/**
+A symbolic link to a parent folder is not listed again, with one or multiple threads.
+The test is skipped if symbolic links cannot be created (e.g., on Windows without permission).
+*/
+public void testFolderLoop ()
+throws Exception {
+	try {
+		Files.createSymbolicLink ( this.folder.resolve("sub").resolve("sub2").resolve("loop"), this.folder );
+	}
+	catch ( IOException | UnsupportedOperationException e ) {
+		return;
+	}
+	for ( int maxThreads : new int [] { 1, 4 } ) {
+		FileListWalker walker = new FileListWalker ( true, true, false, "*.csv", null, maxThreads );
+		assertEquals ( "[a.csv, sub/c.csv, sub/sub2/d.csv]", "" + list(walker) );
+	}
+}
+
+/**
+The folder key is the same for the same folder.
+*/
+public void testGetFolderKey ()
+throws Exception {
+	Path sub = this.folder.resolve("sub");
+	Object key = FileListWalker.getFolderKey ( sub, Files.readAttributes(sub, BasicFileAttributes.class) );
+	assertNotNull ( key );
+	Path sub2 = this.folder.resolve("sub").resolve("sub2").resolve("..");
+	assertEquals ( key, FileListWalker.getFolderKey(sub2, Files.readAttributes(sub2, BasicFileAttributes.class)) );
+}
+
+/**
+Listing stops when the listener returns false.
+*/
+public void testListenerStops ()
+throws Exception {
+	for ( int maxThreads : new int [] { 1, 4 } ) {
+		FileListWalker walker = new FileListWalker ( true, true, false, null, null, maxThreads );
+		List<Path> paths = new ArrayList<>();
+		assertFalse ( walker.walk ( this.folder, (Path path, BasicFileAttributes attributes) -> {
+			paths.add ( path );
+			return false;
+		}));
+		assertEquals ( 1, paths.size() );
+	}
+}
+
+/**
+Listing a folder that does not exist throws FileNotFoundException.
+*/
+public void testMissingFolder ()
+throws Exception {
+	FileListWalker walker = new FileListWalker ( false, true, false, null, null, 1 );
+	try {
+		walker.walk ( this.folder.resolve("missing"), (Path path, BasicFileAttributes attributes) -> true );
+		fail ( "Expected FileNotFoundException" );
+	}
+	catch ( FileNotFoundException e ) {
+		// Expected.
+	}
+}
+
+}
@@ -0,0 +1,157 @@
+// ControlFlowIndexTest - unit tests for ControlFlowIndex
+
+/* NoticeStart
+
+CDSS Time Series Processor Java Library
+CDSS Time Series Processor Java Library is a part of Colorado's Decision Support Systems (CDSS)
+Copyright (C) 1994-2025 Colorado Department of Natural Resources
+
+CDSS Time Series Processor Java Library is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+CDSS Time Series Processor Java Library is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with CDSS Time Series Processor Java Library.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package rti.tscommandprocessor.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import RTi.Util.IO.Command;
+import rti.tscommandprocessor.commands.util.Break_Command;
+import rti.tscommandprocessor.commands.util.CommentBlockEnd_Command;
+import rti.tscommandprocessor.commands.util.CommentBlockStart_Command;
+import rti.tscommandprocessor.commands.util.Continue_Command;
+import rti.tscommandprocessor.commands.util.EndFor_Command;
+import rti.tscommandprocessor.commands.util.For_Command;
+
+/**
+Unit tests for ControlFlowIndex, in particular matching Break() and Continue() to the enclosing For() loop.
+*/
+public class ControlFlowIndexTest extends TestCase {
+
+/**
+Create an EndFor() command.
+*/
+private EndFor_Command endFor ( String name ) {
+	EndFor_Command command = new EndFor_Command();
+	command.setCommandParameter ( "Name", name );
+	return command;
+}
+
+/**
+Create a For() command.
+*/
+private For_Command forLoop ( String name ) {
+	For_Command command = new For_Command();
+	command.setCommandParameter ( "Name", name );
+	return command;
+}
+
+/**
+Break() after a sibling inner loop must exit the outer loop:
+For(a), For(b), EndFor(b), Break(), EndFor(a).
+*/
+public void testBreakAfterInnerLoop () {
+	List<Command> commands = new ArrayList<>();
+	For_Command forA = forLoop("a");
+	commands.add ( forA );
+	commands.add ( forLoop("b") );
+	commands.add ( endFor("b") );
+	commands.add ( new Break_Command() );
+	commands.add ( endFor("a") );
+	ControlFlowIndex index = new ControlFlowIndex ( commands );
+	assertSame ( forA, index.getForCommandForLoopExit(3) );
+	assertFalse ( index.hasProblem(3) );
+}
+
+/**
+Break() inside an inner loop must exit the inner loop:
+For(a), For(b), Break(), EndFor(b), EndFor(a).
+*/
+public void testBreakInInnerLoop () {
+	List<Command> commands = new ArrayList<>();
+	commands.add ( forLoop("a") );
+	For_Command forB = forLoop("b");
+	commands.add ( forB );
+	commands.add ( new Break_Command() );
+	commands.add ( endFor("b") );
+	commands.add ( endFor("a") );
+	ControlFlowIndex index = new ControlFlowIndex ( commands );
+	assertSame ( forB, index.getForCommandForLoopExit(2) );
+}
+
+/**
+Continue() between and after sibling inner loops must use the outer loop, and Continue() in the second
+inner loop must use that loop:
+For(a), For(b), EndFor(b), Continue(), For(c), Continue(), EndFor(c), Continue(), EndFor(a).
+*/
+public void testContinueWithSiblingInnerLoops () {
+	List<Command> commands = new ArrayList<>();
+	For_Command forA = forLoop("a");
+	commands.add ( forA );
+	commands.add ( forLoop("b") );
+	commands.add ( endFor("b") );
+	commands.add ( new Continue_Command() );
+	For_Command forC = forLoop("c");
+	commands.add ( forC );
+	commands.add ( new Continue_Command() );
+	commands.add ( endFor("c") );
+	commands.add ( new Continue_Command() );
+	commands.add ( endFor("a") );
+	ControlFlowIndex index = new ControlFlowIndex ( commands );
+	assertSame ( forA, index.getForCommandForLoopExit(3) );
+	assertSame ( forC, index.getForCommandForLoopExit(5) );
+	assertSame ( forA, index.getForCommandForLoopExit(7) );
+}
+
+/**
+Break() after a loop has ended is not in a loop and is a problem:
+For(a), EndFor(a), Break().
+*/
+public void testBreakOutsideLoop () {
+	List<Command> commands = new ArrayList<>();
+	commands.add ( forLoop("a") );
+	commands.add ( endFor("a") );
+	commands.add ( new Break_Command() );
+	ControlFlowIndex index = new ControlFlowIndex ( commands );
+	assertNull ( index.getForCommandForLoopExit(2) );
+	assertTrue ( index.hasProblem(2) );
+}
+
+/**
+Commands in a comment block are ignored:
+For(a), CommentBlockStart, For(b), EndFor(a), Break(), CommentBlockEnd, Break(), EndFor(a).
+The commented For(b) without an EndFor() and the commented Break() are not problems,
+and the commented EndFor(a) does not end loop a.
+*/
+public void testCommentBlock () {
+	List<Command> commands = new ArrayList<>();
+	For_Command forA = forLoop("a");
+	commands.add ( forA );
+	commands.add ( new CommentBlockStart_Command() );
+	commands.add ( forLoop("b") );
+	commands.add ( endFor("a") );
+	commands.add ( new Break_Command() );
+	commands.add ( new CommentBlockEnd_Command() );
+	commands.add ( new Break_Command() );
+	commands.add ( endFor("a") );
+	ControlFlowIndex index = new ControlFlowIndex ( commands );
+	assertEquals ( 0, index.addProblemsToCommandStatus() );
+	assertNull ( index.getForCommand("b") );
+	assertEquals ( 7, index.getEndForIndex("a") );
+	assertSame ( forA, index.getForCommandForLoopExit(6) );
+}
+
+}